@@ -0,0 +1,150 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.util;
+
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Builds a backfill schedule the way the main controller does when it
+ * requests history for a range of trading days. Starting from the last close
+ * each request walks back a trading day at a time, offsets the start by the
+ * backfill days and formats and parses the request end date.
+ * 
+ * backfillSchedule covers YEARS years of trading days for one contract.
+ * addTradingDays jumps across the same range with increasing offsets.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class TradingCalendarBenchmark {
+
+	public static final int YEARS = 5;
+	public static final int BACKFILL_OFFSET_DAYS = 2;
+	public static final String DATE_FORMAT = "yyyyMMdd HH:mm:ss";
+
+	private ZonedDateTime endDate = null;
+	private ZonedDateTime startDate = null;
+
+	/**
+	 * Method setUp.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.endDate = TradingCalendar.getTradingDayEnd(TradingCalendar.getPrevTradingDay(
+				ZonedDateTime.of(2017, 12, 29, 16, 0, 0, 0, TradingCalendar.MKT_TIMEZONE)));
+		this.startDate = this.endDate.minusYears(YEARS);
+	}
+
+	/**
+	 * Method backfillSchedule.
+	 * 
+	 * @return int
+	 */
+	@Benchmark
+	@Threads(1)
+	public int backfillSchedule() {
+		return schedule();
+	}
+
+	/**
+	 * Method backfillScheduleAllCores.
+	 * 
+	 * @return int
+	 */
+	@Benchmark
+	@Threads(Threads.MAX)
+	public int backfillScheduleAllCores() {
+		return schedule();
+	}
+
+	/**
+	 * Method addTradingDays.
+	 * 
+	 * @return long
+	 */
+	@Benchmark
+	@Threads(1)
+	public long addTradingDays() {
+		long total = 0;
+		for (int i = 1; i < YEARS * 252; i++) {
+			total += TradingCalendar.addTradingDays(this.endDate, -i).getDayOfYear();
+			total += TradingCalendar.addTradingDays(this.startDate, i).getDayOfYear();
+		}
+		return total;
+	}
+
+	/**
+	 * Method schedule.
+	 * 
+	 * @return int
+	 */
+	private int schedule() {
+		int requests = 0;
+		ZonedDateTime date = this.endDate;
+		while (date.isAfter(this.startDate)) {
+			ZonedDateTime backfillStart = TradingCalendar.addTradingDays(date, -BACKFILL_OFFSET_DAYS);
+			String endDateTime = TradingCalendar.getFormattedDate(TradingCalendar.getTradingDayEnd(date),
+					DATE_FORMAT);
+			ZonedDateTime requestEnd = TradingCalendar.getZonedDateTimeFromDateTimeString(endDateTime,
+					DATE_FORMAT, TradingCalendar.MKT_TIMEZONE);
+			if (TradingCalendar.isTradingDay(backfillStart) && requestEnd.isAfter(backfillStart)) {
+				requests++;
+			}
+			date = TradingCalendar.getPrevTradingDay(date);
+		}
+		return requests;
+	}
+}
@@ -0,0 +1,182 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.strategy;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.trade.broker.BrokerModel;
+import org.trade.dictionary.valuetype.Side;
+import org.trade.persistent.PersistentModel;
+import org.trade.persistent.dao.Strategy;
+import org.trade.persistent.dao.Tradestrategy;
+import org.trade.persistent.dao.TradestrategyOrders;
+import org.trade.persistent.dao.Tradingday;
+import org.trade.strategy.data.BenchmarkData;
+import org.trade.strategy.data.CandleSeries;
+import org.trade.strategy.data.StrategyData;
+import org.trade.strategy.data.StrategyDataBenchmark;
+import org.trade.strategy.data.candle.CandleItem;
+
+/**
+ * Benchmark of the AbstractStrategyRule candle processing with a strategy
+ * whose runStrategy does nothing. One operation replays a trading day of 5sec
+ * candles into 5min bars firing the rule after every candle, so the result
+ * less StrategyDataBenchmark is the cost of the rule framework itself. The
+ * persistent model is an in memory stub so no database is needed.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+public class StrategyRuleBenchmark {
+
+	private static final Integer ID_TRADESTRATEGY = 1;
+
+	private Strategy strategy = null;
+	private Tradingday tradingday = null;
+	private CandleSeries source = null;
+
+	/**
+	 * Method setUp.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.strategy = BenchmarkData.createStrategy();
+		this.tradingday = BenchmarkData.createTradingday();
+		this.source = BenchmarkData.createDummyData(5, 1);
+	}
+
+	/**
+	 * Method runStrategy.
+	 * 
+	 * @return StrategyRule
+	 * @throws Exception
+	 */
+	@Benchmark
+	public StrategyRule runStrategy() throws Exception {
+		StrategyData strategyData = StrategyDataBenchmark.createStrategyData(this.strategy, this.source,
+				this.tradingday);
+		Tradestrategy tradestrategy = new Tradestrategy(this.source.getContract(), this.tradingday, this.strategy,
+				null, new BigDecimal(100), Side.BOT, "1", true, 1, StrategyDataBenchmark.BAR_SIZE);
+		tradestrategy.setIdTradeStrategy(ID_TRADESTRATEGY);
+
+		NoOpStrategy strategyRule = new NoOpStrategy(null, strategyData, ID_TRADESTRATEGY);
+		strategyRule.initialiseStrategy(createPersistentModel(tradestrategy));
+		int rollupInterval = StrategyDataBenchmark.BAR_SIZE / this.source.getBarSize();
+		for (int i = 0; i < this.source.getItemCount(); i++) {
+			StrategyDataBenchmark.buildCandle(strategyData, (CandleItem) this.source.getDataItem(i), rollupInterval);
+			strategyRule.processCandleSeries();
+		}
+		return strategyRule;
+	}
+
+	/**
+	 * Method createPersistentModel. A PersistentModel that returns the
+	 * tradestrategy and an empty set of position orders, anything else is
+	 * unsupported.
+	 * 
+	 * @param tradestrategy
+	 *            Tradestrategy
+	 * @return PersistentModel
+	 */
+	private static PersistentModel createPersistentModel(final Tradestrategy tradestrategy) {
+		final TradestrategyOrders tradestrategyOrders = new TradestrategyOrders();
+		return (PersistentModel) Proxy.newProxyInstance(PersistentModel.class.getClassLoader(),
+				new Class<?>[] { PersistentModel.class }, new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						if ("findTradestrategyById".equals(method.getName())) {
+							return tradestrategy;
+						} else if ("findPositionOrdersByTradestrategyId".equals(method.getName())) {
+							return tradestrategyOrders;
+						}
+						throw new UnsupportedOperationException(method.getName());
+					}
+				});
+	}
+
+	/**
+	 * A strategy rule that never trades.
+	 */
+	public static class NoOpStrategy extends AbstractStrategyRule {
+
+		private static final long serialVersionUID = -1488117541446185045L;
+
+		/**
+		 * Constructor for NoOpStrategy.
+		 * 
+		 * @param brokerManagerModel
+		 *            BrokerModel
+		 * @param strategyData
+		 *            StrategyData
+		 * @param idTradestrategy
+		 *            Integer
+		 */
+		public NoOpStrategy(BrokerModel brokerManagerModel, StrategyData strategyData, Integer idTradestrategy) {
+			super(brokerManagerModel, strategyData, idTradestrategy);
+		}
+
+		/**
+		 * Method runStrategy.
+		 * 
+		 * @param candleSeries
+		 *            CandleSeries
+		 * @param newBar
+		 *            boolean
+		 */
+		public void runStrategy(CandleSeries candleSeries, boolean newBar) {
+		}
+	}
+}
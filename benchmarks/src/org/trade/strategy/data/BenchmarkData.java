@@ -0,0 +1,276 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.strategy.data;
+
+import java.awt.Color;
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.trade.core.util.TradingCalendar;
+import org.trade.dictionary.valuetype.CalculationType;
+import org.trade.dictionary.valuetype.Currency;
+import org.trade.dictionary.valuetype.Exchange;
+import org.trade.dictionary.valuetype.PriceSource;
+import org.trade.dictionary.valuetype.SECType;
+import org.trade.persistent.dao.Contract;
+import org.trade.persistent.dao.Strategy;
+import org.trade.persistent.dao.Tradingday;
+import org.trade.strategy.data.candle.CandleItem;
+
+/**
+ * Synthetic data for the benchmarks. Candles are generated with
+ * StrategyData.doDummyData so the benchmarks run without a database or broker
+ * and the indicators are created with the default parameters from
+ * TradeManagerData.sql.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class BenchmarkData {
+
+	public static final String SYMBOL = "SPY";
+
+	/**
+	 * The indicators that are benchmarked, these are the indicator series
+	 * types that have an updateSeries calculation.
+	 */
+	public static final String[] INDICATORS = { IndicatorSeries.MovingAverageSeries,
+			IndicatorSeries.BollingerBandsSeries, IndicatorSeries.VostroSeries, IndicatorSeries.PivotSeries,
+			IndicatorSeries.MACDSeries, IndicatorSeries.RelativeStrengthIndexSeries,
+			IndicatorSeries.StochasticOscillatorSeries, IndicatorSeries.CommodityChannelIndexSeries,
+			IndicatorSeries.AverageTrueRangeSeries, IndicatorSeries.MoneyFlowIndexSeries, IndicatorSeries.VwapSeries,
+			IndicatorSeries.HeikinAshiSeries };
+
+	private BenchmarkData() {
+	}
+
+	/**
+	 * Method createContract.
+	 * 
+	 * @return Contract
+	 */
+	public static Contract createContract() {
+		return new Contract(SECType.STOCK, SYMBOL, Exchange.SMART, Currency.USD, null, null);
+	}
+
+	/**
+	 * Method createTradingday. A fixed trading day so every run uses the same
+	 * data.
+	 * 
+	 * @return Tradingday
+	 */
+	public static Tradingday createTradingday() {
+		ZonedDateTime date = ZonedDateTime.of(2016, 3, 1, 12, 0, 0, 0, TradingCalendar.MKT_TIMEZONE);
+		return new Tradingday(TradingCalendar.getTradingDayStart(date), TradingCalendar.getTradingDayEnd(date));
+	}
+
+	/**
+	 * Method createCandleSeries. An empty series for the trading day.
+	 * 
+	 * @param contract
+	 *            Contract
+	 * @param tradingday
+	 *            Tradingday
+	 * @param barSize
+	 *            int
+	 * @return CandleSeries
+	 */
+	public static CandleSeries createCandleSeries(Contract contract, Tradingday tradingday, int barSize) {
+		return new CandleSeries(contract.getSymbol(), contract, barSize, tradingday.getOpen(), tradingday.getClose());
+	}
+
+	/**
+	 * Method createDummyData. A series populated with doDummyData.
+	 * 
+	 * @param barSize
+	 *            int
+	 * @param noDays
+	 *            int
+	 * @return CandleSeries
+	 */
+	public static CandleSeries createDummyData(int barSize, int noDays) {
+		Tradingday tradingday = createTradingday();
+		CandleSeries series = createCandleSeries(createContract(), tradingday, barSize);
+		StrategyData.doDummyData(series, tradingday, noDays, barSize, true, 0);
+		return series;
+	}
+
+	/**
+	 * Method buildCandle. Add the candle from another series to the series
+	 * as the broker would.
+	 * 
+	 * @param series
+	 *            CandleSeries
+	 * @param candleItem
+	 *            CandleItem
+	 * @param rollupInterval
+	 *            int
+	 * @return boolean true if a new bar was created.
+	 */
+	public static boolean buildCandle(CandleSeries series, CandleItem candleItem, int rollupInterval) {
+		return series.buildCandle(candleItem.getPeriod().getStart(), candleItem.getOpen(), candleItem.getHigh(),
+				candleItem.getLow(), candleItem.getClose(), candleItem.getVolume(), candleItem.getVwap(),
+				candleItem.getCount(), rollupInterval, null);
+	}
+
+	/**
+	 * Method createCandleDataset.
+	 * 
+	 * @param series
+	 *            CandleSeries
+	 * @return CandleDataset
+	 */
+	public static CandleDataset createCandleDataset(CandleSeries series) {
+		CandleDataset candleDataset = new CandleDataset();
+		candleDataset.addSeries(series);
+		return candleDataset;
+	}
+
+	/**
+	 * Method createStrategy. A strategy with every indicator.
+	 * 
+	 * @return Strategy
+	 */
+	public static Strategy createStrategy() {
+		Strategy strategy = new Strategy("NoOpStrategy");
+		List<IndicatorSeries> indicators = new ArrayList<IndicatorSeries>();
+		for (String type : INDICATORS) {
+			indicators.add(createIndicator(strategy, type));
+		}
+		strategy.setIndicatorSeries(indicators);
+		return strategy;
+	}
+
+	/**
+	 * Method createIndicator. A new indicator series of the type with the
+	 * default parameters.
+	 * 
+	 * @param strategy
+	 *            Strategy
+	 * @param type
+	 *            String
+	 * @return IndicatorSeries
+	 */
+	public static IndicatorSeries createIndicator(Strategy strategy, String type) {
+
+		Integer color = Color.BLUE.getRGB();
+		switch (type) {
+		case IndicatorSeries.MovingAverageSeries: {
+			MovingAverageSeries series = new MovingAverageSeries(strategy, "20-SMA", type, "20 Simple MA", true, color,
+					false);
+			series.setPriceSource(PriceSource.CLOSE);
+			series.setLength(20);
+			series.setMAType(CalculationType.LINEAR);
+			return series;
+		}
+		case IndicatorSeries.BollingerBandsSeries: {
+			BollingerBandsSeries series = new BollingerBandsSeries(strategy, "BB", type, "Bollinger Bands", true,
+					color, false);
+			series.setLength(20);
+			series.setNumberOfSTD(new BigDecimal("2.0"));
+			return series;
+		}
+		case IndicatorSeries.VostroSeries: {
+			VostroSeries series = new VostroSeries(strategy, "Vostro", type, "Vostro", true, color, true);
+			series.setPriceSource(PriceSource.MEDIAN);
+			series.setLength(100);
+			series.setMAType(CalculationType.WEIGHTED);
+			series.setVostroPeriod(5);
+			series.setVostroRange(new BigDecimal("8.0"));
+			return series;
+		}
+		case IndicatorSeries.PivotSeries: {
+			PivotSeries series = new PivotSeries(strategy, "Pivot", type, "Pivot", true, color, false);
+			series.setBars(5);
+			series.setSide(false);
+			series.setQuadratic(true);
+			return series;
+		}
+		case IndicatorSeries.MACDSeries: {
+			MACDSeries series = new MACDSeries(strategy, "MACD", type, "MACD", true, color, true);
+			series.setFastLength(12);
+			series.setSlowLength(26);
+			series.setSignalSmoothing(9);
+			series.setSimpleMAType(true);
+			return series;
+		}
+		case IndicatorSeries.RelativeStrengthIndexSeries: {
+			RelativeStrengthIndexSeries series = new RelativeStrengthIndexSeries(strategy, "RSI", type, "RSI", true,
+					color, true);
+			series.setLength(14);
+			series.setRollingCandle(false);
+			return series;
+		}
+		case IndicatorSeries.StochasticOscillatorSeries: {
+			StochasticOscillatorSeries series = new StochasticOscillatorSeries(strategy, "Stochastic", type,
+					"Stochastic", true, color, true);
+			series.setLength(14);
+			series.setPercentD(3);
+			series.setSmoothing(1);
+			series.setInverse(false);
+			return series;
+		}
+		case IndicatorSeries.CommodityChannelIndexSeries: {
+			CommodityChannelIndexSeries series = new CommodityChannelIndexSeries(strategy, "CCI", type, "CCI", true,
+					color, true);
+			series.setLength(20);
+			series.setRollingCandle(false);
+			return series;
+		}
+		case IndicatorSeries.AverageTrueRangeSeries: {
+			AverageTrueRangeSeries series = new AverageTrueRangeSeries(strategy, "ATR", type, "ATR", true, color,
+					true);
+			series.setLength(14);
+			series.setRollingCandle(false);
+			return series;
+		}
+		case IndicatorSeries.MoneyFlowIndexSeries: {
+			MoneyFlowIndexSeries series = new MoneyFlowIndexSeries(strategy, "MFI", type, "MFI", true, color, true);
+			series.setLength(14);
+			series.setRollingCandle(false);
+			return series;
+		}
+		case IndicatorSeries.VwapSeries:
+			return new VwapSeries(strategy, "Vwap", type, "Vwap", true, color, false);
+		case IndicatorSeries.HeikinAshiSeries:
+			return new HeikinAshiSeries(strategy, "HeikinAshi", type, "Heikin-Ashi", true, color, false);
+		default:
+			throw new IllegalArgumentException("Indicator type: " + type + " not supported.");
+		}
+	}
+}
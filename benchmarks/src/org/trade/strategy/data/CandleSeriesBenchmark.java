@@ -0,0 +1,153 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.strategy.data;
+
+import java.time.ZonedDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.trade.persistent.dao.Tradingday;
+import org.trade.strategy.data.candle.CandleItem;
+
+/**
+ * Benchmark of CandleSeries.buildCandle. buildCandle replays a trading day of
+ * 5sec candles into a series of the bar size i.e. 5sec candles are rolled up
+ * to 5sec, 1min and 5min bars. addBar replays 5 days of candles of the bar
+ * size one for one, this is the base line for IndicatorSeriesBenchmark.
+ * indexOf looks up the current, the first and a random candle in 5 days of
+ * candles of the bar size, the cost should not grow with the number of days.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CandleSeriesBenchmark {
+
+	@Param({ "5", "60", "300" })
+	public int barSize;
+
+	private Tradingday tradingday = null;
+	private CandleSeries source = null;
+	private CandleSeries bars = null;
+	private ZonedDateTime[] times = null;
+	private int next = 0;
+
+	/**
+	 * Method setUp.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.tradingday = BenchmarkData.createTradingday();
+		this.source = BenchmarkData.createDummyData(5, 1);
+		this.bars = BenchmarkData.createDummyData(this.barSize, IndicatorSeriesBenchmark.NO_DAYS);
+		int itemCount = this.bars.getItemCount();
+		Random random = new Random(itemCount);
+		this.times = new ZonedDateTime[1024];
+		for (int i = 0; i < this.times.length; i++) {
+			int index = (i % 3 == 0 ? itemCount - 1 : (i % 3 == 1 ? 0 : random.nextInt(itemCount)));
+			this.times[i] = ((CandleItem) this.bars.getDataItem(index)).getPeriod().getStart().plusSeconds(2);
+		}
+	}
+
+	/**
+	 * Method buildCandle.
+	 * 
+	 * @return CandleSeries
+	 */
+	@Benchmark
+	public CandleSeries buildCandle() {
+		return replay(this.source, this.tradingday, this.barSize);
+	}
+
+	/**
+	 * Method addBar.
+	 * 
+	 * @return CandleSeries
+	 */
+	@Benchmark
+	public CandleSeries addBar() {
+		return replay(this.bars, this.tradingday, this.barSize);
+	}
+
+	/**
+	 * Method indexOf.
+	 * 
+	 * @return int
+	 */
+	@Benchmark
+	public int indexOf() {
+		this.next = (this.next + 1) & 1023;
+		return this.bars.indexOf(this.times[this.next]);
+	}
+
+	/**
+	 * Method replay. Build a new series of the bar size from the source
+	 * candles.
+	 * 
+	 * @param source
+	 *            CandleSeries
+	 * @param tradingday
+	 *            Tradingday
+	 * @param barSize
+	 *            int
+	 * @return CandleSeries
+	 */
+	private static CandleSeries replay(CandleSeries source, Tradingday tradingday, int barSize) {
+		CandleSeries series = BenchmarkData.createCandleSeries(source.getContract(), tradingday, barSize);
+		int rollupInterval = barSize / source.getBarSize();
+		for (int i = 0; i < source.getItemCount(); i++) {
+			BenchmarkData.buildCandle(series, (CandleItem) source.getDataItem(i), rollupInterval);
+		}
+		return series;
+	}
+}
@@ -0,0 +1,140 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.strategy.data;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.trade.persistent.dao.Strategy;
+import org.trade.persistent.dao.Tradingday;
+import org.trade.strategy.data.candle.CandleItem;
+
+/**
+ * Benchmark of IndicatorSeries.updateSeries for each indicator type.
+ * updateSeries replays 5 days of 5min bars into a candle series calculating
+ * the indicator after every bar as StrategyData does, subtract
+ * CandleSeriesBenchmark.addBar for the indicator cost. updateCurrentBar
+ * recalculates the last bar as happens for every 5sec candle received while a
+ * 5min bar is building.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class IndicatorSeriesBenchmark {
+
+	public static final int BAR_SIZE = 300;
+	public static final int NO_DAYS = 5;
+
+	@Param({ IndicatorSeries.MovingAverageSeries, IndicatorSeries.BollingerBandsSeries, IndicatorSeries.VostroSeries,
+			IndicatorSeries.PivotSeries, IndicatorSeries.MACDSeries, IndicatorSeries.RelativeStrengthIndexSeries,
+			IndicatorSeries.StochasticOscillatorSeries, IndicatorSeries.CommodityChannelIndexSeries,
+			IndicatorSeries.AverageTrueRangeSeries, IndicatorSeries.MoneyFlowIndexSeries, IndicatorSeries.VwapSeries,
+			IndicatorSeries.HeikinAshiSeries })
+	public String type;
+
+	private Strategy strategy = null;
+	private Tradingday tradingday = null;
+	private CandleSeries source = null;
+	private CandleSeries candleSeries = null;
+	private IndicatorSeries series = null;
+
+	/**
+	 * Method setUp.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.strategy = BenchmarkData.createStrategy();
+		this.tradingday = BenchmarkData.createTradingday();
+		this.source = BenchmarkData.createDummyData(BAR_SIZE, NO_DAYS);
+		this.candleSeries = BenchmarkData.createCandleSeries(this.source.getContract(), this.tradingday, BAR_SIZE);
+		this.series = replay(this.candleSeries);
+	}
+
+	/**
+	 * Method updateSeries.
+	 * 
+	 * @return IndicatorSeries
+	 */
+	@Benchmark
+	public IndicatorSeries updateSeries() {
+		return replay(BenchmarkData.createCandleSeries(this.source.getContract(), this.tradingday, BAR_SIZE));
+	}
+
+	/**
+	 * Method updateCurrentBar.
+	 * 
+	 * @return IndicatorSeries
+	 */
+	@Benchmark
+	public IndicatorSeries updateCurrentBar() {
+		this.series.updateSeries(this.candleSeries, this.candleSeries.getItemCount() - 1, false);
+		return this.series;
+	}
+
+	/**
+	 * Method replay. Add the source bars to the candle series updating a new
+	 * indicator after each bar.
+	 * 
+	 * @param candleSeries
+	 *            CandleSeries
+	 * @return IndicatorSeries
+	 */
+	private IndicatorSeries replay(CandleSeries candleSeries) {
+		IndicatorSeries indicator = BenchmarkData.createIndicator(this.strategy, this.type);
+		for (int i = 0; i < this.source.getItemCount(); i++) {
+			boolean newBar = BenchmarkData.buildCandle(candleSeries, (CandleItem) this.source.getDataItem(i), 1);
+			indicator.updateSeries(candleSeries, candleSeries.getItemCount() - 1, newBar);
+		}
+		return indicator;
+	}
+}
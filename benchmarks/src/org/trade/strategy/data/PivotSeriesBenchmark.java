@@ -0,0 +1,186 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.strategy.data;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.trade.core.util.MatrixFunctions;
+import org.trade.core.util.Pair;
+import org.trade.core.util.PolynomialFitter;
+import org.trade.persistent.dao.Tradingday;
+import org.trade.strategy.data.candle.CandleItem;
+import org.trade.strategy.data.candle.CandlePeriod;
+
+/**
+ * Throughput of the pivot calculation on one thread and on every available
+ * core. Each thread has its own candle and pivot series as each strategy
+ * worker does, so with no shared lock the throughput with Threads.MAX should
+ * be close to the single thread throughput times the number of cores.
+ * 
+ * createSeries re-calculates the pivots for 5 days of 5min bars. fit and
+ * solve compare the incremental PolynomialFitter against re-solving the window
+ * with MatrixFunctions for every bar.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class PivotSeriesBenchmark {
+
+	public static final int BAR_SIZE = 300;
+	public static final int NO_DAYS = 5;
+	public static final int POLY_ORDER = 2;
+	public static final int BARS = 5;
+
+	private CandleSeries candleSeries = null;
+	private PivotSeries series = null;
+	private double[] xValues = null;
+	private double[] yValues = null;
+	private Pair[] pairs = null;
+	private PolynomialFitter fitter = null;
+
+	/**
+	 * Method setUp.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		Tradingday tradingday = BenchmarkData.createTradingday();
+		CandleSeries source = BenchmarkData.createDummyData(BAR_SIZE, NO_DAYS);
+		this.candleSeries = BenchmarkData.createCandleSeries(source.getContract(), tradingday, BAR_SIZE);
+		this.xValues = new double[source.getItemCount()];
+		this.yValues = new double[source.getItemCount()];
+		for (int i = 0; i < source.getItemCount(); i++) {
+			CandleItem candleItem = (CandleItem) source.getDataItem(i);
+			BenchmarkData.buildCandle(this.candleSeries, candleItem, 1);
+			this.xValues[i] = ((CandlePeriod) candleItem.getPeriod()).getDaySerialIndex();
+			this.yValues[i] = candleItem.getVwap();
+		}
+		this.series = (PivotSeries) BenchmarkData.createIndicator(BenchmarkData.createStrategy(),
+				IndicatorSeries.PivotSeries);
+		this.pairs = new Pair[BARS];
+		this.fitter = new PolynomialFitter(POLY_ORDER, BARS);
+	}
+
+	/**
+	 * Method createSeries.
+	 * 
+	 * @return PivotSeries
+	 */
+	@Benchmark
+	@Threads(1)
+	public PivotSeries createSeries() {
+		return recalculate();
+	}
+
+	/**
+	 * Method createSeriesAllCores.
+	 * 
+	 * @return PivotSeries
+	 */
+	@Benchmark
+	@Threads(Threads.MAX)
+	public PivotSeries createSeriesAllCores() {
+		return recalculate();
+	}
+
+	/**
+	 * Method fit. Slide the fitter over every bar.
+	 * 
+	 * @return double
+	 */
+	@Benchmark
+	@Threads(Threads.MAX)
+	public double fit() {
+		double total = 0;
+		this.fitter.clear();
+		for (int i = 0; i < this.xValues.length; i++) {
+			this.fitter.add(this.xValues[i], this.yValues[i]);
+			if (this.fitter.size() == BARS && this.fitter.solve()) {
+				total += this.fitter.getCorrelationCoefficient();
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Method solve. Re-solve the window for every bar.
+	 * 
+	 * @return double
+	 */
+	@Benchmark
+	@Threads(Threads.MAX)
+	public double solve() {
+		double total = 0;
+		for (int i = BARS - 1; i < this.xValues.length; i++) {
+			for (int j = 0; j < BARS; j++) {
+				this.pairs[j] = new Pair(this.xValues[(i - BARS) + 1 + j], this.yValues[(i - BARS) + 1 + j]);
+			}
+			double[] terms = MatrixFunctions.solve(this.pairs, POLY_ORDER);
+			total += MatrixFunctions.getCorrelationCoefficient(this.pairs, terms);
+		}
+		return total;
+	}
+
+	/**
+	 * Method recalculate.
+	 * 
+	 * @return PivotSeries
+	 */
+	private PivotSeries recalculate() {
+		this.series.clear();
+		for (int i = 0; i < this.candleSeries.getItemCount(); i++) {
+			this.series.updateSeries(this.candleSeries, i, true);
+		}
+		return this.series;
+	}
+}
@@ -0,0 +1,135 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.strategy.data;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.trade.persistent.dao.Strategy;
+import org.trade.persistent.dao.Tradingday;
+import org.trade.strategy.data.candle.CandleItem;
+
+/**
+ * Benchmark of StrategyData.buildCandle with every indicator. One operation
+ * replays a trading day of 5sec candles into 5min bars, this is what happens
+ * for each Tradestrategy when trading live or back testing.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+public class StrategyDataBenchmark {
+
+	public static final int BAR_SIZE = 300;
+
+	private Strategy strategy = null;
+	private Tradingday tradingday = null;
+	private CandleSeries source = null;
+
+	/**
+	 * Method setUp.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.strategy = BenchmarkData.createStrategy();
+		this.tradingday = BenchmarkData.createTradingday();
+		this.source = BenchmarkData.createDummyData(5, 1);
+	}
+
+	/**
+	 * Method buildCandle.
+	 * 
+	 * @return StrategyData
+	 */
+	@Benchmark
+	public StrategyData buildCandle() {
+		StrategyData strategyData = createStrategyData(this.strategy, this.source, this.tradingday);
+		int rollupInterval = BAR_SIZE / this.source.getBarSize();
+		for (int i = 0; i < this.source.getItemCount(); i++) {
+			buildCandle(strategyData, (CandleItem) this.source.getDataItem(i), rollupInterval);
+		}
+		return strategyData;
+	}
+
+	/**
+	 * Method createStrategyData. StrategyData for 5min bars with the
+	 * strategy's indicators.
+	 * 
+	 * @param strategy
+	 *            Strategy
+	 * @param source
+	 *            CandleSeries
+	 * @param tradingday
+	 *            Tradingday
+	 * @return StrategyData
+	 */
+	public static StrategyData createStrategyData(Strategy strategy, CandleSeries source, Tradingday tradingday) {
+		CandleSeries series = BenchmarkData.createCandleSeries(source.getContract(), tradingday, BAR_SIZE);
+		return new StrategyData(strategy, BenchmarkData.createCandleDataset(series));
+	}
+
+	/**
+	 * Method buildCandle.
+	 * 
+	 * @param strategyData
+	 *            StrategyData
+	 * @param candleItem
+	 *            CandleItem
+	 * @param rollupInterval
+	 *            int
+	 * @return boolean
+	 */
+	public static boolean buildCandle(StrategyData strategyData, CandleItem candleItem, int rollupInterval) {
+		return strategyData.buildCandle(candleItem.getPeriod().getStart(), candleItem.getOpen(), candleItem.getHigh(),
+				candleItem.getLow(), candleItem.getClose(), candleItem.getVolume(), candleItem.getVwap(),
+				candleItem.getCount(), rollupInterval, null);
+	}
+}
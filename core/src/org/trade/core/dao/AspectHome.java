@@ -65,7 +65,7 @@ public class AspectHome {
 	 * @return Aspect
 	 * @throws Exception
 	 */
-	public synchronized <T extends Aspect> T persist(T transientInstance) throws Exception {
+	public <T extends Aspect> T persist(T transientInstance) throws Exception {
 		return persist(transientInstance, false);
 	}
 
@@ -80,7 +80,7 @@ public class AspectHome {
 	 * @throws Exception
 	 */
 
-	public synchronized <T extends Aspect> T persist(T transientInstance, boolean overrideVersion) throws Exception {
+	public <T extends Aspect> T persist(T transientInstance, boolean overrideVersion) throws Exception {
 
 		try {
 
@@ -118,7 +118,7 @@ public class AspectHome {
 	 * @param transientInstance
 	 *            Aspect
 	 */
-	public synchronized void remove(Aspect transientInstance) {
+	public void remove(Aspect transientInstance) {
 
 		try {
 			if (null != transientInstance.getId()) {
@@ -36,6 +36,9 @@
 
 package org.trade.core.dao;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.Persistence;
@@ -44,8 +47,11 @@ import javax.validation.Validation;
 import javax.validation.Validator;
 import javax.validation.ValidatorFactory;
 
+import org.hibernate.Session;
+import org.hibernate.jdbc.ReturningWork;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.trade.core.properties.ConfigProperties;
 
 /**
  * <p>
@@ -74,13 +80,54 @@ public class EntityManagerHelper {
 	 */
 	static final String PERSISTENCE_UNIT = "dbresource";
 
+	/**
+	 * The persistence unit for the embedded database. See
+	 * db/TradeManagerDDL-H2.sql
+	 */
+	public static final String EMBEDDED_PERSISTENCE_UNIT = "dbembedded";
+
+	/**
+	 * Persistence unit property holding the class path directory of the native
+	 * SQL files for the units database.
+	 */
+	public static final String SQL_PATH = "trade.sql.path";
+	private static final String DEFAULT_SQL_PATH = "org/trade/persistent/dao/sql/";
+
+	private static final String persistenceUnit;
 	private static final EntityManagerFactory factory;
 	private static ValidatorFactory validatorFactory;
 	private static final ThreadLocal<EntityManager> threadLocal;
 	private final static Logger _log = LoggerFactory.getLogger(EntityManagerHelper.class);
 
 	static {
-		factory = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT);
+		/*
+		 * The unit is set by trade.persistence.unit in config.properties, a
+		 * system property of the same name overrides it e.g.
+		 * -Dtrade.persistence.unit=dbembedded so tests can run without MySQL.
+		 */
+		String unit = PERSISTENCE_UNIT;
+		Map<String, Object> overrides = new HashMap<String, Object>();
+		try {
+			unit = ConfigProperties.getPropAsString("trade.persistence.unit");
+		} catch (Exception ex) {
+			_log.warn("Property trade.persistence.unit not set using: " + unit);
+		}
+		try {
+			String url = ConfigProperties.getPropAsString("trade.persistence.url");
+			if (null != url && url.trim().length() > 0) {
+				overrides.put("hibernate.connection.url", url.trim());
+			}
+		} catch (Exception ex) {
+			// Optional use the url in persistence.xml.
+		}
+		unit = System.getProperty("trade.persistence.unit", unit).trim();
+		String url = System.getProperty("trade.persistence.url");
+		if (null != url) {
+			overrides.put("hibernate.connection.url", url.trim());
+		}
+		persistenceUnit = unit;
+		_log.info("Persistence unit: " + persistenceUnit);
+		factory = Persistence.createEntityManagerFactory(persistenceUnit, overrides);
 		validatorFactory = Validation.buildDefaultValidatorFactory();
 		threadLocal = new ThreadLocal<EntityManager>();
 	}
@@ -124,6 +171,74 @@ public class EntityManagerHelper {
 		return manager;
 	}
 
+	/**
+	 * <p>
+	 * Run JDBC work on the connection of the EntityManager for this thread.
+	 * </p>
+	 * <p>
+	 * This is for bulk operations that by pass the EntityManager. The
+	 * connection comes from the persistence unit's pool and takes part in the
+	 * EntityManager's transaction, the caller must begin and commit/rollback
+	 * the transaction and close the EntityManager.
+	 * </p>
+	 * 
+	 * @param work
+	 *            ReturningWork<T>
+	 * @return T the result of the work.
+	 */
+	public static <T> T doReturningWork(ReturningWork<T> work) {
+		return getEntityManager().unwrap(Session.class).doReturningWork(work);
+	}
+
+	/**
+	 * Method getProperty.
+	 * 
+	 * @param properties
+	 *            Map<String, Object>
+	 * @param key
+	 *            String
+	 * @return String the property or null if not set.
+	 */
+	private static String getProperty(Map<String, Object> properties, String key) {
+		Object value = properties.get(key);
+		return (null == value ? null : value.toString());
+	}
+
+	/**
+	 * Method getPersistenceUnit.
+	 * 
+	 * @return String the name of the persistence unit in use.
+	 */
+	public static String getPersistenceUnit() {
+		return persistenceUnit;
+	}
+
+	/**
+	 * Method isEmbedded.
+	 * 
+	 * @return boolean true if the embedded database unit is in use.
+	 */
+	public static boolean isEmbedded() {
+		return EMBEDDED_PERSISTENCE_UNIT.equals(persistenceUnit);
+	}
+
+	/**
+	 * Method getSQLPath. Native SQL is database specific so each persistence
+	 * unit names the class path directory of its SQL files with the property
+	 * trade.sql.path.
+	 * 
+	 * @param fileName
+	 *            String the SQL file name e.g. TradelogDetail.sql
+	 * @return String the class path of the SQL file for this unit.
+	 */
+	public static String getSQLPath(String fileName) {
+		String path = getProperty(factory.getProperties(), SQL_PATH);
+		if (null == path || path.trim().length() == 0) {
+			path = DEFAULT_SQL_PATH;
+		}
+		return path.trim() + fileName;
+	}
+
 	/**
 	 * <p>
 	 * Close the EntityManager and set the thread's instance to null.
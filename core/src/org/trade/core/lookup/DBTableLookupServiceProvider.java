@@ -38,9 +38,20 @@ package org.trade.core.lookup;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Enumeration;
-import java.util.Hashtable;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
@@ -48,23 +59,67 @@ import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.trade.core.dao.EntityManagerHelper;
 import org.trade.core.properties.ConfigProperties;
 import org.trade.core.util.Reflector;
+import org.trade.core.util.Worker;
 import org.trade.core.valuetype.Decode;
+import org.trade.core.valuetype.DecodeTable;
 
 /**
  * Implementation of the LookupServiceProvider interface that uses the
  * devtool.properties.ConfigProperties object for obtaining Lookup information.
  * 
+ * Lookups are cached in a concurrent map with no global lock. The first thread
+ * to ask for a lookup loads it, other threads asking for the same lookup wait
+ * for that load only. Refresh reloads the cached lookups in the background and
+ * swaps them in so readers never wait for the database.
+ * 
  * @author Simon Allen
  */
 public class DBTableLookupServiceProvider implements LookupServiceProvider {
+
+	private final static Logger _log = LoggerFactory.getLogger(DBTableLookupServiceProvider.class);
+
+	private static final String DAO_DECODE_IDENTIFIER = "DAO_DECODE";
+
 	/*
-	 * This will be a hashtable of hashtables of Lookup objects. The first key
-	 * is the lookup name and the second key is the LookupQualifier.
+	 * The lookups keyed by lookup name, qualifier and optional. A lookup that
+	 * is being loaded is a task that has not yet run to completion.
 	 */
-	private static Hashtable<String, Hashtable<String, Lookup>> _lookups = new Hashtable<String, Hashtable<String, Lookup>>();
+	private static final ConcurrentHashMap<String, CachedLookup> _lookups = new ConcurrentHashMap<String, CachedLookup>();
+
+	private static final AtomicLong hits = new AtomicLong(0);
+	private static final AtomicLong misses = new AtomicLong(0);
+	private static final AtomicLong loads = new AtomicLong(0);
+	private static final AtomicLong loadNanos = new AtomicLong(0);
+
+	private static ScheduledExecutorService refreshExecutor = null;
+	private static Integer refreshInterval = 0;
+
+	static {
+		try {
+			refreshInterval = ConfigProperties.getPropAsInt("trade.lookup.refresh");
+		} catch (Exception ex) {
+			_log.warn("Property trade.lookup.refresh not set lookups will not be refreshed in the background.");
+		}
+		if (refreshInterval > 0) {
+			refreshExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "DBTableLookup-refresh");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			refreshExecutor.scheduleWithFixedDelay(new Runnable() {
+				public void run() {
+					refresh();
+				}
+			}, refreshInterval, refreshInterval, TimeUnit.SECONDS);
+		}
+	}
 
 	/**
 	 * Default Constructor
@@ -72,8 +127,103 @@ public class DBTableLookupServiceProvider implements LookupServiceProvider {
 	public DBTableLookupServiceProvider() {
 	}
 
+	/**
+	 * Method clearLookup. Drop all the cached lookups so they are reloaded on
+	 * next use. Call this when the data behind a lookup has changed and the
+	 * caller needs to see the change immediately.
+	 */
 	public static void clearLookup() {
 		_lookups.clear();
+		DecodeTable.clear();
+	}
+
+	/**
+	 * Method preload. Load the lookup of every DAO decode type in the
+	 * background. Lookups asked for while this runs wait for their own load
+	 * only.
+	 */
+	public static void preload() {
+		Worker.getExecutor().execute(new Runnable() {
+			public void run() {
+				try {
+					DBTableLookupServiceProvider provider = new DBTableLookupServiceProvider();
+					Set<Object> types = new LinkedHashSet<Object>();
+					Enumeration<?> en = ConfigProperties.getPropAsEnumeration(DAO_DECODE_IDENTIFIER + Decode._TYPE);
+					while (en.hasMoreElements()) {
+						types.add(en.nextElement());
+					}
+					for (Object type : types) {
+						LookupQualifier qualifier = new LookupQualifier();
+						qualifier.setValue(DAO_DECODE_IDENTIFIER + Decode._TYPE, type);
+						provider.getLookup(DAO_DECODE_IDENTIFIER, qualifier, false);
+					}
+					_log.info("Lookups preloaded: " + types.size() + " " + getStatistics());
+				} catch (Exception ex) {
+					_log.warn("Could not preload lookups Msg: " + ex.getMessage());
+				}
+			}
+		});
+	}
+
+	/**
+	 * Method refresh. Reload every cached lookup and replace it once loaded.
+	 * Lookups that fail to load are dropped. Decode tables are rebuilt from
+	 * the new lookups.
+	 */
+	public static void refresh() {
+		int count = 0;
+		for (Map.Entry<String, CachedLookup> entry : _lookups.entrySet()) {
+			CachedLookup current = entry.getValue();
+			if (!current.isDone())
+				continue;
+			CachedLookup reloaded = new CachedLookup(current.lookupName, current.qualifier, current.optional);
+			reloaded.run();
+			if (null == reloaded.getLookup()) {
+				_lookups.remove(entry.getKey(), current);
+			} else {
+				_lookups.replace(entry.getKey(), current, reloaded);
+			}
+			count++;
+		}
+		DecodeTable.clear();
+		_log.debug("Lookups refreshed: " + count + " " + getStatistics());
+	}
+
+	/**
+	 * Method getHits.
+	 * 
+	 * @return long the number of lookups found in the cache.
+	 */
+	public static long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Method getMisses.
+	 * 
+	 * @return long the number of lookups not found in the cache.
+	 */
+	public static long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * Method getLoads.
+	 * 
+	 * @return long the number of lookups loaded.
+	 */
+	public static long getLoads() {
+		return loads.get();
+	}
+
+	/**
+	 * Method getStatistics.
+	 * 
+	 * @return String the cache hits, misses, loads and total load time.
+	 */
+	public static String getStatistics() {
+		return "Lookups cached: " + _lookups.size() + " hits: " + hits.get() + " misses: " + misses.get()
+				+ " loads: " + loads.get() + " load time: " + TimeUnit.NANOSECONDS.toMillis(loadNanos.get()) + "ms";
 	}
 
 	/**
@@ -91,197 +241,184 @@ public class DBTableLookupServiceProvider implements LookupServiceProvider {
 	 * @see org.trade.core.lookup.LookupServiceProvider#getLookup(String,
 	 *      LookupQualifier)
 	 */
-	public synchronized Lookup getLookup(String lookupName, LookupQualifier qualifier, boolean optional)
-			throws LookupException {
-		Lookup lookup = getCachedLookup(lookupName, qualifier);
+	public Lookup getLookup(String lookupName, LookupQualifier qualifier, boolean optional) throws LookupException {
+
+		String key = lookupName + "|" + qualifier + "|" + optional;
+		CachedLookup cached = _lookups.get(key);
+		if (null == cached) {
+			misses.incrementAndGet();
+			CachedLookup loading = new CachedLookup(lookupName, qualifier, optional);
+			cached = _lookups.putIfAbsent(key, loading);
+			if (null == cached) {
+				cached = loading;
+				cached.run();
+			}
+		} else {
+			hits.incrementAndGet();
+		}
 
+		Lookup lookup = cached.getLookup();
 		if (null == lookup) {
-			try {
-				Vector<Vector<Object>> rows = new Vector<Vector<Object>>();
-				Vector<String> colNames = new Vector<String>();
-				Enumeration<?> en = ConfigProperties.getPropAsEnumeration(lookupName + "_DBTable");
+			/*
+			 * Not found is not cached so the next call tries again.
+			 */
+			_lookups.remove(key, cached);
+			return null;
+		}
 
-				while (en.hasMoreElements()) {
-					colNames.addElement((String) en.nextElement());
-				}
+		/*
+		 * Need to clone the object otherwise changes in position in the object
+		 * returned would effect everyone using the object.
+		 */
+		return (Lookup) lookup.clone();
+	}
 
-				// Have all of the columns - want to get a vector for each
-				// column value
-				Vector<Enumeration<?>> colRows = new Vector<Enumeration<?>>();
-				int i;
-				int colNamesSize = colNames.size();
+	/**
+	 * Method loadLookup.
+	 * 
+	 * @param lookupName
+	 *            String
+	 * @param qualifier
+	 *            LookupQualifier
+	 * @param optional
+	 *            boolean
+	 * @return Lookup null if this provider cannot provide the lookup.
+	 */
+	private static Lookup loadLookup(String lookupName, LookupQualifier qualifier, boolean optional) {
+		Lookup lookup = null;
+		try {
+			Vector<Vector<Object>> rows = new Vector<Vector<Object>>();
+			Vector<String> colNames = new Vector<String>();
+			Enumeration<?> en = ConfigProperties.getPropAsEnumeration(lookupName + "_DBTable");
 
-				for (i = 0; i < colNamesSize; i++) {
-					colRows.addElement(ConfigProperties.getPropAsEnumeration(colNames.elementAt(i)));
-				}
+			while (en.hasMoreElements()) {
+				colNames.addElement((String) en.nextElement());
+			}
 
-				// Now construct a Vector Vector - representing the table of
-				// data
-				boolean exit = false;
+			// Have all of the columns - want to get a vector for each
+			// column value
+			Vector<Enumeration<?>> colRows = new Vector<Enumeration<?>>();
+			int i;
+			int colNamesSize = colNames.size();
 
-				do {
-					Vector<Object> row = new Vector<Object>();
-					boolean foundOne = false;
-					boolean addIt = true;
-					int colRowsSize = colRows.size();
+			for (i = 0; i < colNamesSize; i++) {
+				colRows.addElement(ConfigProperties.getPropAsEnumeration(colNames.elementAt(i)));
+			}
 
-					for (i = 0; i < colRowsSize; i++) {
-						Object value = null;
+			// Now construct a Vector Vector - representing the table of
+			// data
+			boolean exit = false;
 
-						en = colRows.elementAt(i);
+			do {
+				Vector<Object> row = new Vector<Object>();
+				boolean foundOne = false;
+				boolean addIt = true;
+				int colRowsSize = colRows.size();
 
-						if (en.hasMoreElements()) {
-							foundOne = true;
-							value = en.nextElement();
+				for (i = 0; i < colRowsSize; i++) {
+					Object value = null;
 
-							row.addElement(value);
-						} else {
-							// Represent an empty value
-							row.addElement("");
-						}
+					en = colRows.elementAt(i);
 
-						// Check to see if the returned lookup is to be
-						// constrained
-						if (foundOne && (qualifier != null)) {
-							Object qualVal = qualifier.getValue("" + colNames.elementAt(i));
+					if (en.hasMoreElements()) {
+						foundOne = true;
+						value = en.nextElement();
 
-							if (null != qualVal) {
-								if (!qualVal.equals(value)) {
-									addIt = false;
-								}
-							}
-						}
+						row.addElement(value);
+					} else {
+						// Represent an empty value
+						row.addElement("");
 					}
 
-					if (foundOne) {
-						if (addIt) {
-							rows.addElement(row);
+					// Check to see if the returned lookup is to be
+					// constrained
+					if (foundOne && (qualifier != null)) {
+						Object qualVal = qualifier.getValue("" + colNames.elementAt(i));
+
+						if (null != qualVal) {
+							if (!qualVal.equals(value)) {
+								addIt = false;
+							}
 						}
-					} else {
-						exit = true;
 					}
-				} while (!exit);
-
-				// There should be only one row per table that
-				// contains the DAO name and method name for the display name
-				String dao = null;
-				String type = null;
-				String methodName = null;
-				int rowsSize = rows.size();
-				for (i = 0; i < rowsSize; i++) {
-					Vector<Object> row = rows.elementAt(i);
-					int rowSize = row.size();
-
-					for (int y = 0; y < rowSize; y++) {
-
-						if ("DAO_DECODE_TYPE".equals(colNames.elementAt(y))) {
-							type = (String) row.elementAt(y);
-
-						} else if ("DAO_DECODE_CODE".equals(colNames.elementAt(y))) {
-							dao = (String) row.elementAt(y);
-						} else if ("DAO_DECODE_DISPLAY_NAME".equals(colNames.elementAt(y))) {
-							methodName = (String) row.elementAt(y);
-						}
+				}
+
+				if (foundOne) {
+					if (addIt) {
+						rows.addElement(row);
 					}
-					// Clear the first row and add the objects and display name
-					// from the DB
-					rows.clear();
-					/*
-					 * Add the None selected row.
-					 */
-					if (optional) {
-						Vector<Object> newRowNone = new Vector<Object>();
-						Class<?> clazz = Class.forName(dao);
-						Object daoObjectNone = clazz.newInstance();
-						newRowNone.add(type);
-						newRowNone.add(daoObjectNone);
-						newRowNone.add(Decode.NONE);
-						rows.add(newRowNone);
+				} else {
+					exit = true;
+				}
+			} while (!exit);
+
+			// There should be only one row per table that
+			// contains the DAO name and method name for the display name
+			String dao = null;
+			String type = null;
+			String methodName = null;
+			int rowsSize = rows.size();
+			for (i = 0; i < rowsSize; i++) {
+				Vector<Object> row = rows.elementAt(i);
+				int rowSize = row.size();
+
+				for (int y = 0; y < rowSize; y++) {
+
+					if ("DAO_DECODE_TYPE".equals(colNames.elementAt(y))) {
+						type = (String) row.elementAt(y);
+
+					} else if ("DAO_DECODE_CODE".equals(colNames.elementAt(y))) {
+						dao = (String) row.elementAt(y);
+					} else if ("DAO_DECODE_DISPLAY_NAME".equals(colNames.elementAt(y))) {
+						methodName = (String) row.elementAt(y);
 					}
+				}
+				// Clear the first row and add the objects and display name
+				// from the DB
+				rows.clear();
+				/*
+				 * Add the None selected row.
+				 */
+				if (optional) {
+					Vector<Object> newRowNone = new Vector<Object>();
+					Class<?> clazz = Class.forName(dao);
+					Object daoObjectNone = clazz.newInstance();
+					newRowNone.add(type);
+					newRowNone.add(daoObjectNone);
+					newRowNone.add(Decode.NONE);
+					rows.add(newRowNone);
+				}
 
-					List<?> codes = getCodes(dao);
-					for (Object daoObject : codes) {
-
-						Method method = Reflector.findMethod(daoObject.getClass(), methodName, null);
-						if (null != method) {
-							Object[] o = new Object[0];
-							Object displayNameValue = method.invoke(daoObject, o);
-							if (null != displayNameValue) {
-								Vector<Object> newRow = new Vector<Object>();
-								newRow.add(type);
-								newRow.add(daoObject);
-								newRow.add(displayNameValue);
-								rows.add(newRow);
-							}
+				List<?> codes = getCodes(dao);
+				for (Object daoObject : codes) {
+
+					Method method = Reflector.findMethod(daoObject.getClass(), methodName, null);
+					if (null != method) {
+						Object[] o = new Object[0];
+						Object displayNameValue = method.invoke(daoObject, o);
+						if (null != displayNameValue) {
+							Vector<Object> newRow = new Vector<Object>();
+							newRow.add(type);
+							newRow.add(daoObject);
+							newRow.add(displayNameValue);
+							rows.add(newRow);
 						}
 					}
 				}
-
-				// If rows where found then I managed to provide the lookup
-				if (rows.size() > 0) {
-					lookup = new PropertiesLookup(colNames, rows);
-				}
-			} catch (Throwable t) {
-				// If this occurs means this provider is unable to provide
-				// the lookup ignore the exception.
 			}
-			if (null != lookup) {
-				addLookupToCache(lookupName, qualifier, lookup);
+
+			// If rows where found then I managed to provide the lookup
+			if (rows.size() > 0) {
+				lookup = new PropertiesLookup(colNames, rows);
 			}
+		} catch (Throwable t) {
+			// If this occurs means this provider is unable to provide
+			// the lookup ignore the exception.
 		}
 
 		return lookup;
 	}
 
-	/**
-	 * Returns null if the lookup is not in the cache.
-	 * 
-	 * @param lookupName
-	 *            String
-	 * @param qualifier
-	 *            LookupQualifier
-	 * @return Lookup
-	 */
-	private Lookup getCachedLookup(String lookupName, LookupQualifier qualifier) {
-		Lookup lookup = null;
-		Hashtable<?, ?> lookupsByQualifier = _lookups.get(lookupName);
-
-		if (null != lookupsByQualifier) {
-			lookup = (Lookup) lookupsByQualifier.get(qualifier.toString());
-		}
-
-		/*
-		 * Need to clone the object otherwise changes in position in the object
-		 * returned would effect everyone using the object.
-		 */
-		if (null != lookup) {
-			lookup = (Lookup) lookup.clone();
-		}
-
-		return (lookup);
-	}
-
-	/**
-	 * Method addLookupToCache.
-	 * 
-	 * @param lookupName
-	 *            String
-	 * @param qualifier
-	 *            LookupQualifier
-	 * @param lookup
-	 *            Lookup
-	 */
-	private synchronized void addLookupToCache(String lookupName, LookupQualifier qualifier, Lookup lookup) {
-		Hashtable<String, Lookup> lookupsByQualifier = _lookups.get(lookupName);
-
-		if (null == lookupsByQualifier) {
-			lookupsByQualifier = new Hashtable<String, Lookup>();
-			_lookups.put(lookupName, lookupsByQualifier);
-		}
-
-		lookupsByQualifier.put(qualifier.toString(), lookup);
-	}
-
 	/**
 	 * Method getCodes.
 	 * 
@@ -290,7 +427,7 @@ public class DBTableLookupServiceProvider implements LookupServiceProvider {
 	 * @return List<?>
 	 * @throws ClassNotFoundException
 	 */
-	private synchronized List<?> getCodes(String className) throws ClassNotFoundException {
+	private static List<?> getCodes(String className) throws ClassNotFoundException {
 
 		try {
 			EntityManager entityManager = EntityManagerHelper.getEntityManager();
@@ -315,4 +452,57 @@ public class DBTableLookupServiceProvider implements LookupServiceProvider {
 		}
 		return new ArrayList<Object>(0);
 	}
+
+	/**
+	 * A lookup that is loaded once by the first thread to run it.
+	 */
+	private static final class CachedLookup extends FutureTask<Lookup> {
+
+		private final String lookupName;
+		private final LookupQualifier qualifier;
+		private final boolean optional;
+
+		/**
+		 * Constructor for CachedLookup.
+		 * 
+		 * @param lookupName
+		 *            String
+		 * @param qualifier
+		 *            LookupQualifier
+		 * @param optional
+		 *            boolean
+		 */
+		CachedLookup(final String lookupName, final LookupQualifier qualifier, final boolean optional) {
+			super(new Callable<Lookup>() {
+				public Lookup call() {
+					long start = System.nanoTime();
+					try {
+						return loadLookup(lookupName, qualifier, optional);
+					} finally {
+						loads.incrementAndGet();
+						loadNanos.addAndGet(System.nanoTime() - start);
+					}
+				}
+			});
+			this.lookupName = lookupName;
+			this.qualifier = qualifier;
+			this.optional = optional;
+		}
+
+		/**
+		 * Method getLookup. Wait for the load if another thread is running it.
+		 * 
+		 * @return Lookup null if the lookup could not be loaded.
+		 */
+		Lookup getLookup() {
+			try {
+				return get();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return null;
+			} catch (ExecutionException ex) {
+				return null;
+			}
+		}
+	}
 }
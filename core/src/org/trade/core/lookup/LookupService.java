@@ -35,7 +35,8 @@
  */
 package org.trade.core.lookup;
 
-import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * @author Simon Allen
@@ -44,7 +45,11 @@ public class LookupService {
 	//
 	// Private Attributes
 	//
-	private static Vector<LookupServiceProvider> _providers = new Vector<LookupServiceProvider>();
+	private static CopyOnWriteArrayList<LookupServiceProvider> _providers = new CopyOnWriteArrayList<LookupServiceProvider>();
+	/*
+	 * The provider that last provided each lookup name is asked first.
+	 */
+	private static ConcurrentHashMap<String, LookupServiceProvider> _providerByLookupName = new ConcurrentHashMap<String, LookupServiceProvider>();
 
 	static {
 		addLookupServiceProvider(new PropertyFileLookupServiceProvider());
@@ -66,16 +71,24 @@ public class LookupService {
 	public static Lookup getLookup(String lookupName, LookupQualifier qualifier, boolean optional)
 			throws LookupException {
 		Lookup lookup = null;
+		LookupServiceProvider provider = _providerByLookupName.get(lookupName);
+		if (null != provider) {
+			lookup = provider.getLookup(lookupName, qualifier, optional);
+			if (null != lookup) {
+				return lookup;
+			}
+		}
 		// Loop through the registered providers and find and try to find one
 		// that can provide the lookup
-		int providersSize = _providers.size();
-
-		for (int i = 0; i < providersSize; i++) {
-			lookup = _providers.elementAt(i).getLookup(lookupName, qualifier, optional);
+		for (LookupServiceProvider item : _providers) {
+			if (item == provider)
+				continue;
+			lookup = item.getLookup(lookupName, qualifier, optional);
 
 			if (null != lookup) {
 				// Have found a Lookup - don't care if another provider can
 				// provide it or not
+				_providerByLookupName.put(lookupName, item);
 				break;
 			}
 		}
@@ -89,9 +102,7 @@ public class LookupService {
 	 *            LookupServiceProvider
 	 */
 	public static void addLookupServiceProvider(LookupServiceProvider provider) {
-		if (!_providers.contains(provider)) {
-			_providers.addElement(provider);
-		}
+		_providers.addIfAbsent(provider);
 	}
 
 	/**
@@ -101,6 +112,7 @@ public class LookupService {
 	 *            LookupServiceProvider
 	 */
 	public static void removeLookupServiceProvider(LookupServiceProvider provider) {
-		_providers.removeElement(provider);
+		_providers.remove(provider);
+		_providerByLookupName.clear();
 	}
 }
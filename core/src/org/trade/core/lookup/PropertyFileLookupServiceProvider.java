@@ -36,8 +36,8 @@
 package org.trade.core.lookup;
 
 import java.util.Enumeration;
-import java.util.Hashtable;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.trade.core.properties.ConfigProperties;
 import org.trade.core.valuetype.Decode;
@@ -54,7 +54,7 @@ public class PropertyFileLookupServiceProvider implements LookupServiceProvider
 	 * is the lookup name and the second key is the LookupQualifier.
 	 */
 
-	private static Hashtable<String, Hashtable<String, Lookup>> _lookups = new Hashtable<String, Hashtable<String, Lookup>>();
+	private static ConcurrentHashMap<String, ConcurrentHashMap<String, Lookup>> _lookups = new ConcurrentHashMap<String, ConcurrentHashMap<String, Lookup>>();
 
 	/**
 	 * Default Constructor
@@ -187,10 +187,10 @@ public class PropertyFileLookupServiceProvider implements LookupServiceProvider
 	 */
 	private Lookup getCachedLookup(String lookupName, LookupQualifier qualifier) {
 		Lookup lookup = null;
-		Hashtable<?, ?> lookupsByQualifier = _lookups.get(lookupName);
+		ConcurrentHashMap<String, Lookup> lookupsByQualifier = _lookups.get(lookupName);
 
 		if (null != lookupsByQualifier) {
-			lookup = (Lookup) lookupsByQualifier.get(qualifier.toString());
+			lookup = lookupsByQualifier.get(qualifier.toString());
 		}
 
 		// Need to clone the object otherwise changes in position in
@@ -212,12 +212,12 @@ public class PropertyFileLookupServiceProvider implements LookupServiceProvider
 	 * @param lookup
 	 *            Lookup
 	 */
-	private synchronized void addLookupToCache(String lookupName, LookupQualifier qualifier, Lookup lookup) {
-		Hashtable<String, Lookup> lookupsByQualifier = _lookups.get(lookupName);
+	private void addLookupToCache(String lookupName, LookupQualifier qualifier, Lookup lookup) {
+		ConcurrentHashMap<String, Lookup> lookupsByQualifier = _lookups.get(lookupName);
 
 		if (null == lookupsByQualifier) {
-			lookupsByQualifier = new Hashtable<String, Lookup>();
-			_lookups.put(lookupName, lookupsByQualifier);
+			_lookups.putIfAbsent(lookupName, new ConcurrentHashMap<String, Lookup>());
+			lookupsByQualifier = _lookups.get(lookupName);
 		}
 
 		lookupsByQualifier.put(qualifier.toString(), lookup);
@@ -33,11 +33,13 @@
  * -------
  *
  */
-
 package org.trade.core.util;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
@@ -46,26 +48,73 @@ import java.lang.reflect.Proxy;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
+ * Compiles and loads java source held in one or more source directories.
+ * 
+ * All the classes in the source directories can be compiled at once on a pool
+ * of threads see compileAll(). Once startWatching() has been called the source
+ * directories are watched and a changed file is recompiled and its class
+ * loader replaced, classes are then served from memory without checking the
+ * files. If not watching a class is reloaded when loadClass() finds its source
+ * file has changed.
+ * 
+ * newInstance() returns an instance of the current class, proxies created via
+ * newProxyInstance() move to a new instance of the class after it changes.
+ * Proxy calls are dispatched through a MethodHandle.
  */
 public final class DynamicCode {
 
 	private final static Logger _log = LoggerFactory.getLogger(DynamicCode.class);
+
+	private static final Object[] NO_ARGS = new Object[0];
+	private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class,
+			Object[].class);
+	private static final long WATCH_QUIET_PERIOD = 200;
+
+	// interface method => (Object, Object[])Object invoker
+	private static final ConcurrentHashMap<Method, MethodHandle> methodHandles = new ConcurrentHashMap<Method, MethodHandle>();
+
 	private String compileClasspath;
 	private ClassLoader parentClassLoader;
-	private List<SourceDir> sourceDirs = new ArrayList<SourceDir>();
+	private List<SourceDir> sourceDirs = new CopyOnWriteArrayList<SourceDir>();
 
 	// class name => LoadedClass
-	private HashMap<String, LoadedClass> loadedClasses = new HashMap<String, LoadedClass>();
+	private ConcurrentHashMap<String, LoadedClass> loadedClasses = new ConcurrentHashMap<String, LoadedClass>();
+
+	// watch key => watched directory
+	private ConcurrentHashMap<WatchKey, Path> watchedDirs = new ConcurrentHashMap<WatchKey, Path>();
+	private volatile WatchService watchService = null;
+	private Thread watcher = null;
 
 	public DynamicCode() {
 		this(Thread.currentThread().getContextClassLoader());
@@ -109,21 +158,25 @@ public final class DynamicCode {
 			// ignore
 		}
 
+		SourceDir src = null;
 		synchronized (sourceDirs) {
 
 			// check existence
 			for (int i = 0; i < sourceDirs.size(); i++) {
-				SourceDir src = sourceDirs.get(i);
-				if (src.srcDir.equals(srcDir)) {
+				if (sourceDirs.get(i).srcDir.equals(srcDir)) {
 					return false;
 				}
 			}
 
 			// add new
-			SourceDir src = new SourceDir(srcDir);
+			src = new SourceDir(srcDir);
 			sourceDirs.add(src);
 		}
 
+		WatchService service = this.watchService;
+		if (null != service) {
+			watch(service, src.srcDir.toPath());
+		}
 		return true;
 	}
 
@@ -137,11 +190,20 @@ public final class DynamicCode {
 	 * @throws Exception
 	 */
 	public Class<?> loadClass(String className) throws Exception {
+		return getLoadedClass(className).clazz;
+	}
 
-		LoadedClass loadedClass = null;
-		synchronized (loadedClasses) {
-			loadedClass = loadedClasses.get(className);
-		}
+	/**
+	 * Method getLoadedClass.
+	 * 
+	 * @param className
+	 *            String
+	 * @return LoadedClass
+	 * @throws Exception
+	 */
+	private LoadedClass getLoadedClass(String className) throws Exception {
+
+		LoadedClass loadedClass = loadedClasses.get(className);
 
 		// first access of a class
 		if (loadedClass == null) {
@@ -154,25 +216,258 @@ public final class DynamicCode {
 
 			synchronized (this) {
 
-				// compile and load class
-				loadedClass = new LoadedClass(className, src);
-
-				synchronized (loadedClasses) {
+				loadedClass = loadedClasses.get(className);
+				if (loadedClass == null) {
+					// compile and load class
+					loadedClass = new LoadedClass(className, src);
 					loadedClasses.put(className, loadedClass);
 				}
 			}
 
-			return loadedClass.clazz;
+			return loadedClass;
 		}
 
-		// subsequent access
-		if (loadedClass.isChanged()) {
+		/*
+		 * Subsequent access, when watching the watcher unloads changed classes
+		 * so there is no need to check the file.
+		 */
+		if (null == watchService && loadedClass.isChanged()) {
 			// unload and load again
 			unload(loadedClass.srcDir);
-			return loadClass(className);
+			return getLoadedClass(className);
+		}
+
+		return loadedClass;
+	}
+
+	/**
+	 * Compile and load all the classes in the source directories. Each source
+	 * file is compiled on its own so one that fails does not stop the others,
+	 * the failures are logged and reported again when the class is loaded.
+	 * 
+	 * @param parallelism
+	 *            int the number of threads used to compile, 0 one per
+	 *            available processor.
+	 * @return int the number of classes loaded.
+	 * @throws Exception
+	 */
+	public int compileAll(int parallelism) throws Exception {
+
+		long startTime = System.currentTimeMillis();
+		final List<SourceDir> srcs = new ArrayList<SourceDir>();
+		final List<File> srcFiles = new ArrayList<File>();
+		for (final SourceDir src : sourceDirs) {
+			if (!src.srcDir.isDirectory())
+				continue;
+			Files.walkFileTree(src.srcDir.toPath(), new SimpleFileVisitor<Path>() {
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+					if (file.toString().endsWith(".java")) {
+						srcs.add(src);
+						srcFiles.add(file.toFile());
+					}
+					return FileVisitResult.CONTINUE;
+				}
+			});
 		}
+		if (srcFiles.isEmpty())
+			return 0;
 
-		return loadedClass.clazz;
+		int threads = Math.min(srcFiles.size(),
+				(parallelism > 0) ? parallelism : Runtime.getRuntime().availableProcessors());
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<String>> results = new ArrayList<Future<String>>(srcFiles.size());
+		try {
+			for (int i = 0; i < srcFiles.size(); i++) {
+				final SourceDir src = srcs.get(i);
+				final File srcFile = srcFiles.get(i);
+				results.add(executor.submit(new Callable<String>() {
+					public String call() {
+						File binFile = new File(src.binDir, getClassName(src, srcFile).replace('.', '/') + ".class");
+						if (binFile.lastModified() >= srcFile.lastModified())
+							return null;
+						return src.javac.compile(new File[] { srcFile });
+					}
+				}));
+			}
+
+			int loaded = 0;
+			for (int i = 0; i < srcFiles.size(); i++) {
+				String error = results.get(i).get();
+				String className = getClassName(srcs.get(i), srcFiles.get(i));
+				if (null != error) {
+					_log.error("Failed to compile " + srcFiles.get(i).getAbsolutePath() + ". Error: " + error);
+					continue;
+				}
+				try {
+					loadClass(className);
+					loaded++;
+				} catch (Exception ex) {
+					_log.error("Failed to load DynaCode class " + className + " Msg: " + ex.getMessage());
+				}
+			}
+			_log.info("DynaCode compiled: " + srcFiles.size() + " loaded: " + loaded + " threads: " + threads
+					+ " in " + (System.currentTimeMillis() - startTime) + "ms");
+			return loaded;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Start watching the source directories for changes. A changed source file
+	 * is recompiled and the classes from its source directory are unloaded.
+	 * 
+	 * @throws IOException
+	 */
+	public synchronized void startWatching() throws IOException {
+
+		if (null != watchService)
+			return;
+
+		final WatchService service = FileSystems.getDefault().newWatchService();
+		for (SourceDir src : sourceDirs) {
+			watch(service, src.srcDir.toPath());
+		}
+		watchService = service;
+		watcher = new Thread(new Runnable() {
+			public void run() {
+				processEvents(service);
+			}
+		}, "DynaCode-watcher");
+		watcher.setDaemon(true);
+		watcher.start();
+	}
+
+	/**
+	 * Stop watching the source directories. Changes are then found by
+	 * loadClass().
+	 */
+	public synchronized void stopWatching() {
+
+		if (null == watchService)
+			return;
+		try {
+			watchService.close();
+		} catch (IOException ex) {
+			_log.warn("Error closing DynaCode watch service Msg: " + ex.getMessage());
+		}
+		watchService = null;
+		watchedDirs.clear();
+		watcher.interrupt();
+		watcher = null;
+	}
+
+	/**
+	 * Method isWatching.
+	 * 
+	 * @return boolean
+	 */
+	public boolean isWatching() {
+		return null != watchService;
+	}
+
+	/**
+	 * Method watch. Register a directory and all its sub directories with the
+	 * watch service.
+	 * 
+	 * @param service
+	 *            WatchService
+	 * @param dir
+	 *            Path
+	 */
+	private void watch(final WatchService service, Path dir) {
+		if (!Files.isDirectory(dir))
+			return;
+		try {
+			Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+				public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+					WatchKey key = dir.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+							StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+					watchedDirs.put(key, dir);
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		} catch (IOException | ClosedWatchServiceException ex) {
+			_log.warn("Could not watch DynaCode dir: " + dir + " Msg: " + ex.getMessage());
+		}
+	}
+
+	/**
+	 * Method processEvents. Runs on the watcher thread until the watch service
+	 * is closed. Events are collected until there are none for the quiet
+	 * period so an editor saving a file several times causes one compile.
+	 * 
+	 * @param service
+	 *            WatchService
+	 */
+	private void processEvents(WatchService service) {
+
+		try {
+			while (true) {
+				WatchKey key = service.take();
+				Map<SourceDir, Set<File>> changes = new HashMap<SourceDir, Set<File>>();
+				while (null != key) {
+					Path dir = watchedDirs.get(key);
+					for (WatchEvent<?> event : key.pollEvents()) {
+						if (null == dir)
+							continue;
+						SourceDir src = locateSourceDir(dir.toFile());
+						if (null == src)
+							continue;
+						Set<File> files = changes.get(src);
+						if (null == files) {
+							files = new LinkedHashSet<File>();
+							changes.put(src, files);
+						}
+						if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+							continue;
+						Path file = dir.resolve((Path) event.context());
+						if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(file)) {
+							watch(service, file);
+						} else if (file.toString().endsWith(".java")) {
+							files.add(file.toFile());
+						}
+					}
+					if (!key.reset())
+						watchedDirs.remove(key);
+					key = service.poll(WATCH_QUIET_PERIOD, TimeUnit.MILLISECONDS);
+				}
+				for (Map.Entry<SourceDir, Set<File>> entry : changes.entrySet()) {
+					recompile(entry.getKey(), entry.getValue());
+				}
+			}
+		} catch (InterruptedException | ClosedWatchServiceException ex) {
+			// stopped
+		}
+	}
+
+	/**
+	 * Method recompile. Compile the changed files that still exist and unload
+	 * the source directory so the next load uses the new classes.
+	 * 
+	 * @param src
+	 *            SourceDir
+	 * @param files
+	 *            Set<File>
+	 */
+	private void recompile(SourceDir src, Set<File> files) {
+
+		List<File> srcFiles = new ArrayList<File>(files.size());
+		for (File file : files) {
+			if (file.exists())
+				srcFiles.add(file);
+		}
+		synchronized (this) {
+			if (!srcFiles.isEmpty()) {
+				String error = src.javac.compile(srcFiles.toArray(new File[srcFiles.size()]));
+				if (null == error) {
+					_log.info("DynaCode recompiled: " + srcFiles);
+				} else {
+					_log.error("Failed to compile " + srcFiles + ". Error: " + error);
+				}
+			}
+			unload(src);
+		}
 	}
 
 	/**
@@ -192,25 +487,54 @@ public final class DynamicCode {
 		return null;
 	}
 
+	/**
+	 * Method locateSourceDir.
+	 * 
+	 * @param dir
+	 *            File a directory in a source dir.
+	 * @return SourceDir
+	 */
+	private SourceDir locateSourceDir(File dir) {
+		for (SourceDir src : sourceDirs) {
+			if (dir.toPath().startsWith(src.srcDir.toPath())) {
+				return src;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Method getClassName.
+	 * 
+	 * @param src
+	 *            SourceDir
+	 * @param srcFile
+	 *            File
+	 * @return String
+	 */
+	private static String getClassName(SourceDir src, File srcFile) {
+		String path = src.srcDir.toPath().relativize(srcFile.toPath()).toString();
+		return path.substring(0, path.length() - ".java".length()).replace(File.separatorChar, '.');
+	}
+
 	/**
 	 * Method unload.
 	 * 
 	 * @param src
 	 *            SourceDir
 	 */
-	private void unload(SourceDir src) {
+	private synchronized void unload(SourceDir src) {
 		// clear loaded classes
-		synchronized (loadedClasses) {
-			for (Iterator<LoadedClass> iter = loadedClasses.values().iterator(); iter.hasNext();) {
-				LoadedClass loadedClass = iter.next();
-				if (loadedClass.srcDir == src) {
-					iter.remove();
-				}
+		for (Iterator<LoadedClass> iter = loadedClasses.values().iterator(); iter.hasNext();) {
+			LoadedClass loadedClass = iter.next();
+			if (loadedClass.srcDir == src) {
+				iter.remove();
 			}
 		}
 
 		// create new class loader
 		src.recreateClassLoader();
+		src.generation++;
 	}
 
 	/**
@@ -232,6 +556,28 @@ public final class DynamicCode {
 		}
 	}
 
+	/**
+	 * Create an instance of the current version of the dynamic class. The
+	 * instance is not replaced if the class changes.
+	 * 
+	 * @param interfaceClass
+	 *            Class<T> the access interface
+	 * @param implClassName
+	 *            String the dynamic implementation
+	 * @param parm
+	 *            Vector<Object> the constructor parameters
+	 * @return T
+	 * @throws Exception
+	 */
+	public <T> T newInstance(Class<T> interfaceClass, String implClassName, Vector<Object> parm) throws Exception {
+		Class<?> clz = loadClass(implClassName);
+		try {
+			return interfaceClass.cast(getCreateClass(clz, parm));
+		} catch (Exception e) {
+			throw new Exception("Failed to new instance of DynaCode class " + clz.getName(), e);
+		}
+	}
+
 	/**
 	 * Create a proxy instance that implements the specified access interface
 	 * and delegates incoming invocations to the specified dynamic
@@ -272,6 +618,26 @@ public final class DynamicCode {
 		return Proxy.newProxyInstance(interfaceClass.getClassLoader(), new Class[] { interfaceClass }, handler);
 	}
 
+	/**
+	 * Method getMethodHandle.
+	 * 
+	 * @param method
+	 *            Method
+	 * @return MethodHandle a (Object, Object[])Object invoker for the method.
+	 * @throws IllegalAccessException
+	 */
+	private static MethodHandle getMethodHandle(Method method) throws IllegalAccessException {
+		MethodHandle handle = methodHandles.get(method);
+		if (null == handle) {
+			handle = MethodHandles.publicLookup().unreflect(method)
+					.asSpreader(Object[].class, method.getParameterTypes().length).asType(INVOKER_TYPE);
+			MethodHandle current = methodHandles.putIfAbsent(method, handle);
+			if (null != current)
+				handle = current;
+		}
+		return handle;
+	}
+
 	/**
 	 */
 	private class SourceDir {
@@ -281,7 +647,10 @@ public final class DynamicCode {
 
 		Javac javac;
 
-		URLClassLoader classLoader;
+		volatile URLClassLoader classLoader;
+
+		// incremented each time the classes are unloaded
+		volatile int generation = 0;
 
 		/**
 		 * Constructor for SourceDir.
@@ -322,6 +691,7 @@ public final class DynamicCode {
 		File binFile;
 		Class<?> clazz;
 		long lastModified;
+		int generation;
 
 		/**
 		 * Constructor for LoadedClass.
@@ -335,6 +705,7 @@ public final class DynamicCode {
 		LoadedClass(String className, SourceDir src) throws Exception {
 			this.className = className;
 			this.srcDir = src;
+			this.generation = src.generation;
 
 			String path = className.replace('.', '/');
 			this.srcFile = new File(src.srcDir, path + ".java");
@@ -352,6 +723,16 @@ public final class DynamicCode {
 			return srcFile.lastModified() != lastModified;
 		}
 
+		/**
+		 * Method isUnloaded.
+		 * 
+		 * @return boolean true if the source dir has been unloaded since this
+		 *         class was loaded.
+		 */
+		boolean isUnloaded() {
+			return srcDir.generation != generation;
+		}
+
 		void compileAndLoadClass() throws Exception {
 
 			if (clazz != null) {
@@ -387,7 +768,8 @@ public final class DynamicCode {
 
 		String backendClassName;
 
-		Object backend;
+		volatile LoadedClass loadedClass;
+		volatile Object backend;
 		Vector<Object> parm;
 
 		/**
@@ -403,9 +785,7 @@ public final class DynamicCode {
 			backendClassName = className;
 			this.parm = parm;
 			try {
-				Class<?> clz = loadClass(backendClassName);
-				backend = newDynaCodeInstance(clz);
-
+				newBackend();
 			} catch (ClassNotFoundException e) {
 				throw new Exception(e);
 			}
@@ -419,15 +799,7 @@ public final class DynamicCode {
 		 * @throws Exception
 		 */
 		MyInvocationHandler(String className) throws Exception {
-			backendClassName = className;
-
-			try {
-				Class<?> clz = loadClass(backendClassName);
-				backend = newDynaCodeInstance(clz);
-
-			} catch (ClassNotFoundException e) {
-				throw new Exception(e);
-			}
+			this(className, new Vector<Object>(0));
 		}
 
 		/**
@@ -446,19 +818,29 @@ public final class DynamicCode {
 		 */
 		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
 
-			// check if class has been updated
-			Class<?> clz = loadClass(backendClassName);
-			if (backend.getClass() != clz) {
-				backend = newDynaCodeInstance(clz);
+			// check if class has been unloaded
+			if (loadedClass.isUnloaded()) {
+				newBackend();
 			}
 
-			try {
-				// invoke on backend
-				return method.invoke(backend, args);
+			// invoke on backend
+			Object[] parms = (null == args) ? NO_ARGS : args;
+			return getMethodHandle(method).invokeExact(backend, parms);
+		}
 
-			} catch (InvocationTargetException e) {
-				throw e.getTargetException();
+		/**
+		 * Method newBackend. Create an instance of the current class.
+		 * 
+		 * @throws Exception
+		 */
+		private synchronized void newBackend() throws Exception {
+			if (null != loadedClass && !loadedClass.isUnloaded())
+				return;
+			LoadedClass current = getLoadedClass(backendClassName);
+			if (null == loadedClass || backend.getClass() != current.clazz) {
+				backend = newDynaCodeInstance(current.clazz);
 			}
+			loadedClass = current;
 		}
 
 		/**
@@ -572,4 +954,4 @@ public final class DynamicCode {
 		return buf.toString();
 	}
 
-}
\ No newline at end of file
+}
@@ -39,12 +39,15 @@ import java.util.Enumeration;
 import java.util.Hashtable;
 
 /**
+ * Least squares polynomial functions. These hold no state and may be called
+ * from any thread, for a window of points that slides one point at a time use
+ * PolynomialFitter.
  * 
  * @author Simon Allen
  */
 public final class MatrixFunctions {
 
-	private static int listingForm = 0;
+	private static final int listingForm = 0;
 
 	public MatrixFunctions() {
 
@@ -59,7 +62,7 @@ public final class MatrixFunctions {
 	 *            Integer
 	 * @return double[]
 	 */
-	public static synchronized double[] solve(Pair[] pairs, Integer polyOrder) {
+	public static double[] solve(Pair[] pairs, Integer polyOrder) {
 		int size = pairs.length;
 		if (size > 1) {
 			return getCalculatedCoeffients(pairs, polyOrder);
@@ -76,7 +79,7 @@ public final class MatrixFunctions {
 	 *            double[]
 	 * @return boolean
 	 */
-	public static synchronized boolean updateXYPairs(Hashtable<Long, Pair> userDataVector, double[] terms) {
+	public static boolean updateXYPairs(Hashtable<Long, Pair> userDataVector, double[] terms) {
 		boolean updated = false;
 		for (Enumeration<Pair> enumPairs = userDataVector.elements(); enumPairs.hasMoreElements();) {
 			Pair pair = enumPairs.nextElement();
@@ -96,7 +99,7 @@ public final class MatrixFunctions {
 	 *            double[]
 	 * @return double
 	 */
-	public static synchronized double getCorrelationCoefficient(Pair[] data, double[] terms) {
+	public static double getCorrelationCoefficient(Pair[] data, double[] terms) {
 		double r = 0;
 		int n = data.length;
 		double sx = 0, sx2 = 0, sy = 0, sy2 = 0, sxy = 0;
@@ -126,7 +129,7 @@ public final class MatrixFunctions {
 	 *            double[]
 	 * @return double
 	 */
-	public static synchronized double getStandardError(Pair[] data, double[] terms) {
+	public static double getStandardError(Pair[] data, double[] terms) {
 		double r = 0;
 		int n = data.length;
 		if (n > 2) {
@@ -148,7 +151,7 @@ public final class MatrixFunctions {
 	 *            int
 	 * @return double[]
 	 */
-	public static synchronized double[] getCalculatedCoeffients(Pair[] data, int p) {
+	public static double[] getCalculatedCoeffients(Pair[] data, int p) {
 		p += 1;
 		int n = data.length;
 		int r, c;
@@ -201,7 +204,7 @@ public final class MatrixFunctions {
 	 *            double[]
 	 * @return double
 	 */
-	public static synchronized double fx(double x, double[] terms) {
+	public static double fx(double x, double[] terms) {
 		double a = 0;
 		int e = 0;
 		for (double i : terms) {
@@ -223,7 +226,7 @@ public final class MatrixFunctions {
 	 * @param m
 	 *            int
 	 */
-	private static synchronized void gj_divide(double[][] A, int i, int j, int m) {
+	private static void gj_divide(double[][] A, int i, int j, int m) {
 		for (int q = j + 1; q < m; q++) {
 			A[i][q] /= A[i][j];
 		}
@@ -244,7 +247,7 @@ public final class MatrixFunctions {
 	 * @param m
 	 *            int
 	 */
-	private static synchronized void gj_eliminate(double[][] A, int i, int j, int n, int m) {
+	private static void gj_eliminate(double[][] A, int i, int j, int n, int m) {
 		for (int k = 0; k < n; k++) {
 			if ((k != i) && (A[k][j] != 0)) {
 				for (int q = j + 1; q < m; q++) {
@@ -261,7 +264,7 @@ public final class MatrixFunctions {
 	 * @param A
 	 *            double[][]
 	 */
-	private static synchronized void gj_echelonize(double[][] A) {
+	static void gj_echelonize(double[][] A) {
 		int n = A.length;
 		int m = A[0].length;
 		int i = 0;
@@ -309,7 +312,7 @@ public final class MatrixFunctions {
 	 *            int
 	 * @return String
 	 */
-	public static synchronized String toPrint(int polyOrder, double correlationCoeff, double standardDeviation,
+	public static String toPrint(int polyOrder, double correlationCoeff, double standardDeviation,
 			double[] terms, int dataPoints) {
 
 		String styleTag[] = { "", "pow", "Math.pow" };
@@ -359,7 +362,7 @@ public final class MatrixFunctions {
 	 *            boolean
 	 * @return String
 	 */
-	private static synchronized String formatNum(double n, boolean wide) {
+	private static String formatNum(double n, boolean wide) {
 		String w = (wide) ? "21" : "";
 		return String.format("%" + w + ".12e", n);
 	}
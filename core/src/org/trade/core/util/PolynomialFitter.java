@@ -0,0 +1,351 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.util;
+
+import java.util.Arrays;
+
+/**
+ * An instance based least squares polynomial fit over a sliding window of x,y
+ * points. The power sums that make up the normal equations are maintained as
+ * points enter and leave the window so a new fit costs O(polyOrder^2) and
+ * nothing is allocated after construction.
+ * 
+ * The x values are held relative to an origin that is moved to the oldest
+ * point each time the window turns over, this keeps the normal equations well
+ * conditioned when x is a large index or time.
+ * 
+ * An instance is not thread safe, each series or thread should have its own
+ * fitter. There is no shared state so fitters can run on any number of threads
+ * without contention.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public final class PolynomialFitter {
+
+	private final int polyOrder;
+	private final double[] xValues;
+	private final double[] yValues;
+	private final double[] sumXPow;
+	private final double[] sumXPowY;
+	private final double[][] matrix;
+	private final double[] terms;
+	private int head = 0;
+	private int size = 0;
+	private int updates = 0;
+	private double origin = 0;
+	private boolean solved = false;
+
+	/**
+	 * Constructor for PolynomialFitter.
+	 * 
+	 * @param polyOrder
+	 *            int the order of the polynomial i.e. 2 for quadratic.
+	 * @param capacity
+	 *            int the number of points in the window.
+	 */
+	public PolynomialFitter(int polyOrder, int capacity) {
+		if (polyOrder < 1) {
+			throw new IllegalArgumentException("Polynomial order must be greater than zero.");
+		}
+		if (capacity < 2) {
+			throw new IllegalArgumentException("Capacity must be greater than one.");
+		}
+		this.polyOrder = polyOrder;
+		this.xValues = new double[capacity];
+		this.yValues = new double[capacity];
+		this.sumXPow = new double[(2 * polyOrder) + 1];
+		this.sumXPowY = new double[polyOrder + 1];
+		this.matrix = new double[polyOrder + 1][polyOrder + 2];
+		this.terms = new double[polyOrder + 1];
+	}
+
+	/**
+	 * Method add. Adds a point to the window removing the oldest point when
+	 * the window is full.
+	 * 
+	 * @param x
+	 *            double
+	 * @param y
+	 *            double
+	 */
+	public void add(double x, double y) {
+		if (size == 0) {
+			origin = x;
+		}
+		if (size == xValues.length) {
+			accumulate(xValues[head] - origin, yValues[head], -1);
+		} else {
+			size++;
+		}
+		xValues[head] = x;
+		yValues[head] = y;
+		head = (head + 1) % xValues.length;
+		solved = false;
+		/*
+		 * Once the window has turned over the sums are re-calculated about
+		 * the oldest point so they do not drift or lose precision as x grows.
+		 */
+		if (++updates >= xValues.length) {
+			resync();
+		} else {
+			accumulate(x - origin, y, 1);
+		}
+	}
+
+	/**
+	 * Method clear. Removes all the points from the window.
+	 */
+	public void clear() {
+		head = 0;
+		size = 0;
+		updates = 0;
+		origin = 0;
+		solved = false;
+		Arrays.fill(sumXPow, 0);
+		Arrays.fill(sumXPowY, 0);
+	}
+
+	/**
+	 * Method size.
+	 * 
+	 * @return int the number of points in the window.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Method getCapacity.
+	 * 
+	 * @return int
+	 */
+	public int getCapacity() {
+		return xValues.length;
+	}
+
+	/**
+	 * Method getPolyOrder.
+	 * 
+	 * @return int
+	 */
+	public int getPolyOrder() {
+		return polyOrder;
+	}
+
+	/**
+	 * Method getX.
+	 * 
+	 * @param index
+	 *            int 0 is the oldest point in the window.
+	 * @return double
+	 */
+	public double getX(int index) {
+		return xValues[position(index)];
+	}
+
+	/**
+	 * Method getY.
+	 * 
+	 * @param index
+	 *            int 0 is the oldest point in the window.
+	 * @return double
+	 */
+	public double getY(int index) {
+		return yValues[position(index)];
+	}
+
+	/**
+	 * Method solve. Fits the polynomial to the points in the window.
+	 * 
+	 * @return boolean false if there are less than two points.
+	 */
+	public boolean solve() {
+		if (size < 2) {
+			return false;
+		}
+		if (!solved) {
+			int p = polyOrder + 1;
+			for (int r = 0; r < p; r++) {
+				double[] row = matrix[r];
+				for (int c = 0; c < p; c++) {
+					row[c] = sumXPow[r + c];
+				}
+				row[p] = sumXPowY[r];
+			}
+			MatrixFunctions.gj_echelonize(matrix);
+			for (int r = 0; r < p; r++) {
+				terms[r] = matrix[r][p];
+			}
+			solved = true;
+		}
+		return true;
+	}
+
+	/**
+	 * Method getTerms. The coefficients of the last fit, these are relative to
+	 * the origin see getOrigin().
+	 * 
+	 * @return double[] the coefficients lowest order first, this array is
+	 *         re-used by the next fit.
+	 */
+	public double[] getTerms() {
+		return terms;
+	}
+
+	/**
+	 * Method getOrigin.
+	 * 
+	 * @return double the x value the terms are relative to.
+	 */
+	public double getOrigin() {
+		return origin;
+	}
+
+	/**
+	 * Method fx. The fitted y value for x, solve() must have been called.
+	 * 
+	 * @param x
+	 *            double
+	 * @return double
+	 */
+	public double fx(double x) {
+		double dx = x - origin;
+		double a = 0;
+		for (int i = polyOrder; i >= 0; i--) {
+			a = (a * dx) + terms[i];
+		}
+		return a;
+	}
+
+	/**
+	 * Method getCorrelationCoefficient. The r^2 between the fitted and actual y
+	 * values of the points in the window, solve() must have been called.
+	 * 
+	 * @return double
+	 */
+	public double getCorrelationCoefficient() {
+		double r = 0;
+		int n = size;
+		double sx = 0, sx2 = 0, sy = 0, sy2 = 0, sxy = 0;
+		double x, y;
+		for (int i = 0; i < n; i++) {
+			x = fx(xValues[i]);
+			y = yValues[i];
+			sx += x;
+			sy += y;
+			sxy += x * y;
+			sx2 += x * x;
+			sy2 += y * y;
+		}
+		double div = Math.sqrt((sx2 - ((sx * sx) / n)) * (sy2 - ((sy * sy) / n)));
+		if (div != 0) {
+			r = (sxy - ((sx * sy) / n)) / div;
+			r = r * r;
+		}
+		return r;
+	}
+
+	/**
+	 * Method getStandardError. The standard error of the fitted y values of
+	 * the points in the window, solve() must have been called.
+	 * 
+	 * @return double
+	 */
+	public double getStandardError() {
+		double r = 0;
+		int n = size;
+		if (n > 2) {
+			double a = 0;
+			for (int i = 0; i < n; i++) {
+				double e = fx(xValues[i]) - yValues[i];
+				a += e * e;
+			}
+			r = Math.sqrt(a / (n - 2));
+		}
+		return r;
+	}
+
+	/**
+	 * Method accumulate. Adds or removes a point from the power sums.
+	 * 
+	 * @param dx
+	 *            double x relative to the origin.
+	 * @param y
+	 *            double
+	 * @param sign
+	 *            int 1 to add -1 to remove.
+	 */
+	private void accumulate(double dx, double y, int sign) {
+		double xPow = sign;
+		for (int k = 0; k < sumXPow.length; k++) {
+			sumXPow[k] += xPow;
+			if (k < sumXPowY.length) {
+				sumXPowY[k] += xPow * y;
+			}
+			xPow *= dx;
+		}
+	}
+
+	/**
+	 * Method resync. Moves the origin to the oldest point and re-calculates
+	 * the power sums from the window.
+	 */
+	private void resync() {
+		Arrays.fill(sumXPow, 0);
+		Arrays.fill(sumXPowY, 0);
+		origin = getX(0);
+		for (int i = 0; i < size; i++) {
+			accumulate(xValues[i] - origin, yValues[i], 1);
+		}
+		updates = 0;
+	}
+
+	/**
+	 * Method position.
+	 * 
+	 * @param index
+	 *            int 0 is the oldest point in the window.
+	 * @return int the position in the ring.
+	 */
+	private int position(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + " Size: " + size);
+		}
+		int oldest = (size == xValues.length) ? head : 0;
+		return (oldest + index) % xValues.length;
+	}
+}
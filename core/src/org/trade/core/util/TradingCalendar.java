@@ -46,9 +46,12 @@ import java.time.ZonedDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.StringTokenizer;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -73,6 +76,17 @@ public class TradingCalendar {
 	private static final HashMap<Integer, int[]> HOLIDAYS = new HashMap<Integer, int[]>();
 	private static int[] NONTRADINGDAYS = new int[] {};
 
+	/*
+	 * Years either side of the requested date that are added to the trading
+	 * day index when it is built or extended. Dates that would need an index
+	 * wider than MAX_INDEX_YEARS are walked a day at a time.
+	 */
+	private static final int INDEX_MARGIN_YEARS = 5;
+	private static final int MAX_INDEX_YEARS = 400;
+	private static volatile TradingDayIndex tradingDayIndex = null;
+
+	private static final ConcurrentHashMap<String, DateTimeFormatter> FORMATTERS = new ConcurrentHashMap<String, DateTimeFormatter>();
+
 	private static Integer openHour = new Integer(9);
 	private static Integer openMinute = new Integer(30);
 	private static Integer closeHour = new Integer(16);
@@ -163,29 +177,68 @@ public class TradingCalendar {
 	 */
 	public static ZonedDateTime addTradingDays(ZonedDateTime date, int noDays) {
 		if ((date != null) && (noDays != 0)) {
-			if (noDays > 0) {
-				for (int i = 0; i < noDays; i++) {
-					date = date.plusDays(1);
-					if (!TradingCalendar.isTradingDay(date) || isHoliday(date)) {
-						noDays++;
-					}
+			long epochDay = date.toLocalDate().toEpochDay();
+			long reach = (Math.abs((long) noDays) * 2) + 366;
+			while (reach < (MAX_INDEX_YEARS * 366L)) {
+				TradingDayIndex index = noDays > 0 ? getTradingDayIndex(epochDay, epochDay + reach)
+						: getTradingDayIndex(epochDay - reach, epochDay);
+				if (null == index) {
+					break;
 				}
-				return date;
-			} else {
-				for (int i = 0; i > noDays; i--) {
-					date = date.minusDays(1);
-					if (!TradingCalendar.isTradingDay(date) || isHoliday(date)) {
-						noDays--;
+				/*
+				 * Ordinal of the trading day we want, the count up to and
+				 * including epochDay is the ordinal of the next trading day
+				 * after epochDay.
+				 */
+				long ordinal = index.getCount(epochDay);
+				if (noDays > 0) {
+					ordinal = ordinal + noDays - 1;
+				} else {
+					if (index.isTradingDay(epochDay)) {
+						ordinal--;
 					}
+					ordinal = ordinal + noDays;
 				}
-				return date;
-
+				if (index.hasOrdinal(ordinal)) {
+					return date.plusDays(index.getTradingDay((int) ordinal) - epochDay);
+				}
+				reach = reach * 2;
 			}
+			return stepTradingDays(date, noDays);
 		} else {
 			return date;
 		}
 	}
 
+	/**
+	 * Method stepTradingDays. Adds the trading days one calendar day at a time,
+	 * used for dates outside the range the index will cover.
+	 * 
+	 * @param date
+	 *            ZonedDateTime
+	 * @param noDays
+	 *            int
+	 * @return ZonedDateTime
+	 */
+	private static ZonedDateTime stepTradingDays(ZonedDateTime date, int noDays) {
+		if (noDays > 0) {
+			for (int i = 0; i < noDays; i++) {
+				date = date.plusDays(1);
+				if (!isTradingDay(date.toLocalDate())) {
+					noDays++;
+				}
+			}
+		} else {
+			for (int i = 0; i > noDays; i--) {
+				date = date.minusDays(1);
+				if (!isTradingDay(date.toLocalDate())) {
+					noDays--;
+				}
+			}
+		}
+		return date;
+	}
+
 	/**
 	 * Method isTradingDay.
 	 * 
@@ -194,12 +247,30 @@ public class TradingCalendar {
 	 * @return boolean
 	 */
 	public static boolean isTradingDay(ZonedDateTime date) {
-		if (isHoliday(date)) {
+		long epochDay = date.toLocalDate().toEpochDay();
+		TradingDayIndex index = getTradingDayIndex(epochDay, epochDay);
+		if (null == index) {
+			return isTradingDay(date.toLocalDate());
+		}
+		return index.isTradingDay(epochDay);
+	}
+
+	/**
+	 * Method isTradingDay. Checks the holidays and non trading days, this is
+	 * what the trading day index is built from.
+	 * 
+	 * @param date
+	 *            LocalDate
+	 * @return boolean
+	 */
+	private static boolean isTradingDay(LocalDate date) {
+		if (isHoliday(date.getYear(), date.getDayOfYear())) {
 			return false;
 		}
 		if (null != NONTRADINGDAYS) {
+			int dayOfWeek = date.getDayOfWeek().getValue();
 			for (int hol : NONTRADINGDAYS) {
-				if (hol == date.getDayOfWeek().getValue()) {
+				if (hol == dayOfWeek) {
 					return false;
 				}
 			}
@@ -207,6 +278,57 @@ public class TradingCalendar {
 		return true;
 	}
 
+	/**
+	 * Method getTradingDayIndex. Returns an index that covers fromEpochDay to
+	 * toEpochDay, building or extending the index if needed. Returns null if
+	 * the range is wider than MAX_INDEX_YEARS.
+	 * 
+	 * @param fromEpochDay
+	 *            long
+	 * @param toEpochDay
+	 *            long
+	 * @return TradingDayIndex
+	 */
+	private static TradingDayIndex getTradingDayIndex(long fromEpochDay, long toEpochDay) {
+		TradingDayIndex index = tradingDayIndex;
+		if (null != index && index.covers(fromEpochDay) && index.covers(toEpochDay)) {
+			return index;
+		}
+		return buildTradingDayIndex(fromEpochDay, toEpochDay);
+	}
+
+	/**
+	 * Method buildTradingDayIndex.
+	 * 
+	 * @param fromEpochDay
+	 *            long
+	 * @param toEpochDay
+	 *            long
+	 * @return TradingDayIndex
+	 */
+	private static synchronized TradingDayIndex buildTradingDayIndex(long fromEpochDay, long toEpochDay) {
+		TradingDayIndex index = tradingDayIndex;
+		if (null != index && index.covers(fromEpochDay) && index.covers(toEpochDay)) {
+			return index;
+		}
+		if (fromEpochDay < LocalDate.MIN.toEpochDay() + (MAX_INDEX_YEARS * 366L)
+				|| toEpochDay > LocalDate.MAX.toEpochDay() - (MAX_INDEX_YEARS * 366L)) {
+			return null;
+		}
+		int fromYear = LocalDate.ofEpochDay(fromEpochDay).getYear() - INDEX_MARGIN_YEARS;
+		int toYear = LocalDate.ofEpochDay(toEpochDay).getYear() + INDEX_MARGIN_YEARS;
+		if (null != index) {
+			fromYear = Math.min(fromYear, index.getFromYear());
+			toYear = Math.max(toYear, index.getToYear());
+		}
+		if ((toYear - fromYear) > MAX_INDEX_YEARS) {
+			return null;
+		}
+		index = new TradingDayIndex(fromYear, toYear);
+		tradingDayIndex = index;
+		return index;
+	}
+
 	/**
 	 * Return the current date time in the market time zone.
 	 * 
@@ -241,7 +363,7 @@ public class TradingCalendar {
 	 * 				@see
 	 */
 	public static String getFormattedDate(LocalDate date, String format) {
-		return date.format(DateTimeFormatter.ofPattern(format));
+		return date.format(getFormatter(format));
 	}
 
 	/**
@@ -256,7 +378,7 @@ public class TradingCalendar {
 	 * 				@see
 	 */
 	public static String getFormattedDate(LocalDateTime date, String format) {
-		return date.format(DateTimeFormatter.ofPattern(format));
+		return date.format(getFormatter(format));
 	}
 
 	/**
@@ -271,7 +393,7 @@ public class TradingCalendar {
 	 * 				@see
 	 */
 	public static String getFormattedDate(ZonedDateTime date, String format) {
-		return date.format(DateTimeFormatter.ofPattern(format));
+		return date.format(getFormatter(format));
 	}
 
 	/**
@@ -287,7 +409,7 @@ public class TradingCalendar {
 	 * @throws ParseException
 	 */
 	public static ZonedDateTime getZonedDateTimeFromDateString(String date, String format, ZoneId zoneId) {
-		LocalDate localDate = LocalDate.parse(date, DateTimeFormatter.ofPattern(format));
+		LocalDate localDate = LocalDate.parse(date, getFormatter(format));
 		return ZonedDateTime.of(localDate, LocalTime.of(0, 0), zoneId);
 	}
 
@@ -304,7 +426,7 @@ public class TradingCalendar {
 	 * @throws ParseException
 	 */
 	public static ZonedDateTime getZonedDateTimeFromDateTimeString(String dateTime, String format, ZoneId zoneId) {
-		LocalDateTime localDateTime = LocalDateTime.parse(dateTime, DateTimeFormatter.ofPattern(format));
+		LocalDateTime localDateTime = LocalDateTime.parse(dateTime, getFormatter(format));
 		return ZonedDateTime.of(localDateTime, zoneId);
 	}
 
@@ -319,7 +441,7 @@ public class TradingCalendar {
 	 * @throws ParseException
 	 */
 	public static ZonedDateTime getZonedDateTimeFromDateTimeString(String dateTime, String format) {
-		LocalDateTime localDateTime = LocalDateTime.parse(dateTime, DateTimeFormatter.ofPattern(format));
+		LocalDateTime localDateTime = LocalDateTime.parse(dateTime, getFormatter(format));
 		return ZonedDateTime.of(localDateTime, TimeZone.getDefault().toZoneId());
 	}
 
@@ -334,7 +456,7 @@ public class TradingCalendar {
 	 * @throws ParseException
 	 */
 	public static LocalDate getLocalDateFromDateString(String date, String format) {
-		return LocalDate.parse(date, DateTimeFormatter.ofPattern(format));
+		return LocalDate.parse(date, getFormatter(format));
 	}
 
 	/**
@@ -348,7 +470,7 @@ public class TradingCalendar {
 	 * @throws ParseException
 	 */
 	public static LocalDateTime getLocalDateTimeFromDateTimeString(String dateTime, String format) {
-		return LocalDateTime.parse(dateTime, DateTimeFormatter.ofPattern(format));
+		return LocalDateTime.parse(dateTime, getFormatter(format));
 	}
 
 	/**
@@ -546,10 +668,10 @@ public class TradingCalendar {
 	public static ZonedDateTime getCurrentTradingDay() {
 		ZonedDateTime currTradingDay = TradingCalendar
 				.getTradingDayStart(TradingCalendar.getDateTimeNowMarketTimeZone());
-		while (!TradingCalendar.isTradingDay(currTradingDay)) {
-			currTradingDay = currTradingDay.minusDays(1);
+		if (TradingCalendar.isTradingDay(currTradingDay)) {
+			return currTradingDay;
 		}
-		return currTradingDay;
+		return TradingCalendar.addTradingDays(currTradingDay, -1);
 	}
 
 	/**
@@ -560,12 +682,7 @@ public class TradingCalendar {
 	 * @return ZonedDateTime
 	 */
 	public static ZonedDateTime getPrevTradingDay(ZonedDateTime input) {
-		ZonedDateTime prevTradingDay = TradingCalendar.getTradingDayStart(input);
-		prevTradingDay = prevTradingDay.minusDays(1);
-		while (!TradingCalendar.isTradingDay(prevTradingDay)) {
-			prevTradingDay = prevTradingDay.minusDays(1);
-		}
-		return prevTradingDay;
+		return TradingCalendar.addTradingDays(TradingCalendar.getTradingDayStart(input), -1);
 	}
 
 	/**
@@ -576,13 +693,7 @@ public class TradingCalendar {
 	 * @return ZonedDateTime
 	 */
 	public static ZonedDateTime getNextTradingDay(ZonedDateTime input) {
-		ZonedDateTime nextTradingday = TradingCalendar.getTradingDayStart(input);
-		nextTradingday = nextTradingday.plusDays(1);
-
-		while (!TradingCalendar.isTradingDay(nextTradingday)) {
-			nextTradingday = nextTradingday.plusDays(1);
-		}
-		return nextTradingday;
+		return TradingCalendar.addTradingDays(TradingCalendar.getTradingDayStart(input), 1);
 	}
 
 	/**
@@ -593,15 +704,22 @@ public class TradingCalendar {
 	 * @return boolean
 	 */
 	public static boolean isHoliday(ZonedDateTime date) {
+		return isHoliday(date.getYear(), date.getDayOfYear());
+	}
 
-		int year = date.getYear();
+	/**
+	 * Method isHoliday. The holidays for a year are held sorted.
+	 * 
+	 * @param year
+	 *            int
+	 * @param dayOfYear
+	 *            int
+	 * @return boolean
+	 */
+	private static boolean isHoliday(int year, int dayOfYear) {
 		int[] hols = HOLIDAYS.get(year);
 		if (null != hols) {
-			for (int hol : hols) {
-				if (hol == date.getDayOfYear()) {
-					return true;
-				}
-			}
+			return Arrays.binarySearch(hols, dayOfYear) > -1;
 		}
 		return false;
 	}
@@ -711,7 +829,152 @@ public class TradingCalendar {
 				dates[(i)] = Integer.parseInt(st.nextToken());
 				i++;
 			}
+			Arrays.sort(dates);
 			HOLIDAYS.put(year, dates);
 		}
 	}
+
+	/**
+	 * Method getFormatter. Formatters are immutable and thread safe so one is
+	 * kept per pattern.
+	 * 
+	 * @param format
+	 *            String
+	 * @return DateTimeFormatter
+	 */
+	private static DateTimeFormatter getFormatter(String format) {
+		DateTimeFormatter formatter = FORMATTERS.get(format);
+		if (null == formatter) {
+			formatter = DateTimeFormatter.ofPattern(format);
+			DateTimeFormatter current = FORMATTERS.putIfAbsent(format, formatter);
+			if (null != current) {
+				formatter = current;
+			}
+		}
+		return formatter;
+	}
+
+	/**
+	 * Trading days from the first day of fromYear to the last day of toYear
+	 * by epoch day. A bit is set for each trading day, counts holds the number
+	 * of trading days up to and including each day and tradingDays the offset
+	 * of each trading day from the first day. Once built it is not changed.
+	 */
+	private static final class TradingDayIndex {
+
+		private final int fromYear;
+		private final int toYear;
+		private final long firstDay;
+		private final long lastDay;
+		private final BitSet isTradingDay;
+		private final int[] counts;
+		private final int[] tradingDays;
+
+		/**
+		 * Constructor for TradingDayIndex.
+		 * 
+		 * @param fromYear
+		 *            int
+		 * @param toYear
+		 *            int
+		 */
+		private TradingDayIndex(int fromYear, int toYear) {
+			this.fromYear = fromYear;
+			this.toYear = toYear;
+			LocalDate day = LocalDate.of(fromYear, 1, 1);
+			this.firstDay = day.toEpochDay();
+			this.lastDay = LocalDate.of(toYear, 12, 31).toEpochDay();
+			int noDays = (int) (this.lastDay - this.firstDay) + 1;
+			this.isTradingDay = new BitSet(noDays);
+			this.counts = new int[noDays];
+			int count = 0;
+			for (int i = 0; i < noDays; i++) {
+				if (TradingCalendar.isTradingDay(day)) {
+					this.isTradingDay.set(i);
+					count++;
+				}
+				this.counts[i] = count;
+				day = day.plusDays(1);
+			}
+			this.tradingDays = new int[count];
+			int ordinal = 0;
+			for (int i = this.isTradingDay.nextSetBit(0); i > -1; i = this.isTradingDay.nextSetBit(i + 1)) {
+				this.tradingDays[ordinal++] = i;
+			}
+		}
+
+		/**
+		 * Method getFromYear.
+		 * 
+		 * @return int
+		 */
+		private int getFromYear() {
+			return this.fromYear;
+		}
+
+		/**
+		 * Method getToYear.
+		 * 
+		 * @return int
+		 */
+		private int getToYear() {
+			return this.toYear;
+		}
+
+		/**
+		 * Method covers.
+		 * 
+		 * @param epochDay
+		 *            long
+		 * @return boolean
+		 */
+		private boolean covers(long epochDay) {
+			return epochDay >= this.firstDay && epochDay <= this.lastDay;
+		}
+
+		/**
+		 * Method isTradingDay.
+		 * 
+		 * @param epochDay
+		 *            long
+		 * @return boolean
+		 */
+		private boolean isTradingDay(long epochDay) {
+			return this.isTradingDay.get((int) (epochDay - this.firstDay));
+		}
+
+		/**
+		 * Method getCount. The number of trading days in the index up to and
+		 * including epochDay.
+		 * 
+		 * @param epochDay
+		 *            long
+		 * @return int
+		 */
+		private int getCount(long epochDay) {
+			return this.counts[(int) (epochDay - this.firstDay)];
+		}
+
+		/**
+		 * Method hasOrdinal.
+		 * 
+		 * @param ordinal
+		 *            long
+		 * @return boolean
+		 */
+		private boolean hasOrdinal(long ordinal) {
+			return ordinal > -1 && ordinal < this.tradingDays.length;
+		}
+
+		/**
+		 * Method getTradingDay.
+		 * 
+		 * @param ordinal
+		 *            int
+		 * @return long the epoch day of the trading day.
+		 */
+		private long getTradingDay(int ordinal) {
+			return this.firstDay + this.tradingDays[ordinal];
+		}
+	}
 }
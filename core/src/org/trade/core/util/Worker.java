@@ -35,77 +35,127 @@
  */
 package org.trade.core.util;
 
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import javax.swing.SwingUtilities;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.core.properties.ConfigProperties;
+
 /**
- * The StrategyWorker is an abstract class that you subclass to perform work in
- * a dedicated thread. For instructions on using this class, see:
- * 
- * StrategyWorker does all the dirty work of implementing a background thread.
- * Although many programs don't need background threads, background threads are
- * sometimes useful for performing time-consuming operations, which can improve
- * the perceived performance of a program.
+ * The Worker is an abstract class that you subclass to perform work in the
+ * background. Workers do not own a thread, they run on a shared executor and
+ * only when there is work to do so many workers can be served by a few
+ * threads.
  * 
- * To use the StrategyWorker class, you first create a subclass of it. In the
- * subclass, you must implement the doInBackground() method so that it contains
- * the code to perform your lengthy operation. When you instantiate your
- * StrategyWorker subclass, the StrategyWorker creates a thread but does not
- * start it. You invoke start() on your StrategyWorker object to start the
- * thread, which then calls your doInBackground() method. When you need the
- * object returned by the doInBackground() method, you call the StrategyWorker
- * get() method. Here's an example of using SwingWorker:
+ * To use the Worker class, you first create a subclass of it. In the subclass,
+ * you must implement the doInBackground() method so that it processes the work
+ * that is pending and returns. You invoke execute() on your Worker object to
+ * run doInBackground() for the first time, after that call signal() whenever
+ * there is more work e.g. from a series change listener. Each signal results in
+ * doInBackground() being called, signals that arrive while it is running are
+ * coalesced into one more call. doInBackground() is never called concurrently
+ * for the same Worker.
  * 
- * ...//in the main method: final StrategyWorker worker = new StrategyWorker() {
- * public Object doInBackground() { return new expensiveDialogComponent(); } };
- * worker.execute();
+ * Calling cancel() runs doInBackground() one last time with isCancelled() true,
+ * the Worker then completes and done() is called on the event dispatching
+ * thread. When you need the object returned by the last doInBackground() call,
+ * you call the Worker get() method.
  * 
- * Note that the API changed slightly in the 3rd version: You must now invoke
- * start() on the StrategyWorker after creating it.
+ * The executor is set by trade.worker.executor, virtual a virtual thread per
+ * run where the JVM supports them otherwise pool, pool a work-stealing pool of
+ * trade.worker.parallelism threads, thread a new thread per run.
  * 
  * @author Simon Allen
  */
 public abstract class Worker {
+
+	private final static Logger _log = LoggerFactory.getLogger(Worker.class);
+
+	private static final int NEW = 0;
+	private static final int IDLE = 1;
+	private static final int SCHEDULED = 2;
+	private static final int RUNNING = 3;
+	private static final int RUNNING_SIGNALLED = 4;
+	private static final int FINISHED = 5;
+
+	private static volatile Executor executor = null;
+
 	private Object value; // see getValue(), setValue()
-	public Thread thread;
-	protected boolean isDone = false;
-	protected boolean isCancelled = false;
+	protected volatile boolean isDone = false;
+	protected volatile boolean isCancelled = false;
 	protected static int threadCount = 0;
 
+	private final AtomicInteger state = new AtomicInteger(NEW);
+	private final Runnable doRun;
+
+	static {
+		String type = "virtual";
+		int parallelism = 0;
+		try {
+			type = ConfigProperties.getPropAsString("trade.worker.executor").trim();
+			parallelism = ConfigProperties.getPropAsInt("trade.worker.parallelism");
+		} catch (Exception ex) {
+			// Use the defaults
+		}
+		executor = createExecutor(type, parallelism);
+	}
+
 	/**
-	 * Class to maintain reference to current worker thread under separate
-	 * synchronization control.
+	 * Method createExecutor.
 	 * 
-	 * @author Simon Allen
-	 * @version $Revision: 1.0 $
+	 * @param type
+	 *            String virtual, pool or thread.
+	 * @param parallelism
+	 *            int the threads in the pool, 0 one per available processor.
+	 * @return Executor
 	 */
-	private static class ThreadVar {
-		private Thread thread;
+	public static Executor createExecutor(String type, int parallelism) {
 
-		/**
-		 * Constructor for ThreadVar.
-		 * 
-		 * @param t
-		 *            Thread
-		 */
-		ThreadVar(Thread t) {
-			thread = t;
+		if ("thread".equalsIgnoreCase(type)) {
+			return new Executor() {
+				public void execute(Runnable command) {
+					new Thread(command, "WorkerThread" + threadCount++).start();
+				}
+			};
 		}
-
-		/**
-		 * Method get.
-		 * 
-		 * @return Thread
-		 */
-		synchronized Thread get() {
-			return thread;
+		if ("virtual".equalsIgnoreCase(type)) {
+			try {
+				Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+				return (ExecutorService) method.invoke(null);
+			} catch (Exception ex) {
+				_log.info("Virtual threads are not available Worker will use a work-stealing pool.");
+			}
 		}
+		return new ForkJoinPool((parallelism > 0) ? parallelism : Runtime.getRuntime().availableProcessors(),
+				ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+	}
 
-		synchronized void clear() {
-			thread = null;
-		}
+	/**
+	 * Method getExecutor.
+	 * 
+	 * @return Executor the executor new runs of all Workers are submitted to.
+	 */
+	public static Executor getExecutor() {
+		return executor;
 	}
 
-	private ThreadVar threadVar;
+	/**
+	 * Method setExecutor.
+	 * 
+	 * @param executor
+	 *            Executor the executor new runs of all Workers are submitted
+	 *            to.
+	 */
+	public static void setExecutor(Executor executor) {
+		Worker.executor = executor;
+	}
 
 	/**
 	 * Get the value produced by the worker thread, or null if it hasn't been
@@ -128,7 +178,8 @@ public abstract class Worker {
 	}
 
 	/**
-	 * Compute the value to be returned by the <code>get</code> method.
+	 * Process the pending work and return. Called once when the Worker is
+	 * executed and then once for each signal.
 	 * 
 	 * @return Object
 	 */
@@ -136,7 +187,7 @@ public abstract class Worker {
 
 	/**
 	 * Called on the event dispatching thread (not on the worker thread) after
-	 * the <code>doInBackground</code> method has returned.
+	 * the Worker has completed.
 	 */
 	protected abstract void done();
 
@@ -150,92 +201,34 @@ public abstract class Worker {
 	}
 
 	/**
-	 * A thread state. A thread can be in one of the following states:
-	 * 
-	 * NEW A thread that has not yet started is in this state.
-	 * 
-	 * RUNNABLE A thread executing in the Java virtual machine is in this state.
-	 * 
-	 * BLOCKED A thread that is blocked waiting for a monitor lock is in this
-	 * state.
-	 * 
-	 * WAITING A thread that is waiting indefinitely for another thread to
-	 * perform a particular action is in this state.
-	 * 
-	 * TIMED_WAITING A thread that is waiting for another thread to perform an
-	 * action for up to a specified waiting time is in this state.
-	 * 
-	 * TERMINATED A thread that has exited is in this state. A thread can be in
-	 * only one state at a given point in time.
-	 * 
-	 * These states are virtual machine states which do not reflect any
-	 * operating system thread states.
+	 * Method isRunning.
 	 * 
-	 * 
-	 * @return the boolean running/dead.
+	 * @return boolean true if the Worker has been executed and has not yet
+	 *         completed.
 	 */
-
 	public boolean isRunning() {
-		Thread t = threadVar.get();
-		if (t == null)
-			return false;
-
-		if (t.getState().compareTo(Thread.State.NEW) == 0)
-			return false;
-
-		if (t.getState().compareTo(Thread.State.TERMINATED) == 0)
-			return false;
-
-		return true;
+		int current = state.get();
+		return current != NEW && current != FINISHED;
 	}
 
 	/**
-	 * A thread state. A thread can be in one of the following states:
-	 * 
-	 * NEW A thread that has not yet started is in this state.
-	 * 
-	 * RUNNABLE A thread executing in the Java virtual machine is in this state.
-	 * 
-	 * BLOCKED A thread that is blocked waiting for a monitor lock is in this
-	 * state.
-	 * 
-	 * WAITING A thread that is waiting indefinitely for another thread to
-	 * perform a particular action is in this state.
-	 * 
-	 * TIMED_WAITING A thread that is waiting for another thread to perform an
-	 * action for up to a specified waiting time is in this state.
+	 * Method isWaiting.
 	 * 
-	 * TERMINATED A thread that has exited is in this state. A thread can be in
-	 * only one state at a given point in time.
-	 * 
-	 * These states are virtual machine states which do not reflect any
-	 * operating system thread states.
-	 * 
-	 * 
-	 * @return the boolean running/dead.
+	 * @return boolean true if the Worker is running and waiting for a signal.
 	 */
-
 	public boolean isWaiting() {
-		Thread t = threadVar.get();
-		if (t != null) {
-			if (t.getState().compareTo(Thread.State.WAITING) == 0
-					|| t.getState().compareTo(Thread.State.TIMED_WAITING) == 0)
-				return true;
-		}
-		return false;
+		return state.get() == IDLE;
 	}
 
 	/**
-	 * A new method that interrupts the worker thread. Call this method to force
-	 * the worker to stop what it's doing.
+	 * Cancel the worker. doInBackground() is called one last time and the
+	 * Worker then completes. A Worker cancelled before it is executed will not
+	 * run.
 	 */
 	public void cancel() {
 		isCancelled = true;
-		Thread t = threadVar.get();
-		if (t != null) {
-			t.interrupt();
-		}
-		threadVar.clear();
+		if (!state.compareAndSet(NEW, FINISHED))
+			signal();
 	}
 
 	/**
@@ -258,65 +251,105 @@ public abstract class Worker {
 	}
 
 	/**
-	 * Return the value created by the <code>construct</code> method. Returns
-	 * null if either the constructing thread or the current thread was
-	 * interrupted before a value was produced.
+	 * Return the value created by the <code>doInBackground</code> method.
+	 * Waits for the Worker to complete if it is running. Returns null if the
+	 * current thread was interrupted before a value was produced.
 	 * 
 	 * 
-	 * @return the value created by the <code>construct</code> method
+	 * @return the value created by the <code>doInBackground</code> method
 	 */
 	public Object get() {
-		while (true) {
-			Thread t = threadVar.get();
-			if (t == null) {
-				return getValue();
-			}
-			try {
-				t.join();
-			} catch (InterruptedException e) {
-				Thread.currentThread().interrupt(); // propagate
-				return null;
+		synchronized (state) {
+			while (isRunning()) {
+				try {
+					state.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt(); // propagate
+					return null;
+				}
 			}
 		}
+		return getValue();
 	}
 
 	/**
-	 * Start a thread that will call the <code>doInBackground</code> method and
-	 * then exit.
+	 * Create a Worker, call execute() to start it.
 	 */
 	public Worker() {
-		final Runnable doFinished = new Runnable() {
+		doRun = new Runnable() {
 			public void run() {
-				isDone = true;
-				done();
-			}
-		};
-
-		Runnable doConstruct = new Runnable() {
-			public void run() {
-				try {
-					setValue(doInBackground());
-				} finally {
-					threadVar.clear();
-				}
-				SwingUtilities.invokeLater(doFinished);
+				Worker.this.run();
 			}
 		};
-		Thread t = new Thread(doConstruct, "WorkerThread" + threadCount++);
-		threadVar = new ThreadVar(t);
 	}
 
 	/**
-	 * Start the worker thread.
+	 * Start the worker. A Worker can only be executed once.
 	 */
 	public void execute() {
-		Thread t = threadVar.get();
-		if (t != null) {
+		if (state.compareAndSet(NEW, SCHEDULED)) {
 			isDone = false;
 			isCancelled = false;
-			t.start();
-		} else {
+			executor.execute(doRun);
+		}
+	}
 
+	/**
+	 * Method signal. Schedule a call to doInBackground(). Does nothing if the
+	 * Worker is not running or a call is already pending.
+	 */
+	protected void signal() {
+		while (true) {
+			int current = state.get();
+			if (current == IDLE) {
+				if (state.compareAndSet(IDLE, SCHEDULED)) {
+					executor.execute(doRun);
+					return;
+				}
+			} else if (current == RUNNING) {
+				if (state.compareAndSet(RUNNING, RUNNING_SIGNALLED))
+					return;
+			} else {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Method run. One run of doInBackground() on the executor. If signalled
+	 * while running the Worker is submitted again rather than looping so other
+	 * Workers get a turn.
+	 */
+	private void run() {
+		state.set(RUNNING);
+		try {
+			setValue(doInBackground());
+		} catch (Throwable ex) {
+			_log.error("Error Worker: " + getClass().getName() + " Msg: " + ex.getMessage(), ex);
+			isCancelled = true;
 		}
+		if (isCancelled) {
+			finish();
+		} else if (!state.compareAndSet(RUNNING, IDLE)) {
+			state.set(SCHEDULED);
+			executor.execute(doRun);
+		}
+	}
+
+	/**
+	 * Method finish. Complete the Worker and call done() on the event
+	 * dispatching thread.
+	 */
+	private void finish() {
+		synchronized (state) {
+			state.set(FINISHED);
+			state.notifyAll();
+		}
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				isDone = true;
+				done();
+			}
+		});
 	}
 }
@@ -88,6 +88,8 @@ public class Decode extends ValueType implements Comparator<Decode>, Comparable<
 
 	private Lookup m_lookup = null;
 	private Object m_badValue = null;
+	private boolean m_optional = false;
+	private String m_tableKey = null;
 
 	protected static Boolean m_ascending = new Boolean(true);
 
@@ -164,6 +166,8 @@ public class Decode extends ValueType implements Comparator<Decode>, Comparable<
 		final LookupQualifier qualifier = new LookupQualifier();
 
 		qualifier.setValue(m_codeDecodeIdentifier + _TYPE, m_codeDecodeType);
+		m_optional = optional;
+		m_tableKey = DecodeTable.getKey(m_codeDecodeIdentifier, m_codeDecodeType, optional);
 
 		try {
 			m_lookup = LookupService.getLookup(m_codeDecodeIdentifier, qualifier, optional);
@@ -190,6 +194,8 @@ public class Decode extends ValueType implements Comparator<Decode>, Comparable<
 		final LookupQualifier qualifier = new LookupQualifier();
 
 		qualifier.setValue(m_codeDecodeIdentifier + _TYPE, m_codeDecodeType);
+		m_optional = optional;
+		m_tableKey = DecodeTable.getKey(m_codeDecodeIdentifier, m_codeDecodeType, optional);
 
 		try {
 			m_lookup = LookupService.getLookup(m_codeDecodeIdentifier, qualifier, optional);
@@ -423,6 +429,23 @@ public class Decode extends ValueType implements Comparator<Decode>, Comparable<
 		}
 	}
 
+	/**
+	 * Method getDecodeTable. Decodes obtained from the LookupService share
+	 * one table per type that is rebuilt when the lookups are cleared.
+	 * 
+	 * @return DecodeTable
+	 * @throws ValueTypeException
+	 */
+	public DecodeTable getDecodeTable() throws ValueTypeException {
+		if (null != m_tableKey) {
+			return DecodeTable.getTable(m_tableKey, m_codeDecodeIdentifier, m_codeDecodeType, m_optional);
+		}
+		if (null == getLookup()) {
+			throw new ValueTypeException("No lookup found for: " + m_codeDecodeType);
+		}
+		return new DecodeTable(getLookup(), m_codeDecodeIdentifier);
+	}
+
 	/**
 	 * Method getCodesDecodes.
 	 * 
@@ -430,29 +453,18 @@ public class Decode extends ValueType implements Comparator<Decode>, Comparable<
 	 * @throws ValueTypeException
 	 */
 	public Vector<Decode> getCodesDecodes() throws ValueTypeException {
-		Vector<Decode> decodes = new Vector<Decode>();
+
+		final DecodeTable table = getDecodeTable();
+		final Vector<Decode> decodes = new Vector<Decode>(table.size());
 
 		try {
-			final int columns = getLookup().getColumnCount();
-			final int rows = getLookup().getRowCount();
-			String columnName = null;
-			Decode newDecode = null;
-
-			for (int i = 0; i < columns; i++) {
-				columnName = getLookup().getColumnName(i);
-
-				if ((m_codeDecodeIdentifier + _CODE).equals(columnName)) {
-					for (int y = 0; y < rows; y++) {
-						final Class<?> c = Class.forName(this.getClass().getName());
-
-						// construct a new business object
-						newDecode = (Decode) c.newInstance();
-						newDecode.m_lookup = (Lookup) getLookup().clone();
-
-						newDecode.setValue(getLookup().getValueAt(y, i));
-						decodes.add(newDecode);
-					}
-				}
+			for (int y = 0; y < table.size(); y++) {
+
+				// construct a new business object
+				final Decode newDecode = this.getClass().newInstance();
+				newDecode.m_lookup = table.getLookup();
+				newDecode.setValue(table.getCode(y));
+				decodes.add(newDecode);
 			}
 		} catch (final Exception e) {
 			throw new ValueTypeException(
@@ -0,0 +1,255 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.valuetype;
+
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.trade.core.lookup.Lookup;
+import org.trade.core.lookup.LookupQualifier;
+import org.trade.core.lookup.LookupService;
+
+/**
+ * An immutable copy of the codes and display names of a Decode type with an
+ * index from code to row. Tables are built once per type from the
+ * LookupService and shared by every instance of the type until the lookups are
+ * cleared.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public final class DecodeTable {
+
+	private static final ConcurrentHashMap<String, DecodeTable> _tables = new ConcurrentHashMap<String, DecodeTable>();
+
+	private final Lookup lookup;
+	private final Object[] codes;
+	private final String[] displayNames;
+	private final HashMap<Object, Integer> codeIndex;
+
+	/**
+	 * Constructor for DecodeTable.
+	 * 
+	 * @param lookup
+	 *            Lookup
+	 * @param identifier
+	 *            String the code decode identifier of the columns.
+	 * @throws ValueTypeException
+	 */
+	public DecodeTable(Lookup lookup, String identifier) throws ValueTypeException {
+		try {
+			this.lookup = (Lookup) lookup.clone();
+			int codeColumn = -1;
+			int displayNameColumn = -1;
+			for (int i = 0; i < this.lookup.getColumnCount(); i++) {
+				String columnName = this.lookup.getColumnName(i);
+				if ((identifier + Decode._CODE).equals(columnName)) {
+					codeColumn = i;
+				} else if ((identifier + Decode._DISPLAY_NAME).equals(columnName)) {
+					displayNameColumn = i;
+				}
+			}
+			int rows = (codeColumn == -1) ? 0 : this.lookup.getRowCount();
+			this.codes = new Object[rows];
+			this.displayNames = new String[rows];
+			this.codeIndex = new HashMap<Object, Integer>(rows * 2);
+			for (int y = 0; y < rows; y++) {
+				this.codes[y] = this.lookup.getValueAt(y, codeColumn);
+				Object displayName = (displayNameColumn == -1) ? null : this.lookup.getValueAt(y, displayNameColumn);
+				this.displayNames[y] = (null == displayName) ? "" : displayName.toString();
+				if (null != this.codes[y] && !this.codeIndex.containsKey(this.codes[y])) {
+					this.codeIndex.put(this.codes[y], y);
+				}
+			}
+		} catch (Exception ex) {
+			throw new ValueTypeException(
+					"Error building decode table for: " + identifier + " error message " + ex.getMessage());
+		}
+	}
+
+	/**
+	 * Method getTable. Return the shared table for the type loading it on
+	 * first use.
+	 * 
+	 * @param identifier
+	 *            String
+	 * @param codeDecodeType
+	 *            String
+	 * @param optional
+	 *            boolean
+	 * @return DecodeTable
+	 * @throws ValueTypeException
+	 */
+	public static DecodeTable getTable(String identifier, String codeDecodeType, boolean optional)
+			throws ValueTypeException {
+		return getTable(getKey(identifier, codeDecodeType, optional), identifier, codeDecodeType, optional);
+	}
+
+	/**
+	 * Method getTable.
+	 * 
+	 * @param key
+	 *            String the key of the type see getKey.
+	 * @param identifier
+	 *            String
+	 * @param codeDecodeType
+	 *            String
+	 * @param optional
+	 *            boolean
+	 * @return DecodeTable
+	 * @throws ValueTypeException
+	 */
+	static DecodeTable getTable(String key, String identifier, String codeDecodeType, boolean optional)
+			throws ValueTypeException {
+		DecodeTable table = _tables.get(key);
+		if (null == table) {
+			table = loadTable(key, identifier, codeDecodeType, optional);
+		}
+		return table;
+	}
+
+	/**
+	 * Method getKey.
+	 * 
+	 * @param identifier
+	 *            String
+	 * @param codeDecodeType
+	 *            String
+	 * @param optional
+	 *            boolean
+	 * @return String
+	 */
+	static String getKey(String identifier, String codeDecodeType, boolean optional) {
+		return identifier + "|" + codeDecodeType + "|" + optional;
+	}
+
+	/**
+	 * Method clear. Drop all the tables so they are rebuilt from the
+	 * LookupService on next use.
+	 */
+	public static synchronized void clear() {
+		_tables.clear();
+	}
+
+	/**
+	 * Method loadTable. Loads are serialized with clear so a table read before
+	 * a clear is not cached after it.
+	 * 
+	 * @param key
+	 *            String
+	 * @param identifier
+	 *            String
+	 * @param codeDecodeType
+	 *            String
+	 * @param optional
+	 *            boolean
+	 * @return DecodeTable
+	 * @throws ValueTypeException
+	 */
+	private static synchronized DecodeTable loadTable(String key, String identifier, String codeDecodeType,
+			boolean optional) throws ValueTypeException {
+		DecodeTable table = _tables.get(key);
+		if (null == table) {
+			final LookupQualifier qualifier = new LookupQualifier();
+			qualifier.setValue(identifier + Decode._TYPE, codeDecodeType);
+			Lookup lookup = null;
+			try {
+				lookup = LookupService.getLookup(identifier, qualifier, optional);
+			} catch (Exception ex) {
+				throw new ValueTypeException(
+						"Error getting lookup for: " + codeDecodeType + " error message " + ex.getMessage());
+			}
+			if (null == lookup) {
+				throw new ValueTypeException("No lookup found for: " + codeDecodeType);
+			}
+			table = new DecodeTable(lookup, identifier);
+			_tables.put(key, table);
+		}
+		return table;
+	}
+
+	/**
+	 * Method size.
+	 * 
+	 * @return int the number of rows.
+	 */
+	public int size() {
+		return this.codes.length;
+	}
+
+	/**
+	 * Method getCode.
+	 * 
+	 * @param row
+	 *            int
+	 * @return Object
+	 */
+	public Object getCode(int row) {
+		return this.codes[row];
+	}
+
+	/**
+	 * Method getDisplayName.
+	 * 
+	 * @param row
+	 *            int
+	 * @return String
+	 */
+	public String getDisplayName(int row) {
+		return this.displayNames[row];
+	}
+
+	/**
+	 * Method indexOfCode.
+	 * 
+	 * @param code
+	 *            Object
+	 * @return int the first row with the code or -1 if not found.
+	 */
+	public int indexOfCode(Object code) {
+		Integer row = this.codeIndex.get(code);
+		return (null == row) ? -1 : row;
+	}
+
+	/**
+	 * Method getLookup.
+	 * 
+	 * @return Lookup a copy of the lookup the table was built from.
+	 */
+	Lookup getLookup() {
+		return (Lookup) this.lookup.clone();
+	}
+}
@@ -0,0 +1,414 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.valuetype;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An immutable fixed point price or amount held as a long scaled to SCALE
+ * decimal places. This is for order and position calculations on the trading
+ * path, the arithmetic and tick rounding are exact and only a long is
+ * allocated per value. Use valueOf/toBigDecimal at the persistence boundary
+ * and toMoney for display.
+ * 
+ * Arithmetic that overflows a long throws an ArithmeticException.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public final class Price implements Comparable<Price>, Serializable {
+
+	private static final long serialVersionUID = -2950389374426731208L;
+
+	/*
+	 * The number of decimal places held, this matches the scale the
+	 * persistent model uses for average fill prices and position values.
+	 */
+	public final static int SCALE = 5;
+	public final static long UNITS_PER_DOLLAR = 100000L;
+
+	public final static Price ZERO = new Price(0);
+	public final static Price ONE_CENT = new Price(UNITS_PER_DOLLAR / 100);
+	public final static Price ONE_DOLLAR = new Price(UNITS_PER_DOLLAR);
+
+	private final long m_units;
+
+	/**
+	 * Constructor for Price.
+	 * 
+	 * @param units
+	 *            long
+	 */
+	private Price(long units) {
+		m_units = units;
+	}
+
+	/**
+	 * Method ofUnits.
+	 * 
+	 * @param units
+	 *            long the value scaled by UNITS_PER_DOLLAR.
+	 * @return Price
+	 */
+	public static Price ofUnits(long units) {
+		if (0 == units) {
+			return ZERO;
+		}
+		return new Price(units);
+	}
+
+	/**
+	 * Method valueOf. The value is rounded half even to SCALE decimal places.
+	 * 
+	 * @param value
+	 *            double
+	 * @return Price
+	 */
+	public static Price valueOf(double value) {
+		double units = Math.rint(value * UNITS_PER_DOLLAR);
+		if (Double.isNaN(units) || Math.abs(units) >= Long.MAX_VALUE) {
+			throw new ArithmeticException("Price out of range: " + value);
+		}
+		return ofUnits((long) units);
+	}
+
+	/**
+	 * Method valueOf. The value is rounded half even to SCALE decimal places.
+	 * 
+	 * @param value
+	 *            BigDecimal
+	 * @return Price null if the value is null.
+	 */
+	public static Price valueOf(BigDecimal value) {
+		if (null == value) {
+			return null;
+		}
+		return ofUnits(value.movePointRight(SCALE).setScale(0, RoundingMode.HALF_EVEN).longValueExact());
+	}
+
+	/**
+	 * Method valueOf.
+	 * 
+	 * @param value
+	 *            Money
+	 * @return Price null if the value is null or empty.
+	 */
+	public static Price valueOf(Money value) {
+		if (null == value || value.isEmpty()) {
+			return null;
+		}
+		return valueOf(value.getBigDecimalValue());
+	}
+
+	/**
+	 * Method getUnits.
+	 * 
+	 * @return long the value scaled by UNITS_PER_DOLLAR.
+	 */
+	public long getUnits() {
+		return m_units;
+	}
+
+	/**
+	 * Method doubleValue.
+	 * 
+	 * @return double
+	 */
+	public double doubleValue() {
+		return (double) m_units / UNITS_PER_DOLLAR;
+	}
+
+	/**
+	 * Method toBigDecimal.
+	 * 
+	 * @return BigDecimal with a scale of SCALE.
+	 */
+	public BigDecimal toBigDecimal() {
+		return BigDecimal.valueOf(m_units, SCALE);
+	}
+
+	/**
+	 * Method toBigDecimal.
+	 * 
+	 * @param scale
+	 *            int
+	 * @return BigDecimal rounded half even to scale.
+	 */
+	public BigDecimal toBigDecimal(int scale) {
+		return toBigDecimal().setScale(scale, RoundingMode.HALF_EVEN);
+	}
+
+	/**
+	 * Method toMoney.
+	 * 
+	 * @return Money
+	 */
+	public Money toMoney() {
+		return new Money(toBigDecimal());
+	}
+
+	/**
+	 * Method add.
+	 * 
+	 * @param price
+	 *            Price
+	 * @return Price
+	 */
+	public Price add(Price price) {
+		return ofUnits(Math.addExact(m_units, price.m_units));
+	}
+
+	/**
+	 * Method subtract.
+	 * 
+	 * @param price
+	 *            Price
+	 * @return Price
+	 */
+	public Price subtract(Price price) {
+		return ofUnits(Math.subtractExact(m_units, price.m_units));
+	}
+
+	/**
+	 * Method multiply. e.g. price times a quantity.
+	 * 
+	 * @param multiplier
+	 *            long
+	 * @return Price
+	 */
+	public Price multiply(long multiplier) {
+		return ofUnits(Math.multiplyExact(m_units, multiplier));
+	}
+
+	/**
+	 * Method divide. e.g. a value divided by a quantity.
+	 * 
+	 * @param divisor
+	 *            long
+	 * @param roundingMode
+	 *            RoundingMode
+	 * @return Price
+	 */
+	public Price divide(long divisor, RoundingMode roundingMode) {
+		return ofUnits(divide(m_units, divisor, roundingMode));
+	}
+
+	/**
+	 * Method roundToTick. Rounds to a multiple of the tick size.
+	 * 
+	 * @param tick
+	 *            Price
+	 * @param roundingMode
+	 *            RoundingMode
+	 * @return Price
+	 */
+	public Price roundToTick(Price tick, RoundingMode roundingMode) {
+		if (tick.m_units <= 0) {
+			throw new ArithmeticException("Tick size must be greater than zero: " + tick);
+		}
+		long ticks = divide(m_units, tick.m_units, roundingMode);
+		return ofUnits(Math.multiplyExact(ticks, tick.m_units));
+	}
+
+	/**
+	 * Method negate.
+	 * 
+	 * @return Price
+	 */
+	public Price negate() {
+		return ofUnits(Math.negateExact(m_units));
+	}
+
+	/**
+	 * Method abs.
+	 * 
+	 * @return Price
+	 */
+	public Price abs() {
+		return m_units < 0 ? negate() : this;
+	}
+
+	/**
+	 * Method signum.
+	 * 
+	 * @return int
+	 */
+	public int signum() {
+		return Long.signum(m_units);
+	}
+
+	/**
+	 * Method min.
+	 * 
+	 * @param price
+	 *            Price
+	 * @return Price
+	 */
+	public Price min(Price price) {
+		return m_units <= price.m_units ? this : price;
+	}
+
+	/**
+	 * Method max.
+	 * 
+	 * @param price
+	 *            Price
+	 * @return Price
+	 */
+	public Price max(Price price) {
+		return m_units >= price.m_units ? this : price;
+	}
+
+	/**
+	 * Method isLessThan.
+	 * 
+	 * @param price
+	 *            Price
+	 * @return boolean
+	 */
+	public boolean isLessThan(Price price) {
+		return m_units < price.m_units;
+	}
+
+	/**
+	 * Method isGreaterThan.
+	 * 
+	 * @param price
+	 *            Price
+	 * @return boolean
+	 */
+	public boolean isGreaterThan(Price price) {
+		return m_units > price.m_units;
+	}
+
+	/**
+	 * Method compareTo.
+	 * 
+	 * @param other
+	 *            Price
+	 * @return int
+	 */
+	public int compareTo(final Price other) {
+		return Long.compare(m_units, other.m_units);
+	}
+
+	/**
+	 * Method equals.
+	 * 
+	 * @param objectToCompare
+	 *            Object
+	 * @return boolean
+	 */
+	public boolean equals(Object objectToCompare) {
+		if (this == objectToCompare) {
+			return true;
+		}
+		if (objectToCompare instanceof Price) {
+			return m_units == ((Price) objectToCompare).m_units;
+		}
+		return false;
+	}
+
+	/**
+	 * Method hashCode.
+	 * 
+	 * @return int
+	 */
+	public int hashCode() {
+		return Long.hashCode(m_units);
+	}
+
+	/**
+	 * Method toString.
+	 * 
+	 * @return String
+	 */
+	public String toString() {
+		return toBigDecimal().toPlainString();
+	}
+
+	/**
+	 * Method divide. Integer division of two longs rounded using the rounding
+	 * mode.
+	 * 
+	 * @param dividend
+	 *            long
+	 * @param divisor
+	 *            long
+	 * @param roundingMode
+	 *            RoundingMode
+	 * @return long
+	 */
+	private static long divide(long dividend, long divisor, RoundingMode roundingMode) {
+		long quotient = dividend / divisor;
+		long remainder = dividend % divisor;
+		if (0 == remainder) {
+			return quotient;
+		}
+		int sign = ((dividend ^ divisor) < 0) ? -1 : 1;
+		long absRemainder = Math.abs(remainder);
+		int half = Long.compare(absRemainder, Math.abs(divisor) - absRemainder);
+		boolean increment = false;
+		switch (roundingMode) {
+		case DOWN:
+			increment = false;
+			break;
+		case UP:
+			increment = true;
+			break;
+		case FLOOR:
+			increment = (sign < 0);
+			break;
+		case CEILING:
+			increment = (sign > 0);
+			break;
+		case HALF_UP:
+			increment = (half >= 0);
+			break;
+		case HALF_DOWN:
+			increment = (half > 0);
+			break;
+		case HALF_EVEN:
+			increment = (half > 0) || (half == 0 && (quotient & 1) != 0);
+			break;
+		default:
+			throw new ArithmeticException("Rounding necessary for " + dividend + "/" + divisor);
+		}
+		return increment ? quotient + sign : quotient;
+	}
+}
@@ -0,0 +1,191 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.lookup;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Some tests for the {@link LookupService} and
+ * {@link DBTableLookupServiceProvider} classes.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class LookupServiceTest {
+
+	private final static Logger _log = LoggerFactory.getLogger(LookupServiceTest.class);
+	@Rule
+	public TestName name = new TestName();
+
+	private static final String TEST_LOOKUP = "TEST_LOOKUP";
+
+	private AtomicInteger calls = null;
+	private LookupServiceProvider provider = null;
+
+	/**
+	 * Method setUpBeforeClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * Method setUp.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		calls = new AtomicInteger(0);
+		provider = new LookupServiceProvider() {
+			public Lookup getLookup(String lookupName, LookupQualifier qualifier, boolean optional)
+					throws LookupException {
+				if (!TEST_LOOKUP.equals(lookupName))
+					return null;
+				calls.incrementAndGet();
+				Vector<Object> row = new Vector<Object>(Arrays.asList((Object) "TYPE", "CODE", "Code"));
+				Vector<Object> rows = new Vector<Object>();
+				rows.add(row);
+				return new PropertiesLookup(
+						new Vector<String>(Arrays.asList(TEST_LOOKUP + "_TYPE", TEST_LOOKUP + "_CODE",
+								TEST_LOOKUP + "_DISPLAY_NAME")),
+						rows);
+			}
+		};
+		LookupService.addLookupServiceProvider(provider);
+	}
+
+	/**
+	 * Method tearDown.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+		LookupService.removeLookupServiceProvider(provider);
+	}
+
+	/**
+	 * Method tearDownAfterClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Test
+	public void testGetLookupConcurrent() {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			Vector<Future<Integer>> results = new Vector<Future<Integer>>();
+			for (int i = 0; i < 8; i++) {
+				results.add(executor.submit(new Callable<Integer>() {
+					public Integer call() throws Exception {
+						int found = 0;
+						for (int y = 0; y < 1000; y++) {
+							Lookup lookup = LookupService.getLookup(TEST_LOOKUP, new LookupQualifier(), false);
+							if (null != lookup && lookup.setPos("CODE", TEST_LOOKUP + "_CODE"))
+								found++;
+						}
+						return found;
+					}
+				}));
+			}
+			for (Future<Integer> result : results) {
+				assertEquals("1", new Integer(1000), result.get());
+			}
+			assertEquals("2", 8000, calls.get());
+
+			/*
+			 * A removed provider is no longer asked.
+			 */
+			LookupService.removeLookupServiceProvider(provider);
+			assertNull("3", LookupService.getLookup(TEST_LOOKUP, new LookupQualifier(), false));
+			assertEquals("4", 8000, calls.get());
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testDBTableLookupNotFound() {
+		try {
+			DBTableLookupServiceProvider provider = new DBTableLookupServiceProvider();
+			LookupQualifier qualifier = new LookupQualifier();
+			qualifier.setValue("NOT_A_LOOKUP_TYPE", "NONE");
+			long misses = DBTableLookupServiceProvider.getMisses();
+			long loads = DBTableLookupServiceProvider.getLoads();
+			assertNull("1", provider.getLookup("NOT_A_LOOKUP", qualifier, false));
+			assertNull("2", provider.getLookup("NOT_A_LOOKUP", qualifier, false));
+
+			/*
+			 * Lookups that are not found are not cached so are loaded again.
+			 */
+			_log.info(DBTableLookupServiceProvider.getStatistics());
+			assertEquals("3", misses + 2, DBTableLookupServiceProvider.getMisses());
+			assertEquals("4", loads + 2, DBTableLookupServiceProvider.getLoads());
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+}
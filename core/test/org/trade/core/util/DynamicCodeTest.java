@@ -0,0 +1,192 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.util;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Some tests for the {@link DynamicCode} class.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class DynamicCodeTest {
+
+	private final static Logger _log = LoggerFactory.getLogger(DynamicCodeTest.class);
+
+	@Rule
+	public TestName name = new TestName();
+
+	private Path srcDir = null;
+	private DynamicCode dynacode = null;
+
+	/**
+	 * Method setUpBeforeClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * Method setUp.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		this.srcDir = Files.createTempDirectory("dynacode");
+		Files.createDirectories(this.srcDir.resolve("dynacode"));
+		writeSource("Value", "one");
+		writeSource("Other", "other");
+		this.dynacode = new DynamicCode();
+		this.dynacode.addSourceDir(this.srcDir.toFile());
+	}
+
+	/**
+	 * Method tearDown.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+		this.dynacode.stopWatching();
+		Files.walkFileTree(this.srcDir, new SimpleFileVisitor<Path>() {
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				Files.delete(file);
+				return FileVisitResult.CONTINUE;
+			}
+
+			public FileVisitResult postVisitDirectory(Path dir, IOException ex) throws IOException {
+				Files.delete(dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	/**
+	 * Method tearDownAfterClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Test
+	public void testCompileAllAndWatch() {
+		try {
+			assertEquals("1", 2, this.dynacode.compileAll(2));
+
+			@SuppressWarnings("unchecked")
+			Callable<Object> proxy = (Callable<Object>) this.dynacode.newProxyInstance(Callable.class,
+					"dynacode.Value", new Vector<Object>(0));
+			@SuppressWarnings("unchecked")
+			Callable<Object> instance = this.dynacode.newInstance(Callable.class, "dynacode.Value",
+					new Vector<Object>(0));
+			assertEquals("2", "one", proxy.call());
+			assertEquals("3", "one", instance.call());
+			assertEquals("4", proxy.hashCode(), proxy.hashCode());
+
+			this.dynacode.startWatching();
+			assertTrue("5", this.dynacode.isWatching());
+			writeSource("Value", "two");
+			long timeout = System.currentTimeMillis() + 20000;
+			while (!"two".equals(proxy.call()) && System.currentTimeMillis() < timeout) {
+				Thread.sleep(50);
+			}
+			assertEquals("6", "two", proxy.call());
+			assertEquals("7", "one", instance.call());
+			assertEquals("8", "two", this.dynacode.newInstance(Callable.class, "dynacode.Value",
+					new Vector<Object>(0)).call());
+
+			/*
+			 * Not watching changes are found when the class is loaded.
+			 */
+			this.dynacode.stopWatching();
+			File srcFile = writeSource("Value", "three");
+			srcFile.setLastModified(System.currentTimeMillis() + 2000);
+			assertEquals("9", "three", this.dynacode.loadClass("dynacode.Value").getMethod("call")
+					.invoke(this.dynacode.loadClass("dynacode.Value").newInstance()));
+			assertEquals("10", "three", proxy.call());
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	/**
+	 * Method writeSource.
+	 * 
+	 * @param className
+	 *            String
+	 * @param value
+	 *            String the value returned by call().
+	 * @return File
+	 * @throws IOException
+	 */
+	private File writeSource(String className, String value) throws IOException {
+		String source = "package dynacode;\n public class " + className
+				+ " implements java.util.concurrent.Callable<Object> {\n public Object call() {\n return \"" + value
+				+ "\";\n }\n}\n";
+		Path file = this.srcDir.resolve("dynacode").resolve(className + ".java");
+		Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+		return file.toFile();
+	}
+}
@@ -0,0 +1,152 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.util;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Some tests for the {@link PolynomialFitter} class.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class PolynomialFitterTest {
+
+	private final static Logger _log = LoggerFactory.getLogger(PolynomialFitterTest.class);
+
+	@Rule
+	public TestName name = new TestName();
+
+	/**
+	 * Method setUpBeforeClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * Method setUp.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * Method tearDown.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * Method tearDownAfterClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Test
+	public void testSlidingWindow() {
+		try {
+			int polyOrder = 2;
+			int bars = 5;
+			PolynomialFitter fitter = new PolynomialFitter(polyOrder, bars);
+			Random random = new Random(7);
+			double[] x = new double[500];
+			double[] y = new double[500];
+			for (int i = 0; i < x.length; i++) {
+				x[i] = 700 + i;
+				y[i] = 30 + Math.sin(i / 6d) + (random.nextDouble() / 10);
+			}
+			assertFalse("1", fitter.solve());
+			for (int i = 0; i < x.length; i++) {
+				fitter.add(x[i], y[i]);
+				if (i < bars - 1) {
+					continue;
+				}
+				Pair[] pairs = new Pair[bars];
+				for (int j = 0; j < bars; j++) {
+					pairs[j] = new Pair(x[(i - bars) + 1 + j], y[(i - bars) + 1 + j]);
+				}
+				double[] terms = MatrixFunctions.solve(pairs, polyOrder);
+				assertTrue("2", fitter.solve());
+				assertEquals("3", bars, fitter.size());
+				assertEquals("4", x[(i - bars) + 1], fitter.getX(0), 0);
+				assertEquals("5", y[i], fitter.getY(bars - 1), 0);
+				for (Pair pair : pairs) {
+					assertEquals("6", MatrixFunctions.fx(pair.x, terms), fitter.fx(pair.x), 1e-6);
+				}
+				assertEquals("7", MatrixFunctions.getCorrelationCoefficient(pairs, terms),
+						fitter.getCorrelationCoefficient(), 1e-6);
+				assertEquals("8", MatrixFunctions.getStandardError(pairs, terms), fitter.getStandardError(), 1e-6);
+			}
+			_log.info("Terms: " + MatrixFunctions.toPrint(polyOrder, fitter.getCorrelationCoefficient(),
+					fitter.getStandardError(), fitter.getTerms(), fitter.size()));
+			fitter.clear();
+			assertEquals("9", 0, fitter.size());
+			fitter.add(1, 1);
+			fitter.add(2, 4);
+			fitter.add(3, 9);
+			assertTrue("10", fitter.solve());
+			assertEquals("11", 16, fitter.fx(4), 1e-9);
+			assertEquals("12", 1, fitter.getCorrelationCoefficient(), 1e-9);
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+}
@@ -129,6 +129,97 @@ public class TradingCalendarTest {
 		}
 	}
 
+	@Test
+	public void testAddTradingDaysMultiYear() {
+		try {
+			ZonedDateTime date = TradingCalendar.getTradingDayStart(
+					ZonedDateTime.of(2008, 1, 1, 0, 0, 0, 0, TradingCalendar.MKT_TIMEZONE));
+			ZonedDateTime endDate = date.plusYears(12);
+			while (date.isBefore(endDate)) {
+				for (int noDays = -25; noDays <= 25; noDays++) {
+					ZonedDateTime expected = stepTradingDays(date, noDays);
+					ZonedDateTime actual = TradingCalendar.addTradingDays(date, noDays);
+					assertEquals("1 " + date + " " + noDays, expected.toLocalDate(), actual.toLocalDate());
+					assertEquals("2 " + date + " " + noDays, date.toLocalTime(), actual.toLocalTime());
+				}
+				assertEquals("3 " + date, isTradingDay(date), TradingCalendar.isTradingDay(date));
+				assertEquals("4 " + date, stepTradingDays(date, -1).toLocalDate(),
+						TradingCalendar.getPrevTradingDay(date).toLocalDate());
+				assertEquals("5 " + date, stepTradingDays(date, 1).toLocalDate(),
+						TradingCalendar.getNextTradingDay(date).toLocalDate());
+				date = date.plusDays(1);
+			}
+			/*
+			 * Far enough out that the index has to be extended.
+			 */
+			date = TradingCalendar.getTradingDayStart(
+					ZonedDateTime.of(1950, 6, 15, 0, 0, 0, 0, TradingCalendar.MKT_TIMEZONE));
+			assertEquals("6", stepTradingDays(date, 5000).toLocalDate(),
+					TradingCalendar.addTradingDays(date, 5000).toLocalDate());
+			assertEquals("7", stepTradingDays(date, -5000).toLocalDate(),
+					TradingCalendar.addTradingDays(date, -5000).toLocalDate());
+
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	@Test
+	public void testGetFormatterCached() {
+		try {
+			String format = "yyyyMMdd HH:mm:ss";
+			ZonedDateTime date = ZonedDateTime.of(2016, 3, 4, 9, 30, 15, 0, TradingCalendar.MKT_TIMEZONE);
+			for (int i = 0; i < 3; i++) {
+				String dateString = TradingCalendar.getFormattedDate(date, format);
+				assertEquals("1", "20160304 09:30:15", dateString);
+				assertEquals("2", date,
+						TradingCalendar.getZonedDateTimeFromDateTimeString(dateString, format,
+								TradingCalendar.MKT_TIMEZONE));
+				assertEquals("3", date.toLocalDate(),
+						TradingCalendar.getLocalDateFromDateString("20160304", "yyyyMMdd"));
+			}
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	/**
+	 * Method stepTradingDays. Walk a day at a time checking the week day and
+	 * holidays.
+	 * 
+	 * @param date
+	 *            ZonedDateTime
+	 * @param noDays
+	 *            int
+	 * @return ZonedDateTime
+	 */
+	private ZonedDateTime stepTradingDays(ZonedDateTime date, int noDays) {
+		int step = noDays > 0 ? 1 : -1;
+		while (noDays != 0) {
+			date = date.plusDays(step);
+			if (isTradingDay(date)) {
+				noDays = noDays - step;
+			}
+		}
+		return date;
+	}
+
+	/**
+	 * Method isTradingDay.
+	 * 
+	 * @param date
+	 *            ZonedDateTime
+	 * @return boolean
+	 */
+	private boolean isTradingDay(ZonedDateTime date) {
+		return !TradingCalendar.isHoliday(date) && date.getDayOfWeek() != DayOfWeek.SATURDAY
+				&& date.getDayOfWeek() != DayOfWeek.SUNDAY;
+	}
+
 	@Test
 	public void testGetDateAtTime() {
 		try {
@@ -0,0 +1,181 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.util;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Some tests for the {@link Worker} class.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class WorkerTest {
+
+	private final static Logger _log = LoggerFactory.getLogger(WorkerTest.class);
+
+	@Rule
+	public TestName name = new TestName();
+
+	private Executor executor = null;
+
+	/**
+	 * Method setUpBeforeClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * Method setUp.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		this.executor = Worker.getExecutor();
+	}
+
+	/**
+	 * Method tearDown.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+		Worker.setExecutor(this.executor);
+	}
+
+	/**
+	 * Method tearDownAfterClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Test
+	public void testManyWorkersFewThreads() {
+		try {
+			ExecutorService pool = (ExecutorService) Worker.createExecutor("pool", 2);
+			Worker.setExecutor(pool);
+			int workers = 500;
+			int signals = 200;
+			CountingWorker[] counters = new CountingWorker[workers];
+			for (int i = 0; i < workers; i++) {
+				counters[i] = new CountingWorker();
+				assertFalse("1", counters[i].isRunning());
+				counters[i].execute();
+			}
+			for (int j = 0; j < signals; j++) {
+				for (CountingWorker counter : counters) {
+					counter.pending.incrementAndGet();
+					counter.signal();
+				}
+			}
+			for (CountingWorker counter : counters) {
+				assertTrue("2", counter.isRunning());
+				counter.cancel();
+				assertEquals("3", signals, counter.get());
+				assertFalse("4", counter.isRunning());
+				assertEquals("5", 0, counter.concurrent.get());
+				assertTrue("6", counter.runs.get() <= signals + 2);
+			}
+			pool.shutdown();
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	@Test
+	public void testCancelBeforeExecute() {
+		try {
+			CountingWorker counter = new CountingWorker();
+			counter.cancel();
+			counter.execute();
+			assertFalse("1", counter.isRunning());
+			assertEquals("2", 0, counter.runs.get());
+			assertNull("3", counter.get());
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	/**
+	 * A Worker that counts the work processed, the runs and checks it is
+	 * never run concurrently.
+	 */
+	private static class CountingWorker extends Worker {
+
+		final AtomicInteger pending = new AtomicInteger(0);
+		final AtomicInteger runs = new AtomicInteger(0);
+		final AtomicInteger concurrent = new AtomicInteger(0);
+		int processed = 0;
+
+		protected Object doInBackground() {
+			if (concurrent.incrementAndGet() > 1)
+				return -1;
+			runs.incrementAndGet();
+			processed += pending.getAndSet(0);
+			concurrent.decrementAndGet();
+			return processed;
+		}
+
+		protected void done() {
+		}
+	}
+}
@@ -0,0 +1,210 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.valuetype;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Some tests for the {@link Price} class.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class PriceTest {
+
+	private final static Logger _log = LoggerFactory.getLogger(PriceTest.class);
+
+	private static final RoundingMode[] MODES = { RoundingMode.UP, RoundingMode.DOWN, RoundingMode.CEILING,
+			RoundingMode.FLOOR, RoundingMode.HALF_UP, RoundingMode.HALF_DOWN, RoundingMode.HALF_EVEN };
+
+	@Rule
+	public TestName name = new TestName();
+
+	/**
+	 * Method setUpBeforeClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * Method setUp.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * Method tearDown.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * Method tearDownAfterClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Test
+	public void testConversion() {
+		try {
+			Price price = Price.valueOf(19.99);
+			assertEquals("1", 1999000, price.getUnits());
+			assertEquals("2", new BigDecimal("19.99000"), price.toBigDecimal());
+			assertEquals("3", new BigDecimal("19.99"), price.toBigDecimal(2));
+			assertEquals("4", price, Price.valueOf(new BigDecimal("19.990")));
+			assertEquals("5", new Money(19.99), price.toMoney());
+			assertEquals("6", price, Price.valueOf(new Money(19.99)));
+			assertNull("7", Price.valueOf((BigDecimal) null));
+			assertEquals("8", 19.99, price.doubleValue(), 0);
+			assertEquals("9", Price.valueOf(0.000125), Price.ofUnits(12));
+			assertEquals("10", Price.valueOf(0.000135), Price.ofUnits(14));
+
+			assertEquals("11", Price.valueOf(21), price.add(Price.valueOf(1.01)));
+			assertEquals("12", Price.valueOf(-1.01), price.subtract(Price.valueOf(21)));
+			assertEquals("13", Price.valueOf(1.01), Price.valueOf(-1.01).abs());
+			assertEquals("14", Price.valueOf(1999), price.multiply(100));
+			assertEquals("15", Price.valueOf(6.66333), price.divide(3, RoundingMode.HALF_EVEN));
+			assertTrue("16", price.isGreaterThan(Price.ZERO));
+			assertEquals("17", Price.ZERO, price.min(Price.ZERO));
+			assertEquals("18", 0, price.compareTo(Price.valueOf(19.99)));
+
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	@Test
+	public void testRounding() {
+		try {
+			assertEquals("1", Price.valueOf(20), Price.valueOf(19.99).roundToTick(Price.ONE_DOLLAR,
+					RoundingMode.HALF_EVEN));
+			assertEquals("2", Price.valueOf(19.5), Price.valueOf(19.74).roundToTick(Price.valueOf(0.5),
+					RoundingMode.HALF_EVEN));
+			assertEquals("3", Price.valueOf(20), Price.valueOf(20.5).roundToTick(Price.ONE_DOLLAR,
+					RoundingMode.HALF_EVEN));
+			assertEquals("4", Price.valueOf(-21), Price.valueOf(-20.5).roundToTick(Price.ONE_DOLLAR,
+					RoundingMode.FLOOR));
+
+			/*
+			 * Compare divide and tick rounding with BigDecimal.
+			 */
+			Random random = new Random(7);
+			for (int i = 0; i < 100000; i++) {
+				long units = random.nextInt(20000001) - 10000000;
+				long divisor = random.nextInt(20000) + 1;
+				if (random.nextBoolean()) {
+					divisor = -divisor;
+				}
+				Price price = Price.ofUnits(units);
+				for (RoundingMode mode : MODES) {
+					BigDecimal expected = BigDecimal.valueOf(units)
+							.divide(BigDecimal.valueOf(divisor), 0, mode).movePointLeft(Price.SCALE);
+					assertEquals("5 " + units + "/" + divisor + " " + mode, expected.setScale(Price.SCALE),
+							price.divide(divisor, mode).toBigDecimal());
+
+					Price tick = Price.ofUnits(Math.abs(divisor));
+					BigDecimal expectedTick = price.toBigDecimal()
+							.divide(tick.toBigDecimal(), 0, mode).multiply(tick.toBigDecimal());
+					assertEquals("6 " + units + "/" + divisor + " " + mode, 0,
+							expectedTick.compareTo(price.roundToTick(tick, mode).toBigDecimal()));
+				}
+			}
+
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	@Test
+	public void testOverflow() {
+		try {
+			Price price = Price.ofUnits(Long.MAX_VALUE);
+			try {
+				price.add(Price.ONE_CENT);
+				fail("1 add should overflow");
+			} catch (ArithmeticException ex) {
+				// expected
+			}
+			try {
+				price.multiply(2);
+				fail("2 multiply should overflow");
+			} catch (ArithmeticException ex) {
+				// expected
+			}
+			try {
+				Price.valueOf(Double.NaN);
+				fail("3 NaN is not a price");
+			} catch (ArithmeticException ex) {
+				// expected
+			}
+
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+}
@@ -0,0 +1,434 @@
+-- -----------------------------------------------------
+-- TradeManagerDDL.sql translated for the embedded H2 database (MODE=MySQL)
+-- used by the dbembedded persistence unit. Every statement is IF NOT EXISTS
+-- so the script is run each time the database is opened (see INIT in the
+-- persistence unit url). Keep this in step with TradeManagerDDL.sql.
+--
+-- Differences from the MySQL DDL:
+--   DATETIME(3) is TIMESTAMP(3), SMALLINT(1) is SMALLINT, TEXT is CLOB.
+--   Indexes are created after the tables and the foreign keys last as
+--   contract and tradeposition reference each other.
+--   There is no ENGINE clause.
+-- -----------------------------------------------------
+
+-- -----------------------------------------------------
+-- Table EntryLimits
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS entrylimit (
+  idEntryLimit INT NOT NULL AUTO_INCREMENT ,
+  startPrice DECIMAL(10,2) NOT NULL ,
+  endPrice DECIMAL(10,2) NOT NULL ,
+  limitAmount DECIMAL(10,2) NULL ,
+  percentOfPrice DECIMAL(10,6) NULL ,
+  percentOfMargin DECIMAL(10,6) NULL ,
+  pivotRange DECIMAL(5,2) NULL ,
+  priceRound DECIMAL(10,2) NULL ,
+  shareRound INT NULL ,
+  version INT NULL,
+  PRIMARY KEY (idEntryLimit) );
+
+-- -----------------------------------------------------
+-- Table Contract
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS contract (
+  idContract INT NOT NULL AUTO_INCREMENT ,
+  category VARCHAR(80) NULL ,
+  comboLegDescription VARCHAR(30)  NULL ,
+  contractMonth VARCHAR(6)  NULL ,
+  currency VARCHAR(3) NOT NULL ,
+  evMultiplier DECIMAL(10,2) NULL ,
+  evRule VARCHAR(80) NULL ,
+  exchange VARCHAR(30) NOT NULL ,
+  expiry TIMESTAMP NULL ,
+  idContractIB INT NULL ,
+  includeExpired SMALLINT NULL ,
+  industry VARCHAR(80) NULL ,
+  localSymbol VARCHAR(20) NULL ,
+  longName VARCHAR(80) NULL ,
+  liquidHours VARCHAR(50) NULL ,
+  marketName VARCHAR(80) NULL ,
+  minTick DECIMAL(10,2) NULL ,
+  optionType VARCHAR(1) NULL ,
+  orderTypes VARCHAR(50) NULL ,
+  priceMagnifier DECIMAL(10,2) NULL ,
+  priceMultiplier DECIMAL(10,2) NULL ,
+  primaryExchange VARCHAR(10) NULL ,
+  symbol VARCHAR(20) NOT NULL ,
+  secId VARCHAR(10) NULL ,
+  secIdType VARCHAR(5) NULL ,
+  secType VARCHAR(4) NOT NULL ,
+  strike DECIMAL(10,2) NULL ,
+  subCategory VARCHAR(80) NULL ,
+  timeZoneId VARCHAR(7) NULL ,
+  tradingClass VARCHAR(80) NULL ,
+  tradingHours VARCHAR(100) NULL ,
+  underConId INT NULL ,
+  validExchanges VARCHAR(200) NULL ,
+  version INT NULL,
+  idTradePosition INT NULL,
+  PRIMARY KEY (idContract) );
+
+CREATE UNIQUE INDEX IF NOT EXISTS contract_tradePosition_uq ON contract (idTradePosition ASC);
+CREATE UNIQUE INDEX IF NOT EXISTS contract_uq ON contract (secType ASC, symbol ASC, exchange ASC, currency ASC, expiry ASC);
+
+-- -----------------------------------------------------
+-- Table Portfolio
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS portfolio (
+  idPortfolio INT NOT NULL AUTO_INCREMENT ,
+  name VARCHAR(45) NOT NULL ,
+  alias VARCHAR(45) NULL ,
+  allocationMethod VARCHAR(20) NULL ,
+  description VARCHAR(240) NULL ,
+  isDefault SMALLINT NOT NULL ,
+  lastUpdateDate TIMESTAMP(3) NOT NULL ,
+  version INT NULL,
+  PRIMARY KEY (idPortfolio) );
+
+CREATE UNIQUE INDEX IF NOT EXISTS portfolio_name_uq ON portfolio (name ASC);
+
+-- -----------------------------------------------------
+-- Table Account
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS account (
+  idAccount INT NOT NULL AUTO_INCREMENT ,
+  accountNumber VARCHAR(20) NOT NULL ,
+  accountType VARCHAR(20) NULL ,
+  name VARCHAR(45) NOT NULL ,
+  alias VARCHAR(45) NULL ,
+  availableFunds DECIMAL(10,2) NULL ,
+  buyingPower DECIMAL(10,2) NULL ,
+  cashBalance DECIMAL(10,2) NULL ,
+  currency VARCHAR(3) NOT NULL ,
+  grossPositionValue DECIMAL(10,2) NULL ,
+  realizedPnL DECIMAL(10,2) NULL ,
+  unrealizedPnL DECIMAL(10,2) NULL ,
+  lastUpdateDate TIMESTAMP(3) NOT NULL ,
+  version INT NULL,
+  PRIMARY KEY (idAccount) );
+
+CREATE UNIQUE INDEX IF NOT EXISTS account_name_uq ON account (name ASC);
+CREATE UNIQUE INDEX IF NOT EXISTS accountNumber_uq ON account (accountNumber ASC);
+
+-- -----------------------------------------------------
+-- Table PortfolioAccount
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS portfolioaccount (
+  idPortfolioAccount INT NOT NULL AUTO_INCREMENT ,
+  version INT NULL,
+  idPortfolio INT NOT NULL ,
+  idAccount INT NOT NULL ,
+  PRIMARY KEY (idPortfolioAccount) );
+
+CREATE INDEX IF NOT EXISTS portfolioaccount_Account_idx ON portfolioaccount (idAccount ASC);
+CREATE INDEX IF NOT EXISTS portfolioaccount_Portfolio_idx ON portfolioaccount (idPortfolio ASC);
+CREATE UNIQUE INDEX IF NOT EXISTS portfolioaccount_uq ON portfolioaccount (idPortfolio ASC, idAccount ASC);
+
+-- -----------------------------------------------------
+-- Table TradingDay
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS tradingday (
+  idTradingDay INT NOT NULL AUTO_INCREMENT ,
+  open TIMESTAMP NOT NULL ,
+  close TIMESTAMP NOT NULL ,
+  marketBias VARCHAR(10) NULL ,
+  marketGap VARCHAR(10) NULL ,
+  marketBar VARCHAR(10) NULL ,
+  version INT NULL,
+  PRIMARY KEY (idTradingDay) );
+
+CREATE UNIQUE INDEX IF NOT EXISTS open_close_uq ON tradingday (open ASC, close ASC);
+
+-- -----------------------------------------------------
+-- Table Strategy
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS strategy (
+  idStrategy INT NOT NULL AUTO_INCREMENT ,
+  name VARCHAR(45) NOT NULL ,
+  description VARCHAR(240) NULL ,
+  marketData SMALLINT NULL ,
+  className VARCHAR(100) NOT NULL ,
+  idStrategyManager INT NULL ,
+  version INT NULL,
+  PRIMARY KEY (idStrategy) );
+
+CREATE UNIQUE INDEX IF NOT EXISTS strategy_name_uq ON strategy (name ASC);
+CREATE INDEX IF NOT EXISTS strategy_Strategy_idx ON strategy (idStrategyManager ASC);
+
+-- -----------------------------------------------------
+-- Table TradeStrategy
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS tradestrategy (
+  idTradeStrategy INT NOT NULL AUTO_INCREMENT ,
+  barSize INT NULL ,
+  chartDays INT NULL ,
+  status VARCHAR(20) NULL ,
+  riskAmount DECIMAL(10,2) NULL ,
+  side VARCHAR(3) NULL ,
+  tier VARCHAR(1) NULL ,
+  trade SMALLINT NULL ,
+  lastUpdateDate TIMESTAMP(3) NOT NULL ,
+  version INT NULL,
+  idTradingDay INT NOT NULL ,
+  idContract INT NOT NULL ,
+  idStrategy INT NOT NULL ,
+  idPortfolio INT NOT NULL ,
+  PRIMARY KEY (idTradeStrategy) );
+
+CREATE INDEX IF NOT EXISTS tradeStrategy_TradingDay_idx ON tradestrategy (idTradingDay ASC);
+CREATE INDEX IF NOT EXISTS tradeStrategy_Contract_idx ON tradestrategy (idContract ASC);
+CREATE INDEX IF NOT EXISTS tradeStrategy_Stategy_idx ON tradestrategy (idStrategy ASC);
+CREATE INDEX IF NOT EXISTS tradeStrategy_Portfolio_idx ON tradestrategy (idPortfolio ASC);
+CREATE UNIQUE INDEX IF NOT EXISTS tradeStrategy_uq ON tradestrategy (idTradingDay ASC, idContract ASC, idStrategy ASC, idPortfolio ASC, barSize ASC);
+
+-- -----------------------------------------------------
+-- Table TradePosition
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS tradeposition (
+  idTradePosition INT NOT NULL AUTO_INCREMENT ,
+  openQuantity INT NULL ,
+  positionOpenDate TIMESTAMP(3) NOT NULL ,
+  positionCloseDate TIMESTAMP(3) NULL ,
+  side VARCHAR(3) NOT NULL ,
+  totalCommission DECIMAL(10,2) NULL ,
+  totalBuyQuantity INT NULL ,
+  totalBuyValue DECIMAL(10,2) NULL ,
+  totalSellQuantity INT NULL ,
+  totalSellValue DECIMAL(10,2) NULL ,
+  totalNetValue DECIMAL(10,2) NULL ,
+  lastUpdateDate TIMESTAMP(3) NOT NULL ,
+  version INT NULL,
+  idContract INT NOT NULL ,
+  PRIMARY KEY (idTradePosition) );
+
+CREATE INDEX IF NOT EXISTS tradePosition_Contract_idx ON tradeposition (idContract ASC);
+
+-- -----------------------------------------------------
+-- Table TradeOrder
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS tradeorder (
+  idTradeOrder INT NOT NULL AUTO_INCREMENT ,
+  action VARCHAR(6) NOT NULL ,
+  accountNumber VARCHAR(20) NULL ,
+  allOrNothing SMALLINT NULL ,
+  auxPrice DECIMAL(10,2) NULL ,
+  averageFilledPrice DECIMAL(11,3) NULL ,
+  clientId INT NULL ,
+  commission DECIMAL(10,2) NULL ,
+  createDate TIMESTAMP(3) NOT NULL ,
+  displayQuantity INT NULL ,
+  FAGroup VARCHAR(45) NULL ,
+  FAMethod VARCHAR(45) NULL ,
+  FAPercent DECIMAL(10,6) NULL ,
+  FAProfile VARCHAR(45) NULL ,
+  filledDate TIMESTAMP(3) NULL ,
+  filledQuantity INT NULL ,
+  goodAfterTime TIMESTAMP NULL ,
+  goodTillTime TIMESTAMP NULL ,
+  hidden SMALLINT NULL ,
+  isFilled SMALLINT NULL ,
+  isOpenPosition SMALLINT NULL ,
+  limitPrice DECIMAL(10,2) NULL ,
+  ocaGroupName VARCHAR(45) NULL ,
+  ocaType INT NULL ,
+  orderKey INT NOT NULL ,
+  orderReference VARCHAR(45) NULL ,
+  orderType VARCHAR(10) NOT NULL ,
+  overrideConstraints INT NOT NULL ,
+  permId INT NULL ,
+  parentId INT NULL ,
+  quantity INT NOT NULL ,
+  timeInForce VARCHAR(3) NOT NULL ,
+  status VARCHAR(45) NULL ,
+  stopPrice DECIMAL(10,2) NULL ,
+  transmit SMALLINT NULL ,
+  trailStopPrice DECIMAL(10,2) NULL ,
+  trailingPercent DECIMAL(10,2) NULL ,
+  triggerMethod INT NOT NULL ,
+  warningMessage VARCHAR(200) NULL ,
+  whyHeld VARCHAR(45) NULL ,
+  lastUpdateDate TIMESTAMP(3) NOT NULL ,
+  version INT NULL,
+  idTradestrategy INT NOT NULL ,
+  idTradePosition INT NULL ,
+  PRIMARY KEY (idTradeOrder) );
+
+CREATE INDEX IF NOT EXISTS tradeOrder_Tradestrategy_idx ON tradeorder (idTradestrategy ASC);
+CREATE INDEX IF NOT EXISTS tradeOrder_TradePosition_idx ON tradeorder (idTradePosition ASC);
+CREATE UNIQUE INDEX IF NOT EXISTS tradeorderKey_uq ON tradeorder (orderKey ASC);
+
+-- -----------------------------------------------------
+-- Table TradeOrderFill
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS tradeorderfill (
+  idTradeOrderFill INT NOT NULL AUTO_INCREMENT ,
+  accountNumber VARCHAR(20) NULL ,
+  averagePrice DECIMAL(11,3) NULL ,
+  commission DECIMAL(11,3) NULL ,
+  cumulativeQuantity INT NULL ,
+  exchange VARCHAR(10) NULL ,
+  execId VARCHAR(45) NULL ,
+  orderReference VARCHAR(45) NULL ,
+  permId INT NULL ,
+  price DECIMAL(10,2) NOT NULL ,
+  quantity INT NOT NULL ,
+  side VARCHAR(3) NOT NULL ,
+  time TIMESTAMP(3) NOT NULL ,
+  version INT NULL,
+  idTradeOrder INT NOT NULL ,
+  PRIMARY KEY (idTradeOrderFill) );
+
+CREATE INDEX IF NOT EXISTS tradeOrderFill_Order_idx ON tradeorderfill (idTradeOrder ASC);
+CREATE UNIQUE INDEX IF NOT EXISTS execId_uq ON tradeorderfill (execId ASC, idTradeOrder ASC);
+
+-- -----------------------------------------------------
+-- Table Candle
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS candle (
+  idCandle INT NOT NULL AUTO_INCREMENT ,
+  open DECIMAL(10,2) NULL ,
+  high DECIMAL(10,2) NULL ,
+  low DECIMAL(10,2) NULL ,
+  close DECIMAL(10,2) NULL ,
+  period VARCHAR(45) NULL ,
+  startPeriod TIMESTAMP(3) NULL ,
+  endPeriod TIMESTAMP(3) NULL ,
+  barSize INT NULL ,
+  tradeCount INT NULL ,
+  volume INT NULL ,
+  vwap DECIMAL(10,2) NULL ,
+  lastUpdateDate TIMESTAMP(3) NOT NULL ,
+  version INT NULL,
+  idContract INT NOT NULL ,
+  idTradingDay INT NOT NULL ,
+  PRIMARY KEY (idCandle) );
+
+CREATE INDEX IF NOT EXISTS candle_Contract_idx ON candle (idContract ASC);
+CREATE INDEX IF NOT EXISTS candle_TradingDay_idx ON candle (idTradingDay ASC);
+CREATE INDEX IF NOT EXISTS candle_ConDayBar_idx ON candle (idContract ASC, idTradingDay ASC, barSize ASC);
+CREATE UNIQUE INDEX IF NOT EXISTS candle_uq ON candle (idContract ASC, idTradingDay ASC, startPeriod ASC, endPeriod ASC);
+
+-- -----------------------------------------------------
+-- Table Rule
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS rule (
+  idRule INT NOT NULL AUTO_INCREMENT,
+  comment CLOB NULL,
+  createDate TIMESTAMP(3) NOT NULL,
+  rule BLOB NULL,
+  lastUpdateDate TIMESTAMP(3) NOT NULL,
+  version INT NOT NULL,
+  idStrategy INT NOT NULL,
+  PRIMARY KEY (idRule) );
+
+CREATE INDEX IF NOT EXISTS rule_Stategy_idx ON rule (idStrategy ASC);
+CREATE UNIQUE INDEX IF NOT EXISTS idStrategy_version_uq ON rule (idStrategy ASC, version ASC);
+
+-- -----------------------------------------------------
+-- Table IndicatorSeries
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS indicatorseries (
+  idIndicatorSeries INT NOT NULL AUTO_INCREMENT,
+  name VARCHAR(45) NOT NULL ,
+  description VARCHAR(100) NULL ,
+  type VARCHAR(45) NOT NULL ,
+  displaySeries SMALLINT NULL ,
+  seriesRGBColor INT NULL ,
+  subChart SMALLINT NULL ,
+  version INT NULL,
+  idStrategy INT NULL ,
+  PRIMARY KEY (idIndicatorSeries) );
+
+CREATE INDEX IF NOT EXISTS indicator_Strategy_idx ON indicatorseries (idStrategy ASC);
+CREATE UNIQUE INDEX IF NOT EXISTS indicatorSeries_uq ON indicatorseries (idStrategy ASC, type ASC, name ASC);
+
+-- -----------------------------------------------------
+-- Table CodeType
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS codetype (
+  idCodeType INT NOT NULL AUTO_INCREMENT ,
+  name VARCHAR(45) NOT NULL ,
+  type VARCHAR(45) NOT NULL ,
+  description VARCHAR(100) NULL ,
+  version INT NULL,
+  PRIMARY KEY (idCodeType) );
+
+CREATE UNIQUE INDEX IF NOT EXISTS codetype_name_type_uq ON codetype (name ASC, type ASC);
+
+-- -----------------------------------------------------
+-- Table CodeAttribute
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS codeattribute (
+  idCodeAttribute INT NOT NULL AUTO_INCREMENT ,
+  name VARCHAR(45) NOT NULL ,
+  description VARCHAR(100) NULL ,
+  defaultValue VARCHAR(45) NULL ,
+  className VARCHAR(100) NOT NULL ,
+  classEditorName VARCHAR(100) NULL ,
+  version INT NULL,
+  idCodeType INT NOT NULL ,
+  PRIMARY KEY (idCodeAttribute) );
+
+CREATE INDEX IF NOT EXISTS codeAttribute_CodeType_idx ON codeattribute (idCodeType ASC);
+
+-- -----------------------------------------------------
+-- Table CodeValue
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS codevalue (
+  idCodeValue INT NOT NULL AUTO_INCREMENT ,
+  codeValue VARCHAR(45) NOT NULL ,
+  version INT NULL,
+  idCodeAttribute INT NOT NULL ,
+  idIndicatorSeries INT NULL ,
+  idTradeStrategy INT NULL ,
+  PRIMARY KEY (idCodeValue) );
+
+CREATE INDEX IF NOT EXISTS codeValue_CodeAttribute_idx ON codevalue (idCodeAttribute ASC);
+CREATE INDEX IF NOT EXISTS codeValue_IndicatorSeries_idx ON codevalue (idIndicatorSeries ASC);
+CREATE INDEX IF NOT EXISTS codeValue_TradeStrategy_idx ON codevalue (idTradeStrategy ASC);
+CREATE UNIQUE INDEX IF NOT EXISTS codeValue_TradeStrategy_CodeAttribute_uq ON codevalue (idCodeAttribute ASC, idTradeStrategy ASC);
+CREATE UNIQUE INDEX IF NOT EXISTS codeValue_IndicatorSeries_CodeAttribute_uq ON codevalue (idIndicatorSeries ASC, idCodeAttribute ASC);
+
+-- -----------------------------------------------------
+-- Foreign keys
+-- -----------------------------------------------------
+ALTER TABLE contract ADD CONSTRAINT IF NOT EXISTS contract_tradePosition_fk
+  FOREIGN KEY (idTradePosition) REFERENCES tradeposition (idTradePosition);
+ALTER TABLE portfolioaccount ADD CONSTRAINT IF NOT EXISTS portfolioaccount_Portfolio_fk
+  FOREIGN KEY (idPortfolio) REFERENCES portfolio (idPortfolio);
+ALTER TABLE portfolioaccount ADD CONSTRAINT IF NOT EXISTS portfolioaccount_Account_fk
+  FOREIGN KEY (idAccount) REFERENCES account (idAccount);
+ALTER TABLE strategy ADD CONSTRAINT IF NOT EXISTS strategy_Strategy_fk
+  FOREIGN KEY (idStrategyManager) REFERENCES strategy (idStrategy);
+ALTER TABLE tradestrategy ADD CONSTRAINT IF NOT EXISTS tradeStrategy_TradingDay_fk
+  FOREIGN KEY (idTradingDay) REFERENCES tradingday (idTradingDay);
+ALTER TABLE tradestrategy ADD CONSTRAINT IF NOT EXISTS tradeStrategy_Contract_fk
+  FOREIGN KEY (idContract) REFERENCES contract (idContract);
+ALTER TABLE tradestrategy ADD CONSTRAINT IF NOT EXISTS tradeStrategy_Stategy_fk
+  FOREIGN KEY (idStrategy) REFERENCES strategy (idStrategy);
+ALTER TABLE tradestrategy ADD CONSTRAINT IF NOT EXISTS tradeStrategy_Portfolio_fk
+  FOREIGN KEY (idPortfolio) REFERENCES portfolio (idPortfolio);
+ALTER TABLE tradeposition ADD CONSTRAINT IF NOT EXISTS tradePosition_Contract_fk
+  FOREIGN KEY (idContract) REFERENCES contract (idContract) ON DELETE CASCADE;
+ALTER TABLE tradeorder ADD CONSTRAINT IF NOT EXISTS tradeOrder_Tradestrategy_fk
+  FOREIGN KEY (idTradestrategy) REFERENCES tradestrategy (idTradestrategy) ON DELETE CASCADE;
+ALTER TABLE tradeorder ADD CONSTRAINT IF NOT EXISTS tradeOrder_TradePosition_fk
+  FOREIGN KEY (idTradePosition) REFERENCES tradeposition (idTradePosition) ON DELETE CASCADE;
+ALTER TABLE tradeorderfill ADD CONSTRAINT IF NOT EXISTS tradeOrderFill_Order_fk
+  FOREIGN KEY (idTradeOrder) REFERENCES tradeorder (idTradeOrder) ON DELETE CASCADE;
+ALTER TABLE candle ADD CONSTRAINT IF NOT EXISTS candle_Contract_fk
+  FOREIGN KEY (idContract) REFERENCES contract (idContract) ON DELETE CASCADE;
+ALTER TABLE candle ADD CONSTRAINT IF NOT EXISTS candle_TradingDay_fk
+  FOREIGN KEY (idTradingDay) REFERENCES tradingday (idTradingDay) ON DELETE CASCADE;
+ALTER TABLE rule ADD CONSTRAINT IF NOT EXISTS rule_Stategy_fk
+  FOREIGN KEY (idStrategy) REFERENCES strategy (idStrategy);
+ALTER TABLE indicatorseries ADD CONSTRAINT IF NOT EXISTS indicator_Strategy_fk
+  FOREIGN KEY (idStrategy) REFERENCES strategy (idStrategy);
+ALTER TABLE codeattribute ADD CONSTRAINT IF NOT EXISTS codeAttribute_CodeType_fk
+  FOREIGN KEY (idCodeType) REFERENCES codetype (idCodeType);
+ALTER TABLE codevalue ADD CONSTRAINT IF NOT EXISTS codeValue_CodeAttribute_fk
+  FOREIGN KEY (idCodeAttribute) REFERENCES codeattribute (idCodeAttribute);
+ALTER TABLE codevalue ADD CONSTRAINT IF NOT EXISTS codeValue_IndicatorSeries_fk
+  FOREIGN KEY (idIndicatorSeries) REFERENCES indicatorseries (idIndicatorSeries);
+ALTER TABLE codevalue ADD CONSTRAINT IF NOT EXISTS codeValue_TradeStrategy_fk
+  FOREIGN KEY (idTradeStrategy) REFERENCES tradestrategy (idTradeStrategy);
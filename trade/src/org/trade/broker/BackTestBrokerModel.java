@@ -82,6 +82,7 @@ public class BackTestBrokerModel extends AbstractBrokerModel implements ClientWr
 	private static final ConcurrentHashMap<Integer, Contract> m_realTimeBarsRequests = new ConcurrentHashMap<Integer, Contract>();
 	private static final ConcurrentHashMap<Integer, Contract> m_contractRequests = new ConcurrentHashMap<Integer, Contract>();
 	private PersistentModel m_tradePersistentModel = null;
+	private PositionStateService m_positionStateService = null;
 
 	private ClientSocket m_client = null;
 
@@ -108,19 +109,77 @@ public class BackTestBrokerModel extends AbstractBrokerModel implements ClientWr
 	public BackTestBrokerModel() {
 
 		try {
-			m_client = new ClientSocket(this);
-			m_tradePersistentModel = (PersistentModel) ClassFactory
-					.getServiceForInterface(PersistentModel._persistentModel, this);
-			int maxKey = m_tradePersistentModel.findTradeOrderByMaxKey();
-			if (maxKey < 100000) {
-				maxKey = 100000;
-			}
-			orderKey = new AtomicInteger(maxKey + 1);
+			initialise((PersistentModel) ClassFactory.getServiceForInterface(PersistentModel._persistentModel, this));
+		} catch (Exception ex) {
+			throw new IllegalArgumentException("Error initializing BrokerModel Msg: " + ex.getMessage());
+		}
+	}
+
+	/**
+	 * Constructor for BackTestBrokerModel.
+	 * 
+	 * @param persistentModel
+	 *            PersistentModel the model orders and positions are saved
+	 *            to.
+	 */
+	public BackTestBrokerModel(PersistentModel persistentModel) {
+
+		try {
+			initialise(persistentModel);
+		} catch (Exception ex) {
+			throw new IllegalArgumentException("Error initializing BrokerModel Msg: " + ex.getMessage());
+		}
+	}
+
+	/**
+	 * Constructor for BackTestBrokerModel.
+	 * 
+	 * @param persistentModel
+	 *            PersistentModel the model orders and positions are saved
+	 *            to.
+	 * @param orderKey
+	 *            AtomicInteger the order key sequence. Broker models that
+	 *            save to the same database at the same time must share this
+	 *            so order keys are unique.
+	 */
+	public BackTestBrokerModel(PersistentModel persistentModel, AtomicInteger orderKey) {
+
+		try {
+			initialise(persistentModel);
+			this.orderKey = orderKey;
 		} catch (Exception ex) {
 			throw new IllegalArgumentException("Error initializing BrokerModel Msg: " + ex.getMessage());
 		}
 	}
 
+	/**
+	 * Method initialise.
+	 * 
+	 * @param persistentModel
+	 *            PersistentModel
+	 * @throws Exception
+	 */
+	private void initialise(PersistentModel persistentModel) throws Exception {
+		m_client = new ClientSocket(this);
+		m_tradePersistentModel = persistentModel;
+		m_positionStateService = new PositionStateService(m_tradePersistentModel);
+		int maxKey = m_tradePersistentModel.findTradeOrderByMaxKey();
+		if (maxKey < 100000) {
+			maxKey = 100000;
+		}
+		orderKey = new AtomicInteger(maxKey + 1);
+	}
+
+	/**
+	 * Method getPositionStateService.
+	 * 
+	 * @return PositionStateService
+	 * @see org.trade.broker.BrokerModel#getPositionStateService()
+	 */
+	public PositionStateService getPositionStateService() {
+		return m_positionStateService;
+	}
+
 	/**
 	 * Method getHistoricalData.
 	 * 
@@ -665,6 +724,7 @@ public class BackTestBrokerModel extends AbstractBrokerModel implements ClientWr
 					tradeOrder.setClientId(999);
 				}
 				TradeOrder transientInstance = m_tradePersistentModel.persistTradeOrder(tradeOrder);
+				m_positionStateService.update(transientInstance);
 				// Debug logging
 				_log.debug("Order Placed Key: " + transientInstance.getOrderKey());
 				TWSBrokerModel.logContract(TWSBrokerModel.getIBContract(contract));
@@ -743,6 +803,7 @@ public class BackTestBrokerModel extends AbstractBrokerModel implements ClientWr
 			transientInstance.setFilledDate(tradeOrderfill.getTime());
 			boolean isFilled = transientInstance.getIsFilled();
 			TradeOrder updatedOrder = m_tradePersistentModel.persistTradeOrderfill(transientInstance);
+			m_positionStateService.update(updatedOrder);
 
 			// Let the controller know an order was filled
 			if (updatedOrder.getIsFilled() && !isFilled)
@@ -804,6 +865,7 @@ public class BackTestBrokerModel extends AbstractBrokerModel implements ClientWr
 					BackTestBrokerModel.logTradeOrder(tradeOrder);
 
 					TradeOrder updatedOrder = m_tradePersistentModel.persistTradeOrder(transientInstance);
+					m_positionStateService.update(updatedOrder);
 
 					if (updatedOrder.hasTradePosition() && !updatedOrder.getTradePosition().isOpen()) {
 						// Let the controller know a position was closed
@@ -815,6 +877,7 @@ public class BackTestBrokerModel extends AbstractBrokerModel implements ClientWr
 					BackTestBrokerModel.logOrderState(orderState);
 					BackTestBrokerModel.logTradeOrder(tradeOrder);
 					TradeOrder updatedOrder = m_tradePersistentModel.persistTradeOrder(transientInstance);
+					m_positionStateService.update(updatedOrder);
 					if (OrderStatus.CANCELLED.equals(updatedOrder.getStatus())) {
 						// Let the controller know a position was closed
 						this.fireTradeOrderCancelled(updatedOrder);
@@ -902,6 +965,7 @@ public class BackTestBrokerModel extends AbstractBrokerModel implements ClientWr
 
 				boolean isFilled = transientInstance.getIsFilled();
 				TradeOrder updatedOrder = m_tradePersistentModel.persistTradeOrder(transientInstance);
+				m_positionStateService.update(updatedOrder);
 
 				if (OrderStatus.CANCELLED.equals(updatedOrder.getStatus())) {
 					// Let the controller know a position was closed
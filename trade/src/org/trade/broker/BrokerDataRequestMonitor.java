@@ -1,19 +1,15 @@
 package org.trade.broker;
 
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.swing.SwingWorker;
-import javax.swing.Timer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,11 +37,7 @@ public class BrokerDataRequestMonitor extends SwingWorker<Void, String> {
 	private int grandTotal = 0;
 	private long startTime = 0;
 	private Integer backTestBarSize = 0;
-	private final Integer TIME_BETWEEN_SUBMIT = new Integer(4);
-	private AtomicInteger timerRunning = null;
-	private final Object lockCoreUtilsTest = new Object();
-	private Timer timer = null;
-	private LinkedList<Long> submitTimes = new LinkedList<Long>();
+	private final HistoricalDataPacer pacer = HistoricalDataPacer.getInstance();
 	private final ConcurrentHashMap<String, Contract> contractRequests = new ConcurrentHashMap<String, Contract>();
 	private final ConcurrentHashMap<Integer, Tradestrategy> indicatorRequests = new ConcurrentHashMap<Integer, Tradestrategy>();
 
@@ -64,14 +56,6 @@ public class BrokerDataRequestMonitor extends SwingWorker<Void, String> {
 		this.tradePersistentModel = tradePersistentModel;
 		this.tradingdays = tradingdays;
 		this.backTestBarSize = ConfigProperties.getPropAsInt("trade.backtest.barSize");
-		this.timer = new Timer(250, new ActionListener() {
-			public void actionPerformed(ActionEvent e) {
-				synchronized (lockCoreUtilsTest) {
-					timerRunning.addAndGet(250);
-					lockCoreUtilsTest.notifyAll();
-				}
-			}
-		});
 	}
 
 	/**
@@ -85,7 +69,7 @@ public class BrokerDataRequestMonitor extends SwingWorker<Void, String> {
 		int totalSumbitted = 0;
 		int reSumbittedAt = 20;
 		this.startTime = System.currentTimeMillis();
-		this.submitTimes.clear();
+		this.pacer.clearRetries();
 		ConcurrentHashMap<Integer, Tradingday> runningContractRequests = new ConcurrentHashMap<Integer, Tradingday>();
 
 		// Initialize the progress bar
@@ -95,8 +79,9 @@ public class BrokerDataRequestMonitor extends SwingWorker<Void, String> {
 			this.grandTotal = calculateTotalTradestrategiesToProcess(this.startTime);
 
 			Collections.sort(tradingdays.getTradingdays(), Tradingday.DATE_ORDER_ASC);
+			List<Tradingday> orderedTradingdays = getTradingdaysInPriorityOrder(tradingdays.getTradingdays());
 
-			for (Tradingday tradingday : tradingdays.getTradingdays()) {
+			for (Tradingday tradingday : orderedTradingdays) {
 
 				Tradingday toProcessTradingday = (Tradingday) tradingday.clone();
 				for (Tradestrategy tradestrategy : tradingday.getTradestrategies()) {
@@ -107,13 +92,15 @@ public class BrokerDataRequestMonitor extends SwingWorker<Void, String> {
 
 				totalSumbitted = processTradingday(getTradingdayToProcess(toProcessTradingday, runningContractRequests),
 						totalSumbitted);
+				totalSumbitted = processRetries(totalSumbitted);
 				/*
 				 * Every reSumbittedAt value try to run any that could not be
-				 * run due to a conflict. Run them in asc date order.
+				 * run due to a conflict. Run them in priority order.
 				 */
 				if (totalSumbitted > reSumbittedAt) {
 					reSumbittedAt = totalSumbitted + reSumbittedAt;
-					totalSumbitted = reProcessTradingdays(tradingdays, runningContractRequests, totalSumbitted);
+					totalSumbitted = reProcessTradingdays(orderedTradingdays, runningContractRequests,
+							totalSumbitted);
 				}
 			}
 
@@ -124,8 +111,7 @@ public class BrokerDataRequestMonitor extends SwingWorker<Void, String> {
 			 * candles to build up the candle on the Tradestrategy/BarSize.
 			 */
 			if (backTestBarSize > 0 && this.brokerModel.isBrokerDataOnly()) {
-				Collections.sort(tradingdays.getTradingdays(), Tradingday.DATE_ORDER_ASC);
-				for (Tradingday itemTradingday : tradingdays.getTradingdays()) {
+				for (Tradingday itemTradingday : orderedTradingdays) {
 					if (TradingCalendar.isTradingDay(itemTradingday.getOpen())
 							&& TradingCalendar.sameDay(itemTradingday.getOpen(),
 									TradingCalendar.getZonedDateTimeFromMilli(this.startTime))
@@ -161,7 +147,7 @@ public class BrokerDataRequestMonitor extends SwingWorker<Void, String> {
 					}
 					totalSumbitted = processTradingday(getTradingdayToProcess(tradingday, runningContractRequests),
 							totalSumbitted);
-
+					totalSumbitted = processRetries(totalSumbitted);
 				}
 			}
 
@@ -171,7 +157,22 @@ public class BrokerDataRequestMonitor extends SwingWorker<Void, String> {
 			 * value.
 			 */
 
-			totalSumbitted = reProcessTradingdays(tradingdays, runningContractRequests, totalSumbitted);
+			totalSumbitted = reProcessTradingdays(orderedTradingdays, runningContractRequests, totalSumbitted);
+
+			/*
+			 * Requests rejected for pacing are reported after they were
+			 * submitted so wait for the running requests then retry any.
+			 */
+			while (!this.isCancelled()) {
+				synchronized (this.brokerModel.getHistoricalData()) {
+					while (this.brokerModel.getHistoricalData().size() > 0 && this.pacer.getRetryCount() == 0) {
+						this.brokerModel.getHistoricalData().wait();
+					}
+				}
+				if (this.pacer.getRetryCount() == 0)
+					break;
+				totalSumbitted = processRetries(totalSumbitted);
+			}
 
 		} catch (InterruptedException ex) {
 			// Do nothing
@@ -196,7 +197,7 @@ public class BrokerDataRequestMonitor extends SwingWorker<Void, String> {
 			setProgress(100);
 			message = "Completed Historical data total contracts processed: " + totalSumbitted + " in : "
 					+ ((System.currentTimeMillis() - this.startTime) / 1000) + " Seconds.";
-			_log.debug(message);
+			_log.info(message + " Pacing " + this.pacer);
 			publish(message);
 
 		}
@@ -234,10 +235,20 @@ public class BrokerDataRequestMonitor extends SwingWorker<Void, String> {
 			contractRequests.remove(tradestrategy.getContract().getSymbol());
 		}
 
+		/*
+		 * Wait until the request can be made without a pacing violation. Only
+		 * TWS is paced, note only TWSManager return true for connected.
+		 */
+		if (this.brokerModel.isConnected()) {
+			long waited = this.pacer.acquire(HistoricalDataPacer.getKey(tradestrategy, endDate));
+			if (waited > 1000) {
+				publish("Historical data requests paced waited " + (waited / 1000) + " seconds. Submitted "
+						+ totalSumbitted + " of " + getGrandTotal() + ".");
+			}
+		}
 		this.brokerModel.onBrokerData(tradestrategy, endDate);
 
 		totalSumbitted++;
-		hasSubmittedInSeconds();
 
 		/*
 		 * This can happen if there is the same indicator contract but in
@@ -251,30 +262,6 @@ public class BrokerDataRequestMonitor extends SwingWorker<Void, String> {
 				* 100d);
 		setProgress(percent);
 
-		/*
-		 * Need to slow things down as limit is 60 including real time bars
-		 * requests. When connected to TWS. Note only TWSManager return true for
-		 * connected.
-		 */
-		if (((Math.floor(totalSumbitted / 58d) == (totalSumbitted / 58d)) && (totalSumbitted > 0))
-				&& this.brokerModel.isConnected()) {
-
-			timerRunning = new AtomicInteger(0);
-			timer.start();
-			synchronized (lockCoreUtilsTest) {
-				while (timerRunning.get() / 1000 < 601 && !this.isCancelled()) {
-					if ((timerRunning.get() % 60000) == 0) {
-						String message = "Please wait " + (10 - (timerRunning.get() / 1000 / 60))
-								+ " minutes as there are more than 60 data requests.";
-						publish(message);
-					}
-					lockCoreUtilsTest.wait();
-				}
-			}
-			timer.stop();
-			_log.debug("Finished wait 10min wait");
-		}
-
 		/*
 		 * The SwingWorker has a maximum of 10 threads to run and this process
 		 * uses one so we have 9 left for the BrokerWorkers. So wait while the
@@ -317,6 +304,20 @@ public class BrokerDataRequestMonitor extends SwingWorker<Void, String> {
 			for (int seriesIndex = 0; seriesIndex < candleDataset.getSeriesCount(); seriesIndex++) {
 
 				CandleSeries series = candleDataset.getSeries(seriesIndex);
+				if (series.getContract().equals(tradestrategy.getContract())) {
+					/*
+					 * Same contract as the Tradestrategy so the series is fed
+					 * from the Tradestrategy's own bars and does not need a
+					 * request.
+					 */
+					CandleSeries aggregateSeries = tradestrategy.getStrategyData()
+							.getAggregateSeries(tradestrategy.getBarSize());
+					aggregateSeries.setDisplaySeries(series.getDisplaySeries());
+					aggregateSeries.setSeriesRGBColor(series.getSeriesRGBColor());
+					aggregateSeries.setSubChart(series.getSubChart());
+					candleDataset.setSeries(seriesIndex, aggregateSeries);
+					continue;
+				}
 				Tradestrategy indicatorTradestrategy = getIndicatorTradestrategy(tradestrategy, series);
 				candleDataset.setSeries(seriesIndex, indicatorTradestrategy.getStrategyData().getBaseCandleSeries());
 				if (!indicatorRequests.containsKey(indicatorTradestrategy.getIdTradeStrategy())) {
@@ -332,56 +333,13 @@ public class BrokerDataRequestMonitor extends SwingWorker<Void, String> {
 		return addedIndicator;
 	}
 
-	/**
-	 * Method hasSubmittedInSeconds. Make sure no more than six requests every 2
-	 * seconds.
-	 * 
-	 * 162 - Historical Market Data Service error message: Historical data
-	 * request pacing violation
-	 * 
-	 * The following conditions can cause a pacing violation:
-	 * 
-	 * Making identical historical data requests within 15 seconds;
-	 * 
-	 * Making six or more historical data requests for the same Contract,
-	 * Exchange and Tick Type within two seconds.
-	 * 
-	 * Also, observe the following limitation when requesting historical data:
-	 * 
-	 * Do not make more than 60 historical data requests in any ten-minute
-	 * period.
-	 * 
-	 * @throws InterruptedException
-	 */
-	private void hasSubmittedInSeconds() throws InterruptedException {
-
-		this.submitTimes.addFirst(new Long(System.currentTimeMillis()));
-
-		if (this.submitTimes.size() == 5 && this.brokerModel.isConnected()) {
-
-			if ((this.submitTimes.getFirst() - this.submitTimes.getLast()) < (TIME_BETWEEN_SUBMIT * 1000)) {
-				_log.debug("hasSubmittedInSeconds 5 in: "
-						+ ((this.submitTimes.getFirst() - this.submitTimes.getLast()) / 1000d));
-				timerRunning = new AtomicInteger(0);
-				timer.start();
-				synchronized (lockCoreUtilsTest) {
-					while (((this.submitTimes.getFirst() - this.submitTimes.getLast())
-							+ timerRunning.get()) < (TIME_BETWEEN_SUBMIT * 1000) && !this.isCancelled()) {
-						_log.debug("Please wait " + (TIME_BETWEEN_SUBMIT - (timerRunning.get() / 1000)) + " seconds.");
-						lockCoreUtilsTest.wait();
-					}
-				}
-				timer.stop();
-			}
-			this.submitTimes.removeLast();
-		}
-	}
-
 	/**
 	 * Method reProcessTradingdays. Every reSumbittedAt value submitted
 	 * contracts try to run any that could not be run due to a conflict. Run
-	 * then in asc date order value.
+	 * then in priority order.
 	 * 
+	 * @param tradingdays
+	 *            List<Tradingday> in priority order.
 	 * @param runningContractRequests
 	 *            ConcurrentHashMap<Integer, Tradingday>
 	 * @param totalSumbitted
@@ -390,7 +348,7 @@ public class BrokerDataRequestMonitor extends SwingWorker<Void, String> {
 	 * @throws Exception
 	 */
 
-	private int reProcessTradingdays(Tradingdays tradingdays,
+	private int reProcessTradingdays(List<Tradingday> tradingdays,
 			ConcurrentHashMap<Integer, Tradingday> runningContractRequests, int totalSumbitted) throws Exception {
 
 		while (!this.isCancelled() && !runningContractRequests.isEmpty()) {
@@ -410,7 +368,7 @@ public class BrokerDataRequestMonitor extends SwingWorker<Void, String> {
 				}
 			}
 
-			for (Tradingday item : tradingdays.getTradingdays()) {
+			for (Tradingday item : tradingdays) {
 				for (Integer idTradeingday : runningContractRequests.keySet()) {
 					Tradingday reProcessTradingday = runningContractRequests.get(idTradeingday);
 					if (item.equals(reProcessTradingday)) {
@@ -505,6 +463,60 @@ public class BrokerDataRequestMonitor extends SwingWorker<Void, String> {
 		return indicatorTradestrategy;
 	}
 
+	/**
+	 * Method processRetries. Submit the requests the broker rejected for
+	 * pacing, the pacer holds them back until the back off has passed.
+	 * 
+	 * @param totalSumbitted
+	 *            int
+	 * @return int
+	 * @throws InterruptedException
+	 * @throws BrokerModelException
+	 */
+	private int processRetries(int totalSumbitted) throws InterruptedException, BrokerModelException {
+
+		List<Tradestrategy> running = new ArrayList<Tradestrategy>(0);
+		Tradestrategy tradestrategy = null;
+		while (!this.isCancelled() && null != (tradestrategy = this.pacer.pollRetry())) {
+			if (this.brokerModel.isHistoricalDataRunning(tradestrategy.getContract())) {
+				running.add(tradestrategy);
+				continue;
+			}
+			_log.info("Retry historical data request: " + tradestrategy.getContract().getSymbol() + " endDate: "
+					+ tradestrategy.getTradingday().getClose());
+			totalSumbitted = submitBrokerRequest(tradestrategy, tradestrategy.getTradingday().getClose(),
+					totalSumbitted);
+		}
+		for (Tradestrategy item : running) {
+			this.pacer.retry(item);
+		}
+		return totalSumbitted;
+	}
+
+	/**
+	 * Method getTradingdaysInPriorityOrder. Today's tradingday first so the
+	 * symbols being traded get their data before any back fill, then the
+	 * rest in asc date order.
+	 * 
+	 * @param tradingdays
+	 *            List<Tradingday> in asc date order.
+	 * @return List<Tradingday>
+	 */
+	private List<Tradingday> getTradingdaysInPriorityOrder(List<Tradingday> tradingdays) {
+
+		ZonedDateTime today = TradingCalendar.getZonedDateTimeFromMilli(this.startTime);
+		List<Tradingday> orderedTradingdays = new ArrayList<Tradingday>(tradingdays.size());
+		for (Tradingday tradingday : tradingdays) {
+			if (TradingCalendar.sameDay(tradingday.getOpen(), today))
+				orderedTradingdays.add(tradingday);
+		}
+		for (Tradingday tradingday : tradingdays) {
+			if (!TradingCalendar.sameDay(tradingday.getOpen(), today))
+				orderedTradingdays.add(tradingday);
+		}
+		return orderedTradingdays;
+	}
+
 	/**
 	 * Method processTradingday.
 	 * 
@@ -0,0 +1,817 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.broker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import com.ib.client.CommissionReport;
+import com.ib.client.Execution;
+import com.ib.client.Order;
+import com.ib.client.OrderState;
+
+/**
+ * An append only journal of the broker events that change orders. Events are
+ * written to a memory mapped file before they are applied to the database so
+ * a fill is durable as soon as the callback has written it, the database is
+ * brought up to date from the journal.
+ * 
+ * The file is a fixed header followed by records. Each record is its length,
+ * a CRC32 of its body then the body i.e. the event type, time and fields. The
+ * length is written last so a record is complete once its length is set, on
+ * open the records are read until the first that is incomplete or whose CRC
+ * does not match and the journal carries on from there.
+ * 
+ * The header holds the position up to which the events have been applied to
+ * the database. Records after it are passed to a Listener by replay. The
+ * position of a record is the position after its end so marking a record
+ * applied marks every record before it. Positions keep counting up when the
+ * applied records are removed by reset so a position returned before a reset
+ * can still be marked applied after it.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class BrokerJournal implements Closeable {
+
+	public static final byte ORDER_PLACED = 1;
+	public static final byte ORDER_STATUS = 2;
+	public static final byte OPEN_ORDER = 3;
+	public static final byte EXECUTION = 4;
+	public static final byte COMMISSION = 5;
+
+	private static final int MAGIC = 0x424a524e;
+	private static final int FORMAT_VERSION = 1;
+	private static final int HEADER_SIZE = 64;
+	private static final int MAGIC_OFFSET = 0;
+	private static final int VERSION_OFFSET = 4;
+	private static final int APPLIED_OFFSET = 8;
+	private static final int LAST_EVENT_OFFSET = 16;
+	private static final int MOVE_FROM_OFFSET = 24;
+	private static final int MOVE_LENGTH_OFFSET = 32;
+	private static final int RECORD_HEADER = 8;
+	private static final int MIN_CAPACITY = 4096;
+
+	private final Path file;
+	private final boolean force;
+	private FileChannel channel;
+	private MappedByteBuffer buffer;
+	private int position = HEADER_SIZE;
+	private long base = 0;
+	private ByteBuffer scratch = ByteBuffer.allocate(512).order(ByteOrder.LITTLE_ENDIAN);
+	private final CRC32 crc = new CRC32();
+
+	/**
+	 * Constructor for BrokerJournal. Open or create the journal and find the
+	 * end of the last complete record.
+	 * 
+	 * @param file
+	 *            Path
+	 * @param capacity
+	 *            int the initial size of the file in bytes, it grows as
+	 *            needed.
+	 * @param force
+	 *            boolean true to force each record to the storage device,
+	 *            otherwise a record survives the application failing but not
+	 *            the operating system.
+	 * @throws IOException
+	 */
+	public BrokerJournal(Path file, int capacity, boolean force) throws IOException {
+		this.file = file;
+		this.force = force;
+		if (null != file.getParent()) {
+			Files.createDirectories(file.getParent());
+		}
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		boolean created = this.channel.size() < HEADER_SIZE;
+		map((int) Math.max(Math.max(capacity, MIN_CAPACITY), this.channel.size()));
+		if (created) {
+			this.buffer.putInt(MAGIC_OFFSET, MAGIC);
+			this.buffer.putInt(VERSION_OFFSET, FORMAT_VERSION);
+			this.buffer.putLong(APPLIED_OFFSET, HEADER_SIZE);
+			this.buffer.putLong(LAST_EVENT_OFFSET, 0);
+		} else if (this.buffer.getInt(MAGIC_OFFSET) != MAGIC
+				|| this.buffer.getInt(VERSION_OFFSET) != FORMAT_VERSION) {
+			this.channel.close();
+			throw new IOException("File: " + file + " is not a broker journal.");
+		}
+		recover();
+	}
+
+	/**
+	 * Method getFile.
+	 * 
+	 * @return Path
+	 */
+	public Path getFile() {
+		return this.file;
+	}
+
+	/**
+	 * Method getPosition.
+	 * 
+	 * @return long the position after the last record.
+	 */
+	public synchronized long getPosition() {
+		return this.base + this.position;
+	}
+
+	/**
+	 * Method getApplied.
+	 * 
+	 * @return long the position up to which records have been applied.
+	 */
+	public synchronized long getApplied() {
+		return this.base + this.buffer.getLong(APPLIED_OFFSET);
+	}
+
+	/**
+	 * Method setApplied. Mark the record at the position and all before it as
+	 * applied to the database.
+	 * 
+	 * @param position
+	 *            long the position returned when the record was written.
+	 */
+	public synchronized void setApplied(long position) {
+		long offset = position - this.base;
+		if (offset > this.buffer.getLong(APPLIED_OFFSET) && offset <= this.position) {
+			this.buffer.putLong(APPLIED_OFFSET, offset);
+		}
+	}
+
+	/**
+	 * Method getLastEventTime.
+	 * 
+	 * @return long the time in epoch milliseconds of the last record written,
+	 *         this is kept when the journal is reset. Zero if no record has
+	 *         been written.
+	 */
+	public synchronized long getLastEventTime() {
+		return this.buffer.getLong(LAST_EVENT_OFFSET);
+	}
+
+	/**
+	 * Method reset. Remove the records that have been applied, records written
+	 * after them i.e. while a replay ran are moved to the start of the
+	 * journal. The move is noted in the header first so it is completed on
+	 * open if the application stops part way through. The records are not
+	 * moved if they would overlap the space they are moved from, the next
+	 * reset will remove them.
+	 * 
+	 * @return boolean true if records were removed.
+	 */
+	public synchronized boolean reset() {
+		int applied = (int) this.buffer.getLong(APPLIED_OFFSET);
+		int remaining = this.position - applied;
+		if (applied == HEADER_SIZE || remaining > applied - HEADER_SIZE) {
+			return false;
+		}
+		this.buffer.putLong(MOVE_FROM_OFFSET, applied);
+		this.buffer.putInt(MOVE_LENGTH_OFFSET, remaining);
+		if (this.force) {
+			this.buffer.force();
+		}
+		move();
+		this.base = this.base + applied - HEADER_SIZE;
+		return true;
+	}
+
+	/**
+	 * Method orderPlaced.
+	 * 
+	 * @param orderKey
+	 *            int
+	 * @param clientId
+	 *            int
+	 * @param idTradestrategy
+	 *            int
+	 * @param action
+	 *            String
+	 * @param orderType
+	 *            String
+	 * @param quantity
+	 *            int
+	 * @param limitPrice
+	 *            double
+	 * @param auxPrice
+	 *            double
+	 * @return long the position of the record.
+	 */
+	public synchronized long orderPlaced(int orderKey, int clientId, int idTradestrategy, String action,
+			String orderType, int quantity, double limitPrice, double auxPrice) {
+		begin(ORDER_PLACED);
+		this.scratch.putInt(orderKey);
+		this.scratch.putInt(clientId);
+		this.scratch.putInt(idTradestrategy);
+		putString(action);
+		putString(orderType);
+		this.scratch.putInt(quantity);
+		this.scratch.putDouble(limitPrice);
+		this.scratch.putDouble(auxPrice);
+		return end();
+	}
+
+	/**
+	 * Method orderStatus. The fields of EWrapper.orderStatus.
+	 * 
+	 * @param orderId
+	 *            int
+	 * @param status
+	 *            String
+	 * @param filled
+	 *            int
+	 * @param remaining
+	 *            int
+	 * @param avgFillPrice
+	 *            double
+	 * @param permId
+	 *            int
+	 * @param parentId
+	 *            int
+	 * @param lastFillPrice
+	 *            double
+	 * @param clientId
+	 *            int
+	 * @param whyHeld
+	 *            String
+	 * @return long the position of the record.
+	 */
+	public synchronized long orderStatus(int orderId, String status, int filled, int remaining,
+			double avgFillPrice, int permId, int parentId, double lastFillPrice, int clientId, String whyHeld) {
+		begin(ORDER_STATUS);
+		this.scratch.putInt(orderId);
+		putString(status);
+		this.scratch.putInt(filled);
+		this.scratch.putInt(remaining);
+		this.scratch.putDouble(avgFillPrice);
+		this.scratch.putInt(permId);
+		this.scratch.putInt(parentId);
+		this.scratch.putDouble(lastFillPrice);
+		this.scratch.putInt(clientId);
+		putString(whyHeld);
+		return end();
+	}
+
+	/**
+	 * Method openOrder. The order fields used to update a TradeOrder and the
+	 * order state.
+	 * 
+	 * @param order
+	 *            Order
+	 * @param orderState
+	 *            OrderState
+	 * @return long the position of the record.
+	 */
+	public synchronized long openOrder(Order order, OrderState orderState) {
+		begin(OPEN_ORDER);
+		this.scratch.putInt(order.m_orderId);
+		this.scratch.putInt(order.m_clientId);
+		this.scratch.putInt(order.m_permId);
+		this.scratch.putInt(order.m_parentId);
+		putString(order.m_action);
+		this.scratch.putInt(order.m_totalQuantity);
+		putString(order.m_orderType);
+		this.scratch.putDouble(order.m_lmtPrice);
+		this.scratch.putDouble(order.m_auxPrice);
+		this.scratch.putDouble(order.m_trailStopPrice);
+		this.scratch.putDouble(order.m_trailingPercent);
+		putString(order.m_tif);
+		putString(order.m_ocaGroup);
+		this.scratch.putInt(order.m_ocaType);
+		putString(order.m_orderRef);
+		putString(order.m_account);
+		putString(order.m_faGroup);
+		putString(order.m_faMethod);
+		putString(order.m_faPercentage);
+		putString(order.m_faProfile);
+		this.scratch.put((byte) (order.m_transmit ? 1 : 0));
+		this.scratch.putInt(order.m_displaySize);
+		this.scratch.putInt(order.m_triggerMethod);
+		this.scratch.put((byte) (order.m_hidden ? 1 : 0));
+		putString(order.m_goodAfterTime);
+		putString(order.m_goodTillDate);
+		this.scratch.put((byte) (order.m_overridePercentageConstraints ? 1 : 0));
+		this.scratch.put((byte) (order.m_allOrNone ? 1 : 0));
+		putString(orderState.m_status);
+		putString(orderState.m_warningText);
+		this.scratch.putDouble(orderState.m_commission);
+		return end();
+	}
+
+	/**
+	 * Method execution.
+	 * 
+	 * @param reqId
+	 *            int
+	 * @param execution
+	 *            Execution
+	 * @return long the position of the record.
+	 */
+	public synchronized long execution(int reqId, Execution execution) {
+		begin(EXECUTION);
+		this.scratch.putInt(reqId);
+		this.scratch.putInt(execution.m_orderId);
+		this.scratch.putInt(execution.m_clientId);
+		putString(execution.m_execId);
+		putString(execution.m_time);
+		putString(execution.m_acctNumber);
+		putString(execution.m_exchange);
+		putString(execution.m_side);
+		this.scratch.putInt(execution.m_shares);
+		this.scratch.putDouble(execution.m_price);
+		this.scratch.putInt(execution.m_permId);
+		this.scratch.putInt(execution.m_liquidation);
+		this.scratch.putInt(execution.m_cumQty);
+		this.scratch.putDouble(execution.m_avgPrice);
+		putString(execution.m_orderRef);
+		putString(execution.m_evRule);
+		this.scratch.putDouble(execution.m_evMultiplier);
+		return end();
+	}
+
+	/**
+	 * Method commission.
+	 * 
+	 * @param commissionReport
+	 *            CommissionReport
+	 * @return long the position of the record.
+	 */
+	public synchronized long commission(CommissionReport commissionReport) {
+		begin(COMMISSION);
+		putString(commissionReport.m_execId);
+		this.scratch.putDouble(commissionReport.m_commission);
+		putString(commissionReport.m_currency);
+		this.scratch.putDouble(commissionReport.m_realizedPNL);
+		this.scratch.putDouble(commissionReport.m_yield);
+		this.scratch.putInt(commissionReport.m_yieldRedemptionDate);
+		return end();
+	}
+
+	/**
+	 * Method replay. Pass every record after the applied position to the
+	 * listener in the order they were written. Records written while the
+	 * replay runs are not passed. The listener should mark each record applied
+	 * once it is in the database, the journal is not locked while the listener
+	 * runs.
+	 * 
+	 * @param listener
+	 *            Listener
+	 * @return int the number of records replayed.
+	 */
+	public int replay(Listener listener) {
+		int count = 0;
+		long next;
+		long end;
+		synchronized (this) {
+			next = this.base + this.buffer.getLong(APPLIED_OFFSET);
+			end = this.base + this.position;
+		}
+		while (next < end) {
+			ByteBuffer record;
+			synchronized (this) {
+				int offset = (int) (next - this.base);
+				int length = this.buffer.getInt(offset);
+				byte[] body = new byte[length];
+				for (int i = 0; i < length; i++) {
+					body[i] = this.buffer.get(offset + RECORD_HEADER + i);
+				}
+				record = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+				next = next + RECORD_HEADER + length;
+			}
+			byte type = record.get();
+			// Skip the event time.
+			record.getLong();
+			decode(next, type, record, listener);
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Method close.
+	 * 
+	 * @throws IOException
+	 * @see java.io.Closeable#close()
+	 */
+	public synchronized void close() throws IOException {
+		if (this.channel.isOpen()) {
+			this.buffer.force();
+			this.channel.close();
+		}
+	}
+
+	/**
+	 * Method decode.
+	 * 
+	 * @param position
+	 *            long the position of the record.
+	 * @param type
+	 *            byte
+	 * @param record
+	 *            ByteBuffer
+	 * @param listener
+	 *            Listener
+	 */
+	private static void decode(long position, byte type, ByteBuffer record, Listener listener) {
+		switch (type) {
+		case ORDER_PLACED: {
+			listener.orderPlaced(position, record.getInt(), record.getInt(), record.getInt(), getString(record),
+					getString(record), record.getInt(), record.getDouble(), record.getDouble());
+			break;
+		}
+		case ORDER_STATUS: {
+			listener.orderStatus(position, record.getInt(), getString(record), record.getInt(), record.getInt(),
+					record.getDouble(), record.getInt(), record.getInt(), record.getDouble(), record.getInt(),
+					getString(record));
+			break;
+		}
+		case OPEN_ORDER: {
+			Order order = new Order();
+			order.m_orderId = record.getInt();
+			order.m_clientId = record.getInt();
+			order.m_permId = record.getInt();
+			order.m_parentId = record.getInt();
+			order.m_action = getString(record);
+			order.m_totalQuantity = record.getInt();
+			order.m_orderType = getString(record);
+			order.m_lmtPrice = record.getDouble();
+			order.m_auxPrice = record.getDouble();
+			order.m_trailStopPrice = record.getDouble();
+			order.m_trailingPercent = record.getDouble();
+			order.m_tif = getString(record);
+			order.m_ocaGroup = getString(record);
+			order.m_ocaType = record.getInt();
+			order.m_orderRef = getString(record);
+			order.m_account = getString(record);
+			order.m_faGroup = getString(record);
+			order.m_faMethod = getString(record);
+			order.m_faPercentage = getString(record);
+			order.m_faProfile = getString(record);
+			order.m_transmit = record.get() == 1;
+			order.m_displaySize = record.getInt();
+			order.m_triggerMethod = record.getInt();
+			order.m_hidden = record.get() == 1;
+			order.m_goodAfterTime = getString(record);
+			order.m_goodTillDate = getString(record);
+			order.m_overridePercentageConstraints = record.get() == 1;
+			order.m_allOrNone = record.get() == 1;
+			listener.openOrder(position, order, getString(record), getString(record), record.getDouble());
+			break;
+		}
+		case EXECUTION: {
+			int reqId = record.getInt();
+			Execution execution = new Execution();
+			execution.m_orderId = record.getInt();
+			execution.m_clientId = record.getInt();
+			execution.m_execId = getString(record);
+			execution.m_time = getString(record);
+			execution.m_acctNumber = getString(record);
+			execution.m_exchange = getString(record);
+			execution.m_side = getString(record);
+			execution.m_shares = record.getInt();
+			execution.m_price = record.getDouble();
+			execution.m_permId = record.getInt();
+			execution.m_liquidation = record.getInt();
+			execution.m_cumQty = record.getInt();
+			execution.m_avgPrice = record.getDouble();
+			execution.m_orderRef = getString(record);
+			execution.m_evRule = getString(record);
+			execution.m_evMultiplier = record.getDouble();
+			listener.execDetails(position, reqId, execution);
+			break;
+		}
+		case COMMISSION: {
+			CommissionReport commissionReport = new CommissionReport();
+			commissionReport.m_execId = getString(record);
+			commissionReport.m_commission = record.getDouble();
+			commissionReport.m_currency = getString(record);
+			commissionReport.m_realizedPNL = record.getDouble();
+			commissionReport.m_yield = record.getDouble();
+			commissionReport.m_yieldRedemptionDate = record.getInt();
+			listener.commissionReport(position, commissionReport);
+			break;
+		}
+		default:
+			throw new IllegalStateException("Unknown broker journal record type: " + type);
+		}
+	}
+
+	/**
+	 * Method begin. Start a record in the scratch buffer.
+	 * 
+	 * @param type
+	 *            byte
+	 */
+	private void begin(byte type) {
+		this.scratch.clear();
+		this.scratch.put(type);
+		this.scratch.putLong(System.currentTimeMillis());
+	}
+
+	/**
+	 * Method end. Copy the record in the scratch buffer to the journal, the
+	 * length is written last.
+	 * 
+	 * @return long the position after the record.
+	 */
+	private long end() {
+		int length = this.scratch.position();
+		if (this.position + RECORD_HEADER + length > this.buffer.capacity()) {
+			try {
+				map(Math.max(this.buffer.capacity() * 2, this.position + RECORD_HEADER + length));
+			} catch (IOException ex) {
+				throw new IllegalStateException("Could not grow broker journal: " + this.file, ex);
+			}
+		}
+		this.crc.reset();
+		this.crc.update(this.scratch.array(), 0, length);
+		for (int i = 0; i < length; i++) {
+			this.buffer.put(this.position + RECORD_HEADER + i, this.scratch.get(i));
+		}
+		this.buffer.putInt(this.position + 4, (int) this.crc.getValue());
+		this.buffer.putInt(this.position, length);
+		this.position = this.position + RECORD_HEADER + length;
+		this.buffer.putLong(LAST_EVENT_OFFSET, this.scratch.getLong(1));
+		if (this.force) {
+			this.buffer.force();
+		}
+		return this.base + this.position;
+	}
+
+	/**
+	 * Method putString. A string is its length in bytes, -1 if null, followed
+	 * by its UTF-8 bytes.
+	 * 
+	 * @param value
+	 *            String
+	 */
+	private void putString(String value) {
+		if (null == value) {
+			ensure(4);
+			this.scratch.putInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		ensure(4 + bytes.length);
+		this.scratch.putInt(bytes.length);
+		this.scratch.put(bytes);
+	}
+
+	/**
+	 * Method getString.
+	 * 
+	 * @param record
+	 *            ByteBuffer
+	 * @return String
+	 */
+	private static String getString(ByteBuffer record) {
+		int length = record.getInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		record.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Method ensure. Grow the scratch buffer, records are small so this is
+	 * rare.
+	 * 
+	 * @param bytes
+	 *            int
+	 */
+	private void ensure(int bytes) {
+		if (this.scratch.remaining() < bytes + 64) {
+			ByteBuffer larger = ByteBuffer.allocate((this.scratch.capacity() + bytes) * 2)
+					.order(ByteOrder.LITTLE_ENDIAN);
+			this.scratch.flip();
+			larger.put(this.scratch);
+			this.scratch = larger;
+		}
+	}
+
+	/**
+	 * Method move. Move the records noted in the header by reset to the start
+	 * of the journal then clear the space after them. Until the note is
+	 * removed the records being moved are left in place so the move can be
+	 * repeated.
+	 */
+	private void move() {
+		int from = (int) this.buffer.getLong(MOVE_FROM_OFFSET);
+		int length = this.buffer.getInt(MOVE_LENGTH_OFFSET);
+		for (int i = 0; i < length; i++) {
+			this.buffer.put(HEADER_SIZE + i, this.buffer.get(from + i));
+		}
+		this.position = HEADER_SIZE + length;
+		this.buffer.putLong(APPLIED_OFFSET, HEADER_SIZE);
+		this.buffer.putInt(MOVE_LENGTH_OFFSET, 0);
+		this.buffer.putLong(MOVE_FROM_OFFSET, 0);
+		if (this.force) {
+			this.buffer.force();
+		}
+		for (int i = this.position; i < from + length; i++) {
+			this.buffer.put(i, (byte) 0);
+		}
+	}
+
+	/**
+	 * Method recover. Complete any move left by reset then find the end of the
+	 * last complete record, anything after it is cleared.
+	 */
+	private void recover() {
+		if (this.buffer.getInt(MOVE_LENGTH_OFFSET) > 0 || this.buffer.getLong(MOVE_FROM_OFFSET) > 0) {
+			move();
+		}
+		int next = HEADER_SIZE;
+		byte[] body = new byte[256];
+		while (next + RECORD_HEADER <= this.buffer.capacity()) {
+			int length = this.buffer.getInt(next);
+			if (length <= 0 || next + RECORD_HEADER + length > this.buffer.capacity()) {
+				break;
+			}
+			if (body.length < length) {
+				body = new byte[length];
+			}
+			for (int i = 0; i < length; i++) {
+				body[i] = this.buffer.get(next + RECORD_HEADER + i);
+			}
+			this.crc.reset();
+			this.crc.update(body, 0, length);
+			if (this.buffer.getInt(next + 4) != (int) this.crc.getValue()) {
+				break;
+			}
+			next = next + RECORD_HEADER + length;
+		}
+		this.position = next;
+		for (int i = next; i < this.buffer.capacity() && i < next + RECORD_HEADER; i++) {
+			if (this.buffer.get(i) != 0) {
+				for (int j = next; j < this.buffer.capacity(); j++) {
+					this.buffer.put(j, (byte) 0);
+				}
+				break;
+			}
+		}
+		if (this.buffer.getLong(APPLIED_OFFSET) > this.position
+				|| this.buffer.getLong(APPLIED_OFFSET) < HEADER_SIZE) {
+			this.buffer.putLong(APPLIED_OFFSET, this.position);
+		}
+	}
+
+	/**
+	 * Method map. Map the file at the capacity extending it if needed.
+	 * 
+	 * @param capacity
+	 *            int
+	 * @throws IOException
+	 */
+	private void map(int capacity) throws IOException {
+		if (null != this.buffer) {
+			this.buffer.force();
+		}
+		this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+		this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Receives the records of the journal on replay, the position of each
+	 * record is passed so it can be marked applied.
+	 */
+	public interface Listener {
+
+		/**
+		 * Method orderPlaced.
+		 * 
+		 * @param position
+		 *            long
+		 * @param orderKey
+		 *            int
+		 * @param clientId
+		 *            int
+		 * @param idTradestrategy
+		 *            int
+		 * @param action
+		 *            String
+		 * @param orderType
+		 *            String
+		 * @param quantity
+		 *            int
+		 * @param limitPrice
+		 *            double
+		 * @param auxPrice
+		 *            double
+		 */
+		void orderPlaced(long position, int orderKey, int clientId, int idTradestrategy, String action,
+				String orderType, int quantity, double limitPrice, double auxPrice);
+
+		/**
+		 * Method orderStatus.
+		 * 
+		 * @param position
+		 *            long
+		 * @param orderId
+		 *            int
+		 * @param status
+		 *            String
+		 * @param filled
+		 *            int
+		 * @param remaining
+		 *            int
+		 * @param avgFillPrice
+		 *            double
+		 * @param permId
+		 *            int
+		 * @param parentId
+		 *            int
+		 * @param lastFillPrice
+		 *            double
+		 * @param clientId
+		 *            int
+		 * @param whyHeld
+		 *            String
+		 */
+		void orderStatus(long position, int orderId, String status, int filled, int remaining, double avgFillPrice,
+				int permId, int parentId, double lastFillPrice, int clientId, String whyHeld);
+
+		/**
+		 * Method openOrder.
+		 * 
+		 * @param position
+		 *            long
+		 * @param order
+		 *            Order
+		 * @param status
+		 *            String the order state status.
+		 * @param warningText
+		 *            String the order state warning.
+		 * @param commission
+		 *            double the order state commission.
+		 */
+		void openOrder(long position, Order order, String status, String warningText, double commission);
+
+		/**
+		 * Method execDetails.
+		 * 
+		 * @param position
+		 *            long
+		 * @param reqId
+		 *            int
+		 * @param execution
+		 *            Execution
+		 */
+		void execDetails(long position, int reqId, Execution execution);
+
+		/**
+		 * Method commissionReport.
+		 * 
+		 * @param position
+		 *            long
+		 * @param commissionReport
+		 *            CommissionReport
+		 */
+		void commissionReport(long position, CommissionReport commissionReport);
+	}
+}
@@ -435,4 +435,12 @@ public interface BrokerModel {
 
 	boolean validateBrokerData(Tradestrategy tradestrategy) throws BrokerModelException;
 
+	/**
+	 * Method getPositionStateService. The in memory orders and open position
+	 * of each live Tradestrategy, updated as order events are saved.
+	 * 
+	 * @return PositionStateService
+	 */
+	PositionStateService getPositionStateService();
+
 }
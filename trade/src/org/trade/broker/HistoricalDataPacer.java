@@ -0,0 +1,402 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.broker;
+
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.core.properties.ConfigProperties;
+import org.trade.persistent.dao.Tradestrategy;
+
+/**
+ * Paces historical data requests to the broker pacing rules.
+ * 
+ * 1/ No more than requests in any period, for TWS 60 in ten minutes less two
+ * left for real time bar requests which are not paced here.
+ * 
+ * 2/ No more than burst requests in burstPeriod, TWS allows fewer than six
+ * for the same contract in two seconds.
+ * 
+ * 3/ No identical requests within identicalPeriod, for TWS 15 seconds.
+ * 
+ * The submit times are held over the whole period so a request is let through
+ * as soon as the oldest request leaves the window, back fills run at the
+ * limit without exceeding it. After a pacing violation all requests wait a
+ * back off that doubles on each violation up to the period, the request that
+ * failed is queued to be retried.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class HistoricalDataPacer {
+
+	private final static Logger _log = LoggerFactory.getLogger(HistoricalDataPacer.class);
+
+	private static HistoricalDataPacer m_instance = null;
+
+	private final int requests;
+	private final long period;
+	private final int burst;
+	private final long burstPeriod;
+	private final long identicalPeriod;
+	private final long initialBackoff;
+	private final int maxRetries;
+
+	/*
+	 * Submit times oldest first in a ring of the larger of requests and burst.
+	 */
+	private final long[] submitTimes;
+	private int head = 0;
+	private int count = 0;
+	private final Map<String, Long> lastSubmitted = new HashMap<String, Long>();
+	private final Map<String, Integer> retryCounts = new HashMap<String, Integer>();
+	private final ConcurrentLinkedQueue<Tradestrategy> retries = new ConcurrentLinkedQueue<Tradestrategy>();
+	private long backoff = 0;
+	private long backoffUntil = 0;
+	private int waiting = 0;
+
+	private long submitted = 0;
+	private long violations = 0;
+	private long waitMillis = 0;
+
+	static {
+		int requests = 58;
+		int period = 600;
+		int burst = 5;
+		int burstPeriod = 4;
+		int identicalPeriod = 15;
+		int backoff = 15;
+		int maxRetries = 3;
+		try {
+			requests = ConfigProperties.getPropAsInt("trade.broker.pacing.requests");
+			period = ConfigProperties.getPropAsInt("trade.broker.pacing.period");
+			burst = ConfigProperties.getPropAsInt("trade.broker.pacing.burst");
+			burstPeriod = ConfigProperties.getPropAsInt("trade.broker.pacing.burstPeriod");
+			identicalPeriod = ConfigProperties.getPropAsInt("trade.broker.pacing.identicalPeriod");
+			backoff = ConfigProperties.getPropAsInt("trade.broker.pacing.backoff");
+			maxRetries = ConfigProperties.getPropAsInt("trade.broker.pacing.retries");
+		} catch (Exception ex) {
+			_log.warn("Property trade.broker.pacing not set using requests: " + requests + " period: " + period
+					+ "secs burst: " + burst + " burstPeriod: " + burstPeriod + "secs");
+		}
+		m_instance = new HistoricalDataPacer(requests, period * 1000L, burst, burstPeriod * 1000L,
+				identicalPeriod * 1000L, backoff * 1000L, maxRetries);
+	}
+
+	/**
+	 * Constructor for HistoricalDataPacer.
+	 * 
+	 * @param requests
+	 *            int the most requests in period.
+	 * @param period
+	 *            long milliseconds.
+	 * @param burst
+	 *            int the most requests in burstPeriod.
+	 * @param burstPeriod
+	 *            long milliseconds.
+	 * @param identicalPeriod
+	 *            long milliseconds between identical requests.
+	 * @param initialBackoff
+	 *            long milliseconds to wait after the first pacing violation.
+	 * @param maxRetries
+	 *            int the most times a request is retried after a violation.
+	 */
+	public HistoricalDataPacer(int requests, long period, int burst, long burstPeriod, long identicalPeriod,
+			long initialBackoff, int maxRetries) {
+		this.requests = Math.max(1, requests);
+		this.period = Math.max(0, period);
+		this.burst = Math.max(1, burst);
+		this.burstPeriod = Math.max(0, burstPeriod);
+		this.identicalPeriod = Math.max(0, identicalPeriod);
+		this.initialBackoff = Math.max(0, initialBackoff);
+		this.maxRetries = Math.max(0, maxRetries);
+		this.submitTimes = new long[Math.max(this.requests, this.burst)];
+	}
+
+	/**
+	 * Method getInstance.
+	 * 
+	 * @return HistoricalDataPacer the pacer for all historical data requests.
+	 */
+	public static HistoricalDataPacer getInstance() {
+		return m_instance;
+	}
+
+	/**
+	 * Method acquire. Wait until a request can be submitted without breaking
+	 * the pacing rules and record it as submitted.
+	 * 
+	 * @param key
+	 *            String identifies the request, requests with the same key are
+	 *            identical.
+	 * @return long the milliseconds waited.
+	 * @throws InterruptedException
+	 */
+	public synchronized long acquire(String key) throws InterruptedException {
+
+		long start = System.currentTimeMillis();
+		long now = start;
+		long wait = getWait(key, now);
+		waiting++;
+		try {
+			while (wait > 0) {
+				this.wait(wait);
+				now = System.currentTimeMillis();
+				wait = getWait(key, now);
+			}
+		} finally {
+			waiting--;
+		}
+		record(key, now);
+		/*
+		 * No violation for the length of the back off so start again from the
+		 * initial back off on the next one.
+		 */
+		if (backoff > 0 && now >= (backoffUntil + backoff)) {
+			backoff = 0;
+		}
+		waitMillis = waitMillis + (now - start);
+		return now - start;
+	}
+
+	/**
+	 * Method getWait.
+	 * 
+	 * @param key
+	 *            String
+	 * @param now
+	 *            long
+	 * @return long the milliseconds until the request can be submitted.
+	 */
+	private long getWait(String key, long now) {
+		long wait = backoffUntil - now;
+		if (count >= requests) {
+			wait = Math.max(wait, getSubmitTime(count - requests) + period - now);
+		}
+		if (count >= burst) {
+			wait = Math.max(wait, getSubmitTime(count - burst) + burstPeriod - now);
+		}
+		Long last = lastSubmitted.get(key);
+		if (null != last) {
+			wait = Math.max(wait, last + identicalPeriod - now);
+		}
+		return wait;
+	}
+
+	/**
+	 * Method record.
+	 * 
+	 * @param key
+	 *            String
+	 * @param now
+	 *            long
+	 */
+	private void record(String key, long now) {
+		if (count == submitTimes.length) {
+			head = (head + 1) % submitTimes.length;
+			count--;
+		}
+		submitTimes[(head + count) % submitTimes.length] = now;
+		count++;
+		submitted++;
+		lastSubmitted.put(key, now);
+		for (Iterator<Long> iter = lastSubmitted.values().iterator(); iter.hasNext();) {
+			if ((iter.next() + identicalPeriod) <= now)
+				iter.remove();
+		}
+	}
+
+	/**
+	 * Method getSubmitTime.
+	 * 
+	 * @param index
+	 *            int 0 is the oldest submit time held.
+	 * @return long
+	 */
+	private long getSubmitTime(int index) {
+		return submitTimes[(head + index) % submitTimes.length];
+	}
+
+	/**
+	 * Method pacingViolation. The broker rejected a request for pacing. All
+	 * requests wait for the back off and the request is queued to be retried
+	 * unless it has been retried the maximum times.
+	 * 
+	 * @param tradestrategy
+	 *            Tradestrategy the request may be null.
+	 */
+	public synchronized void pacingViolation(Tradestrategy tradestrategy) {
+		long now = System.currentTimeMillis();
+		violations++;
+		backoff = (backoff == 0) ? initialBackoff : Math.min(backoff * 2, Math.max(period, initialBackoff));
+		backoffUntil = Math.max(backoffUntil, now + backoff);
+		if (null != tradestrategy) {
+			String key = getKey(tradestrategy, tradestrategy.getTradingday().getClose());
+			Integer retryCount = retryCounts.get(key);
+			retryCount = (null == retryCount) ? 1 : retryCount + 1;
+			if (retryCount <= maxRetries) {
+				retryCounts.put(key, retryCount);
+				retries.add(tradestrategy);
+			} else {
+				retryCounts.remove(key);
+				_log.error("Historical data request not retried after " + maxRetries + " pacing violations: " + key);
+			}
+		}
+		_log.warn("Historical data pacing violation backing off: " + (backoff / 1000) + "secs " + this);
+		this.notifyAll();
+	}
+
+	/**
+	 * Method getKey.
+	 * 
+	 * @param tradestrategy
+	 *            Tradestrategy
+	 * @param endDate
+	 *            ZonedDateTime
+	 * @return String the key of a historical data request, requests with the
+	 *         same key are identical.
+	 */
+	public static String getKey(Tradestrategy tradestrategy, ZonedDateTime endDate) {
+		return tradestrategy.getContract().getSymbol() + "|" + tradestrategy.getContract().getSecType() + "|"
+				+ tradestrategy.getContract().getExchange() + "|" + tradestrategy.getContract().getCurrency() + "|"
+				+ (null == endDate ? null : endDate.toInstant().toEpochMilli()) + "|" + tradestrategy.getBarSize()
+				+ "|" + tradestrategy.getChartDays();
+	}
+
+	/**
+	 * Method pollRetry.
+	 * 
+	 * @return Tradestrategy the next request to retry or null if none.
+	 */
+	public Tradestrategy pollRetry() {
+		return retries.poll();
+	}
+
+	/**
+	 * Method retry. Queue a request to be retried again later, it does not
+	 * count as a retry.
+	 * 
+	 * @param tradestrategy
+	 *            Tradestrategy
+	 */
+	public void retry(Tradestrategy tradestrategy) {
+		retries.add(tradestrategy);
+	}
+
+	/**
+	 * Method clearRetries.
+	 */
+	public synchronized void clearRetries() {
+		retries.clear();
+		retryCounts.clear();
+	}
+
+	/**
+	 * Method getRetryCount.
+	 * 
+	 * @return int the requests waiting to be retried.
+	 */
+	public int getRetryCount() {
+		return retries.size();
+	}
+
+	/**
+	 * Method getSubmitted.
+	 * 
+	 * @return long the requests submitted.
+	 */
+	public synchronized long getSubmitted() {
+		return submitted;
+	}
+
+	/**
+	 * Method getViolations.
+	 * 
+	 * @return long the pacing violations.
+	 */
+	public synchronized long getViolations() {
+		return violations;
+	}
+
+	/**
+	 * Method getWaitMillis.
+	 * 
+	 * @return long the total milliseconds requests have waited.
+	 */
+	public synchronized long getWaitMillis() {
+		return waitMillis;
+	}
+
+	/**
+	 * Method getWaiting.
+	 * 
+	 * @return int the requests waiting to be submitted.
+	 */
+	public synchronized int getWaiting() {
+		return waiting;
+	}
+
+	/**
+	 * Method getSubmittedInPeriod.
+	 * 
+	 * @return int the requests submitted in the last period.
+	 */
+	public synchronized int getSubmittedInPeriod() {
+		long from = System.currentTimeMillis() - period;
+		int total = 0;
+		for (int i = 0; i < count; i++) {
+			if (getSubmitTime(i) > from)
+				total++;
+		}
+		return Math.min(total, requests);
+	}
+
+	/**
+	 * Method toString.
+	 * 
+	 * @return String
+	 */
+	public synchronized String toString() {
+		return "Submitted: " + submitted + " in period: " + getSubmittedInPeriod() + "/" + requests + " waiting: "
+				+ waiting + " retries: " + retries.size() + " violations: " + violations + " waited: "
+				+ (waitMillis / 1000) + "secs";
+	}
+}
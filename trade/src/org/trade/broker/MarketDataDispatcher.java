@@ -0,0 +1,508 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.broker;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.ZonedDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.core.util.TradingCalendar;
+import org.trade.persistent.dao.Contract;
+import org.trade.persistent.dao.Tradestrategy;
+
+import com.ib.client.TickType;
+
+/**
+ * Sits between the TWS reader thread and the StrategyData of each
+ * Tradestrategy. Ticks are parsed into primitive slots held per market data
+ * request with no allocation on the reader thread. Bursts of ticks for a
+ * contract are coalesced and published by a single dispatcher thread at most
+ * once per interval, so each strategy sees at most one series change per
+ * interval however fast the contract is trading.
+ * 
+ * If the interval is zero ticks are published as they are received on the
+ * calling thread.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class MarketDataDispatcher {
+
+	private final static Logger _log = LoggerFactory.getLogger(MarketDataDispatcher.class);
+
+	private static final int SCALE = 5;
+
+	private final long interval;
+	private final boolean updateOnClose;
+	private final ConcurrentHashMap<Integer, Slot> slots = new ConcurrentHashMap<Integer, Slot>();
+	private final ConcurrentLinkedQueue<Slot> pending = new ConcurrentLinkedQueue<Slot>();
+	private ScheduledExecutorService executor = null;
+
+	/**
+	 * Constructor for MarketDataDispatcher.
+	 * 
+	 * @param interval
+	 *            long the minimum milliseconds between updates for a contract,
+	 *            zero to publish every tick.
+	 * @param updateOnClose
+	 *            boolean update the close on every change of the last price
+	 *            see trade.marketdata.realtime.updateClose.
+	 */
+	public MarketDataDispatcher(long interval, boolean updateOnClose) {
+		this.interval = Math.max(0, interval);
+		this.updateOnClose = updateOnClose;
+	}
+
+	/**
+	 * Method register. Start dispatching ticks for a market data request.
+	 * 
+	 * @param reqId
+	 *            int
+	 * @param contract
+	 *            Contract
+	 */
+	public void register(int reqId, Contract contract) {
+		slots.put(reqId, new Slot(contract));
+		if (interval > 0) {
+			synchronized (this) {
+				if (null == executor) {
+					executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+						public Thread newThread(Runnable runnable) {
+							Thread thread = new Thread(runnable, "MarketDataDispatcher");
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+					executor.scheduleWithFixedDelay(new Runnable() {
+						public void run() {
+							try {
+								publish();
+							} catch (Exception ex) {
+								_log.error("Error publishing market data Msg: " + ex.getMessage(), ex);
+							}
+						}
+					}, interval, interval, TimeUnit.MILLISECONDS);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Method unregister. Stop dispatching ticks for a market data request, any
+	 * ticks not yet published are dropped.
+	 * 
+	 * @param reqId
+	 *            int
+	 */
+	public void unregister(int reqId) {
+		Slot slot = slots.remove(reqId);
+		if (null != slot) {
+			synchronized (slot) {
+				slot.priceDirty = false;
+				slot.tradeDirty = false;
+			}
+		}
+	}
+
+	/**
+	 * Method isRegistered.
+	 * 
+	 * @param reqId
+	 *            int
+	 * @return boolean
+	 */
+	public boolean isRegistered(int reqId) {
+		return slots.containsKey(reqId);
+	}
+
+	/**
+	 * Method clear. Unregister all the requests and stop the dispatcher
+	 * thread.
+	 */
+	public void clear() {
+		for (Integer reqId : slots.keySet()) {
+			unregister(reqId);
+		}
+		pending.clear();
+		synchronized (this) {
+			if (null != executor) {
+				executor.shutdownNow();
+				executor = null;
+			}
+		}
+	}
+
+	/**
+	 * Method tickPrice. Called on the TWS reader thread.
+	 * 
+	 * @param reqId
+	 *            int
+	 * @param field
+	 *            int
+	 * @param value
+	 *            double
+	 * @return boolean true if the tick was for a registered request.
+	 */
+	public boolean tickPrice(int reqId, int field, double value) {
+		Slot slot = slots.get(reqId);
+		if (null == slot)
+			return false;
+
+		synchronized (slot) {
+			switch (field) {
+			case TickType.ASK: {
+				slot.askPrice = value;
+				break;
+			}
+			case TickType.BID: {
+				slot.bidPrice = value;
+				break;
+			}
+			case TickType.LAST: {
+				slot.lastPrice = value;
+				break;
+			}
+			default: {
+				return true;
+			}
+			}
+			slot.priceDirty = true;
+		}
+		dispatch(slot);
+		return true;
+	}
+
+	/**
+	 * Method tickString. Called on the TWS reader thread. Only the RT_VOLUME
+	 * field is used.
+	 * 
+	 * 48 = RTVolume String = last trade price;last trade size;last trade
+	 * time;total volume;vwap;single trade flag
+	 * 
+	 * Prints can come in late in T/S i.e. bad ticks that are outside the
+	 * current Bid/Ask these are ignored.
+	 * 
+	 * @param reqId
+	 *            int
+	 * @param field
+	 *            int
+	 * @param value
+	 *            String
+	 * @return boolean true if the tick was for a registered request.
+	 */
+	public boolean tickString(int reqId, int field, String value) {
+		if (TickType.RT_VOLUME != field)
+			return false;
+
+		Slot slot = slots.get(reqId);
+		if (null == slot)
+			return false;
+
+		/*
+		 * If there is no price ignore this value.
+		 */
+		int priceEnd = value.indexOf(';');
+		if (priceEnd < 1)
+			return true;
+		int sizeEnd = value.indexOf(';', priceEnd + 1);
+		if (sizeEnd < 0)
+			return true;
+		int timeEnd = value.indexOf(';', sizeEnd + 1);
+		if (timeEnd < 0)
+			timeEnd = value.length();
+
+		double price = parseDouble(value, 0, priceEnd);
+		long time = parseLong(value, sizeEnd + 1, timeEnd);
+		if (!(price > 0) || time < 0)
+			return true;
+
+		synchronized (slot) {
+			if (slot.askPrice > 0 && slot.bidPrice > 0 && price <= slot.askPrice && price >= slot.bidPrice) {
+				if (!slot.tradeDirty) {
+					slot.tradeHigh = price;
+					slot.tradeLow = price;
+					slot.tradeFirstTime = time;
+					slot.tradeDirty = true;
+				} else {
+					slot.tradeHigh = Math.max(slot.tradeHigh, price);
+					slot.tradeLow = Math.min(slot.tradeLow, price);
+				}
+				slot.tradePrice = price;
+				slot.tradeTime = time;
+			} else {
+				return true;
+			}
+		}
+		dispatch(slot);
+		return true;
+	}
+
+	/**
+	 * Method publish. Applies the coalesced ticks to the StrategyData of each
+	 * Tradestrategy for the contracts that have changed. This is called by the
+	 * dispatcher thread.
+	 * 
+	 * @return int the number of contracts updated.
+	 */
+	public int publish() {
+		int count = 0;
+		Slot slot = null;
+		while (null != (slot = pending.poll())) {
+			publish(slot);
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Method dispatch. Queue the slot for the dispatcher thread or publish it
+	 * now if there is no interval.
+	 * 
+	 * @param slot
+	 *            Slot
+	 */
+	private void dispatch(Slot slot) {
+		if (interval == 0) {
+			publish(slot);
+			return;
+		}
+		synchronized (slot) {
+			if (slot.queued)
+				return;
+			slot.queued = true;
+		}
+		pending.offer(slot);
+	}
+
+	/**
+	 * Method publish.
+	 * 
+	 * @param slot
+	 *            Slot
+	 */
+	private void publish(Slot slot) {
+
+		double askPrice, bidPrice, lastPrice, tradePrice, tradeHigh, tradeLow;
+		long tradeTime, tradeFirstTime;
+		boolean priceDirty, tradeDirty;
+		synchronized (slot) {
+			askPrice = slot.askPrice;
+			bidPrice = slot.bidPrice;
+			lastPrice = slot.lastPrice;
+			tradePrice = slot.tradePrice;
+			tradeHigh = slot.tradeHigh;
+			tradeLow = slot.tradeLow;
+			tradeTime = slot.tradeTime;
+			tradeFirstTime = slot.tradeFirstTime;
+			priceDirty = slot.priceDirty;
+			tradeDirty = slot.tradeDirty;
+			slot.priceDirty = false;
+			slot.tradeDirty = false;
+			slot.queued = false;
+		}
+
+		if (priceDirty) {
+			BigDecimal ask = askPrice != slot.publishedAskPrice ? toBigDecimal(askPrice) : null;
+			BigDecimal bid = bidPrice != slot.publishedBidPrice ? toBigDecimal(bidPrice) : null;
+			BigDecimal last = lastPrice != slot.publishedLastPrice ? toBigDecimal(lastPrice) : null;
+			for (Tradestrategy tradestrategy : slot.contract.getTradestrategies()) {
+				Contract seriesContract = tradestrategy.getStrategyData().getBaseCandleSeries().getContract();
+				if (null != ask)
+					seriesContract.setLastAskPrice(ask);
+				if (null != bid)
+					seriesContract.setLastBidPrice(bid);
+				if (null != last)
+					seriesContract.setLastPrice(last);
+			}
+			slot.publishedAskPrice = askPrice;
+			slot.publishedBidPrice = bidPrice;
+			slot.publishedLastPrice = lastPrice;
+		}
+
+		if (tradeDirty) {
+			ZonedDateTime time = TradingCalendar.getZonedDateTimeFromMilli(tradeTime);
+			ZonedDateTime firstTime = (tradeFirstTime == tradeTime) ? time
+					: TradingCalendar.getZonedDateTimeFromMilli(tradeFirstTime);
+			for (Tradestrategy tradestrategy : slot.contract.getTradestrategies()) {
+				tradestrategy.getStrategyData().updateLastTrade(time, firstTime, tradePrice, tradeHigh, tradeLow,
+						updateOnClose);
+			}
+		}
+	}
+
+	/**
+	 * Method toBigDecimal.
+	 * 
+	 * @param value
+	 *            double
+	 * @return BigDecimal
+	 */
+	private static BigDecimal toBigDecimal(double value) {
+		return (new BigDecimal(value)).setScale(SCALE, RoundingMode.HALF_EVEN);
+	}
+
+	/**
+	 * Method parseDouble. Parse a plain decimal number from part of a string
+	 * without creating a sub string.
+	 * 
+	 * @param value
+	 *            String
+	 * @param start
+	 *            int
+	 * @param end
+	 *            int
+	 * @return double NaN if the value is not a number.
+	 */
+	static double parseDouble(String value, int start, int end) {
+		long mantissa = 0;
+		int scale = 0;
+		boolean decimal = false;
+		boolean negative = false;
+		int digits = 0;
+		for (int i = start; i < end; i++) {
+			char c = value.charAt(i);
+			if (c >= '0' && c <= '9') {
+				if (digits < 18) {
+					mantissa = (mantissa * 10) + (c - '0');
+					if (decimal)
+						scale++;
+					if (mantissa > 0)
+						digits++;
+				} else {
+					return parseDoubleSlow(value, start, end);
+				}
+			} else if (c == '.' && !decimal) {
+				decimal = true;
+			} else if (c == '-' && i == start) {
+				negative = true;
+			} else {
+				return parseDoubleSlow(value, start, end);
+			}
+		}
+		/*
+		 * Dividing two exactly represented values gives the correctly rounded
+		 * result i.e. the same as Double.parseDouble.
+		 */
+		if (mantissa > (1L << 53) || scale > 22) {
+			return parseDoubleSlow(value, start, end);
+		}
+		double result = mantissa / POWERS_OF_TEN[scale];
+		return negative ? -result : result;
+	}
+
+	/**
+	 * Method parseLong. Parse a positive long from part of a string without
+	 * creating a sub string.
+	 * 
+	 * @param value
+	 *            String
+	 * @param start
+	 *            int
+	 * @param end
+	 *            int
+	 * @return long -1 if the value is not a positive number.
+	 */
+	static long parseLong(String value, int start, int end) {
+		if (start >= end || (end - start) > 18)
+			return -1;
+		long result = 0;
+		for (int i = start; i < end; i++) {
+			char c = value.charAt(i);
+			if (c < '0' || c > '9')
+				return -1;
+			result = (result * 10) + (c - '0');
+		}
+		return result;
+	}
+
+	/**
+	 * Method parseDoubleSlow.
+	 * 
+	 * @param value
+	 *            String
+	 * @param start
+	 *            int
+	 * @param end
+	 *            int
+	 * @return double
+	 */
+	private static double parseDoubleSlow(String value, int start, int end) {
+		try {
+			return Double.parseDouble(value.substring(start, end));
+		} catch (NumberFormatException ex) {
+			return Double.NaN;
+		}
+	}
+
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	/**
+	 * The latest ticks for a market data request. The tick fields are written
+	 * by the reader thread and read by the dispatcher both under the slot
+	 * lock, the published values are only used by the dispatcher.
+	 */
+	static final class Slot {
+
+		final Contract contract;
+		double askPrice = 0;
+		double bidPrice = 0;
+		double lastPrice = 0;
+		double tradePrice = 0;
+		double tradeHigh = 0;
+		double tradeLow = 0;
+		long tradeTime = 0;
+		long tradeFirstTime = 0;
+		boolean priceDirty = false;
+		boolean tradeDirty = false;
+		boolean queued = false;
+		double publishedAskPrice = Double.NaN;
+		double publishedBidPrice = Double.NaN;
+		double publishedLastPrice = Double.NaN;
+
+		Slot(Contract contract) {
+			this.contract = contract;
+		}
+	}
+}
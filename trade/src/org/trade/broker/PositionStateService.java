@@ -0,0 +1,295 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.broker;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.persistent.PersistentModel;
+import org.trade.persistent.PersistentModelException;
+import org.trade.persistent.dao.TradeOrder;
+import org.trade.persistent.dao.TradestrategyOrders;
+
+/**
+ * Holds the orders and open position of each live Tradestrategy in memory.
+ * The broker model updates a Tradestrategy's state once after it saves an
+ * order event, strategies then read the latest snapshot on every candle
+ * without going to the database.
+ * 
+ * Each snapshot is replaced, never changed, by the service and carries a
+ * version so a strategy can tell whether its orders have changed since it
+ * last looked. Only Tradestrategies that have been read are held.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class PositionStateService {
+
+	private final static Logger _log = LoggerFactory.getLogger(PositionStateService.class);
+
+	private final PersistentModel tradePersistentModel;
+	private final ConcurrentHashMap<Integer, Snapshot> snapshots = new ConcurrentHashMap<Integer, Snapshot>();
+	private final AtomicLong version = new AtomicLong(0);
+
+	/**
+	 * Constructor for PositionStateService.
+	 * 
+	 * @param tradePersistentModel
+	 *            PersistentModel the model the orders are loaded from.
+	 */
+	public PositionStateService(PersistentModel tradePersistentModel) {
+		this.tradePersistentModel = tradePersistentModel;
+	}
+
+	/**
+	 * Method getSnapshot. Return the current state of the Tradestrategy
+	 * loading it if this is the first time it has been read.
+	 * 
+	 * @param idTradestrategy
+	 *            Integer
+	 * @return Snapshot
+	 * @throws PersistentModelException
+	 */
+	public Snapshot getSnapshot(Integer idTradestrategy) throws PersistentModelException {
+		Snapshot snapshot = snapshots.get(idTradestrategy);
+		if (null == snapshot) {
+			snapshot = load(idTradestrategy, false);
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Method getTradestrategyOrders.
+	 * 
+	 * @param idTradestrategy
+	 *            Integer
+	 * @return TradestrategyOrders
+	 * @throws PersistentModelException
+	 */
+	public TradestrategyOrders getTradestrategyOrders(Integer idTradestrategy) throws PersistentModelException {
+		return getSnapshot(idTradestrategy).getTradestrategyOrders();
+	}
+
+	/**
+	 * Method refresh. Reload the Tradestrategy from the database.
+	 * 
+	 * @param idTradestrategy
+	 *            Integer
+	 * @return Snapshot
+	 * @throws PersistentModelException
+	 */
+	public Snapshot refresh(Integer idTradestrategy) throws PersistentModelException {
+		return load(idTradestrategy, true);
+	}
+
+	/**
+	 * Method update. Called by the broker model after an order has been saved.
+	 * The order's Tradestrategy is reloaded, if the order is part of a
+	 * position every held Tradestrategy for the same contract is reloaded as
+	 * they share the position. Orders for Tradestrategies that are not held
+	 * are ignored.
+	 * 
+	 * @param tradeOrder
+	 *            TradeOrder the saved order.
+	 */
+	public void update(TradeOrder tradeOrder) {
+
+		Integer idTradestrategy = getIdTradestrategy(tradeOrder);
+		if (null == idTradestrategy)
+			return;
+
+		Snapshot snapshot = snapshots.get(idTradestrategy);
+		if (null == snapshot)
+			return;
+
+		snapshot = reload(idTradestrategy);
+		if (null == snapshot || !tradeOrder.hasTradePosition())
+			return;
+
+		Integer idContract = snapshot.getTradestrategyOrders().getContract().getIdContract();
+		for (Snapshot item : snapshots.values()) {
+			if (!item.getIdTradestrategy().equals(idTradestrategy)
+					&& idContract.equals(item.getTradestrategyOrders().getContract().getIdContract())) {
+				reload(item.getIdTradestrategy());
+			}
+		}
+	}
+
+	/**
+	 * Method put. Replace the state of a Tradestrategy that has been saved by
+	 * its strategy.
+	 * 
+	 * @param tradestrategyOrders
+	 *            TradestrategyOrders
+	 * @return Snapshot
+	 */
+	public synchronized Snapshot put(TradestrategyOrders tradestrategyOrders) {
+		Snapshot snapshot = new Snapshot(tradestrategyOrders, version.incrementAndGet());
+		snapshots.put(tradestrategyOrders.getIdTradeStrategy(), snapshot);
+		return snapshot;
+	}
+
+	/**
+	 * Method remove. Stop holding the Tradestrategy.
+	 * 
+	 * @param idTradestrategy
+	 *            Integer
+	 */
+	public void remove(Integer idTradestrategy) {
+		snapshots.remove(idTradestrategy);
+	}
+
+	/**
+	 * Method clear.
+	 */
+	public void clear() {
+		snapshots.clear();
+	}
+
+	/**
+	 * Method size.
+	 * 
+	 * @return int the number of Tradestrategies held.
+	 */
+	public int size() {
+		return snapshots.size();
+	}
+
+	/**
+	 * Method reload. If the reload fails the Tradestrategy is dropped so the
+	 * next read goes to the database.
+	 * 
+	 * @param idTradestrategy
+	 *            Integer
+	 * @return Snapshot null if the reload failed.
+	 */
+	private Snapshot reload(Integer idTradestrategy) {
+		try {
+			return load(idTradestrategy, true);
+		} catch (PersistentModelException ex) {
+			snapshots.remove(idTradestrategy);
+			_log.warn("Could not reload position orders for Tradestrategy id: " + idTradestrategy + " Msg: "
+					+ ex.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Method load. Loads are serialized so an older read cannot replace a
+	 * newer one.
+	 * 
+	 * @param idTradestrategy
+	 *            Integer
+	 * @param force
+	 *            boolean reload even if the Tradestrategy is held.
+	 * @return Snapshot
+	 * @throws PersistentModelException
+	 */
+	private synchronized Snapshot load(Integer idTradestrategy, boolean force) throws PersistentModelException {
+		if (!force) {
+			Snapshot snapshot = snapshots.get(idTradestrategy);
+			if (null != snapshot)
+				return snapshot;
+		}
+		return put(tradePersistentModel.findPositionOrdersByTradestrategyId(idTradestrategy));
+	}
+
+	/**
+	 * Method getIdTradestrategy.
+	 * 
+	 * @param tradeOrder
+	 *            TradeOrder
+	 * @return Integer null if the order has no Tradestrategy.
+	 */
+	private static Integer getIdTradestrategy(TradeOrder tradeOrder) {
+		if (null != tradeOrder.getTradestrategyId())
+			return tradeOrder.getTradestrategyId().getIdTradeStrategy();
+		if (null != tradeOrder.getTradestrategy())
+			return tradeOrder.getTradestrategy().getIdTradeStrategy();
+		return null;
+	}
+
+	/**
+	 * The orders and open position of a Tradestrategy at a version.
+	 */
+	public static final class Snapshot {
+
+		private final TradestrategyOrders tradestrategyOrders;
+		private final long version;
+
+		/**
+		 * Constructor for Snapshot.
+		 * 
+		 * @param tradestrategyOrders
+		 *            TradestrategyOrders
+		 * @param version
+		 *            long
+		 */
+		Snapshot(TradestrategyOrders tradestrategyOrders, long version) {
+			this.tradestrategyOrders = tradestrategyOrders;
+			this.version = version;
+		}
+
+		/**
+		 * Method getIdTradestrategy.
+		 * 
+		 * @return Integer
+		 */
+		public Integer getIdTradestrategy() {
+			return this.tradestrategyOrders.getIdTradeStrategy();
+		}
+
+		/**
+		 * Method getTradestrategyOrders.
+		 * 
+		 * @return TradestrategyOrders
+		 */
+		public TradestrategyOrders getTradestrategyOrders() {
+			return this.tradestrategyOrders;
+		}
+
+		/**
+		 * Method getVersion.
+		 * 
+		 * @return long
+		 */
+		public long getVersion() {
+			return this.version;
+		}
+	}
+}
@@ -38,15 +38,19 @@ package org.trade.broker;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Paths;
 import java.text.ParseException;
+import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
-import java.util.StringTokenizer;
 import java.util.Vector;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
@@ -75,7 +79,9 @@ import org.trade.dictionary.valuetype.SECType;
 import org.trade.dictionary.valuetype.Side;
 import org.trade.dictionary.valuetype.TimeInForce;
 import org.trade.dictionary.valuetype.TriggerMethod;
+import org.trade.persistent.AspectWriteListener;
 import org.trade.persistent.PersistentModel;
+import org.trade.persistent.PersistentModelException;
 import org.trade.persistent.dao.Account;
 import org.trade.persistent.dao.Contract;
 import org.trade.persistent.dao.Portfolio;
@@ -125,9 +131,14 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 
 	private EClientSocket m_client = null;
 	private PersistentModel m_tradePersistentModel = null;
+	private PositionStateService m_positionStateService = null;
 	private AtomicInteger reqId = null;
 	private AtomicInteger orderKey = null;
 	private Integer m_clientId = null;
+	private MarketDataDispatcher m_marketDataDispatcher = null;
+	private BrokerJournal m_journal = null;
+	private ExecutorService m_journalExecutor = null;
+	private volatile boolean m_journalReplayed = false;
 
 	private static final int SCALE = 5;
 	private static final int minOrderId = 100000;
@@ -161,6 +172,10 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 	private static Integer backfillOffsetDays = 0;
 	private static String genericTicklist = "233";
 	private static boolean marketUpdateOnClose = false;
+	private static Integer marketDataInterval = 0;
+	private static String journalFile = null;
+	private static Integer journalSize = 1 << 24;
+	private static boolean journalForce = false;
 
 	static {
 		try {
@@ -169,18 +184,47 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 			backfillOffsetDays = ConfigProperties.getPropAsInt("trade.backfill.offsetDays");
 			genericTicklist = ConfigProperties.getPropAsString("trade.marketdata.genericTicklist");
 			marketUpdateOnClose = ConfigProperties.getPropAsBoolean("trade.marketdata.realtime.updateClose");
+			marketDataInterval = ConfigProperties.getPropAsInt("trade.marketdata.realtime.interval");
 
 		} catch (Exception ex) {
 			throw new IllegalArgumentException("Error initializing BrokerModel Msg: " + ex.getMessage());
 		}
+		try {
+			journalFile = ConfigProperties.getPropAsString("trade.journal.file");
+			journalSize = ConfigProperties.getPropAsInt("trade.journal.size");
+			journalForce = ConfigProperties.getPropAsBoolean("trade.journal.force");
+		} catch (Exception ex) {
+			_log.warn("Property trade.journal not set broker events will not be journaled.");
+		}
 	}
 
 	public TWSBrokerModel() {
 		try {
 			m_client = new EClientSocket(this);
+			m_marketDataDispatcher = new MarketDataDispatcher(marketDataInterval, marketUpdateOnClose);
 			m_tradePersistentModel = (PersistentModel) ClassFactory
 					.getServiceForInterface(PersistentModel._persistentModel, this);
+			m_positionStateService = new PositionStateService(m_tradePersistentModel);
 			reqId = new AtomicInteger((int) (System.currentTimeMillis() / 1000d));
+			/*
+			 * Order events are applied to the database in the order they
+			 * arrive on one thread, so the TWS reader thread only waits for
+			 * the journal.
+			 */
+			m_journalExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "BrokerJournal-apply");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			if (null != journalFile && !journalFile.trim().isEmpty()) {
+				try {
+					m_journal = new BrokerJournal(Paths.get(journalFile.trim()), journalSize, journalForce);
+				} catch (IOException ex) {
+					_log.error("Could not open broker journal: " + journalFile + " Msg: " + ex.getMessage());
+				}
+			}
 
 		} catch (Exception ex) {
 			throw new IllegalArgumentException("Error initializing BrokerModel Msg: " + ex.getMessage());
@@ -197,6 +241,16 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 		return m_client.isConnected();
 	}
 
+	/**
+	 * Method getPositionStateService.
+	 * 
+	 * @return PositionStateService
+	 * @see org.trade.broker.BrokerModel#getPositionStateService()
+	 */
+	public PositionStateService getPositionStateService() {
+		return m_positionStateService;
+	}
+
 	/**
 	 * Method getHistoricalData.
 	 * 
@@ -221,8 +275,89 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 	 */
 	public void onConnect(String host, Integer port, Integer clientId) {
 		this.m_clientId = clientId;
-		m_client.eConnect(host, port, clientId);
 		openOrders.clear();
+		replayJournal();
+		m_client.eConnect(host, port, clientId);
+	}
+
+	/**
+	 * Method replayJournal. Apply any events in the journal that did not reach
+	 * the database before the application stopped. The events are applied
+	 * ahead of any that arrive once connected.
+	 */
+	private void replayJournal() {
+		if (null == m_journal)
+			return;
+		m_journalReplayed = false;
+		m_journalExecutor.execute(new Runnable() {
+			public void run() {
+				try {
+					int count = m_journal.replay(new BrokerJournal.Listener() {
+						public void orderPlaced(long position, int orderKey, int clientId, int idTradestrategy,
+								String action, String orderType, int quantity, double limitPrice, double auxPrice) {
+							// Orders are saved before they are placed.
+							m_journal.setApplied(position);
+						}
+
+						public void orderStatus(long position, int orderId, String status, int filled,
+								int remaining, double avgFillPrice, int permId, int parentId, double lastFillPrice,
+								int clientId, String whyHeld) {
+							applyOrderStatus(orderId, status, filled, remaining, avgFillPrice, permId, parentId,
+									lastFillPrice, clientId, whyHeld);
+							m_journal.setApplied(position);
+						}
+
+						public void openOrder(long position, com.ib.client.Order order, String status,
+								String warningText, double commission) {
+							applyOpenOrder(order.m_orderId, order, status, warningText, commission);
+							m_journal.setApplied(position);
+						}
+
+						public void execDetails(long position, int reqId, Execution execution) {
+							applyExecDetails(reqId, execution);
+							m_journal.setApplied(position);
+						}
+
+						public void commissionReport(long position, CommissionReport commissionReport) {
+							applyCommissionReport(commissionReport);
+							m_journal.setApplied(position);
+						}
+					});
+					if (count > 0) {
+						_log.info("Broker journal replayed: " + count + " events from: " + m_journal.getFile());
+					}
+					m_journal.reset();
+					m_journalReplayed = true;
+				} catch (Exception ex) {
+					error(0, 3340, "Error replaying broker journal Msg: " + ex.getMessage());
+				}
+			}
+		});
+	}
+
+	/**
+	 * Method apply. Apply an event to the database on the journal thread and
+	 * mark it applied in the journal. Events are marked applied once they have
+	 * been processed, any error is reported by the event as before.
+	 * 
+	 * @param position
+	 *            long the position of the event in the journal or zero if
+	 *            not journaled.
+	 * @param event
+	 *            Runnable
+	 */
+	private void apply(final long position, final Runnable event) {
+		m_journalExecutor.execute(new Runnable() {
+			public void run() {
+				try {
+					event.run();
+				} finally {
+					if (position > 0) {
+						m_journal.setApplied(position);
+					}
+				}
+			}
+		});
 	}
 
 	/**
@@ -394,11 +529,22 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 			 */
 
 			if (m_client.isConnected()) {
-				tradeOrdersExecutions.clear();
-				commissionDetails.clear();
-				executionDetails.clear();
+				clearExecutions();
+				/*
+				 * While the journal is being replayed the executions up to its
+				 * last event will be applied by the replay so only ask for
+				 * those since. Once replayed ask for the whole window.
+				 */
+				ZonedDateTime fromDate = mktOpenDate;
+				if (null != m_journal && !m_journalReplayed && m_journal.getLastEventTime() > 0) {
+					ZonedDateTime lastEventDate = ZonedDateTime.ofInstant(
+							Instant.ofEpochMilli(m_journal.getLastEventTime()), TradingCalendar.MKT_TIMEZONE);
+					if (lastEventDate.isAfter(fromDate)) {
+						fromDate = lastEventDate.minusMinutes(1);
+					}
+				}
 				Integer reqId = this.getNextRequestId();
-				m_client.reqExecutions(reqId, TWSBrokerModel.getIBExecutionFilter(m_clientId, mktOpenDate, null, null));
+				m_client.reqExecutions(reqId, TWSBrokerModel.getIBExecutionFilter(m_clientId, fromDate, null, null));
 			} else {
 				throw new BrokerModelException(0, 3020, "Not conected to TWS historical data cannot be retrieved");
 			}
@@ -408,6 +554,81 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 		}
 	}
 
+	/**
+	 * Method journal. Write the execution to the journal.
+	 * 
+	 * @param reqId
+	 *            int
+	 * @param execution
+	 *            Execution
+	 * @return long the position of the event in the journal or zero if not
+	 *         journaled.
+	 */
+	private long journal(int reqId, Execution execution) {
+		if (null != m_journal) {
+			try {
+				return m_journal.execution(reqId, execution);
+			} catch (Exception ex) {
+				error(reqId, 3350, "Error writing broker journal Msg: " + ex.getMessage());
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Method journal. Write the open order to the journal.
+	 * 
+	 * @param order
+	 *            com.ib.client.Order
+	 * @param orderState
+	 *            OrderState
+	 * @return long the position of the event in the journal or zero if not
+	 *         journaled.
+	 */
+	private long journal(com.ib.client.Order order, OrderState orderState) {
+		if (null != m_journal) {
+			try {
+				return m_journal.openOrder(order, orderState);
+			} catch (Exception ex) {
+				error(order.m_orderId, 3350, "Error writing broker journal Msg: " + ex.getMessage());
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Method journal. Write the commission report to the journal.
+	 * 
+	 * @param commsReport
+	 *            CommissionReport
+	 * @return long the position of the event in the journal or zero if not
+	 *         journaled.
+	 */
+	private long journal(CommissionReport commsReport) {
+		if (null != m_journal) {
+			try {
+				return m_journal.commission(commsReport);
+			} catch (Exception ex) {
+				error(1, 3350, "Error writing broker journal Msg: " + ex.getMessage());
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Method clearExecutions. Clear the executions of the last request once
+	 * the events before this request have been applied.
+	 */
+	private void clearExecutions() {
+		apply(0, new Runnable() {
+			public void run() {
+				tradeOrdersExecutions.clear();
+				commissionDetails.clear();
+				executionDetails.clear();
+			}
+		});
+	}
+
 	/**
 	 * Method onReqExecutions.
 	 * 
@@ -426,9 +647,7 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 			 */
 			Integer clientId = m_clientId;
 			if (m_client.isConnected()) {
-				tradeOrdersExecutions.clear();
-				commissionDetails.clear();
-				executionDetails.clear();
+				clearExecutions();
 				/*
 				 * This will get all orders i.e. those created by this client
 				 * and those created by other clients in TWS.
@@ -516,6 +735,7 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 				}
 				List<TagValue> mktDataOptions = new ArrayList<TagValue>();
 				m_marketDataRequests.put(contract.getId(), contract);
+				m_marketDataDispatcher.register(contract.getId(), contract);
 				m_client.reqMktData(contract.getId(), TWSBrokerModel.getIBContract(contract), genericTicklist, snapshot,
 						mktDataOptions);
 
@@ -778,6 +998,7 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 		m_historyDataRequests.clear();
 		m_realTimeBarsRequests.clear();
 		m_marketDataRequests.clear();
+		m_marketDataDispatcher.clear();
 
 	}
 
@@ -930,6 +1151,7 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 			synchronized (m_marketDataRequests) {
 				m_marketDataRequests.remove(contract.getId());
 			}
+			m_marketDataDispatcher.unregister(contract.getId());
 		}
 	}
 
@@ -955,6 +1177,14 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 						tradeOrder.setClientId(this.m_clientId);
 					}
 					tradeOrder = m_tradePersistentModel.persistTradeOrder(tradeOrder);
+					m_positionStateService.update(tradeOrder);
+					if (null != m_journal) {
+						m_journal.orderPlaced(tradeOrder.getOrderKey(), tradeOrder.getClientId(),
+								tradeOrder.getTradestrategyId().getIdTradeStrategy(), tradeOrder.getAction(),
+								tradeOrder.getOrderType(), tradeOrder.getQuantity(),
+								(null == tradeOrder.getLimitPrice() ? 0 : tradeOrder.getLimitPrice().doubleValue()),
+								(null == tradeOrder.getAuxPrice() ? 0 : tradeOrder.getAuxPrice().doubleValue()));
+					}
 
 					_log.debug("Order Placed Key: " + tradeOrder.getOrderKey());
 					com.ib.client.Contract IBContract = TWSBrokerModel.getIBContract(contract);
@@ -1014,9 +1244,25 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 	 * @see com.ib.client.EWrapper#execDetails(int, com.ib.client.Contract,
 	 *      Execution)
 	 */
-	public void execDetails(int reqId, com.ib.client.Contract contractIB, Execution execution) {
+	public void execDetails(final int reqId, com.ib.client.Contract contractIB, final Execution execution) {
+		TWSBrokerModel.logExecution(execution);
+		apply(journal(reqId, execution), new Runnable() {
+			public void run() {
+				applyExecDetails(reqId, execution);
+			}
+		});
+	}
+
+	/**
+	 * Method applyExecDetails. Save the execution as a fill of its order.
+	 * 
+	 * @param reqId
+	 *            int
+	 * @param execution
+	 *            Execution
+	 */
+	private void applyExecDetails(int reqId, Execution execution) {
 		try {
-			TWSBrokerModel.logExecution(execution);
 
 			TradeOrder transientInstance = m_tradePersistentModel
 					.findTradeOrderByKey(new Integer(Math.abs(execution.m_orderId)));
@@ -1048,6 +1294,7 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 			transientInstance.setFilledDate(tradeOrderfill.getTime());
 			boolean isFilled = transientInstance.getIsFilled();
 			transientInstance = m_tradePersistentModel.persistTradeOrderfill(transientInstance);
+			m_positionStateService.update(transientInstance);
 			// Let the controller know an order was filled
 			if (transientInstance.getIsFilled() && !isFilled)
 				this.fireTradeOrderFilled(transientInstance);
@@ -1069,7 +1316,21 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 	 *            int
 	 * @see com.ib.client.EWrapper#execDetailsEnd(int)
 	 */
-	public void execDetailsEnd(int reqId) {
+	public void execDetailsEnd(final int reqId) {
+		apply(0, new Runnable() {
+			public void run() {
+				applyExecDetailsEnd(reqId);
+			}
+		});
+	}
+
+	/**
+	 * Method applyExecDetailsEnd.
+	 * 
+	 * @param reqId
+	 *            int
+	 */
+	private void applyExecDetailsEnd(int reqId) {
 
 		try {
 
@@ -1196,6 +1457,7 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 						}
 						tradeOrder.setCommission(new BigDecimal(totalComms));
 						tradeOrder = m_tradePersistentModel.persistTradeOrderfill(tradeOrder);
+						m_positionStateService.update(tradeOrder);
 						TradeOrder transientInstance = m_tradePersistentModel
 								.findTradeOrderByKey(tradeOrder.getOrderKey());
 						// Let the controller know an order was filled
@@ -1229,12 +1491,35 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 	 *            OrderState
 	 * @see http://www.interactivebrokers.com/php/apiUsersGuide/apiguide.htm
 	 */
-	public void openOrder(int orderId, com.ib.client.Contract contractIB, com.ib.client.Order order,
-			OrderState orderState) {
-		try {
+	public void openOrder(final int orderId, com.ib.client.Contract contractIB, final com.ib.client.Order order,
+			final OrderState orderState) {
+		TWSBrokerModel.logOrderState(orderState);
+		TWSBrokerModel.logTradeOrder(order);
+		apply(journal(order, orderState), new Runnable() {
+			public void run() {
+				applyOpenOrder(orderId, order, orderState.m_status, orderState.m_warningText,
+						orderState.m_commission);
+			}
+		});
+	}
 
-			TWSBrokerModel.logOrderState(orderState);
-			TWSBrokerModel.logTradeOrder(order);
+	/**
+	 * Method applyOpenOrder. Update the order from TWS.
+	 * 
+	 * @param orderId
+	 *            int
+	 * @param order
+	 *            com.ib.client.Order
+	 * @param status
+	 *            String the order state status.
+	 * @param warningText
+	 *            String the order state warning text.
+	 * @param commission
+	 *            double the order state commission.
+	 */
+	private void applyOpenOrder(int orderId, com.ib.client.Order order, String status, String warningText,
+			double commission) {
+		try {
 
 			TradeOrder transientInstance = m_tradePersistentModel.findTradeOrderByKey(new Integer(order.m_orderId));
 
@@ -1245,7 +1530,7 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 				transientInstance = new TradeOrder();
 				transientInstance.setOrderKey(order.m_orderId);
 				transientInstance.setCreateDate(TradingCalendar.getDateTimeNowMarketTimeZone());
-				TWSBrokerModel.updateTradeOrder(order, orderState, transientInstance);
+				TWSBrokerModel.updateTradeOrder(order, status, warningText, commission, transientInstance);
 				openOrders.put(transientInstance.getOrderKey(), transientInstance);
 				return;
 			}
@@ -1255,19 +1540,21 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 			 * twice on order fills.
 			 */
 
-			if (TWSBrokerModel.updateTradeOrder(order, orderState, transientInstance)) {
+			if (TWSBrokerModel.updateTradeOrder(order, status, warningText, commission, transientInstance)) {
 
 				if (OrderStatus.FILLED.equals(transientInstance.getStatus())) {
 					_log.debug("Open order filled Order Key:" + transientInstance.getOrderKey());
 					transientInstance = m_tradePersistentModel.persistTradeOrder(transientInstance);
+					m_positionStateService.update(transientInstance);
 
 					if (transientInstance.hasTradePosition() && !transientInstance.getTradePosition().isOpen()) {
 						// Let the controller know a position was closed
 						this.firePositionClosed(transientInstance.getTradePosition());
 					}
 				} else {
-					_log.debug("Open order state changed. Status:" + orderState.m_status);
+					_log.debug("Open order state changed. Status:" + status);
 					transientInstance = m_tradePersistentModel.persistTradeOrder(transientInstance);
+					m_positionStateService.update(transientInstance);
 					if (OrderStatus.CANCELLED.equals(transientInstance.getStatus())) {
 						// Let the controller know a position was closed
 						this.fireTradeOrderCancelled(transientInstance);
@@ -1291,6 +1578,17 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 	 * @see com.ib.client.EWrapper#openOrderEnd()
 	 */
 	public void openOrderEnd() {
+		apply(0, new Runnable() {
+			public void run() {
+				applyOpenOrderEnd();
+			}
+		});
+	}
+
+	/**
+	 * Method applyOpenOrderEnd.
+	 */
+	private void applyOpenOrderEnd() {
 		_log.debug("openOrderEnd");
 		// Let the controller know there are open orders
 		for (TradeOrder openOrder : openOrders.values()) {
@@ -1328,8 +1626,52 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 	 *            String
 	 * @see http://www.interactivebrokers.com/php/apiUsersGuide/apiguide.htm
 	 */
-	public void orderStatus(int orderId, String status, int filled, int remaining, double avgFillPrice, int permId,
-			int parentId, double lastFillPrice, int clientId, String whyHeld) {
+	public void orderStatus(final int orderId, final String status, final int filled, final int remaining,
+			final double avgFillPrice, final int permId, final int parentId, final double lastFillPrice,
+			final int clientId, final String whyHeld) {
+		long position = 0;
+		if (null != m_journal) {
+			try {
+				position = m_journal.orderStatus(orderId, status, filled, remaining, avgFillPrice, permId, parentId,
+						lastFillPrice, clientId, whyHeld);
+			} catch (Exception ex) {
+				error(orderId, 3350, "Error writing broker journal Msg: " + ex.getMessage());
+			}
+		}
+		apply(position, new Runnable() {
+			public void run() {
+				applyOrderStatus(orderId, status, filled, remaining, avgFillPrice, permId, parentId, lastFillPrice,
+						clientId, whyHeld);
+			}
+		});
+	}
+
+	/**
+	 * Method applyOrderStatus. Update the order status.
+	 * 
+	 * @param orderId
+	 *            int
+	 * @param status
+	 *            String
+	 * @param filled
+	 *            int
+	 * @param remaining
+	 *            int
+	 * @param avgFillPrice
+	 *            double
+	 * @param permId
+	 *            int
+	 * @param parentId
+	 *            int
+	 * @param lastFillPrice
+	 *            double
+	 * @param clientId
+	 *            int
+	 * @param whyHeld
+	 *            String
+	 */
+	private void applyOrderStatus(int orderId, String status, int filled, int remaining, double avgFillPrice,
+			int permId, int parentId, double lastFillPrice, int clientId, String whyHeld) {
 		try {
 			TradeOrder transientInstance = m_tradePersistentModel.findTradeOrderByKey(new Integer(orderId));
 			if (null == transientInstance) {
@@ -1372,6 +1714,7 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 
 				boolean isFilled = transientInstance.getIsFilled();
 				transientInstance = m_tradePersistentModel.persistTradeOrder(transientInstance);
+				m_positionStateService.update(transientInstance);
 
 				if (OrderStatus.CANCELLED.equals(transientInstance.getStatus())) {
 					// Let the controller know a position was closed
@@ -1445,6 +1788,13 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 						+ "1/ Making identical historical data requests within 15 seconds. \n"
 						+ "2/ Making six or more historical data requests for the same Contract, Exchange and Tick Type within two seconds. \n"
 						+ "3/ Making more than 60 historical data requests in any ten-minute period.  \n";
+				/*
+				 * 162 is also returned when there is no data, only back off
+				 * and retry for pacing.
+				 */
+				if (null != msg && msg.toLowerCase().contains("pacing")) {
+					HistoricalDataPacer.getInstance().pacingViolation(tradestrategy);
+				}
 			}
 			synchronized (m_historyDataRequests) {
 				m_historyDataRequests.remove(id);
@@ -1534,43 +1884,11 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 	public void tickPrice(int reqId, int field, double value, int canAutoExecute) {
 
 		try {
-
-			BigDecimal price = (new BigDecimal(value)).setScale(SCALE, BigDecimal.ROUND_HALF_EVEN);
-			synchronized (price) {
-				// _log.warn("tickPrice Field: " + field + " value :" + value
-				// + " time: " + System.currentTimeMillis());
-				if (!m_marketDataRequests.containsKey(new Integer(reqId)))
-					return;
-				Contract contract = m_marketDataRequests.get(reqId);
-
-				/*
-				 * Make sure the lastPrice is between the current Bid/Ask as
-				 * prints can come in late in T/S i.e. bad ticks that are
-				 * outside the current Bid/Ask.
-				 */
-
-				for (Tradestrategy tradestrategy : contract.getTradestrategies()) {
-					Contract seriesContract = tradestrategy.getStrategyData().getBaseCandleSeries().getContract();
-
-					switch (field) {
-					case TickType.ASK: {
-						seriesContract.setLastAskPrice(price);
-						break;
-					}
-					case TickType.BID: {
-						seriesContract.setLastBidPrice(price);
-						break;
-					}
-					case TickType.LAST: {
-						seriesContract.setLastPrice(price);
-						break;
-					}
-					default: {
-						break;
-					}
-					}
-				}
-			}
+			/*
+			 * The price is held by the dispatcher and published to the
+			 * strategies contracts at most once per interval.
+			 */
+			m_marketDataDispatcher.tickPrice(reqId, field, value);
 		} catch (Exception ex) {
 			error(reqId, 3210, ex.getMessage());
 		}
@@ -1646,160 +1964,18 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 	public void tickString(int reqId, int field, String value) {
 
 		try {
-
 			/*
 			 * 48 = RTVolume String = last trade price;last trade size;last
 			 * trade time;total volume;vwap;single trade flag
+			 * 
+			 * The dispatcher coalesces the trades and updates the close of
+			 * the forming bar at most once per interval, see
+			 * MarketDataDispatcher.
 			 */
-
-			// _log.info("tickString reqId: " + reqId + " field: " + field
-			// + " value: " + value);
-
-			synchronized (value) {
-
-				if (!m_marketDataRequests.containsKey(new Integer(reqId)))
-					return;
-
-				switch (field) {
-				case TickType.RT_VOLUME: {
-					/*
-					 * If there is no price ignore this value.
-					 */
-					if (value.startsWith(";"))
-						return;
-
-					StringTokenizer st = new StringTokenizer(value, ";");
-					int tokenNumber = 0;
-					BigDecimal price = new BigDecimal(0);
-					ZonedDateTime time = null;
-					while (st.hasMoreTokens()) {
-						tokenNumber++;
-						String token = st.nextToken();
-						switch (tokenNumber) {
-						case 1: {
-							price = (new BigDecimal(Double.parseDouble(token))).setScale(SCALE,
-									BigDecimal.ROUND_HALF_EVEN);
-							break;
-						}
-						case 2: {
-							_log.debug("TickString Trade Size: " + Integer.parseInt(token));
-							break;
-						}
-						case 3: {
-							time = TradingCalendar.getZonedDateTimeFromMilli(Long.parseLong(token));
-							break;
-						}
-						case 4: {
-							_log.debug("TickString Total Volume: " + Integer.parseInt(token) * 100);
-							break;
-						}
-						case 5: {
-							_log.debug("TickString Total Vwap: " + token);
-							break;
-						}
-						case 6: {
-							break;
-						}
-						default: {
-							break;
-						}
-						}
-					}
-
-					if (price.doubleValue() > 0) {
-
-						Contract contract = m_marketDataRequests.get(reqId);
-						// _log.warn("TickString ReqId: " + reqId + " Field: "
-						// + field + " String: " + value);
-						for (Tradestrategy tradestrategy : contract.getTradestrategies()) {
-
-							Contract seriesContract = tradestrategy.getStrategyData().getBaseCandleSeries()
-									.getContract();
-							int index = tradestrategy.getStrategyData().getBaseCandleSeries().indexOf(time);
-							if (index < 0)
-								return;
-
-							CandleItem candleItem = (CandleItem) tradestrategy.getStrategyData().getBaseCandleSeries()
-									.getDataItem(index);
-							if (seriesContract.getLastAskPrice().doubleValue() > 0
-									&& seriesContract.getLastBidPrice().doubleValue() > 0
-									&& (price.doubleValue() <= seriesContract.getLastAskPrice().doubleValue()
-											&& price.doubleValue() >= seriesContract.getLastBidPrice().doubleValue())) {
-
-								if (marketUpdateOnClose && (price.doubleValue() != candleItem.getClose())) {
-
-									candleItem.setClose(price.doubleValue());
-									candleItem.setLastUpdateDate(time);
-									/*
-									 * Note if you want you can fire the series
-									 * change here this will fire runStrategy.
-									 * Could cause problems if the method is not
-									 * synchronized in the strategy when the
-									 * stock is fast running.
-									 */
-									tradestrategy.getStrategyData().getBaseCandleSeries().fireSeriesChanged();
-									/*
-									 * This can be used to update the charts.
-									 * NOTE not recommended for performance
-									 * reasons chart events are slow to update..
-									 */
-									// tradestrategy.getStrategyData()
-									// .getCandleDataset().getSeries(0)
-									// .fireSeriesChanged();
-									// _log.info("TickString Symbol: "
-									// + seriesContract.getSymbol()
-									// + " Trade Time: " + time
-									// + " Price: " + price + " Bid: "
-									// + seriesContract.getLastBidPrice()
-									// + " Ask: "
-									// + seriesContract.getLastAskPrice());
-								} else {
-									if (price.doubleValue() > candleItem.getHigh()
-											|| price.doubleValue() < candleItem.getLow()) {
-										candleItem.setClose(price.doubleValue());
-										candleItem.setLastUpdateDate(time);
-										/*
-										 * Note if you want you can fire the
-										 * series change here this will fire
-										 * runStrategy. Could cause problems if
-										 * the method is not synchronized in the
-										 * strategy when the stock is fast
-										 * running.
-										 */
-										tradestrategy.getStrategyData().getBaseCandleSeries().fireSeriesChanged();
-										/*
-										 * This can be used to update the
-										 * charts. NOTE not recommended for
-										 * performance reasons chart events are
-										 * slow to update..
-										 */
-										// tradestrategy.getStrategyData()
-										// .getCandleDataset().getSeries(0)
-										// .fireSeriesChanged();
-										//
-										// _log.info("TickString Symbol: "
-										// + seriesContract.getSymbol()
-										// + " Trade Time: " + time
-										// + " Price: " + price + " Bid: "
-										// + seriesContract.getLastBidPrice()
-										// + " Ask: "
-										// + seriesContract.getLastAskPrice());
-									}
-								}
-							}
-						}
-					}
-					break;
-				}
-				default: {
-					break;
-				}
-				}
-			}
+			m_marketDataDispatcher.tickString(reqId, field, value);
 		} catch (Exception ex) {
 			error(reqId, 3210, ex.getMessage());
 		}
-
 	}
 
 	/**
@@ -1922,12 +2098,15 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 	 */
 	public void updateAccountValue(String key, String value, String currency, String accountNumber) {
 
-		synchronized (key) {
-
-			_log.debug("updateAccountValue Account#: " + accountNumber + " Key:" + key + " Value:" + value
-					+ " Currency:" + currency);
-			if (m_accountRequests.containsKey(accountNumber)) {
-				Account account = m_accountRequests.get(accountNumber);
+		_log.debug("updateAccountValue Account#: " + accountNumber + " Key:" + key + " Value:" + value + " Currency:"
+				+ currency);
+		Account account = m_accountRequests.get(accountNumber);
+		if (null != account) {
+			/*
+			 * Lock the account so updateAccountTime takes a consistent copy
+			 * to save.
+			 */
+			synchronized (account) {
 				if (key.equals(TWSBrokerModel.ACCOUNTTYPE)) {
 					account.setAccountType(value);
 					account.setDirty(true);
@@ -1977,8 +2156,9 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 
 		try {
 			_log.debug("updateAccountTime:" + timeStamp);
-			for (String accountNumber : m_accountRequests.keySet()) {
-				Account account = m_accountRequests.get(accountNumber);
+			for (final String accountNumber : m_accountRequests.keySet()) {
+				final Account account = m_accountRequests.get(accountNumber);
+				Account snapshot = null;
 				synchronized (account) {
 					/*
 					 * Don't use the incoming time stamp as this does not show
@@ -1986,11 +2166,34 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 					 */
 					if (account.isDirty()) {
 						account.setLastUpdateDate(TradingCalendar.getDateTimeNowMarketTimeZone());
-						account = m_tradePersistentModel.persistAspect(account, true);
-						m_accountRequests.replace(accountNumber, account);
-						this.fireUpdateAccountTime(accountNumber);
+						/*
+						 * Save a copy as updateAccountValue keeps changing the
+						 * account while it waits to be written. The changes in
+						 * the copy are no longer dirty, if the save fails the
+						 * account is marked dirty again so the next update
+						 * retries.
+						 */
+						snapshot = (Account) account.clone();
+						account.setDirty(false);
 					}
 				}
+				if (null != snapshot) {
+					m_tradePersistentModel.persistAspectAsync(snapshot, new AspectWriteListener() {
+						public void aspectSaved(Aspect aspect) {
+							synchronized (account) {
+								account.setVersion(aspect.getVersion());
+							}
+							fireUpdateAccountTime(accountNumber);
+						}
+
+						public void aspectFailed(Aspect aspect, PersistentModelException ex) {
+							synchronized (account) {
+								account.setDirty(true);
+							}
+							error(0, 3310, "Errors updating Trade Account: " + ex.getMessage());
+						}
+					});
+				}
 			}
 		} catch (Exception ex) {
 			error(0, 3310, "Errors updating Trade Account: " + ex.getMessage());
@@ -2493,7 +2696,7 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 								CandleItem candleItem = (CandleItem) strategyData.getBaseCandleSeries()
 										.getDataItem(strategyData.getBaseCandleSeries().getItemCount() - 1);
 								if (updateCandleDB) {
-									m_tradePersistentModel.persistCandle(candleItem.getCandle());
+									m_tradePersistentModel.persistCandleAsync(candleItem.getCandle());
 									updateCandleDB = false;
 								}
 							}
@@ -2561,10 +2764,24 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 	 * @param commsReport
 	 *            com.ib.client.CommissionReport
 	 */
-	public void commissionReport(CommissionReport commsReport) {
+	public void commissionReport(final CommissionReport commsReport) {
+		TWSBrokerModel.logCommissionReport(commsReport);
+		apply(journal(commsReport), new Runnable() {
+			public void run() {
+				applyCommissionReport(commsReport);
+			}
+		});
+	}
+
+	/**
+	 * Method applyCommissionReport. Set the commission on the fill.
+	 * 
+	 * @param commsReport
+	 *            com.ib.client.CommissionReport
+	 */
+	private void applyCommissionReport(CommissionReport commsReport) {
 
 		try {
-			TWSBrokerModel.logCommissionReport(commsReport);
 
 			TradeOrderfill transientInstance = m_tradePersistentModel.findTradeOrderfillByExecId(commsReport.m_execId);
 			if (null != transientInstance) {
@@ -2573,7 +2790,9 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 				for (TradeOrderfill tradeOrderfill : tradeOrder.getTradeOrderfills()) {
 					if (tradeOrderfill.getExecId().equals(commsReport.m_execId)) {
 						tradeOrderfill.setCommission(new BigDecimal(commsReport.m_commission));
-						m_tradePersistentModel.persistTradeOrderfill(tradeOrderfill.getTradeOrder());
+						TradeOrder updatedOrder = m_tradePersistentModel
+								.persistTradeOrderfill(tradeOrderfill.getTradeOrder());
+						m_positionStateService.update(updatedOrder);
 						return;
 					}
 				}
@@ -2913,19 +3132,41 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper {
 	 */
 	public static boolean updateTradeOrder(com.ib.client.Order ibOrder, com.ib.client.OrderState ibOrderState,
 			TradeOrder order) throws ParseException {
+		return updateTradeOrder(ibOrder, ibOrderState.m_status, ibOrderState.m_warningText,
+				ibOrderState.m_commission, order);
+	}
+
+	/**
+	 * Method updateTradeOrder.
+	 * 
+	 * @param ibOrder
+	 *            com.ib.client.Order
+	 * @param status
+	 *            String the order state status.
+	 * @param warningText
+	 *            String the order state warning text.
+	 * @param commission
+	 *            double the order state commission.
+	 * @param order
+	 *            TradeOrder
+	 * @return boolean
+	 * @throws ParseException
+	 */
+	public static boolean updateTradeOrder(com.ib.client.Order ibOrder, String status, String warningText,
+			double commission, TradeOrder order) throws ParseException {
 
 		boolean changed = false;
 
 		if (CoreUtils.nullSafeComparator(order.getOrderKey(), ibOrder.m_orderId) == 0) {
-			if (CoreUtils.nullSafeComparator(order.getStatus(), ibOrderState.m_status.toUpperCase()) != 0) {
-				order.setStatus(ibOrderState.m_status.toUpperCase());
+			if (CoreUtils.nullSafeComparator(order.getStatus(), status.toUpperCase()) != 0) {
+				order.setStatus(status.toUpperCase());
 				changed = true;
 			}
-			if (CoreUtils.nullSafeComparator(order.getWarningMessage(), ibOrderState.m_warningText) != 0) {
-				order.setWarningMessage(ibOrderState.m_warningText);
+			if (CoreUtils.nullSafeComparator(order.getWarningMessage(), warningText) != 0) {
+				order.setWarningMessage(warningText);
 				changed = true;
 			}
-			Money comms = new Money(ibOrderState.m_commission);
+			Money comms = new Money(commission);
 			if (CoreUtils.nullSafeComparator(comms, new Money(Double.MAX_VALUE)) != 0) {
 				if (CoreUtils.nullSafeComparator(order.getCommission(), comms.getBigDecimalValue()) != 0) {
 					order.setCommission(comms.getBigDecimalValue());
@@ -45,20 +45,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.trade.core.factory.ClassFactory;
 import org.trade.core.properties.ConfigProperties;
-import org.trade.core.util.CoreUtils;
 import org.trade.core.util.TradingCalendar;
-import org.trade.dictionary.valuetype.Action;
-import org.trade.dictionary.valuetype.OrderStatus;
-import org.trade.dictionary.valuetype.OrderType;
-import org.trade.dictionary.valuetype.Side;
 import org.trade.persistent.PersistentModel;
 import org.trade.persistent.PersistentModelException;
 import org.trade.persistent.dao.Candle;
 import org.trade.persistent.dao.Contract;
 import org.trade.persistent.dao.TradestrategyOrders;
 import org.trade.persistent.dao.Strategy;
-import org.trade.persistent.dao.TradeOrder;
-import org.trade.persistent.dao.TradeOrderfill;
 import org.trade.persistent.dao.Tradestrategy;
 import org.trade.strategy.data.CandleDataset;
 import org.trade.strategy.data.CandleSeries;
@@ -77,10 +70,7 @@ public class DBBroker extends Broker {
 	private Tradestrategy tradestrategy = null;
 	private Integer idTradestrategy = null;
 	private ClientWrapper brokerModel = null;
-	private BigDecimal trailAmount = null;
-	private BigDecimal trailLimitOffsetAmount = null;
-
-	private long execId = TradingCalendar.geMillisFromZonedDateTime(TradingCalendar.getDateTimeNowMarketTimeZone());
+	private OrderFillSimulator orderFillSimulator = null;
 
 	private static Integer _backTestBarSize = 0;
 
@@ -106,6 +96,7 @@ public class DBBroker extends Broker {
 		this.idTradestrategy = idTradestrategy;
 		this.brokerModel = brokerModel;
 		this.strategyData = strategyData;
+		this.orderFillSimulator = new OrderFillSimulator(brokerModel);
 	}
 
 	/**
@@ -123,41 +114,8 @@ public class DBBroker extends Broker {
 			this.strategyData.clearBaseCandleDataset();
 			this.tradestrategy.setStrategyData(this.strategyData);
 
-			ZonedDateTime endDate = TradingCalendar.getDateAtTime(
-					TradingCalendar.getPrevTradingDay(tradestrategy.getTradingday().getClose()),
-					tradestrategy.getTradingday().getClose());
-			ZonedDateTime startDate = TradingCalendar.addTradingDays(tradestrategy.getTradingday().getClose(),
-					(-1 * (tradestrategy.getChartDays() - 1)));
-			startDate = TradingCalendar.getDateAtTime(startDate, tradestrategy.getTradingday().getOpen());
-			endDate = TradingCalendar.addTradingDays(endDate, -1);
-
-			List<Candle> candles = new ArrayList<>();
-			List<Candle> candlesTradingday = new ArrayList<>();
-			candles = this.getCandles(this.tradestrategy, startDate, endDate, this.tradestrategy.getBarSize());
-
-			if (_backTestBarSize > 0) {
-
-				/*
-				 * Try and find the candles in the database with the matching
-				 * barSize or the next lowest.
-				 */
-				candlesTradingday = this.getCandles(this.tradestrategy, this.tradestrategy.getTradingday().getOpen(),
-						this.tradestrategy.getTradingday().getOpen(), _backTestBarSize);
-
-				if (candlesTradingday.isEmpty()) {
-					_log.warn("No backTestBarSize = " + _backTestBarSize + " data available for "
-							+ this.tradestrategy.getContract().getSymbol() + " and Tradingday: "
-							+ this.tradestrategy.getTradingday().getOpen() + " will use barSize = "
-							+ this.tradestrategy.getBarSize() + " data if avaialble.");
-					candlesTradingday = this.getCandles(this.tradestrategy,
-							this.tradestrategy.getTradingday().getOpen(), this.tradestrategy.getTradingday().getOpen(),
-							this.tradestrategy.getBarSize());
-				}
-
-			} else {
-				candlesTradingday = this.getCandles(this.tradestrategy, this.tradestrategy.getTradingday().getOpen(),
-						this.tradestrategy.getTradingday().getOpen(), this.tradestrategy.getBarSize());
-			}
+			List<Candle> candles = findChartCandles(this.tradePersistentModel, this.tradestrategy);
+			List<Candle> candlesTradingday = findTradingdayCandles(this.tradePersistentModel, this.tradestrategy);
 
 			/*
 			 * Wait for the strategy to start.
@@ -183,8 +141,8 @@ public class DBBroker extends Broker {
 				/*
 				 * Populate any child datasets.
 				 */
-				populateIndicatorCandleSeries(tradestrategy, this.tradestrategy.getTradingday().getOpen(),
-						this.tradestrategy.getTradingday().getOpen());
+				populateIndicatorCandleSeries(this.tradePersistentModel, tradestrategy,
+						this.tradestrategy.getTradingday().getOpen(), this.tradestrategy.getTradingday().getOpen());
 
 			}
 
@@ -234,7 +192,7 @@ public class DBBroker extends Broker {
 				 * The new candle may create an order so this call fills it and
 				 * return whether this is opening a position.
 				 */
-				if (filledOrders(this.tradestrategy.getContract(), positionOrders, candle)) {
+				if (this.orderFillSimulator.filledOrders(this.tradestrategy.getContract(), positionOrders, candle)) {
 
 					/*
 					 * Need to recall fillOrders as this is a new open position
@@ -278,7 +236,8 @@ public class DBBroker extends Broker {
 								 */
 								positionOrders = this.tradePersistentModel
 										.findPositionOrdersByTradestrategyId(this.idTradestrategy);
-								filledOrders(this.tradestrategy.getContract(), positionOrders, candle);
+								this.orderFillSimulator.filledOrders(this.tradestrategy.getContract(), positionOrders,
+										candle);
 							}
 						}
 					}
@@ -317,345 +276,69 @@ public class DBBroker extends Broker {
 	}
 
 	/**
-	 * Method filledOrders.
+	 * Method findChartCandles. Get the candles for the chart days that
+	 * precede the Tradestrategy's Tradingday. These are used to prime the
+	 * indicators before the Tradingday is replayed.
 	 * 
-	 * @param contract
-	 *            Contract
-	 * @param trade
-	 *            Trade
-	 * @param candle
-	 *            Candle
-	 * @return boolean
-	 * @throws Exception
+	 * @param tradePersistentModel
+	 *            PersistentModel
+	 * @param tradestrategy
+	 *            Tradestrategy
+	 * @return List<Candle>
+	 * @throws PersistentModelException
 	 */
-	private boolean filledOrders(Contract contract, TradestrategyOrders positionOrders, Candle candle)
-			throws Exception {
-
-		boolean orderfilled = false;
-		for (TradeOrder order : positionOrders.getTradeOrders()) {
-			if (OrderStatus.UNSUBMIT.equals(order.getStatus())) {
-				/*
-				 * Can't use the com.ib.client.OrderState as constructor is no
-				 * visible.
-				 */
-				OrderState orderState = new OrderState();
-				orderState.m_status = OrderStatus.SUBMITTED;
-				this.brokerModel.openOrder(order.getOrderKey(), contract, order, orderState);
-				/*
-				 * TODO we should read the orders back after any call to the
-				 * broker interface.
-				 */
-				order.setStatus(OrderStatus.SUBMITTED);
-			}
-		}
-		for (TradeOrder order : positionOrders.getTradeOrders()) {
-			if (OrderStatus.SUBMITTED.equals(order.getStatus()) && order.getTransmit()) {
-
-				BigDecimal filledPrice = getFilledPrice(order, candle);
-				if (null != filledPrice) {
-					if (!orderfilled)
-						orderfilled = true;
-
-					if (null == order.getOcaGroupName()) {
-						createOrderExecution(contract, order, filledPrice, candle.getStartPeriod());
-					} else {
-						// If OCA cancel other side
-						for (TradeOrder orderOCA : positionOrders.getTradeOrders()) {
-							if (orderOCA.isDirty())
-								continue;
-
-							if (order.getOcaGroupName().equals(orderOCA.getOcaGroupName())
-									&& !order.getOrderKey().equals(orderOCA.getOrderKey()) && !orderOCA.getIsFilled()) {
-								BigDecimal orderOCAFilledPrice = getFilledPrice(orderOCA, candle);
-
-								if (null != orderOCAFilledPrice) {
-									/*
-									 * Other side of order could have been
-									 * filled on this bar also. So assume the if
-									 * a green bar we went open/low/high/close.
-									 */
-									if (candle.getClose().compareTo(candle.getOpen()) > 0) {
-										// Green bar
-										if (filledPrice.compareTo(orderOCAFilledPrice) > 0) {
-											cancelOrder(contract, order);
-											order.setDirty(true);
-											createOrderExecution(contract, orderOCA, orderOCAFilledPrice,
-													candle.getStartPeriod());
-											orderOCA.setDirty(true);
-											break;
-										}
-									} else {
-										if (filledPrice.compareTo(orderOCAFilledPrice) < 0) {
-											cancelOrder(contract, order);
-											order.setDirty(true);
-											createOrderExecution(contract, orderOCA, orderOCAFilledPrice,
-													candle.getStartPeriod());
-											orderOCA.setDirty(true);
-											break;
-										}
-									}
-								}
-								cancelOrder(contract, orderOCA);
-								orderOCA.setDirty(true);
-								createOrderExecution(contract, order, filledPrice, candle.getStartPeriod());
-								order.setDirty(true);
-								break;
-							}
-						}
-					}
-				}
-			}
-		}
-		return orderfilled;
+	public static List<Candle> findChartCandles(PersistentModel tradePersistentModel, Tradestrategy tradestrategy)
+			throws PersistentModelException {
+
+		ZonedDateTime endDate = TradingCalendar.getDateAtTime(
+				TradingCalendar.getPrevTradingDay(tradestrategy.getTradingday().getClose()),
+				tradestrategy.getTradingday().getClose());
+		ZonedDateTime startDate = TradingCalendar.addTradingDays(tradestrategy.getTradingday().getClose(),
+				(-1 * (tradestrategy.getChartDays() - 1)));
+		startDate = TradingCalendar.getDateAtTime(startDate, tradestrategy.getTradingday().getOpen());
+		endDate = TradingCalendar.addTradingDays(endDate, -1);
+		return getCandles(tradePersistentModel, tradestrategy, startDate, endDate, tradestrategy.getBarSize());
 	}
 
 	/**
-	 * Method getFilledPrice.
+	 * Method findTradingdayCandles. Get the candles to replay for the
+	 * Tradestrategy's Tradingday. If trade.backtest.barSize is set try and
+	 * find the candles in the database with that barSize or the next lowest
+	 * otherwise use the Tradestrategy barSize.
 	 * 
-	 * @param order
-	 *            TradeOrder
-	 * @param candle
-	 *            Candle
-	 * @return BigDecimal
+	 * @param tradePersistentModel
+	 *            PersistentModel
+	 * @param tradestrategy
+	 *            Tradestrategy
+	 * @return List<Candle>
+	 * @throws PersistentModelException
 	 */
-	private BigDecimal getFilledPrice(TradeOrder order, Candle candle) {
-
-		if (order.getCreateDate().isAfter(candle.getLastUpdateDate())) {
-			return null;
-		}
+	public static List<Candle> findTradingdayCandles(PersistentModel tradePersistentModel,
+			Tradestrategy tradestrategy) throws PersistentModelException {
 
-		/*
-		 * Use the close price for market orders as the candle has been
-		 * processed by the Strategy at this point. Note assume mkt orders are
-		 * always filled.
-		 */
-		if (OrderType.MKT.equals(order.getOrderType()))
-			return candle.getClose();
-
-		/*
-		 * There must be enough volume to fill the unfilled quantity. For none
-		 * market orders.
-		 * 
-		 * TODO add logic to handle partial fills.
-		 */
-		if (candle.getVolume() < order.getQuantity())
-			return null;
-
-		/*
-		 * Set the AuxPrice to the trailing amount.
-		 */
-		if (OrderType.TRAIL.equals(order.getOrderType()) || OrderType.TRAILLIMIT.equals(order.getOrderType())) {
-			/*
-			 * First time in set the trailAmount which will be the trailing
-			 * amount note AuxPrice doubles as a holder for this values until
-			 * the price triggers this value to be set to the trailing price.
-			 * i.e first time in it is set to the current price -0.12c then once
-			 * the price moves up the trail is reset to current - 0.12c for a
-			 * long position.
-			 * 
-			 * Note first time in the AuxPrice is trail amount i.e 0.12c behind
-			 * close price. The Limit price is the LimitOffSet i.e 0.04c so
-			 * SPTLMT order when current price is 63.22 this sets up a STPLMT
-			 * order with stop price at 63.10 and Limit at 63.06.
-			 * 
-			 * The Trailing Stop Price holds the starting point for the Stop
-			 * price if this field is specified and if is less than the current
-			 * market price for a Long position.
-			 */
+		List<Candle> candlesTradingday = new ArrayList<>();
+		if (_backTestBarSize > 0) {
 
-			if (null != order.getAuxPrice()) {
-				if (null == trailAmount) {
-					trailAmount = order.getAuxPrice();
-					trailLimitOffsetAmount = order.getLimitPrice();
-					order.setAuxPrice((Action.SELL.equals(order.getAction()) ? candle.getClose().subtract(trailAmount)
-							: candle.getClose().add(trailAmount)));
-				}
-
-			} else {
-				if (null != order.getTrailingPercent()) {
-					if (null == trailAmount) {
-						trailAmount = (candle.getClose().multiply(order.getTrailingPercent()))
-								.divide(new BigDecimal(100));
-						trailLimitOffsetAmount = order.getLimitPrice();
-						if (null != order.getTrailStopPrice()) {
-							if (Action.SELL.equals(order.getAction())
-									&& -1 == order.getTrailStopPrice().compareTo(candle.getClose())) {
-								order.setAuxPrice(order.getTrailStopPrice());
-							} else if (Action.BUY.equals(order.getAction())
-									&& 1 == order.getTrailStopPrice().compareTo(candle.getClose())) {
-								order.setAuxPrice(order.getTrailStopPrice());
-							}
-
-						} else {
-							order.setAuxPrice((Action.SELL.equals(order.getAction())
-									? candle.getClose().subtract(trailAmount) : candle.getClose().add(trailAmount)));
-							order.setLimitPrice((Action.SELL.equals(order.getAction())
-									? candle.getClose().subtract(trailAmount.subtract(trailLimitOffsetAmount))
-									: candle.getClose().add(trailAmount.add(trailLimitOffsetAmount))));
-						}
-					}
-				}
-			}
-			BigDecimal avgFillPrice = null;
-			if (order.hasTradePosition()) {
-				avgFillPrice = order.getTradePosition().getTotalNetValue()
-						.divide(new BigDecimal(order.getTradePosition().getOpenQuantity()));
-			} else {
-				avgFillPrice = candle.getClose();
-			}
+			candlesTradingday = getCandles(tradePersistentModel, tradestrategy,
+					tradestrategy.getTradingday().getOpen(), tradestrategy.getTradingday().getOpen(),
+					_backTestBarSize);
 
-			/*
-			 * Only trigger the trailing when we are aover/under the average
-			 * fill price of the position. Otherwise the stop price will be
-			 * either that which was set in TrailStopPrice or the market price
-			 * when the order was first submitted. i.e candle.close - trail
-			 * amt/percent
-			 */
-			if (Action.SELL.equals(order.getAction()) && (1 == candle.getClose().compareTo(avgFillPrice))) {
-				if (1 == candle.getClose().subtract(trailAmount).compareTo(order.getAuxPrice())) {
-					order.setAuxPrice(candle.getClose().subtract(trailAmount));
-					if (OrderType.TRAILLIMIT.equals(order.getOrderType())) {
-						order.setLimitPrice(candle.getClose().subtract(trailAmount.subtract(trailLimitOffsetAmount)));
-					}
-				}
-			}
-			if (Action.BUY.equals(order.getAction()) && (-1 == candle.getClose().compareTo(avgFillPrice))) {
-				if (-1 == candle.getClose().add(trailAmount).compareTo(order.getAuxPrice())) {
-					order.setAuxPrice(candle.getClose().add(trailAmount));
-					if (OrderType.TRAILLIMIT.equals(order.getOrderType())) {
-						order.setLimitPrice(candle.getClose().add(trailAmount.add(trailLimitOffsetAmount)));
-					}
-				}
-			}
-		}
-
-		if (Action.SELL.equals(order.getAction())) {
-			if (OrderType.STP.equals(order.getOrderType()) || OrderType.TRAIL.equals(order.getOrderType())) {
-				if (candle.getLow().compareTo(order.getAuxPrice()) < 1) {
-					if (candle.getOpen().compareTo(order.getAuxPrice()) < 1) {
-						return candle.getOpen();
-					}
-					return order.getAuxPrice();
-				}
-			} else if (OrderType.STPLMT.equals(order.getOrderType())
-					|| OrderType.TRAILLIMIT.equals(order.getOrderType())) {
-				if (candle.getLow().compareTo(order.getAuxPrice()) < 1
-						&& candle.getHigh().compareTo(order.getLimitPrice()) > -1) {
-					if (candle.getOpen().compareTo(order.getAuxPrice()) > -1) {
-						return order.getAuxPrice();
-					} else {
-						if (CoreUtils.isBetween(order.getAuxPrice(), order.getLimitPrice(), candle.getOpen())) {
-							return candle.getOpen();
-						} else {
-							if (candle.getOpen().compareTo(order.getLimitPrice()) < 1) {
-								return order.getLimitPrice();
-							}
-						}
-					}
-				}
-			} else if (OrderType.LMT.equals(order.getOrderType())) {
-				if (candle.getHigh().compareTo(order.getLimitPrice()) > -1) {
-					if (candle.getOpen().compareTo(order.getLimitPrice()) > -1) {
-						return candle.getOpen();
-					}
-					return order.getLimitPrice();
-				}
-			}
-
-		} else {
-			if (OrderType.STP.equals(order.getOrderType()) || OrderType.TRAIL.equals(order.getOrderType())) {
-				if (candle.getHigh().compareTo(order.getAuxPrice()) > -1) {
-					if (candle.getOpen().compareTo(order.getAuxPrice()) > -1) {
-						return candle.getOpen();
-					}
-					return order.getAuxPrice();
-				}
-			} else if (OrderType.STPLMT.equals(order.getOrderType())
-					|| OrderType.TRAILLIMIT.equals(order.getOrderType())) {
-				if (candle.getHigh().compareTo(order.getAuxPrice()) > -1
-						&& candle.getLow().compareTo(order.getLimitPrice()) < 1) {
-					if (candle.getOpen().compareTo(order.getAuxPrice()) < 1) {
-						return order.getAuxPrice();
-					} else {
-						if (CoreUtils.isBetween(order.getAuxPrice(), order.getLimitPrice(), candle.getOpen())) {
-							return candle.getOpen();
-						} else {
-							if (candle.getOpen().compareTo(order.getLimitPrice()) > -1) {
-								return order.getLimitPrice();
-							}
-						}
-					}
-				}
-
-			} else if (OrderType.LMT.equals(order.getOrderType())) {
-				if (candle.getLow().compareTo(order.getLimitPrice()) < 1) {
-					if (candle.getOpen().compareTo(order.getLimitPrice()) < 1) {
-						return candle.getOpen();
-					}
-					return order.getLimitPrice();
-				}
+			if (candlesTradingday.isEmpty()) {
+				_log.warn("No backTestBarSize = " + _backTestBarSize + " data available for "
+						+ tradestrategy.getContract().getSymbol() + " and Tradingday: "
+						+ tradestrategy.getTradingday().getOpen() + " will use barSize = "
+						+ tradestrategy.getBarSize() + " data if avaialble.");
+				candlesTradingday = getCandles(tradePersistentModel, tradestrategy,
+						tradestrategy.getTradingday().getOpen(), tradestrategy.getTradingday().getOpen(),
+						tradestrategy.getBarSize());
 			}
-		}
-		return null;
-	}
 
-	/**
-	 * Method createOrderExecution.
-	 * 
-	 * @param contract
-	 *            Contract
-	 * @param order
-	 *            TradeOrder
-	 * @param filledPrice
-	 *            BigDecimal
-	 * @param date
-	 *            Date
-	 * @throws IOException
-	 */
-	private void createOrderExecution(Contract contract, TradeOrder order, BigDecimal filledPrice, ZonedDateTime date)
-			throws IOException {
-
-		double commission = order.getQuantity() * 0.005d;
-		if (commission < 1) {
-			commission = 1;
-		}
-
-		TradeOrderfill execution = new TradeOrderfill();
-		execution.setTradeOrder(order);
-		execution.setAveragePrice(filledPrice);
-		execution.setCommission(new BigDecimal(commission));
-		execution.setCumulativeQuantity(order.getQuantity());
-		execution.setExchange("BATS");
-		execution.setPrice(filledPrice);
-		execution.setTime(date);
-		if (Action.BUY.equals(order.getAction())) {
-			execution.setSide(Side.BOT);
 		} else {
-			execution.setSide(Side.SLD);
+			candlesTradingday = getCandles(tradePersistentModel, tradestrategy,
+					tradestrategy.getTradingday().getOpen(), tradestrategy.getTradingday().getOpen(),
+					tradestrategy.getBarSize());
 		}
-		execution.setQuantity(order.getQuantity());
-		execution.setExecId(String.valueOf(execId++));
-		this.brokerModel.execDetails(execution.getTradeOrder().getOrderKey(), contract, execution);
-		OrderState orderState = new OrderState();
-		orderState.m_status = OrderStatus.FILLED;
-		orderState.m_commission = commission;
-		this.brokerModel.openOrder(order.getOrderKey(), contract, order, orderState);
-	}
-
-	/**
-	 * Method cancelOrder.
-	 * 
-	 * @param contract
-	 *            Contract
-	 * @param order
-	 *            TradeOrder
-	 * @throws IOException
-	 */
-	private void cancelOrder(Contract contract, TradeOrder order) throws IOException {
-		OrderState orderState = new OrderState();
-		orderState.m_status = OrderStatus.CANCELLED;
-		this.brokerModel.openOrder(order.getOrderKey(), contract, order, orderState);
-		order.setStatus(OrderStatus.CANCELLED);
+		return candlesTradingday;
 	}
 
 	/**
@@ -664,6 +347,8 @@ public class DBBroker extends Broker {
 	 * tradestrategy already exist share this with any other tradestrategy that
 	 * requires this.
 	 * 
+	 * @param tradePersistentModel
+	 *            PersistentModel
 	 * @param tradestrategy
 	 *            Tradestrategy
 	 * @param startDate
@@ -672,8 +357,9 @@ public class DBBroker extends Broker {
 	 *            ZonedDateTime
 	 * @throws PersistentModelException
 	 */
-	private void populateIndicatorCandleSeries(Tradestrategy tradestrategy, ZonedDateTime startDate,
-			ZonedDateTime endDate) throws PersistentModelException {
+	public static void populateIndicatorCandleSeries(PersistentModel tradePersistentModel,
+			Tradestrategy tradestrategy, ZonedDateTime startDate, ZonedDateTime endDate)
+			throws PersistentModelException {
 
 		CandleDataset candleDataset = (CandleDataset) tradestrategy.getStrategyData()
 				.getIndicatorByType(IndicatorSeries.CandleSeries);
@@ -682,7 +368,7 @@ public class DBBroker extends Broker {
 
 				CandleSeries series = candleDataset.getSeries(seriesIndex);
 
-				Contract contract = this.tradePersistentModel.findContractByUniqueKey(series.getSecType(),
+				Contract contract = tradePersistentModel.findContractByUniqueKey(series.getSecType(),
 						series.getSymbol(), series.getExchange(), series.getCurrency(), null);
 				if (null == contract)
 					continue;
@@ -692,7 +378,7 @@ public class DBBroker extends Broker {
 						tradestrategy.getChartDays(), tradestrategy.getBarSize());
 				childTradestrategy.setDirty(false);
 
-				List<Candle> indicatorCandles = this.tradePersistentModel.findCandlesByContractDateRangeBarSize(
+				List<Candle> indicatorCandles = tradePersistentModel.findCandlesByContractDateRangeBarSize(
 						childTradestrategy.getContract().getIdContract(), startDate, endDate,
 						childTradestrategy.getBarSize());
 				if (indicatorCandles.isEmpty()) {
@@ -722,6 +408,8 @@ public class DBBroker extends Broker {
 	 * Method getCandles. Try to get the candles based the current barSize or
 	 * less. barSizes must be integer divisible.
 	 * 
+	 * @param tradePersistentModel
+	 *            PersistentModel
 	 * @param tradestrategy
 	 *            Tradestrategy
 	 * @param startDate
@@ -735,8 +423,8 @@ public class DBBroker extends Broker {
 	 * @throws PersistentModelException
 	 */
 
-	private List<Candle> getCandles(Tradestrategy tradestrategy, ZonedDateTime startDate, ZonedDateTime endDate,
-			int barSize) throws PersistentModelException {
+	private static List<Candle> getCandles(PersistentModel tradePersistentModel, Tradestrategy tradestrategy,
+			ZonedDateTime startDate, ZonedDateTime endDate, int barSize) throws PersistentModelException {
 		List<Candle> candles = new ArrayList<Candle>(0);
 		int[] barSizes = { 3600, 1800, 900, 300, 120, 60, 30 };
 		for (int size : barSizes) {
@@ -0,0 +1,422 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.broker.client;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+
+import org.trade.core.util.CoreUtils;
+import org.trade.core.util.TradingCalendar;
+import org.trade.dictionary.valuetype.Action;
+import org.trade.dictionary.valuetype.OrderStatus;
+import org.trade.dictionary.valuetype.OrderType;
+import org.trade.dictionary.valuetype.Side;
+import org.trade.persistent.dao.Candle;
+import org.trade.persistent.dao.Contract;
+import org.trade.persistent.dao.TradeOrder;
+import org.trade.persistent.dao.TradeOrderfill;
+import org.trade.persistent.dao.TradestrategyOrders;
+
+/**
+ * Simulates the exchange for back testing. Orders that are working against a
+ * Tradestrategy are filled from the OHLC of each replayed candle and the
+ * resulting executions/order states are sent to the ClientWrapper as if they
+ * came from the broker.
+ * 
+ * One instance should be used per Tradestrategy as trailing stop amounts are
+ * held between candles.
+ */
+public class OrderFillSimulator {
+
+	private ClientWrapper brokerModel = null;
+	private BigDecimal trailAmount = null;
+	private BigDecimal trailLimitOffsetAmount = null;
+
+	private long execId = TradingCalendar.geMillisFromZonedDateTime(TradingCalendar.getDateTimeNowMarketTimeZone());
+
+	/**
+	 * Constructor for OrderFillSimulator.
+	 * 
+	 * @param brokerModel
+	 *            ClientWrapper that receives the executions and order states.
+	 */
+	public OrderFillSimulator(ClientWrapper brokerModel) {
+		this.brokerModel = brokerModel;
+	}
+
+	/**
+	 * Method filledOrders.
+	 * 
+	 * @param contract
+	 *            Contract
+	 * @param trade
+	 *            Trade
+	 * @param candle
+	 *            Candle
+	 * @return boolean
+	 * @throws Exception
+	 */
+	public boolean filledOrders(Contract contract, TradestrategyOrders positionOrders, Candle candle)
+			throws Exception {
+
+		boolean orderfilled = false;
+		for (TradeOrder order : positionOrders.getTradeOrders()) {
+			if (OrderStatus.UNSUBMIT.equals(order.getStatus())) {
+				/*
+				 * Can't use the com.ib.client.OrderState as constructor is no
+				 * visible.
+				 */
+				OrderState orderState = new OrderState();
+				orderState.m_status = OrderStatus.SUBMITTED;
+				this.brokerModel.openOrder(order.getOrderKey(), contract, order, orderState);
+				/*
+				 * TODO we should read the orders back after any call to the
+				 * broker interface.
+				 */
+				order.setStatus(OrderStatus.SUBMITTED);
+			}
+		}
+		for (TradeOrder order : positionOrders.getTradeOrders()) {
+			if (OrderStatus.SUBMITTED.equals(order.getStatus()) && order.getTransmit()) {
+
+				BigDecimal filledPrice = getFilledPrice(order, candle);
+				if (null != filledPrice) {
+					if (!orderfilled)
+						orderfilled = true;
+
+					if (null == order.getOcaGroupName()) {
+						createOrderExecution(contract, order, filledPrice, candle.getStartPeriod());
+					} else {
+						// If OCA cancel other side
+						for (TradeOrder orderOCA : positionOrders.getTradeOrders()) {
+							if (orderOCA.isDirty())
+								continue;
+
+							if (order.getOcaGroupName().equals(orderOCA.getOcaGroupName())
+									&& !order.getOrderKey().equals(orderOCA.getOrderKey()) && !orderOCA.getIsFilled()) {
+								BigDecimal orderOCAFilledPrice = getFilledPrice(orderOCA, candle);
+
+								if (null != orderOCAFilledPrice) {
+									/*
+									 * Other side of order could have been
+									 * filled on this bar also. So assume the if
+									 * a green bar we went open/low/high/close.
+									 */
+									if (candle.getClose().compareTo(candle.getOpen()) > 0) {
+										// Green bar
+										if (filledPrice.compareTo(orderOCAFilledPrice) > 0) {
+											cancelOrder(contract, order);
+											order.setDirty(true);
+											createOrderExecution(contract, orderOCA, orderOCAFilledPrice,
+													candle.getStartPeriod());
+											orderOCA.setDirty(true);
+											break;
+										}
+									} else {
+										if (filledPrice.compareTo(orderOCAFilledPrice) < 0) {
+											cancelOrder(contract, order);
+											order.setDirty(true);
+											createOrderExecution(contract, orderOCA, orderOCAFilledPrice,
+													candle.getStartPeriod());
+											orderOCA.setDirty(true);
+											break;
+										}
+									}
+								}
+								cancelOrder(contract, orderOCA);
+								orderOCA.setDirty(true);
+								createOrderExecution(contract, order, filledPrice, candle.getStartPeriod());
+								order.setDirty(true);
+								break;
+							}
+						}
+					}
+				}
+			}
+		}
+		return orderfilled;
+	}
+
+	/**
+	 * Method getFilledPrice.
+	 * 
+	 * @param order
+	 *            TradeOrder
+	 * @param candle
+	 *            Candle
+	 * @return BigDecimal
+	 */
+	private BigDecimal getFilledPrice(TradeOrder order, Candle candle) {
+
+		if (order.getCreateDate().isAfter(candle.getLastUpdateDate())) {
+			return null;
+		}
+
+		/*
+		 * Use the close price for market orders as the candle has been
+		 * processed by the Strategy at this point. Note assume mkt orders are
+		 * always filled.
+		 */
+		if (OrderType.MKT.equals(order.getOrderType()))
+			return candle.getClose();
+
+		/*
+		 * There must be enough volume to fill the unfilled quantity. For none
+		 * market orders.
+		 * 
+		 * TODO add logic to handle partial fills.
+		 */
+		if (candle.getVolume() < order.getQuantity())
+			return null;
+
+		/*
+		 * Set the AuxPrice to the trailing amount.
+		 */
+		if (OrderType.TRAIL.equals(order.getOrderType()) || OrderType.TRAILLIMIT.equals(order.getOrderType())) {
+			/*
+			 * First time in set the trailAmount which will be the trailing
+			 * amount note AuxPrice doubles as a holder for this values until
+			 * the price triggers this value to be set to the trailing price.
+			 * i.e first time in it is set to the current price -0.12c then once
+			 * the price moves up the trail is reset to current - 0.12c for a
+			 * long position.
+			 * 
+			 * Note first time in the AuxPrice is trail amount i.e 0.12c behind
+			 * close price. The Limit price is the LimitOffSet i.e 0.04c so
+			 * SPTLMT order when current price is 63.22 this sets up a STPLMT
+			 * order with stop price at 63.10 and Limit at 63.06.
+			 * 
+			 * The Trailing Stop Price holds the starting point for the Stop
+			 * price if this field is specified and if is less than the current
+			 * market price for a Long position.
+			 */
+
+			if (null != order.getAuxPrice()) {
+				if (null == trailAmount) {
+					trailAmount = order.getAuxPrice();
+					trailLimitOffsetAmount = order.getLimitPrice();
+					order.setAuxPrice((Action.SELL.equals(order.getAction()) ? candle.getClose().subtract(trailAmount)
+							: candle.getClose().add(trailAmount)));
+				}
+
+			} else {
+				if (null != order.getTrailingPercent()) {
+					if (null == trailAmount) {
+						trailAmount = (candle.getClose().multiply(order.getTrailingPercent()))
+								.divide(new BigDecimal(100));
+						trailLimitOffsetAmount = order.getLimitPrice();
+						if (null != order.getTrailStopPrice()) {
+							if (Action.SELL.equals(order.getAction())
+									&& -1 == order.getTrailStopPrice().compareTo(candle.getClose())) {
+								order.setAuxPrice(order.getTrailStopPrice());
+							} else if (Action.BUY.equals(order.getAction())
+									&& 1 == order.getTrailStopPrice().compareTo(candle.getClose())) {
+								order.setAuxPrice(order.getTrailStopPrice());
+							}
+
+						} else {
+							order.setAuxPrice((Action.SELL.equals(order.getAction())
+									? candle.getClose().subtract(trailAmount) : candle.getClose().add(trailAmount)));
+							order.setLimitPrice((Action.SELL.equals(order.getAction())
+									? candle.getClose().subtract(trailAmount.subtract(trailLimitOffsetAmount))
+									: candle.getClose().add(trailAmount.add(trailLimitOffsetAmount))));
+						}
+					}
+				}
+			}
+			BigDecimal avgFillPrice = null;
+			if (order.hasTradePosition()) {
+				avgFillPrice = order.getTradePosition().getTotalNetValue()
+						.divide(new BigDecimal(order.getTradePosition().getOpenQuantity()));
+			} else {
+				avgFillPrice = candle.getClose();
+			}
+
+			/*
+			 * Only trigger the trailing when we are aover/under the average
+			 * fill price of the position. Otherwise the stop price will be
+			 * either that which was set in TrailStopPrice or the market price
+			 * when the order was first submitted. i.e candle.close - trail
+			 * amt/percent
+			 */
+			if (Action.SELL.equals(order.getAction()) && (1 == candle.getClose().compareTo(avgFillPrice))) {
+				if (1 == candle.getClose().subtract(trailAmount).compareTo(order.getAuxPrice())) {
+					order.setAuxPrice(candle.getClose().subtract(trailAmount));
+					if (OrderType.TRAILLIMIT.equals(order.getOrderType())) {
+						order.setLimitPrice(candle.getClose().subtract(trailAmount.subtract(trailLimitOffsetAmount)));
+					}
+				}
+			}
+			if (Action.BUY.equals(order.getAction()) && (-1 == candle.getClose().compareTo(avgFillPrice))) {
+				if (-1 == candle.getClose().add(trailAmount).compareTo(order.getAuxPrice())) {
+					order.setAuxPrice(candle.getClose().add(trailAmount));
+					if (OrderType.TRAILLIMIT.equals(order.getOrderType())) {
+						order.setLimitPrice(candle.getClose().add(trailAmount.add(trailLimitOffsetAmount)));
+					}
+				}
+			}
+		}
+
+		if (Action.SELL.equals(order.getAction())) {
+			if (OrderType.STP.equals(order.getOrderType()) || OrderType.TRAIL.equals(order.getOrderType())) {
+				if (candle.getLow().compareTo(order.getAuxPrice()) < 1) {
+					if (candle.getOpen().compareTo(order.getAuxPrice()) < 1) {
+						return candle.getOpen();
+					}
+					return order.getAuxPrice();
+				}
+			} else if (OrderType.STPLMT.equals(order.getOrderType())
+					|| OrderType.TRAILLIMIT.equals(order.getOrderType())) {
+				if (candle.getLow().compareTo(order.getAuxPrice()) < 1
+						&& candle.getHigh().compareTo(order.getLimitPrice()) > -1) {
+					if (candle.getOpen().compareTo(order.getAuxPrice()) > -1) {
+						return order.getAuxPrice();
+					} else {
+						if (CoreUtils.isBetween(order.getAuxPrice(), order.getLimitPrice(), candle.getOpen())) {
+							return candle.getOpen();
+						} else {
+							if (candle.getOpen().compareTo(order.getLimitPrice()) < 1) {
+								return order.getLimitPrice();
+							}
+						}
+					}
+				}
+			} else if (OrderType.LMT.equals(order.getOrderType())) {
+				if (candle.getHigh().compareTo(order.getLimitPrice()) > -1) {
+					if (candle.getOpen().compareTo(order.getLimitPrice()) > -1) {
+						return candle.getOpen();
+					}
+					return order.getLimitPrice();
+				}
+			}
+
+		} else {
+			if (OrderType.STP.equals(order.getOrderType()) || OrderType.TRAIL.equals(order.getOrderType())) {
+				if (candle.getHigh().compareTo(order.getAuxPrice()) > -1) {
+					if (candle.getOpen().compareTo(order.getAuxPrice()) > -1) {
+						return candle.getOpen();
+					}
+					return order.getAuxPrice();
+				}
+			} else if (OrderType.STPLMT.equals(order.getOrderType())
+					|| OrderType.TRAILLIMIT.equals(order.getOrderType())) {
+				if (candle.getHigh().compareTo(order.getAuxPrice()) > -1
+						&& candle.getLow().compareTo(order.getLimitPrice()) < 1) {
+					if (candle.getOpen().compareTo(order.getAuxPrice()) < 1) {
+						return order.getAuxPrice();
+					} else {
+						if (CoreUtils.isBetween(order.getAuxPrice(), order.getLimitPrice(), candle.getOpen())) {
+							return candle.getOpen();
+						} else {
+							if (candle.getOpen().compareTo(order.getLimitPrice()) > -1) {
+								return order.getLimitPrice();
+							}
+						}
+					}
+				}
+
+			} else if (OrderType.LMT.equals(order.getOrderType())) {
+				if (candle.getLow().compareTo(order.getLimitPrice()) < 1) {
+					if (candle.getOpen().compareTo(order.getLimitPrice()) < 1) {
+						return candle.getOpen();
+					}
+					return order.getLimitPrice();
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Method createOrderExecution.
+	 * 
+	 * @param contract
+	 *            Contract
+	 * @param order
+	 *            TradeOrder
+	 * @param filledPrice
+	 *            BigDecimal
+	 * @param date
+	 *            Date
+	 * @throws IOException
+	 */
+	private void createOrderExecution(Contract contract, TradeOrder order, BigDecimal filledPrice, ZonedDateTime date)
+			throws IOException {
+
+		double commission = order.getQuantity() * 0.005d;
+		if (commission < 1) {
+			commission = 1;
+		}
+
+		TradeOrderfill execution = new TradeOrderfill();
+		execution.setTradeOrder(order);
+		execution.setAveragePrice(filledPrice);
+		execution.setCommission(new BigDecimal(commission));
+		execution.setCumulativeQuantity(order.getQuantity());
+		execution.setExchange("BATS");
+		execution.setPrice(filledPrice);
+		execution.setTime(date);
+		if (Action.BUY.equals(order.getAction())) {
+			execution.setSide(Side.BOT);
+		} else {
+			execution.setSide(Side.SLD);
+		}
+		execution.setQuantity(order.getQuantity());
+		execution.setExecId(String.valueOf(execId++));
+		this.brokerModel.execDetails(execution.getTradeOrder().getOrderKey(), contract, execution);
+		OrderState orderState = new OrderState();
+		orderState.m_status = OrderStatus.FILLED;
+		orderState.m_commission = commission;
+		this.brokerModel.openOrder(order.getOrderKey(), contract, order, orderState);
+	}
+
+	/**
+	 * Method cancelOrder.
+	 * 
+	 * @param contract
+	 *            Contract
+	 * @param order
+	 *            TradeOrder
+	 * @throws IOException
+	 */
+	private void cancelOrder(Contract contract, TradeOrder order) throws IOException {
+		OrderState orderState = new OrderState();
+		orderState.m_status = OrderStatus.CANCELLED;
+		this.brokerModel.openOrder(order.getOrderKey(), contract, order, orderState);
+		order.setStatus(OrderStatus.CANCELLED);
+	}
+}
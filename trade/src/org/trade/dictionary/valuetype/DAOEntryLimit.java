@@ -35,11 +35,13 @@
  */
 package org.trade.dictionary.valuetype;
 
-import java.util.Enumeration;
-import java.util.Vector;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 
 import org.trade.core.valuetype.DAODecode;
-import org.trade.core.valuetype.Decode;
+import org.trade.core.valuetype.DecodeTable;
 import org.trade.core.valuetype.Money;
 import org.trade.core.valuetype.ValueTypeException;
 import org.trade.persistent.dao.Entrylimit;
@@ -54,6 +56,8 @@ public class DAOEntryLimit extends DAODecode {
 	public static final String _TABLE_ID = "_TABLE_ID";
 	public static final String _COLUMN = "_COLUMN";
 
+	private static volatile PriceBands _priceBands = null;
+
 	public DAOEntryLimit() {
 		super(DECODE);
 	}
@@ -77,25 +81,135 @@ public class DAOEntryLimit extends DAODecode {
 	 * @return Entrylimit
 	 */
 	public Entrylimit getValue(Money price) {
+		return getValue(price.getBigDecimalValue().doubleValue());
+	}
 
-		Vector<Decode> decodes;
+	/**
+	 * Method getValue. Find the entry limit whose price range contains the
+	 * price. If ranges overlap the first entry limit in the table is returned.
+	 * 
+	 * @param price
+	 *            double
+	 * @return Entrylimit null if no range contains the price.
+	 */
+	public Entrylimit getValue(double price) {
 		try {
-			decodes = this.getCodesDecodes();
-			final Enumeration<Decode> enumDAODecode = decodes.elements();
-			while (enumDAODecode.hasMoreElements()) {
-				final Decode decode = enumDAODecode.nextElement();
-				final Entrylimit entryLimit = (Entrylimit) decode.getObject();
-				if ((entryLimit.getStartPrice().subtract(price.getBigDecimalValue()).doubleValue() <= 0)
-						&& (entryLimit.getEndPrice().subtract(price.getBigDecimalValue()).doubleValue() >= 0)) {
-					return entryLimit;
-				}
-			}
+			return getPriceBands().find(price);
 		} catch (final ValueTypeException e) {
 			/*
 			 * Do nothing is no code just report to log.
 			 */
-
 		}
 		return null;
 	}
+
+	/**
+	 * Method getPriceBands. The bands are rebuilt when the decode table is
+	 * rebuilt i.e. when the lookups have been cleared.
+	 * 
+	 * @return PriceBands
+	 * @throws ValueTypeException
+	 */
+	private PriceBands getPriceBands() throws ValueTypeException {
+		final DecodeTable table = this.getDecodeTable();
+		PriceBands bands = _priceBands;
+		if (null == bands || bands.table != table) {
+			bands = new PriceBands(table);
+			_priceBands = bands;
+		}
+		return bands;
+	}
+
+	/**
+	 * The start and end prices of the entry limits sorted by start price.
+	 */
+	private static final class PriceBands {
+
+		private final DecodeTable table;
+		private final double[] startPrices;
+		private final double[] endPrices;
+		/*
+		 * The highest end price of this and all the lower bands.
+		 */
+		private final double[] maxEndPrices;
+		private final int[] rows;
+		private final Entrylimit[] entrylimits;
+
+		/**
+		 * Constructor for PriceBands.
+		 * 
+		 * @param table
+		 *            DecodeTable
+		 */
+		PriceBands(DecodeTable table) {
+			this.table = table;
+			final List<Integer> valid = new ArrayList<Integer>(table.size());
+			for (int y = 0; y < table.size(); y++) {
+				if (table.getCode(y) instanceof Entrylimit) {
+					final Entrylimit entrylimit = (Entrylimit) table.getCode(y);
+					if (null != entrylimit.getStartPrice() && null != entrylimit.getEndPrice())
+						valid.add(y);
+				}
+			}
+			Collections.sort(valid, new Comparator<Integer>() {
+				public int compare(Integer o1, Integer o2) {
+					int returnVal = ((Entrylimit) PriceBands.this.table.getCode(o1)).getStartPrice()
+							.compareTo(((Entrylimit) PriceBands.this.table.getCode(o2)).getStartPrice());
+					if (returnVal == 0)
+						returnVal = o1.compareTo(o2);
+					return returnVal;
+				}
+			});
+			final int size = valid.size();
+			this.startPrices = new double[size];
+			this.endPrices = new double[size];
+			this.maxEndPrices = new double[size];
+			this.rows = new int[size];
+			this.entrylimits = new Entrylimit[size];
+			for (int i = 0; i < size; i++) {
+				this.rows[i] = valid.get(i);
+				this.entrylimits[i] = (Entrylimit) table.getCode(this.rows[i]);
+				this.startPrices[i] = this.entrylimits[i].getStartPrice().doubleValue();
+				this.endPrices[i] = this.entrylimits[i].getEndPrice().doubleValue();
+				this.maxEndPrices[i] = (i == 0) ? this.endPrices[i]
+						: Math.max(this.maxEndPrices[i - 1], this.endPrices[i]);
+			}
+		}
+
+		/**
+		 * Method find.
+		 * 
+		 * @param price
+		 *            double
+		 * @return Entrylimit
+		 */
+		Entrylimit find(double price) {
+
+			/*
+			 * Find the last band that starts at or below the price.
+			 */
+			int low = 0;
+			int high = this.startPrices.length - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				if (this.startPrices[mid] <= price) {
+					low = mid + 1;
+				} else {
+					high = mid - 1;
+				}
+			}
+
+			/*
+			 * Walk down while a lower band could still contain the price.
+			 * Without overlapping ranges this is one step.
+			 */
+			int found = -1;
+			for (int i = high; i >= 0 && this.maxEndPrices[i] >= price; i--) {
+				if (this.endPrices[i] >= price && (found == -1 || this.rows[i] < this.rows[found])) {
+					found = i;
+				}
+			}
+			return (found == -1) ? null : this.entrylimits[found];
+		}
+	}
 }
\ No newline at end of file
@@ -35,10 +35,8 @@
  */
 package org.trade.dictionary.valuetype;
 
-import java.util.Iterator;
-
 import org.trade.core.valuetype.DAODecode;
-import org.trade.core.valuetype.Decode;
+import org.trade.core.valuetype.DecodeTable;
 import org.trade.core.valuetype.ValueTypeException;
 import org.trade.persistent.dao.Portfolio;
 
@@ -78,17 +76,18 @@ public class DAOPortfolio extends DAODecode {
 
 		try {
 			final DAOPortfolio returnInstance = new DAOPortfolio();
-			DAOPortfolio code = null;
-			for (Iterator<Decode> iterCodes = returnInstance.getCodesDecodes().iterator(); iterCodes.hasNext();) {
-				code = (DAOPortfolio) iterCodes.next();
-				Portfolio portfolio = (Portfolio) code.getObject();
-				if (portfolio.getIsDefault())
-					return code;
+			final DecodeTable table = returnInstance.getDecodeTable();
+			for (int y = 0; y < table.size(); y++) {
+				Portfolio portfolio = (Portfolio) table.getCode(y);
+				if (portfolio.getIsDefault()) {
+					returnInstance.setValue(portfolio);
+					return returnInstance;
+				}
 			}
-			if (null == code) {
-				code = returnInstance;
+			if (table.size() > 0) {
+				returnInstance.setValue(table.getCode(table.size() - 1));
 			}
-			return code;
+			return returnInstance;
 		} catch (ValueTypeException e) {
 			return null;
 		}
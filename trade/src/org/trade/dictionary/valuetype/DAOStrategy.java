@@ -35,10 +35,13 @@
  */
 package org.trade.dictionary.valuetype;
 
+import java.util.HashSet;
+import java.util.Set;
 import java.util.Vector;
 
 import org.trade.core.valuetype.DAODecode;
 import org.trade.core.valuetype.Decode;
+import org.trade.core.valuetype.DecodeTable;
 import org.trade.core.valuetype.ValueTypeException;
 import org.trade.persistent.dao.Strategy;
 
@@ -66,22 +69,21 @@ public class DAOStrategy extends DAODecode {
 	public Vector<Decode> getCodesDecodes() throws ValueTypeException {
 		final Vector<Decode> decodes = new Vector<Decode>();
 
-		final Vector<Decode> decodesAll = super.getCodesDecodes();
-		for (final Decode decode : decodesAll) {
-			final Strategy strategy = (Strategy) decode.getObject();
-			boolean isMgr = false;
-			if (!strategy.hasStrategyManager()) {
-				for (final Decode mgrdecode : decodesAll) {
-					final Strategy strategyMgr = (Strategy) mgrdecode.getObject();
-					if (strategyMgr.hasStrategyManager()) {
-						if (strategyMgr.getStrategyManager().equals(strategy)) {
-							isMgr = true;
-							break;
-						}
-					}
-				}
+		/*
+		 * Strategies that manage another strategy are not listed.
+		 */
+		final DecodeTable table = this.getDecodeTable();
+		final Set<Integer> managers = new HashSet<Integer>();
+		for (int y = 0; y < table.size(); y++) {
+			final Strategy strategy = (Strategy) table.getCode(y);
+			if (strategy.hasStrategyManager()) {
+				managers.add(strategy.getStrategyManager().getId());
 			}
-			if (!isMgr) {
+		}
+
+		for (final Decode decode : super.getCodesDecodes()) {
+			final Strategy strategy = (Strategy) decode.getObject();
+			if (strategy.hasStrategyManager() || !managers.contains(strategy.getId())) {
 				decodes.add(decode);
 			}
 		}
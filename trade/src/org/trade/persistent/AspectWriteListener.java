@@ -0,0 +1,69 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.persistent;
+
+import java.util.EventListener;
+
+import org.trade.core.dao.Aspect;
+
+/**
+ * The interface that must be supported by classes that wish to be told when an
+ * aspect submitted to PersistentModel.persistAspectAsync has been written.
+ * Both methods are called on the write-behind thread.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public interface AspectWriteListener extends EventListener {
+
+	/**
+	 * Method aspectSaved.
+	 * 
+	 * @param aspect
+	 *            Aspect the instance returned by the save.
+	 */
+	public void aspectSaved(Aspect aspect);
+
+	/**
+	 * Method aspectFailed.
+	 * 
+	 * @param aspect
+	 *            Aspect the instance that was submitted.
+	 * @param ex
+	 *            PersistentModelException
+	 */
+	public void aspectFailed(Aspect aspect, PersistentModelException ex);
+}
@@ -0,0 +1,851 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.persistent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.core.dao.Aspect;
+import org.trade.persistent.dao.ContractLite;
+import org.trade.persistent.dao.TradeOrder;
+import org.trade.persistent.dao.TradeOrderHome;
+import org.trade.persistent.dao.TradeOrderfill;
+import org.trade.persistent.dao.TradePosition;
+import org.trade.persistent.dao.Tradestrategy;
+import org.trade.persistent.dao.TradestrategyLite;
+import org.trade.persistent.dao.TradestrategyOrders;
+import org.trade.persistent.dao.Tradingday;
+
+/**
+ * PersistentModel for back testing. TradeOrders, TradeOrderfills,
+ * TradePositions and the Tradestrategy status are held in memory for the
+ * duration of the back test so that the replay is not bound by database
+ * round-trips. All other aspects (candles, contracts, tradestrategies etc) are
+ * read from and written to the database as usual.
+ * 
+ * The order/position logic is inherited from TradePersistentModel, only the
+ * finds and persists it relies on are kept in memory. Finds return a copy of
+ * the orders, positions and contract positions they reach, and persists save
+ * a copy of what they are given, so callers see detached instances just as
+ * they would from the database and never share state with this model.
+ * References between the held instances are resolved by id/order key.
+ * 
+ * findPositionOrdersByTradestrategyId is called for every candle so its copy
+ * is kept and returned again until something is persisted. Callers must
+ * persist any change they make to it.
+ * 
+ * A model is not thread safe, it must only be used by the thread running the
+ * back test. The BacktestEngine creates one per Contract.
+ * 
+ * Call flush() when the back test is complete to write the final state to the
+ * database in one transaction. If the model was created as a dry run flush()
+ * just discards the state.
+ * 
+ * @author Simon Allen
+ * 
+ * @version $Revision: 1.0 $
+ */
+public class BacktestPersistentModel extends TradePersistentModel {
+
+	private final static Logger _log = LoggerFactory.getLogger(BacktestPersistentModel.class);
+
+	private final boolean dryRun;
+	private final TradeOrderHome m_tradeOrderHome;
+
+	private int nextId = 0;
+	private final Map<Integer, TradestrategyOrders> tradestrategies = new HashMap<Integer, TradestrategyOrders>();
+	private final Map<Integer, TradeOrder> tradeOrders = new HashMap<Integer, TradeOrder>();
+	private final Map<Integer, TradePosition> tradePositions = new HashMap<Integer, TradePosition>();
+	private final Map<Integer, ContractLite> contracts = new HashMap<Integer, ContractLite>();
+
+	private final Set<TradestrategyOrders> dirtyTradestrategies = new LinkedHashSet<TradestrategyOrders>();
+	private final Set<Integer> dirtyTradeOrders = new LinkedHashSet<Integer>();
+	private final Set<Integer> dirtyTradePositions = new LinkedHashSet<Integer>();
+	private final Set<Integer> dirtyContracts = new LinkedHashSet<Integer>();
+
+	/*
+	 * Copies returned by findPositionOrdersByTradestrategyId, discarded when
+	 * anything is persisted as positions are shared by the Tradestrategies of
+	 * a Contract.
+	 */
+	private final Map<Integer, TradestrategyOrders> positionOrders = new HashMap<Integer, TradestrategyOrders>();
+
+	/**
+	 * Default Constructor for BacktestPersistentModel.
+	 */
+	public BacktestPersistentModel() {
+		this(false);
+	}
+
+	/**
+	 * Constructor for BacktestPersistentModel.
+	 * 
+	 * @param dryRun
+	 *            boolean if true nothing is written back to the database on
+	 *            flush().
+	 */
+	public BacktestPersistentModel(boolean dryRun) {
+		super();
+		this.dryRun = dryRun;
+		this.m_tradeOrderHome = new TradeOrderHome();
+	}
+
+	/**
+	 * Method isDryRun.
+	 * 
+	 * @return boolean
+	 */
+	public boolean isDryRun() {
+		return this.dryRun;
+	}
+
+	/**
+	 * Method findPositionOrdersByTradestrategyId.
+	 * 
+	 * @param idTradestrategy
+	 *            Integer
+	 * @return TradestrategyOrders
+	 * @throws PersistentModelException
+	 * @see org.trade.persistent.PersistentModel#findPositionOrdersByTradestrategyId(Integer)
+	 */
+	public TradestrategyOrders findPositionOrdersByTradestrategyId(final Integer idTradestrategy)
+			throws PersistentModelException {
+		TradestrategyOrders instance = this.positionOrders.get(idTradestrategy);
+		if (null == instance) {
+			instance = new Copier().copy(getTradestrategyOrders(idTradestrategy));
+			this.positionOrders.put(idTradestrategy, instance);
+		}
+		return instance;
+	}
+
+	/**
+	 * Method refreshPositionOrdersByTradestrategyId.
+	 * 
+	 * @param positionOrders
+	 *            TradestrategyOrders
+	 * @return TradestrategyOrders
+	 * @throws PersistentModelException
+	 * @see org.trade.persistent.PersistentModel#refreshPositionOrdersByTradestrategyId(TradestrategyOrders)
+	 */
+	public TradestrategyOrders refreshPositionOrdersByTradestrategyId(final TradestrategyOrders positionOrders)
+			throws PersistentModelException {
+		return findPositionOrdersByTradestrategyId(positionOrders.getIdTradeStrategy());
+	}
+
+	/**
+	 * Method findTradestrategyLiteById.
+	 * 
+	 * @param id
+	 *            Integer
+	 * @return TradestrategyLite
+	 * @throws PersistentModelException
+	 * @see org.trade.persistent.PersistentModel#findTradestrategyLiteById(Integer)
+	 */
+	public TradestrategyLite findTradestrategyLiteById(final Integer id) throws PersistentModelException {
+		TradestrategyOrders tradestrategyOrders = getTradestrategyOrders(id);
+		TradestrategyLite instance = new TradestrategyLite(id, tradestrategyOrders.getVersion());
+		instance.setStatus(tradestrategyOrders.getStatus());
+		instance.setLastUpdateDate(tradestrategyOrders.getLastUpdateDate());
+		return instance;
+	}
+
+	/**
+	 * Method findTradePositionById.
+	 * 
+	 * @param id
+	 *            Integer
+	 * @return TradePosition
+	 * @throws PersistentModelException
+	 * @see org.trade.persistent.PersistentModel#findTradePositionById(Integer)
+	 */
+	public TradePosition findTradePositionById(final Integer id) throws PersistentModelException {
+		return new Copier().copy(getTradePosition(id));
+	}
+
+	/**
+	 * Method findTradeOrderByKey.
+	 * 
+	 * @param orderKey
+	 *            Integer
+	 * @return TradeOrder
+	 * @throws PersistentModelException
+	 * @see org.trade.persistent.PersistentModel#findTradeOrderByKey(Integer)
+	 */
+	public TradeOrder findTradeOrderByKey(final Integer orderKey) throws PersistentModelException {
+		TradeOrder instance = this.tradeOrders.get(orderKey);
+		if (null == instance) {
+			instance = super.findTradeOrderByKey(orderKey);
+			if (null == instance)
+				return null;
+			instance = register(instance);
+		}
+		return new Copier().copy(instance);
+	}
+
+	/**
+	 * Method findTradeOrderById.
+	 * 
+	 * @param id
+	 *            Integer
+	 * @return TradeOrder
+	 * @throws PersistentModelException
+	 * @see org.trade.persistent.PersistentModel#findTradeOrderById(Integer)
+	 */
+	public TradeOrder findTradeOrderById(final Integer id) throws PersistentModelException {
+		for (TradeOrder tradeOrder : this.tradeOrders.values()) {
+			if (id.equals(tradeOrder.getIdTradeOrder()))
+				return new Copier().copy(tradeOrder);
+		}
+		return super.findTradeOrderById(id);
+	}
+
+	/**
+	 * Method findTradeOrderfillByExecId.
+	 * 
+	 * @param execId
+	 *            String
+	 * @return TradeOrderfill
+	 * @throws PersistentModelException
+	 * @see org.trade.persistent.PersistentModel#findTradeOrderfillByExecId(String)
+	 */
+	public TradeOrderfill findTradeOrderfillByExecId(String execId) throws PersistentModelException {
+		for (TradeOrder tradeOrder : this.tradeOrders.values()) {
+			for (TradeOrderfill tradeOrderfill : tradeOrder.getTradeOrderfills()) {
+				if (execId.equals(tradeOrderfill.getExecId())) {
+					for (TradeOrderfill copy : new Copier().copy(tradeOrder).getTradeOrderfills()) {
+						if (execId.equals(copy.getExecId()))
+							return copy;
+					}
+				}
+			}
+		}
+		return super.findTradeOrderfillByExecId(execId);
+	}
+
+	/**
+	 * Method findTradeOrderByMaxKey.
+	 * 
+	 * @return Integer
+	 * @throws PersistentModelException
+	 * @see org.trade.persistent.PersistentModel#findTradeOrderByMaxKey()
+	 */
+	public Integer findTradeOrderByMaxKey() throws PersistentModelException {
+		Integer maxKey = super.findTradeOrderByMaxKey();
+		for (Integer orderKey : this.tradeOrders.keySet()) {
+			if (orderKey > maxKey)
+				maxKey = orderKey;
+		}
+		return maxKey;
+	}
+
+	/**
+	 * Method persistAspect. TradeOrders, TradePositions, Tradestrategy status
+	 * and Contract positions are saved in memory all others are saved to the
+	 * database.
+	 * 
+	 * @param transientInstance
+	 *            T
+	 * @return T
+	 * @throws PersistentModelException
+	 * @see org.trade.persistent.PersistentModel#persistAspect(Aspect)
+	 */
+	public <T extends Aspect> T persistAspect(final T transientInstance) throws PersistentModelException {
+		return persistAspect(transientInstance, false);
+	}
+
+	/**
+	 * Method persistAspect.
+	 * 
+	 * @param transientInstance
+	 *            T
+	 * @param overrideVersion
+	 *            boolean
+	 * @return T
+	 * @throws PersistentModelException
+	 * @see org.trade.persistent.PersistentModel#persistAspect(Aspect, boolean)
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Aspect> T persistAspect(final T transientInstance, boolean overrideVersion)
+			throws PersistentModelException {
+
+		if (transientInstance instanceof TradeOrder) {
+			return (T) persistTradeOrderInMemory((TradeOrder) transientInstance);
+
+		} else if (transientInstance instanceof TradePosition) {
+			persistTradePositionInMemory((TradePosition) transientInstance);
+			return transientInstance;
+
+		} else if (transientInstance instanceof TradestrategyOrders) {
+			TradestrategyOrders instance = (TradestrategyOrders) transientInstance;
+			TradestrategyOrders tradestrategyOrders = getTradestrategyOrders(instance.getIdTradeStrategy());
+			tradestrategyOrders.setStatus(instance.getStatus());
+			tradestrategyOrders.setLastUpdateDate(instance.getLastUpdateDate());
+			this.dirtyTradestrategies.add(tradestrategyOrders);
+			this.positionOrders.clear();
+			return (T) findPositionOrdersByTradestrategyId(instance.getIdTradeStrategy());
+
+		} else if (transientInstance instanceof TradestrategyLite) {
+			TradestrategyLite instance = (TradestrategyLite) transientInstance;
+			TradestrategyOrders tradestrategyOrders = getTradestrategyOrders(instance.getIdTradeStrategy());
+			tradestrategyOrders.setStatus(instance.getStatus());
+			tradestrategyOrders.setLastUpdateDate(instance.getLastUpdateDate());
+			this.dirtyTradestrategies.add(tradestrategyOrders);
+			this.positionOrders.clear();
+			instance.setDirty(false);
+			return transientInstance;
+
+		} else if (transientInstance instanceof ContractLite) {
+			ContractLite contract = new ContractLite((ContractLite) transientInstance);
+			if (null != contract.getTradePosition()) {
+				contract.setTradePosition(resolve(contract.getTradePosition()));
+			}
+			this.contracts.put(contract.getIdContract(), contract);
+			this.dirtyContracts.add(contract.getIdContract());
+			this.positionOrders.clear();
+			transientInstance.setDirty(false);
+			return transientInstance;
+		}
+		return super.persistAspect(transientInstance, overrideVersion);
+	}
+
+	/**
+	 * Method removeTradestrategyTradeOrders.
+	 * 
+	 * @param tradestrategy
+	 *            Tradestrategy
+	 * @throws PersistentModelException
+	 * @see org.trade.persistent.PersistentModel#removeTradestrategyTradeOrders(Tradestrategy)
+	 */
+	public void removeTradestrategyTradeOrders(final Tradestrategy tradestrategy) throws PersistentModelException {
+		super.removeTradestrategyTradeOrders(tradestrategy);
+		clear();
+	}
+
+	/**
+	 * Method removeTradingdayTradeOrders.
+	 * 
+	 * @param tradingday
+	 *            Tradingday
+	 * @throws PersistentModelException
+	 * @see org.trade.persistent.PersistentModel#removeTradingdayTradeOrders(Tradingday)
+	 */
+	public void removeTradingdayTradeOrders(final Tradingday tradingday) throws PersistentModelException {
+		super.removeTradingdayTradeOrders(tradingday);
+		clear();
+	}
+
+	/**
+	 * Method flush. Write all the TradeOrders, TradePositions and Tradestrategy
+	 * status changes made during the back test to the database in one
+	 * transaction and reset this model. For a dry run the changes are
+	 * discarded.
+	 * 
+	 * @throws PersistentModelException
+	 */
+	public void flush() throws PersistentModelException {
+
+		try {
+			if (this.dryRun) {
+				_log.info("Dry run discarded TradeOrders: " + this.dirtyTradeOrders.size() + " TradePositions: "
+						+ this.dirtyTradePositions.size());
+				return;
+			}
+			relink();
+			List<TradePosition> positions = new ArrayList<TradePosition>(this.dirtyTradePositions.size());
+			for (Integer id : this.dirtyTradePositions) {
+				positions.add(this.tradePositions.get(id));
+			}
+			List<TradeOrder> orders = new ArrayList<TradeOrder>(this.dirtyTradeOrders.size());
+			for (Integer orderKey : this.dirtyTradeOrders) {
+				orders.add(this.tradeOrders.get(orderKey));
+			}
+			List<ContractLite> contracts = new ArrayList<ContractLite>(this.dirtyContracts.size());
+			for (Integer id : this.dirtyContracts) {
+				contracts.add(this.contracts.get(id));
+			}
+			/*
+			 * Ids less than zero were allocated in memory so these are new to
+			 * the database.
+			 */
+			for (TradePosition tradePosition : positions) {
+				if (tradePosition.getIdTradePosition() < 0) {
+					tradePosition.setIdTradePosition(null);
+					tradePosition.setVersion(null);
+				}
+			}
+			for (TradeOrder tradeOrder : orders) {
+				if (null != tradeOrder.getIdTradeOrder() && tradeOrder.getIdTradeOrder() < 0) {
+					tradeOrder.setIdTradeOrder(null);
+					tradeOrder.setVersion(null);
+				}
+				for (TradeOrderfill tradeOrderfill : tradeOrder.getTradeOrderfills()) {
+					if (null != tradeOrderfill.getIdTradeOrderFill() && tradeOrderfill.getIdTradeOrderFill() < 0) {
+						tradeOrderfill.setIdTradeOrderFill(null);
+						tradeOrderfill.setVersion(null);
+					}
+				}
+			}
+			m_tradeOrderHome.persistBatch(positions, orders, contracts,
+					new ArrayList<TradestrategyOrders>(this.dirtyTradestrategies));
+			_log.info("Flushed TradeOrders: " + orders.size() + " TradePositions: " + positions.size());
+
+		} catch (Exception ex) {
+			throw new PersistentModelException("Error flushing back test TradeOrders Msg: " + ex.getMessage());
+		} finally {
+			clear();
+		}
+	}
+
+	/**
+	 * Method clear. Discard everything held in memory.
+	 */
+	public void clear() {
+		this.tradestrategies.clear();
+		this.tradeOrders.clear();
+		this.tradePositions.clear();
+		this.contracts.clear();
+		this.dirtyTradestrategies.clear();
+		this.dirtyTradeOrders.clear();
+		this.dirtyTradePositions.clear();
+		this.dirtyContracts.clear();
+		this.positionOrders.clear();
+	}
+
+	/**
+	 * Method persistTradeOrderInMemory. Save a copy of the order and make sure
+	 * its Tradestrategy and TradePosition reference the saved copy.
+	 * 
+	 * @param transientInstance
+	 *            TradeOrder
+	 * @return TradeOrder a copy of the saved order.
+	 * @throws PersistentModelException
+	 */
+	private TradeOrder persistTradeOrderInMemory(final TradeOrder transientInstance) throws PersistentModelException {
+
+		if (null == transientInstance.getIdTradeOrder()) {
+			transientInstance.setIdTradeOrder(--nextId);
+		}
+		for (TradeOrderfill tradeOrderfill : transientInstance.getTradeOrderfills()) {
+			if (null == tradeOrderfill.getIdTradeOrderFill()) {
+				tradeOrderfill.setIdTradeOrderFill(--nextId);
+			}
+		}
+		transientInstance.setDirty(false);
+		TradeOrder tradeOrder = new TradeOrder(transientInstance);
+		if (null != tradeOrder.getTradestrategyId()) {
+			tradeOrder.setTradestrategyId(copyOf(tradeOrder.getTradestrategyId()));
+		}
+		if (tradeOrder.hasTradePosition()) {
+			tradeOrder.setTradePosition(resolve(tradeOrder.getTradePosition()));
+		}
+		this.tradeOrders.put(tradeOrder.getOrderKey(), tradeOrder);
+		this.dirtyTradeOrders.add(tradeOrder.getOrderKey());
+		this.positionOrders.clear();
+
+		Integer idTradestrategy = (null == tradeOrder.getTradestrategyId()
+				? tradeOrder.getTradestrategy().getIdTradeStrategy()
+				: tradeOrder.getTradestrategyId().getIdTradeStrategy());
+		replaceTradeOrder(getTradestrategyOrders(idTradestrategy).getTradeOrders(), tradeOrder);
+		if (tradeOrder.hasTradePosition()) {
+			replaceTradeOrder(tradeOrder.getTradePosition().getTradeOrders(), tradeOrder);
+		}
+		return new Copier().copy(tradeOrder);
+	}
+
+	/**
+	 * Method persistTradePositionInMemory. Save a copy of the position. The
+	 * orders of the saved copy are the held orders, orders this model has not
+	 * seen yet are copied until they are persisted.
+	 * 
+	 * @param transientInstance
+	 *            TradePosition
+	 * @throws PersistentModelException
+	 */
+	private void persistTradePositionInMemory(final TradePosition transientInstance)
+			throws PersistentModelException {
+
+		if (null == transientInstance.getIdTradePosition()) {
+			transientInstance.setIdTradePosition(--nextId);
+		}
+		transientInstance.setDirty(false);
+		TradePosition tradePosition = new TradePosition(transientInstance);
+		TradePosition existing = this.tradePositions.get(tradePosition.getIdTradePosition());
+		List<TradeOrder> orders = new ArrayList<TradeOrder>(
+				(null == existing ? new ArrayList<TradeOrder>(0) : existing.getTradeOrders()));
+		for (TradeOrder tradeOrder : tradePosition.getTradeOrders()) {
+			TradeOrder instance = this.tradeOrders.get(tradeOrder.getOrderKey());
+			replaceTradeOrder(orders, (null == instance ? new TradeOrder(tradeOrder) : instance));
+		}
+		tradePosition.setTradeOrders(orders);
+		this.tradePositions.put(tradePosition.getIdTradePosition(), tradePosition);
+		this.dirtyTradePositions.add(tradePosition.getIdTradePosition());
+		this.positionOrders.clear();
+		if (null != tradePosition.getContract()) {
+			tradePosition.setContract(resolve(tradePosition.getContract()));
+		}
+	}
+
+	/**
+	 * Method relink. Point the held orders, positions and contracts at the
+	 * held instances they reference. A position is replaced each time it is
+	 * persisted so references to the old instance are updated before the
+	 * state is written to the database.
+	 * 
+	 * @throws PersistentModelException
+	 */
+	private void relink() throws PersistentModelException {
+		for (TradePosition tradePosition : new ArrayList<TradePosition>(this.tradePositions.values())) {
+			if (null != tradePosition.getContract()) {
+				tradePosition.setContract(resolve(tradePosition.getContract()));
+			}
+			List<TradeOrder> orders = new ArrayList<TradeOrder>(tradePosition.getTradeOrders().size());
+			for (TradeOrder tradeOrder : tradePosition.getTradeOrders()) {
+				orders.add(resolve(tradeOrder));
+			}
+			tradePosition.setTradeOrders(orders);
+		}
+		for (TradeOrder tradeOrder : new ArrayList<TradeOrder>(this.tradeOrders.values())) {
+			if (tradeOrder.hasTradePosition()) {
+				tradeOrder.setTradePosition(resolve(tradeOrder.getTradePosition()));
+			}
+		}
+		for (ContractLite contract : new ArrayList<ContractLite>(this.contracts.values())) {
+			if (null != contract.getTradePosition()) {
+				contract.setTradePosition(resolve(contract.getTradePosition()));
+			}
+		}
+	}
+
+	/**
+	 * Method replaceTradeOrder. Replace the order with the same order key in
+	 * the list or add it if there is none.
+	 * 
+	 * @param tradeOrders
+	 *            List<TradeOrder>
+	 * @param tradeOrder
+	 *            TradeOrder
+	 */
+	private void replaceTradeOrder(List<TradeOrder> tradeOrders, TradeOrder tradeOrder) {
+		for (Iterator<TradeOrder> iter = tradeOrders.iterator(); iter.hasNext();) {
+			if (iter.next().getOrderKey().equals(tradeOrder.getOrderKey())) {
+				iter.remove();
+			}
+		}
+		tradeOrders.add(tradeOrder);
+	}
+
+	/**
+	 * Method getTradestrategyOrders. Get the in memory TradestrategyOrders,
+	 * the first time in these are read from the database.
+	 * 
+	 * @param idTradestrategy
+	 *            Integer
+	 * @return TradestrategyOrders
+	 * @throws PersistentModelException
+	 */
+	private TradestrategyOrders getTradestrategyOrders(Integer idTradestrategy) throws PersistentModelException {
+		TradestrategyOrders instance = this.tradestrategies.get(idTradestrategy);
+		if (null == instance) {
+			instance = super.findPositionOrdersByTradestrategyId(idTradestrategy);
+			this.tradestrategies.put(idTradestrategy, instance);
+			instance.setContract(register(instance.getContract()));
+			List<TradeOrder> orders = new ArrayList<TradeOrder>(instance.getTradeOrders().size());
+			for (TradeOrder tradeOrder : instance.getTradeOrders()) {
+				orders.add(register(tradeOrder));
+			}
+			instance.setTradeOrders(orders);
+		}
+		return instance;
+	}
+
+	/**
+	 * Method getTradePosition. Get the in memory TradePosition, the first time
+	 * in this is read from the database.
+	 * 
+	 * @param id
+	 *            Integer
+	 * @return TradePosition
+	 * @throws PersistentModelException
+	 */
+	private TradePosition getTradePosition(Integer id) throws PersistentModelException {
+		TradePosition instance = this.tradePositions.get(id);
+		if (null == instance) {
+			instance = register(super.findTradePositionById(id));
+		}
+		return instance;
+	}
+
+	/**
+	 * Method resolve. The held TradeOrder with the same order key.
+	 * 
+	 * @param tradeOrder
+	 *            TradeOrder
+	 * @return TradeOrder the held order or the order passed if there is none.
+	 */
+	private TradeOrder resolve(TradeOrder tradeOrder) {
+		TradeOrder instance = this.tradeOrders.get(tradeOrder.getOrderKey());
+		return (null == instance ? tradeOrder : instance);
+	}
+
+	/**
+	 * Method resolve. The held TradePosition with the same id.
+	 * 
+	 * @param tradePosition
+	 *            TradePosition
+	 * @return TradePosition
+	 * @throws PersistentModelException
+	 */
+	private TradePosition resolve(TradePosition tradePosition) throws PersistentModelException {
+		if (null == tradePosition.getIdTradePosition())
+			return tradePosition;
+		return getTradePosition(tradePosition.getIdTradePosition());
+	}
+
+	/**
+	 * Method resolve. The held ContractLite with the same id, the first time
+	 * in a copy of the contract is held.
+	 * 
+	 * @param contract
+	 *            ContractLite
+	 * @return ContractLite
+	 * @throws PersistentModelException
+	 */
+	private ContractLite resolve(ContractLite contract) throws PersistentModelException {
+		ContractLite instance = this.contracts.get(contract.getIdContract());
+		if (null == instance) {
+			instance = register(new ContractLite(contract));
+		}
+		return instance;
+	}
+
+	/**
+	 * Method register. Hold a TradeOrder that was read from the database in
+	 * memory. The order is re-read so its fills are loaded.
+	 * 
+	 * @param transientInstance
+	 *            TradeOrder
+	 * @return TradeOrder
+	 * @throws PersistentModelException
+	 */
+	private TradeOrder register(TradeOrder transientInstance) throws PersistentModelException {
+		TradeOrder instance = this.tradeOrders.get(transientInstance.getOrderKey());
+		if (null == instance) {
+			instance = super.findTradeOrderByKey(transientInstance.getOrderKey());
+			this.tradeOrders.put(instance.getOrderKey(), instance);
+			if (instance.hasTradePosition()) {
+				instance.setTradePosition(getTradePosition(instance.getTradePosition().getIdTradePosition()));
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * Method register. Hold a TradePosition that was read from the database in
+	 * memory along with all its orders.
+	 * 
+	 * @param transientInstance
+	 *            TradePosition
+	 * @return TradePosition
+	 * @throws PersistentModelException
+	 */
+	private TradePosition register(TradePosition transientInstance) throws PersistentModelException {
+		TradePosition instance = this.tradePositions.get(transientInstance.getIdTradePosition());
+		if (null == instance) {
+			instance = transientInstance;
+			this.tradePositions.put(instance.getIdTradePosition(), instance);
+			instance.setContract(register(instance.getContract()));
+			List<TradeOrder> orders = new ArrayList<TradeOrder>(instance.getTradeOrders().size());
+			for (TradeOrder tradeOrder : instance.getTradeOrders()) {
+				orders.add(register(tradeOrder));
+			}
+			instance.setTradeOrders(orders);
+		}
+		return instance;
+	}
+
+	/**
+	 * Method register. Hold a Contract's position in memory. There is one
+	 * instance per Contract so all Tradestrategies for the Contract see the
+	 * same open position.
+	 * 
+	 * @param transientInstance
+	 *            ContractLite
+	 * @return ContractLite
+	 * @throws PersistentModelException
+	 */
+	private ContractLite register(ContractLite transientInstance) throws PersistentModelException {
+		ContractLite instance = this.contracts.get(transientInstance.getIdContract());
+		if (null == instance) {
+			instance = transientInstance;
+			this.contracts.put(instance.getIdContract(), instance);
+			if (null != instance.getTradePosition()) {
+				instance.setTradePosition(getTradePosition(instance.getTradePosition().getIdTradePosition()));
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * Method copyOf.
+	 * 
+	 * @param instance
+	 *            TradestrategyLite
+	 * @return TradestrategyLite
+	 */
+	private static TradestrategyLite copyOf(TradestrategyLite instance) {
+		TradestrategyLite copy = new TradestrategyLite(instance.getIdTradeStrategy(), instance.getVersion());
+		copy.setStatus(instance.getStatus());
+		copy.setLastUpdateDate(instance.getLastUpdateDate());
+		return copy;
+	}
+
+	/**
+	 * Copies the held orders, positions and contract positions reachable from
+	 * an instance. Each instance is copied once per Copier so the copies
+	 * reference each other the same way the held instances do e.g. an order
+	 * and the contract of its Tradestrategy share the copy of the open
+	 * position.
+	 */
+	private class Copier {
+
+		private final Map<Object, Object> copies = new IdentityHashMap<Object, Object>();
+
+		/**
+		 * Method copy.
+		 * 
+		 * @param instance
+		 *            TradestrategyOrders
+		 * @return TradestrategyOrders
+		 * @throws PersistentModelException
+		 */
+		TradestrategyOrders copy(TradestrategyOrders instance) throws PersistentModelException {
+			TradestrategyOrders copy = new TradestrategyOrders(instance);
+			if (null != instance.getContract()) {
+				copy.setContract(copy(resolve(instance.getContract())));
+			}
+			copy.setTradeOrders(copy(instance.getTradeOrders()));
+			return copy;
+		}
+
+		/**
+		 * Method copy.
+		 * 
+		 * @param instance
+		 *            TradeOrder
+		 * @return TradeOrder
+		 * @throws PersistentModelException
+		 */
+		TradeOrder copy(TradeOrder instance) throws PersistentModelException {
+			TradeOrder copy = (TradeOrder) this.copies.get(instance);
+			if (null == copy) {
+				copy = new TradeOrder(instance);
+				this.copies.put(instance, copy);
+				if (null != instance.getTradestrategyId()) {
+					copy.setTradestrategyId(copyOf(instance.getTradestrategyId()));
+				}
+				if (instance.hasTradePosition()) {
+					copy.setTradePosition(copy(resolve(instance.getTradePosition())));
+				}
+			}
+			return copy;
+		}
+
+		/**
+		 * Method copy.
+		 * 
+		 * @param instance
+		 *            TradePosition
+		 * @return TradePosition
+		 * @throws PersistentModelException
+		 */
+		TradePosition copy(TradePosition instance) throws PersistentModelException {
+			TradePosition copy = (TradePosition) this.copies.get(instance);
+			if (null == copy) {
+				copy = new TradePosition(instance);
+				this.copies.put(instance, copy);
+				if (null != instance.getContract()) {
+					copy.setContract(copy(resolve(instance.getContract())));
+				}
+				copy.setTradeOrders(copy(instance.getTradeOrders()));
+			}
+			return copy;
+		}
+
+		/**
+		 * Method copy.
+		 * 
+		 * @param instance
+		 *            ContractLite
+		 * @return ContractLite
+		 * @throws PersistentModelException
+		 */
+		ContractLite copy(ContractLite instance) throws PersistentModelException {
+			ContractLite copy = (ContractLite) this.copies.get(instance);
+			if (null == copy) {
+				copy = new ContractLite(instance);
+				this.copies.put(instance, copy);
+				if (null != instance.getTradePosition()) {
+					copy.setTradePosition(copy(resolve(instance.getTradePosition())));
+				}
+			}
+			return copy;
+		}
+
+		/**
+		 * Method copy.
+		 * 
+		 * @param instances
+		 *            List<TradeOrder>
+		 * @return List<TradeOrder>
+		 * @throws PersistentModelException
+		 */
+		List<TradeOrder> copy(List<TradeOrder> instances) throws PersistentModelException {
+			List<TradeOrder> copies = new ArrayList<TradeOrder>(instances.size());
+			for (TradeOrder tradeOrder : instances) {
+				copies.add(copy(resolve(tradeOrder)));
+			}
+			return copies;
+		}
+	}
+}
@@ -134,6 +134,16 @@ public interface PersistentModel {
 	 */
 	Candle persistCandle(Candle candle) throws PersistentModelException;
 
+	/**
+	 * Method persistCandleAsync. The candle is saved on the write-behind
+	 * thread, a candle submitted again before it is saved is saved once.
+	 * 
+	 * @param candle
+	 *            Candle
+	 * @throws PersistentModelException
+	 */
+	void persistCandleAsync(Candle candle) throws PersistentModelException;
+
 	/**
 	 * Method findAccountById.
 	 * 
@@ -586,6 +596,40 @@ public interface PersistentModel {
 	 */
 	<T extends Aspect> T persistAspect(T transientInstance, boolean overrideVersion) throws PersistentModelException;
 
+	/**
+	 * Method persistAspectAsync. The aspect is saved on the write-behind
+	 * thread with the version overridden, the last value submitted for an
+	 * aspect wins. The instance must not be changed once submitted, pass a
+	 * copy of an aspect that is still being updated.
+	 * 
+	 * @param transientInstance
+	 *            Aspect
+	 * @param listener
+	 *            AspectWriteListener told when the save completes, may be
+	 *            null. A value replaced by a later submit is not reported.
+	 * @throws PersistentModelException
+	 */
+	void persistAspectAsync(Aspect transientInstance, AspectWriteListener listener) throws PersistentModelException;
+
+	/**
+	 * Method awaitWrites. Blocks until the candles and aspects submitted to
+	 * the async persists before this call have been saved.
+	 * 
+	 * @throws PersistentModelException
+	 *             if a save failed since the last call.
+	 */
+	void awaitWrites() throws PersistentModelException;
+
+	/**
+	 * Method awaitAspectWrites. Blocks until the aspects submitted to
+	 * persistAspectAsync before this call have been saved, candles still being
+	 * saved are not waited for.
+	 * 
+	 * @throws PersistentModelException
+	 *             if a save failed since the last call.
+	 */
+	void awaitAspectWrites() throws PersistentModelException;
+
 	/**
 	 * Method removeAspect.
 	 * 
@@ -36,18 +36,25 @@
 package org.trade.persistent;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.persistence.OptimisticLockException;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.trade.core.dao.Aspect;
 import org.trade.core.dao.AspectHome;
 import org.trade.core.dao.Aspects;
+import org.trade.core.properties.ConfigProperties;
 import org.trade.core.util.CoreUtils;
 import org.trade.core.util.TradingCalendar;
 import org.trade.core.valuetype.Money;
+import org.trade.core.valuetype.Price;
 import org.trade.dictionary.valuetype.Action;
 import org.trade.dictionary.valuetype.OrderStatus;
 import org.trade.dictionary.valuetype.Side;
@@ -55,12 +62,17 @@ import org.trade.dictionary.valuetype.TradestrategyStatus;
 import org.trade.persistent.dao.Account;
 import org.trade.persistent.dao.AccountHome;
 import org.trade.persistent.dao.Candle;
+import org.trade.persistent.dao.CandleCache;
 import org.trade.persistent.dao.CandleHome;
 import org.trade.persistent.dao.CodeType;
 import org.trade.persistent.dao.CodeTypeHome;
+import org.trade.persistent.dao.CodeValue;
 import org.trade.persistent.dao.Contract;
 import org.trade.persistent.dao.ContractHome;
+import org.trade.persistent.dao.ContractLite;
+import org.trade.persistent.dao.EntityCache;
 import org.trade.persistent.dao.Portfolio;
+import org.trade.persistent.dao.PortfolioAccount;
 import org.trade.persistent.dao.PortfolioHome;
 import org.trade.persistent.dao.Rule;
 import org.trade.persistent.dao.RuleHome;
@@ -88,6 +100,8 @@ import org.trade.strategy.data.candle.CandleItem;
  */
 public class TradePersistentModel implements PersistentModel {
 
+	private final static Logger _log = LoggerFactory.getLogger(TradePersistentModel.class);
+
 	private CodeTypeHome m_codeTypeHome = null;
 	private ContractHome m_contractHome = null;
 	private StrategyHome m_strategyHome = null;
@@ -102,10 +116,60 @@ public class TradePersistentModel implements PersistentModel {
 	private CandleHome m_candleHome = null;
 	private AspectHome m_aspectHome = null;
 	private RuleHome m_ruleHome = null;
+	private EntityCache m_entityCache = null;
 
 	private static final int SCALE_5 = 5;
 	private static final int SCALE_2 = 2;
 
+	private static int writeBatchSize = 100;
+	private static int writeInterval = 1000;
+	private static int writeMaxPending = 10000;
+
+	/*
+	 * Candles and aspects saved with the async persists. The queues are shared
+	 * by all the models so awaitWrites() on any model waits for the saves
+	 * submitted by the others.
+	 */
+	private static final WriteBehindQueue<String, AsyncWrite> candleWrites;
+	private static final WriteBehindQueue<String, AsyncWrite> aspectWrites;
+
+	/*
+	 * TradeOrders are saved holding the lock of their Tradestrategy so orders
+	 * for different Tradestrategies can be saved at the same time. The locks
+	 * are shared by all the models as the broker and the strategies each save
+	 * orders through their own model.
+	 */
+	private static final ConcurrentHashMap<Integer, Object> tradestrategyLocks = new ConcurrentHashMap<Integer, Object>();
+
+	static {
+		try {
+			writeBatchSize = ConfigProperties.getPropAsInt("trade.persistent.write.batchSize");
+			writeInterval = ConfigProperties.getPropAsInt("trade.persistent.write.interval");
+			writeMaxPending = ConfigProperties.getPropAsInt("trade.persistent.write.maxPending");
+		} catch (Exception ex) {
+			_log.warn("Property trade.persistent.write not set using batchSize: " + writeBatchSize + " interval: "
+					+ writeInterval + " maxPending: " + writeMaxPending);
+		}
+		WriteBehindQueue.Writer<AsyncWrite> writer = new WriteBehindQueue.Writer<AsyncWrite>() {
+			public void write(List<AsyncWrite> writes) throws Exception {
+				PersistentModelException error = null;
+				for (AsyncWrite write : writes) {
+					try {
+						write.save();
+					} catch (PersistentModelException ex) {
+						error = ex;
+					}
+				}
+				if (null != error)
+					throw error;
+			}
+		};
+		candleWrites = new WriteBehindQueue<String, AsyncWrite>("CandleWrites", writer, writeBatchSize, writeInterval,
+				writeMaxPending);
+		aspectWrites = new WriteBehindQueue<String, AsyncWrite>("AspectWrites", writer, writeBatchSize, writeInterval,
+				writeMaxPending);
+	}
+
 	public TradePersistentModel() {
 		m_codeTypeHome = new CodeTypeHome();
 		m_contractHome = new ContractHome();
@@ -121,6 +185,7 @@ public class TradePersistentModel implements PersistentModel {
 		m_candleHome = new CandleHome();
 		m_aspectHome = new AspectHome();
 		m_ruleHome = new RuleHome();
+		m_entityCache = EntityCache.getInstance();
 	}
 
 	/**
@@ -158,9 +223,14 @@ public class TradePersistentModel implements PersistentModel {
 	 * @see org.trade.persistent.PersistentModel#findAccountById(Integer)
 	 */
 	public Account findAccountById(final Integer id) throws PersistentModelException {
-		Account instance = m_accountHome.findById(id);
-		if (null == instance)
-			throw new PersistentModelException("Account not found for id: " + id);
+		Account instance = m_entityCache.get(Account.class, id);
+		if (null == instance) {
+			long generation = m_entityCache.getGeneration(Account.class);
+			instance = m_accountHome.findById(id);
+			if (null == instance)
+				throw new PersistentModelException("Account not found for id: " + id);
+			m_entityCache.put(Account.class, id, instance, generation);
+		}
 		return instance;
 	}
 
@@ -174,7 +244,14 @@ public class TradePersistentModel implements PersistentModel {
 	 * @see org.trade.persistent.PersistentModel#findAccountByNumber(String)
 	 */
 	public Account findAccountByNumber(String accountNumber) throws PersistentModelException {
-		return m_accountHome.findByAccountNumber(accountNumber);
+		String key = "accountNumber:" + accountNumber;
+		Account instance = m_entityCache.get(Account.class, key);
+		if (null == instance) {
+			long generation = m_entityCache.getGeneration(Account.class);
+			instance = m_accountHome.findByAccountNumber(accountNumber);
+			m_entityCache.put(Account.class, key, instance, generation);
+		}
+		return instance;
 	}
 
 	/**
@@ -220,9 +297,14 @@ public class TradePersistentModel implements PersistentModel {
 	 * @see org.trade.persistent.PersistentModel#findContractById(Integer)
 	 */
 	public Contract findContractById(final Integer id) throws PersistentModelException {
-		Contract instance = m_contractHome.findById(id);
-		if (null == instance)
-			throw new PersistentModelException("Contract not found for id: " + id);
+		Contract instance = m_entityCache.get(Contract.class, id);
+		if (null == instance) {
+			long generation = m_entityCache.getGeneration(Contract.class);
+			instance = m_contractHome.findById(id);
+			if (null == instance)
+				throw new PersistentModelException("Contract not found for id: " + id);
+			m_entityCache.put(Contract.class, id, instance, generation);
+		}
 		return instance;
 	}
 
@@ -260,7 +342,15 @@ public class TradePersistentModel implements PersistentModel {
 	 */
 	public Contract findContractByUniqueKey(String SECType, String symbol, String exchange, String currency,
 			ZonedDateTime expiry) throws PersistentModelException {
-		return m_contractHome.findByUniqueKey(SECType, symbol, exchange, currency, expiry);
+		String key = SECType + "|" + symbol + "|" + exchange + "|" + currency + "|"
+				+ (null == expiry ? null : expiry.toInstant());
+		Contract instance = m_entityCache.get(Contract.class, key);
+		if (null == instance) {
+			long generation = m_entityCache.getGeneration(Contract.class);
+			instance = m_contractHome.findByUniqueKey(SECType, symbol, exchange, currency, expiry);
+			m_entityCache.put(Contract.class, key, instance, generation);
+		}
+		return instance;
 	}
 
 	/**
@@ -403,9 +493,14 @@ public class TradePersistentModel implements PersistentModel {
 	 * @throws PersistentModelException
 	 */
 	public Portfolio findPortfolioById(final Integer id) throws PersistentModelException {
-		Portfolio instance = m_portfolioHome.findById(id);
-		if (null == instance)
-			throw new PersistentModelException("Portfolio not found for id: " + id);
+		Portfolio instance = m_entityCache.get(Portfolio.class, id);
+		if (null == instance) {
+			long generation = m_entityCache.getGeneration(Portfolio.class);
+			instance = m_portfolioHome.findById(id);
+			if (null == instance)
+				throw new PersistentModelException("Portfolio not found for id: " + id);
+			m_entityCache.put(Portfolio.class, id, instance, generation);
+		}
 		return instance;
 	}
 
@@ -418,7 +513,14 @@ public class TradePersistentModel implements PersistentModel {
 	 * @throws PersistentModelException
 	 */
 	public Portfolio findPortfolioByName(String name) throws PersistentModelException {
-		return m_portfolioHome.findByName(name);
+		String key = "name:" + name;
+		Portfolio instance = m_entityCache.get(Portfolio.class, key);
+		if (null == instance) {
+			long generation = m_entityCache.getGeneration(Portfolio.class);
+			instance = m_portfolioHome.findByName(name);
+			m_entityCache.put(Portfolio.class, key, instance, generation);
+		}
+		return instance;
 	}
 
 	/**
@@ -428,7 +530,14 @@ public class TradePersistentModel implements PersistentModel {
 	 * @throws PersistentModelException
 	 */
 	public Portfolio findPortfolioDefault() throws PersistentModelException {
-		return m_portfolioHome.findDefault();
+		String key = "default";
+		Portfolio instance = m_entityCache.get(Portfolio.class, key);
+		if (null == instance) {
+			long generation = m_entityCache.getGeneration(Portfolio.class);
+			instance = m_portfolioHome.findDefault();
+			m_entityCache.put(Portfolio.class, key, instance, generation);
+		}
+		return instance;
 	}
 
 	/**
@@ -446,6 +555,8 @@ public class TradePersistentModel implements PersistentModel {
 		} catch (Exception e) {
 			throw new PersistentModelException(
 					"Error saving Portfolio: " + transientInstance.getName() + "\n Msg: " + e.getMessage());
+		} finally {
+			invalidateCache(transientInstance);
 		}
 
 	}
@@ -463,6 +574,8 @@ public class TradePersistentModel implements PersistentModel {
 			return m_portfolioHome.persistPortfolio(instance);
 		} catch (Exception ex) {
 			throw new PersistentModelException("Error saving PortfolioAccount: " + ex.getMessage());
+		} finally {
+			invalidateCache(instance);
 		}
 	}
 
@@ -591,6 +704,8 @@ public class TradePersistentModel implements PersistentModel {
 		} catch (Exception ex) {
 			throw new PersistentModelException("Error removing Tradestrategy TradePositions: "
 					+ tradestrategy.getContract().getSymbol() + "\n Msg: " + ex.getMessage());
+		} finally {
+			invalidateCache(tradestrategy);
 		}
 	}
 
@@ -664,7 +779,38 @@ public class TradePersistentModel implements PersistentModel {
 	 */
 	public List<Candle> findCandlesByContractDateRangeBarSize(final Integer idContract, final ZonedDateTime startDate,
 			final ZonedDateTime endDate, final Integer barSize) throws PersistentModelException {
-		return m_candleHome.findCandlesByContractDateRangeBarSize(idContract, startDate, endDate, barSize);
+
+		/*
+		 * Only whole days before today are cached, today's candles are still
+		 * being saved by the broker. A null argument is not filtered on so
+		 * the query is not a cacheable day range.
+		 */
+		CandleCache candleCache = CandleCache.getInstance();
+		if (!candleCache.isEnabled() || null == idContract || null == startDate || null == endDate
+				|| null == barSize || !endDate.isBefore(TradingCalendar
+						.getDateAtTime(TradingCalendar.getDateTimeNowMarketTimeZone(), 0, 0, 0)))
+			return m_candleHome.findCandlesByContractDateRangeBarSize(idContract, startDate, endDate, barSize);
+
+		List<Candle> candles = candleCache.find(idContract, startDate, endDate, barSize);
+		if (null != candles)
+			return candles;
+
+		/*
+		 * Not cached read whole days so every day in the range can be cached
+		 * then return the requested range.
+		 */
+		ZonedDateTime startDay = TradingCalendar.getDateAtTime(startDate, 0, 0, 0);
+		ZonedDateTime endDay = TradingCalendar.getDateAtTime(endDate, 23, 59, 59);
+		long generation = candleCache.getGeneration();
+		candles = m_candleHome.findCandlesByContractDateRangeBarSize(idContract, startDay, endDay, barSize);
+		candleCache.put(idContract, startDay, endDay, barSize, candles, generation);
+		List<Candle> results = new ArrayList<Candle>(candles.size());
+		for (Candle candle : candles) {
+			ZonedDateTime open = candle.getTradingday().getOpen();
+			if (!open.isBefore(startDate) && !open.isAfter(endDate))
+				results.add(candle);
+		}
+		return results;
 	}
 
 	/**
@@ -710,6 +856,8 @@ public class TradePersistentModel implements PersistentModel {
 		} catch (Exception e) {
 			throw new PersistentModelException(
 					"Error saving Contract: " + transientInstance.getSymbol() + "\n Msg: " + e.getMessage());
+		} finally {
+			invalidateCache(transientInstance);
 		}
 	}
 
@@ -778,6 +926,8 @@ public class TradePersistentModel implements PersistentModel {
 				}
 				Candle item = m_aspectHome.persist(candle);
 				candle.setVersion(item.getVersion());
+				CandleCache.getInstance().invalidate(candle.getContract().getIdContract(),
+						candle.getTradingday().getOpen(), candle.getBarSize());
 				return item;
 			}
 		} catch (OptimisticLockException ex1) {
@@ -788,6 +938,134 @@ public class TradePersistentModel implements PersistentModel {
 		}
 	}
 
+	/**
+	 * Method persistCandleAsync.
+	 * 
+	 * @param candle
+	 *            Candle
+	 * @throws PersistentModelException
+	 * @see org.trade.persistent.PersistentModel#persistCandleAsync(Candle)
+	 */
+	public void persistCandleAsync(final Candle candle) throws PersistentModelException {
+		try {
+			candleWrites.submit(candle.getContract().getIdContract() + ":" + candle.getBarSize() + ":"
+					+ candle.getStartPeriod().toInstant().toEpochMilli(), new AsyncWrite(this, candle));
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new PersistentModelException("Interrupted saving CandleItem: " + candle.getOpen());
+		}
+	}
+
+	/**
+	 * Method persistAspectAsync.
+	 * 
+	 * @param transientInstance
+	 *            Aspect
+	 * @param listener
+	 *            AspectWriteListener
+	 * @throws PersistentModelException
+	 * @see org.trade.persistent.PersistentModel#persistAspectAsync(Aspect,
+	 *      AspectWriteListener)
+	 */
+	public void persistAspectAsync(final Aspect transientInstance, final AspectWriteListener listener)
+			throws PersistentModelException {
+		if (null == transientInstance.getId()) {
+			Aspect instance = persistAspect(transientInstance);
+			if (null != listener)
+				listener.aspectSaved(instance);
+			return;
+		}
+		try {
+			aspectWrites.submit(transientInstance.getClass().getName() + ":" + transientInstance.getId(),
+					new AsyncWrite(this, transientInstance, listener));
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new PersistentModelException(
+					"Interrupted saving " + transientInstance.getClass().getSimpleName());
+		}
+	}
+
+	/**
+	 * Method awaitWrites.
+	 * 
+	 * @throws PersistentModelException
+	 * @see org.trade.persistent.PersistentModel#awaitWrites()
+	 */
+	public void awaitWrites() throws PersistentModelException {
+		candleWrites.flush();
+		aspectWrites.flush();
+	}
+
+	/**
+	 * Method awaitAspectWrites.
+	 * 
+	 * @throws PersistentModelException
+	 * @see org.trade.persistent.PersistentModel#awaitAspectWrites()
+	 */
+	public void awaitAspectWrites() throws PersistentModelException {
+		aspectWrites.flush();
+	}
+
+	/**
+	 * Method invalidateCache. Remove the cached entities that saving the
+	 * aspect could have changed.
+	 * 
+	 * @param aspect
+	 *            Aspect
+	 */
+	private void invalidateCache(final Aspect aspect) {
+		if (aspect instanceof Contract || aspect instanceof ContractLite || aspect instanceof TradePosition) {
+			m_entityCache.invalidate(Contract.class);
+		} else if (aspect instanceof Strategy || aspect instanceof Rule) {
+			m_entityCache.invalidate(Strategy.class);
+		} else if (aspect instanceof CodeType || aspect instanceof CodeValue) {
+			m_entityCache.invalidate(CodeType.class);
+		} else if (aspect instanceof Account || aspect instanceof Portfolio || aspect instanceof PortfolioAccount) {
+			m_entityCache.invalidate(Account.class);
+			m_entityCache.invalidate(Portfolio.class);
+		} else if (aspect instanceof Tradingday || aspect instanceof Tradestrategy) {
+			/*
+			 * Saving Tradingdays/Tradestrategies also saves new Contracts,
+			 * Strategies and CodeValues.
+			 */
+			m_entityCache.invalidate(Contract.class);
+			m_entityCache.invalidate(Strategy.class);
+			m_entityCache.invalidate(CodeType.class);
+		} else if (aspect instanceof Candle) {
+			Candle candle = (Candle) aspect;
+			if (null != candle.getContract() && null != candle.getTradingday()) {
+				CandleCache.getInstance().invalidate(candle.getContract().getIdContract(),
+						candle.getTradingday().getOpen(), candle.getBarSize());
+			}
+		}
+	}
+
+	/**
+	 * Method getTradestrategyLock.
+	 * 
+	 * @param tradeOrder
+	 *            TradeOrder
+	 * @return Object the lock of the order's Tradestrategy.
+	 */
+	private Object getTradestrategyLock(final TradeOrder tradeOrder) {
+		Integer idTradestrategy = null;
+		if (null != tradeOrder.getTradestrategyId()) {
+			idTradestrategy = tradeOrder.getTradestrategyId().getIdTradeStrategy();
+		} else if (null != tradeOrder.getTradestrategy()) {
+			idTradestrategy = tradeOrder.getTradestrategy().getIdTradeStrategy();
+		}
+		if (null == idTradestrategy)
+			idTradestrategy = 0;
+		Object lock = tradestrategyLocks.get(idTradestrategy);
+		if (null == lock) {
+			lock = new Object();
+			Object curr = tradestrategyLocks.putIfAbsent(idTradestrategy, lock);
+			if (null != curr)
+				lock = curr;
+		}
+		return lock;
+	}
+
 	/**
 	 * Method persistTradingday.
 	 * 
@@ -805,6 +1083,8 @@ public class TradePersistentModel implements PersistentModel {
 		} catch (Exception e) {
 			throw new PersistentModelException(
 					"Error saving Tradingday: " + transientInstance.getOpen() + "\n Msg: " + e.getMessage());
+		} finally {
+			invalidateCache(transientInstance);
 		}
 	}
 
@@ -818,7 +1098,22 @@ public class TradePersistentModel implements PersistentModel {
 	 * @see org.trade.persistent.PersistentModel#persistTradeOrder(TradeOrder)
 	 */
 
-	public synchronized TradeOrder persistTradeOrder(final TradeOrder tradeOrder) throws PersistentModelException {
+	public TradeOrder persistTradeOrder(final TradeOrder tradeOrder) throws PersistentModelException {
+		synchronized (getTradestrategyLock(tradeOrder)) {
+			return persistTradeOrderLocked(tradeOrder);
+		}
+	}
+
+	/**
+	 * Method persistTradeOrderLocked. Called holding the lock of the order's
+	 * Tradestrategy.
+	 * 
+	 * @param tradeOrder
+	 *            TradeOrder
+	 * @return TradeOrder
+	 * @throws PersistentModelException
+	 */
+	private TradeOrder persistTradeOrderLocked(final TradeOrder tradeOrder) throws PersistentModelException {
 		try {
 
 			if (null == tradeOrder.getOrderKey()) {
@@ -912,9 +1207,9 @@ public class TradePersistentModel implements PersistentModel {
 			boolean allOrdersCancelled = true;
 			int totalBuyQuantity = 0;
 			int totalSellQuantity = 0;
-			double totalCommission = 0;
-			double totalBuyValue = 0;
-			double totalSellValue = 0;
+			Price totalCommission = Price.ZERO;
+			Price totalBuyValue = Price.ZERO;
+			Price totalSellValue = Price.ZERO;
 
 			for (TradeOrder order : tradePosition.getTradeOrders()) {
 
@@ -934,15 +1229,15 @@ public class TradePersistentModel implements PersistentModel {
 
 					if (Action.BUY.equals(order.getAction())) {
 						totalBuyQuantity = totalBuyQuantity + order.getFilledQuantity();
-						totalBuyValue = totalBuyValue + (order.getAverageFilledPrice().doubleValue()
-								* order.getFilledQuantity().doubleValue());
+						totalBuyValue = totalBuyValue.add(
+								Price.valueOf(order.getAverageFilledPrice()).multiply(order.getFilledQuantity()));
 					} else {
 						totalSellQuantity = totalSellQuantity + order.getFilledQuantity();
-						totalSellValue = totalSellValue + (order.getAverageFilledPrice().doubleValue()
-								* order.getFilledQuantity().doubleValue());
+						totalSellValue = totalSellValue.add(
+								Price.valueOf(order.getAverageFilledPrice()).multiply(order.getFilledQuantity()));
 					}
 					if (null != order.getCommission()) {
-						totalCommission = totalCommission + order.getCommission().doubleValue();
+						totalCommission = totalCommission.add(Price.valueOf(order.getCommission()));
 					}
 				}
 			}
@@ -950,7 +1245,7 @@ public class TradePersistentModel implements PersistentModel {
 			 * totalFilledQuantity has changed for the trade update the trade
 			 * values.
 			 */
-			Money comms = new Money(totalCommission);
+			Money comms = totalCommission.toMoney();
 			if (CoreUtils.nullSafeComparator(new Integer(totalBuyQuantity), tradePosition.getTotalBuyQuantity()) != 0
 					|| CoreUtils.nullSafeComparator(new Integer(totalSellQuantity),
 							tradePosition.getTotalSellQuantity()) != 0) {
@@ -958,13 +1253,10 @@ public class TradePersistentModel implements PersistentModel {
 				int openQuantity = totalBuyQuantity - totalSellQuantity;
 				tradePosition.setOpenQuantity(openQuantity);
 				tradePosition.setTotalBuyQuantity(totalBuyQuantity);
-				tradePosition.setTotalBuyValue(
-						(new BigDecimal(totalBuyValue)).setScale(SCALE_5, BigDecimal.ROUND_HALF_EVEN));
+				tradePosition.setTotalBuyValue(totalBuyValue.toBigDecimal(SCALE_5));
 				tradePosition.setTotalSellQuantity(totalSellQuantity);
-				tradePosition.setTotalSellValue(
-						(new BigDecimal(totalSellValue)).setScale(SCALE_5, BigDecimal.ROUND_HALF_EVEN));
-				tradePosition.setTotalNetValue(
-						(new BigDecimal(totalSellValue - totalBuyValue)).setScale(SCALE_5, BigDecimal.ROUND_HALF_EVEN));
+				tradePosition.setTotalSellValue(totalSellValue.toBigDecimal(SCALE_5));
+				tradePosition.setTotalNetValue(totalSellValue.subtract(totalBuyValue).toBigDecimal(SCALE_5));
 				tradePosition.setTotalCommission(comms.getBigDecimalValue());
 				if (openQuantity > 0) {
 					tradePosition.setSide(Side.BOT);
@@ -1057,20 +1349,36 @@ public class TradePersistentModel implements PersistentModel {
 	 * @throws PersistentModelException
 	 * @see org.trade.persistent.PersistentModel#persistTradeOrderfill(TradeOrder)
 	 */
-	public synchronized TradeOrder persistTradeOrderfill(final TradeOrder tradeOrder) throws PersistentModelException {
+	public TradeOrder persistTradeOrderfill(final TradeOrder tradeOrder) throws PersistentModelException {
+		synchronized (getTradestrategyLock(tradeOrder)) {
+			return persistTradeOrderfillLocked(tradeOrder);
+		}
+	}
+
+	/**
+	 * Method persistTradeOrderfillLocked. Called holding the lock of the
+	 * order's Tradestrategy.
+	 * 
+	 * @param tradeOrder
+	 *            TradeOrder
+	 * @return TradeOrder
+	 * @throws PersistentModelException
+	 */
+	private TradeOrder persistTradeOrderfillLocked(final TradeOrder tradeOrder) throws PersistentModelException {
 		try {
 
 			ZonedDateTime filledDate = null;
-			double filledValue = 0;
-			double commission = 0;
+			Price filledValue = Price.ZERO;
+			Price commission = Price.ZERO;
 			int filledQuantity = 0;
 			for (TradeOrderfill tradeOrderfill : tradeOrder.getTradeOrderfills()) {
 
 				if (null != tradeOrderfill.getCommission())
-					commission = commission + tradeOrderfill.getCommission().doubleValue();
+					commission = commission.add(Price.valueOf(tradeOrderfill.getCommission()));
 
 				filledQuantity = filledQuantity + tradeOrderfill.getQuantity();
-				filledValue = filledValue + (tradeOrderfill.getPrice().doubleValue() * tradeOrderfill.getQuantity());
+				filledValue = filledValue
+						.add(Price.valueOf(tradeOrderfill.getPrice()).multiply(tradeOrderfill.getQuantity()));
 				if (null == filledDate)
 					filledDate = tradeOrderfill.getTime();
 
@@ -1079,10 +1387,9 @@ public class TradePersistentModel implements PersistentModel {
 			}
 
 			if (filledQuantity > 0) {
-				BigDecimal avgFillPrice = (new BigDecimal(filledValue / filledQuantity)).setScale(SCALE_5,
-						BigDecimal.ROUND_HALF_EVEN);
-				BigDecimal commissionAmount = (new BigDecimal(commission)).setScale(SCALE_2,
-						BigDecimal.ROUND_HALF_EVEN);
+				BigDecimal avgFillPrice = filledValue.divide(filledQuantity, RoundingMode.HALF_EVEN)
+						.toBigDecimal(SCALE_5);
+				BigDecimal commissionAmount = commission.toBigDecimal(SCALE_2);
 
 				/*
 				 * If filled qty is greater than current filled qty set the new
@@ -1154,9 +1461,14 @@ public class TradePersistentModel implements PersistentModel {
 	 * @see org.trade.persistent.PersistentModel#findStrategyById(Integer)
 	 */
 	public Strategy findStrategyById(final Integer id) throws PersistentModelException {
-		Strategy instance = m_strategyHome.findById(id);
-		if (null == instance)
-			throw new PersistentModelException("Strategy not found for Id: " + id);
+		Strategy instance = m_entityCache.get(Strategy.class, id);
+		if (null == instance) {
+			long generation = m_entityCache.getGeneration(Strategy.class);
+			instance = m_strategyHome.findById(id);
+			if (null == instance)
+				throw new PersistentModelException("Strategy not found for Id: " + id);
+			m_entityCache.put(Strategy.class, id, instance, generation);
+		}
 		return instance;
 	}
 
@@ -1170,7 +1482,14 @@ public class TradePersistentModel implements PersistentModel {
 	 * @see org.trade.persistent.PersistentModel#findStrategyByName(String)
 	 */
 	public Strategy findStrategyByName(String name) throws PersistentModelException {
-		return m_strategyHome.findByName(name);
+		String key = "name:" + name;
+		Strategy instance = m_entityCache.get(Strategy.class, key);
+		if (null == instance) {
+			long generation = m_entityCache.getGeneration(Strategy.class);
+			instance = m_strategyHome.findByName(name);
+			m_entityCache.put(Strategy.class, key, instance, generation);
+		}
+		return instance;
 	}
 
 	/**
@@ -1286,6 +1605,8 @@ public class TradePersistentModel implements PersistentModel {
 		} catch (Exception ex) {
 			throw new PersistentModelException(
 					"Error saving  " + transientInstance.getClass().getSimpleName() + " : " + ex.getMessage());
+		} finally {
+			invalidateCache(transientInstance);
 		}
 	}
 
@@ -1311,6 +1632,8 @@ public class TradePersistentModel implements PersistentModel {
 		} catch (Exception e) {
 			throw new PersistentModelException(
 					"Error saving  " + transientInstance.getClass().getSimpleName() + " : " + e.getMessage());
+		} finally {
+			invalidateCache(transientInstance);
 		}
 	};
 
@@ -1331,6 +1654,8 @@ public class TradePersistentModel implements PersistentModel {
 		} catch (Exception e) {
 			throw new PersistentModelException(
 					"Error removing  " + transientInstance.getClass().getSimpleName() + " : " + e.getMessage());
+		} finally {
+			invalidateCache(transientInstance);
 		}
 	}
 
@@ -1362,6 +1687,8 @@ public class TradePersistentModel implements PersistentModel {
 
 		} catch (Exception ex) {
 			throw new PersistentModelException("Error reassign Strategy: " + ex.getMessage());
+		} finally {
+			invalidateCache(tradingday);
 		}
 	}
 
@@ -1377,9 +1704,58 @@ public class TradePersistentModel implements PersistentModel {
 	 */
 	public CodeType findCodeTypeByNameType(String name, String type) throws PersistentModelException {
 		try {
-			return m_codeTypeHome.findByNameAndType(name, type);
+			String key = name + "|" + type;
+			CodeType instance = m_entityCache.get(CodeType.class, key);
+			if (null == instance) {
+				long generation = m_entityCache.getGeneration(CodeType.class);
+				instance = m_codeTypeHome.findByNameAndType(name, type);
+				m_entityCache.put(CodeType.class, key, instance, generation);
+			}
+			return instance;
 		} catch (Exception ex) {
 			throw new PersistentModelException("Error finding CodeType: " + ex.getMessage());
 		}
 	}
+
+	/*
+	 * A candle or aspect waiting to be saved by the model that submitted it.
+	 */
+	private static class AsyncWrite {
+		private final TradePersistentModel model;
+		private final Aspect aspect;
+		private final AspectWriteListener listener;
+
+		private AsyncWrite(TradePersistentModel model, Aspect aspect) {
+			this(model, aspect, null);
+		}
+
+		private AsyncWrite(TradePersistentModel model, Aspect aspect, AspectWriteListener listener) {
+			this.model = model;
+			this.aspect = aspect;
+			this.listener = listener;
+		}
+
+		private void save() throws PersistentModelException {
+			if (aspect instanceof Candle) {
+				model.persistCandle((Candle) aspect);
+				return;
+			}
+			Aspect instance = null;
+			try {
+				/*
+				 * The last value submitted wins so the version is taken from
+				 * the database.
+				 */
+				synchronized (aspect) {
+					instance = model.persistAspect(aspect, true);
+				}
+			} catch (PersistentModelException ex) {
+				if (null != listener)
+					listener.aspectFailed(aspect, ex);
+				throw ex;
+			}
+			if (null != listener)
+				listener.aspectSaved(instance);
+		}
+	}
 }
@@ -0,0 +1,255 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.persistent;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A write-behind queue for one entity type. Values are submitted with a key
+ * and written in batches on the queue's own thread. A value submitted for a
+ * key that is still waiting to be written replaces the waiting value so
+ * repeated updates of the same candle or account are written once.
+ * 
+ * A batch is written when batchSize values are waiting or the oldest waiting
+ * value is interval milliseconds old. Submitters block while maxPending values
+ * are waiting or being written. flush() blocks until every value submitted
+ * before the call has been written.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class WriteBehindQueue<K, V> {
+
+	private final static Logger _log = LoggerFactory.getLogger(WriteBehindQueue.class);
+
+	/**
+	 * Writes a batch of values, called on the queue's thread.
+	 */
+	public interface Writer<V> {
+		void write(List<V> values) throws Exception;
+	}
+
+	private final String name;
+	private final Writer<V> writer;
+	private final int batchSize;
+	private final long interval;
+	private final int maxPending;
+
+	private final Object lock = new Object();
+	private final LinkedHashMap<K, Pending<V>> pending = new LinkedHashMap<K, Pending<V>>();
+	private long oldestPending = 0;
+	private int inFlight = 0;
+	private long submitted = 0;
+	private long written = 0;
+	private int flushRequests = 0;
+	private Exception lastError = null;
+	private Thread thread = null;
+
+	/**
+	 * Constructor for WriteBehindQueue.
+	 * 
+	 * @param name
+	 *            String the name of the queue's thread.
+	 * @param writer
+	 *            Writer<V>
+	 * @param batchSize
+	 *            int values per write.
+	 * @param interval
+	 *            long longest time in milliseconds a value waits.
+	 * @param maxPending
+	 *            int values waiting or being written before submit blocks.
+	 */
+	public WriteBehindQueue(String name, Writer<V> writer, int batchSize, long interval, int maxPending) {
+		this.name = name;
+		this.writer = writer;
+		this.batchSize = Math.max(1, batchSize);
+		this.interval = Math.max(1, interval);
+		this.maxPending = Math.max(this.batchSize, maxPending);
+	}
+
+	/**
+	 * Method submit. Queues the value to be written, replacing any value
+	 * waiting for the same key. Blocks while the queue is full.
+	 * 
+	 * @param key
+	 *            K
+	 * @param value
+	 *            V
+	 * @throws InterruptedException
+	 */
+	public void submit(K key, V value) throws InterruptedException {
+		synchronized (lock) {
+			while (!pending.containsKey(key) && (pending.size() + inFlight) >= maxPending) {
+				lock.wait();
+			}
+			if (pending.isEmpty())
+				oldestPending = System.currentTimeMillis();
+			submitted++;
+			Pending<V> entry = pending.get(key);
+			if (null == entry) {
+				pending.put(key, new Pending<V>(value, submitted));
+			} else {
+				entry.value = value;
+			}
+			if (null == thread) {
+				thread = new Thread(new Runnable() {
+					public void run() {
+						process();
+					}
+				}, name);
+				thread.setDaemon(true);
+				thread.start();
+			}
+			if (pending.size() >= batchSize)
+				lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Method flush. Blocks until every value submitted before this call has
+	 * been written.
+	 * 
+	 * @throws PersistentModelException
+	 *             if a write failed since the last flush.
+	 */
+	public void flush() throws PersistentModelException {
+		synchronized (lock) {
+			long target = submitted;
+			flushRequests++;
+			lock.notifyAll();
+			try {
+				while (written < target) {
+					lock.wait();
+				}
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new PersistentModelException("Interrupted waiting for " + name + " to be written.");
+			} finally {
+				flushRequests--;
+			}
+			if (null != lastError) {
+				Exception ex = lastError;
+				lastError = null;
+				throw new PersistentModelException("Error writing " + name + " Msg: " + ex.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Method getPending.
+	 * 
+	 * @return int the values waiting or being written.
+	 */
+	public int getPending() {
+		synchronized (lock) {
+			return pending.size() + inFlight;
+		}
+	}
+
+	private void process() {
+		List<V> batch = new ArrayList<V>(batchSize);
+		while (true) {
+			synchronized (lock) {
+				try {
+					while (true) {
+						if (!pending.isEmpty()) {
+							long wait = (oldestPending + interval) - System.currentTimeMillis();
+							if (pending.size() >= batchSize || flushRequests > 0 || wait <= 0)
+								break;
+							lock.wait(wait);
+						} else {
+							lock.wait();
+						}
+					}
+				} catch (InterruptedException ex) {
+					_log.warn("Write behind queue " + name + " interrupted with " + pending.size()
+							+ " values not written.");
+					return;
+				}
+				Iterator<Pending<V>> iter = pending.values().iterator();
+				while (iter.hasNext() && batch.size() < batchSize) {
+					batch.add(iter.next().value);
+					iter.remove();
+				}
+				inFlight = batch.size();
+				oldestPending = System.currentTimeMillis();
+			}
+			Exception error = null;
+			try {
+				writer.write(batch);
+			} catch (Exception ex) {
+				error = ex;
+				_log.error("Error writing " + batch.size() + " values of " + name + " Msg: " + ex.getMessage(), ex);
+			}
+			batch.clear();
+			synchronized (lock) {
+				if (null != error)
+					lastError = error;
+				inFlight = 0;
+				/*
+				 * Values are waiting in the order they were first submitted,
+				 * everything submitted before the first waiting value is now
+				 * written.
+				 */
+				if (pending.isEmpty()) {
+					written = submitted;
+				} else {
+					written = pending.values().iterator().next().seq - 1;
+				}
+				lock.notifyAll();
+			}
+		}
+	}
+
+	/*
+	 * A waiting value and the sequence of the submit that queued its key.
+	 */
+	private static class Pending<V> {
+		private V value;
+		private final long seq;
+
+		private Pending(V value, long seq) {
+			this.value = value;
+			this.seq = seq;
+		}
+	}
+}
@@ -0,0 +1,462 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.persistent.dao;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+
+import org.hibernate.jdbc.ReturningWork;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.core.dao.EntityManagerHelper;
+import org.trade.strategy.data.CandleSeries;
+import org.trade.strategy.data.candle.CandleItem;
+
+/**
+ * Writes the candles of a CandleSeries with multi row JDBC inserts. A candle
+ * that already exists for the contract/tradingday/start/end (the candle_uq
+ * key) is updated in place, so a series can be re-written or written over a
+ * partial day without deleting the existing candles first.
+ * 
+ * Each call runs in its own transaction on a pooled connection so series for
+ * different contracts can be written from several threads at once, only the
+ * creation of a new Tradingday is serialized. Once written the idCandle and
+ * version of each candle are read back so the candles are not written again
+ * by the next persist of the series.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class CandleBulkWriter {
+
+	private final static Logger _log = LoggerFactory.getLogger(CandleBulkWriter.class);
+
+	/*
+	 * Rows per insert statement, each row is 15 parameters.
+	 */
+	private static final int ROWS_PER_STATEMENT = 250;
+
+	private static final String INSERT = "insert into candle (open, high, low, close, period, startPeriod, endPeriod, barSize, tradeCount, volume, vwap, lastUpdateDate, version, idContract, idTradingDay) values ";
+	private static final String ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, ?, ?)";
+	private static final String SELECT_IDS = "select idCandle, version, startPeriod, endPeriod from candle where idContract = ? and idTradingDay = ?";
+	private static final String UPSERT = " on duplicate key update open = values(open), high = values(high), low = values(low), close = values(close), period = values(period), barSize = values(barSize), tradeCount = values(tradeCount), volume = values(volume), vwap = values(vwap), lastUpdateDate = values(lastUpdateDate), version = version + 1";
+
+	private static final Object tradingdayLock = new Object();
+	private static final AtomicLong totalRows = new AtomicLong(0);
+	private static final AtomicLong totalNanos = new AtomicLong(0);
+
+	public CandleBulkWriter() {
+
+	}
+
+	/**
+	 * Method write. Inserts or updates every candle in the series that has not
+	 * already been persisted.
+	 * 
+	 * @param candleSeries
+	 *            CandleSeries
+	 * @return int the number of candles written.
+	 * @throws Exception
+	 */
+	public int write(final CandleSeries candleSeries) throws Exception {
+
+		if (candleSeries.isEmpty())
+			return 0;
+
+		long startTime = System.nanoTime();
+		final List<Candle> candles = new ArrayList<Candle>(candleSeries.getItemCount());
+		Contract contract = null;
+		try {
+			EntityManager entityManager = EntityManagerHelper.getEntityManager();
+			contract = entityManager.find(Contract.class, candleSeries.getContract().getIdContract());
+			if (null == contract) {
+				throw new Exception("Contract not found Symbol: " + candleSeries.getSymbol());
+			}
+			Tradingday tradingday = null;
+			for (int i = 0; i < candleSeries.getItemCount(); i++) {
+				Candle candle = ((CandleItem) candleSeries.getDataItem(i)).getCandle();
+				if (null != candle.getIdCandle())
+					continue;
+
+				if (!candle.getTradingday().equals(tradingday)) {
+					tradingday = findOrCreateTradingday(candle.getTradingday());
+				}
+				candle.setTradingday(tradingday);
+				candle.setContract(contract);
+				candles.add(candle);
+			}
+		} finally {
+			EntityManagerHelper.close();
+		}
+
+		final Integer idContract = contract.getIdContract();
+		EntityManager entityManager = EntityManagerHelper.getEntityManager();
+		try {
+			entityManager.getTransaction().begin();
+			EntityManagerHelper.doReturningWork(new ReturningWork<Integer>() {
+				public Integer execute(Connection connection) throws SQLException {
+					upsert(connection, candles, idContract);
+					selectIds(connection, candles, idContract);
+					return candles.size();
+				}
+			});
+			entityManager.getTransaction().commit();
+		} catch (Exception | Error ex) {
+			/*
+			 * Rollback on any failure not just SQLExceptions so the pooled
+			 * connection is never returned with an open transaction. The ids
+			 * are only kept if the transaction committed.
+			 */
+			EntityManagerHelper.rollback();
+			for (Candle candle : candles) {
+				candle.setIdCandle(null);
+				candle.setVersion(null);
+			}
+			throw ex;
+		} finally {
+			EntityManagerHelper.close();
+		}
+
+		/*
+		 * Remove the cached days that were written they are re-read from the
+		 * database on next use.
+		 */
+		Tradingday tradingday = null;
+		for (Candle candle : candles) {
+			if (candle.getTradingday() != tradingday) {
+				tradingday = candle.getTradingday();
+				CandleCache.getInstance().invalidate(contract.getIdContract(), tradingday.getOpen(),
+						candle.getBarSize());
+			}
+		}
+
+		long nanos = System.nanoTime() - startTime;
+		totalRows.addAndGet(candles.size());
+		totalNanos.addAndGet(nanos);
+		_log.info("Candles written Symbol: " + candleSeries.getSymbol() + " BarSize: " + candleSeries.getBarSize()
+				+ " Rows: " + candles.size() + " Time: " + (nanos / 1000000) + "ms Rows/sec: "
+				+ (long) getRowsPerSecond(candles.size(), nanos));
+		return candles.size();
+	}
+
+	/**
+	 * Method upsert. Insert or update the candles in statements of
+	 * ROWS_PER_STATEMENT rows.
+	 * 
+	 * @param connection
+	 *            Connection
+	 * @param candles
+	 *            List<Candle>
+	 * @param idContract
+	 *            Integer
+	 * @throws SQLException
+	 */
+	private static void upsert(Connection connection, List<Candle> candles, Integer idContract) throws SQLException {
+		int row = 0;
+		if (candles.size() >= ROWS_PER_STATEMENT) {
+			try (PreparedStatement statement = connection.prepareStatement(getUpsertSql(ROWS_PER_STATEMENT))) {
+				while ((candles.size() - row) >= ROWS_PER_STATEMENT) {
+					bind(statement, candles, row, ROWS_PER_STATEMENT, idContract);
+					statement.executeUpdate();
+					row += ROWS_PER_STATEMENT;
+				}
+			}
+		}
+		if (row < candles.size()) {
+			try (PreparedStatement statement = connection.prepareStatement(getUpsertSql(candles.size() - row))) {
+				bind(statement, candles, row, candles.size() - row, idContract);
+				statement.executeUpdate();
+			}
+		}
+	}
+
+	/**
+	 * Method selectIds. Set the idCandle and version of the written candles
+	 * from the database. The generated keys cannot be used as an upsert does
+	 * not return the key of a row that was updated, so the candles are
+	 * re-selected by Tradingday and matched on the candle_uq key.
+	 * 
+	 * @param connection
+	 *            Connection
+	 * @param candles
+	 *            List<Candle>
+	 * @param idContract
+	 *            Integer
+	 * @throws SQLException
+	 */
+	private static void selectIds(Connection connection, List<Candle> candles, Integer idContract)
+			throws SQLException {
+
+		Map<Integer, Map<String, Candle>> tradingdays = new HashMap<Integer, Map<String, Candle>>();
+		for (Candle candle : candles) {
+			Integer idTradingDay = candle.getTradingday().getIdTradingDay();
+			Map<String, Candle> keys = tradingdays.get(idTradingDay);
+			if (null == keys) {
+				keys = new HashMap<String, Candle>();
+				tradingdays.put(idTradingDay, keys);
+			}
+			keys.put(getKey(Timestamp.from(candle.getStartPeriod().toInstant()),
+					Timestamp.from(candle.getEndPeriod().toInstant())), candle);
+		}
+
+		try (PreparedStatement statement = connection.prepareStatement(SELECT_IDS)) {
+			for (Map.Entry<Integer, Map<String, Candle>> tradingday : tradingdays.entrySet()) {
+				Map<String, Candle> keys = tradingday.getValue();
+				statement.setInt(1, idContract);
+				statement.setInt(2, tradingday.getKey());
+				try (ResultSet resultSet = statement.executeQuery()) {
+					while (resultSet.next()) {
+						Candle candle = keys.remove(getKey(resultSet.getTimestamp(3), resultSet.getTimestamp(4)));
+						if (null != candle) {
+							candle.setIdCandle(resultSet.getInt(1));
+							candle.setVersion(resultSet.getInt(2));
+						}
+					}
+				}
+				if (!keys.isEmpty()) {
+					throw new SQLException("Candles not found after write idContract: " + idContract
+							+ " idTradingDay: " + tradingday.getKey() + " Rows: " + keys.size());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Method getKey.
+	 * 
+	 * @param startPeriod
+	 *            Timestamp
+	 * @param endPeriod
+	 *            Timestamp
+	 * @return String the start and end of the candle_uq key.
+	 */
+	private static String getKey(Timestamp startPeriod, Timestamp endPeriod) {
+		return startPeriod.getTime() + ":" + endPeriod.getTime();
+	}
+
+	/**
+	 * Method getRowsPerSecond.
+	 * 
+	 * @return double the rows per second over all the writes so far.
+	 */
+	public static double getRowsPerSecond() {
+		return getRowsPerSecond(totalRows.get(), totalNanos.get());
+	}
+
+	/**
+	 * Method getRowsPerSecond.
+	 * 
+	 * @param rows
+	 *            long
+	 * @param nanos
+	 *            long
+	 * @return double
+	 */
+	private static double getRowsPerSecond(long rows, long nanos) {
+		return (nanos > 0 ? (rows * 1000000000d) / nanos : 0);
+	}
+
+	/**
+	 * Method getUpsertSql.
+	 * 
+	 * @param rows
+	 *            int
+	 * @return String an insert for the number of rows that updates any that
+	 *         already exist.
+	 */
+	static String getUpsertSql(int rows) {
+		StringBuilder sql = new StringBuilder(INSERT.length() + ((ROW.length() + 2) * rows) + UPSERT.length());
+		sql.append(INSERT);
+		for (int i = 0; i < rows; i++) {
+			if (i > 0)
+				sql.append(", ");
+			sql.append(ROW);
+		}
+		sql.append(UPSERT);
+		return sql.toString();
+	}
+
+	/**
+	 * Method bind.
+	 * 
+	 * @param statement
+	 *            PreparedStatement
+	 * @param candles
+	 *            List<Candle>
+	 * @param offset
+	 *            int
+	 * @param rows
+	 *            int
+	 * @param idContract
+	 *            Integer
+	 * @throws SQLException
+	 */
+	private static void bind(PreparedStatement statement, List<Candle> candles, int offset, int rows,
+			Integer idContract) throws SQLException {
+		int index = 1;
+		for (int i = offset; i < (offset + rows); i++) {
+			Candle candle = candles.get(i);
+			setBigDecimal(statement, index++, candle.getOpen());
+			setBigDecimal(statement, index++, candle.getHigh());
+			setBigDecimal(statement, index++, candle.getLow());
+			setBigDecimal(statement, index++, candle.getClose());
+			statement.setString(index++, candle.getPeriod());
+			setTimestamp(statement, index++, candle.getStartPeriod());
+			setTimestamp(statement, index++, candle.getEndPeriod());
+			statement.setObject(index++, candle.getBarSize(), Types.INTEGER);
+			statement.setObject(index++, candle.getTradeCount(), Types.INTEGER);
+			statement.setObject(index++, candle.getVolume(), Types.BIGINT);
+			setBigDecimal(statement, index++, candle.getVwap());
+			setTimestamp(statement, index++, candle.getLastUpdateDate());
+			statement.setInt(index++, idContract);
+			statement.setInt(index++, candle.getTradingday().getIdTradingDay());
+		}
+	}
+
+	/**
+	 * Method setBigDecimal.
+	 * 
+	 * @param statement
+	 *            PreparedStatement
+	 * @param index
+	 *            int
+	 * @param value
+	 *            BigDecimal
+	 * @throws SQLException
+	 */
+	private static void setBigDecimal(PreparedStatement statement, int index, BigDecimal value) throws SQLException {
+		if (null == value) {
+			statement.setNull(index, Types.DECIMAL);
+		} else {
+			statement.setBigDecimal(index, value);
+		}
+	}
+
+	/**
+	 * Method setTimestamp. Dates are written as the instant as the
+	 * ZonedDateTimeConverter does.
+	 * 
+	 * @param statement
+	 *            PreparedStatement
+	 * @param index
+	 *            int
+	 * @param value
+	 *            ZonedDateTime
+	 * @throws SQLException
+	 */
+	private static void setTimestamp(PreparedStatement statement, int index, ZonedDateTime value) throws SQLException {
+		if (null == value) {
+			statement.setNull(index, Types.TIMESTAMP);
+		} else {
+			statement.setTimestamp(index, Timestamp.from(value.toInstant()));
+		}
+	}
+
+	/**
+	 * Method findOrCreateTradingday.
+	 * 
+	 * @param transientInstance
+	 *            Tradingday
+	 * @return Tradingday
+	 */
+	private Tradingday findOrCreateTradingday(Tradingday transientInstance) {
+
+		EntityManager entityManager = EntityManagerHelper.getEntityManager();
+		if (null != transientInstance.getIdTradingDay()) {
+			Tradingday instance = entityManager.find(Tradingday.class, transientInstance.getIdTradingDay());
+			if (null != instance)
+				return instance;
+		}
+		synchronized (tradingdayLock) {
+			Tradingday instance = findTradingdayByDate(entityManager, transientInstance.getOpen(),
+					transientInstance.getClose());
+			if (null == instance) {
+				try {
+					entityManager.getTransaction().begin();
+					entityManager.persist(transientInstance);
+					entityManager.getTransaction().commit();
+				} catch (RuntimeException re) {
+					EntityManagerHelper.rollback();
+					throw re;
+				}
+				instance = transientInstance;
+			}
+			return instance;
+		}
+	}
+
+	/**
+	 * Method findTradingdayByDate.
+	 * 
+	 * @param entityManager
+	 *            EntityManager
+	 * @param open
+	 *            ZonedDateTime
+	 * @param close
+	 *            ZonedDateTime
+	 * @return Tradingday
+	 */
+	private Tradingday findTradingdayByDate(EntityManager entityManager, ZonedDateTime open, ZonedDateTime close) {
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tradingday> query = builder.createQuery(Tradingday.class);
+		Root<Tradingday> from = query.from(Tradingday.class);
+		query.select(from);
+		query.where(builder.equal(from.get("open"), open), builder.equal(from.get("close"), close));
+		TypedQuery<Tradingday> typedQuery = entityManager.createQuery(query);
+		List<Tradingday> items = typedQuery.getResultList();
+		if (items.size() > 0) {
+			return items.get(0);
+		}
+		return null;
+	}
+}
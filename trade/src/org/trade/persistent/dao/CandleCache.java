@@ -0,0 +1,513 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.persistent.dao;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.core.properties.ConfigProperties;
+import org.trade.core.util.TradingCalendar;
+
+/**
+ * A local on disk cache of candles held as one file per
+ * contract/day/barSize. Each file is a fixed header followed by one column per
+ * candle field, prices are held as unscaled longs so the BigDecimals read back
+ * are equal to those read from the database. Files are read through a memory
+ * mapped buffer.
+ * 
+ * A day with no candles is held as an empty file so a re-run does not go back
+ * to the database looking for data that is not there. Files are written to a
+ * temporary file and moved into place so a concurrent reader never sees a
+ * partial file. Writing candles via CandleBulkWriter or
+ * PersistentModel.persistCandle, or removing a Candle, removes the file for
+ * that day, it will be re-filled on the next read. Candles read from the
+ * database before a day was removed are not written back for that day. If
+ * candles are deleted from the database by other means delete the cache
+ * directory.
+ * 
+ * The directory is set by trade.backtest.candleCache, if not set the cache is
+ * disabled.
+ * 
+ * Candles read from the cache have a Contract and Tradingday that only hold
+ * their ids and the Tradingday open/close.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class CandleCache {
+
+	private final static Logger _log = LoggerFactory.getLogger(CandleCache.class);
+
+	private static final int MAGIC = 0x43414e44;
+	private static final int FORMAT_VERSION = 1;
+	private static final int HEADER_SIZE = 40;
+	private static final long NULL_LONG = Long.MIN_VALUE;
+	private static final int NULL_INT = Integer.MIN_VALUE;
+	private static final String SUFFIX = ".candles";
+	private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+	private static CandleCache m_instance = null;
+
+	private final Path directory;
+	private final Map<Path, Long> invalidated = new HashMap<Path, Long>();
+	private long generation = 0;
+
+	static {
+		String directory = null;
+		try {
+			directory = ConfigProperties.getPropAsString("trade.backtest.candleCache");
+		} catch (Exception ex) {
+			_log.warn("Property trade.backtest.candleCache not set the candle cache is disabled.");
+		}
+		m_instance = new CandleCache((null == directory || directory.trim().isEmpty()) ? null
+				: Paths.get(directory.trim()));
+	}
+
+	/**
+	 * Constructor for CandleCache.
+	 * 
+	 * @param directory
+	 *            Path the root directory of the cache or null to disable.
+	 */
+	public CandleCache(Path directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Method getInstance.
+	 * 
+	 * @return CandleCache the cache configured by trade.backtest.candleCache.
+	 */
+	public static CandleCache getInstance() {
+		return m_instance;
+	}
+
+	/**
+	 * Method isEnabled.
+	 * 
+	 * @return boolean
+	 */
+	public boolean isEnabled() {
+		return null != directory;
+	}
+
+	/**
+	 * Method find. Get the candles for the Tradingdays whose open is between
+	 * the start and end dates, as
+	 * CandleHome.findCandlesByContractDateRangeBarSize.
+	 * 
+	 * @param idContract
+	 *            Integer
+	 * @param startOpenDate
+	 *            ZonedDateTime
+	 * @param endOpenDate
+	 *            ZonedDateTime
+	 * @param barSize
+	 *            int
+	 * @return List<Candle> the candles in start time order or null if any day
+	 *         in the range is not cached.
+	 */
+	public List<Candle> find(Integer idContract, ZonedDateTime startOpenDate, ZonedDateTime endOpenDate,
+			int barSize) {
+
+		if (!isEnabled() || null == idContract)
+			return null;
+
+		Contract contract = new Contract();
+		contract.setIdContract(idContract);
+		long start = startOpenDate.toInstant().toEpochMilli();
+		long end = endOpenDate.toInstant().toEpochMilli();
+		List<Candle> candles = new ArrayList<Candle>();
+		try {
+			for (LocalDate day = getDay(startOpenDate); !day.isAfter(getDay(endOpenDate)); day = day.plusDays(1)) {
+				Path file = getFile(idContract, barSize, day);
+				if (!Files.exists(file))
+					return null;
+				if (!read(file, contract, start, end, candles))
+					return null;
+			}
+		} catch (IOException ex) {
+			_log.warn("Error reading candle cache Msg: " + ex.getMessage());
+			return null;
+		}
+		return candles;
+	}
+
+	/**
+	 * Method getGeneration. Read this before reading candles from the database
+	 * and pass it to put() so candles read before a day was invalidated are
+	 * not cached.
+	 * 
+	 * @return long
+	 */
+	public synchronized long getGeneration() {
+		return this.generation;
+	}
+
+	/**
+	 * Method put. Cache the candles for every day from the start day to the
+	 * end day. The candles must be all the candles in the database for
+	 * Tradingdays that open on those days, days with no candles are cached as
+	 * empty.
+	 * 
+	 * @param idContract
+	 *            Integer
+	 * @param startDay
+	 *            ZonedDateTime
+	 * @param endDay
+	 *            ZonedDateTime
+	 * @param barSize
+	 *            int
+	 * @param candles
+	 *            List<Candle>
+	 * @param generation
+	 *            long the generation before the candles were read.
+	 */
+	public void put(Integer idContract, ZonedDateTime startDay, ZonedDateTime endDay, int barSize,
+			List<Candle> candles, long generation) {
+
+		if (!isEnabled() || null == idContract)
+			return;
+
+		Map<LocalDate, List<Candle>> days = new HashMap<LocalDate, List<Candle>>();
+		for (Candle candle : candles) {
+			LocalDate day = getDay(candle.getTradingday().getOpen());
+			List<Candle> dayCandles = days.get(day);
+			if (null == dayCandles) {
+				dayCandles = new ArrayList<Candle>();
+				days.put(day, dayCandles);
+			}
+			dayCandles.add(candle);
+		}
+		try {
+			for (LocalDate day = getDay(startDay); !day.isAfter(getDay(endDay)); day = day.plusDays(1)) {
+				List<Candle> dayCandles = days.get(day);
+				write(getFile(idContract, barSize, day), (null == dayCandles ? new ArrayList<Candle>(0) : dayCandles),
+						generation);
+			}
+		} catch (IOException ex) {
+			_log.warn("Error writing candle cache Msg: " + ex.getMessage());
+		}
+	}
+
+	/**
+	 * Method invalidate. Remove the cached candles for a Tradingday.
+	 * 
+	 * @param idContract
+	 *            Integer
+	 * @param tradingdayOpen
+	 *            ZonedDateTime
+	 * @param barSize
+	 *            int
+	 */
+	public void invalidate(Integer idContract, ZonedDateTime tradingdayOpen, int barSize) {
+
+		if (!isEnabled() || null == idContract || null == tradingdayOpen)
+			return;
+		try {
+			Path file = getFile(idContract, barSize, getDay(tradingdayOpen));
+			synchronized (this) {
+				this.invalidated.put(file, ++this.generation);
+				Files.deleteIfExists(file);
+			}
+		} catch (IOException ex) {
+			_log.warn("Error removing candle cache Msg: " + ex.getMessage());
+		}
+	}
+
+	/**
+	 * Method getFile.
+	 * 
+	 * @param idContract
+	 *            Integer
+	 * @param barSize
+	 *            int
+	 * @param day
+	 *            LocalDate
+	 * @return Path
+	 */
+	private Path getFile(Integer idContract, int barSize, LocalDate day) {
+		return directory.resolve(idContract.toString()).resolve(Integer.toString(barSize))
+				.resolve(day.format(DAY_FORMAT) + SUFFIX);
+	}
+
+	/**
+	 * Method getDay.
+	 * 
+	 * @param date
+	 *            ZonedDateTime
+	 * @return LocalDate the day in the market time zone.
+	 */
+	private static LocalDate getDay(ZonedDateTime date) {
+		return date.withZoneSameInstant(TradingCalendar.MKT_TIMEZONE).toLocalDate();
+	}
+
+	/**
+	 * Method read. Add the candles in a file whose Tradingday opens between
+	 * start and end.
+	 * 
+	 * @param file
+	 *            Path
+	 * @param contract
+	 *            Contract
+	 * @param start
+	 *            long
+	 * @param end
+	 *            long
+	 * @param candles
+	 *            List<Candle>
+	 * @return boolean false if the file is not a valid cache file.
+	 * @throws IOException
+	 */
+	private static boolean read(Path file, Contract contract, long start, long end, List<Candle> candles)
+			throws IOException {
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_SIZE)
+				return false;
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION)
+				return false;
+			int rows = buffer.getInt();
+			int priceScale = buffer.getInt();
+			int idTradingday = buffer.getInt();
+			int barSize = buffer.getInt();
+			long open = buffer.getLong();
+			long close = buffer.getLong();
+			if (rows == 0 || open < start || open > end)
+				return true;
+
+			Tradingday tradingday = new Tradingday(toDate(open), toDate(close));
+			tradingday.setIdTradingDay(idTradingday);
+
+			int idCandle = HEADER_SIZE;
+			int version = idCandle + (rows * 4);
+			int tradeCount = version + (rows * 4);
+			int startPeriod = tradeCount + (rows * 4);
+			int endPeriod = startPeriod + (rows * 8);
+			int lastUpdateDate = endPeriod + (rows * 8);
+			int volume = lastUpdateDate + (rows * 8);
+			int openPrice = volume + (rows * 8);
+			int highPrice = openPrice + (rows * 8);
+			int lowPrice = highPrice + (rows * 8);
+			int closePrice = lowPrice + (rows * 8);
+			int vwapPrice = closePrice + (rows * 8);
+			int period = vwapPrice + (rows * 8);
+
+			byte[] bytes = new byte[64];
+			buffer.position(period);
+			for (int i = 0; i < rows; i++) {
+				Candle candle = new Candle();
+				candle.setContract(contract);
+				candle.setTradingday(tradingday);
+				candle.setBarSize(barSize);
+				candle.setIdCandle(toInteger(buffer.getInt(idCandle + (i * 4))));
+				candle.setVersion(toInteger(buffer.getInt(version + (i * 4))));
+				candle.setTradeCount(toInteger(buffer.getInt(tradeCount + (i * 4))));
+				candle.setStartPeriod(toDate(buffer.getLong(startPeriod + (i * 8))));
+				candle.setEndPeriod(toDate(buffer.getLong(endPeriod + (i * 8))));
+				candle.setLastUpdateDate(toDate(buffer.getLong(lastUpdateDate + (i * 8))));
+				long value = buffer.getLong(volume + (i * 8));
+				candle.setVolume(value == NULL_LONG ? null : value);
+				candle.setOpen(toBigDecimal(buffer.getLong(openPrice + (i * 8)), priceScale));
+				candle.setHigh(toBigDecimal(buffer.getLong(highPrice + (i * 8)), priceScale));
+				candle.setLow(toBigDecimal(buffer.getLong(lowPrice + (i * 8)), priceScale));
+				candle.setClose(toBigDecimal(buffer.getLong(closePrice + (i * 8)), priceScale));
+				candle.setVwap(toBigDecimal(buffer.getLong(vwapPrice + (i * 8)), priceScale));
+				int length = buffer.getInt();
+				if (length >= 0) {
+					if (bytes.length < length)
+						bytes = new byte[length];
+					buffer.get(bytes, 0, length);
+					candle.setPeriod(new String(bytes, 0, length, StandardCharsets.UTF_8));
+				}
+				candles.add(candle);
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Method write.
+	 * 
+	 * @param file
+	 *            Path
+	 * @param candles
+	 *            List<Candle> the candles for one Tradingday.
+	 * @param generation
+	 *            long the generation before the candles were read.
+	 * @throws IOException
+	 */
+	private void write(Path file, List<Candle> candles, long generation) throws IOException {
+
+		int rows = candles.size();
+		int priceScale = 0;
+		byte[][] periods = new byte[rows][];
+		int periodSize = 0;
+		for (int i = 0; i < rows; i++) {
+			Candle candle = candles.get(i);
+			priceScale = Math.max(priceScale, getScale(candle.getOpen()));
+			priceScale = Math.max(priceScale, getScale(candle.getHigh()));
+			priceScale = Math.max(priceScale, getScale(candle.getLow()));
+			priceScale = Math.max(priceScale, getScale(candle.getClose()));
+			priceScale = Math.max(priceScale, getScale(candle.getVwap()));
+			periods[i] = (null == candle.getPeriod()) ? null : candle.getPeriod().getBytes(StandardCharsets.UTF_8);
+			periodSize += 4 + (null == periods[i] ? 0 : periods[i].length);
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + (rows * ((3 * 4) + (9 * 8))) + periodSize);
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC);
+		buffer.putInt(FORMAT_VERSION);
+		buffer.putInt(rows);
+		buffer.putInt(priceScale);
+		if (rows > 0) {
+			Tradingday tradingday = candles.get(0).getTradingday();
+			buffer.putInt(tradingday.getIdTradingDay());
+			buffer.putInt(candles.get(0).getBarSize());
+			buffer.putLong(tradingday.getOpen().toInstant().toEpochMilli());
+			buffer.putLong(tradingday.getClose().toInstant().toEpochMilli());
+		} else {
+			buffer.putInt(NULL_INT);
+			buffer.putInt(NULL_INT);
+			buffer.putLong(NULL_LONG);
+			buffer.putLong(NULL_LONG);
+		}
+		for (Candle candle : candles)
+			buffer.putInt(toInt(candle.getIdCandle()));
+		for (Candle candle : candles)
+			buffer.putInt(toInt(candle.getVersion()));
+		for (Candle candle : candles)
+			buffer.putInt(toInt(candle.getTradeCount()));
+		for (Candle candle : candles)
+			buffer.putLong(toLong(candle.getStartPeriod()));
+		for (Candle candle : candles)
+			buffer.putLong(toLong(candle.getEndPeriod()));
+		for (Candle candle : candles)
+			buffer.putLong(toLong(candle.getLastUpdateDate()));
+		for (Candle candle : candles)
+			buffer.putLong(null == candle.getVolume() ? NULL_LONG : candle.getVolume());
+		for (Candle candle : candles)
+			buffer.putLong(toLong(candle.getOpen(), priceScale));
+		for (Candle candle : candles)
+			buffer.putLong(toLong(candle.getHigh(), priceScale));
+		for (Candle candle : candles)
+			buffer.putLong(toLong(candle.getLow(), priceScale));
+		for (Candle candle : candles)
+			buffer.putLong(toLong(candle.getClose(), priceScale));
+		for (Candle candle : candles)
+			buffer.putLong(toLong(candle.getVwap(), priceScale));
+		for (byte[] period : periods) {
+			if (null == period) {
+				buffer.putInt(-1);
+			} else {
+				buffer.putInt(period.length);
+				buffer.put(period);
+			}
+		}
+		buffer.flip();
+
+		Files.createDirectories(file.getParent());
+		Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+				while (buffer.hasRemaining())
+					channel.write(buffer);
+			}
+			/*
+			 * Do not replace a file invalidated after the candles were read.
+			 */
+			synchronized (this) {
+				Long removed = this.invalidated.get(file);
+				if (null == removed || removed <= generation)
+					Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	private static int getScale(BigDecimal value) {
+		return (null == value ? 0 : Math.max(0, value.scale()));
+	}
+
+	private static long toLong(BigDecimal value, int scale) {
+		return (null == value ? NULL_LONG : value.setScale(scale).unscaledValue().longValue());
+	}
+
+	private static BigDecimal toBigDecimal(long value, int scale) {
+		return (value == NULL_LONG ? null : BigDecimal.valueOf(value, scale));
+	}
+
+	private static long toLong(ZonedDateTime value) {
+		return (null == value ? NULL_LONG : value.toInstant().toEpochMilli());
+	}
+
+	private static ZonedDateTime toDate(long value) {
+		return (value == NULL_LONG ? null
+				: ZonedDateTime.ofInstant(Instant.ofEpochMilli(value), TradingCalendar.MKT_TIMEZONE));
+	}
+
+	private static int toInt(Integer value) {
+		return (null == value ? NULL_INT : value);
+	}
+
+	private static Integer toInteger(int value) {
+		return (value == NULL_INT ? null : value);
+	}
+}
@@ -51,7 +51,6 @@ import javax.persistence.criteria.Root;
 
 import org.trade.core.dao.EntityManagerHelper;
 import org.trade.strategy.data.CandleSeries;
-import org.trade.strategy.data.candle.CandleItem;
 
 /**
  */
@@ -69,76 +68,16 @@ public class CandleHome {
 	 *            CandleSeries
 	 * @throws Exception
 	 */
-	public synchronized void persistCandleSeries(final CandleSeries candleSeries) throws Exception {
-		Candle transientInstance = null;
+	public void persistCandleSeries(final CandleSeries candleSeries) throws Exception {
 		try {
-			if (candleSeries.isEmpty())
-				return;
-
-			EntityManager entityManager = EntityManagerHelper.getEntityManager();
-			entityManager.getTransaction().begin();
-			Tradingday tradingday = null;
-			Contract contract = findContractById(candleSeries.getContract().getIdContract());
-			for (int i = 0; i < candleSeries.getItemCount(); i++) {
-
-				CandleItem candleItem = (CandleItem) candleSeries.getDataItem(i);
-				if (null != candleItem.getCandle().getIdCandle()) {
-					Candle instance = entityManager.find(Candle.class, candleItem.getCandle().getIdCandle());
-					if (instance.equals(candleItem.getCandle())) {
-						continue;
-					} else {
-						// This should never happen.
-						throw new Exception("Count: " + i + " Symbol: " + candleSeries.getSymbol() + "candleid: "
-								+ candleItem.getCandle().getIdCandle() + " open: "
-								+ candleItem.getCandle().getStartPeriod());
-					}
-				}
-
-				if (!candleItem.getCandle().getTradingday().equals(tradingday)) {
-
-					if (null == candleItem.getCandle().getTradingday().getIdTradingDay()) {
-						tradingday = findTradingdayByDate(candleItem.getCandle().getTradingday().getOpen(),
-								candleItem.getCandle().getTradingday().getClose());
-					} else {
-						tradingday = findTradingdayById(candleItem.getCandle().getTradingday().getIdTradingDay());
-					}
-
-					if (null == tradingday) {
-						entityManager.persist(candleItem.getCandle().getTradingday());
-						entityManager.getTransaction().commit();
-						entityManager.getTransaction().begin();
-						tradingday = candleItem.getCandle().getTradingday();
-					} else {
-						Integer idTradingday = tradingday.getIdTradingDay();
-						Integer idContract = contract.getIdContract();
-						Integer barSize = candleSeries.getBarSize();
-						String hqlDelete = "delete Candle where idContract = :idContract and idTradingday = :idTradingday and barSize = :barSize";
-						entityManager.createQuery(hqlDelete).setParameter("idContract", idContract)
-								.setParameter("idTradingday", idTradingday).setParameter("barSize", barSize)
-								.executeUpdate();
-						entityManager.getTransaction().commit();
-						entityManager.getTransaction().begin();
-					}
-				}
-
-				transientInstance = candleItem.getCandle();
-				transientInstance.setTradingday(tradingday);
-				transientInstance.setContract(contract);
-				entityManager.persist(transientInstance);
-
-				// Commit every 50 rows
-				if ((Math.floor(i / 50d) == (i / 50d)) && (i > 0)) {
-					entityManager.getTransaction().commit();
-					entityManager.getTransaction().begin();
-				}
-			}
-			entityManager.getTransaction().commit();
+			/*
+			 * Candles are written with JDBC batches that upsert on the
+			 * candle_uq key, see CandleBulkWriter.
+			 */
+			new CandleBulkWriter().write(candleSeries);
 		} catch (Exception re) {
 			EntityManagerHelper.logError("Error persistCandleSeries failed :" + re.getMessage(), re);
-			EntityManagerHelper.rollback();
 			throw re;
-		} finally {
-			EntityManagerHelper.close();
 		}
 	}
 
@@ -393,73 +332,4 @@ public class CandleHome {
 			EntityManagerHelper.close();
 		}
 	}
-
-	/**
-	 * Method findContractById.
-	 * 
-	 * @param id
-	 *            Integer
-	 * @return Contract
-	 */
-	private Contract findContractById(Integer id) {
-
-		try {
-			EntityManager entityManager = EntityManagerHelper.getEntityManager();
-			Contract instance = entityManager.find(Contract.class, id);
-			return instance;
-		} catch (Exception re) {
-			throw re;
-		}
-	}
-
-	/**
-	 * Method findContractById.
-	 * 
-	 * @param id
-	 *            Integer
-	 * @return Contract
-	 */
-	private Tradingday findTradingdayById(Integer id) {
-
-		try {
-			EntityManager entityManager = EntityManagerHelper.getEntityManager();
-			Tradingday instance = entityManager.find(Tradingday.class, id);
-			return instance;
-		} catch (Exception re) {
-			throw re;
-		}
-	}
-
-	/**
-	 * Method findTradingdayByDate.
-	 * 
-	 * @param open
-	 *            ZonedDateTime
-	 * @param close
-	 *            ZonedDateTime
-	 * @return Tradingday
-	 */
-	private Tradingday findTradingdayByDate(ZonedDateTime open, ZonedDateTime close) {
-
-		try {
-			EntityManager entityManager = EntityManagerHelper.getEntityManager();
-			CriteriaBuilder builder = entityManager.getCriteriaBuilder();
-			CriteriaQuery<Tradingday> query = builder.createQuery(Tradingday.class);
-			Root<Tradingday> from = query.from(Tradingday.class);
-			query.select(from);
-			if (null != open)
-				query.where(builder.equal(from.get("open"), open));
-			if (null != close)
-				query.where(builder.equal(from.get("close"), close));
-			List<Tradingday> items = entityManager.createQuery(query).getResultList();
-
-			if (items.size() > 0) {
-				return items.get(0);
-			}
-			return null;
-
-		} catch (Exception re) {
-			throw re;
-		}
-	}
 }
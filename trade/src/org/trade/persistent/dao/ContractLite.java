@@ -76,6 +76,20 @@ public class ContractLite extends Aspect implements Serializable, Cloneable {
 		this.id = id;
 	}
 
+	/**
+	 * Copy constructor for ContractLite. The TradePosition is the same
+	 * instance.
+	 * 
+	 * @param contract
+	 *            ContractLite
+	 */
+	public ContractLite(ContractLite contract) {
+		this.id = contract.id;
+		this.version = contract.version;
+		this.setDirty(contract.isDirty());
+		this.tradePosition = contract.tradePosition;
+	}
+
 	/**
 	 * Method getIdContract.
 	 * 
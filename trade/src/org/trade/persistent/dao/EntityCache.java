@@ -0,0 +1,350 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.persistent.dao;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.core.properties.ConfigProperties;
+
+/**
+ * In memory cache of the reference data read via the TradePersistentModel i.e
+ * Contracts, Strategies, CodeTypes, Accounts and Portfolios. Entries are held
+ * in regions one per entity class and keyed by the id or the natural key the
+ * entity was found by.
+ * 
+ * Entries are held serialized so every get returns a new detached copy that
+ * the caller can change without changing the cache, just as if it had been
+ * read from the database. The cache holds at most maxSize entries (least
+ * recently used are removed first) and an entry expires ttl milliseconds
+ * after it was read from the database. The model invalidates a region when an
+ * entity of that class is saved.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class EntityCache {
+
+	private final static Logger _log = LoggerFactory.getLogger(EntityCache.class);
+
+	private static EntityCache m_instance = null;
+
+	private final int maxSize;
+	private final long ttl;
+
+	private final LinkedHashMap<Key, Entry> entries;
+	private final Map<Class<?>, Region> regions = new HashMap<Class<?>, Region>();
+
+	static {
+		int maxSize = 1000;
+		int ttl = 300;
+		try {
+			maxSize = ConfigProperties.getPropAsInt("trade.persistent.cache.size");
+			ttl = ConfigProperties.getPropAsInt("trade.persistent.cache.ttl");
+		} catch (Exception ex) {
+			_log.warn("Property trade.persistent.cache not set using size: " + maxSize + " ttl: " + ttl + "secs");
+		}
+		m_instance = new EntityCache(maxSize, ttl * 1000L);
+	}
+
+	/**
+	 * Constructor for EntityCache.
+	 * 
+	 * @param maxSize
+	 *            int the most entries held, 0 disables the cache.
+	 * @param ttl
+	 *            long milliseconds an entry is held after it was read.
+	 */
+	public EntityCache(final int maxSize, long ttl) {
+		this.maxSize = Math.max(0, maxSize);
+		this.ttl = ttl;
+		this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 3618467383536093493L;
+
+			protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+				return size() > EntityCache.this.maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Method getInstance.
+	 * 
+	 * @return EntityCache
+	 */
+	public static EntityCache getInstance() {
+		return m_instance;
+	}
+
+	/**
+	 * Method isEnabled.
+	 * 
+	 * @return boolean
+	 */
+	public boolean isEnabled() {
+		return this.maxSize > 0;
+	}
+
+	/**
+	 * Method get.
+	 * 
+	 * @param region
+	 *            Class<T>
+	 * @param key
+	 *            Object
+	 * @return T a copy of the cached entity or null if not cached.
+	 */
+	public <T> T get(final Class<T> region, final Object key) {
+		if (!isEnabled())
+			return null;
+
+		byte[] state = null;
+		synchronized (this.entries) {
+			Region stats = getRegion(region);
+			Entry entry = this.entries.get(new Key(region, key));
+			if (null != entry && entry.expires < System.currentTimeMillis()) {
+				this.entries.remove(new Key(region, key));
+				entry = null;
+			}
+			if (null == entry) {
+				stats.misses++;
+				return null;
+			}
+			stats.hits++;
+			state = entry.state;
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(state))) {
+			return region.cast(in.readObject());
+		} catch (Exception ex) {
+			_log.warn("Could not read cached " + region.getSimpleName() + " key: " + key + " Msg: " + ex.getMessage());
+			invalidate(region);
+			return null;
+		}
+	}
+
+	/**
+	 * Method getGeneration. Read this before reading an entity from the
+	 * database and pass it to put() so an entity read before the region was
+	 * invalidated is not cached.
+	 * 
+	 * @param region
+	 *            Class<?>
+	 * @return long
+	 */
+	public long getGeneration(final Class<?> region) {
+		synchronized (this.entries) {
+			return getRegion(region).generation;
+		}
+	}
+
+	/**
+	 * Method put.
+	 * 
+	 * @param region
+	 *            Class<?>
+	 * @param key
+	 *            Object
+	 * @param value
+	 *            Serializable the entity read from the database.
+	 * @param generation
+	 *            long the region generation before the entity was read.
+	 */
+	public void put(final Class<?> region, final Object key, final Serializable value, long generation) {
+		if (!isEnabled() || null == value)
+			return;
+
+		byte[] state = null;
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+			try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+				out.writeObject(value);
+			}
+			state = bytes.toByteArray();
+		} catch (Exception ex) {
+			_log.warn("Could not cache " + region.getSimpleName() + " key: " + key + " Msg: " + ex.getMessage());
+			return;
+		}
+		synchronized (this.entries) {
+			if (getRegion(region).generation == generation) {
+				this.entries.put(new Key(region, key), new Entry(state, System.currentTimeMillis() + this.ttl));
+			}
+		}
+	}
+
+	/**
+	 * Method invalidate. Removes all the entries of the region.
+	 * 
+	 * @param region
+	 *            Class<?>
+	 */
+	public void invalidate(final Class<?> region) {
+		synchronized (this.entries) {
+			Region stats = getRegion(region);
+			stats.generation++;
+			stats.invalidations++;
+			Iterator<Key> iter = this.entries.keySet().iterator();
+			while (iter.hasNext()) {
+				if (iter.next().region == region)
+					iter.remove();
+			}
+		}
+	}
+
+	/**
+	 * Method clear.
+	 */
+	public void clear() {
+		synchronized (this.entries) {
+			for (Region stats : this.regions.values()) {
+				stats.generation++;
+			}
+			this.entries.clear();
+		}
+	}
+
+	/**
+	 * Method size.
+	 * 
+	 * @return int
+	 */
+	public int size() {
+		synchronized (this.entries) {
+			return this.entries.size();
+		}
+	}
+
+	/**
+	 * Method getHits.
+	 * 
+	 * @param region
+	 *            Class<?>
+	 * @return long
+	 */
+	public long getHits(final Class<?> region) {
+		synchronized (this.entries) {
+			return getRegion(region).hits;
+		}
+	}
+
+	/**
+	 * Method getMisses.
+	 * 
+	 * @param region
+	 *            Class<?>
+	 * @return long
+	 */
+	public long getMisses(final Class<?> region) {
+		synchronized (this.entries) {
+			return getRegion(region).misses;
+		}
+	}
+
+	/**
+	 * Method toString. The hits, misses and invalidations of each region.
+	 * 
+	 * @return String
+	 */
+	public String toString() {
+		StringBuilder statistics = new StringBuilder("EntityCache size: ");
+		synchronized (this.entries) {
+			statistics.append(this.entries.size());
+			for (Map.Entry<Class<?>, Region> region : this.regions.entrySet()) {
+				Region stats = region.getValue();
+				long reads = stats.hits + stats.misses;
+				statistics.append(" " + region.getKey().getSimpleName() + " hits: " + stats.hits + " misses: "
+						+ stats.misses + " ratio: " + (reads == 0 ? 0 : (stats.hits * 100 / reads))
+						+ "% invalidations: " + stats.invalidations);
+			}
+		}
+		return statistics.toString();
+	}
+
+	private Region getRegion(final Class<?> region) {
+		Region stats = this.regions.get(region);
+		if (null == stats) {
+			stats = new Region();
+			this.regions.put(region, stats);
+		}
+		return stats;
+	}
+
+	private static class Key {
+		private final Class<?> region;
+		private final Object key;
+
+		private Key(Class<?> region, Object key) {
+			this.region = region;
+			this.key = key;
+		}
+
+		public int hashCode() {
+			return (31 * region.hashCode()) + (null == key ? 0 : key.hashCode());
+		}
+
+		public boolean equals(Object object) {
+			if (!(object instanceof Key))
+				return false;
+			Key other = (Key) object;
+			return region == other.region && (null == key ? null == other.key : key.equals(other.key));
+		}
+	}
+
+	private static class Entry {
+		private final byte[] state;
+		private final long expires;
+
+		private Entry(byte[] state, long expires) {
+			this.state = state;
+			this.expires = expires;
+		}
+	}
+
+	private static class Region {
+		private long generation = 0;
+		private long hits = 0;
+		private long misses = 0;
+		private long invalidations = 0;
+	}
+}
@@ -136,6 +136,69 @@ public class TradeOrder extends Aspect implements java.io.Serializable, Cloneabl
 	public TradeOrder() {
 	}
 
+	/**
+	 * Copy constructor for TradeOrder. The fills are copied and reference the
+	 * new order. The TradePosition, Tradestrategy and TradestrategyLite are
+	 * the same instances as the original order.
+	 * 
+	 * @param tradeOrder
+	 *            TradeOrder
+	 */
+	public TradeOrder(TradeOrder tradeOrder) {
+		this.id = tradeOrder.id;
+		this.version = tradeOrder.version;
+		this.setDirty(tradeOrder.isDirty());
+		this.tradePosition = tradeOrder.tradePosition;
+		this.tradestrategy = tradeOrder.tradestrategy;
+		this.tradestrategyId = tradeOrder.tradestrategyId;
+		this.action = tradeOrder.action;
+		this.accountNumber = tradeOrder.accountNumber;
+		this.averageFilledPrice = tradeOrder.averageFilledPrice;
+		this.allOrNothing = tradeOrder.allOrNothing;
+		this.auxPrice = tradeOrder.auxPrice;
+		this.clientId = tradeOrder.clientId;
+		this.commission = tradeOrder.commission;
+		this.createDate = tradeOrder.createDate;
+		this.displayQuantity = tradeOrder.displayQuantity;
+		this.FAGroup = tradeOrder.FAGroup;
+		this.FAProfile = tradeOrder.FAProfile;
+		this.FAMethod = tradeOrder.FAMethod;
+		this.FAPercent = tradeOrder.FAPercent;
+		this.filledQuantity = tradeOrder.filledQuantity;
+		this.filledDate = tradeOrder.filledDate;
+		this.goodAfterTime = tradeOrder.goodAfterTime;
+		this.goodTillTime = tradeOrder.goodTillTime;
+		this.hidden = tradeOrder.hidden;
+		this.isOpenPosition = tradeOrder.isOpenPosition;
+		this.isFilled = tradeOrder.isFilled;
+		this.limitPrice = tradeOrder.limitPrice;
+		this.ocaGroupName = tradeOrder.ocaGroupName;
+		this.ocaType = tradeOrder.ocaType;
+		this.orderKey = tradeOrder.orderKey;
+		this.orderReference = tradeOrder.orderReference;
+		this.orderType = tradeOrder.orderType;
+		this.overrideConstraints = tradeOrder.overrideConstraints;
+		this.permId = tradeOrder.permId;
+		this.parentId = tradeOrder.parentId;
+		this.quantity = tradeOrder.quantity;
+		this.timeInForce = tradeOrder.timeInForce;
+		this.status = tradeOrder.status;
+		this.stopPrice = tradeOrder.stopPrice;
+		this.transmit = tradeOrder.transmit;
+		this.trailStopPrice = tradeOrder.trailStopPrice;
+		this.trailingPercent = tradeOrder.trailingPercent;
+		this.triggerMethod = tradeOrder.triggerMethod;
+		this.warningMessage = tradeOrder.warningMessage;
+		this.whyHeld = tradeOrder.whyHeld;
+		this.lastUpdateDate = tradeOrder.lastUpdateDate;
+		this.tradeOrderfills = new ArrayList<TradeOrderfill>(tradeOrder.tradeOrderfills.size());
+		for (TradeOrderfill tradeOrderfill : tradeOrder.tradeOrderfills) {
+			TradeOrderfill copy = new TradeOrderfill(tradeOrderfill);
+			copy.setTradeOrder(this);
+			this.tradeOrderfills.add(copy);
+		}
+	}
+
 	/**
 	 * Constructor for TradeOrder.
 	 * 
@@ -35,7 +35,10 @@
  */
 package org.trade.persistent.dao;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.ejb.Stateless;
 import javax.persistence.EntityManager;
@@ -97,6 +100,78 @@ public class TradeOrderHome {
 		}
 	}
 
+	/**
+	 * Method persistBatch. Save the TradePositions, TradeOrders (plus their
+	 * fills), Contract positions and Tradestrategy status in one transaction.
+	 * Used to write back the state of a back test that was run in memory. New
+	 * instances must have a null id.
+	 * 
+	 * @param tradePositions
+	 *            List<TradePosition>
+	 * @param tradeOrders
+	 *            List<TradeOrder>
+	 * @param contracts
+	 *            List<ContractLite>
+	 * @param tradestrategies
+	 *            List<TradestrategyOrders>
+	 */
+	public synchronized void persistBatch(List<TradePosition> tradePositions, List<TradeOrder> tradeOrders,
+			List<ContractLite> contracts, List<TradestrategyOrders> tradestrategies) {
+
+		try {
+			EntityManager entityManager = EntityManagerHelper.getEntityManager();
+			entityManager.getTransaction().begin();
+
+			/*
+			 * The orders are the owning side of the position/order
+			 * relationship so persist the positions without them first.
+			 */
+			Map<TradePosition, TradePosition> positions = new IdentityHashMap<TradePosition, TradePosition>();
+			for (TradePosition tradePosition : tradePositions) {
+				List<TradeOrder> orders = tradePosition.getTradeOrders();
+				tradePosition.setTradeOrders(new ArrayList<TradeOrder>(0));
+				positions.put(tradePosition, entityManager.merge(tradePosition));
+				tradePosition.setTradeOrders(orders);
+			}
+
+			for (TradeOrder tradeOrder : tradeOrders) {
+				if (positions.containsKey(tradeOrder.getTradePosition())) {
+					tradeOrder.setTradePosition(positions.get(tradeOrder.getTradePosition()));
+				}
+				for (TradeOrderfill tradeOrderfill : tradeOrder.getTradeOrderfills()) {
+					tradeOrderfill.setTradeOrder(tradeOrder);
+				}
+				entityManager.merge(tradeOrder);
+			}
+
+			for (ContractLite contract : contracts) {
+				ContractLite instance = entityManager.find(ContractLite.class, contract.getIdContract());
+				TradePosition tradePosition = contract.getTradePosition();
+				if (positions.containsKey(tradePosition)) {
+					tradePosition = positions.get(tradePosition);
+				} else if (null != tradePosition) {
+					tradePosition = entityManager.find(TradePosition.class, tradePosition.getIdTradePosition());
+				}
+				instance.setTradePosition(tradePosition);
+			}
+
+			for (TradestrategyOrders tradestrategy : tradestrategies) {
+				TradestrategyLite instance = entityManager.find(TradestrategyLite.class,
+						tradestrategy.getIdTradeStrategy());
+				instance.setStatus(tradestrategy.getStatus());
+				instance.setLastUpdateDate(tradestrategy.getLastUpdateDate());
+			}
+			entityManager.getTransaction().commit();
+
+		} catch (Exception re) {
+			EntityManagerHelper.logError("ERROR saving batch of TradeOrders Msg: " + re.getMessage(), re);
+			EntityManagerHelper.rollback();
+			throw re;
+		} finally {
+			EntityManagerHelper.close();
+		}
+	}
+
 	/**
 	 * Method findById.
 	 * 
@@ -88,6 +88,32 @@ public class TradeOrderfill extends Aspect implements java.io.Serializable, Clon
 	public TradeOrderfill() {
 	}
 
+	/**
+	 * Copy constructor for TradeOrderfill. The copy references the same
+	 * TradeOrder as the original fill.
+	 * 
+	 * @param tradeOrderfill
+	 *            TradeOrderfill
+	 */
+	public TradeOrderfill(TradeOrderfill tradeOrderfill) {
+		this.id = tradeOrderfill.id;
+		this.version = tradeOrderfill.version;
+		this.setDirty(tradeOrderfill.isDirty());
+		this.accountNumber = tradeOrderfill.accountNumber;
+		this.averagePrice = tradeOrderfill.averagePrice;
+		this.commission = tradeOrderfill.commission;
+		this.cumulativeQuantity = tradeOrderfill.cumulativeQuantity;
+		this.execId = tradeOrderfill.execId;
+		this.orderReference = tradeOrderfill.orderReference;
+		this.permId = tradeOrderfill.permId;
+		this.price = tradeOrderfill.price;
+		this.quantity = tradeOrderfill.quantity;
+		this.side = tradeOrderfill.side;
+		this.exchange = tradeOrderfill.exchange;
+		this.time = tradeOrderfill.time;
+		this.tradeOrder = tradeOrderfill.tradeOrder;
+	}
+
 	/**
 	 * Constructor for TradeOrderfill.
 	 * 
@@ -106,6 +106,32 @@ public class TradePosition extends Aspect implements java.io.Serializable {
 	public TradePosition() {
 	}
 
+	/**
+	 * Copy constructor for TradePosition. The list of TradeOrders is a new
+	 * list holding the same orders, the ContractLite is the same instance.
+	 * 
+	 * @param tradePosition
+	 *            TradePosition
+	 */
+	public TradePosition(TradePosition tradePosition) {
+		this.id = tradePosition.id;
+		this.version = tradePosition.version;
+		this.setDirty(tradePosition.isDirty());
+		this.contract = tradePosition.contract;
+		this.openQuantity = tradePosition.openQuantity;
+		this.positionOpenDate = tradePosition.positionOpenDate;
+		this.positionCloseDate = tradePosition.positionCloseDate;
+		this.side = tradePosition.side;
+		this.totalCommission = tradePosition.totalCommission;
+		this.totalBuyQuantity = tradePosition.totalBuyQuantity;
+		this.totalBuyValue = tradePosition.totalBuyValue;
+		this.totalSellQuantity = tradePosition.totalSellQuantity;
+		this.totalSellValue = tradePosition.totalSellValue;
+		this.totalNetValue = tradePosition.totalNetValue;
+		this.lastUpdateDate = tradePosition.lastUpdateDate;
+		this.tradeOrders = new ArrayList<TradeOrder>(tradePosition.tradeOrders);
+	}
+
 	/**
 	 * Constructor for TradePosition.
 	 * 
@@ -47,6 +47,7 @@ import javax.persistence.SqlResultSetMapping;
 import javax.persistence.SqlResultSetMappings;
 
 import org.trade.core.dao.Aspect;
+import org.trade.core.dao.EntityManagerHelper;
 import org.trade.core.properties.ConfigProperties;
 
 /**
@@ -538,7 +539,7 @@ public class TradelogDetail extends Aspect implements java.io.Serializable {
 	public static String getSQLString() {
 		String sql = null;
 		try {
-			sql = ConfigProperties.readFileAsString("org/trade/persistent/dao/sql/TradelogDetail.sql",
+			sql = ConfigProperties.readFileAsString(EntityManagerHelper.getSQLPath("TradelogDetail.sql"),
 					Thread.currentThread().getContextClassLoader());
 		} catch (IOException e) {
 			// TODO Auto-generated catch block
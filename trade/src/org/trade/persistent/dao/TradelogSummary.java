@@ -46,6 +46,7 @@ import javax.persistence.SqlResultSetMapping;
 import javax.persistence.SqlResultSetMappings;
 
 import org.trade.core.dao.Aspect;
+import org.trade.core.dao.EntityManagerHelper;
 import org.trade.core.properties.ConfigProperties;
 
 /**
@@ -417,7 +418,7 @@ public class TradelogSummary extends Aspect implements java.io.Serializable {
 	public static String getSQLString() {
 		String sql = null;
 		try {
-			sql = ConfigProperties.readFileAsString("org/trade/persistent/dao/sql/TradelogSummary.sql",
+			sql = ConfigProperties.readFileAsString(EntityManagerHelper.getSQLPath("TradelogSummary.sql"),
 					Thread.currentThread().getContextClassLoader());
 		} catch (IOException e) {
 			// TODO Auto-generated catch block
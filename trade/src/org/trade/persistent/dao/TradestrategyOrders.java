@@ -77,6 +77,24 @@ public class TradestrategyOrders extends Aspect implements Serializable {
 	public TradestrategyOrders() {
 	}
 
+	/**
+	 * Copy constructor for TradestrategyOrders. The list of TradeOrders is a
+	 * new list holding the same orders, the ContractLite is the same
+	 * instance.
+	 * 
+	 * @param tradestrategyOrders
+	 *            TradestrategyOrders
+	 */
+	public TradestrategyOrders(TradestrategyOrders tradestrategyOrders) {
+		this.id = tradestrategyOrders.id;
+		this.version = tradestrategyOrders.version;
+		this.setDirty(tradestrategyOrders.isDirty());
+		this.contract = tradestrategyOrders.contract;
+		this.status = tradestrategyOrders.status;
+		this.lastUpdateDate = tradestrategyOrders.lastUpdateDate;
+		this.tradeOrders = new ArrayList<TradeOrder>(tradestrategyOrders.tradeOrders);
+	}
+
 	/**
 	 * Method getIdTradeStrategy.
 	 * 
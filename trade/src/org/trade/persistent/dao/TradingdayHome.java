@@ -37,14 +37,18 @@ package org.trade.persistent.dao;
 
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.ejb.Stateless;
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
-import javax.persistence.criteria.Expression;
 import javax.persistence.criteria.Join;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
@@ -96,10 +100,25 @@ public class TradingdayHome {
 				detachedInstance.setVersion(tradingday.getVersion());
 			}
 
+			/*
+			 * Resolve the contracts and strategies of the new or changed
+			 * tradestrategies with one query each then save them in one
+			 * transaction.
+			 */
+			List<Tradestrategy> dirtyTradestrategies = new ArrayList<Tradestrategy>();
+			Set<String> symbols = new HashSet<String>();
 			for (Tradestrategy tradestrategy : detachedInstance.getTradestrategies()) {
 				// If it has trades do nothing
 				if (tradestrategy.getTradeOrders().isEmpty() && tradestrategy.isDirty()) {
-					entityManager.getTransaction().begin();
+					dirtyTradestrategies.add(tradestrategy);
+					symbols.add(tradestrategy.getContract().getSymbol());
+				}
+			}
+			if (!dirtyTradestrategies.isEmpty()) {
+				Map<String, List<Contract>> contracts = findContractsBySymbol(symbols);
+				Map<String, Strategy> strategies = new HashMap<String, Strategy>();
+				entityManager.getTransaction().begin();
+				for (Tradestrategy tradestrategy : dirtyTradestrategies) {
 
 					/*
 					 * If the tradingday existed use the persisted version.
@@ -112,7 +131,11 @@ public class TradingdayHome {
 					 * via this tab, as they are a drop down list. So find the
 					 * persisted one and set this.
 					 */
-					Strategy strategy = this.findStrategyByName(tradestrategy.getStrategy().getName());
+					String strategyName = tradestrategy.getStrategy().getName();
+					if (!strategies.containsKey(strategyName)) {
+						strategies.put(strategyName, this.findStrategyByName(strategyName));
+					}
+					Strategy strategy = strategies.get(strategyName);
 					if (null != strategy) {
 						tradestrategy.setStrategy(strategy);
 					}
@@ -120,9 +143,7 @@ public class TradingdayHome {
 					 * Check to see if the contract exists if it does merge and
 					 * set the new persisted one. If no persist the contract.
 					 */
-					Contract contract = this.findContractByUniqueKey(tradestrategy.getContract().getSecType(),
-							tradestrategy.getContract().getSymbol(), tradestrategy.getContract().getExchange(),
-							tradestrategy.getContract().getCurrency(), tradestrategy.getContract().getExpiry());
+					Contract contract = getContract(contracts, tradestrategy.getContract());
 					if (null != contract) {
 						tradestrategy.setContract(contract);
 					}
@@ -131,27 +152,28 @@ public class TradingdayHome {
 					 */
 					if (null == tradestrategy.getIdTradeStrategy()) {
 						entityManager.persist(tradestrategy);
-						entityManager.getTransaction().commit();
 					} else {
 						Tradestrategy instance = entityManager.merge(tradestrategy);
-						entityManager.getTransaction().commit();
 						tradestrategy.setVersion(instance.getVersion());
 					}
+					if (null == contract) {
+						addContract(contracts, tradestrategy.getContract());
+					}
+				}
+				entityManager.getTransaction().commit();
+				for (Tradestrategy tradestrategy : dirtyTradestrategies) {
 					tradestrategy.setDirty(false);
 				}
 			}
 			entityManager.getTransaction().begin();
 			List<Tradestrategy> tradestrategies = findTradestrategyByIdTradingday(detachedInstance.getIdTradingDay());
 
+			Set<String> keys = new HashSet<String>();
+			for (Tradestrategy newTradestrategy : detachedInstance.getTradestrategies()) {
+				keys.add(getKey(newTradestrategy));
+			}
 			for (Tradestrategy tradestrategy : tradestrategies) {
-				boolean exists = false;
-				for (Tradestrategy newTradestrategy : detachedInstance.getTradestrategies()) {
-					if (newTradestrategy.equals(tradestrategy)) {
-						exists = true;
-						break;
-					}
-				}
-				if (!exists) {
+				if (!keys.contains(getKey(tradestrategy))) {
 					if (tradestrategy.getTradeOrders().isEmpty()) {
 						entityManager.remove(tradestrategy);
 					} else {
@@ -396,22 +418,14 @@ public class TradingdayHome {
 	}
 
 	/**
-	 * Method findContractByUniqueKey.
+	 * Method findContractsBySymbol.
 	 * 
-	 * @param SECType
-	 *            String
-	 * @param symbol
-	 *            String
-	 * @param exchange
-	 *            String
-	 * @param currency
-	 *            String
-	 * @param expiryDate
-	 *            Date
-	 * @return Contract
+	 * @param symbols
+	 *            Collection<String>
+	 * @return Map<String, List<Contract>> the contracts for the symbols by
+	 *         SECType, symbol, exchange and currency.
 	 */
-	private Contract findContractByUniqueKey(String SECType, String symbol, String exchange, String currency,
-			ZonedDateTime expiryDate) {
+	private Map<String, List<Contract>> findContractsBySymbol(Collection<String> symbols) {
 
 		try {
 			EntityManager entityManager = EntityManagerHelper.getEntityManager();
@@ -419,46 +433,88 @@ public class TradingdayHome {
 			CriteriaQuery<Contract> query = builder.createQuery(Contract.class);
 			Root<Contract> from = query.from(Contract.class);
 			query.select(from);
-			List<Predicate> predicates = new ArrayList<Predicate>();
-
-			if (null != SECType) {
-				Predicate predicate = builder.equal(from.get("secType"), SECType);
-				predicates.add(predicate);
-			}
-			if (null != symbol) {
-				Predicate predicate = builder.equal(from.get("symbol"), symbol);
-				predicates.add(predicate);
-			}
-			if (null != exchange) {
-				Predicate predicate = builder.equal(from.get("exchange"), exchange);
-				predicates.add(predicate);
-			}
-			if (null != currency) {
-				Predicate predicate = builder.equal(from.get("currency"), currency);
-				predicates.add(predicate);
+			query.where(from.get("symbol").in(symbols));
+			TypedQuery<Contract> typedQuery = entityManager.createQuery(query);
+			Map<String, List<Contract>> contracts = new HashMap<String, List<Contract>>();
+			for (Contract contract : typedQuery.getResultList()) {
+				addContract(contracts, contract);
 			}
-			if (null != expiryDate) {
+			return contracts;
 
-				Integer yearExpiry = expiryDate.getYear();
-				Expression<Integer> year = builder.function("year", Integer.class, from.get("expiry"));
-				Predicate predicateYear = builder.equal(year, yearExpiry);
-				predicates.add(predicateYear);
+		} catch (Exception re) {
+			throw re;
+		}
+	}
 
-				Integer monthExpiry = expiryDate.getMonthValue();
-				Expression<Integer> month = builder.function("month", Integer.class, from.get("expiry"));
-				Predicate predicateMonth = builder.equal(month, new Integer(1 + monthExpiry.intValue()));
-				predicates.add(predicateMonth);
+	/**
+	 * Method getContract. Finds the contract with the same SECType, symbol,
+	 * exchange, currency and if set expiry year and month.
+	 * 
+	 * @param contracts
+	 *            Map<String, List<Contract>>
+	 * @param transientInstance
+	 *            Contract
+	 * @return Contract
+	 */
+	private static Contract getContract(Map<String, List<Contract>> contracts, Contract transientInstance) {
+		List<Contract> items = contracts.get(getKey(transientInstance));
+		if (null == items) {
+			return null;
+		}
+		ZonedDateTime expiryDate = transientInstance.getExpiry();
+		for (Contract item : items) {
+			if (null == expiryDate) {
+				return item;
 			}
-			query.where(predicates.toArray(new Predicate[] {}));
-			TypedQuery<Contract> typedQuery = entityManager.createQuery(query);
-			List<Contract> items = typedQuery.getResultList();
-			if (items.size() > 0) {
-				return items.get(0);
+			if (null != item.getExpiry() && item.getExpiry().getYear() == expiryDate.getYear()
+					&& item.getExpiry().getMonthValue() == expiryDate.getMonthValue()) {
+				return item;
 			}
-			return null;
+		}
+		return null;
+	}
 
-		} catch (Exception re) {
-			throw re;
+	/**
+	 * Method addContract.
+	 * 
+	 * @param contracts
+	 *            Map<String, List<Contract>>
+	 * @param contract
+	 *            Contract
+	 */
+	private static void addContract(Map<String, List<Contract>> contracts, Contract contract) {
+		String key = getKey(contract);
+		List<Contract> items = contracts.get(key);
+		if (null == items) {
+			items = new ArrayList<Contract>(1);
+			contracts.put(key, items);
 		}
+		items.add(contract);
+	}
+
+	/**
+	 * Method getKey.
+	 * 
+	 * @param contract
+	 *            Contract
+	 * @return String
+	 */
+	private static String getKey(Contract contract) {
+		return contract.getSecType() + "|" + contract.getSymbol() + "|" + contract.getExchange() + "|"
+				+ contract.getCurrency();
+	}
+
+	/**
+	 * Method getKey.
+	 * 
+	 * @param tradestrategy
+	 *            Tradestrategy
+	 * @return String a key with the fields tested in Tradestrategy.equals.
+	 */
+	private static String getKey(Tradestrategy tradestrategy) {
+		return getKey(tradestrategy.getContract()) + "|"
+				+ tradestrategy.getTradingday().getOpen().toInstant().toEpochMilli() + "|"
+				+ tradestrategy.getStrategy().getName() + "|" + tradestrategy.getPortfolio().getName() + "|"
+				+ tradestrategy.getBarSize();
 	}
 }
\ No newline at end of file
@@ -36,6 +36,7 @@
 package org.trade.persistent.dao;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
@@ -45,15 +46,25 @@ import java.text.ParseException;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.trade.core.dao.Aspect;
 import org.trade.core.lookup.DBTableLookupServiceProvider;
 import org.trade.core.properties.ConfigProperties;
 import org.trade.core.util.TradingCalendar;
+import org.trade.core.util.Worker;
 import org.trade.dictionary.valuetype.BarSize;
 import org.trade.dictionary.valuetype.ChartDays;
 import org.trade.dictionary.valuetype.Currency;
@@ -75,6 +86,27 @@ public class Tradingdays extends Aspect implements java.io.Serializable {
 	// 0);
 	private List<Tradingday> tradingdays = Collections.synchronizedList(new ArrayList<Tradingday>(0));
 
+	/*
+	 * Bytes read from an import file between progress reports.
+	 */
+	private static final long IMPORT_PROGRESS_BYTES = 64 * 1024;
+
+	/**
+	 * Notified as the files of populateDataFromFiles are read.
+	 */
+	public interface ImportListener {
+
+		/**
+		 * Method progress. Called from the threads reading the files.
+		 * 
+		 * @param bytesRead
+		 *            long the bytes read across all the files.
+		 * @param totalBytes
+		 *            long the size of all the files.
+		 */
+		void progress(long bytesRead, long totalBytes);
+	}
+
 	public Tradingdays() {
 	}
 
@@ -382,7 +414,49 @@ public class Tradingdays extends Aspect implements java.io.Serializable {
 	 *            String
 	 * @throws Exception
 	 */
-	public synchronized void populateDataFromFile(String fileName, Tradingday tradingday) throws Exception {
+	public void populateDataFromFile(String fileName, Tradingday tradingday) throws Exception {
+		populateDataFromFiles(new String[] { fileName }, tradingday, null);
+	}
+
+	/**
+	 * Method populateDataFromFiles. Loads the tradestrategies in the CSV files
+	 * see readFiles and merges them into these Tradingdays.
+	 * 
+	 * @param fileNames
+	 *            String[]
+	 * @param tradingday
+	 *            Tradingday the Tradingday for lines without a date.
+	 * @param listener
+	 *            ImportListener notified as the files are read may be null.
+	 * @throws Exception
+	 */
+	public synchronized void populateDataFromFiles(String[] fileNames, Tradingday tradingday,
+			final ImportListener listener) throws Exception {
+		merge(readFiles(fileNames, tradingday, listener), tradingday);
+	}
+
+	/**
+	 * Method readFiles. Reads the tradestrategies in the CSV files into new
+	 * Tradingdays. The files are read and parsed in parallel on the Worker
+	 * executor then each tradestrategy is added to the Tradingday for its date
+	 * in file order. Nothing already loaded is changed so this can run while
+	 * the loaded Tradingdays are in use, the result is added with merge.
+	 * 
+	 * Contracts are resolved against the database when the Tradingdays are
+	 * saved see TradingdayHome.persist.
+	 * 
+	 * @param fileNames
+	 *            String[]
+	 * @param tradingday
+	 *            Tradingday the Tradingday for lines without a date, the lines
+	 *            are added to a new Tradingday with the same open/close.
+	 * @param listener
+	 *            ImportListener notified as the files are read may be null.
+	 * @return Tradingdays
+	 * @throws Exception
+	 */
+	public static Tradingdays readFiles(String[] fileNames, Tradingday tradingday, final ImportListener listener)
+			throws Exception {
 
 		/*
 		 * CSV file format CSV file format is: DES, Underlying, Sec Type,
@@ -391,19 +465,11 @@ public class Tradingdays extends Aspect implements java.io.Serializable {
 		 * (opt),Multiplier(opt),|BOT/SLD(opt)|DATE(MM/dd/yyyy) (opt)|
 		 * Tier(Opt)| Mkt Gap(opt)| Mkt Bias(opt)| Mkt Bar(opt)");
 		 */
-		// FileReader fileReader = null;
-		// BufferedReader bufferedReader = null;
 		/*
 		 * Refresh the decode tables.
 		 */
 		DBTableLookupServiceProvider.clearLookup();
-		try (FileReader fileReader = new FileReader(fileName);
-				BufferedReader bufferedReader = new BufferedReader(fileReader)) {
-
-			if ((fileName == null) || fileName.equals("")) {
-				return;
-			}
-
+		try {
 			Integer chartDays = ConfigProperties.getPropAsInt("trade.backfill.duration");
 			if (!ChartDays.newInstance(chartDays).isValid())
 				chartDays = new Integer(2);
@@ -424,51 +490,74 @@ public class Tradingdays extends Aspect implements java.io.Serializable {
 			Strategy strategy = (Strategy) DAOStrategy.newInstance(strategyName).getObject();
 
 			Portfolio portfolio = (Portfolio) DAOPortfolio.newInstance().getObject();
-			String strLine = "";
-
-			// read comma separated file line by line
 
-			while ((strLine = bufferedReader.readLine()) != null) {
-				Tradestrategy tradestrategy = Tradingdays.parseContractLine(strLine);
-
-				if (null != tradestrategy) {
+			/*
+			 * Stage one read and parse the files in parallel.
+			 */
+			final AtomicLong bytesRead = new AtomicLong(0);
+			long totalBytes = 0;
+			List<FutureTask<List<Tradestrategy>>> parsers = new ArrayList<FutureTask<List<Tradestrategy>>>(
+					fileNames.length);
+			for (final String fileName : fileNames) {
+				if ((fileName == null) || fileName.equals("")) {
+					continue;
+				}
+				totalBytes = totalBytes + new File(fileName).length();
+			}
+			final long total = totalBytes;
+			for (final String fileName : fileNames) {
+				if ((fileName == null) || fileName.equals("")) {
+					continue;
+				}
+				FutureTask<List<Tradestrategy>> parser = new FutureTask<List<Tradestrategy>>(
+						new Callable<List<Tradestrategy>>() {
+							public List<Tradestrategy> call() throws Exception {
+								return parseFile(fileName, bytesRead, total, listener);
+							}
+						});
+				parsers.add(parser);
+				Worker.getExecutor().execute(parser);
+			}
 
-					Contract contract = this.getContract(tradestrategy.getContract().getSymbol());
-					if (null != contract) {
-						tradestrategy.setContract(contract);
-					}
+			/*
+			 * Stage two add the tradestrategies to their Tradingday in file
+			 * order.
+			 */
+			Tradingdays tradingdays = new Tradingdays();
+			Map<String, Tradingday> tradingdayIndex = new HashMap<String, Tradingday>();
+			for (FutureTask<List<Tradestrategy>> parser : parsers) {
+				List<Tradestrategy> tradestrategies;
+				try {
+					tradestrategies = parser.get();
+				} catch (ExecutionException ex) {
+					throw (ex.getCause() instanceof Exception ? (Exception) ex.getCause() : ex);
+				}
+				for (Tradestrategy tradestrategy : tradestrategies) {
 
-					if (null == tradestrategy.getTradingday()) {
+					Tradingday lineTradingday = tradestrategy.getTradingday();
+					if (null == lineTradingday) {
 						if (null == tradingday) {
 							throw new PersistentModelException("Please select a Tradingday");
 						}
-						tradestrategy.setTradingday(tradingday);
-					} else {
-						Tradingday currTradingday = this.getTradingday(tradestrategy.getTradingday().getOpen(),
-								tradestrategy.getTradingday().getClose());
-
-						if (null != currTradingday) {
-							if (null != tradestrategy.getTradingday().getMarketGap()
-									&& null == currTradingday.getMarketGap()) {
-								currTradingday.setMarketGap(tradestrategy.getTradingday().getMarketGap());
-							}
-							if (null != tradestrategy.getTradingday().getMarketBias()
-									&& null == currTradingday.getMarketBias()) {
-								currTradingday.setMarketBias(tradestrategy.getTradingday().getMarketBias());
-							}
-							if (null != tradestrategy.getTradingday().getMarketBar()
-									&& null == currTradingday.getMarketBar()) {
-								currTradingday.setMarketBar(tradestrategy.getTradingday().getMarketBar());
-							}
-							tradestrategy.setTradingday(currTradingday);
-						}
+						lineTradingday = tradingday;
 					}
 					/*
 					 * Do not load tradestrategies for trading holidays.
 					 */
-					if (TradingCalendar.isHoliday(tradestrategy.getTradingday().getOpen())) {
+					if (TradingCalendar.isHoliday(lineTradingday.getOpen())) {
 						continue;
 					}
+					String tradingdayKey = getKey(lineTradingday.getOpen(), lineTradingday.getClose());
+					Tradingday currTradingday = tradingdayIndex.get(tradingdayKey);
+					if (null == currTradingday) {
+						currTradingday = (lineTradingday == tradingday)
+								? new Tradingday(tradingday.getOpen(), tradingday.getClose()) : lineTradingday;
+						tradingdayIndex.put(tradingdayKey, currTradingday);
+						tradingdays.add(currTradingday);
+					} else if (lineTradingday != tradingday) {
+						mergeMarket(currTradingday, lineTradingday);
+					}
+					tradestrategy.setTradingday(currTradingday);
 					tradestrategy.setRiskAmount(new BigDecimal(riskAmount));
 					tradestrategy.setBarSize(barSize);
 					tradestrategy.setChartDays(chartDays);
@@ -477,21 +566,201 @@ public class Tradingdays extends Aspect implements java.io.Serializable {
 					tradestrategy.setDirty(true);
 					tradestrategy.setStrategy(strategy);
 					tradestrategy.setPortfolio(portfolio);
-					if (!tradestrategy.getTradingday().existTradestrategy(tradestrategy))
-						tradestrategy.getTradingday().addTradestrategy(tradestrategy);
-
-					if (!this.containsTradingday(tradestrategy.getTradingday())) {
-						this.add(tradestrategy.getTradingday());
-					}
-					Collections.sort(tradestrategy.getTradingday().getTradestrategies(), Tradestrategy.DATE_ORDER_ASC);
+					currTradingday.addTradestrategy(tradestrategy);
 				}
 			}
+			return tradingdays;
 
 		} catch (Exception ex) {
 			throw new PersistentModelException(1, 200, ex.getMessage());
 		}
 	}
 
+	/**
+	 * Method merge. Adds the Tradingdays read by readFiles to these
+	 * Tradingdays. The Tradingdays and contracts already loaded are indexed so
+	 * each tradestrategy is a map lookup, tradestrategies already loaded are
+	 * skipped and the tradestrategies of each Tradingday that changed are
+	 * sorted once.
+	 * 
+	 * @param imported
+	 *            Tradingdays
+	 * @param tradingday
+	 *            Tradingday the Tradingday for lines without a date, added if
+	 *            it is not loaded.
+	 */
+	public synchronized void merge(Tradingdays imported, Tradingday tradingday) {
+
+		Map<String, Tradingday> tradingdayIndex = new HashMap<String, Tradingday>();
+		Map<String, Contract> contractIndex = new HashMap<String, Contract>();
+		Map<Tradingday, Set<String>> tradestrategyIndex = new IdentityHashMap<Tradingday, Set<String>>();
+		synchronized (this.tradingdays) {
+			for (Tradingday item : this.tradingdays) {
+				tradingdayIndex.put(getKey(item.getOpen(), item.getClose()), item);
+				for (Tradestrategy tradestrategy : item.getTradestrategies()) {
+					contractIndex.put(tradestrategy.getContract().getSymbol(), tradestrategy.getContract());
+				}
+			}
+		}
+
+		for (Tradingday item : imported.getTradingdays()) {
+			List<Tradestrategy> tradestrategies = new ArrayList<Tradestrategy>(item.getTradestrategies());
+			String tradingdayKey = getKey(item.getOpen(), item.getClose());
+			Tradingday currTradingday = tradingdayIndex.get(tradingdayKey);
+			if (null == currTradingday) {
+				if (null != tradingday && tradingdayKey.equals(getKey(tradingday.getOpen(), tradingday.getClose()))) {
+					currTradingday = tradingday;
+					mergeMarket(currTradingday, item);
+				} else {
+					currTradingday = item;
+					item.getTradestrategies().clear();
+				}
+				tradingdayIndex.put(tradingdayKey, currTradingday);
+				this.add(currTradingday);
+			} else {
+				mergeMarket(currTradingday, item);
+			}
+
+			Set<String> keys = tradestrategyIndex.get(currTradingday);
+			if (null == keys) {
+				keys = new HashSet<String>();
+				for (Tradestrategy tradestrategy : currTradingday.getTradestrategies()) {
+					keys.add(getKey(tradestrategy));
+				}
+				tradestrategyIndex.put(currTradingday, keys);
+			}
+			for (Tradestrategy tradestrategy : tradestrategies) {
+				Contract contract = contractIndex.get(tradestrategy.getContract().getSymbol());
+				if (null == contract) {
+					contractIndex.put(tradestrategy.getContract().getSymbol(), tradestrategy.getContract());
+				} else {
+					tradestrategy.setContract(contract);
+				}
+				tradestrategy.setTradingday(currTradingday);
+				if (keys.add(getKey(tradestrategy)))
+					currTradingday.addTradestrategy(tradestrategy);
+			}
+		}
+
+		for (Tradingday item : tradestrategyIndex.keySet()) {
+			Collections.sort(item.getTradestrategies(), Tradestrategy.DATE_ORDER_ASC);
+		}
+	}
+
+	/**
+	 * Method mergeMarket. Set the market gap, bias and bar of a Tradingday
+	 * from another with the same open/close where they are not set.
+	 * 
+	 * @param tradingday
+	 *            Tradingday
+	 * @param other
+	 *            Tradingday
+	 */
+	private static void mergeMarket(Tradingday tradingday, Tradingday other) {
+		if (null != other.getMarketGap() && null == tradingday.getMarketGap()) {
+			tradingday.setMarketGap(other.getMarketGap());
+		}
+		if (null != other.getMarketBias() && null == tradingday.getMarketBias()) {
+			tradingday.setMarketBias(other.getMarketBias());
+		}
+		if (null != other.getMarketBar() && null == tradingday.getMarketBar()) {
+			tradingday.setMarketBar(other.getMarketBar());
+		}
+	}
+
+	/**
+	 * Method parseFile.
+	 * 
+	 * @param fileName
+	 *            String
+	 * @param bytesRead
+	 *            AtomicLong the bytes read across all the files.
+	 * @param totalBytes
+	 *            long
+	 * @param listener
+	 *            ImportListener
+	 * @return List<Tradestrategy> the tradestrategies in file order.
+	 * @throws Exception
+	 */
+	private static List<Tradestrategy> parseFile(String fileName, AtomicLong bytesRead, long totalBytes,
+			ImportListener listener) throws Exception {
+
+		List<Tradestrategy> tradestrategies = new ArrayList<Tradestrategy>();
+		try (FileReader fileReader = new FileReader(fileName);
+				BufferedReader bufferedReader = new BufferedReader(fileReader)) {
+			String strLine = "";
+			long lastReported = 0;
+			long read = 0;
+			// read comma separated file line by line
+			while ((strLine = bufferedReader.readLine()) != null) {
+				read = read + strLine.length() + 1;
+				Tradestrategy tradestrategy = Tradingdays.parseContractLine(strLine);
+				if (null != tradestrategy) {
+					tradestrategies.add(tradestrategy);
+				}
+				if (null != listener && (read - lastReported) > IMPORT_PROGRESS_BYTES) {
+					listener.progress(bytesRead.addAndGet(read - lastReported), totalBytes);
+					lastReported = read;
+				}
+			}
+			if (null != listener) {
+				listener.progress(bytesRead.addAndGet(read - lastReported), totalBytes);
+			}
+		}
+		return tradestrategies;
+	}
+
+	/**
+	 * Method getKey.
+	 * 
+	 * @param open
+	 *            ZonedDateTime
+	 * @param close
+	 *            ZonedDateTime
+	 * @return String the Tradingday key.
+	 */
+	private static String getKey(ZonedDateTime open, ZonedDateTime close) {
+		return open.toInstant().toEpochMilli() + ":" + close.toInstant().toEpochMilli();
+	}
+
+	/**
+	 * Method getKey.
+	 * 
+	 * @param tradestrategy
+	 *            Tradestrategy
+	 * @return String a key with the fields tested in Tradestrategy.equals.
+	 */
+	private static String getKey(Tradestrategy tradestrategy) {
+		Contract contract = tradestrategy.getContract();
+		return contract.getSymbol() + "|" + contract.getSecType() + "|" + contract.getExchange() + "|"
+				+ contract.getCurrency() + "|" + tradestrategy.getTradingday().getOpen().toInstant().toEpochMilli()
+				+ "|" + tradestrategy.getStrategy().getName() + "|" + tradestrategy.getPortfolio().getName() + "|"
+				+ tradestrategy.getBarSize();
+	}
+
+	/**
+	 * Method split. Splits the line as a Scanner does, a delimiter at the
+	 * start of the line is skipped.
+	 * 
+	 * @param line
+	 *            String
+	 * @param delimiter
+	 *            char
+	 * @return String[]
+	 */
+	static String[] split(String line, char delimiter) {
+		List<String> tokens = new ArrayList<String>();
+		int start = (line.length() > 0 && line.charAt(0) == delimiter) ? 1 : 0;
+		int end = 0;
+		while ((end = line.indexOf(delimiter, start)) > -1) {
+			tokens.add(line.substring(start, end));
+			start = end + 1;
+		}
+		if (start < line.length())
+			tokens.add(line.substring(start));
+		return tokens.toArray(new String[tokens.size()]);
+	}
+
 	/**
 	 * Method parseContractLine.
 	 * 
@@ -507,14 +776,12 @@ public class Tradingdays extends Aspect implements java.io.Serializable {
 		Tradingday tradingday = null;
 
 		// break comma separated line using ","
-		Scanner scanLine = new Scanner(csvLine);
-		scanLine.useDelimiter("\\,");
 		int tokenNumber = 0;
 
-		while (scanLine.hasNext()) {
+		for (String csvToken : split(csvLine, ',')) {
 			// display csv values
 			tokenNumber++;
-			String token = scanLine.next().trim();
+			String token = csvToken.trim();
 			if (token.length() == 0)
 				continue;
 
@@ -581,13 +848,11 @@ public class Tradingdays extends Aspect implements java.io.Serializable {
 				break;
 			}
 			case 10: {
-				Scanner custScan = new Scanner(token);
-				custScan.useDelimiter("\\|");
 				int custTokenNumber = 0;
-				while (custScan.hasNext()) {
+				for (String custCsvToken : split(token, '|')) {
 					// display csv values
 					custTokenNumber++;
-					String custToken = custScan.next().trim();
+					String custToken = custCsvToken.trim();
 					if (custToken.length() == 0)
 						continue;
 
@@ -624,14 +889,12 @@ public class Tradingdays extends Aspect implements java.io.Serializable {
 					}
 					}
 				}
-				custScan.close();
 				break;
 			}
 			default: {
 			}
 			}
 		}
-		scanLine.close();
 		return tradestrategy;
 	}
 
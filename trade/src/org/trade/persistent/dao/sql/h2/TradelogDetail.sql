@@ -0,0 +1,143 @@
+select
+cast(rand()*1000000000 as int) as idTradelogDetail,
+data.sortCol,
+case when data.sortCol = 'Total' then 'Total' else data.open end as open,
+case when data.sortCol = 'Total' or data.isOpenPosition is null or data.isOpenPosition = 1 or data.idTradePosition is null then data.symbol else null end as symbol,
+data.idTradeStrategy as idTradeStrategy,
+case when data.sortCol = 'Total' then null when data.isOpenPosition is null or data.isOpenPosition = 1 or data.idTradePosition is null then data.longShort else null end as longShort,
+case when data.sortCol = 'Total' then null when data.isOpenPosition is null or data.isOpenPosition = 1 or data.idTradePosition is null then data.tier else null end as tier,
+case when data.sortCol = 'Total' then null when data.isOpenPosition is null or data.isOpenPosition = 1 or data.idTradePosition is null then data.marketBias else null end as marketBias,
+case when data.sortCol = 'Total' then null when data.isOpenPosition is null or data.isOpenPosition = 1 or data.idTradePosition is null then data.marketBar else null end as marketBar,
+case when data.sortCol = 'Total' then null when data.isOpenPosition is null or data.isOpenPosition = 1 or data.idTradePosition is null then data.name else null end as name,
+case when data.sortCol = 'Total' then null when data.isOpenPosition is null or data.isOpenPosition = 1 or data.idTradePosition is null then data.status else null end as status,
+case when data.sortCol = 'Total' then null when data.isOpenPosition is null or data.isOpenPosition = 1 then data.idTradePosition else null end as idTradePosition,
+case when data.sortCol = 'Total' then null when data.isOpenPosition is null or data.isOpenPosition = 1 or data.idTradePosition is null then data.side else null end as side,
+case when data.sortCol = 'Total' then null else data.action end as action,
+case when data.sortCol = 'Total' then null else data.stopPrice end as stopPrice,
+case when data.sortCol = 'Total' then null else data.orderStatus end as orderStatus,
+case when data.sortCol = 'Total' then null else data.filledDate end as filledDate,
+cast(data.quantity as int) as quantity,
+data.averageFilledPrice,
+data.commission,
+case when data.quantity = 0 then data.profitLoss else 0 end as profitLoss
+from (select
+'A' as sortCol,
+formatdatetime(tradingday.open, 'yyyy/MM/dd') as open,
+contract.symbol as symbol,
+tradestrategy.idTradeStrategy as idTradeStrategy,
+tradestrategy.side as longShort,
+tradestrategy.tier as tier,
+tradingday.marketBias as marketBias,
+tradingday.marketBar as marketBar,
+strategy.name as name,
+tradestrategy.status as status,
+tradeposition.idTradePosition as idTradePosition,
+tradeposition.side as side,
+tradeorder.isOpenPosition as isOpenPosition,
+tradeorder.action as action,
+tradeorder.stopPrice as stopPrice,
+tradeorder.status as orderStatus,
+tradeorder.filledDate as filledDate,
+((case when tradeorder.action = 'BUY' then 1 else -1 end) * tradeorder.quantity) as quantity,
+tradeorder.averageFilledPrice as averageFilledPrice,
+ifnull(tradeorder.commission,0) as commission,
+tradeposition.totalNetValue as profitLoss
+from
+contract
+left outer join tradeposition on contract.idContract = tradeposition.idContract
+left outer join tradeorder on tradeposition.idTradePosition = tradeorder.idTradePosition
+inner join tradestrategy on tradestrategy.idTradestrategy = tradeorder.idTradestrategy
+inner join tradingday on tradestrategy.idTradingday = tradingday.idTradingday
+inner join strategy on tradestrategy.idStrategy = strategy.idStrategy
+inner join portfolio on tradestrategy.idPortfolio = portfolio.idPortfolio
+where tradestrategy.trade = 1
+and tradeposition.openQuantity = 0
+and (0 = :filter and tradeorder.isFilled = 1)
+and (cast(:symbol as varchar(20)) is null or contract.symbol = :symbol)
+and tradeposition.positionCloseDate between :start and :end
+and portfolio.idPortfolio = :idPortfolio
+union all
+select
+'Total' as sortCol,
+min(formatdatetime(tradingday.open, 'yyyy/MM/dd')) as open,
+contract.symbol as symbol,
+min(tradestrategy.idTradeStrategy) as idTradeStrategy,
+min(tradestrategy.side) as longShort,
+min(tradestrategy.tier) as tier,
+min(tradingday.marketBias) as marketBias,
+min(tradingday.marketBar) as marketBar,
+min(strategy.name) as name,
+min(tradestrategy.status) as status,
+tradeposition.idTradePosition as idTradePosition,
+'' as side,
+null as isOpenPosition,
+'' as action,
+null as stopPrice,
+'' as orderStatus,
+null as filledDate,
+sum((case when tradeorder.action = 'BUY' then 1 else -1 end) * (case when tradeorder.isFilled = 1 then 1 else 0 end) * tradeorder.quantity) as quantity,
+(sum((case when tradeorder.action = 'BUY' then -1 else 1 end) * (case when tradeorder.isFilled = 1 then 1 else 0 end) * tradeorder.averageFilledPrice * tradeorder.quantity) / nullif(sum((tradeorder.quantity / 2.0) * (case when tradeorder.isFilled = 1 then 1 else 0 end)), 0)) as averageFilledPrice,
+sum(ifnull(tradeorder.commission,0)) as commission,
+(sum((case when tradeorder.action = 'BUY' then -1 else 1 end) * (case when tradeorder.isFilled = 1 then 1 else 0 end) * tradeorder.averageFilledPrice * tradeorder.quantity) - sum(ifnull(tradeorder.commission,0))) as profitLoss
+from
+contract
+left outer join tradeposition on contract.idContract = tradeposition.idContract
+left outer join tradeorder on tradeposition.idTradePosition = tradeorder.idTradePosition
+inner join tradestrategy on tradestrategy.idTradestrategy = tradeorder.idTradestrategy
+inner join tradingday on tradestrategy.idTradingday = tradingday.idTradingday
+inner join strategy on tradestrategy.idStrategy = strategy.idStrategy
+inner join portfolio on tradestrategy.idPortfolio = portfolio.idPortfolio
+where tradestrategy.trade = 1
+and tradeposition.openQuantity = 0
+and (0 = :filter and tradeorder.isFilled = 1)
+and (cast(:symbol as varchar(20)) is null or contract.symbol = :symbol)
+and tradeposition.positionCloseDate between :start and :end
+and portfolio.idPortfolio = :idPortfolio
+group by
+contract.symbol,
+tradeposition.idTradePosition
+union all
+select
+'A' as sortCol,
+formatdatetime(tradingday.open, 'yyyy/MM/dd') as open,
+contract.symbol as symbol,
+tradestrategy.idTradeStrategy as idTradeStrategy,
+tradestrategy.side as longShort,
+tradestrategy.tier as tier,
+tradingday.marketBias as marketBias,
+tradingday.marketBar as marketBar,
+strategy.name as name,
+tradestrategy.status as status,
+tradestrategy.idTradestrategy as idTradePosition,
+'' as side,
+1 as isOpenPosition,
+'' as action,
+null as stopPrice,
+'' as orderStatus,
+null as filledDate,
+null as quantity,
+null as averageFilledPrice,
+null as commission,
+null as profitLoss
+from
+tradestrategy
+inner join contract on contract.idContract = tradestrategy.idContract
+inner join tradingday on tradestrategy.idTradingday = tradingday.idTradingday
+inner join strategy on tradestrategy.idStrategy = strategy.idStrategy
+inner join portfolio on tradestrategy.idPortfolio = portfolio.idPortfolio
+where tradestrategy.trade = 1
+and tradestrategy.idTradestrategy not in (select tradeorder.idTradestrategy
+from tradeorder where tradeorder.idTradestrategy = tradestrategy.idTradestrategy
+and tradeorder.isFilled = 1)
+and (1 = :filter )
+and (cast(:symbol as varchar(20)) is null or contract.symbol = :symbol)
+and tradingday.open between :start and :end
+and portfolio.idPortfolio = :idPortfolio
+) as data
+order by
+data.idTradePosition desc,
+data.symbol asc,
+data.sortCol asc,
+data.open asc,
+data.isOpenPosition desc,
+data.filledDate asc
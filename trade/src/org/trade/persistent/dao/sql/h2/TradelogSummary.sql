@@ -0,0 +1,176 @@
+select
+cast(rand()*1000000000 as int) as idTradelogSummary,
+dataAll.period as period,
+(cast(dataAll.winCount as decimal(20,6)) / nullif(dataAll.winCount + dataAll.lossCount, 0)) as battingAverage,
+((dataAll.profitAmount / nullif(dataAll.winCount, 0)) / nullif((dataAll.lossAmount * -1) / nullif(dataAll.lossCount, 0), 0))  as simpleSharpeRatio,
+cast(dataAll.quantity as int) as quantity,
+dataAll.commission as commission,
+(dataAll.profitAmount + dataAll.lossAmount) as grossProfitLoss,
+(dataAll.profitAmount + dataAll.lossAmount - dataAll.commission) as netProfitLoss,
+dataAll.profitAmount as profitAmount,
+dataAll.lossAmount as lossAmount,
+cast(dataAll.winCount as int)  as winCount,
+cast(dataAll.lossCount as int)  as lossCount,
+cast(dataAll.positionCount as int)  as positionCount,
+cast(dataAll.tradestrategyCount as int)  as tradestrategyCount
+from (select
+dataC.period as period,
+sum(dataC.quantity) as quantity,
+sum(dataC.commission) as commission,
+sum(dataC.profitAmount) as profitAmount,
+sum(dataC.lossAmount) as lossAmount,
+sum(dataC.winCount) as winCount,
+sum(dataC.lossCount) as lossCount,
+sum(dataC.positionCount) as positionCount,
+sum(dataC.tradestrategyCount) as tradestrategyCount
+from(select
+'Total' as period,
+sum(dataA.quantity) as quantity,
+sum(dataA.commission) as commission,
+sum(dataA.profitAmount) as profitAmount,
+sum(dataA.lossAmount) as lossAmount,
+sum(dataA.winCount) as winCount,
+sum(dataA.lossCount) as lossCount,
+sum(dataA.positionCount) as positionCount,
+sum(dataA.tradestrategyCount) as tradestrategyCount
+from (select
+dataD.period as period,
+dataD.quantityTotal as quantity,
+dataD.commission as commission,
+case when dataD.quantity = 0 then dataD.profitAmount else 0 end as profitAmount,
+case when dataD.quantity = 0 then dataD.lossAmount else 0 end as lossAmount,
+case when dataD.quantity = 0 then dataD.winCount else 0 end as winCount,
+case when dataD.quantity = 0 then dataD.lossCount else 0 end as lossCount,
+dataD.positionCount as positionCount,
+dataD.tradestrategyCount as tradestrategyCount
+from(select
+formatdatetime(tradeposition.positionCloseDate, 'yyyy/MM') as period,
+contract.symbol,
+tradeposition.idTradeposition,
+sum(ifnull(tradeorder.quantity,0))  as quantityTotal,
+sum((case when tradeorder.action = 'BUY' then 1 else -1 end) * ifnull(tradeorder.quantity,0))  as quantity,
+sum(ifnull(tradeorder.commission,0)) as commission,
+case when sum(((case when tradeorder.action = 'BUY' then -1 else 1 end)  * tradeorder.quantity * tradeorder.averageFilledPrice)) > 0 then sum(((case when tradeorder.action = 'BUY' then -1 else 1 end)  * tradeorder.quantity * tradeorder.averageFilledPrice)) else 0 end	as profitAmount,
+case when sum(((case when tradeorder.action = 'BUY' then -1 else 1 end)  * tradeorder.quantity * tradeorder.averageFilledPrice)) < 0 then sum(((case when tradeorder.action = 'BUY' then -1 else 1 end)  * tradeorder.quantity * tradeorder.averageFilledPrice)) else 0 end	as lossAmount,
+(case when cast(:winLossAmount as decimal(10,2)) < (sum(((case when tradeorder.action = 'BUY' then -1 else 1 end)  * tradeorder.quantity * tradeorder.averageFilledPrice))) then 1 else 0 end) as winCount,
+(case when (-1 * cast(:winLossAmount as decimal(10,2))) >= (sum(((case when tradeorder.action = 'BUY' then -1 else 1 end)  * tradeorder.quantity * tradeorder.averageFilledPrice))) then 1 else 0 end) as lossCount,
+case when ifnull(tradeposition.idTradePosition,0) <> 0 then 1 else 0 end as positionCount,
+0 as tradestrategyCount
+from contract
+left outer join tradeposition  on contract.idContract = tradeposition.idContract
+left outer join tradeorder  on tradeposition.idTradePosition = tradeorder.idTradePosition
+inner join tradestrategy on tradestrategy.idTradestrategy = tradeorder.idTradestrategy
+inner join portfolio on tradestrategy.idPortfolio = portfolio.idPortfolio
+where tradeorder.isFilled =1
+and tradeposition.openQuantity = 0
+and tradestrategy.trade = 1
+and (cast(:symbol as varchar(20)) is null or contract.symbol = :symbol)
+and tradeposition.positionCloseDate between :start and :end
+and portfolio.idPortfolio = :idPortfolio
+group by
+formatdatetime(tradeposition.positionCloseDate, 'yyyy/MM'),
+contract.symbol,
+tradeposition.idTradeposition
+union all
+select
+formatdatetime(tradingday.open, 'yyyy/MM') as period,
+contract.symbol,
+0 as idTradePosition,
+0 as quantityTotal,
+0 as quantity,
+0 as commission,
+0 as profitAmount,
+0 as lossAmount,
+0 as winCount,
+0 as lossCount,
+0 as positionCount,
+case when ifnull(tradestrategy.idTradestrategy,0) <> 0 then 1 else 0 end  as tradestrategyCount
+from tradestrategy
+inner join contract  on contract.idContract = tradestrategy.idContract
+inner join tradingday  on tradingday.idTradingday = tradestrategy.idTradingday
+inner join portfolio on tradestrategy.idPortfolio = portfolio.idPortfolio
+where tradingday.open between :start and :end
+and (cast(:symbol as varchar(20)) is null or contract.symbol = :symbol)
+and (portfolio.idPortfolio = :idPortfolio or portfolio.idPortfolio is null)
+group by
+formatdatetime(tradingday.open, 'yyyy/MM'),
+contract.symbol,
+tradestrategy.idTradestrategy) dataD) dataA
+group by dataA.period) dataC
+group by
+dataC.period
+union all
+select
+dataM.period as period,
+sum(dataM.quantity) as quantity,
+sum(dataM.commission) as commission,
+sum(dataM.profitAmount) as profitAmount,
+sum(dataM.lossAmount) as lossAmount,
+sum(dataM.winCount) as winCount,
+sum(dataM.lossCount) as lossCount,
+sum(dataM.positionCount) as positionCount,
+sum(dataM.tradestrategyCount) as tradestrategyCount
+from (select
+dataD.period as period,
+dataD.quantityTotal as quantity,
+dataD.commission as commission,
+case when dataD.quantity = 0 then dataD.profitAmount else 0 end as profitAmount,
+case when dataD.quantity = 0 then dataD.lossAmount else 0 end as lossAmount,
+case when dataD.quantity = 0 then dataD.winCount else 0 end as winCount,
+case when dataD.quantity = 0 then dataD.lossCount else 0 end as lossCount,
+dataD.positionCount as positionCount,
+dataD.tradestrategyCount as tradestrategyCount
+from(select
+formatdatetime(tradeposition.positionCloseDate, 'yyyy/MM') as period,
+contract.symbol,
+tradeposition.idTradePosition,
+sum(ifnull(tradeorder.quantity,0))  as quantityTotal,
+sum((case when tradeorder.action = 'BUY' then 1 else -1 end) * ifnull(tradeorder.quantity,0))  as quantity,
+sum(ifnull(tradeorder.commission,0)) as commission,
+case when sum(((case when tradeorder.action = 'BUY' then -1 else 1 end)  * tradeorder.quantity * tradeorder.averageFilledPrice)) > 0 then sum(((case when tradeorder.action = 'BUY' then -1 else 1 end)  * tradeorder.quantity * tradeorder.averageFilledPrice)) else 0 end	as profitAmount,
+case when sum(((case when tradeorder.action = 'BUY' then -1 else 1 end)  * tradeorder.quantity * tradeorder.averageFilledPrice)) < 0 then sum(((case when tradeorder.action = 'BUY' then -1 else 1 end)  * tradeorder.quantity * tradeorder.averageFilledPrice)) else 0 end	as lossAmount,
+(case when cast(:winLossAmount as decimal(10,2)) < (sum(((case when tradeorder.action = 'BUY' then -1 else 1 end)  * tradeorder.quantity * tradeorder.averageFilledPrice))) then 1 else 0 end) as winCount,
+(case when (-1 * cast(:winLossAmount as decimal(10,2))) >= (sum(((case when tradeorder.action = 'BUY' then -1 else 1 end)  * tradeorder.quantity * tradeorder.averageFilledPrice))) then 1 else 0 end) as lossCount,
+case when ifnull(tradeposition.idTradePosition,0) <> 0 then 1 else 0 end as positionCount,
+0 as tradestrategyCount
+from contract
+left outer join tradeposition  on contract.idContract = tradeposition.idContract
+left outer join tradeorder  on tradeposition.idTradePosition = tradeorder.idTradePosition
+inner join tradestrategy on tradestrategy.idTradestrategy = tradeorder.idTradestrategy
+inner join portfolio on tradestrategy.idPortfolio = portfolio.idPortfolio
+where tradeorder.isFilled =1
+and tradeposition.openQuantity = 0
+and tradestrategy.trade = 1
+and (cast(:symbol as varchar(20)) is null or contract.symbol = :symbol)
+and tradeposition.positionCloseDate between :start and :end
+and portfolio.idPortfolio = :idPortfolio
+group by
+formatdatetime(tradeposition.positionCloseDate, 'yyyy/MM'),
+contract.symbol,
+tradeposition.idTradePosition
+union all
+select formatdatetime(tradingday.open, 'yyyy/MM') as period,
+contract.symbol,
+0 as idTradePosition,
+0 as quantityTotal,
+0 as quantity,
+0 as commission,
+0 as profitAmount,
+0 as lossAmount,
+0 as winCount,
+0 as lossCount,
+0 as positionCount,
+case when ifnull(tradestrategy.idTradestrategy,0) <> 0 then 1 else 0 end  as tradestrategyCount
+from tradestrategy
+inner join contract  on contract.idContract = tradestrategy.idContract
+inner join tradingday  on tradingday.idTradingday = tradestrategy.idTradingday
+inner join portfolio on tradestrategy.idPortfolio = portfolio.idPortfolio
+where tradingday.open between :start and :end
+and (cast(:symbol as varchar(20)) is null or contract.symbol = :symbol)
+and (portfolio.idPortfolio = :idPortfolio or portfolio.idPortfolio is null)
+group by
+formatdatetime(tradingday.open, 'yyyy/MM'),
+contract.symbol,
+tradestrategy.idTradestrategy) dataD) dataM
+group by dataM.period) dataAll
+order by dataAll.period desc
@@ -37,6 +37,7 @@ package org.trade.strategy;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.ZonedDateTime;
 
 import javax.swing.event.EventListenerList;
@@ -47,12 +48,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.trade.broker.BrokerModel;
 import org.trade.broker.BrokerModelException;
+import org.trade.broker.PositionStateService;
 import org.trade.core.factory.ClassFactory;
 import org.trade.core.util.CoreUtils;
 import org.trade.core.util.TradingCalendar;
 import org.trade.core.util.Worker;
 import org.trade.core.valuetype.Money;
 import org.trade.core.valuetype.Percent;
+import org.trade.core.valuetype.Price;
 import org.trade.dictionary.valuetype.Action;
 import org.trade.dictionary.valuetype.DAOEntryLimit;
 import org.trade.dictionary.valuetype.OrderType;
@@ -61,6 +64,7 @@ import org.trade.dictionary.valuetype.Side;
 import org.trade.dictionary.valuetype.TimeInForce;
 import org.trade.dictionary.valuetype.TriggerMethod;
 import org.trade.persistent.PersistentModel;
+import org.trade.persistent.PersistentModelException;
 import org.trade.persistent.dao.Account;
 import org.trade.persistent.dao.Candle;
 import org.trade.persistent.dao.Contract;
@@ -85,6 +89,13 @@ public abstract class AbstractStrategyRule extends Worker implements SeriesChang
 
 	private final static Logger _log = LoggerFactory.getLogger(AbstractStrategyRule.class);
 
+	/*
+	 * Prices are rounded around whole and half numbers. Stop and target prices
+	 * below zero are set to MIN_PRICE.
+	 */
+	private final static Price[] ROUNDING = { Price.ONE_DOLLAR, Price.valueOf(0.5) };
+	private final static Price MIN_PRICE = Price.valueOf(0.02);
+
 	/*
 	 * Message handler that allows the main controller to listen for errors.
 	 * Storage for registered change listeners.
@@ -97,10 +108,10 @@ public abstract class AbstractStrategyRule extends Worker implements SeriesChang
 	private StrategyData strategyData = null;
 	private Tradestrategy tradestrategy = null;
 	private TradestrategyOrders tradestrategyOrders = null;
+	private long tradestrategyOrdersVersion = -1;
 	private Integer idTradestrategy = null;
 	private String symbol = null;
-	private boolean seriesChanged = false;
-	private final Object lockStrategyWorker = new Object();
+	private boolean initialised = false;
 	private boolean listeningCandles = false;
 	private int currentCandleCount = -1;
 	private ZonedDateTime strategyLastFired = TradingCalendar.getDateTimeNowMarketTimeZone();
@@ -257,8 +268,9 @@ public abstract class AbstractStrategyRule extends Worker implements SeriesChang
 	}
 
 	/**
-	 * The main process thread. This will run until it is either canceled or is
-	 * done.
+	 * Called on the worker executor when the strategy is executed and then
+	 * each time the candle series changes. The first call initializes the
+	 * strategy and starts listening for candle changes.
 	 * 
 	 * (non-Javadoc)
 	 * 
@@ -267,146 +279,161 @@ public abstract class AbstractStrategyRule extends Worker implements SeriesChang
 
 	protected Void doInBackground() {
 
-		/*
-		 * We initialize here to keep this instances as part of this worker
-		 * thread
-		 */
 		try {
 
-			this.tradePersistentModel = (PersistentModel) ClassFactory
-					.getServiceForInterface(PersistentModel._persistentModel, this);
-			// Get an instances for this thread.
-			this.tradestrategy = this.tradePersistentModel.findTradestrategyById(this.idTradestrategy);
-			this.tradestrategy.setStrategyData(this.strategyData);
-			this.symbol = this.tradestrategy.getContract().getSymbol();
-
-			_log.info("Starting strategyClass: " + this.getClass().getName() + " engine doInBackground Symbol: "
-					+ this.symbol + " idTradestrategy: " + this.idTradestrategy + " Tradingday Date: "
-					+ this.tradestrategy.getTradingday().getOpen());
+			if (!initialised) {
+				// Get an instances for this strategy.
+				initialiseStrategy((PersistentModel) ClassFactory
+						.getServiceForInterface(PersistentModel._persistentModel, this));
+				initialised = true;
 
-			/*
-			 * Process the current candle if there is one on startup.
-			 */
-
-			currentCandleCount = this.strategyData.getBaseCandleSeries().getItemCount() - 1;
+				_log.info("Starting strategyClass: " + this.getClass().getName() + " engine doInBackground Symbol: "
+						+ this.symbol + " idTradestrategy: " + this.idTradestrategy + " Tradingday Date: "
+						+ this.tradestrategy.getTradingday().getOpen());
+			}
 
-			seriesChanged = true;
+			if (!this.isCancelled()) {
 
-			reFreshPositionOrders();
+				if (!processCandleSeries()) {
+					return null;
+				}
 
-			do {
 				/*
-				 * Lock until a candle arrives. First time in we process the
-				 * current candle.
+				 * First time in add a listener for new candle.
 				 */
-				synchronized (lockStrategyWorker) {
-					while (!seriesChanged) {
-						lockStrategyWorker.wait();
-					}
-					seriesChanged = false;
-				}
-
-				if (!this.isCancelled()) {
+				if (!listeningCandles) {
 
 					/*
-					 * If candle count > than current we have a new candle
-					 * 
-					 * If equal then we have an updated candle.
-					 * 
-					 * The currentCandleCount is greater than the candle series.
-					 * Then another thread must have cleared the candle series
-					 * so shut down the strategy.
+					 * Start listening for new candles and candle changes.
 					 */
-					CandleSeries candleSeries = this.tradestrategy.getStrategyData().getBaseCandleSeries();
-
-					boolean newCandle = false;
-					if ((candleSeries.getItemCount() - 1) > currentCandleCount) {
-						/*
-						 * Add one to the currentCandleCount until we catch up
-						 * to the candleSeries candle count. As it is possible
-						 * the candle count in another thread gets ahead of this
-						 * thread and so this thread is playing catch up.
-						 */
-						currentCandleCount++;
-						newCandle = true;
-
-					} else if (currentCandleCount > (candleSeries.getItemCount() - 1)) {
-
-						_log.info("Cancelled as candleSeries have been cleared Symbol: " + getSymbol() + " class: "
-								+ this.getClass().getName());
-						this.cancel();
-						break;
-					} else if (currentCandleCount == (candleSeries.getItemCount() - 1)) {
-						/*
-						 * We have an updated candle. If we are listening for
-						 * candles and none are arriving then close the
-						 * strategy.
-						 */
-						if (currentCandleCount == -1 && listeningCandles) {
-							this.cancel();
-							break;
-						}
-					}
-
-					if (currentCandleCount > -1) {
-						/*
-						 * Check the candle is during the trading range and fire
-						 * the rules.
-						 */
-						if (!getCurrentCandle().getPeriod().getStart()
-								.isBefore(this.tradestrategy.getTradingday().getOpen())) {
-							/*
-							 * Refresh the orders in the positionOrders as these
-							 * may have been filled via another thread. This
-							 * gets the Orders/OpenPosition and Contract
-							 */
-							reFreshPositionOrders();
-							this.tradestrategy.getContract()
-									.setLastAskPrice(candleSeries.getContract().getLastAskPrice());
-							this.tradestrategy.getContract()
-									.setLastBidPrice(candleSeries.getContract().getLastBidPrice());
-							this.tradestrategy.getContract().setLastPrice(candleSeries.getContract().getLastPrice());
-							runStrategy(candleSeries, newCandle);
-							strategyLastFired = TradingCalendar.getDateTimeNowMarketTimeZone();
-						}
-					}
+					this.strategyData.getBaseCandleSeries().addChangeListener(this);
 					/*
-					 * First time in add a listener for new candle.
+					 * Tell the worker if listening. Note only for back testing
+					 * that the strategy is running.
 					 */
-					if (!listeningCandles) {
+					this.fireStrategyStarted(this.getClass().getSimpleName(), this.tradestrategy);
+					listeningCandles = true;
 
-						/*
-						 * Start listening for new candles and candle changes.
-						 */
-						this.strategyData.getBaseCandleSeries().addChangeListener(this);
-						/*
-						 * Tell the worker if listening. Note only for back
-						 * testing that the strategy is running.
-						 */
-						this.fireStrategyStarted(this.getClass().getSimpleName(), this.tradestrategy);
-						listeningCandles = true;
-
-						_log.info("Started strategyClass: " + this.getClass().getName()
-								+ " engine doInBackground Symbol: " + this.symbol + " idTradestrategy: "
-								+ this.idTradestrategy);
-					} else {
-						this.fireRuleComplete(this.tradestrategy);
-					}
+					_log.info("Started strategyClass: " + this.getClass().getName() + " engine doInBackground Symbol: "
+							+ this.symbol + " idTradestrategy: " + this.idTradestrategy);
+				} else {
+					this.fireRuleComplete(this.tradestrategy);
 				}
+			}
 
-			} while (!this.isDone() && !this.isCancelled());
-		} catch (InterruptedException interExp) {
-			// Do nothing.
 		} catch (Exception ex) {
 			_log.error("Error StrategyWorker exception: " + getSymbol() + " class: " + this.getClass().getName()
 					+ " Msg: " + ex.getMessage(), ex);
 			error(1, 100, "Error StrategyWorker exception: " + ex.getMessage());
-		} finally {
+		}
+		return null;
+	}
+
+	/**
+	 * Method initialiseStrategy. Load this strategy's Tradestrategy and its
+	 * position orders via the persistent model and set the current candle so
+	 * that the candle (if any) at startup is processed first.
+	 * 
+	 * @param tradePersistentModel
+	 *            PersistentModel
+	 * @throws PersistentModelException
+	 * @throws StrategyRuleException
+	 */
+	void initialiseStrategy(PersistentModel tradePersistentModel)
+			throws PersistentModelException, StrategyRuleException {
+
+		this.tradePersistentModel = tradePersistentModel;
+		this.tradestrategy = this.tradePersistentModel.findTradestrategyById(this.idTradestrategy);
+		this.tradestrategy.setStrategyData(this.strategyData);
+		this.symbol = this.tradestrategy.getContract().getSymbol();
+
+		/*
+		 * Process the current candle if there is one on startup.
+		 */
+		currentCandleCount = this.strategyData.getBaseCandleSeries().getItemCount() - 1;
+		try {
+			setTradestrategyOrders(getBrokerManager().getPositionStateService().refresh(this.idTradestrategy));
+		} catch (Exception ex) {
+			throw new StrategyRuleException(1, 410, "Error position orders: " + ex.getMessage());
+		}
+	}
+
+	/**
+	 * Method processCandleSeries. Catch up with the base candle series and
+	 * fire the rules for the current candle. This is called by the worker
+	 * thread on every series change and directly by the BacktestEngine after
+	 * each candle is built.
+	 * 
+	 * @return boolean false if the strategy has been cancelled because the
+	 *         candle series was cleared or no candles arrived.
+	 * @throws StrategyRuleException
+	 */
+	boolean processCandleSeries() throws StrategyRuleException {
+
+		/*
+		 * If candle count > than current we have a new candle
+		 * 
+		 * If equal then we have an updated candle.
+		 * 
+		 * The currentCandleCount is greater than the candle series.
+		 * Then another thread must have cleared the candle series
+		 * so shut down the strategy.
+		 */
+		CandleSeries candleSeries = this.tradestrategy.getStrategyData().getBaseCandleSeries();
+
+		boolean newCandle = false;
+		if ((candleSeries.getItemCount() - 1) > currentCandleCount) {
+			/*
+			 * Add one to the currentCandleCount until we catch up
+			 * to the candleSeries candle count. As it is possible
+			 * the candle count in another thread gets ahead of this
+			 * thread and so this thread is playing catch up.
+			 */
+			currentCandleCount++;
+			newCandle = true;
+
+		} else if (currentCandleCount > (candleSeries.getItemCount() - 1)) {
+
+			_log.info("Cancelled as candleSeries have been cleared Symbol: " + getSymbol() + " class: "
+					+ this.getClass().getName());
+			this.cancel();
+			return false;
+		} else if (currentCandleCount == (candleSeries.getItemCount() - 1)) {
 			/*
-			 * Ok we are complete clean up.
+			 * We have an updated candle. If we are listening for
+			 * candles and none are arriving then close the
+			 * strategy.
 			 */
+			if (currentCandleCount == -1 && listeningCandles) {
+				this.cancel();
+				return false;
+			}
 		}
-		return null;
+
+		if (currentCandleCount > -1) {
+			/*
+			 * Check the candle is during the trading range and fire
+			 * the rules.
+			 */
+			if (!getCurrentCandle().getPeriod().getStart()
+					.isBefore(this.tradestrategy.getTradingday().getOpen())) {
+				/*
+				 * Refresh the orders in the positionOrders as these
+				 * may have been filled via another thread. This
+				 * gets the Orders/OpenPosition and Contract from the
+				 * broker model's position state.
+				 */
+				updatePositionOrders();
+				this.tradestrategy.getContract()
+						.setLastAskPrice(candleSeries.getContract().getLastAskPrice());
+				this.tradestrategy.getContract()
+						.setLastBidPrice(candleSeries.getContract().getLastBidPrice());
+				this.tradestrategy.getContract().setLastPrice(candleSeries.getContract().getLastPrice());
+				runStrategy(candleSeries, newCandle);
+				strategyLastFired = TradingCalendar.getDateTimeNowMarketTimeZone();
+			}
+		}
+		return true;
 	}
 
 	/**
@@ -415,16 +442,12 @@ public abstract class AbstractStrategyRule extends Worker implements SeriesChang
 	 * @see org.trade.strategy.StrategyRule#cancel()
 	 */
 	public void cancel() {
-		this.setIsCancelled(true);
 		/*
-		 * Unlock the doInBackground that may be waiting for a candle. This will
-		 * cause a clean finish to the process.
+		 * Run the doInBackground one last time. This will cause a clean finish
+		 * to the process.
 		 */
 		_log.info("Started strategyClass: " + this.getClass().getName() + " canceled.");
-		synchronized (lockStrategyWorker) {
-			seriesChanged = true;
-			lockStrategyWorker.notify();
-		}
+		super.cancel();
 	}
 
 	/**
@@ -450,6 +473,7 @@ public abstract class AbstractStrategyRule extends Worker implements SeriesChang
 	public abstract void runStrategy(CandleSeries candleSeries, boolean newBar);
 
 	protected void done() {
+		getBrokerManager().getPositionStateService().remove(this.idTradestrategy);
 		this.fireStrategyComplete(this.getClass().getSimpleName(), this.tradestrategy);
 		removeAllMessageListener();
 		this.strategyData.getBaseCandleSeries().removeChangeListener(this);
@@ -468,10 +492,7 @@ public abstract class AbstractStrategyRule extends Worker implements SeriesChang
 	 * @see org.jfree.data.general.SeriesChangeListener#seriesChanged(SeriesChangeEvent)
 	 */
 	public void seriesChanged(SeriesChangeEvent event) {
-		synchronized (lockStrategyWorker) {
-			seriesChanged = true;
-			lockStrategyWorker.notify();
-		}
+		this.signal();
 	}
 
 	/**
@@ -768,7 +789,8 @@ public abstract class AbstractStrategyRule extends Worker implements SeriesChang
 			 * Add/Subtract 1 cent to the entry round the price for 1, 0.5
 			 * numbers
 			 */
-			entryPrice = addPennyAndRoundStop(entryPrice.doubleValue(), side, action, 0.01);
+			Price entry = addPennyAndRoundStop(Price.valueOf(entryPrice), side, action, Price.ONE_CENT);
+			entryPrice = entry.toMoney();
 			double risk = getTradestrategy().getRiskAmount().doubleValue();
 
 			double stop = entryPrice.doubleValue() - stopPrice.doubleValue();
@@ -794,9 +816,9 @@ public abstract class AbstractStrategyRule extends Worker implements SeriesChang
 				quantity = 10;
 			}
 
-			Money limitPrice = new Money(
-					(Side.BOT.equals(side) ? (entryPrice.doubleValue() + entrylimit.getLimitAmount().doubleValue())
-							: (entryPrice.doubleValue() - entrylimit.getLimitAmount().doubleValue())));
+			Price limitAmount = Price.valueOf(entrylimit.getLimitAmount());
+			Money limitPrice = (Side.BOT.equals(side) ? entry.add(limitAmount) : entry.subtract(limitAmount))
+					.toMoney();
 			TradeOrder tradeOrder = new TradeOrder(this.getTradestrategy(), action, OrderType.STPLMT, quantity,
 					entryPrice.getBigDecimalValue(), limitPrice.getBigDecimalValue(), this.getOrderCreateDate());
 
@@ -996,13 +1018,13 @@ public abstract class AbstractStrategyRule extends Worker implements SeriesChang
 			 * price not the rounded quantity. But if the stop price is not set
 			 * use Risk Amount/Quantity.
 			 */
-			double riskAmount = 0;
+			Price averageFilledPrice = Price.valueOf(openPosition.getAverageFilledPrice());
+			Price riskAmount = null;
 			if (null == openPosition.getStopPrice()) {
-				riskAmount = Math.abs(this.getTradestrategy().getRiskAmount().doubleValue()
-						/ openPosition.getFilledQuantity().doubleValue());
+				riskAmount = Price.valueOf(this.getTradestrategy().getRiskAmount())
+						.divide(openPosition.getFilledQuantity(), RoundingMode.HALF_EVEN).abs();
 			} else {
-				riskAmount = Math.abs(
-						openPosition.getAverageFilledPrice().doubleValue() - openPosition.getStopPrice().doubleValue());
+				riskAmount = averageFilledPrice.subtract(Price.valueOf(openPosition.getStopPrice())).abs();
 			}
 
 			String action = Action.BUY;
@@ -1013,19 +1035,17 @@ public abstract class AbstractStrategyRule extends Worker implements SeriesChang
 			}
 
 			// Add a penny to the stop and target
-			double stop = openPosition.getAverageFilledPrice().doubleValue()
-					+ (riskAmount * stopRiskUnits * buySellMultipliter);
-			if (stop < 0)
-				stop = 0.02;
+			Price stop = averageFilledPrice.add(riskAmount.multiply(stopRiskUnits * buySellMultipliter));
+			if (stop.signum() < 0)
+				stop = MIN_PRICE;
 			Money stopPrice = addPennyAndRoundStop(stop, this.getOpenTradePosition().getSide(), action,
-					stopAddAmount.doubleValue());
+					Price.valueOf(stopAddAmount)).toMoney();
 
-			double target = openPosition.getAverageFilledPrice().doubleValue()
-					+ (riskAmount * targetRiskUnits * buySellMultipliter * -1);
-			if (target < 0)
-				target = 0.02;
+			Price target = averageFilledPrice.add(riskAmount.multiply(targetRiskUnits * buySellMultipliter * -1));
+			if (target.signum() < 0)
+				target = MIN_PRICE;
 			Money targetPrice = addPennyAndRoundStop(target, this.getOpenTradePosition().getSide(), action,
-					targetAddAmount.doubleValue());
+					Price.valueOf(targetAddAmount)).toMoney();
 
 			String ocaID = new String(Integer.toString((new BigDecimal(Math.random() * 1000000)).intValue()));
 
@@ -1087,7 +1107,8 @@ public abstract class AbstractStrategyRule extends Worker implements SeriesChang
 			}
 
 			// Add a penny to the stop
-			Money stopPrice = new Money(openPosition.getAverageFilledPrice().doubleValue() + riskAmount);
+			Money stopPrice = Price.valueOf(openPosition.getAverageFilledPrice()).add(Price.valueOf(riskAmount))
+					.toMoney();
 			return stopPrice;
 
 		} catch (Exception ex) {
@@ -1184,13 +1205,30 @@ public abstract class AbstractStrategyRule extends Worker implements SeriesChang
 		if (price < 0) {
 			throw new StrategyRuleException(1, 223, "Error rounding price cannot be less than zero price: " + price);
 		}
-		double roundPrice = 0;
+		return addPennyAndRoundStop(Price.valueOf(price), side, action, Price.valueOf(dollars)).toMoney();
+	}
+
+	/**
+	 * Method addPennyAndRoundStop. This method takes a price and adds/subtracts
+	 * pennies to that prices and rounds the results based on whole/half number.
+	 * 
+	 * @param price
+	 * @param side
+	 * @param action
+	 * @param dollars
+	 * @return
+	 * @throws StrategyRuleException
+	 */
+	public Price addPennyAndRoundStop(Price price, String side, String action, Price dollars)
+			throws StrategyRuleException {
+		if (price.signum() < 0) {
+			throw new StrategyRuleException(1, 223, "Error rounding price cannot be less than zero price: " + price);
+		}
 		if (Side.BOT.equals(side)) {
-			roundPrice = roundPrice(price + dollars, action);
+			return roundPrice(price.add(dollars), action);
 		} else {
-			roundPrice = roundPrice(price - dollars, action);
+			return roundPrice(price.subtract(dollars), action);
 		}
-		return new Money(roundPrice);
 	}
 
 	/**
@@ -1264,7 +1302,8 @@ public abstract class AbstractStrategyRule extends Worker implements SeriesChang
 		try {
 			this.getTradestrategyOrders().setStatus(status);
 			this.getTradestrategyOrders().setLastUpdateDate(TradingCalendar.getDateTimeNowMarketTimeZone());
-			this.tradestrategyOrders = this.tradePersistentModel.persistAspect(this.getTradestrategyOrders());
+			setTradestrategyOrders(getBrokerManager().getPositionStateService()
+					.put(this.tradePersistentModel.persistAspect(this.getTradestrategyOrders())));
 		} catch (Exception ex) {
 			throw new StrategyRuleException(1, 400, "Error updating tradestrategy status: " + ex.getMessage());
 		}
@@ -1316,20 +1355,51 @@ public abstract class AbstractStrategyRule extends Worker implements SeriesChang
 	}
 
 	/**
-	 * Method reFreshPositionOrders.
+	 * Method reFreshPositionOrders. Reload the orders and open position from
+	 * the database so changes saved outside the broker model i.e. from the UI
+	 * are picked up.
 	 * 
 	 * @throws StrategyRuleException
 	 */
 
 	public void reFreshPositionOrders() throws StrategyRuleException {
 		try {
-			this.tradestrategyOrders = this.tradePersistentModel
-					.findPositionOrdersByTradestrategyId(this.idTradestrategy);
+			setTradestrategyOrders(getBrokerManager().getPositionStateService().refresh(this.idTradestrategy));
+		} catch (Exception ex) {
+			throw new StrategyRuleException(1, 410, "Error position orders: " + ex.getMessage());
+		}
+	}
+
+	/**
+	 * Method updatePositionOrders. Pick up the latest orders and open position
+	 * held by the broker model. These are only replaced if they have changed
+	 * since the last refresh.
+	 * 
+	 * @throws StrategyRuleException
+	 */
+	private void updatePositionOrders() throws StrategyRuleException {
+		try {
+			PositionStateService.Snapshot snapshot = getBrokerManager().getPositionStateService()
+					.getSnapshot(this.idTradestrategy);
+			if (snapshot.getVersion() != this.tradestrategyOrdersVersion) {
+				setTradestrategyOrders(snapshot);
+			}
 		} catch (Exception ex) {
 			throw new StrategyRuleException(1, 410, "Error position orders: " + ex.getMessage());
 		}
 	}
 
+	/**
+	 * Method setTradestrategyOrders.
+	 * 
+	 * @param snapshot
+	 *            PositionStateService.Snapshot
+	 */
+	private void setTradestrategyOrders(PositionStateService.Snapshot snapshot) {
+		this.tradestrategyOrders = snapshot.getTradestrategyOrders();
+		this.tradestrategyOrdersVersion = snapshot.getVersion();
+	}
+
 	/**
 	 * Method getIndividualAccount. Return a refreshed trade account note this
 	 * is updated when connected to TWS every time the account values change.
@@ -1539,29 +1609,30 @@ public abstract class AbstractStrategyRule extends Worker implements SeriesChang
 	 * @return
 	 * @throws StrategyRuleException
 	 */
-	private double roundPrice(double price, String action) throws StrategyRuleException {
+	private Price roundPrice(Price price, String action) throws StrategyRuleException {
 		try {
 			// Round at whole and half numbers add to this if you
 			// need others.
-			Entrylimit entrylimit = getEntryLimit().getValue(new Money(price));
+			Entrylimit entrylimit = getEntryLimit().getValue(price.doubleValue());
 			if (null == entrylimit) {
 				throw new StrategyRuleException(1, 211, "No EntryLimits found for price: " + price);
 			}
 
-			double[] rounding = { 1, 0.5 };
-			int buySellMultiplier = 1;
+			Price priceRound = Price.valueOf(entrylimit.getPriceRound());
+			boolean sell = action.equals(Action.SELL);
 
-			if (action.equals(Action.SELL)) {
-				buySellMultiplier = -1;
-			}
-
-			for (double element : rounding) {
+			for (Price element : ROUNDING) {
 				// Round the price to over under half numbers
-				double wholePrice = price + (1 - element);
-				double remainder = ((Math.rint(wholePrice) - wholePrice) * buySellMultiplier);
-				if ((remainder < entrylimit.getPriceRound().doubleValue()) && (remainder >= 0)) {
-					price = (Math.rint(wholePrice) + (0.01d * buySellMultiplier)) - (1 - element);
-					return price;
+				Price offset = Price.ONE_DOLLAR.subtract(element);
+				Price wholePrice = price.add(offset);
+				Price roundedPrice = wholePrice.roundToTick(Price.ONE_DOLLAR, RoundingMode.HALF_EVEN);
+				Price remainder = roundedPrice.subtract(wholePrice);
+				if (sell) {
+					remainder = remainder.negate();
+				}
+				if (remainder.isLessThan(priceRound) && remainder.signum() >= 0) {
+					return (sell ? roundedPrice.subtract(Price.ONE_CENT) : roundedPrice.add(Price.ONE_CENT))
+							.subtract(offset);
 				}
 			}
 			return price;
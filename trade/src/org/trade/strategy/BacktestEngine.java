@@ -0,0 +1,254 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.strategy;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.broker.BackTestBrokerModel;
+import org.trade.core.properties.ConfigProperties;
+import org.trade.persistent.BacktestPersistentModel;
+import org.trade.persistent.PersistentModelException;
+import org.trade.persistent.TradePersistentModel;
+import org.trade.persistent.dao.Tradestrategy;
+import org.trade.persistent.dao.Tradingday;
+import org.trade.persistent.dao.Tradingdays;
+
+/**
+ * Headless back test engine. Each Tradestrategy that is set to trade is
+ * replayed on a single thread i.e. candles are built, the strategy rules are
+ * fired and orders are filled synchronously with no Swing or worker threads
+ * and no wait/notify hand-offs.
+ * 
+ * The Tradestrategies are grouped by Contract. A group is replayed in
+ * Tradingday order on one thread with its own BacktestPersistentModel and
+ * BackTestBrokerModel, so a position carried over night is seen by the next
+ * Tradingday and no model is ever shared between threads. Groups are spread
+ * over a fork-join pool so throughput scales with the number of cores. The
+ * only state shared by the groups is the order key sequence.
+ * 
+ * @author Simon Allen
+ * 
+ * @version $Revision: 1.0 $
+ */
+public class BacktestEngine {
+
+	private final static Logger _log = LoggerFactory.getLogger(BacktestEngine.class);
+
+	private static Integer _parallelism = 0;
+	private static Boolean _dryRun = false;
+
+	static {
+		try {
+			_parallelism = ConfigProperties.getPropAsInt("trade.backtest.parallelism");
+			_dryRun = ConfigProperties.getPropAsBoolean("trade.backtest.dryRun");
+		} catch (Exception ex) {
+			throw new IllegalArgumentException("Error initializing BacktestEngine Msg: " + ex.getMessage());
+		}
+	}
+
+	private boolean dryRun = false;
+	private ForkJoinPool pool = null;
+
+	/**
+	 * Default Constructor for BacktestEngine. Orders and positions are written
+	 * to the database when each Contract completes, unless
+	 * trade.backtest.dryRun is set. The pool size is set via
+	 * trade.backtest.parallelism.
+	 */
+	public BacktestEngine() {
+		this(_dryRun, _parallelism);
+	}
+
+	/**
+	 * Constructor for BacktestEngine.
+	 * 
+	 * @param dryRun
+	 *            boolean if true orders and positions are only held in memory.
+	 * @param parallelism
+	 *            int number of Contracts to run at once. If less than 1 the
+	 *            number of available processors is used.
+	 */
+	public BacktestEngine(boolean dryRun, int parallelism) {
+		this.dryRun = dryRun;
+		if (parallelism < 1) {
+			parallelism = Runtime.getRuntime().availableProcessors();
+		}
+		this.pool = new ForkJoinPool(parallelism);
+	}
+
+	/**
+	 * Method run. Back test every Tradestrategy in the Tradingdays that is set
+	 * to trade and block until they are all complete.
+	 * 
+	 * @param tradingdays
+	 *            Tradingdays
+	 * @param strategyClasses
+	 *            Collection<Class<? extends AbstractStrategyRule>> the
+	 *            strategies and strategy managers referenced by the
+	 *            Tradestrategies. These are matched on the Strategy class
+	 *            name.
+	 * @return List<BacktestResult> one per Tradestrategy in the order they
+	 *         appear in the Tradingdays.
+	 */
+	public List<BacktestResult> run(Tradingdays tradingdays,
+			Collection<Class<? extends AbstractStrategyRule>> strategyClasses) {
+
+		final Map<String, Class<? extends AbstractStrategyRule>> strategies = new HashMap<>();
+		for (Class<? extends AbstractStrategyRule> strategyClass : strategyClasses) {
+			strategies.put(strategyClass.getSimpleName(), strategyClass);
+		}
+
+		List<Tradestrategy> tradestrategies = new ArrayList<Tradestrategy>();
+		Map<Integer, List<Tradestrategy>> contracts = new LinkedHashMap<Integer, List<Tradestrategy>>();
+		for (Tradingday tradingday : tradingdays.getTradingdays()) {
+			for (Tradestrategy tradestrategy : tradingday.getTradestrategies()) {
+				if (tradestrategy.getTrade()) {
+					tradestrategies.add(tradestrategy);
+					Integer idContract = tradestrategy.getContract().getIdContract();
+					List<Tradestrategy> group = contracts.get(idContract);
+					if (null == group) {
+						group = new ArrayList<Tradestrategy>();
+						contracts.put(idContract, group);
+					}
+					group.add(tradestrategy);
+				}
+			}
+		}
+
+		long start = System.currentTimeMillis();
+		Map<Tradestrategy, BacktestResult> completed = new IdentityHashMap<Tradestrategy, BacktestResult>();
+		try {
+			final AtomicInteger orderKey = new AtomicInteger(
+					Math.max(new TradePersistentModel().findTradeOrderByMaxKey(), 100000));
+
+			List<Callable<List<BacktestResult>>> tasks = new ArrayList<Callable<List<BacktestResult>>>();
+			for (final List<Tradestrategy> group : contracts.values()) {
+				tasks.add(new Callable<List<BacktestResult>>() {
+					public List<BacktestResult> call() {
+						return runContract(group, strategies, orderKey);
+					}
+				});
+			}
+			for (Future<List<BacktestResult>> future : this.pool.invokeAll(tasks)) {
+				try {
+					for (BacktestResult result : future.get()) {
+						completed.put(result.getTradestrategy(), result);
+					}
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					break;
+				} catch (ExecutionException ex) {
+					_log.error("Error BacktestEngine Msg: " + ex.getMessage(), ex);
+				}
+			}
+		} catch (PersistentModelException ex) {
+			_log.error("Error BacktestEngine could not find max order key Msg: " + ex.getMessage(), ex);
+		}
+
+		List<BacktestResult> results = new ArrayList<BacktestResult>(tradestrategies.size());
+		for (Tradestrategy tradestrategy : tradestrategies) {
+			BacktestResult result = completed.get(tradestrategy);
+			if (null != result) {
+				results.add(result);
+			}
+		}
+		_log.info("BacktestEngine completed: " + results.size() + " Tradestrategies for: " + contracts.size()
+				+ " Contracts in: " + (System.currentTimeMillis() - start) + "ms parallelism: "
+				+ this.pool.getParallelism());
+		return results;
+	}
+
+	/**
+	 * Method runContract. Replay the Tradestrategies for one Contract in
+	 * Tradingday order using models that are only seen by the calling thread.
+	 * The orders and positions are flushed once the last Tradestrategy
+	 * completes.
+	 * 
+	 * @param group
+	 *            List<Tradestrategy> all for the same Contract.
+	 * @param strategies
+	 *            Map<String, Class<? extends AbstractStrategyRule>>
+	 * @param orderKey
+	 *            AtomicInteger the order key sequence shared by all groups.
+	 * @return List<BacktestResult>
+	 */
+	private List<BacktestResult> runContract(List<Tradestrategy> group,
+			Map<String, Class<? extends AbstractStrategyRule>> strategies, AtomicInteger orderKey) {
+
+		List<Tradestrategy> ordered = new ArrayList<Tradestrategy>(group);
+		Collections.sort(ordered, new Comparator<Tradestrategy>() {
+			public int compare(Tradestrategy o1, Tradestrategy o2) {
+				return o1.getTradingday().getOpen().compareTo(o2.getTradingday().getOpen());
+			}
+		});
+
+		BacktestPersistentModel tradePersistentModel = new BacktestPersistentModel(this.dryRun);
+		BackTestBrokerModel brokerModel = new BackTestBrokerModel(tradePersistentModel, orderKey);
+		List<BacktestResult> results = new ArrayList<BacktestResult>(ordered.size());
+		for (Tradestrategy tradestrategy : ordered) {
+			results.add(new BacktestTask(tradestrategy, strategies, brokerModel, tradePersistentModel).call());
+		}
+		try {
+			tradePersistentModel.flush();
+		} catch (PersistentModelException ex) {
+			_log.error("Error BacktestEngine flush Symbol: " + ordered.get(0).getContract().getSymbol() + " Msg: "
+					+ ex.getMessage(), ex);
+		}
+		return results;
+	}
+
+	/**
+	 * Method shutdown. Release the threads held by this engine.
+	 */
+	public void shutdown() {
+		this.pool.shutdown();
+	}
+}
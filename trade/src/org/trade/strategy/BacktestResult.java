@@ -0,0 +1,160 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.strategy;
+
+import org.trade.persistent.dao.Tradestrategy;
+import org.trade.persistent.dao.TradestrategyOrders;
+
+/**
+ * The outcome of back testing a single Tradestrategy via the BacktestEngine.
+ * 
+ * @author Simon Allen
+ * 
+ * @version $Revision: 1.0 $
+ */
+public class BacktestResult {
+
+	private Tradestrategy tradestrategy = null;
+	private TradestrategyOrders tradestrategyOrders = null;
+	private int candleCount = 0;
+	private long elapsedTime = 0;
+	private Exception exception = null;
+
+	/**
+	 * Constructor for BacktestResult.
+	 * 
+	 * @param tradestrategy
+	 *            Tradestrategy
+	 */
+	public BacktestResult(Tradestrategy tradestrategy) {
+		this.tradestrategy = tradestrategy;
+	}
+
+	/**
+	 * Method getTradestrategy.
+	 * 
+	 * @return Tradestrategy
+	 */
+	public Tradestrategy getTradestrategy() {
+		return this.tradestrategy;
+	}
+
+	/**
+	 * Method getTradestrategyOrders. The orders and position for the
+	 * Tradestrategy at the end of the replay.
+	 * 
+	 * @return TradestrategyOrders
+	 */
+	public TradestrategyOrders getTradestrategyOrders() {
+		return this.tradestrategyOrders;
+	}
+
+	/**
+	 * Method setTradestrategyOrders.
+	 * 
+	 * @param tradestrategyOrders
+	 *            TradestrategyOrders
+	 */
+	public void setTradestrategyOrders(TradestrategyOrders tradestrategyOrders) {
+		this.tradestrategyOrders = tradestrategyOrders;
+	}
+
+	/**
+	 * Method getCandleCount. The number of candles replayed.
+	 * 
+	 * @return int
+	 */
+	public int getCandleCount() {
+		return this.candleCount;
+	}
+
+	/**
+	 * Method setCandleCount.
+	 * 
+	 * @param candleCount
+	 *            int
+	 */
+	public void setCandleCount(int candleCount) {
+		this.candleCount = candleCount;
+	}
+
+	/**
+	 * Method getElapsedTime.
+	 * 
+	 * @return long milliseconds taken to replay the Tradestrategy.
+	 */
+	public long getElapsedTime() {
+		return this.elapsedTime;
+	}
+
+	/**
+	 * Method setElapsedTime.
+	 * 
+	 * @param elapsedTime
+	 *            long
+	 */
+	public void setElapsedTime(long elapsedTime) {
+		this.elapsedTime = elapsedTime;
+	}
+
+	/**
+	 * Method getException.
+	 * 
+	 * @return Exception null if the replay completed without error.
+	 */
+	public Exception getException() {
+		return this.exception;
+	}
+
+	/**
+	 * Method setException.
+	 * 
+	 * @param exception
+	 *            Exception
+	 */
+	public void setException(Exception exception) {
+		this.exception = exception;
+	}
+
+	/**
+	 * Method hasError.
+	 * 
+	 * @return boolean
+	 */
+	public boolean hasError() {
+		return null != this.exception;
+	}
+}
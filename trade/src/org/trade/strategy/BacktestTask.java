@@ -0,0 +1,268 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.strategy;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.broker.BackTestBrokerModel;
+import org.trade.broker.BrokerModel;
+import org.trade.broker.client.DBBroker;
+import org.trade.broker.client.OrderFillSimulator;
+import org.trade.persistent.PersistentModel;
+import org.trade.persistent.dao.Candle;
+import org.trade.persistent.dao.TradeOrder;
+import org.trade.persistent.dao.Tradestrategy;
+import org.trade.persistent.dao.TradestrategyOrders;
+import org.trade.strategy.data.CandleSeries;
+import org.trade.strategy.data.StrategyData;
+import org.trade.strategy.data.candle.CandleItem;
+
+/**
+ * Replays one Tradestrategy for the BacktestEngine. Everything happens on the
+ * calling thread in the same order as the DBBroker/strategy worker pair i.e.
+ * build the candle, fire the strategy rules then fill any working orders.
+ * 
+ * @author Simon Allen
+ * 
+ * @version $Revision: 1.0 $
+ */
+class BacktestTask implements Callable<BacktestResult> {
+
+	private final static Logger _log = LoggerFactory.getLogger(BacktestTask.class);
+
+	private Tradestrategy tradestrategy = null;
+	private Map<String, Class<? extends AbstractStrategyRule>> strategyClasses = null;
+	private BackTestBrokerModel brokerModel = null;
+	private PersistentModel tradePersistentModel = null;
+
+	/**
+	 * Constructor for BacktestTask.
+	 * 
+	 * @param tradestrategy
+	 *            Tradestrategy
+	 * @param strategyClasses
+	 *            Map<String, Class<? extends AbstractStrategyRule>> keyed on
+	 *            class name.
+	 * @param brokerModel
+	 *            BackTestBrokerModel
+	 * @param tradePersistentModel
+	 *            PersistentModel
+	 */
+	BacktestTask(Tradestrategy tradestrategy, Map<String, Class<? extends AbstractStrategyRule>> strategyClasses,
+			BackTestBrokerModel brokerModel, PersistentModel tradePersistentModel) {
+		this.tradestrategy = tradestrategy;
+		this.strategyClasses = strategyClasses;
+		this.brokerModel = brokerModel;
+		this.tradePersistentModel = tradePersistentModel;
+	}
+
+	/**
+	 * Method call.
+	 * 
+	 * @return BacktestResult
+	 * @see java.util.concurrent.Callable#call()
+	 */
+	public BacktestResult call() {
+
+		BacktestResult result = new BacktestResult(this.tradestrategy);
+		long start = System.currentTimeMillis();
+		Tradestrategy tradestrategy = null;
+
+		try {
+			Integer idTradestrategy = this.tradestrategy.getIdTradeStrategy();
+			tradestrategy = this.tradePersistentModel.findTradestrategyById(idTradestrategy);
+			StrategyData strategyData = StrategyData.create(tradestrategy);
+			tradestrategy.setStrategyData(strategyData);
+
+			List<Candle> candles = DBBroker.findChartCandles(this.tradePersistentModel, tradestrategy);
+			List<Candle> candlesTradingday = DBBroker.findTradingdayCandles(this.tradePersistentModel,
+					tradestrategy);
+			if (candlesTradingday.isEmpty()) {
+				_log.warn("No data available to run a backtest for Symbol: " + tradestrategy.getContract().getSymbol()
+						+ " and Tradingday: " + tradestrategy.getTradingday().getOpen());
+				return result;
+			}
+			candles.addAll(candlesTradingday);
+			candlesTradingday.clear();
+			DBBroker.populateIndicatorCandleSeries(this.tradePersistentModel, tradestrategy,
+					tradestrategy.getTradingday().getOpen(), tradestrategy.getTradingday().getOpen());
+
+			OrderFillSimulator orderFillSimulator = new OrderFillSimulator(this.brokerModel);
+			CandleSeries candleSeries = strategyData.getBaseCandleSeries();
+			AbstractStrategyRule strategy = createStrategy(tradestrategy.getStrategy().getClassName(), strategyData,
+					idTradestrategy);
+			AbstractStrategyRule strategyManager = null;
+			TradestrategyOrders positionOrders = null;
+
+			for (Candle candle : candles) {
+
+				candleSeries.getContract().setLastAskPrice(candle.getClose());
+				candleSeries.getContract().setLastBidPrice(candle.getClose());
+				candleSeries.getContract().setLastPrice(candle.getClose());
+
+				strategyData.buildCandle(candle.getStartPeriod(), candle.getOpen().doubleValue(),
+						candle.getHigh().doubleValue(), candle.getLow().doubleValue(), candle.getClose().doubleValue(),
+						candle.getVolume(), candle.getVwap().doubleValue(), candle.getTradeCount(),
+						tradestrategy.getBarSize() / candle.getBarSize(), candle.getLastUpdateDate());
+				result.setCandleCount(result.getCandleCount() + 1);
+
+				fireRules(strategy);
+				fireRules(strategyManager);
+
+				if (candle.getStartPeriod().isBefore(tradestrategy.getTradingday().getOpen()))
+					continue;
+
+				positionOrders = this.tradePersistentModel.findPositionOrdersByTradestrategyId(idTradestrategy);
+				boolean hadOpenPosition = positionOrders.hasOpenTradePosition();
+
+				if (orderFillSimulator.filledOrders(tradestrategy.getContract(), positionOrders, candle)) {
+
+					positionOrders = this.tradePersistentModel.findPositionOrdersByTradestrategyId(idTradestrategy);
+
+					if (!hadOpenPosition && positionOrders.hasOpenTradePosition()) {
+						if (tradestrategy.getStrategy().hasStrategyManager()) {
+							/*
+							 * The manager takes over from the strategy that
+							 * opened the position. It processes the current
+							 * candle on start up so it can create the OCA
+							 * orders.
+							 */
+							strategy.cancel();
+							strategyManager = createStrategy(
+									tradestrategy.getStrategy().getStrategyManager().getClassName(), strategyData,
+									idTradestrategy);
+							fireRules(strategyManager);
+						} else {
+							for (TradeOrder tradeOrder : positionOrders.getTradeOrders()) {
+								if (tradeOrder.getIsOpenPosition() && tradeOrder.getIsFilled()
+										&& null != tradeOrder.getStopPrice()) {
+									strategy.tradeOrderFilled(tradeOrder);
+								}
+							}
+						}
+					}
+
+					/*
+					 * If the current candle is against the position the OCA
+					 * orders created on this candle may also need to be filled.
+					 */
+					if (positionOrders.hasOpenTradePosition()) {
+						CandleItem candleItem = (CandleItem) candleSeries.getDataItem(candleSeries.getItemCount() - 1);
+						if (!candleItem.isSide(positionOrders.getOpenTradePosition().getSide())) {
+							positionOrders = this.tradePersistentModel
+									.findPositionOrdersByTradestrategyId(idTradestrategy);
+							orderFillSimulator.filledOrders(tradestrategy.getContract(), positionOrders, candle);
+						}
+					}
+				}
+				if (!isRunning(strategy) && !isRunning(strategyManager) && !positionOrders.hasOpenTradePosition())
+					break;
+			}
+			candles.clear();
+			result.setTradestrategyOrders(
+					this.tradePersistentModel.findPositionOrdersByTradestrategyId(idTradestrategy));
+
+		} catch (Exception ex) {
+			_log.error("Error BacktestTask Symbol: " + this.tradestrategy.getContract().getSymbol() + " Msg: "
+					+ ex.getMessage(), ex);
+			result.setException(ex);
+		} finally {
+			// Free some memory!!
+			if (null != tradestrategy) {
+				tradestrategy.setStrategyData(null);
+			}
+			result.setElapsedTime(System.currentTimeMillis() - start);
+		}
+		return result;
+	}
+
+	/**
+	 * Method createStrategy. Create and initialize a strategy that is not
+	 * executed as a worker, its rules are fired via fireRules().
+	 * 
+	 * @param className
+	 *            String
+	 * @param strategyData
+	 *            StrategyData
+	 * @param idTradestrategy
+	 *            Integer
+	 * @return AbstractStrategyRule
+	 * @throws Exception
+	 */
+	private AbstractStrategyRule createStrategy(String className, StrategyData strategyData, Integer idTradestrategy)
+			throws Exception {
+
+		Class<? extends AbstractStrategyRule> strategyClass = this.strategyClasses.get(className);
+		if (null == strategyClass) {
+			throw new StrategyRuleException(1, 300, "Strategy class: " + className
+					+ " was not supplied to the BacktestEngine for idTradestrategy: " + idTradestrategy);
+		}
+		AbstractStrategyRule strategy = strategyClass
+				.getConstructor(BrokerModel.class, StrategyData.class, Integer.class)
+				.newInstance(this.brokerModel, strategyData, idTradestrategy);
+		strategy.initialiseStrategy(this.tradePersistentModel);
+		return strategy;
+	}
+
+	/**
+	 * Method fireRules. Fire the strategy rules for the current candle if the
+	 * strategy is still running.
+	 * 
+	 * @param strategy
+	 *            AbstractStrategyRule
+	 * @throws StrategyRuleException
+	 */
+	private void fireRules(AbstractStrategyRule strategy) throws StrategyRuleException {
+		if (isRunning(strategy)) {
+			strategy.processCandleSeries();
+		}
+	}
+
+	/**
+	 * Method isRunning.
+	 * 
+	 * @param strategy
+	 *            AbstractStrategyRule
+	 * @return boolean
+	 */
+	private boolean isRunning(AbstractStrategyRule strategy) {
+		return null != strategy && !strategy.isCancelled();
+	}
+}
@@ -358,8 +358,7 @@ public class AverageTrueRangeSeries extends IndicatorSeries {
 						currATR = ((prevATR * (getLength() - 1)) + tR) / getLength();
 					}
 					if (newBar) {
-						AverageTrueRangeItem dataItem = new AverageTrueRangeItem(candleItem.getPeriod(),
-								new BigDecimal(currATR));
+						AverageTrueRangeItem dataItem = new AverageTrueRangeItem(candleItem.getPeriod(), currATR);
 						this.add(dataItem, false);
 
 					} else {
@@ -37,8 +37,7 @@ package org.trade.strategy.data;
 
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
-import java.util.Collections;
-import java.util.LinkedList;
+import java.util.NoSuchElementException;
 
 import javax.persistence.DiscriminatorValue;
 import javax.persistence.Entity;
@@ -56,8 +55,11 @@ import org.trade.persistent.dao.Contract;
 import org.trade.persistent.dao.Strategy;
 import org.trade.persistent.dao.Tradingday;
 import org.trade.strategy.data.base.RegularTimePeriod;
+import org.trade.strategy.data.candle.CandleIndex;
+import org.trade.strategy.data.candle.CandleRangeIndex;
 import org.trade.strategy.data.candle.CandleItem;
 import org.trade.strategy.data.candle.CandlePeriod;
+import org.trade.strategy.data.candle.CandleStore;
 
 /**
  * A list of (RegularTimePeriod, open, high, low, close) data items.
@@ -88,6 +90,15 @@ public class CandleSeries extends IndicatorSeries {
 	private ZonedDateTime endTime;
 	private int barSize = 0;
 
+	private CandleStore candleStore = new CandleStore();
+	private CandleIndex candleIndex = null;
+	private CandleRangeIndex candleRangeIndex = null;
+	/*
+	 * True while every item's row in the store is its position in the series,
+	 * a change to a row then only invalidates the range index from there on.
+	 */
+	private boolean rowsInOrder = true;
+	private Tradingday tradingday = null;
 	private Candle candleBar = null;
 	private Percent percentChangeFromClose = new Percent(0);
 	private Percent percentChangeFromOpen = new Percent(0);
@@ -96,17 +107,23 @@ public class CandleSeries extends IndicatorSeries {
 	private RollingCandle rollingCandle = new RollingCandle();
 	private RollingCandle prevRollingCandle = null;
 
-	private Double sumVwapVolume = new Double(0);
-	private Long sumVolume = new Long(0);
-	private Integer sumTradeCount = new Integer(0);
+	private double sumVwapVolume = 0;
+	private long sumVolume = 0;
+	private int sumTradeCount = 0;
 
-	private LinkedList<RollingCandle> rollingCandleValues = new LinkedList<RollingCandle>();
-	private LinkedList<Double> openValues = new LinkedList<Double>();
-	private LinkedList<Double> highValues = new LinkedList<Double>();
-	private LinkedList<Double> lowValues = new LinkedList<Double>();
-	private LinkedList<Long> volumeValues = new LinkedList<Long>();
-	private LinkedList<Integer> tradeCountValues = new LinkedList<Integer>();
-	private LinkedList<Double> vwapVolumeValues = new LinkedList<Double>();
+	/*
+	 * The candles that make up the rolling candle. These are ring buffers
+	 * where rollingHead is the most recent and rollingSize the number held.
+	 */
+	private RollingCandle[] rollingCandleValues = new RollingCandle[1];
+	private double[] openValues = new double[1];
+	private double[] highValues = new double[1];
+	private double[] lowValues = new double[1];
+	private long[] volumeValues = new long[1];
+	private int[] tradeCountValues = new int[1];
+	private double[] vwapVolumeValues = new double[1];
+	private int rollingHead = 0;
+	private int rollingSize = 0;
 
 	public CandleSeries() {
 		super(IndicatorSeries.CandleSeries, true, 0, false);
@@ -383,6 +400,7 @@ public class CandleSeries extends IndicatorSeries {
 	 */
 	public void setBarSize(Integer barSize) {
 		this.barSize = barSize;
+		this.candleIndex = null;
 	}
 
 	/**
@@ -428,12 +446,13 @@ public class CandleSeries extends IndicatorSeries {
 				throw new IllegalArgumentException("Can't mix RegularTimePeriod class types.");
 			}
 		}
-		super.add(new CandleItem(contract, tradingday, period, open, high, low, close, volume, vwap, tradeCount,
-				lastUpdateDate), true);
+		this.add(new CandleItem(this.candleStore, contract, tradingday, period, open, high, low, close, volume, vwap,
+				tradeCount, lastUpdateDate), true);
 	}
 
 	/**
-	 * Adds a data item to the series.
+	 * Adds a data item to the series. If the item's values are held in another
+	 * series store a copy of the item is added.
 	 * 
 	 * @param candleItem
 	 *            CandleItem
@@ -447,18 +466,165 @@ public class CandleSeries extends IndicatorSeries {
 				throw new IllegalArgumentException("Can't mix RegularTimePeriod class types.");
 			}
 		}
-		super.add(candleItem, notify);
+		if (candleItem.getStore() != this.candleStore) {
+			candleItem = new CandleItem(this.candleStore, candleItem);
+		}
+		super.add(candleItem, false);
+		int index = this.getItemCount() - 1;
+		if (this.data.get(index) == candleItem) {
+			if (null != this.candleIndex) {
+				this.candleIndex.put(candleItem.getStore().getTime(candleItem.getRow()),
+						candleItem.getPeriod().getEnd().toEpochSecond(), index);
+			}
+			if (candleItem.getRow() != index) {
+				this.rowsInOrder = false;
+			}
+		} else {
+			if (null != this.candleIndex) {
+				this.candleIndex.invalidate();
+			}
+			if (null != this.candleRangeIndex) {
+				this.candleRangeIndex.truncate(0);
+			}
+			this.rowsInOrder = false;
+		}
+		if (notify) {
+			this.fireSeriesChanged();
+		}
+	}
+
+	/**
+	 * Returns the open value for the specified item.
+	 * 
+	 * @param index
+	 *            the item index.
+	 * @return double
+	 */
+	public double getOpen(int index) {
+		return ((CandleItem) this.data.get(index)).getOpen();
+	}
+
+	/**
+	 * Returns the high value for the specified item.
+	 * 
+	 * @param index
+	 *            the item index.
+	 * @return double
+	 */
+	public double getHigh(int index) {
+		return ((CandleItem) this.data.get(index)).getHigh();
+	}
+
+	/**
+	 * Returns the low value for the specified item.
+	 * 
+	 * @param index
+	 *            the item index.
+	 * @return double
+	 */
+	public double getLow(int index) {
+		return ((CandleItem) this.data.get(index)).getLow();
+	}
+
+	/**
+	 * Returns the close value for the specified item.
+	 * 
+	 * @param index
+	 *            the item index.
+	 * @return double
+	 */
+	public double getClose(int index) {
+		return ((CandleItem) this.data.get(index)).getClose();
 	}
 
 	/**
-	 * Returns the true/false if the date falls within a period.
+	 * Returns the vwap value for the specified item.
+	 * 
+	 * @param index
+	 *            the item index.
+	 * @return double
+	 */
+	public double getVwap(int index) {
+		return ((CandleItem) this.data.get(index)).getVwap();
+	}
+
+	/**
+	 * Returns the volume value for the specified item.
+	 * 
+	 * @param index
+	 *            the item index.
+	 * @return long
+	 */
+	public long getVolume(int index) {
+		return ((CandleItem) this.data.get(index)).getVolume();
+	}
+
+	/**
+	 * Returns the trade count value for the specified item.
+	 * 
+	 * @param index
+	 *            the item index.
+	 * @return int
+	 */
+	public int getCount(int index) {
+		return ((CandleItem) this.data.get(index)).getCount();
+	}
+
+	/**
+	 * Returns the period start in epoch seconds for the specified item.
+	 * 
+	 * @param index
+	 *            the item index.
+	 * @return long
+	 */
+	public long getStartEpochSecond(int index) {
+		CandleItem candleItem = (CandleItem) this.data.get(index);
+		return candleItem.getStore().getTime(candleItem.getRow());
+	}
+
+	/**
+	 * Returns the index of the item whose period contains the date. Candles
+	 * are found via the CandleIndex so the cost does not depend on the size of
+	 * the series or how far back the date is.
 	 * 
 	 * @param date
 	 *            the date for which we want a period.
-	 * @return exists
+	 * @return the index of the item or -1 if there is none.
 	 */
 	public int indexOf(ZonedDateTime date) {
 
+		if (this.getBarSize() < 1) {
+			return searchIndexOf(date);
+		}
+		if (null == this.candleIndex || !this.candleIndex.isValid(this.data.size())) {
+			this.rebuildCandleIndex();
+		}
+		if (this.candleIndex.isIrregular()) {
+			return searchIndexOf(date);
+		}
+		long epochSecond = date.toEpochSecond();
+		for (int bucketsBack = 0; bucketsBack < 2; bucketsBack++) {
+			int index = this.candleIndex.get(epochSecond, bucketsBack);
+			if (index > -1 && index < this.data.size()) {
+				RegularTimePeriod period = ((CandleItem) this.data.get(index)).getPeriod();
+				if (!date.isBefore(period.getStart()) && !date.isAfter(period.getEnd())) {
+					return index;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Method searchIndexOf. Search back through the series for the item whose
+	 * period contains the date.
+	 * 
+	 * @param date
+	 *            the date for which we want a period.
+	 * @return the index of the item or -1 if there is none.
+	 */
+	private int searchIndexOf(ZonedDateTime date) {
+
 		for (int i = this.data.size(); i > 0; i--) {
 			CandleItem item = (CandleItem) this.data.get(i - 1);
 			if (date.isAfter(item.getPeriod().getEnd())) {
@@ -472,6 +638,22 @@ public class CandleSeries extends IndicatorSeries {
 		return -1;
 	}
 
+	/**
+	 * Method rebuildCandleIndex. Index every item in the series.
+	 */
+	private void rebuildCandleIndex() {
+		if (null == this.candleIndex || this.candleIndex.getBarSize() != this.getBarSize()) {
+			this.candleIndex = new CandleIndex(this.getBarSize());
+		} else {
+			this.candleIndex.clear();
+		}
+		for (int i = 0; i < this.data.size(); i++) {
+			CandleItem candleItem = (CandleItem) this.data.get(i);
+			this.candleIndex.put(candleItem.getStore().getTime(candleItem.getRow()),
+					candleItem.getPeriod().getEnd().toEpochSecond(), i);
+		}
+	}
+
 	/**
 	 * Returns the last completed candle or -1 if still building.
 	 * 
@@ -540,17 +722,15 @@ public class CandleSeries extends IndicatorSeries {
 		} else {
 
 			RegularTimePeriod period = this.getPeriodStart(time, this.getBarSize());
-			Tradingday tradingday = new Tradingday(
-					TradingCalendar.getDateAtTime(period.getStart(), this.getStartTime()),
-					TradingCalendar.getDateAtTime(period.getStart(), this.getEndTime()));
+			Tradingday tradingday = this.getTradingday(period);
 
 			if (null == lastUpdateDate)
 				lastUpdateDate = period.getEnd();
 
 			this.rollCandle(period, rollupInterval, open, high, low, close, volume, tradeCount, vwap, lastUpdateDate);
 
-			candleItem = new CandleItem(this.getContract(), tradingday, period, open, high, low, close, volume,
-					this.rollingCandle.getVwap(), tradeCount, lastUpdateDate);
+			candleItem = new CandleItem(this.candleStore, this.getContract(), tradingday, period, open, high, low,
+					close, volume, this.rollingCandle.getVwap(), tradeCount, lastUpdateDate);
 			this.add(candleItem, false);
 
 			newCandle = true;
@@ -559,19 +739,35 @@ public class CandleSeries extends IndicatorSeries {
 		return newCandle;
 	}
 
+	/**
+	 * Method getTradingday. The Tradingday for the period, candles in the same
+	 * day share the Tradingday.
+	 * 
+	 * @param period
+	 *            RegularTimePeriod
+	 * @return Tradingday
+	 */
+	private Tradingday getTradingday(RegularTimePeriod period) {
+		ZonedDateTime open = TradingCalendar.getDateAtTime(period.getStart(), this.getStartTime());
+		ZonedDateTime close = TradingCalendar.getDateAtTime(period.getStart(), this.getEndTime());
+		if (null == this.tradingday || !this.tradingday.getOpen().equals(open)
+				|| !this.tradingday.getClose().equals(close)) {
+			this.tradingday = new Tradingday(open, close);
+		}
+		return this.tradingday;
+	}
+
 	/**
 	 * Removes all data items from the series and, unless the series is already
 	 * empty, sends a {@link SeriesChangeEvent} to all registered listeners.
 	 * Clears down and resets all the Vwap calculated fields.
 	 */
 	public void clear() {
-		this.openValues.clear();
-		this.highValues.clear();
-		this.lowValues.clear();
-		this.volumeValues.clear();
-		this.tradeCountValues.clear();
-		this.vwapVolumeValues.clear();
-		this.rollingCandleValues.clear();
+		this.clearRollingCandles();
+		this.candleStore = new CandleStore();
+		this.candleIndex = null;
+		this.candleRangeIndex = null;
+		this.rowsInOrder = true;
 		super.clear();
 	}
 
@@ -592,6 +788,20 @@ public class CandleSeries extends IndicatorSeries {
 		clone.endTime = this.getEndTime();
 		clone.barSize = this.getBarSize();
 		clone.rollingCandle = new RollingCandle();
+		clone.candleStore = new CandleStore();
+		clone.candleIndex = null;
+		clone.candleRangeIndex = null;
+		clone.rowsInOrder = false;
+		clone.tradingday = null;
+		clone.rollingCandleValues = new RollingCandle[1];
+		clone.openValues = new double[1];
+		clone.highValues = new double[1];
+		clone.lowValues = new double[1];
+		clone.volumeValues = new long[1];
+		clone.tradeCountValues = new int[1];
+		clone.vwapVolumeValues = new double[1];
+		clone.rollingHead = 0;
+		clone.rollingSize = 0;
 		return clone;
 	}
 
@@ -633,7 +843,9 @@ public class CandleSeries extends IndicatorSeries {
 	 */
 	@Transient
 	public RollingCandle getRollingCandle() {
-		return this.rollingCandleValues.getFirst();
+		if (this.rollingSize == 0)
+			throw new NoSuchElementException();
+		return this.rollingCandleValues[this.rollingHead];
 	}
 
 	/**
@@ -645,7 +857,9 @@ public class CandleSeries extends IndicatorSeries {
 	 */
 	@Transient
 	public RollingCandle getRollingCandle(int index) {
-		return this.rollingCandleValues.get(index);
+		if (index < 0 || index >= this.rollingSize)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.rollingSize);
+		return this.rollingCandleValues[rollingIndex(index)];
 	}
 
 	/**
@@ -655,7 +869,7 @@ public class CandleSeries extends IndicatorSeries {
 	 */
 	@Transient
 	public int getRollingCandleSize() {
-		return this.rollingCandleValues.size();
+		return this.rollingSize;
 	}
 
 	/**
@@ -700,7 +914,15 @@ public class CandleSeries extends IndicatorSeries {
 				this.add(candleItem, true);
 			} else {
 				CandleItem dataItem = (CandleItem) this.getDataItem(this.getItemCount() - 1);
-				this.update(dataItem.getPeriod(), dataItem.getCandle());
+				dataItem.setOpen(candleItem.getOpen());
+				dataItem.setHigh(candleItem.getHigh());
+				dataItem.setLow(candleItem.getLow());
+				dataItem.setClose(candleItem.getClose());
+				dataItem.setVolume(candleItem.getVolume());
+				dataItem.setVwap(candleItem.getVwap());
+				dataItem.setCount(candleItem.getCount());
+				dataItem.setLastUpdateDate(candleItem.getLastUpdateDate());
+				this.fireSeriesChanged();
 			}
 		}
 	}
@@ -718,46 +940,27 @@ public class CandleSeries extends IndicatorSeries {
 	 */
 	public Candle getAverageBar(ZonedDateTime startDate, ZonedDateTime endDate, boolean wieghted) {
 
-		int itemCount = this.getItemCount() - 1;
-		long sumVolume = 0;
-		int sunTradeCount = 0;
-		double sunHighPriceXVolume = 0;
-		double sunLowPriceXVolume = 0;
-		double sunOpenPriceXVolume = 0;
-		double sunClosePriceXVolume = 0;
-		double sunClosePriceXVolumeVwap = 0;
-		double numberOfCandles = 0;
-		CandleItem candle = null;
-		for (int i = itemCount; i > -1; i--) {
-			candle = (CandleItem) this.getDataItem(i);
-			if ((candle.getPeriod().getStart().equals(startDate) || candle.getPeriod().getStart().isAfter(startDate))
-					&& (candle.getPeriod().getStart().equals(endDate)
-							|| candle.getPeriod().getStart().isBefore(endDate))) {
-
-				if (candle.getVolume() > 0)
-					numberOfCandles++;
-
-				sunHighPriceXVolume = sunHighPriceXVolume + ((wieghted ? candle.getVolume() : 1) * candle.getHigh());
-				sunLowPriceXVolume = sunLowPriceXVolume + ((wieghted ? candle.getVolume() : 1) * candle.getLow());
-				sunOpenPriceXVolume = sunOpenPriceXVolume + ((wieghted ? candle.getVolume() : 1) * candle.getOpen());
-				sunClosePriceXVolume = sunClosePriceXVolume + ((wieghted ? candle.getVolume() : 1) * candle.getClose());
-				sunClosePriceXVolumeVwap = sunClosePriceXVolumeVwap + (candle.getVolume() * candle.getClose());
-				sumVolume = sumVolume + candle.getVolume();
-				sunTradeCount = sunTradeCount + candle.getCount();
-			}
+		int from = this.lowerIndexOf(startDate);
+		int to = this.upperIndexOf(endDate, true);
+		if (from >= to) {
+			return null;
 		}
+		CandleRangeIndex rangeIndex = this.getCandleRangeIndex();
+		long sumVolume = rangeIndex.getVolume(from, to);
+		double numberOfCandles = rangeIndex.getVolumeCount(from, to);
 		if (numberOfCandles > 0 && sumVolume > 0) {
 
+			double divisor = (wieghted ? sumVolume : numberOfCandles);
 			CandlePeriod period = new CandlePeriod(startDate, endDate);
 			Candle avgCandle = new Candle(getContract(), period, 0, 0, 0, Double.MAX_VALUE,
 					TradingCalendar.getDateTimeNowMarketTimeZone());
-			avgCandle.setHigh(new BigDecimal((sunHighPriceXVolume / (wieghted ? sumVolume : numberOfCandles))));
-			avgCandle.setLow(new BigDecimal((sunLowPriceXVolume / (wieghted ? sumVolume : numberOfCandles))));
-			avgCandle.setOpen(new BigDecimal((sunOpenPriceXVolume / (wieghted ? sumVolume : numberOfCandles))));
-			avgCandle.setClose(new BigDecimal((sunClosePriceXVolume / (wieghted ? sumVolume : numberOfCandles))));
-			avgCandle.setVwap(new BigDecimal(sunClosePriceXVolumeVwap / sumVolume));
+			avgCandle.setHigh(new BigDecimal(rangeIndex.getSumHigh(from, to, wieghted) / divisor));
+			avgCandle.setLow(new BigDecimal(rangeIndex.getSumLow(from, to, wieghted) / divisor));
+			avgCandle.setOpen(new BigDecimal(rangeIndex.getSumOpen(from, to, wieghted) / divisor));
+			avgCandle.setClose(new BigDecimal(rangeIndex.getSumClose(from, to, wieghted) / divisor));
+			avgCandle.setVwap(new BigDecimal(rangeIndex.getSumClose(from, to, true) / sumVolume));
 			avgCandle.setVolume(sumVolume);
-			avgCandle.setTradeCount(sunTradeCount);
+			avgCandle.setTradeCount((int) rangeIndex.getCount(from, to));
 			return avgCandle;
 		}
 		return null;
@@ -782,49 +985,118 @@ public class CandleSeries extends IndicatorSeries {
 			}
 		}
 
-		int itemCount = this.getItemCount() - 1;
-		long sumVolume = 0;
-		int sumTradeCount = 0;
-		double sunClosePriceXVolumeVwap = 0;
-		CandleItem candle = null;
-		for (int i = itemCount; i > -1; i--) {
-			candle = (CandleItem) this.getDataItem(i);
-			if ((candle.getPeriod().getStart().equals(startDate) || candle.getPeriod().getStart().isAfter(startDate))
-					&& (candle.getPeriod().getStart().isBefore(endDate))) {
-				if (null == this.candleBar) {
-					this.candleBar = new Candle(getContract(), candle.getPeriod(), 0, 0, Double.MAX_VALUE, 0,
-							TradingCalendar.getDateTimeNowMarketTimeZone());
-					this.candleBar.setEndPeriod(candle.getPeriod().getEnd());
-				}
-
-				if (this.candleBar.getClose().doubleValue() == 0)
-					this.candleBar.setClose(new BigDecimal(candle.getClose()));
-
-				if (this.candleBar.getHigh().doubleValue() < candle.getHigh())
-					this.candleBar.setHigh(new BigDecimal(candle.getHigh()));
-
-				if (this.candleBar.getLow().doubleValue() > candle.getLow())
-					this.candleBar.setLow(new BigDecimal(candle.getLow()));
+		int from = this.lowerIndexOf(startDate);
+		int to = this.upperIndexOf(endDate, false);
+		if (from >= to) {
+			return null;
+		}
+		CandleRangeIndex rangeIndex = this.getCandleRangeIndex();
+		CandleItem first = (CandleItem) this.getDataItem(from);
+		CandleItem last = (CandleItem) this.getDataItem(to - 1);
+		this.candleBar = new Candle(getContract(), last.getPeriod(), 0, 0, Double.MAX_VALUE, 0,
+				TradingCalendar.getDateTimeNowMarketTimeZone());
+		this.candleBar.setEndPeriod(last.getPeriod().getEnd());
+		this.candleBar.setStartPeriod(first.getPeriod().getStart());
+		this.candleBar.setOpen(new BigDecimal(first.getOpen()));
+		this.candleBar.setHigh(new BigDecimal(rangeIndex.getHigh(from, to)));
+		this.candleBar.setLow(new BigDecimal(rangeIndex.getLow(from, to)));
+		this.candleBar.setClose(new BigDecimal(last.getClose()));
+		this.candleBar.setTradeCount((int) rangeIndex.getCount(from, to));
+		long sumVolume = rangeIndex.getVolume(from, to);
+		double sumClosePriceXVolume = rangeIndex.getSumClose(from, to, true);
+		if (sumVolume > 0) {
+			this.candleBar.setVwap(new BigDecimal(sumClosePriceXVolume / sumVolume));
+			this.candleBar.setVolume(sumVolume);
+		} else {
+			this.candleBar.setVwap(new BigDecimal(sumClosePriceXVolume));
+			this.candleBar.setVolume(0L);
+		}
+		return this.candleBar;
+	}
 
-				sunClosePriceXVolumeVwap = sunClosePriceXVolumeVwap + (candle.getVolume() * candle.getClose());
-				sumVolume = sumVolume + candle.getVolume();
-				sumTradeCount = sumTradeCount + candle.getCount();
+	/**
+	 * Method lowerIndexOf. Binary search for the first item that starts on or
+	 * after the date.
+	 * 
+	 * @param date
+	 *            ZonedDateTime
+	 * @return int the position of the item or the item count if there is
+	 *         none.
+	 */
+	private int lowerIndexOf(ZonedDateTime date) {
+		long epochSecond = date.toEpochSecond() + (date.getNano() > 0 ? 1 : 0);
+		int low = 0;
+		int high = this.data.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (this.getStartEpochSecond(mid) < epochSecond) {
+				low = mid + 1;
+			} else {
+				high = mid;
 			}
 		}
-		if (null != candle) {
-			this.candleBar.setStartPeriod(candle.getPeriod().getStart());
-			this.candleBar.setOpen(new BigDecimal(candle.getOpen()));
-			this.candleBar.setTradeCount(sumTradeCount);
-			if (sumVolume > 0) {
-				this.candleBar.setVwap(new BigDecimal(sunClosePriceXVolumeVwap / sumVolume));
-				this.candleBar.setVolume(sumVolume);
+		return low;
+	}
+
+	/**
+	 * Method upperIndexOf. Binary search for the first item that starts after
+	 * the date, or on or after the date when the date is not inclusive.
+	 * 
+	 * @param date
+	 *            ZonedDateTime
+	 * @param inclusive
+	 *            boolean true if items that start on the date are before it.
+	 * @return int the position of the item or the item count if there is
+	 *         none.
+	 */
+	private int upperIndexOf(ZonedDateTime date, boolean inclusive) {
+		long epochSecond = date.toEpochSecond();
+		if (!inclusive && date.getNano() == 0) {
+			epochSecond--;
+		}
+		int low = 0;
+		int high = this.data.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (this.getStartEpochSecond(mid) <= epochSecond) {
+				low = mid + 1;
 			} else {
-				this.candleBar.setVwap(new BigDecimal(sunClosePriceXVolumeVwap));
-				this.candleBar.setVolume(0L);
+				high = mid;
 			}
+		}
+		return low;
+	}
 
+	/**
+	 * Method getCandleRangeIndex. Bring the range index up to date with the
+	 * series, changed candles and any after them are indexed again.
+	 * 
+	 * @return CandleRangeIndex
+	 */
+	@Transient
+	private CandleRangeIndex getCandleRangeIndex() {
+		if (null == this.candleRangeIndex) {
+			this.candleRangeIndex = new CandleRangeIndex(this.data.size());
 		}
-		return this.candleBar;
+		int modifiedRow = this.candleStore.getModifiedRow();
+		if (modifiedRow != Integer.MAX_VALUE) {
+			this.candleRangeIndex.truncate(this.rowsInOrder ? modifiedRow : 0);
+			this.candleStore.clearModifiedRow();
+		}
+		if (this.candleRangeIndex.size() > this.data.size() || (!this.data.isEmpty()
+				&& ((CandleItem) this.data.get(0)).getStore() != this.candleStore)) {
+			/*
+			 * Items removed or held in another store so changes can't be
+			 * tracked.
+			 */
+			this.candleRangeIndex.truncate(0);
+		}
+		for (int i = this.candleRangeIndex.size(); i < this.data.size(); i++) {
+			CandleItem candleItem = (CandleItem) this.data.get(i);
+			this.candleRangeIndex.add(candleItem.getOpen(), candleItem.getHigh(), candleItem.getLow(),
+					candleItem.getClose(), candleItem.getVolume(), candleItem.getCount());
+		}
+		return this.candleRangeIndex;
 	}
 
 	/**
@@ -964,13 +1236,13 @@ public class CandleSeries extends IndicatorSeries {
 							candleItem.getHigh(), candleItem.getLow(), candleItem.getClose(), candleItem.getVolume(),
 							candleItem.getCount(), candleItem.getVwap(), lastUpdateDate);
 
-					this.sumVwapVolume = new Double(candleItem.getVwap() * candleItem.getVolume());
+					this.sumVwapVolume = candleItem.getVwap() * candleItem.getVolume();
 					this.sumVolume = candleItem.getVolume();
 					this.sumTradeCount = candleItem.getCount();
 				} else {
-					this.sumVwapVolume = new Double(0);
-					this.sumVolume = new Long(0);
-					this.sumTradeCount = new Integer(0);
+					this.sumVwapVolume = 0;
+					this.sumVolume = 0;
+					this.sumTradeCount = 0;
 					this.rollingCandle.rollupInterval = rollupInterval;
 				}
 				if (this.getItemCount() > 1) {
@@ -983,18 +1255,21 @@ public class CandleSeries extends IndicatorSeries {
 			} else {
 				this.rollingCandle.rollupInterval = rollupInterval;
 				this.rollingCandle.open = open;
-				this.sumVwapVolume = new Double(0);
-				this.sumVolume = new Long(0);
-				this.sumTradeCount = new Integer(0);
+				this.sumVwapVolume = 0;
+				this.sumVolume = 0;
+				this.sumTradeCount = 0;
 			}
 
-			this.openValues.clear();
-			this.highValues.clear();
-			this.lowValues.clear();
-			this.volumeValues.clear();
-			this.tradeCountValues.clear();
-			this.vwapVolumeValues.clear();
-			this.rollingCandleValues.clear();
+			this.clearRollingCandles();
+			if (this.openValues.length < rollupInterval) {
+				this.rollingCandleValues = new RollingCandle[rollupInterval];
+				this.openValues = new double[rollupInterval];
+				this.highValues = new double[rollupInterval];
+				this.lowValues = new double[rollupInterval];
+				this.volumeValues = new long[rollupInterval];
+				this.tradeCountValues = new int[rollupInterval];
+				this.vwapVolumeValues = new double[rollupInterval];
+			}
 		}
 
 		updateRollingCandle(period, rollupInterval, open, high, low, close, volume, tradeCount, vwap, lastUpdateDate);
@@ -1029,59 +1304,64 @@ public class CandleSeries extends IndicatorSeries {
 	private void updateRollingCandle(RegularTimePeriod period, int rollupInterval, double open, double high, double low,
 			double close, long volume, int tradeCount, double vwap, ZonedDateTime lastUpdateDate) {
 
-		if (rollupInterval == this.rollingCandleValues.size()) {
-			this.prevRollingCandle = this.rollingCandleValues.removeLast();
+		if (rollupInterval == this.rollingSize) {
+			int last = rollingIndex(this.rollingSize - 1);
+			this.prevRollingCandle = this.rollingCandleValues[last];
+			this.rollingCandleValues[last] = null;
+			this.rollingSize--;
 
-			this.rollingCandle.open = this.openValues.removeLast();
-			if (this.openValues.isEmpty())
+			this.rollingCandle.open = this.openValues[last];
+			if (this.rollingSize == 0)
 				this.rollingCandle.open = open;
 
-			if (this.rollingCandle.high == this.highValues.removeLast()) {
-				if (this.highValues.isEmpty()) {
+			if (this.rollingCandle.high == this.highValues[last]) {
+				if (this.rollingSize == 0) {
 					this.rollingCandle.high = high;
 				} else {
-					this.rollingCandle.high = Collections.max(this.highValues);
+					this.rollingCandle.high = maxRollingValue(this.highValues);
 				}
 			}
 
-			if (this.rollingCandle.low == this.lowValues.removeLast()) {
-				if (this.lowValues.isEmpty()) {
+			if (this.rollingCandle.low == this.lowValues[last]) {
+				if (this.rollingSize == 0) {
 					this.rollingCandle.low = low;
 				} else {
-					this.rollingCandle.low = Collections.min(this.lowValues);
+					this.rollingCandle.low = minRollingValue(this.lowValues);
 				}
 			}
 
-			sumVolume = sumVolume - this.volumeValues.removeLast();
-			sumVwapVolume = sumVwapVolume - this.vwapVolumeValues.removeLast();
-			sumTradeCount = sumTradeCount - this.tradeCountValues.removeLast();
+			sumVolume = sumVolume - this.volumeValues[last];
+			sumVwapVolume = sumVwapVolume - this.vwapVolumeValues[last];
+			sumTradeCount = sumTradeCount - this.tradeCountValues[last];
 		}
 
 		this.rollingCandle.period = period;
 		this.rollingCandle.lastUpdateDate = lastUpdateDate;
 
-		this.openValues.addFirst(open);
+		this.rollingHead = (this.rollingHead + 1) % this.openValues.length;
+		this.rollingSize++;
+		this.openValues[this.rollingHead] = open;
 
-		this.highValues.addFirst(high);
+		this.highValues[this.rollingHead] = high;
 		if (high > this.rollingCandle.high)
 			this.rollingCandle.high = high;
 
-		this.lowValues.addFirst(low);
+		this.lowValues[this.rollingHead] = low;
 		if (low < this.rollingCandle.low)
 			this.rollingCandle.low = low;
 
 		this.rollingCandle.close = close;
 
-		this.tradeCountValues.addFirst(tradeCount);
+		this.tradeCountValues[this.rollingHead] = tradeCount;
 		sumTradeCount = sumTradeCount + tradeCount;
 		this.rollingCandle.tradeCount = sumTradeCount;
 
-		this.volumeValues.addFirst(volume);
+		this.volumeValues[this.rollingHead] = volume;
 		sumVolume = sumVolume + volume;
 		this.rollingCandle.volume = sumVolume;
 
-		this.vwapVolumeValues.addFirst(vwap * volume);
-		sumVwapVolume = sumVwapVolume + this.vwapVolumeValues.getFirst();
+		this.vwapVolumeValues[this.rollingHead] = vwap * volume;
+		sumVwapVolume = sumVwapVolume + this.vwapVolumeValues[this.rollingHead];
 
 		if (sumVolume > 0) {
 			this.rollingCandle.vwap = sumVwapVolume / sumVolume;
@@ -1093,13 +1373,67 @@ public class CandleSeries extends IndicatorSeries {
 		// + sumVwapVolume + " sumVolume: " + sumVolume + " volume: "
 		// + volume + " vwap: " + this.rollingCandle.vwap);
 		try {
-			this.rollingCandleValues.addFirst((RollingCandle) this.rollingCandle.clone());
+			this.rollingCandleValues[this.rollingHead] = (RollingCandle) this.rollingCandle.clone();
 		} catch (CloneNotSupportedException e) {
 			// TODO Auto-generated catch block
 			_log.error("Error updateRollingCandle cannot clone candle Msg: " + e.getMessage());
 		}
 	}
 
+	/**
+	 * Method rollingIndex.
+	 * 
+	 * @param index
+	 *            int the position in the rolling candle 0 being the most
+	 *            recent.
+	 * @return int the index into the rolling candle arrays.
+	 */
+	private int rollingIndex(int index) {
+		int i = this.rollingHead - index;
+		return (i < 0 ? i + this.openValues.length : i);
+	}
+
+	/**
+	 * Method maxRollingValue.
+	 * 
+	 * @param values
+	 *            double[]
+	 * @return double the max of the values held in the rolling candle.
+	 */
+	private double maxRollingValue(double[] values) {
+		double max = values[rollingIndex(0)];
+		for (int i = 1; i < this.rollingSize; i++) {
+			max = Math.max(max, values[rollingIndex(i)]);
+		}
+		return max;
+	}
+
+	/**
+	 * Method minRollingValue.
+	 * 
+	 * @param values
+	 *            double[]
+	 * @return double the min of the values held in the rolling candle.
+	 */
+	private double minRollingValue(double[] values) {
+		double min = values[rollingIndex(0)];
+		for (int i = 1; i < this.rollingSize; i++) {
+			min = Math.min(min, values[rollingIndex(i)]);
+		}
+		return min;
+	}
+
+	/**
+	 * Method clearRollingCandles.
+	 */
+	private void clearRollingCandles() {
+		for (int i = 0; i < this.rollingSize; i++) {
+			this.rollingCandleValues[rollingIndex(i)] = null;
+		}
+		this.rollingHead = 0;
+		this.rollingSize = 0;
+	}
+
 	public class RollingCandle implements Cloneable {
 
 		private int rollupInterval = 0;
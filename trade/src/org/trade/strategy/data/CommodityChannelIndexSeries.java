@@ -36,7 +36,6 @@
 package org.trade.strategy.data;
 
 import java.math.BigDecimal;
-import java.util.LinkedList;
 
 import javax.persistence.DiscriminatorValue;
 import javax.persistence.Entity;
@@ -47,6 +46,7 @@ import org.jfree.data.time.ohlc.OHLCSeriesCollection;
 import org.trade.persistent.dao.CodeValue;
 import org.trade.persistent.dao.Strategy;
 import org.trade.strategy.data.base.RegularTimePeriod;
+import org.trade.strategy.data.base.RollingWindow;
 import org.trade.strategy.data.candle.CandleItem;
 import org.trade.strategy.data.cci.CommodityChannelIndexItem;
 
@@ -95,8 +95,7 @@ public class CommodityChannelIndexSeries extends IndicatorSeries {
 	 * Vales used to calculate CommodityChannelIndex's. These need to be reset
 	 * when the series is cleared.
 	 */
-	private double sumTypicalPrice = 0;
-	private LinkedList<Double> typicalPriceValues = new LinkedList<Double>();
+	private RollingWindow typicalPriceValues = null;
 
 	/**
 	 * Creates a new empty series. By default, items added to the series will be
@@ -161,7 +160,7 @@ public class CommodityChannelIndexSeries extends IndicatorSeries {
 	 */
 	public Object clone() throws CloneNotSupportedException {
 		CommodityChannelIndexSeries clone = (CommodityChannelIndexSeries) super.clone();
-		clone.typicalPriceValues = new LinkedList<Double>();
+		clone.typicalPriceValues = null;
 		return clone;
 	}
 
@@ -172,8 +171,9 @@ public class CommodityChannelIndexSeries extends IndicatorSeries {
 	 */
 	public void clear() {
 		super.clear();
-		sumTypicalPrice = 0;
-		typicalPriceValues.clear();
+		if (null != typicalPriceValues) {
+			typicalPriceValues.clear();
+		}
 	}
 
 	/**
@@ -343,42 +343,28 @@ public class CommodityChannelIndexSeries extends IndicatorSeries {
 						+ source.getRollingCandle().getLow()) / 3;
 			}
 			if (0 != typicalPrice) {
-				if (typicalPriceValues.size() == getLength()) {
-					/*
-					 * If the item does not exist in the series then this is a
-					 * new time period and so we need to remove the last in the
-					 * set and add the new periods values. Otherwise we just
-					 * update the last value in the set. Sum is just used for
-					 * performance save having to sum the last set of values
-					 * each time.
-					 */
-					if (newBar) {
-						sumTypicalPrice = sumTypicalPrice - typicalPriceValues.getLast() + typicalPrice;
-						typicalPriceValues.removeLast();
-						typicalPriceValues.addFirst(typicalPrice);
-					} else {
-						sumTypicalPrice = sumTypicalPrice - typicalPriceValues.getFirst() + typicalPrice;
-						typicalPriceValues.removeFirst();
-						typicalPriceValues.addFirst(typicalPrice);
-					}
+				if (null == typicalPriceValues || typicalPriceValues.getCapacity() != getLength()) {
+					typicalPriceValues = new RollingWindow(getLength());
+				}
+				/*
+				 * If the item does not exist in the series then this is a new
+				 * time period and so we need to remove the last in the set and
+				 * add the new periods values. Otherwise we just update the last
+				 * value in the set. The window keeps the running sum to save
+				 * having to sum the last set of values each time.
+				 */
+				if (newBar) {
+					typicalPriceValues.add(typicalPrice);
 				} else {
-					if (newBar) {
-						sumTypicalPrice = sumTypicalPrice + typicalPrice;
-						typicalPriceValues.addFirst(typicalPrice);
-					} else {
-						sumTypicalPrice = sumTypicalPrice + typicalPrice - typicalPriceValues.getFirst();
-						typicalPriceValues.removeFirst();
-						typicalPriceValues.addFirst(typicalPrice);
-					}
+					typicalPriceValues.setFirst(typicalPrice);
 				}
 
 				if (typicalPriceValues.size() == getLength()) {
-					double cci = calculateCCI(sumTypicalPrice, typicalPriceValues);
+					double cci = calculateCCI(typicalPriceValues);
 					// _log.info("Period: " + candleItem.getPeriod() + " CCI: "
 					// + cci + " newBar: " + newBar);
 					if (newBar) {
-						CommodityChannelIndexItem dataItem = new CommodityChannelIndexItem(candleItem.getPeriod(),
-								new BigDecimal(cci));
+						CommodityChannelIndexItem dataItem = new CommodityChannelIndexItem(candleItem.getPeriod(), cci);
 						this.add(dataItem, false);
 
 					} else {
@@ -392,23 +378,17 @@ public class CommodityChannelIndexSeries extends IndicatorSeries {
 	}
 
 	/**
-	 * Method calculateMA.
+	 * Method calculateCCI.
 	 * 
-	 * @param calcType
-	 *            String
-	 * @param yyValues
-	 *            LinkedList<Double>
-	 * @param volValues
-	 *            LinkedList<Long>
-	 * @param sum
-	 *            Double
+	 * @param typicalPriceValues
+	 *            RollingWindow
 	 * @return double
 	 */
-	private double calculateCCI(Double sumTypicalPrice, LinkedList<Double> typicalPriceValues) {
-		double typicalPriceSMA = sumTypicalPrice / getLength();
+	private double calculateCCI(RollingWindow typicalPriceValues) {
+		double typicalPriceSMA = typicalPriceValues.getMean();
 		double sumMeanDeviation = 0;
-		for (double typicalPrice : typicalPriceValues) {
-			sumMeanDeviation = sumMeanDeviation + Math.abs(typicalPriceSMA - typicalPrice);
+		for (int i = 0; i < typicalPriceValues.size(); i++) {
+			sumMeanDeviation = sumMeanDeviation + Math.abs(typicalPriceSMA - typicalPriceValues.get(i));
 		}
 		if (sumMeanDeviation == 0)
 			return 0;
@@ -36,7 +36,6 @@
 package org.trade.strategy.data;
 
 import java.math.BigDecimal;
-import java.util.LinkedList;
 
 import javax.persistence.DiscriminatorValue;
 import javax.persistence.Entity;
@@ -47,6 +46,7 @@ import org.jfree.data.time.ohlc.OHLCSeriesCollection;
 import org.trade.persistent.dao.CodeValue;
 import org.trade.persistent.dao.Strategy;
 import org.trade.strategy.data.base.RegularTimePeriod;
+import org.trade.strategy.data.base.RollingWindow;
 import org.trade.strategy.data.candle.CandleItem;
 import org.trade.strategy.data.macd.MACDItem;
 
@@ -92,20 +92,17 @@ public class MACDSeries extends IndicatorSeries {
 	private Integer slowLength;
 	private Integer signalSmoothing;
 
-	private double fastSum = 0.0;
 	private double prevFastEMA = 0;
 	private double fastMultiplyer = Double.MAX_VALUE;
-	private LinkedList<Double> fastYYValues = new LinkedList<Double>();
+	private RollingWindow fastYYValues = null;
 
-	private double slowSum = 0.0;
 	private double prevSlowEMA = 0;
 	private double slowMultiplyer = Double.MAX_VALUE;
-	private LinkedList<Double> slowYYValues = new LinkedList<Double>();
+	private RollingWindow slowYYValues = null;
 
-	private double signalSmoothingSum = 0.0;
 	private double prevSignalSmoothingEMA = 0;
 	private double signalSmoothingMultiplyer = Double.MAX_VALUE;
-	private LinkedList<Double> signalSmoothingYYValues = new LinkedList<Double>();
+	private RollingWindow signalSmoothingYYValues = null;
 
 	/**
 	 * Creates a new empty series. By default, items added to the series will be
@@ -175,7 +172,9 @@ public class MACDSeries extends IndicatorSeries {
 	 */
 	public Object clone() throws CloneNotSupportedException {
 		MACDSeries clone = (MACDSeries) super.clone();
-		clone.fastYYValues = new LinkedList<Double>();
+		clone.fastYYValues = null;
+		clone.slowYYValues = null;
+		clone.signalSmoothingYYValues = null;
 		return clone;
 	}
 
@@ -186,15 +185,14 @@ public class MACDSeries extends IndicatorSeries {
 	 */
 	public void clear() {
 		super.clear();
-		fastSum = 0.0;
 		fastMultiplyer = Double.MAX_VALUE;
-		fastYYValues.clear();
-		slowSum = 0.0;
 		slowMultiplyer = Double.MAX_VALUE;
-		slowYYValues.clear();
-		signalSmoothingSum = 0.0;
 		signalSmoothingMultiplyer = Double.MAX_VALUE;
-		signalSmoothingYYValues.clear();
+		if (null != fastYYValues) {
+			fastYYValues.clear();
+			slowYYValues.clear();
+			signalSmoothingYYValues.clear();
+		}
 		prevFastEMA = 0;
 		prevSlowEMA = 0;
 		prevSignalSmoothingEMA = 0;
@@ -411,73 +409,36 @@ public class MACDSeries extends IndicatorSeries {
 			CandleItem candleItem = (CandleItem) source.getDataItem(skip);
 
 			// work out the average for the earlier values...
-			Number yy = candleItem.getY();
-
-			if (null != yy) {
-				if (this.fastYYValues.size() == getFastLength()) {
-					/*
-					 * If the item does not exist in the series then this is a
-					 * new time period and so we need to remove the last in the
-					 * set and add the new periods values. Otherwise we just
-					 * update the last value in the set. Sum is just used for
-					 * performance save having to sum the last set of values
-					 * each time.
-					 */
-					if (newBar) {
-						fastSum = fastSum - this.fastYYValues.getLast() + yy.doubleValue();
-						this.fastYYValues.removeLast();
-						this.fastYYValues.addFirst(yy.doubleValue());
-
-					} else {
-						fastSum = fastSum - this.fastYYValues.getFirst() + yy.doubleValue();
-						this.fastYYValues.removeFirst();
-						this.fastYYValues.addFirst(yy.doubleValue());
-					}
-				} else {
-					if (newBar) {
-						fastSum = fastSum + yy.doubleValue();
-						this.fastYYValues.addFirst(yy.doubleValue());
-					} else {
-						fastSum = fastSum + yy.doubleValue() - this.fastYYValues.getFirst();
-						this.fastYYValues.removeFirst();
-						this.fastYYValues.addFirst(yy.doubleValue());
-					}
+			double yy = candleItem.getClose();
+
+			if (0 != yy) {
+				if (null == this.fastYYValues || this.fastYYValues.getCapacity() != getFastLength()
+						|| this.slowYYValues.getCapacity() != getSlowLength()
+						|| this.signalSmoothingYYValues.getCapacity() != getSignalSmoothing()) {
+					this.fastYYValues = new RollingWindow(getFastLength());
+					this.slowYYValues = new RollingWindow(getSlowLength());
+					this.signalSmoothingYYValues = new RollingWindow(getSignalSmoothing());
 				}
-				if (this.slowYYValues.size() == getSlowLength()) {
-					/*
-					 * If the item does not exist in the series then this is a
-					 * new time period and so we need to remove the last in the
-					 * set and add the new periods values. Otherwise we just
-					 * update the last value in the set. Sum is just used for
-					 * performance save having to sum the last set of values
-					 * each time.
-					 */
-					if (newBar) {
-						slowSum = slowSum - this.slowYYValues.getLast() + yy.doubleValue();
-						this.slowYYValues.removeLast();
-						this.slowYYValues.addFirst(yy.doubleValue());
-
-					} else {
-						slowSum = slowSum - this.slowYYValues.getFirst() + yy.doubleValue();
-						this.slowYYValues.removeFirst();
-						this.slowYYValues.addFirst(yy.doubleValue());
-					}
+				/*
+				 * If the item does not exist in the series then this is a new
+				 * time period and so we need to remove the last in the set and
+				 * add the new periods values. Otherwise we just update the last
+				 * value in the set. The windows keep the running sums used to
+				 * seed the EMA's.
+				 */
+				if (newBar) {
+					this.fastYYValues.add(yy);
+					this.slowYYValues.add(yy);
 				} else {
-					if (newBar) {
-						slowSum = slowSum + yy.doubleValue();
-						this.slowYYValues.addFirst(yy.doubleValue());
-					} else {
-						slowSum = slowSum + yy.doubleValue() - this.slowYYValues.getFirst();
-						this.slowYYValues.removeFirst();
-						this.slowYYValues.addFirst(yy.doubleValue());
-					}
+					this.fastYYValues.setFirst(yy);
+					this.slowYYValues.setFirst(yy);
 				}
 
 				if (this.slowYYValues.size() == getSlowLength()) {
 
 					double fastEMA = 0;
 					if (fastMultiplyer == Double.MAX_VALUE) {
-						fastEMA = fastSum / this.getFastLength();
+						fastEMA = this.fastYYValues.getMean();
 						fastMultiplyer = 2 / (this.getFastLength() + 1.0d);
 					} else {
 						fastEMA = ((this.fastYYValues.getFirst() - prevFastEMA) * fastMultiplyer) + prevFastEMA;
@@ -485,61 +446,35 @@ public class MACDSeries extends IndicatorSeries {
 					prevFastEMA = fastEMA;
 					double slowEMA = 0;
 					if (slowMultiplyer == Double.MAX_VALUE) {
-						slowEMA = slowSum / this.getSlowLength();
+						slowEMA = this.slowYYValues.getMean();
 						slowMultiplyer = 2 / (this.getSlowLength() + 1.0d);
 					} else {
 						slowEMA = ((this.slowYYValues.getFirst() - prevSlowEMA) * slowMultiplyer) + prevSlowEMA;
 					}
 					prevSlowEMA = slowEMA;
 					double MACD = fastEMA - slowEMA;
-					if (this.signalSmoothingYYValues.size() == this.getSignalSmoothing()) {
-						/*
-						 * If the item does not exist in the series then this is
-						 * a new time period and so we need to remove the last
-						 * in the set and add the new periods values. Otherwise
-						 * we just update the last value in the set. Sum is just
-						 * used for performance save having to sum the last set
-						 * of values each time.
-						 */
-
-						if (newBar) {
-							signalSmoothingSum = signalSmoothingSum - this.signalSmoothingYYValues.getLast() + MACD;
-							this.signalSmoothingYYValues.removeLast();
-							this.signalSmoothingYYValues.addFirst(MACD);
-
-						} else {
-							signalSmoothingSum = signalSmoothingSum - this.signalSmoothingYYValues.getFirst() + MACD;
-							this.signalSmoothingYYValues.removeFirst();
-							this.signalSmoothingYYValues.addFirst(MACD);
-						}
-
+					if (newBar) {
+						this.signalSmoothingYYValues.add(MACD);
 					} else {
-						if (newBar) {
-							signalSmoothingSum = signalSmoothingSum + MACD;
-							this.signalSmoothingYYValues.addFirst(MACD);
-						} else {
-							signalSmoothingSum = signalSmoothingSum + MACD - this.signalSmoothingYYValues.getFirst();
-							this.signalSmoothingYYValues.removeFirst();
-							this.signalSmoothingYYValues.addFirst(MACD);
-						}
+						this.signalSmoothingYYValues.setFirst(MACD);
 					}
 					double signalLine = Double.MAX_VALUE;
 					if (this.signalSmoothingYYValues.size() == getSignalSmoothing()) {
 
 						signalLine = calculateSmoothingMA(this.signalSmoothingYYValues.getFirst(),
-								this.prevSignalSmoothingEMA, this.signalSmoothingSum);
+								this.prevSignalSmoothingEMA, this.signalSmoothingYYValues.getSum());
 						this.prevSignalSmoothingEMA = signalLine;
 					}
 					if (newBar) {
-						MACDItem dataItem = new MACDItem(candleItem.getPeriod(), new BigDecimal(MACD),
-								(signalLine == Double.MAX_VALUE ? null : new BigDecimal(signalLine)),
-								(signalLine == Double.MAX_VALUE ? null : new BigDecimal(MACD - signalLine)));
+						MACDItem dataItem = new MACDItem(candleItem.getPeriod(), MACD,
+								(signalLine == Double.MAX_VALUE ? Double.NaN : signalLine),
+								(signalLine == Double.MAX_VALUE ? Double.NaN : MACD - signalLine));
 						this.add(dataItem, false);
 
 					} else {
 						MACDItem dataItem = (MACDItem) this.getDataItem(this.getItemCount() - 1);
 						dataItem.setMACD(MACD);
-						if (signalLine == Double.MAX_VALUE) {
+						if (signalLine != Double.MAX_VALUE) {
 							dataItem.setSignalLine(signalLine);
 							dataItem.setMACDHistogram(MACD - signalLine);
 						}
@@ -550,19 +485,17 @@ public class MACDSeries extends IndicatorSeries {
 	}
 
 	/**
-	 * Method calculateMA.
+	 * Method calculateSmoothingMA.
 	 * 
-	 * @param calcType
-	 *            String
-	 * @param yyValues
-	 *            LinkedList<Double>
-	 * @param volValues
-	 *            LinkedList<Long>
+	 * @param close
+	 *            double
+	 * @param prevSignalSmoothingEMA
+	 *            double
 	 * @param sum
-	 *            Double
+	 *            double
 	 * @return double
 	 */
-	private double calculateSmoothingMA(double close, double prevSignalSmoothingEMA, Double sum) {
+	private double calculateSmoothingMA(double close, double prevSignalSmoothingEMA, double sum) {
 
 		double ma = 0;
 		if (this.getSimpleMAType()) {
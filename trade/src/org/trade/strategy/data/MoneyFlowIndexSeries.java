@@ -36,7 +36,6 @@
 package org.trade.strategy.data;
 
 import java.math.BigDecimal;
-import java.util.LinkedList;
 
 import javax.persistence.DiscriminatorValue;
 import javax.persistence.Entity;
@@ -47,6 +46,7 @@ import org.jfree.data.time.ohlc.OHLCSeriesCollection;
 import org.trade.persistent.dao.CodeValue;
 import org.trade.persistent.dao.Strategy;
 import org.trade.strategy.data.base.RegularTimePeriod;
+import org.trade.strategy.data.base.RollingWindow;
 import org.trade.strategy.data.candle.CandleItem;
 import org.trade.strategy.data.mfi.MoneyFlowIndexItem;
 
@@ -94,11 +94,12 @@ public class MoneyFlowIndexSeries extends IndicatorSeries {
 	private Integer length;
 	private Boolean rollingCandle;
 
-	private double positiveSum = 0.0;
-	private double negativeSum = 0.0;
-
-	private LinkedList<Double> yyValues = new LinkedList<Double>();
-	private LinkedList<Long> volValues = new LinkedList<Long>();
+	/*
+	 * The positive and negative money flows, one of the two is zero for each
+	 * bar.
+	 */
+	private RollingWindow positiveValues = null;
+	private RollingWindow negativeValues = null;
 
 	/**
 	 * Creates a new empty series. By default, items added to the series will be
@@ -163,8 +164,8 @@ public class MoneyFlowIndexSeries extends IndicatorSeries {
 	 */
 	public Object clone() throws CloneNotSupportedException {
 		MoneyFlowIndexSeries clone = (MoneyFlowIndexSeries) super.clone();
-		clone.yyValues = new LinkedList<Double>();
-		clone.volValues = new LinkedList<Long>();
+		clone.positiveValues = null;
+		clone.negativeValues = null;
 		return clone;
 	}
 
@@ -175,10 +176,10 @@ public class MoneyFlowIndexSeries extends IndicatorSeries {
 	 */
 	public void clear() {
 		super.clear();
-		positiveSum = 0.0;
-		negativeSum = 0.0;
-		yyValues.clear();
-		volValues.clear();
+		if (null != positiveValues) {
+			positiveValues.clear();
+			negativeValues.clear();
+		}
 	}
 
 	/**
@@ -352,65 +353,36 @@ public class MoneyFlowIndexSeries extends IndicatorSeries {
 						if (typicalPrice < prevTypicalPrice)
 							value = typicalPrice * source.getRollingCandle().getVolume() * -1;
 					}
-					if (value > 0) {
-						positiveSum = positiveSum + value;
-					} else {
-						negativeSum = negativeSum + Math.abs(value);
+					if (null == this.positiveValues || this.positiveValues.getCapacity() != getLength()) {
+						this.positiveValues = new RollingWindow(getLength());
+						this.negativeValues = new RollingWindow(getLength());
 					}
-					if (this.yyValues.size() == getLength()) {
-						/*
-						 * If the item does not exist in the series then this is
-						 * a new time period and so we need to remove the last
-						 * in the set and add the new periods values. Otherwise
-						 * we just update the last value in the set. Sum is just
-						 * used for performance save having to sum the last set
-						 * of values each time.
-						 */
-
-						if (newBar) {
-							if (this.yyValues.getLast() > 0) {
-								positiveSum = positiveSum - this.yyValues.getLast();
-							} else {
-								negativeSum = negativeSum - Math.abs(this.yyValues.getLast());
-							}
-
-							this.yyValues.removeLast();
-							this.yyValues.addFirst(value);
-							this.volValues.removeLast();
-							this.volValues.addFirst(candleItem.getVolume());
-						} else {
-							if (this.yyValues.getFirst() > 0) {
-								positiveSum = positiveSum - this.yyValues.getFirst();
-							} else {
-								negativeSum = negativeSum - Math.abs(this.yyValues.getFirst());
-							}
-							this.yyValues.removeFirst();
-							this.yyValues.addFirst(value);
-						}
+					/*
+					 * If the item does not exist in the series then this is a
+					 * new time period and so we need to remove the last in the
+					 * set and add the new periods values. Otherwise we just
+					 * update the last value in the set. The windows keep the
+					 * running sums to save having to sum the last set of values
+					 * each time.
+					 */
+					double positiveValue = (value > 0 ? value : 0);
+					double negativeValue = (value > 0 ? 0 : Math.abs(value));
+					if (newBar) {
+						this.positiveValues.add(positiveValue);
+						this.negativeValues.add(negativeValue);
 					} else {
-						if (newBar) {
-							this.yyValues.addFirst(value);
-							this.volValues.addFirst(candleItem.getVolume());
-						} else {
-							if (this.yyValues.getFirst() > 0) {
-								positiveSum = positiveSum - this.yyValues.getFirst();
-							} else {
-								negativeSum = negativeSum - Math.abs(this.yyValues.getFirst());
-							}
-							this.yyValues.removeFirst();
-							this.yyValues.addFirst(value);
-							this.volValues.removeFirst();
-							this.volValues.addFirst(candleItem.getVolume());
-						}
+						this.positiveValues.setFirst(positiveValue);
+						this.negativeValues.setFirst(negativeValue);
 					}
 
-					if (this.yyValues.size() == this.getLength()) {
+					if (this.positiveValues.size() == this.getLength()) {
+						double positiveSum = this.positiveValues.getSum();
+						double negativeSum = this.negativeValues.getSum();
 						if (negativeSum == 0)
 							negativeSum = 1;
 						double mfi = 100 - (100 / (1 + (positiveSum / negativeSum)));
 						if (newBar) {
-							MoneyFlowIndexItem dataItem = new MoneyFlowIndexItem(candleItem.getPeriod(),
-									new BigDecimal(mfi));
+							MoneyFlowIndexItem dataItem = new MoneyFlowIndexItem(candleItem.getPeriod(), mfi);
 							this.add(dataItem, false);
 
 						} else {
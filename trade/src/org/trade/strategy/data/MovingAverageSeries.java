@@ -36,7 +36,6 @@
 package org.trade.strategy.data;
 
 import java.math.BigDecimal;
-import java.util.LinkedList;
 
 import javax.persistence.DiscriminatorValue;
 import javax.persistence.Entity;
@@ -48,6 +47,7 @@ import org.trade.dictionary.valuetype.CalculationType;
 import org.trade.persistent.dao.CodeValue;
 import org.trade.persistent.dao.Strategy;
 import org.trade.strategy.data.base.RegularTimePeriod;
+import org.trade.strategy.data.base.RollingWindow;
 import org.trade.strategy.data.candle.CandleItem;
 import org.trade.strategy.data.movingaverage.MovingAverageItem;
 
@@ -78,10 +78,10 @@ public class MovingAverageSeries extends IndicatorSeries {
 	 * Vales used to calculate MA's. These need to be reset when the series is
 	 * cleared.
 	 */
-	private double sum = 0.0;
 	private double multiplyer = 0;
-	private LinkedList<Double> yyValues = new LinkedList<Double>();
-	private LinkedList<Long> volValues = new LinkedList<Long>();
+	private RollingWindow yyValues = null;
+	private RollingWindow volValues = null;
+	private RollingWindow priceVolValues = null;
 
 	/**
 	 * Creates a new empty series. By default, items added to the series will be
@@ -149,8 +149,9 @@ public class MovingAverageSeries extends IndicatorSeries {
 	 */
 	public Object clone() throws CloneNotSupportedException {
 		MovingAverageSeries clone = (MovingAverageSeries) super.clone();
-		clone.yyValues = new LinkedList<Double>();
-		clone.volValues = new LinkedList<Long>();
+		clone.yyValues = null;
+		clone.volValues = null;
+		clone.priceVolValues = null;
 		return clone;
 	}
 
@@ -161,10 +162,12 @@ public class MovingAverageSeries extends IndicatorSeries {
 	 */
 	public void clear() {
 		super.clear();
-		sum = 0.0;
 		multiplyer = 0;
-		yyValues.clear();
-		volValues.clear();
+		if (null != yyValues) {
+			yyValues.clear();
+			volValues.clear();
+			priceVolValues.clear();
+		}
 	}
 
 	/**
@@ -337,44 +340,33 @@ public class MovingAverageSeries extends IndicatorSeries {
 			CandleItem candleItem = (CandleItem) source.getDataItem(skip);
 			if (0 != candleItem.getClose()) {
 				double price = this.getPrice(candleItem);
-				if (this.yyValues.size() == getLength()) {
-					/*
-					 * If the item does not exist in the series then this is a
-					 * new time period and so we need to remove the last in the
-					 * set and add the new periods values. Otherwise we just
-					 * update the last value in the set. Sum is just used for
-					 * performance save having to sum the last set of values
-					 * each time.
-					 */
-					if (newBar) {
-						sum = sum - this.yyValues.getLast() + price;
-						this.yyValues.removeLast();
-						this.yyValues.addFirst(price);
-						this.volValues.removeLast();
-						this.volValues.addFirst(candleItem.getVolume());
-					} else {
-						sum = sum - this.yyValues.getFirst() + price;
-						this.yyValues.removeFirst();
-						this.yyValues.addFirst(price);
-					}
+				if (null == this.yyValues || this.yyValues.getCapacity() != getLength()) {
+					this.yyValues = new RollingWindow(getLength());
+					this.volValues = new RollingWindow(getLength());
+					this.priceVolValues = new RollingWindow(getLength());
+				}
+				/*
+				 * If the item does not exist in the series then this is a new
+				 * time period and so we need to remove the last in the set and
+				 * add the new periods values. Otherwise we just update the last
+				 * value in the set. The windows keep running sums so the
+				 * averages are not re-calculated from all the values each
+				 * time.
+				 */
+				if (newBar) {
+					this.yyValues.add(price);
+					this.volValues.add(candleItem.getVolume());
+					this.priceVolValues.add(price * candleItem.getVolume());
 				} else {
-					if (newBar) {
-						sum = sum + price;
-						this.yyValues.addFirst(price);
-						this.volValues.addFirst(candleItem.getVolume());
-					} else {
-						sum = sum + price - this.yyValues.getFirst();
-						this.yyValues.removeFirst();
-						this.yyValues.addFirst(price);
-						this.volValues.removeFirst();
-						this.volValues.addFirst(candleItem.getVolume());
-					}
+					this.yyValues.setFirst(price);
+					this.volValues.setFirst(candleItem.getVolume());
+					this.priceVolValues.setFirst(price * candleItem.getVolume());
 				}
 
 				if (this.yyValues.size() == getLength()) {
-					double ma = calculateMA(this.getMAType(), this.yyValues, this.volValues, sum);
+					double ma = calculateMA(this.getMAType());
 					if (newBar) {
-						MovingAverageItem dataItem = new MovingAverageItem(candleItem.getPeriod(), new BigDecimal(ma));
+						MovingAverageItem dataItem = new MovingAverageItem(candleItem.getPeriod(), ma);
 						this.add(dataItem, false);
 
 					} else {
@@ -403,19 +395,13 @@ public class MovingAverageSeries extends IndicatorSeries {
 	 * 
 	 * @param calcType
 	 *            String
-	 * @param yyValues
-	 *            LinkedList<Double>
-	 * @param volValues
-	 *            LinkedList<Long>
-	 * @param sum
-	 *            Double
 	 * @return double
 	 */
-	private double calculateMA(String calcType, LinkedList<Double> yyValues, LinkedList<Long> volValues, Double sum) {
+	private double calculateMA(String calcType) {
 
 		double ma = 0;
 		if (CalculationType.LINEAR.equals(calcType)) {
-			ma = sum / getLength();
+			ma = yyValues.getMean();
 		} else if (CalculationType.EXPONENTIAL.equals(calcType)) {
 			/*
 			 * Multiplier: (2 / (Time periods + 1) ) = (2 / (10 + 1) ) = 0.1818
@@ -423,7 +409,7 @@ public class MovingAverageSeries extends IndicatorSeries {
 			 * EMA(previous day).
 			 */
 			if (multiplyer == 0) {
-				ma = sum / getLength();
+				ma = yyValues.getMean();
 				multiplyer = 2 / (getLength() + 1.0d);
 			} else {
 				ma = ((yyValues.getFirst() - yyValues.get(1)) * multiplyer) + yyValues.get(1);
@@ -432,28 +418,15 @@ public class MovingAverageSeries extends IndicatorSeries {
 			 * Use the EMA in the stored values as we need the previous one for
 			 * the calc.
 			 */
-			yyValues.removeFirst();
-			yyValues.addFirst(ma);
+			yyValues.setFirst(ma);
 
 		} else if (CalculationType.WEIGHTED.equals(calcType)) {
 
-			double sumYY = 0;
-			int count = 0;
-			for (int i = yyValues.size(); i > 0; i--) {
-				count = count + (getLength() + 1 - i);
-				sumYY = sumYY + (yyValues.get(i - 1) * (getLength() + 1 - i));
-			}
-			ma = sumYY / count;
+			ma = yyValues.getWeightedMean();
 
 		} else if (CalculationType.WEIGHTED_VOLUME.equals(calcType)) {
 
-			double sumYY = 0;
-			double count = 0;
-			for (int i = yyValues.size(); i > 0; i--) {
-				count = count + ((getLength() + 1 - i) * volValues.get(i - 1));
-				sumYY = sumYY + (yyValues.get(i - 1) * volValues.get(i - 1) * (getLength() + 1 - i));
-			}
-			ma = sumYY / count;
+			ma = priceVolValues.getWeightedSum() / volValues.getWeightedSum();
 		} else if (CalculationType.TRIANGULAR.equals(calcType)) {
 
 			double sumYY = 0;
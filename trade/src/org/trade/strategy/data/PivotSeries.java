@@ -36,15 +36,13 @@
 package org.trade.strategy.data;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
-import java.util.Hashtable;
 
 import javax.persistence.DiscriminatorValue;
 import javax.persistence.Entity;
 import javax.persistence.Transient;
 
+import org.jfree.data.general.SeriesChangeEvent;
 import org.jfree.data.time.ohlc.OHLCSeriesCollection;
-import org.trade.core.util.Pair;
 import org.trade.core.valuetype.Money;
 import org.trade.core.valuetype.ValueTypeException;
 import org.trade.dictionary.valuetype.DAOEntryLimit;
@@ -78,6 +76,8 @@ public class PivotSeries extends IndicatorSeries {
 	private Boolean quadratic;
 
 	private PivotCalculator calcPivot = new PivotCalculator(2, 0.6);
+	private int fittedBar = -1;
+	private double[] yValues = null;
 
 	public static final String BARS = "Bars";
 	public static final String QUADRATIC = "Quadratic";
@@ -325,8 +325,6 @@ public class PivotSeries extends IndicatorSeries {
 			return;
 
 		PivotItem dataItem = null;
-		Hashtable<Long, Pair> userDataVector = new Hashtable<Long, Pair>();
-		DAOEntryLimit entryLimits = new DAOEntryLimit();
 
 		boolean pivot = false;
 		String side = null;
@@ -336,31 +334,37 @@ public class PivotSeries extends IndicatorSeries {
 		/*
 		 * Start with the previous bar and work back
 		 */
-		int middleBar = (this.getBars() - 1) / 2;
+		int bars = this.getBars();
+		int middleBar = (bars - 1) / 2;
 		int startBar = skip - 1;
-		if ((startBar + 1) >= this.getBars()) {
-			// Get the x,y pairs
-			for (int i = startBar; i > (startBar - this.getBars()); i--) {
-				CandleItem candleItem = (CandleItem) source.getDataItem(i);
-				// TODO next line just for debugging
-				// if (((BarPeriod) candle.getPeriod()).getDaySerialIndex() ==
-				// 690) {
-				// _log.info("At day index: " + candle.getPeriod());
-				// }
-				/*
-				 * If there is a pivot in the last five then there cannot be
-				 * another for 5 bars.
-				 */
-
-				long time = (((CandlePeriod) candleItem.getPeriod()).getDaySerialIndex());
-				userDataVector.put(time, new Pair(time, candleItem.getVwap()));
+		if ((startBar + 1) >= bars) {
+			/*
+			 * Slide the x,y window on to the previous bar. If the series has
+			 * been reset or a bar missed re-load the window.
+			 */
+			if (fittedBar == (startBar - 1) && calcPivot.size() == bars
+					&& calcPivot.getLastX() == getDaySerialIndex(source, startBar - 1)) {
+				calcPivot.add(getDaySerialIndex(source, startBar),
+						((CandleItem) source.getDataItem(startBar)).getVwap(), bars);
+			} else {
+				calcPivot.clear();
+				for (int i = (startBar - bars) + 1; i <= startBar; i++) {
+					calcPivot.add(getDaySerialIndex(source, i), ((CandleItem) source.getDataItem(i)).getVwap(),
+							bars);
+				}
 			}
+			fittedBar = startBar;
 
 			/*
 			 * Calculate the new y points with the curve.
 			 */
-			if (this.getQuadratic()) {
-				calcPivot.calculatePivot(new ArrayList<Pair>(userDataVector.values()));
+			boolean fitted = this.getQuadratic() && calcPivot.calculatePivot();
+			if (null == yValues || yValues.length != bars) {
+				yValues = new double[bars];
+			}
+			for (int i = startBar; i > (startBar - bars); i--) {
+				yValues[startBar - i] = fitted ? calcPivot.fx(getDaySerialIndex(source, i))
+						: ((CandleItem) source.getDataItem(i)).getVwap();
 			}
 
 			CandleItem prevCandle = null;
@@ -374,9 +378,7 @@ public class PivotSeries extends IndicatorSeries {
 					 * Set the side based on the Vwap
 					 */
 					if (null == side) {
-						if ((userDataVector
-								.get(((CandlePeriod) candle.getPeriod()).getDaySerialIndex()).y) < (userDataVector
-										.get(((CandlePeriod) prevCandle.getPeriod()).getDaySerialIndex()).y)) {
+						if (yValues[startBar - i] < yValues[startBar - i - 1]) {
 							side = Side.BOT;
 							pivotSide = Side.BOT;
 						} else {
@@ -408,9 +410,7 @@ public class PivotSeries extends IndicatorSeries {
 									.getDayOfYear()) {
 
 						if (side.equals(Side.BOT)) {
-							if ((userDataVector
-									.get(((CandlePeriod) candle.getPeriod()).getDaySerialIndex()).y) < (userDataVector
-											.get(((CandlePeriod) prevCandle.getPeriod()).getDaySerialIndex()).y)) {
+							if (yValues[startBar - i] < yValues[startBar - i - 1]) {
 								if (this.getSide()) {
 
 									if (i == (startBar - middleBar)) {
@@ -425,9 +425,7 @@ public class PivotSeries extends IndicatorSeries {
 								}
 							}
 						} else {
-							if ((userDataVector
-									.get(((CandlePeriod) candle.getPeriod()).getDaySerialIndex()).y) > (userDataVector
-											.get(((CandlePeriod) prevCandle.getPeriod()).getDaySerialIndex()).y)) {
+							if (yValues[startBar - i] > yValues[startBar - i - 1]) {
 								if (this.getSide()) {
 									if (i == (startBar - middleBar)) {
 										pivot = true;
@@ -473,7 +471,7 @@ public class PivotSeries extends IndicatorSeries {
 			if (pivot && (null != pivotCandle)) {
 
 				try {
-					Entrylimit entryLimit = entryLimits.getValue(new Money(pivotCandle.getVwap()));
+					Entrylimit entryLimit = new DAOEntryLimit().getValue(new Money(pivotCandle.getVwap()));
 					Money pivotRange = new Money(Math.abs((pivotRangeCandle.getVwap() - pivotCandle.getVwap())));
 
 					// _log.info("Pivot Date: "
@@ -508,6 +506,30 @@ public class PivotSeries extends IndicatorSeries {
 		}
 	}
 
+	/**
+	 * Removes all data items from the series and, unless the series is already
+	 * empty, sends a {@link SeriesChangeEvent} to all registered listeners.
+	 * Clears down and resets all the local calculated fields.
+	 */
+	public void clear() {
+		super.clear();
+		calcPivot.clear();
+		fittedBar = -1;
+	}
+
+	/**
+	 * Method getDaySerialIndex.
+	 * 
+	 * @param source
+	 *            CandleSeries
+	 * @param index
+	 *            int
+	 * @return long the day serial index of the candle at index.
+	 */
+	private static long getDaySerialIndex(CandleSeries source, int index) {
+		return ((CandlePeriod) ((CandleItem) source.getDataItem(index)).getPeriod()).getDaySerialIndex();
+	}
+
 	/**
 	 * Method printSeries.
 	 */
@@ -527,6 +549,9 @@ public class PivotSeries extends IndicatorSeries {
 	 */
 	public Object clone() throws CloneNotSupportedException {
 		PivotSeries clone = (PivotSeries) super.clone();
+		clone.calcPivot = new PivotCalculator(2, 0.6);
+		clone.fittedBar = -1;
+		clone.yValues = null;
 		return clone;
 	}
 }
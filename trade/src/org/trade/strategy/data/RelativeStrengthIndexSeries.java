@@ -399,8 +399,7 @@ public class RelativeStrengthIndexSeries extends IndicatorSeries {
 				}
 
 				if (newBar) {
-					RelativeStrengthIndexItem dataItem = new RelativeStrengthIndexItem(candleItem.getPeriod(),
-							new BigDecimal(currentRSI));
+					RelativeStrengthIndexItem dataItem = new RelativeStrengthIndexItem(candleItem.getPeriod(), currentRSI);
 					this.add(dataItem, false);
 				} else {
 					RelativeStrengthIndexItem dataItem = (RelativeStrengthIndexItem) this
@@ -36,8 +36,6 @@
 package org.trade.strategy.data;
 
 import java.math.BigDecimal;
-import java.util.Collections;
-import java.util.LinkedList;
 
 import javax.persistence.DiscriminatorValue;
 import javax.persistence.Entity;
@@ -48,6 +46,7 @@ import org.jfree.data.time.ohlc.OHLCSeriesCollection;
 import org.trade.persistent.dao.CodeValue;
 import org.trade.persistent.dao.Strategy;
 import org.trade.strategy.data.base.RegularTimePeriod;
+import org.trade.strategy.data.base.RollingWindow;
 import org.trade.strategy.data.candle.CandleItem;
 import org.trade.strategy.data.stochasticoscillator.StochasticOscillatorItem;
 
@@ -138,11 +137,9 @@ public class StochasticOscillatorSeries extends IndicatorSeries {
 	 * Vales used to calculate StochasticOscillator. These need to be reset when
 	 * the series is cleared.
 	 */
-	private double sumFullKRValues = 0.0;
-	private double sumFullDValues = 0.0;
-	private LinkedList<Double> yyValues = new LinkedList<Double>();
-	private LinkedList<Double> fullKRValues = new LinkedList<Double>();
-	private LinkedList<Double> fullDValues = new LinkedList<Double>();
+	private RollingWindow yyValues = null;
+	private RollingWindow fullKRValues = null;
+	private RollingWindow fullDValues = null;
 
 	/**
 	 * Creates a new empty series. By default, items added to the series will be
@@ -216,9 +213,9 @@ public class StochasticOscillatorSeries extends IndicatorSeries {
 	 */
 	public Object clone() throws CloneNotSupportedException {
 		StochasticOscillatorSeries clone = (StochasticOscillatorSeries) super.clone();
-		clone.yyValues = new LinkedList<Double>();
-		clone.fullKRValues = new LinkedList<Double>();
-		clone.fullDValues = new LinkedList<Double>();
+		clone.yyValues = null;
+		clone.fullKRValues = null;
+		clone.fullDValues = null;
 		return clone;
 	}
 
@@ -229,11 +226,11 @@ public class StochasticOscillatorSeries extends IndicatorSeries {
 	 */
 	public void clear() {
 		super.clear();
-		sumFullKRValues = 0.0;
-		sumFullDValues = 0.0;
-		yyValues.clear();
-		fullKRValues.clear();
-		fullDValues.clear();
+		if (null != yyValues) {
+			yyValues.clear();
+			fullKRValues.clear();
+			fullDValues.clear();
+		}
 	}
 
 	/**
@@ -439,35 +436,31 @@ public class StochasticOscillatorSeries extends IndicatorSeries {
 			// get the current data item...
 			CandleItem candleItem = (CandleItem) source.getDataItem(skip);
 			if (0 != candleItem.getClose()) {
-				if (this.yyValues.size() == getLength()) {
-					/*
-					 * If the item does not exist in the series then this is a
-					 * new time period and so we need to remove the last in the
-					 * set and add the new periods values. Otherwise we just
-					 * update the last value in the set. Sum is just used for
-					 * performance save having to sum the last set of values
-					 * each time.
-					 */
-					if (newBar) {
-						this.yyValues.removeLast();
-						this.yyValues.addFirst(candleItem.getClose());
-					} else {
-						this.yyValues.removeFirst();
-						this.yyValues.addFirst(candleItem.getClose());
-					}
+				if (null == this.yyValues || this.yyValues.getCapacity() != getLength()
+						|| this.fullKRValues.getCapacity() != getKSmoothing()
+						|| this.fullDValues.getCapacity() != getPercentD()) {
+					this.yyValues = new RollingWindow(getLength());
+					this.fullKRValues = new RollingWindow(getKSmoothing());
+					this.fullDValues = new RollingWindow(getPercentD());
+				}
+				/*
+				 * If the item does not exist in the series then this is a new
+				 * time period and so we need to remove the last in the set and
+				 * add the new periods values. Otherwise we just update the last
+				 * value in the set. The windows keep the running sums and the
+				 * highest/lowest values so they are not re-calculated from all
+				 * the values each time.
+				 */
+				if (newBar) {
+					this.yyValues.add(candleItem.getClose());
 				} else {
-					if (newBar) {
-						this.yyValues.addFirst(candleItem.getClose());
-					} else {
-						this.yyValues.removeFirst();
-						this.yyValues.addFirst(candleItem.getClose());
-					}
+					this.yyValues.setFirst(candleItem.getClose());
 				}
 
 				if (this.yyValues.size() == getLength()) {
 
-					double high = Collections.max(this.yyValues);
-					double low = Collections.min(this.yyValues);
+					double high = this.yyValues.getMax();
+					double low = this.yyValues.getMin();
 
 					/*
 					 * %K = (Current Close - Lowest Low)/(Highest High - Lowest
@@ -496,72 +489,25 @@ public class StochasticOscillatorSeries extends IndicatorSeries {
 						fastKR = ((high - candleItem.getClose()) / (high - low)) * -100;
 					}
 
-					if (this.fullKRValues.size() == this.getKSmoothing()) {
-						/*
-						 * If the item does not exist in the series then this is
-						 * a new time period and so we need to remove the last
-						 * in the set and add the new periods values. Otherwise
-						 * we just update the last value in the set. Sum is just
-						 * used for performance save having to sum the last set
-						 * of values each time.
-						 */
-						if (newBar) {
-							sumFullKRValues = sumFullKRValues - this.fullKRValues.getLast() + fastKR;
-							this.fullKRValues.removeLast();
-							this.fullKRValues.addFirst(fastKR);
-						} else {
-							sumFullKRValues = sumFullKRValues - this.fullKRValues.getFirst() + fastKR;
-							this.fullKRValues.removeFirst();
-							this.fullKRValues.addFirst(fastKR);
-						}
+					if (newBar) {
+						this.fullKRValues.add(fastKR);
 					} else {
-						if (newBar) {
-							sumFullKRValues = sumFullKRValues + fastKR;
-							this.fullKRValues.addFirst(fastKR);
-						} else {
-							sumFullKRValues = sumFullKRValues + fastKR - this.fullKRValues.getFirst();
-							this.fullKRValues.removeFirst();
-							this.fullKRValues.addFirst(fastKR);
-						}
+						this.fullKRValues.setFirst(fastKR);
 					}
 					if (this.fullKRValues.size() == this.getKSmoothing()) {
 
-						double fullKR = sumFullKRValues / this.getKSmoothing();
+						double fullKR = this.fullKRValues.getMean();
 
-						if (this.fullDValues.size() == this.getPercentD()) {
-							/*
-							 * If the item does not exist in the series then
-							 * this is a new time period and so we need to
-							 * remove the last in the set and add the new
-							 * periods values. Otherwise we just update the last
-							 * value in the set. Sum is just used for
-							 * performance save having to sum the last set of
-							 * values each time.
-							 */
-							if (newBar) {
-								sumFullDValues = sumFullDValues - this.fullDValues.getLast() + fullKR;
-								this.fullDValues.removeLast();
-								this.fullDValues.addFirst(fullKR);
-							} else {
-								sumFullDValues = sumFullDValues - this.fullDValues.getFirst() + fullKR;
-								this.fullDValues.removeFirst();
-								this.fullDValues.addFirst(fullKR);
-							}
+						if (newBar) {
+							this.fullDValues.add(fullKR);
 						} else {
-							if (newBar) {
-								sumFullDValues = sumFullDValues + fullKR;
-								this.fullDValues.addFirst(fullKR);
-							} else {
-								sumFullDValues = sumFullDValues + fullKR - this.fullDValues.getFirst();
-								this.fullDValues.removeFirst();
-								this.fullDValues.addFirst(fullKR);
-							}
+							this.fullDValues.setFirst(fullKR);
 						}
 						if (this.fullDValues.size() == this.getPercentD()) {
-							double fullD = sumFullDValues / this.getPercentD();
+							double fullD = this.fullDValues.getMean();
 							if (newBar) {
 								StochasticOscillatorItem dataItem = new StochasticOscillatorItem(candleItem.getPeriod(),
-										new BigDecimal(fullD));
+										fullD);
 								this.add(dataItem, false);
 
 							} else {
@@ -38,6 +38,7 @@ package org.trade.strategy.data;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.TreeMap;
 import java.util.Vector;
 
 import org.slf4j.Logger;
@@ -45,6 +46,7 @@ import org.slf4j.LoggerFactory;
 import org.trade.core.factory.ClassFactory;
 import org.trade.core.util.TradingCalendar;
 import org.trade.core.util.Worker;
+import org.trade.dictionary.valuetype.BarSize;
 import org.trade.persistent.dao.Strategy;
 import org.trade.persistent.dao.Tradestrategy;
 import org.trade.persistent.dao.Tradingday;
@@ -62,11 +64,18 @@ public class StrategyData extends Worker {
 	private CandleDataset candleDataset = null;
 	private final List<IndicatorDataset> indicators = new ArrayList<IndicatorDataset>();
 
-	private boolean seriesChanged = true;
+	private boolean seriesChanged = false;
 	private final Object lockStrategyWorker = new Object();
 	private int currentBaseCandleCount = -1;
 	private int lastBaseCandleProcessed = -1;
 
+	/*
+	 * Candle series for bar sizes that are multiples of the base bar size keyed
+	 * on bar size. These are updated with every incoming bar along with the
+	 * base series.
+	 */
+	private final TreeMap<Integer, CandleSeries> aggregateSeries = new TreeMap<Integer, CandleSeries>();
+
 	/**
 	 * Constructor for StrategyData.
 	 * 
@@ -118,8 +127,9 @@ public class StrategyData extends Worker {
 	}
 
 	/*
-	 * The main process thread. This will run until it is either canceled or is
-	 * done.
+	 * Called on the worker executor when the base candle series changes. This
+	 * catches up with the base candle series and then returns until the next
+	 * change.
 	 * 
 	 * (non-Javadoc)
 	 * 
@@ -127,53 +137,39 @@ public class StrategyData extends Worker {
 	 */
 
 	protected Void doInBackground() {
-		/*
-		 * We initialize here to keep this instances as part of this worker
-		 * thread
-		 */
+
 		try {
 
-			this.seriesChanged = false;
-			do {
+			while (!this.isCancelled()) {
 				/*
-				 * Lock until a candle arrives. First time in we process the
-				 * current candle. This thread is processing candles behind the
-				 * main broker queue thread. So the lastBaseCandleProcessed will
-				 * increase in value until we catch up then the thread will lock
-				 * until a new candle arrives.
+				 * This is processing candles behind the main broker queue
+				 * thread. So the lastBaseCandleProcessed will increase in value
+				 * until we catch up then we wait for a new candle or a change
+				 * to the current candle.
 				 */
+				boolean newBar = false;
 				synchronized (lockStrategyWorker) {
-					while ((!this.seriesChanged && currentBaseCandleCount == lastBaseCandleProcessed)
-							|| this.getBaseCandleSeries().isEmpty()) {
-						lockStrategyWorker.wait();
+					if (this.getBaseCandleSeries().isEmpty())
+						break;
+					if (this.currentBaseCandleCount > this.lastBaseCandleProcessed) {
+						this.lastBaseCandleProcessed++;
+						newBar = true;
+					} else if (!this.seriesChanged) {
+						break;
 					}
 					this.seriesChanged = false;
 				}
 
-				if (!this.isCancelled()) {
-
-					if (!this.getBaseCandleSeries().isEmpty()) {
-
-						/*
-						 * Another candle has been added. Add the new candle to
-						 * the base series in the dataset.
-						 */
-						boolean newBar = false;
-						if (this.currentBaseCandleCount > this.lastBaseCandleProcessed) {
-							this.lastBaseCandleProcessed++;
-							newBar = true;
-						}
-						synchronized (this.getBaseCandleDataset()) {
-							this.getCandleDataset().getSeries(0).updateSeries(this.getBaseCandleSeries(),
-									this.lastBaseCandleProcessed, newBar);
-						}
-					}
+				/*
+				 * Another candle has been added. Add the new candle to the base
+				 * series in the dataset.
+				 */
+				synchronized (this.getBaseCandleDataset()) {
+					this.getCandleDataset().getSeries(0).updateSeries(this.getBaseCandleSeries(),
+							this.lastBaseCandleProcessed, newBar);
 				}
+			}
 
-			} while (!this.isDone() && !this.isCancelled());
-
-		} catch (InterruptedException interExp) {
-			// Do nothing.
 		} catch (Exception ex1) {
 			_log.error("Error processing candle symbol: " + this.getBaseCandleSeries().getSymbol()
 					+ " Base series size: " + this.getBaseCandleSeries().getItemCount() + " BarSize: "
@@ -182,27 +178,14 @@ public class StrategyData extends Worker {
 					+ this.getCandleDataset().getSeries(0).getItemCount() + " lastBaseCandleProcessed: "
 					+ this.lastBaseCandleProcessed + " BarSize: " + this.getCandleDataset().getSeries(0).getBarSize()
 					+ " Message: " + ex1.getMessage(), ex1);
-
-		} finally {
 			/*
-			 * Ok we are complete clean up.
+			 * Stop processing the base series is updated directly from now.
 			 */
+			this.setIsCancelled(true);
 		}
 		return null;
 	}
 
-	public void cancel() {
-		this.setIsCancelled(true);
-		/*
-		 * Unlock the doInBackground that may be waiting for a candle. This will
-		 * cause a clean finish to the process.
-		 */
-		synchronized (lockStrategyWorker) {
-			seriesChanged = true;
-			lockStrategyWorker.notifyAll();
-		}
-	}
-
 	protected void done() {
 		// Free some memory!!
 		// this.clearBaseCandleSeries();
@@ -217,19 +200,70 @@ public class StrategyData extends Worker {
 	public void changeCandleSeriesPeriod(int newPeriod) {
 		/*
 		 * Clear down the dependent data sets and re populate from the base
-		 * candle series.
+		 * candle series or the aggregate series for the new period.
 		 */
 		clearChartDatasets();
-		this.getCandleDataset().getSeries(0).setBarSize(newPeriod);
-		for (int i = 0; i < getBaseCandleSeries().getItemCount(); i++) {
-			CandleItem candelItem = (CandleItem) getBaseCandleSeries().getDataItem(i);
-			boolean newBar = this.getCandleDataset().getSeries(0).buildCandle(candelItem.getPeriod().getStart(),
-					candelItem.getOpen(), candelItem.getHigh(), candelItem.getLow(), candelItem.getClose(),
-					candelItem.getVolume(), candelItem.getVwap(), candelItem.getCount(),
-					this.getCandleDataset().getSeries(0).getBarSize() / getBaseCandleSeries().getBarSize(), null);
-			updateIndicators(this.getCandleDataset(), newBar);
+		CandleSeries chartSeries = this.getCandleDataset().getSeries(0);
+		chartSeries.setBarSize(newPeriod);
+		int baseBarSize = getBaseCandleSeries().getBarSize();
+		if ((newPeriod % baseBarSize) == 0) {
+			CandleSeries source = (newPeriod == baseBarSize) ? getBaseCandleSeries() : getAggregateSeries(newPeriod);
+			synchronized (this.aggregateSeries) {
+				for (int i = 0; i < source.getItemCount(); i++) {
+					chartSeries.add((CandleItem) source.getDataItem(i), false);
+				}
+			}
+			createIndicators(this.getCandleDataset());
+		} else {
+			for (int i = 0; i < getBaseCandleSeries().getItemCount(); i++) {
+				CandleItem candelItem = (CandleItem) getBaseCandleSeries().getDataItem(i);
+				boolean newBar = chartSeries.buildCandle(candelItem.getPeriod().getStart(), candelItem.getOpen(),
+						candelItem.getHigh(), candelItem.getLow(), candelItem.getClose(), candelItem.getVolume(),
+						candelItem.getVwap(), candelItem.getCount(), newPeriod / baseBarSize, null);
+				updateIndicators(this.getCandleDataset(), newBar);
+			}
+		}
+		chartSeries.fireSeriesChanged();
+	}
+
+	/**
+	 * Method getAggregateSeries. Get the candle series for a bar size that is
+	 * a multiple of the base bar size. The series is built from the base
+	 * series the first time it is asked for, after that it is updated with
+	 * each bar that updates the base series.
+	 * 
+	 * @param barSize
+	 *            int the bar size in seconds or BarSize.DAY for the tradingday
+	 *            open to close.
+	 * @return CandleSeries
+	 */
+	public CandleSeries getAggregateSeries(int barSize) {
+
+		CandleSeries baseSeries = getBaseCandleSeries();
+		if (BarSize.DAY.equals(barSize)) {
+			barSize = (int) TradingCalendar.getDurationInSeconds(baseSeries.getStartTime(), baseSeries.getEndTime());
+		}
+		if (barSize < baseSeries.getBarSize() || (barSize % baseSeries.getBarSize()) != 0) {
+			throw new IllegalArgumentException("Bar size: " + barSize + " is not a multiple of the base bar size: "
+					+ baseSeries.getBarSize());
+		}
+
+		synchronized (this.aggregateSeries) {
+			CandleSeries series = this.aggregateSeries.get(barSize);
+			if (null == series) {
+				series = new CandleSeries(baseSeries, barSize, baseSeries.getStartTime(), baseSeries.getEndTime());
+				series.setBarSize(barSize);
+				int rollupInterval = barSize / baseSeries.getBarSize();
+				for (int i = 0; i < baseSeries.getItemCount(); i++) {
+					CandleItem candleItem = (CandleItem) baseSeries.getDataItem(i);
+					series.buildCandle(candleItem.getPeriod().getStart(), candleItem.getOpen(), candleItem.getHigh(),
+							candleItem.getLow(), candleItem.getClose(), candleItem.getVolume(), candleItem.getVwap(),
+							candleItem.getCount(), rollupInterval, candleItem.getLastUpdateDate());
+				}
+				this.aggregateSeries.put(barSize, series);
+			}
+			return series;
 		}
-		this.getCandleDataset().getSeries(0).fireSeriesChanged();
 	}
 
 	/**
@@ -263,8 +297,24 @@ public class StrategyData extends Worker {
 	public boolean buildCandle(ZonedDateTime time, double open, double high, double low, double close, long volume,
 			double vwap, int tradeCount, int rollupInterval, ZonedDateTime lastUpdateDate) {
 
-		boolean newBar = this.getBaseCandleSeries().buildCandle(time, open, high, low, close, volume, vwap, tradeCount,
-				rollupInterval, lastUpdateDate);
+		boolean newBar = false;
+		CandleSeries[] aggregates = null;
+		synchronized (this.aggregateSeries) {
+			newBar = this.getBaseCandleSeries().buildCandle(time, open, high, low, close, volume, vwap, tradeCount,
+					rollupInterval, lastUpdateDate);
+
+			/*
+			 * Roll the same bar into each of the aggregate series.
+			 */
+			if (!this.aggregateSeries.isEmpty()) {
+				int baseBarSize = this.getBaseCandleSeries().getBarSize();
+				aggregates = this.aggregateSeries.values().toArray(new CandleSeries[this.aggregateSeries.size()]);
+				for (CandleSeries series : aggregates) {
+					series.buildCandle(time, open, high, low, close, volume, vwap, tradeCount,
+							rollupInterval * (series.getBarSize() / baseBarSize), lastUpdateDate);
+				}
+			}
+		}
 
 		this.currentBaseCandleCount = this.getBaseCandleSeries().getItemCount() - 1;
 
@@ -272,6 +322,12 @@ public class StrategyData extends Worker {
 		this.getBaseCandleSeries().updatePercentChanged(candleItem);
 		updateIndicators(this.getBaseCandleDataset(), newBar);
 		this.getBaseCandleSeries().fireSeriesChanged();
+		if (null != aggregates) {
+			for (CandleSeries series : aggregates) {
+				series.updatePercentChanged((CandleItem) series.getDataItem(series.getItemCount() - 1));
+				series.fireSeriesChanged();
+			}
+		}
 		/*
 		 * If thread Indicators the updates to all indicators and the subsequent
 		 * firing of base series changed is performed via the worker thread.
@@ -280,13 +336,13 @@ public class StrategyData extends Worker {
 		 */
 		if (this.isRunning()) {
 			/*
-			 * Unlock the doInBackground that may be waiting for a candle. This
-			 * will cause a clean finish to the process.
+			 * Schedule the doInBackground to process the new candle or the
+			 * change to the current candle.
 			 */
 			synchronized (lockStrategyWorker) {
 				this.seriesChanged = true;
-				lockStrategyWorker.notifyAll();
 			}
+			this.signal();
 			// _log.info("buildCandle symbol: "
 			// + this.getBaseCandleSeries().getSymbol() + " Count: "
 			// + this.currentCandleCount);
@@ -359,6 +415,11 @@ public class StrategyData extends Worker {
 		this.lastBaseCandleProcessed = this.currentBaseCandleCount;
 		clearChartDatasets();
 		getBaseCandleDataset().clear();
+		synchronized (this.aggregateSeries) {
+			for (CandleSeries series : this.aggregateSeries.values()) {
+				series.clear();
+			}
+		}
 	}
 
 	public void clearChartDatasets() {
@@ -396,6 +457,72 @@ public class StrategyData extends Worker {
 		return null;
 	}
 
+	/**
+	 * Method updateLastTrade. Apply trades received between bars to the base
+	 * candle that contains the time. The candle is updated under the same lock
+	 * as buildCandle so a tick cannot race the reader thread adding or rolling
+	 * up a bar.
+	 * 
+	 * @param time
+	 *            ZonedDateTime the time of the last trade.
+	 * @param firstTime
+	 *            ZonedDateTime the time of the first trade.
+	 * @param price
+	 *            double the last trade price.
+	 * @param high
+	 *            double the high of the trades.
+	 * @param low
+	 *            double the low of the trades.
+	 * @param updateOnClose
+	 *            boolean update the close on every change of the last price.
+	 * @return boolean true if the candle changed and listeners were notified.
+	 */
+	public boolean updateLastTrade(ZonedDateTime time, ZonedDateTime firstTime, double price, double high,
+			double low, boolean updateOnClose) {
+
+		CandleSeries candleSeries = this.getBaseCandleSeries();
+		synchronized (this.aggregateSeries) {
+			int index = candleSeries.indexOf(time);
+			if (index < 0)
+				return false;
+
+			CandleItem candleItem = (CandleItem) candleSeries.getDataItem(index);
+			double close = Double.NaN;
+			if (updateOnClose) {
+				if (price != candleItem.getClose())
+					close = price;
+			} else {
+				/*
+				 * The high/low of the trades only apply if they all fell in
+				 * this bar.
+				 */
+				boolean sameBar = (firstTime == time) || candleSeries.indexOf(firstTime) == index;
+				if (!sameBar) {
+					high = price;
+					low = price;
+				}
+				if (price > candleItem.getHigh() || price < candleItem.getLow()) {
+					close = price;
+				} else if (high > candleItem.getHigh()) {
+					close = high;
+				} else if (low < candleItem.getLow()) {
+					close = low;
+				}
+			}
+			if (Double.isNaN(close))
+				return false;
+
+			candleItem.setClose(close);
+			candleItem.setLastUpdateDate(time);
+		}
+		/*
+		 * This will fire runStrategy. The chart is not updated as chart events
+		 * are slow.
+		 */
+		candleSeries.fireSeriesChanged();
+		return true;
+	}
+
 	/**
 	 * Method getBaseCandleDataset.
 	 * 
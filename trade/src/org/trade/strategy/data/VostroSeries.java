@@ -36,7 +36,6 @@
 package org.trade.strategy.data;
 
 import java.math.BigDecimal;
-import java.util.LinkedList;
 
 import javax.persistence.DiscriminatorValue;
 import javax.persistence.Entity;
@@ -48,6 +47,7 @@ import org.trade.dictionary.valuetype.CalculationType;
 import org.trade.persistent.dao.CodeValue;
 import org.trade.persistent.dao.Strategy;
 import org.trade.strategy.data.base.RegularTimePeriod;
+import org.trade.strategy.data.base.RollingWindow;
 import org.trade.strategy.data.candle.CandleItem;
 import org.trade.strategy.data.vostro.VostroItem;
 
@@ -84,17 +84,18 @@ public class VostroSeries extends IndicatorSeries {
 	 */
 
 	private double multiplyer = 0;
-	private double sum = 0.0;
 	private double vostro1 = Double.MAX_VALUE;
 	private double vostro2 = Double.MAX_VALUE;
-	private LinkedList<Double> yyValues = new LinkedList<Double>();
-	private LinkedList<Long> volValues = new LinkedList<Long>();
-	private double highPlusLowSum = 0.0;
-	private LinkedList<Double> highPlusLowValues = new LinkedList<Double>();
-	private double highLessLowSum = 0.0;
-	private LinkedList<Double> highLessLowValues = new LinkedList<Double>();
-	private LinkedList<Double> vostro1Values = new LinkedList<Double>();
-	private LinkedList<Double> vostro2Values = new LinkedList<Double>();
+	private RollingWindow yyValues = null;
+	private RollingWindow volValues = null;
+	private RollingWindow priceVolValues = null;
+	private RollingWindow highPlusLowValues = null;
+	private RollingWindow highLessLowValues = null;
+	/*
+	 * The vostro values for the previous two bars.
+	 */
+	private RollingWindow vostro1Values = null;
+	private RollingWindow vostro2Values = null;
 
 	/**
 	 * Creates a new empty series. By default, items added to the series will be
@@ -162,12 +163,13 @@ public class VostroSeries extends IndicatorSeries {
 	 */
 	public Object clone() throws CloneNotSupportedException {
 		VostroSeries clone = (VostroSeries) super.clone();
-		clone.yyValues = new LinkedList<Double>();
-		clone.highPlusLowValues = new LinkedList<Double>();
-		clone.highLessLowValues = new LinkedList<Double>();
-		clone.volValues = new LinkedList<Long>();
-		clone.vostro1Values = new LinkedList<Double>();
-		clone.vostro2Values = new LinkedList<Double>();
+		clone.yyValues = null;
+		clone.volValues = null;
+		clone.priceVolValues = null;
+		clone.highPlusLowValues = null;
+		clone.highLessLowValues = null;
+		clone.vostro1Values = null;
+		clone.vostro2Values = null;
 		return clone;
 	}
 
@@ -179,17 +181,17 @@ public class VostroSeries extends IndicatorSeries {
 	public void clear() {
 		super.clear();
 		multiplyer = 0;
-		sum = 0.0;
 		vostro1 = Double.MAX_VALUE;
 		vostro2 = Double.MAX_VALUE;
-		yyValues.clear();
-		volValues.clear();
-		highPlusLowSum = 0.0;
-		highPlusLowValues.clear();
-		highLessLowSum = 0.0;
-		highLessLowValues.clear();
-		vostro1Values.clear();
-		vostro2Values.clear();
+		if (null != yyValues) {
+			yyValues.clear();
+			volValues.clear();
+			priceVolValues.clear();
+			highPlusLowValues.clear();
+			highLessLowValues.clear();
+			vostro1Values.clear();
+			vostro2Values.clear();
+		}
 	}
 
 	/**
@@ -468,107 +470,49 @@ public class VostroSeries extends IndicatorSeries {
 			CandleItem candleItem = (CandleItem) source.getDataItem(skip);
 			if (0 != this.getPrice(candleItem)) {
 				double price = this.getPrice(candleItem);
-				if (this.yyValues.size() == getLength()) {
-					/*
-					 * If the item does not exist in the series then this is a
-					 * new time period and so we need to remove the last in the
-					 * set and add the new periods values. Otherwise we just
-					 * update the last value in the set. Sum is just used for
-					 * performance save having to sum the last set of values
-					 * each time.
-					 */
-
-					if (newBar) {
-						sum = sum - this.yyValues.getLast() + price;
-						this.yyValues.removeLast();
-						this.yyValues.addFirst(price);
-						this.volValues.removeLast();
-						this.volValues.addFirst(candleItem.getVolume());
-					} else {
-						sum = sum - this.yyValues.getFirst() + price;
-						this.yyValues.removeFirst();
-						this.yyValues.addFirst(price);
-					}
-				} else {
-					if (newBar) {
-						sum = sum + price;
-						this.yyValues.addFirst(price);
-						this.volValues.addFirst(candleItem.getVolume());
-					} else {
-						sum = sum + price - this.yyValues.getFirst();
-						this.yyValues.removeFirst();
-						this.yyValues.addFirst(price);
-						this.volValues.removeFirst();
-						this.volValues.addFirst(candleItem.getVolume());
-					}
+				if (null == this.yyValues || this.yyValues.getCapacity() != getLength()
+						|| this.highPlusLowValues.getCapacity() != getVostroPeriod()) {
+					this.yyValues = new RollingWindow(getLength());
+					this.volValues = new RollingWindow(getLength());
+					this.priceVolValues = new RollingWindow(getLength());
+					this.highPlusLowValues = new RollingWindow(getVostroPeriod());
+					this.highLessLowValues = new RollingWindow(getVostroPeriod());
+					this.vostro1Values = new RollingWindow(2);
+					this.vostro2Values = new RollingWindow(2);
 				}
-
-				if (this.highPlusLowValues.size() == getVostroPeriod()) {
-					/*
-					 * If the item does not exist in the series then this is a
-					 * new time period and so we need to remove the last in the
-					 * set and add the new periods values. Otherwise we just
-					 * update the last value in the set. Sum is just used for
-					 * performance save having to sum the last set of values
-					 * each time.
-					 */
-
-					if (newBar) {
-						this.highPlusLowSum = this.highPlusLowSum - this.highPlusLowValues.getLast()
-								+ (candleItem.getHigh() + candleItem.getLow());
-						this.highPlusLowValues.removeLast();
-						this.highPlusLowValues.addFirst((candleItem.getHigh() + candleItem.getLow()));
-
-						this.highLessLowSum = this.highLessLowSum - this.highLessLowValues.getLast()
-								+ (candleItem.getHigh() - candleItem.getLow());
-						this.highLessLowValues.removeLast();
-						this.highLessLowValues.addFirst((candleItem.getHigh() - candleItem.getLow()));
-					} else {
-						this.highPlusLowSum = this.highPlusLowSum - this.highPlusLowValues.getFirst()
-								+ (candleItem.getHigh() + candleItem.getLow());
-						this.highPlusLowValues.removeFirst();
-						this.highPlusLowValues.addFirst((candleItem.getHigh() + candleItem.getLow()));
-
-						this.highLessLowSum = this.highLessLowSum - this.highLessLowValues.getFirst()
-								+ (candleItem.getHigh() - candleItem.getLow());
-						this.highLessLowValues.removeFirst();
-						this.highLessLowValues.addFirst((candleItem.getHigh() - candleItem.getLow()));
-					}
+				/*
+				 * If the item does not exist in the series then this is a new
+				 * time period and so we need to remove the last in the set and
+				 * add the new periods values. Otherwise we just update the last
+				 * value in the set. The windows keep running sums to save
+				 * having to sum the last set of values each time.
+				 */
+				if (newBar) {
+					this.yyValues.add(price);
+					this.volValues.add(candleItem.getVolume());
+					this.priceVolValues.add(price * candleItem.getVolume());
+					this.highPlusLowValues.add(candleItem.getHigh() + candleItem.getLow());
+					this.highLessLowValues.add(candleItem.getHigh() - candleItem.getLow());
 				} else {
-					if (newBar) {
-						this.highPlusLowSum = this.highPlusLowSum + (candleItem.getHigh() + candleItem.getLow());
-						this.highPlusLowValues.addFirst((candleItem.getHigh() + candleItem.getLow()));
-
-						this.highLessLowSum = this.highLessLowSum + (candleItem.getHigh() - candleItem.getLow());
-						this.highLessLowValues.addFirst((candleItem.getHigh() - candleItem.getLow()));
-					} else {
-						this.highPlusLowSum = this.highPlusLowSum + (candleItem.getHigh() + candleItem.getLow())
-								- this.highPlusLowValues.getFirst();
-						this.highPlusLowValues.removeFirst();
-						this.highPlusLowValues.addFirst((candleItem.getHigh() + candleItem.getLow()));
-
-						this.highLessLowSum = this.highLessLowSum + (candleItem.getHigh() - candleItem.getLow())
-								- this.highLessLowValues.getFirst();
-						this.highLessLowValues.removeFirst();
-						this.highLessLowValues.addFirst((candleItem.getHigh() - candleItem.getLow()));
-					}
+					this.yyValues.setFirst(price);
+					this.volValues.setFirst(candleItem.getVolume());
+					this.priceVolValues.setFirst(price * candleItem.getVolume());
+					this.highPlusLowValues.setFirst(candleItem.getHigh() + candleItem.getLow());
+					this.highLessLowValues.setFirst(candleItem.getHigh() - candleItem.getLow());
 				}
 
 				if (this.yyValues.size() == getLength()) {
 
-					double ma = calculateMA(this.getMAType(), this.yyValues, this.volValues, sum);
+					double ma = calculateMA(this.getMAType());
 
-					double gd_128 = this.highPlusLowSum / 2.0d / this.getVostroPeriod();
+					double gd_128 = this.highPlusLowValues.getSum() / 2.0d / this.getVostroPeriod();
 
-					double gd_136 = (this.highLessLowSum / this.getVostroPeriod()) / this.getVostroPeriod();
+					double gd_136 = (this.highLessLowValues.getSum() / this.getVostroPeriod())
+							/ this.getVostroPeriod();
 
 					if (newBar && this.vostro1 != Double.MAX_VALUE) {
-						vostro1Values.addFirst(this.vostro1);
-						vostro2Values.addFirst(this.vostro2);
-						if (vostro1Values.size() > 2) {
-							vostro1Values.removeLast();
-							vostro2Values.removeLast();
-						}
+						vostro1Values.add(this.vostro1);
+						vostro2Values.add(this.vostro2);
 					}
 
 					this.vostro1 = (candleItem.getLow() - gd_128) / gd_136;
@@ -614,12 +558,12 @@ public class VostroSeries extends IndicatorSeries {
 
 					// _log.warn("Vostro Ind Time: " + candleItem.getPeriod()
 					// + " wma: " + ma + " vostro: " + vostro
-					// + " highPlusLowSum: " + this.highPlusLowSum
-					// + " highLessLowSum: " + this.highLessLowSum
+					// + " highPlusLowSum: " + this.highPlusLowValues.getSum()
+					// + " highLessLowSum: " + this.highLessLowValues.getSum()
 					// + " gd_128: " + gd_128 + " gd_136: " + gd_136
 					// + " vostro1: " + vostro1 + " vostro2: " + vostro2);
 					if (newBar) {
-						VostroItem dataItem = new VostroItem(candleItem.getPeriod(), new BigDecimal(vostro));
+						VostroItem dataItem = new VostroItem(candleItem.getPeriod(), vostro);
 						this.add(dataItem, false);
 
 					} else {
@@ -648,19 +592,13 @@ public class VostroSeries extends IndicatorSeries {
 	 * 
 	 * @param calcType
 	 *            String
-	 * @param yyValues
-	 *            LinkedList<Double>
-	 * @param volValues
-	 *            LinkedList<Long>
-	 * @param sum
-	 *            Double
 	 * @return double
 	 */
-	private double calculateMA(String calcType, LinkedList<Double> yyValues, LinkedList<Long> volValues, Double sum) {
+	private double calculateMA(String calcType) {
 
 		double ma = 0;
 		if (CalculationType.LINEAR.equals(calcType)) {
-			ma = sum / getLength();
+			ma = yyValues.getMean();
 		} else if (CalculationType.EXPONENTIAL.equals(calcType)) {
 			/*
 			 * Multiplier: (2 / (Time periods + 1) ) = (2 / (10 + 1) ) = 0.1818
@@ -668,7 +606,7 @@ public class VostroSeries extends IndicatorSeries {
 			 * EMA(previous day).
 			 */
 			if (multiplyer == 0) {
-				ma = sum / getLength();
+				ma = yyValues.getMean();
 				multiplyer = 2 / (getLength() + 1.0d);
 			} else {
 				ma = ((yyValues.getFirst() - yyValues.get(1)) * multiplyer) + yyValues.get(1);
@@ -677,28 +615,15 @@ public class VostroSeries extends IndicatorSeries {
 			 * Use the EMA in the stored values as we need the previous one for
 			 * the calc.
 			 */
-			yyValues.removeFirst();
-			yyValues.addFirst(ma);
+			yyValues.setFirst(ma);
 
 		} else if (CalculationType.WEIGHTED.equals(calcType)) {
 
-			double sumYY = 0;
-			int count = 0;
-			for (int i = yyValues.size(); i > 0; i--) {
-				count = count + (getLength() + 1 - i);
-				sumYY = sumYY + (yyValues.get(i - 1) * (getLength() + 1 - i));
-			}
-			ma = sumYY / count;
+			ma = yyValues.getWeightedMean();
 
 		} else if (CalculationType.WEIGHTED_VOLUME.equals(calcType)) {
 
-			double sumYY = 0;
-			double count = 0;
-			for (int i = yyValues.size(); i > 0; i--) {
-				count = count + ((getLength() + 1 - i) * volValues.get(i - 1));
-				sumYY = sumYY + (yyValues.get(i - 1) * volValues.get(i - 1) * (getLength() + 1 - i));
-			}
-			ma = sumYY / count;
+			ma = priceVolValues.getWeightedSum() / volValues.getWeightedSum();
 		}
 		return ma;
 	}
@@ -196,7 +196,7 @@ public class VwapSeries extends IndicatorSeries {
 			 */
 			if (newBar) {
 				VwapItem dataItem = new VwapItem(source.getRollingCandle().getPeriod(),
-						new BigDecimal(source.getRollingCandle().getVwap()));
+						source.getRollingCandle().getVwap());
 				this.add(dataItem, false);
 			} else {
 				VwapItem dataItem = (VwapItem) this.getDataItem(this.getItemCount() - 1);
@@ -53,7 +53,7 @@ public class AverageTrueRange implements java.io.Serializable {
 	 */
 	private static final long serialVersionUID = 7644763985378994305L;
 
-	private BigDecimal averageTrueRange;
+	private double averageTrueRange = Double.NaN;
 
 	public AverageTrueRange() {
 	}
@@ -65,6 +65,16 @@ public class AverageTrueRange implements java.io.Serializable {
 	 *            BigDecimal
 	 */
 	public AverageTrueRange(BigDecimal averageTrueRange) {
+		this.averageTrueRange = (null == averageTrueRange ? Double.NaN : averageTrueRange.doubleValue());
+	}
+
+	/**
+	 * Constructor for AverageTrueRange.
+	 * 
+	 * @param averageTrueRange
+	 *            double
+	 */
+	public AverageTrueRange(double averageTrueRange) {
 		this.averageTrueRange = averageTrueRange;
 	}
 
@@ -74,7 +84,7 @@ public class AverageTrueRange implements java.io.Serializable {
 	 * @return BigDecimal
 	 */
 	public BigDecimal getAverageTrueRange() {
-		return this.averageTrueRange;
+		return (Double.isNaN(this.averageTrueRange) ? null : new BigDecimal(this.averageTrueRange));
 	}
 
 	/**
@@ -84,7 +94,25 @@ public class AverageTrueRange implements java.io.Serializable {
 	 *            BigDecimal
 	 */
 	public void setAverageTrueRange(BigDecimal averageTrueRange) {
-		this.averageTrueRange = averageTrueRange;
+		this.averageTrueRange = (null == averageTrueRange ? Double.NaN : averageTrueRange.doubleValue());
+	}
+
+	/**
+	 * Method getAverageTrueRangeValue.
+	 * 
+	 * @return double the value or Double.NaN if not set.
+	 */
+	public double getAverageTrueRangeValue() {
+		return this.averageTrueRange;
 	}
 
+	/**
+	 * Method setAverageTrueRange.
+	 * 
+	 * @param averageTrueRange
+	 *            double
+	 */
+	public void setAverageTrueRange(double averageTrueRange) {
+		this.averageTrueRange = averageTrueRange;
+	}
 }
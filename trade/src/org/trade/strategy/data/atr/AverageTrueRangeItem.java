@@ -66,6 +66,18 @@ public class AverageTrueRangeItem extends ComparableObjectItem {
 		super(period, new AverageTrueRange(averageTrueRange));
 	}
 
+	/**
+	 * Creates a new instance of <code>AverageTrueRangeItem</code>.
+	 * 
+	 * @param period
+	 *            the time period.
+	 * @param averageTrueRange
+	 *            double
+	 */
+	public AverageTrueRangeItem(RegularTimePeriod period, double averageTrueRange) {
+		super(period, new AverageTrueRange(averageTrueRange));
+	}
+
 	/**
 	 * Returns the period.
 	 * 
@@ -96,7 +108,7 @@ public class AverageTrueRangeItem extends ComparableObjectItem {
 	public void setAverageTrueRange(double averageTrueRange) {
 		AverageTrueRange dataItem = (AverageTrueRange) getObject();
 		if (dataItem != null) {
-			dataItem.setAverageTrueRange(new BigDecimal(averageTrueRange));
+			dataItem.setAverageTrueRange(averageTrueRange);
 		}
 
 	}
@@ -110,10 +122,10 @@ public class AverageTrueRangeItem extends ComparableObjectItem {
 	public double getAverageTrueRange() {
 		AverageTrueRange dataItem = (AverageTrueRange) getObject();
 		if (dataItem != null) {
-			if (null == dataItem.getAverageTrueRange()) {
+			if (Double.isNaN(dataItem.getAverageTrueRangeValue())) {
 				return 0;
 			}
-			return dataItem.getAverageTrueRange().doubleValue();
+			return dataItem.getAverageTrueRangeValue();
 		} else {
 			return 0;
 		}
@@ -0,0 +1,392 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.strategy.data.base;
+
+import java.io.Serializable;
+
+/**
+ * A fixed length window of the most recent values of an indicator backed by a
+ * primitive ring buffer. The running sum, sum of squares and linear weighted
+ * sum are maintained as values are added so the moving averages and standard
+ * deviation are O(1) per bar, the minimum and maximum are held in monotonic
+ * deques. Nothing is allocated after construction.
+ * 
+ * Values are indexed newest first i.e. get(0) is the value for the current
+ * bar. A new bar is added with add(), while the bar is building its value is
+ * replaced with setFirst().
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class RollingWindow implements Serializable {
+
+	private static final long serialVersionUID = -2361809873655491870L;
+
+	/*
+	 * The running sums drift as values are added and removed, they are
+	 * re-calculated from the window after this many updates.
+	 */
+	private static final int RESYNC_INTERVAL = 1024;
+
+	private final double[] values;
+	private final long[] maxDeque;
+	private final long[] minDeque;
+	private int size = 0;
+	private long count = 0;
+	private int maxHead = 0;
+	private int maxSize = 0;
+	private int minHead = 0;
+	private int minSize = 0;
+	private int updates = 0;
+	private double sum = 0;
+	private double sumOfSquares = 0;
+	private double weightedSum = 0;
+
+	/**
+	 * Constructor for RollingWindow.
+	 * 
+	 * @param capacity
+	 *            int the number of values in a full window.
+	 */
+	public RollingWindow(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Window capacity must be greater than zero.");
+		}
+		this.values = new double[capacity];
+		this.maxDeque = new long[capacity];
+		this.minDeque = new long[capacity];
+	}
+
+	/**
+	 * Method getCapacity.
+	 * 
+	 * @return int
+	 */
+	public int getCapacity() {
+		return this.values.length;
+	}
+
+	/**
+	 * Method size.
+	 * 
+	 * @return int
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Method isEmpty.
+	 * 
+	 * @return boolean
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Method isFull.
+	 * 
+	 * @return boolean
+	 */
+	public boolean isFull() {
+		return this.size == this.values.length;
+	}
+
+	/**
+	 * Method clear.
+	 */
+	public void clear() {
+		this.size = 0;
+		this.count = 0;
+		this.maxHead = 0;
+		this.maxSize = 0;
+		this.minHead = 0;
+		this.minSize = 0;
+		this.updates = 0;
+		this.sum = 0;
+		this.sumOfSquares = 0;
+		this.weightedSum = 0;
+	}
+
+	/**
+	 * Method add. Add the value for a new bar, if the window is full the
+	 * oldest value is removed.
+	 * 
+	 * @param value
+	 *            double
+	 * @return double the value removed or Double.NaN if the window was not
+	 *         full.
+	 */
+	public double add(double value) {
+		double removed = Double.NaN;
+		if (this.size > 0) {
+			/*
+			 * The current bar is now complete so it can go in the min/max
+			 * deques.
+			 */
+			settle(this.count - 1);
+		}
+		if (this.isFull()) {
+			removed = this.values[slot(this.count - this.size)];
+			this.weightedSum = this.weightedSum - this.sum;
+			this.sum = this.sum - removed;
+			this.sumOfSquares = this.sumOfSquares - (removed * removed);
+		} else {
+			this.size++;
+		}
+		this.count++;
+		evict(this.count - this.size);
+		this.values[slot(this.count - 1)] = value;
+		this.sum = this.sum + value;
+		this.sumOfSquares = this.sumOfSquares + (value * value);
+		this.weightedSum = this.weightedSum + (this.size * value);
+		resync();
+		return removed;
+	}
+
+	/**
+	 * Method setFirst. Replace the value of the current bar, if the window is
+	 * empty the value is added.
+	 * 
+	 * @param value
+	 *            double
+	 */
+	public void setFirst(double value) {
+		if (this.isEmpty()) {
+			add(value);
+			return;
+		}
+		int index = slot(this.count - 1);
+		double prev = this.values[index];
+		this.values[index] = value;
+		this.sum = this.sum - prev + value;
+		this.sumOfSquares = this.sumOfSquares - (prev * prev) + (value * value);
+		this.weightedSum = this.weightedSum + (this.size * (value - prev));
+		resync();
+	}
+
+	/**
+	 * Method get.
+	 * 
+	 * @param index
+	 *            int 0 is the newest value.
+	 * @return double
+	 */
+	public double get(int index) {
+		if (index < 0 || index >= this.size) {
+			throw new IndexOutOfBoundsException("Index: " + index + " Size: " + this.size);
+		}
+		return this.values[slot(this.count - 1 - index)];
+	}
+
+	/**
+	 * Method getFirst.
+	 * 
+	 * @return double the newest value.
+	 */
+	public double getFirst() {
+		return get(0);
+	}
+
+	/**
+	 * Method getLast.
+	 * 
+	 * @return double the oldest value.
+	 */
+	public double getLast() {
+		return get(this.size - 1);
+	}
+
+	/**
+	 * Method getSum.
+	 * 
+	 * @return double
+	 */
+	public double getSum() {
+		return this.sum;
+	}
+
+	/**
+	 * Method getSumOfSquares.
+	 * 
+	 * @return double
+	 */
+	public double getSumOfSquares() {
+		return this.sumOfSquares;
+	}
+
+	/**
+	 * Method getWeightedSum. The sum of the values weighted linearly from 1
+	 * for the oldest to size() for the newest.
+	 * 
+	 * @return double
+	 */
+	public double getWeightedSum() {
+		return this.weightedSum;
+	}
+
+	/**
+	 * Method getMean.
+	 * 
+	 * @return double
+	 */
+	public double getMean() {
+		return this.sum / this.size;
+	}
+
+	/**
+	 * Method getWeightedMean. The linear weighted moving average.
+	 * 
+	 * @return double
+	 */
+	public double getWeightedMean() {
+		return this.weightedSum / ((this.size * (this.size + 1)) / 2d);
+	}
+
+	/**
+	 * Method getStandardDeviation. The sample standard deviation.
+	 * 
+	 * @return double
+	 */
+	public double getStandardDeviation() {
+		if (this.size < 2) {
+			return 0;
+		}
+		double variance = (this.sumOfSquares - ((this.sum * this.sum) / this.size)) / (this.size - 1);
+		return (variance > 0 ? Math.sqrt(variance) : 0);
+	}
+
+	/**
+	 * Method getMax.
+	 * 
+	 * @return double
+	 */
+	public double getMax() {
+		double max = this.getFirst();
+		if (this.maxSize > 0) {
+			max = Math.max(max, this.values[slot(this.maxDeque[this.maxHead])]);
+		}
+		return max;
+	}
+
+	/**
+	 * Method getMin.
+	 * 
+	 * @return double
+	 */
+	public double getMin() {
+		double min = this.getFirst();
+		if (this.minSize > 0) {
+			min = Math.min(min, this.values[slot(this.minDeque[this.minHead])]);
+		}
+		return min;
+	}
+
+	/**
+	 * Method slot.
+	 * 
+	 * @param sequence
+	 *            long
+	 * @return int the index in the values of the sequence.
+	 */
+	private int slot(long sequence) {
+		return (int) (sequence % this.values.length);
+	}
+
+	/**
+	 * Method settle. Add a completed value to the tail of the min/max deques
+	 * removing any values it supersedes.
+	 * 
+	 * @param sequence
+	 *            long
+	 */
+	private void settle(long sequence) {
+		int capacity = this.values.length;
+		double value = this.values[slot(sequence)];
+		while (this.maxSize > 0
+				&& this.values[slot(this.maxDeque[(this.maxHead + this.maxSize - 1) % capacity])] <= value) {
+			this.maxSize--;
+		}
+		this.maxDeque[(this.maxHead + this.maxSize) % capacity] = sequence;
+		this.maxSize++;
+		while (this.minSize > 0
+				&& this.values[slot(this.minDeque[(this.minHead + this.minSize - 1) % capacity])] >= value) {
+			this.minSize--;
+		}
+		this.minDeque[(this.minHead + this.minSize) % capacity] = sequence;
+		this.minSize++;
+	}
+
+	/**
+	 * Method evict. Remove values that have left the window from the head of
+	 * the min/max deques.
+	 * 
+	 * @param oldest
+	 *            long the sequence of the oldest value in the window.
+	 */
+	private void evict(long oldest) {
+		int capacity = this.values.length;
+		while (this.maxSize > 0 && this.maxDeque[this.maxHead] < oldest) {
+			this.maxHead = (this.maxHead + 1) % capacity;
+			this.maxSize--;
+		}
+		while (this.minSize > 0 && this.minDeque[this.minHead] < oldest) {
+			this.minHead = (this.minHead + 1) % capacity;
+			this.minSize--;
+		}
+	}
+
+	/**
+	 * Method resync. Periodically re-calculate the running sums from the
+	 * window so rounding errors do not accumulate.
+	 */
+	private void resync() {
+		if (++this.updates < RESYNC_INTERVAL) {
+			return;
+		}
+		this.updates = 0;
+		this.sum = 0;
+		this.sumOfSquares = 0;
+		this.weightedSum = 0;
+		for (int i = this.size - 1; i >= 0; i--) {
+			double value = this.get(i);
+			this.sum = this.sum + value;
+			this.sumOfSquares = this.sumOfSquares + (value * value);
+			this.weightedSum = this.weightedSum + ((this.size - i) * value);
+		}
+	}
+}
@@ -53,7 +53,7 @@ public class BollingerBands implements java.io.Serializable {
 	 */
 	private static final long serialVersionUID = 7644763985378994305L;
 
-	private BigDecimal bollingerBands;
+	private double bollingerBands = Double.NaN;
 
 	public BollingerBands() {
 	}
@@ -65,6 +65,16 @@ public class BollingerBands implements java.io.Serializable {
 	 *            BigDecimal
 	 */
 	public BollingerBands(BigDecimal bollingerBands) {
+		this.bollingerBands = (null == bollingerBands ? Double.NaN : bollingerBands.doubleValue());
+	}
+
+	/**
+	 * Constructor for BollingerBands.
+	 * 
+	 * @param bollingerBands
+	 *            double
+	 */
+	public BollingerBands(double bollingerBands) {
 		this.bollingerBands = bollingerBands;
 	}
 
@@ -74,7 +84,7 @@ public class BollingerBands implements java.io.Serializable {
 	 * @return BigDecimal
 	 */
 	public BigDecimal getBollingerBands() {
-		return this.bollingerBands;
+		return (Double.isNaN(this.bollingerBands) ? null : new BigDecimal(this.bollingerBands));
 	}
 
 	/**
@@ -84,7 +94,25 @@ public class BollingerBands implements java.io.Serializable {
 	 *            BigDecimal
 	 */
 	public void setBollingerBands(BigDecimal bollingerBands) {
-		this.bollingerBands = bollingerBands;
+		this.bollingerBands = (null == bollingerBands ? Double.NaN : bollingerBands.doubleValue());
+	}
+
+	/**
+	 * Method getBollingerBandsValue.
+	 * 
+	 * @return double the value or Double.NaN if not set.
+	 */
+	public double getBollingerBandsValue() {
+		return this.bollingerBands;
 	}
 
+	/**
+	 * Method setBollingerBands.
+	 * 
+	 * @param bollingerBands
+	 *            double
+	 */
+	public void setBollingerBands(double bollingerBands) {
+		this.bollingerBands = bollingerBands;
+	}
 }
@@ -68,6 +68,18 @@ public class BollingerBandsItem extends ComparableObjectItem {
 		super(period, new BollingerBands(bollingerBands));
 	}
 
+	/**
+	 * Creates a new instance of <code>BollingerBandsItem</code>.
+	 * 
+	 * @param period
+	 *            the time period.
+	 * @param bollingerBands
+	 *            double
+	 */
+	public BollingerBandsItem(RegularTimePeriod period, double bollingerBands) {
+		super(period, new BollingerBands(bollingerBands));
+	}
+
 	/**
 	 * Returns the period.
 	 * 
@@ -98,7 +110,7 @@ public class BollingerBandsItem extends ComparableObjectItem {
 	public void setBollingerBands(double bollingerBands) {
 		BollingerBands dataItem = (BollingerBands) getObject();
 		if (dataItem != null) {
-			dataItem.setBollingerBands(new BigDecimal(bollingerBands));
+			dataItem.setBollingerBands(bollingerBands);
 		}
 
 	}
@@ -112,10 +124,10 @@ public class BollingerBandsItem extends ComparableObjectItem {
 	public double getBollingerBands() {
 		BollingerBands dataItem = (BollingerBands) getObject();
 		if (dataItem != null) {
-			if (null == dataItem.getBollingerBands()) {
+			if (Double.isNaN(dataItem.getBollingerBandsValue())) {
 				return 0;
 			}
-			return dataItem.getBollingerBands().doubleValue();
+			return dataItem.getBollingerBandsValue();
 		} else {
 			return 0;
 		}
@@ -0,0 +1,235 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.strategy.data.candle;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Index from time to the position of a candle in a series. The time is split
+ * into bar size buckets measured from the first candle indexed, each bucket
+ * maps to the candle that starts in it. Buckets are held in an open addressed
+ * hash table of primitives so gaps between trading days cost nothing and a
+ * look up does not allocate.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class CandleIndex implements Serializable {
+
+	private static final long serialVersionUID = 3719513480317618412L;
+
+	private static final long EMPTY = Long.MIN_VALUE;
+
+	private final int barSize;
+	private long anchor = 0;
+	private long[] keys;
+	private int[] values;
+	private int size = 0;
+	private int count = 0;
+	private boolean irregular = false;
+	private boolean valid = true;
+
+	/**
+	 * Constructor for CandleIndex.
+	 * 
+	 * @param barSize
+	 *            int the length of a candle in seconds.
+	 */
+	public CandleIndex(int barSize) {
+		if (barSize < 1) {
+			throw new IllegalArgumentException("Bar size must be greater than zero.");
+		}
+		this.barSize = barSize;
+		this.keys = new long[16];
+		this.values = new int[16];
+		Arrays.fill(this.keys, EMPTY);
+	}
+
+	/**
+	 * Method getBarSize.
+	 * 
+	 * @return int
+	 */
+	public int getBarSize() {
+		return this.barSize;
+	}
+
+	/**
+	 * Method put. Index a candle.
+	 * 
+	 * @param startEpochSecond
+	 *            long the start of the candle period.
+	 * @param endEpochSecond
+	 *            long the end of the candle period.
+	 * @param index
+	 *            int the position of the candle in the series.
+	 */
+	public void put(long startEpochSecond, long endEpochSecond, int index) {
+		if (this.count == 0) {
+			this.anchor = startEpochSecond;
+		}
+		/*
+		 * A candle longer than the bar size can cover more than one bucket so
+		 * the index cannot be used.
+		 */
+		if (endEpochSecond - startEpochSecond >= this.barSize) {
+			this.irregular = true;
+		}
+		if ((this.size + 1) * 2 > this.keys.length) {
+			resize(this.keys.length * 2);
+		}
+		long key = bucket(startEpochSecond);
+		int slot = slot(key);
+		if (this.keys[slot] == EMPTY) {
+			this.keys[slot] = key;
+			this.size++;
+		} else {
+			this.irregular = true;
+		}
+		this.values[slot] = index;
+		this.count++;
+	}
+
+	/**
+	 * Method get. The position of the candle that starts in the bucket for the
+	 * time, or in an earlier bucket when candles do not line up with the first
+	 * candle.
+	 * 
+	 * @param epochSecond
+	 *            long
+	 * @param bucketsBack
+	 *            int the number of buckets before the time's bucket.
+	 * @return int the position of the candle or -1 if there is none.
+	 */
+	public int get(long epochSecond, int bucketsBack) {
+		if (this.count == 0)
+			return -1;
+		long key = bucket(epochSecond) - bucketsBack;
+		int slot = slot(key);
+		return (this.keys[slot] == key ? this.values[slot] : -1);
+	}
+
+	/**
+	 * Method isValid.
+	 * 
+	 * @param itemCount
+	 *            int the number of items in the series.
+	 * @return boolean true if every item in the series has been indexed in
+	 *         order and none moved since.
+	 */
+	public boolean isValid(int itemCount) {
+		return this.valid && this.count == itemCount;
+	}
+
+	/**
+	 * Method invalidate. Called when items in the series have moved.
+	 */
+	public void invalidate() {
+		this.valid = false;
+	}
+
+	/**
+	 * Method isIrregular.
+	 * 
+	 * @return boolean true if the candles are longer than the bar size or
+	 *         overlap in which case the series must be searched.
+	 */
+	public boolean isIrregular() {
+		return this.irregular;
+	}
+
+	/**
+	 * Method clear.
+	 */
+	public void clear() {
+		Arrays.fill(this.keys, EMPTY);
+		this.size = 0;
+		this.count = 0;
+		this.irregular = false;
+		this.valid = true;
+	}
+
+	/**
+	 * Method bucket.
+	 * 
+	 * @param epochSecond
+	 *            long
+	 * @return long
+	 */
+	private long bucket(long epochSecond) {
+		return Math.floorDiv(epochSecond - this.anchor, this.barSize);
+	}
+
+	/**
+	 * Method slot. Linear probe for the key's slot, this is either the slot
+	 * holding the key or the first empty one.
+	 * 
+	 * @param key
+	 *            long
+	 * @return int
+	 */
+	private int slot(long key) {
+		int mask = this.keys.length - 1;
+		long hash = key * 0x9E3779B97F4A7C15L;
+		int slot = (int) (hash ^ (hash >>> 32)) & mask;
+		while (this.keys[slot] != EMPTY && this.keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Method resize.
+	 * 
+	 * @param capacity
+	 *            int a power of two.
+	 */
+	private void resize(int capacity) {
+		long[] oldKeys = this.keys;
+		int[] oldValues = this.values;
+		this.keys = new long[capacity];
+		this.values = new int[capacity];
+		Arrays.fill(this.keys, EMPTY);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				int slot = slot(oldKeys[i]);
+				this.keys[slot] = oldKeys[i];
+				this.values[slot] = oldValues[i];
+			}
+		}
+	}
+}
@@ -46,7 +46,9 @@ import org.trade.persistent.dao.Tradingday;
 import org.trade.strategy.data.base.RegularTimePeriod;
 
 /**
- * An item representing data in the form (period, open, high, low, close).
+ * An item representing data in the form (period, open, high, low, close). The
+ * values are held in a CandleStore, the Candle entity is only created when it
+ * is asked for i.e. for persistence or charting.
  * 
  * @since 1.0.4
  * @author Simon Allen
@@ -59,6 +61,12 @@ public class CandleItem extends ComparableObjectItem {
 	 */
 	private static final long serialVersionUID = -3888996139640449109L;
 
+	private final CandleStore store;
+	private final int row;
+	private Contract contract;
+	private Tradingday tradingday;
+	private ZonedDateTime lastUpdateDate;
+
 	/**
 	 * Creates a new instance of <code>CandleItem</code>.
 	 * 
@@ -87,8 +95,64 @@ public class CandleItem extends ComparableObjectItem {
 	 */
 	public CandleItem(Contract contract, Tradingday tradingday, RegularTimePeriod period, double open, double high,
 			double low, double close, long volume, double vwap, int count, ZonedDateTime lastUpdateDate) {
-		super(period,
-				new Candle(contract, tradingday, period, open, high, low, close, volume, vwap, count, lastUpdateDate));
+		this(new CandleStore(1), contract, tradingday, period, open, high, low, close, volume, vwap, count,
+				lastUpdateDate);
+	}
+
+	/**
+	 * Creates a new instance of <code>CandleItem</code> whose values are
+	 * appended to the store.
+	 * 
+	 * @param store
+	 *            CandleStore
+	 * @param contract
+	 *            Contract
+	 * @param tradingday
+	 *            Tradingday
+	 * @param period
+	 *            the time period.
+	 * @param open
+	 *            the open-value.
+	 * @param high
+	 *            the high-value.
+	 * @param low
+	 *            the low-value.
+	 * @param close
+	 *            the close-value.
+	 * @param volume
+	 *            the volume value.
+	 * @param vwap
+	 *            the volume weighted price.
+	 * @param count
+	 *            int
+	 * @param lastUpdateDate
+	 *            ZonedDateTime
+	 */
+	public CandleItem(CandleStore store, Contract contract, Tradingday tradingday, RegularTimePeriod period,
+			double open, double high, double low, double close, long volume, double vwap, int count,
+			ZonedDateTime lastUpdateDate) {
+		super(period, null);
+		this.store = store;
+		this.row = store.add(period.getStart().toEpochSecond(), open, high, low, close, volume, vwap, count);
+		this.contract = contract;
+		this.tradingday = tradingday;
+		this.lastUpdateDate = lastUpdateDate;
+	}
+
+	/**
+	 * Creates a new instance of <code>CandleItem</code> that is a copy of the
+	 * item with its values appended to the store. If the item's Candle has
+	 * been created it is shared with the copy.
+	 * 
+	 * @param store
+	 *            CandleStore
+	 * @param item
+	 *            CandleItem
+	 */
+	public CandleItem(CandleStore store, CandleItem item) {
+		this(store, item.contract, item.tradingday, item.getPeriod(), item.getOpen(), item.getHigh(), item.getLow(),
+				item.getClose(), item.getVolume(), item.getVwap(), item.getCount(), item.getLastUpdateDate());
+		super.setObject(item.getObject());
 	}
 
 	/**
@@ -102,13 +166,60 @@ public class CandleItem extends ComparableObjectItem {
 	}
 
 	/**
-	 * Returns the period.
+	 * Returns the Candle for this item, this is created on first use.
 	 * 
 	 * 
-	 * @return The period (never <code>null</code>).
+	 * @return The Candle (never <code>null</code>).
 	 */
 	public Candle getCandle() {
-		return (Candle) getObject();
+		Candle candle = (Candle) getObject();
+		if (null == candle) {
+			candle = new Candle(this.contract, this.tradingday, getPeriod(), getOpen(), getHigh(), getLow(), getClose(),
+					getVolume(), getVwap(), getCount(), getLastUpdateDate());
+			super.setObject(candle);
+		}
+		return candle;
+	}
+
+	/**
+	 * Method setObject. The values of the Candle replace those in the store.
+	 * 
+	 * @param y
+	 *            Object
+	 */
+	protected void setObject(Object y) {
+		super.setObject(y);
+		if (y instanceof Candle) {
+			Candle candle = (Candle) y;
+			this.store.setOpen(this.row, candle.getOpen().doubleValue());
+			this.store.setHigh(this.row, candle.getHigh().doubleValue());
+			this.store.setLow(this.row, candle.getLow().doubleValue());
+			this.store.setClose(this.row, candle.getClose().doubleValue());
+			this.store.setVwap(this.row, candle.getVwap().doubleValue());
+			this.store.setVolume(this.row, candle.getVolume());
+			this.store.setCount(this.row, candle.getTradeCount());
+			this.lastUpdateDate = candle.getLastUpdateDate();
+		}
+	}
+
+	/**
+	 * Returns the store that holds this item's values.
+	 * 
+	 * 
+	 * @return The CandleStore.
+	 */
+	public CandleStore getStore() {
+		return this.store;
+	}
+
+	/**
+	 * Returns the row in the store that holds this item's values.
+	 * 
+	 * 
+	 * @return The row.
+	 */
+	public int getRow() {
+		return this.row;
 	}
 
 	/**
@@ -128,9 +239,7 @@ public class CandleItem extends ComparableObjectItem {
 	 * @return The open value.
 	 */
 	public double getOpen() {
-		if (null != getCandle())
-			return getCandle().getOpen().doubleValue();
-		return Double.NaN;
+		return this.store.getOpen(this.row);
 	}
 
 	/**
@@ -140,9 +249,7 @@ public class CandleItem extends ComparableObjectItem {
 	 * @return The high value.
 	 */
 	public double getHigh() {
-		if (null != getCandle())
-			return getCandle().getHigh().doubleValue();
-		return Double.NaN;
+		return this.store.getHigh(this.row);
 	}
 
 	/**
@@ -152,10 +259,7 @@ public class CandleItem extends ComparableObjectItem {
 	 * @return The low value.
 	 */
 	public double getLow() {
-		if (null != getCandle())
-			return getCandle().getLow().doubleValue();
-		return Double.NaN;
-
+		return this.store.getLow(this.row);
 	}
 
 	/**
@@ -165,10 +269,7 @@ public class CandleItem extends ComparableObjectItem {
 	 * @return The close value.
 	 */
 	public double getClose() {
-		if (null != getCandle())
-			return getCandle().getClose().doubleValue();
-		return Double.NaN;
-
+		return this.store.getClose(this.row);
 	}
 
 	/**
@@ -178,9 +279,7 @@ public class CandleItem extends ComparableObjectItem {
 	 * @return The volume value.
 	 */
 	public long getVolume() {
-		if (null != getCandle())
-			return getCandle().getVolume().longValue();
-		return 0;
+		return this.store.getVolume(this.row);
 	}
 
 	/**
@@ -190,9 +289,7 @@ public class CandleItem extends ComparableObjectItem {
 	 * @return The trade count value.
 	 */
 	public int getCount() {
-		if (null != getCandle())
-			return getCandle().getTradeCount().intValue();
-		return 0;
+		return this.store.getCount(this.row);
 	}
 
 	/**
@@ -202,9 +299,7 @@ public class CandleItem extends ComparableObjectItem {
 	 * @return The Vwap value.
 	 */
 	public double getVwap() {
-		if (null != getCandle())
-			return getCandle().getVwap().doubleValue();
-		return 0;
+		return this.store.getVwap(this.row);
 	}
 
 	/**
@@ -215,7 +310,8 @@ public class CandleItem extends ComparableObjectItem {
 	 *            double
 	 */
 	public void setVwap(double vwap) {
-		if (null != getCandle())
+		this.store.setVwap(this.row, vwap);
+		if (null != getObject())
 			getCandle().setVwap(new BigDecimal(vwap));
 	}
 
@@ -227,7 +323,8 @@ public class CandleItem extends ComparableObjectItem {
 	 *            double
 	 */
 	public void setOpen(double open) {
-		if (null != getCandle())
+		this.store.setOpen(this.row, open);
+		if (null != getObject())
 			getCandle().setOpen(new BigDecimal(open));
 	}
 
@@ -239,7 +336,8 @@ public class CandleItem extends ComparableObjectItem {
 	 *            double
 	 */
 	public void setClose(double close) {
-		if (null != getCandle())
+		this.store.setClose(this.row, close);
+		if (null != getObject())
 			getCandle().setClose(new BigDecimal(close));
 	}
 
@@ -251,7 +349,8 @@ public class CandleItem extends ComparableObjectItem {
 	 *            double
 	 */
 	public void setHigh(double high) {
-		if (null != getCandle())
+		this.store.setHigh(this.row, high);
+		if (null != getObject())
 			getCandle().setHigh(new BigDecimal(high));
 	}
 
@@ -263,7 +362,8 @@ public class CandleItem extends ComparableObjectItem {
 	 *            int
 	 */
 	public void setCount(int count) {
-		if (null != getCandle())
+		this.store.setCount(this.row, count);
+		if (null != getObject())
 			getCandle().setTradeCount(new Integer(count));
 	}
 
@@ -275,7 +375,8 @@ public class CandleItem extends ComparableObjectItem {
 	 *            double
 	 */
 	public void setLow(double low) {
-		if (null != getCandle())
+		this.store.setLow(this.row, low);
+		if (null != getObject())
 			getCandle().setLow(new BigDecimal(low));
 	}
 
@@ -287,7 +388,8 @@ public class CandleItem extends ComparableObjectItem {
 	 *            long
 	 */
 	public void setVolume(long volume) {
-		if (null != getCandle())
+		this.store.setVolume(this.row, volume);
+		if (null != getObject())
 			getCandle().setVolume(new Long(volume));
 	}
 
@@ -322,7 +424,8 @@ public class CandleItem extends ComparableObjectItem {
 	 *            ZonedDateTime
 	 */
 	public void setLastUpdateDate(ZonedDateTime lastUpdateDate) {
-		if (null != getCandle())
+		this.lastUpdateDate = lastUpdateDate;
+		if (null != getObject())
 			getCandle().setLastUpdateDate(lastUpdateDate);
 	}
 
@@ -333,10 +436,7 @@ public class CandleItem extends ComparableObjectItem {
 	 * @return The lastUpdateDate value.
 	 */
 	public ZonedDateTime getLastUpdateDate() {
-		if (null != getCandle())
-			return getCandle().getLastUpdateDate();
-		return null;
-
+		return this.lastUpdateDate;
 	}
 
 	/**
@@ -346,8 +446,7 @@ public class CandleItem extends ComparableObjectItem {
 	 *            Integer
 	 */
 	public void setVersion(Integer version) {
-		if (null != getCandle())
-			getCandle().setVersion(version);
+		getCandle().setVersion(version);
 	}
 
 	/**
@@ -357,7 +456,7 @@ public class CandleItem extends ComparableObjectItem {
 	 * @return The version value.
 	 */
 	public Integer getVersion() {
-		if (null != getCandle())
+		if (null != getObject())
 			return getCandle().getVersion();
 		return null;
 
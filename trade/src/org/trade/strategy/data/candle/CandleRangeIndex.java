@@ -0,0 +1,422 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.strategy.data.candle;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Range aggregates over the candles of a series by position. Volume, trade
+ * count and the price sums are held as prefix sums so the total for a range is
+ * the difference of two entries, the price sums are compensated so the
+ * difference keeps the precision of a direct sum. Range high and low are held
+ * in segment trees. Candles are appended in series order, when a candle
+ * changes the index is truncated back to it and the candles from there
+ * appended again. Queries do not allocate.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class CandleRangeIndex implements Serializable {
+
+	private static final long serialVersionUID = -6460512413981672645L;
+
+	private static final int OPEN = 0;
+	private static final int HIGH = 1;
+	private static final int LOW = 2;
+	private static final int CLOSE = 3;
+	private static final int PRICES = 4;
+
+	private int size = 0;
+	private int capacity = 0;
+	private long[] volume;
+	private long[] count;
+	private int[] volumeCount;
+	/*
+	 * Price sums are interleaved by candle, price then volume x price for each
+	 * of open, high, low and close. Each sum is a value and its compensation.
+	 */
+	private double[] sums;
+	private double[] highTree;
+	private double[] lowTree;
+
+	/**
+	 * Default Constructor for CandleRangeIndex.
+	 */
+	public CandleRangeIndex() {
+		this(64);
+	}
+
+	/**
+	 * Constructor for CandleRangeIndex.
+	 * 
+	 * @param capacity
+	 *            int the initial number of candles.
+	 */
+	public CandleRangeIndex(int capacity) {
+		allocate(Integer.highestOneBit(Math.max(1, capacity - 1)) << 1);
+	}
+
+	/**
+	 * Method size.
+	 * 
+	 * @return int the number of candles indexed.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Method truncate. Drop the candles from the position on, they must be
+	 * added again.
+	 * 
+	 * @param size
+	 *            int
+	 */
+	public void truncate(int size) {
+		if (size < this.size) {
+			this.size = Math.max(0, size);
+		}
+	}
+
+	/**
+	 * Method add. Append the next candle in the series.
+	 * 
+	 * @param open
+	 *            double
+	 * @param high
+	 *            double
+	 * @param low
+	 *            double
+	 * @param close
+	 *            double
+	 * @param volume
+	 *            long
+	 * @param count
+	 *            int
+	 */
+	public void add(double open, double high, double low, double close, long volume, int count) {
+		if (this.size == this.capacity) {
+			grow();
+		}
+		int index = this.size++;
+		this.volume[index + 1] = this.volume[index] + volume;
+		this.count[index + 1] = this.count[index] + count;
+		this.volumeCount[index + 1] = this.volumeCount[index] + (volume > 0 ? 1 : 0);
+		int from = index * PRICES * 4;
+		int to = from + PRICES * 4;
+		addSum(from + OPEN * 4, to + OPEN * 4, open, volume);
+		addSum(from + HIGH * 4, to + HIGH * 4, high, volume);
+		addSum(from + LOW * 4, to + LOW * 4, low, volume);
+		addSum(from + CLOSE * 4, to + CLOSE * 4, close, volume);
+		setTree(this.highTree, index, high, true);
+		setTree(this.lowTree, index, low, false);
+	}
+
+	/**
+	 * Method getVolume.
+	 * 
+	 * @param from
+	 *            int the first position inclusive.
+	 * @param to
+	 *            int the last position exclusive.
+	 * @return long the total volume of the candles.
+	 */
+	public long getVolume(int from, int to) {
+		return this.volume[to] - this.volume[from];
+	}
+
+	/**
+	 * Method getCount.
+	 * 
+	 * @param from
+	 *            int the first position inclusive.
+	 * @param to
+	 *            int the last position exclusive.
+	 * @return long the total trade count of the candles.
+	 */
+	public long getCount(int from, int to) {
+		return this.count[to] - this.count[from];
+	}
+
+	/**
+	 * Method getVolumeCount.
+	 * 
+	 * @param from
+	 *            int the first position inclusive.
+	 * @param to
+	 *            int the last position exclusive.
+	 * @return int the number of candles that have volume.
+	 */
+	public int getVolumeCount(int from, int to) {
+		return this.volumeCount[to] - this.volumeCount[from];
+	}
+
+	/**
+	 * Method getSumOpen.
+	 * 
+	 * @param from
+	 *            int the first position inclusive.
+	 * @param to
+	 *            int the last position exclusive.
+	 * @param weighted
+	 *            boolean true for the sum of volume x open.
+	 * @return double
+	 */
+	public double getSumOpen(int from, int to, boolean weighted) {
+		return getSum(from, to, OPEN, weighted);
+	}
+
+	/**
+	 * Method getSumHigh.
+	 * 
+	 * @param from
+	 *            int the first position inclusive.
+	 * @param to
+	 *            int the last position exclusive.
+	 * @param weighted
+	 *            boolean true for the sum of volume x high.
+	 * @return double
+	 */
+	public double getSumHigh(int from, int to, boolean weighted) {
+		return getSum(from, to, HIGH, weighted);
+	}
+
+	/**
+	 * Method getSumLow.
+	 * 
+	 * @param from
+	 *            int the first position inclusive.
+	 * @param to
+	 *            int the last position exclusive.
+	 * @param weighted
+	 *            boolean true for the sum of volume x low.
+	 * @return double
+	 */
+	public double getSumLow(int from, int to, boolean weighted) {
+		return getSum(from, to, LOW, weighted);
+	}
+
+	/**
+	 * Method getSumClose.
+	 * 
+	 * @param from
+	 *            int the first position inclusive.
+	 * @param to
+	 *            int the last position exclusive.
+	 * @param weighted
+	 *            boolean true for the sum of volume x close.
+	 * @return double
+	 */
+	public double getSumClose(int from, int to, boolean weighted) {
+		return getSum(from, to, CLOSE, weighted);
+	}
+
+	/**
+	 * Method getHigh.
+	 * 
+	 * @param from
+	 *            int the first position inclusive.
+	 * @param to
+	 *            int the last position exclusive.
+	 * @return double the highest high of the candles.
+	 */
+	public double getHigh(int from, int to) {
+		return queryTree(this.highTree, from, to, true);
+	}
+
+	/**
+	 * Method getLow.
+	 * 
+	 * @param from
+	 *            int the first position inclusive.
+	 * @param to
+	 *            int the last position exclusive.
+	 * @return double the lowest low of the candles.
+	 */
+	public double getLow(int from, int to) {
+		return queryTree(this.lowTree, from, to, false);
+	}
+
+	/**
+	 * Method addSum. Add the price and volume x price to the prefix sums using
+	 * Neumaier's compensated summation.
+	 * 
+	 * @param prev
+	 *            int the slot of the previous sum.
+	 * @param next
+	 *            int the slot of the new sum.
+	 * @param price
+	 *            double
+	 * @param volume
+	 *            long
+	 */
+	private void addSum(int prev, int next, double price, long volume) {
+		compensatedAdd(prev, next, price);
+		compensatedAdd(prev + 2, next + 2, volume * price);
+	}
+
+	/**
+	 * Method compensatedAdd.
+	 * 
+	 * @param prev
+	 *            int the slot of the previous sum.
+	 * @param next
+	 *            int the slot of the new sum.
+	 * @param value
+	 *            double
+	 */
+	private void compensatedAdd(int prev, int next, double value) {
+		double sum = this.sums[prev];
+		double total = sum + value;
+		double error = (Math.abs(sum) >= Math.abs(value)) ? (sum - total) + value : (value - total) + sum;
+		this.sums[next] = total;
+		this.sums[next + 1] = this.sums[prev + 1] + error;
+	}
+
+	/**
+	 * Method getSum.
+	 * 
+	 * @param from
+	 *            int the first position inclusive.
+	 * @param to
+	 *            int the last position exclusive.
+	 * @param price
+	 *            int the price column.
+	 * @param weighted
+	 *            boolean
+	 * @return double
+	 */
+	private double getSum(int from, int to, int price, boolean weighted) {
+		int slot = price * 4 + (weighted ? 2 : 0);
+		int fromSlot = from * PRICES * 4 + slot;
+		int toSlot = to * PRICES * 4 + slot;
+		return (this.sums[toSlot] - this.sums[fromSlot]) + (this.sums[toSlot + 1] - this.sums[fromSlot + 1]);
+	}
+
+	/**
+	 * Method setTree. Set a leaf of the tree and update its parents.
+	 * 
+	 * @param tree
+	 *            double[]
+	 * @param index
+	 *            int
+	 * @param value
+	 *            double
+	 * @param max
+	 *            boolean true for a max tree, false for a min tree.
+	 */
+	private void setTree(double[] tree, int index, double value, boolean max) {
+		int node = index + this.capacity;
+		tree[node] = value;
+		for (node >>= 1; node > 0; node >>= 1) {
+			double left = tree[node << 1];
+			double right = tree[(node << 1) + 1];
+			tree[node] = max ? Math.max(left, right) : Math.min(left, right);
+		}
+	}
+
+	/**
+	 * Method queryTree.
+	 * 
+	 * @param tree
+	 *            double[]
+	 * @param from
+	 *            int the first position inclusive.
+	 * @param to
+	 *            int the last position exclusive.
+	 * @param max
+	 *            boolean true for a max tree, false for a min tree.
+	 * @return double
+	 */
+	private double queryTree(double[] tree, int from, int to, boolean max) {
+		double result = max ? -Double.MAX_VALUE : Double.MAX_VALUE;
+		for (int left = from + this.capacity, right = to + this.capacity; left < right; left >>= 1, right >>= 1) {
+			if ((left & 1) == 1) {
+				result = max ? Math.max(result, tree[left++]) : Math.min(result, tree[left++]);
+			}
+			if ((right & 1) == 1) {
+				result = max ? Math.max(result, tree[--right]) : Math.min(result, tree[--right]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Method allocate.
+	 * 
+	 * @param capacity
+	 *            int a power of two.
+	 */
+	private void allocate(int capacity) {
+		this.capacity = capacity;
+		this.volume = new long[capacity + 1];
+		this.count = new long[capacity + 1];
+		this.volumeCount = new int[capacity + 1];
+		this.sums = new double[(capacity + 1) * PRICES * 4];
+		this.highTree = new double[capacity * 2];
+		this.lowTree = new double[capacity * 2];
+		Arrays.fill(this.highTree, -Double.MAX_VALUE);
+		Arrays.fill(this.lowTree, Double.MAX_VALUE);
+	}
+
+	/**
+	 * Method grow. Double the capacity, the trees are rebuilt from their
+	 * leaves.
+	 */
+	private void grow() {
+		int oldCapacity = this.capacity;
+		long[] oldVolume = this.volume;
+		long[] oldCount = this.count;
+		int[] oldVolumeCount = this.volumeCount;
+		double[] oldSums = this.sums;
+		double[] oldHighTree = this.highTree;
+		double[] oldLowTree = this.lowTree;
+		allocate(oldCapacity * 2);
+		System.arraycopy(oldVolume, 0, this.volume, 0, oldVolume.length);
+		System.arraycopy(oldCount, 0, this.count, 0, oldCount.length);
+		System.arraycopy(oldVolumeCount, 0, this.volumeCount, 0, oldVolumeCount.length);
+		System.arraycopy(oldSums, 0, this.sums, 0, oldSums.length);
+		for (int i = 0; i < this.size; i++) {
+			this.highTree[this.capacity + i] = oldHighTree[oldCapacity + i];
+			this.lowTree[this.capacity + i] = oldLowTree[oldCapacity + i];
+		}
+		for (int node = this.capacity - 1; node > 0; node--) {
+			this.highTree[node] = Math.max(this.highTree[node << 1], this.highTree[(node << 1) + 1]);
+			this.lowTree[node] = Math.min(this.lowTree[node << 1], this.lowTree[(node << 1) + 1]);
+		}
+	}
+}
@@ -0,0 +1,369 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.strategy.data.candle;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Columnar store of candle values. Each column is a primitive array so a
+ * candle costs 60 bytes rather than a Candle entity with its BigDecimals and
+ * dates. Rows are appended and never move, a CandleItem is a view onto one row
+ * of the store.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class CandleStore implements Serializable {
+
+	private static final long serialVersionUID = -2745513095839611254L;
+
+	private static final int DEFAULT_CAPACITY = 64;
+
+	private long[] time;
+	private double[] open;
+	private double[] high;
+	private double[] low;
+	private double[] close;
+	private double[] vwap;
+	private long[] volume;
+	private int[] count;
+	private int size = 0;
+	private int modifiedRow = Integer.MAX_VALUE;
+
+	/**
+	 * Default Constructor for CandleStore.
+	 */
+	public CandleStore() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor for CandleStore.
+	 * 
+	 * @param capacity
+	 *            int the initial number of rows.
+	 */
+	public CandleStore(int capacity) {
+		capacity = Math.max(1, capacity);
+		this.time = new long[capacity];
+		this.open = new double[capacity];
+		this.high = new double[capacity];
+		this.low = new double[capacity];
+		this.close = new double[capacity];
+		this.vwap = new double[capacity];
+		this.volume = new long[capacity];
+		this.count = new int[capacity];
+	}
+
+	/**
+	 * Method add. Append a row to the store.
+	 * 
+	 * @param time
+	 *            long the period start in epoch seconds.
+	 * @param open
+	 *            double
+	 * @param high
+	 *            double
+	 * @param low
+	 *            double
+	 * @param close
+	 *            double
+	 * @param volume
+	 *            long
+	 * @param vwap
+	 *            double
+	 * @param count
+	 *            int
+	 * @return int the row index.
+	 */
+	public int add(long time, double open, double high, double low, double close, long volume, double vwap,
+			int count) {
+		if (this.size == this.time.length) {
+			grow();
+		}
+		int row = this.size++;
+		this.time[row] = time;
+		this.open[row] = open;
+		this.high[row] = high;
+		this.low[row] = low;
+		this.close[row] = close;
+		this.vwap[row] = vwap;
+		this.volume[row] = volume;
+		this.count[row] = count;
+		return row;
+	}
+
+	/**
+	 * Method size.
+	 * 
+	 * @return int the number of rows.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Method clear. Remove all rows, the capacity is kept.
+	 */
+	public void clear() {
+		this.size = 0;
+		this.modifiedRow = Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Method getModifiedRow.
+	 * 
+	 * @return int the lowest row changed since the last call to
+	 *         clearModifiedRow or Integer.MAX_VALUE if none.
+	 */
+	public int getModifiedRow() {
+		return this.modifiedRow;
+	}
+
+	/**
+	 * Method clearModifiedRow.
+	 */
+	public void clearModifiedRow() {
+		this.modifiedRow = Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Method modified. Track the lowest row changed.
+	 * 
+	 * @param row
+	 *            int
+	 */
+	private void modified(int row) {
+		if (row < this.modifiedRow) {
+			this.modifiedRow = row;
+		}
+	}
+
+	/**
+	 * Method getTime.
+	 * 
+	 * @param row
+	 *            int
+	 * @return long the period start in epoch seconds.
+	 */
+	public long getTime(int row) {
+		return this.time[row];
+	}
+
+	/**
+	 * Method getOpen.
+	 * 
+	 * @param row
+	 *            int
+	 * @return double
+	 */
+	public double getOpen(int row) {
+		return this.open[row];
+	}
+
+	/**
+	 * Method setOpen.
+	 * 
+	 * @param row
+	 *            int
+	 * @param open
+	 *            double
+	 */
+	public void setOpen(int row, double open) {
+		this.open[row] = open;
+		modified(row);
+	}
+
+	/**
+	 * Method getHigh.
+	 * 
+	 * @param row
+	 *            int
+	 * @return double
+	 */
+	public double getHigh(int row) {
+		return this.high[row];
+	}
+
+	/**
+	 * Method setHigh.
+	 * 
+	 * @param row
+	 *            int
+	 * @param high
+	 *            double
+	 */
+	public void setHigh(int row, double high) {
+		this.high[row] = high;
+		modified(row);
+	}
+
+	/**
+	 * Method getLow.
+	 * 
+	 * @param row
+	 *            int
+	 * @return double
+	 */
+	public double getLow(int row) {
+		return this.low[row];
+	}
+
+	/**
+	 * Method setLow.
+	 * 
+	 * @param row
+	 *            int
+	 * @param low
+	 *            double
+	 */
+	public void setLow(int row, double low) {
+		this.low[row] = low;
+		modified(row);
+	}
+
+	/**
+	 * Method getClose.
+	 * 
+	 * @param row
+	 *            int
+	 * @return double
+	 */
+	public double getClose(int row) {
+		return this.close[row];
+	}
+
+	/**
+	 * Method setClose.
+	 * 
+	 * @param row
+	 *            int
+	 * @param close
+	 *            double
+	 */
+	public void setClose(int row, double close) {
+		this.close[row] = close;
+		modified(row);
+	}
+
+	/**
+	 * Method getVwap.
+	 * 
+	 * @param row
+	 *            int
+	 * @return double
+	 */
+	public double getVwap(int row) {
+		return this.vwap[row];
+	}
+
+	/**
+	 * Method setVwap.
+	 * 
+	 * @param row
+	 *            int
+	 * @param vwap
+	 *            double
+	 */
+	public void setVwap(int row, double vwap) {
+		this.vwap[row] = vwap;
+		modified(row);
+	}
+
+	/**
+	 * Method getVolume.
+	 * 
+	 * @param row
+	 *            int
+	 * @return long
+	 */
+	public long getVolume(int row) {
+		return this.volume[row];
+	}
+
+	/**
+	 * Method setVolume.
+	 * 
+	 * @param row
+	 *            int
+	 * @param volume
+	 *            long
+	 */
+	public void setVolume(int row, long volume) {
+		this.volume[row] = volume;
+		modified(row);
+	}
+
+	/**
+	 * Method getCount.
+	 * 
+	 * @param row
+	 *            int
+	 * @return int
+	 */
+	public int getCount(int row) {
+		return this.count[row];
+	}
+
+	/**
+	 * Method setCount.
+	 * 
+	 * @param row
+	 *            int
+	 * @param count
+	 *            int
+	 */
+	public void setCount(int row, int count) {
+		this.count[row] = count;
+		modified(row);
+	}
+
+	/**
+	 * Method grow. Increase the capacity of every column by half.
+	 */
+	private void grow() {
+		int capacity = this.time.length + (this.time.length >> 1) + 1;
+		this.time = Arrays.copyOf(this.time, capacity);
+		this.open = Arrays.copyOf(this.open, capacity);
+		this.high = Arrays.copyOf(this.high, capacity);
+		this.low = Arrays.copyOf(this.low, capacity);
+		this.close = Arrays.copyOf(this.close, capacity);
+		this.vwap = Arrays.copyOf(this.vwap, capacity);
+		this.volume = Arrays.copyOf(this.volume, capacity);
+		this.count = Arrays.copyOf(this.count, capacity);
+	}
+}
@@ -53,7 +53,7 @@ public class CommodityChannelIndex implements java.io.Serializable {
 	 */
 	private static final long serialVersionUID = 7644763985378994305L;
 
-	private BigDecimal cciAverage;
+	private double cciAverage = Double.NaN;
 
 	public CommodityChannelIndex() {
 	}
@@ -65,6 +65,16 @@ public class CommodityChannelIndex implements java.io.Serializable {
 	 *            BigDecimal
 	 */
 	public CommodityChannelIndex(BigDecimal cciAverage) {
+		this.cciAverage = (null == cciAverage ? Double.NaN : cciAverage.doubleValue());
+	}
+
+	/**
+	 * Constructor for CommodityChannelIndex.
+	 * 
+	 * @param cciAverage
+	 *            double
+	 */
+	public CommodityChannelIndex(double cciAverage) {
 		this.cciAverage = cciAverage;
 	}
 
@@ -74,7 +84,7 @@ public class CommodityChannelIndex implements java.io.Serializable {
 	 * @return BigDecimal
 	 */
 	public BigDecimal getCommodityChannelIndex() {
-		return this.cciAverage;
+		return (Double.isNaN(this.cciAverage) ? null : new BigDecimal(this.cciAverage));
 	}
 
 	/**
@@ -84,7 +94,25 @@ public class CommodityChannelIndex implements java.io.Serializable {
 	 *            BigDecimal
 	 */
 	public void setCommodityChannelIndex(BigDecimal cciAverage) {
-		this.cciAverage = cciAverage;
+		this.cciAverage = (null == cciAverage ? Double.NaN : cciAverage.doubleValue());
+	}
+
+	/**
+	 * Method getCommodityChannelIndexValue.
+	 * 
+	 * @return double the value or Double.NaN if not set.
+	 */
+	public double getCommodityChannelIndexValue() {
+		return this.cciAverage;
 	}
 
+	/**
+	 * Method setCommodityChannelIndex.
+	 * 
+	 * @param cciAverage
+	 *            double
+	 */
+	public void setCommodityChannelIndex(double cciAverage) {
+		this.cciAverage = cciAverage;
+	}
 }
@@ -68,6 +68,18 @@ public class CommodityChannelIndexItem extends ComparableObjectItem {
 		super(period, new CommodityChannelIndex(cciAverage));
 	}
 
+	/**
+	 * Creates a new instance of <code>CommodityChannelIndexItem</code>.
+	 * 
+	 * @param period
+	 *            the time period.
+	 * @param cciAverage
+	 *            double
+	 */
+	public CommodityChannelIndexItem(RegularTimePeriod period, double cciAverage) {
+		super(period, new CommodityChannelIndex(cciAverage));
+	}
+
 	/**
 	 * Returns the period.
 	 * 
@@ -98,7 +110,7 @@ public class CommodityChannelIndexItem extends ComparableObjectItem {
 	public void setCommodityChannelIndex(double cciAverage) {
 		CommodityChannelIndex dataItem = (CommodityChannelIndex) getObject();
 		if (dataItem != null) {
-			dataItem.setCommodityChannelIndex(new BigDecimal(cciAverage));
+			dataItem.setCommodityChannelIndex(cciAverage);
 		}
 
 	}
@@ -112,10 +124,10 @@ public class CommodityChannelIndexItem extends ComparableObjectItem {
 	public double getCommodityChannelIndex() {
 		CommodityChannelIndex dataItem = (CommodityChannelIndex) getObject();
 		if (dataItem != null) {
-			if (null == dataItem.getCommodityChannelIndex()) {
+			if (Double.isNaN(dataItem.getCommodityChannelIndexValue())) {
 				return 0;
 			}
-			return dataItem.getCommodityChannelIndex().doubleValue();
+			return dataItem.getCommodityChannelIndexValue();
 		} else {
 			return 0;
 		}
@@ -53,9 +53,9 @@ public class MACD implements java.io.Serializable {
 	 */
 	private static final long serialVersionUID = 7644763985378994305L;
 
-	private BigDecimal MACD;
-	private BigDecimal signalLine;
-	private BigDecimal MACDHistogram;
+	private double MACD = Double.NaN;
+	private double signalLine = Double.NaN;
+	private double MACDHistogram = Double.NaN;
 
 	public MACD() {
 	}
@@ -67,6 +67,22 @@ public class MACD implements java.io.Serializable {
 	 *            BigDecimal
 	 */
 	public MACD(BigDecimal MACD, BigDecimal signalLine, BigDecimal MACDHistogram) {
+		this.MACD = (null == MACD ? Double.NaN : MACD.doubleValue());
+		this.signalLine = (null == signalLine ? Double.NaN : signalLine.doubleValue());
+		this.MACDHistogram = (null == MACDHistogram ? Double.NaN : MACDHistogram.doubleValue());
+	}
+
+	/**
+	 * Constructor for MACD.
+	 * 
+	 * @param MACD
+	 *            double
+	 * @param signalLine
+	 *            double
+	 * @param MACDHistogram
+	 *            double
+	 */
+	public MACD(double MACD, double signalLine, double MACDHistogram) {
 		this.MACD = MACD;
 		this.signalLine = signalLine;
 		this.MACDHistogram = MACDHistogram;
@@ -78,7 +94,7 @@ public class MACD implements java.io.Serializable {
 	 * @return BigDecimal
 	 */
 	public BigDecimal getMACD() {
-		return this.MACD;
+		return (Double.isNaN(this.MACD) ? null : new BigDecimal(this.MACD));
 	}
 
 	/**
@@ -88,7 +104,7 @@ public class MACD implements java.io.Serializable {
 	 *            BigDecimal
 	 */
 	public void setMACD(BigDecimal MACD) {
-		this.MACD = MACD;
+		this.MACD = (null == MACD ? Double.NaN : MACD.doubleValue());
 	}
 
 	/**
@@ -97,7 +113,7 @@ public class MACD implements java.io.Serializable {
 	 * @return BigDecimal
 	 */
 	public BigDecimal getSignalLine() {
-		return this.signalLine;
+		return (Double.isNaN(this.signalLine) ? null : new BigDecimal(this.signalLine));
 	}
 
 	/**
@@ -107,7 +123,7 @@ public class MACD implements java.io.Serializable {
 	 *            BigDecimal
 	 */
 	public void setSignalLine(BigDecimal signalLine) {
-		this.signalLine = signalLine;
+		this.signalLine = (null == signalLine ? Double.NaN : signalLine.doubleValue());
 	}
 
 	/**
@@ -116,7 +132,7 @@ public class MACD implements java.io.Serializable {
 	 * @return BigDecimal
 	 */
 	public BigDecimal getMACDHistogram() {
-		return this.MACDHistogram;
+		return (Double.isNaN(this.MACDHistogram) ? null : new BigDecimal(this.MACDHistogram));
 	}
 
 	/**
@@ -126,6 +142,63 @@ public class MACD implements java.io.Serializable {
 	 *            BigDecimal
 	 */
 	public void setMACDHistogram(BigDecimal MACDHistogram) {
+		this.MACDHistogram = (null == MACDHistogram ? Double.NaN : MACDHistogram.doubleValue());
+	}
+
+	/**
+	 * Method getMACDValue.
+	 * 
+	 * @return double the value or Double.NaN if not set.
+	 */
+	public double getMACDValue() {
+		return this.MACD;
+	}
+
+	/**
+	 * Method setMACD.
+	 * 
+	 * @param MACD
+	 *            double
+	 */
+	public void setMACD(double MACD) {
+		this.MACD = MACD;
+	}
+
+	/**
+	 * Method getSignalLineValue.
+	 * 
+	 * @return double the value or Double.NaN if not set.
+	 */
+	public double getSignalLineValue() {
+		return this.signalLine;
+	}
+
+	/**
+	 * Method setSignalLine.
+	 * 
+	 * @param signalLine
+	 *            double
+	 */
+	public void setSignalLine(double signalLine) {
+		this.signalLine = signalLine;
+	}
+
+	/**
+	 * Method getMACDHistogramValue.
+	 * 
+	 * @return double the value or Double.NaN if not set.
+	 */
+	public double getMACDHistogramValue() {
+		return this.MACDHistogram;
+	}
+
+	/**
+	 * Method setMACDHistogram.
+	 * 
+	 * @param MACDHistogram
+	 *            double
+	 */
+	public void setMACDHistogram(double MACDHistogram) {
 		this.MACDHistogram = MACDHistogram;
 	}
 }
@@ -68,6 +68,22 @@ public class MACDItem extends ComparableObjectItem {
 		super(period, new MACD(MACD, signalLine, MACDHistogram));
 	}
 
+	/**
+	 * Creates a new instance of <code>MACDItem</code>.
+	 * 
+	 * @param period
+	 *            the time period.
+	 * @param MACD
+	 *            double
+	 * @param signalLine
+	 *            double
+	 * @param MACDHistogram
+	 *            double
+	 */
+	public MACDItem(RegularTimePeriod period, double MACD, double signalLine, double MACDHistogram) {
+		super(period, new MACD(MACD, signalLine, MACDHistogram));
+	}
+
 	/**
 	 * Returns the period.
 	 * 
@@ -98,7 +114,7 @@ public class MACDItem extends ComparableObjectItem {
 	public void setMACD(double MACD) {
 		MACD dataItem = (MACD) getObject();
 		if (dataItem != null) {
-			dataItem.setMACD(new BigDecimal(MACD));
+			dataItem.setMACD(MACD);
 		}
 
 	}
@@ -112,10 +128,10 @@ public class MACDItem extends ComparableObjectItem {
 	public double getMACD() {
 		MACD dataItem = (MACD) getObject();
 		if (dataItem != null) {
-			if (null == dataItem.getMACD()) {
+			if (Double.isNaN(dataItem.getMACDValue())) {
 				return 0;
 			}
-			return dataItem.getMACD().doubleValue();
+			return dataItem.getMACDValue();
 		} else {
 			return 0;
 		}
@@ -131,7 +147,7 @@ public class MACDItem extends ComparableObjectItem {
 	public void setSignalLine(double SignalLine) {
 		MACD dataItem = (MACD) getObject();
 		if (dataItem != null) {
-			dataItem.setSignalLine(new BigDecimal(SignalLine));
+			dataItem.setSignalLine(SignalLine);
 		}
 
 	}
@@ -145,10 +161,10 @@ public class MACDItem extends ComparableObjectItem {
 	public double getSignalLine() {
 		MACD dataItem = (MACD) getObject();
 		if (dataItem != null) {
-			if (null == dataItem.getSignalLine()) {
+			if (Double.isNaN(dataItem.getSignalLineValue())) {
 				return 0;
 			}
-			return dataItem.getSignalLine().doubleValue();
+			return dataItem.getSignalLineValue();
 		} else {
 			return 0;
 		}
@@ -164,7 +180,7 @@ public class MACDItem extends ComparableObjectItem {
 	public void setMACDHistogram(double MACD) {
 		MACD dataItem = (MACD) getObject();
 		if (dataItem != null) {
-			dataItem.setMACDHistogram(new BigDecimal(MACD));
+			dataItem.setMACDHistogram(MACD);
 		}
 
 	}
@@ -178,10 +194,10 @@ public class MACDItem extends ComparableObjectItem {
 	public double getMACDHistogram() {
 		MACD dataItem = (MACD) getObject();
 		if (dataItem != null) {
-			if (null == dataItem.getMACDHistogram()) {
+			if (Double.isNaN(dataItem.getMACDHistogramValue())) {
 				return 0;
 			}
-			return dataItem.getMACDHistogram().doubleValue();
+			return dataItem.getMACDHistogramValue();
 		} else {
 			return 0;
 		}
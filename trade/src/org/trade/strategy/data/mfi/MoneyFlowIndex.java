@@ -53,7 +53,7 @@ public class MoneyFlowIndex implements java.io.Serializable {
 	 */
 	private static final long serialVersionUID = 7644763985378994305L;
 
-	private BigDecimal moneyFlowIndex;
+	private double moneyFlowIndex = Double.NaN;
 
 	public MoneyFlowIndex() {
 	}
@@ -65,6 +65,16 @@ public class MoneyFlowIndex implements java.io.Serializable {
 	 *            BigDecimal
 	 */
 	public MoneyFlowIndex(BigDecimal moneyFlowIndex) {
+		this.moneyFlowIndex = (null == moneyFlowIndex ? Double.NaN : moneyFlowIndex.doubleValue());
+	}
+
+	/**
+	 * Constructor for MoneyFlowIndex.
+	 * 
+	 * @param moneyFlowIndex
+	 *            double
+	 */
+	public MoneyFlowIndex(double moneyFlowIndex) {
 		this.moneyFlowIndex = moneyFlowIndex;
 	}
 
@@ -74,7 +84,7 @@ public class MoneyFlowIndex implements java.io.Serializable {
 	 * @return BigDecimal
 	 */
 	public BigDecimal getMoneyFlowIndex() {
-		return this.moneyFlowIndex;
+		return (Double.isNaN(this.moneyFlowIndex) ? null : new BigDecimal(this.moneyFlowIndex));
 	}
 
 	/**
@@ -84,7 +94,25 @@ public class MoneyFlowIndex implements java.io.Serializable {
 	 *            BigDecimal
 	 */
 	public void setMoneyFlowIndex(BigDecimal moneyFlowIndex) {
-		this.moneyFlowIndex = moneyFlowIndex;
+		this.moneyFlowIndex = (null == moneyFlowIndex ? Double.NaN : moneyFlowIndex.doubleValue());
+	}
+
+	/**
+	 * Method getMoneyFlowIndexValue.
+	 * 
+	 * @return double the value or Double.NaN if not set.
+	 */
+	public double getMoneyFlowIndexValue() {
+		return this.moneyFlowIndex;
 	}
 
+	/**
+	 * Method setMoneyFlowIndex.
+	 * 
+	 * @param moneyFlowIndex
+	 *            double
+	 */
+	public void setMoneyFlowIndex(double moneyFlowIndex) {
+		this.moneyFlowIndex = moneyFlowIndex;
+	}
 }
@@ -67,6 +67,18 @@ public class MoneyFlowIndexItem extends ComparableObjectItem {
 		super(period, new MoneyFlowIndex(moneyFlowIndex));
 	}
 
+	/**
+	 * Creates a new instance of <code>MoneyFlowIndexItem</code>.
+	 * 
+	 * @param period
+	 *            the time period.
+	 * @param moneyFlowIndex
+	 *            double
+	 */
+	public MoneyFlowIndexItem(RegularTimePeriod period, double moneyFlowIndex) {
+		super(period, new MoneyFlowIndex(moneyFlowIndex));
+	}
+
 	/**
 	 * Returns the period.
 	 * 
@@ -97,7 +109,7 @@ public class MoneyFlowIndexItem extends ComparableObjectItem {
 	public void setMoneyFlowIndex(double moneyFlowIndex) {
 		MoneyFlowIndex dataItem = (MoneyFlowIndex) getObject();
 		if (dataItem != null) {
-			dataItem.setMoneyFlowIndex(new BigDecimal(moneyFlowIndex));
+			dataItem.setMoneyFlowIndex(moneyFlowIndex);
 		}
 
 	}
@@ -110,10 +122,10 @@ public class MoneyFlowIndexItem extends ComparableObjectItem {
 	public double getMoneyFlowIndex() {
 		MoneyFlowIndex dataItem = (MoneyFlowIndex) getObject();
 		if (dataItem != null) {
-			if (null == dataItem.getMoneyFlowIndex()) {
+			if (Double.isNaN(dataItem.getMoneyFlowIndexValue())) {
 				return 0;
 			}
-			return dataItem.getMoneyFlowIndex().doubleValue();
+			return dataItem.getMoneyFlowIndexValue();
 		} else {
 			return 0;
 		}
@@ -53,7 +53,7 @@ public class MovingAverage implements java.io.Serializable {
 	 */
 	private static final long serialVersionUID = 7644763985378994305L;
 
-	private BigDecimal movingAverage;
+	private double movingAverage = Double.NaN;
 
 	public MovingAverage() {
 	}
@@ -65,6 +65,16 @@ public class MovingAverage implements java.io.Serializable {
 	 *            BigDecimal
 	 */
 	public MovingAverage(BigDecimal movingAverage) {
+		this.movingAverage = (null == movingAverage ? Double.NaN : movingAverage.doubleValue());
+	}
+
+	/**
+	 * Constructor for MovingAverage.
+	 * 
+	 * @param movingAverage
+	 *            double
+	 */
+	public MovingAverage(double movingAverage) {
 		this.movingAverage = movingAverage;
 	}
 
@@ -74,7 +84,7 @@ public class MovingAverage implements java.io.Serializable {
 	 * @return BigDecimal
 	 */
 	public BigDecimal getMovingAverage() {
-		return this.movingAverage;
+		return (Double.isNaN(this.movingAverage) ? null : new BigDecimal(this.movingAverage));
 	}
 
 	/**
@@ -84,6 +94,25 @@ public class MovingAverage implements java.io.Serializable {
 	 *            BigDecimal
 	 */
 	public void setMovingAverage(BigDecimal movingAverage) {
+		this.movingAverage = (null == movingAverage ? Double.NaN : movingAverage.doubleValue());
+	}
+
+	/**
+	 * Method getMovingAverageValue.
+	 * 
+	 * @return double the value or Double.NaN if not set.
+	 */
+	public double getMovingAverageValue() {
+		return this.movingAverage;
+	}
+
+	/**
+	 * Method setMovingAverage.
+	 * 
+	 * @param movingAverage
+	 *            double
+	 */
+	public void setMovingAverage(double movingAverage) {
 		this.movingAverage = movingAverage;
 	}
 }
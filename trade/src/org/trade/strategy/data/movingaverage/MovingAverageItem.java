@@ -67,6 +67,18 @@ public class MovingAverageItem extends ComparableObjectItem {
 		super(period, new MovingAverage(movingAverage));
 	}
 
+	/**
+	 * Creates a new instance of <code>MovingAverageItem</code>.
+	 * 
+	 * @param period
+	 *            the time period.
+	 * @param movingAverage
+	 *            double
+	 */
+	public MovingAverageItem(RegularTimePeriod period, double movingAverage) {
+		super(period, new MovingAverage(movingAverage));
+	}
+
 	/**
 	 * Returns the period.
 	 * 
@@ -95,7 +107,7 @@ public class MovingAverageItem extends ComparableObjectItem {
 	public void setMovingAverage(double movingAverage) {
 		MovingAverage dataItem = (MovingAverage) getObject();
 		if (dataItem != null) {
-			dataItem.setMovingAverage(new BigDecimal(movingAverage));
+			dataItem.setMovingAverage(movingAverage);
 		}
 	}
 
@@ -107,10 +119,10 @@ public class MovingAverageItem extends ComparableObjectItem {
 	public double getMovingAverage() {
 		MovingAverage dataItem = (MovingAverage) getObject();
 		if (dataItem != null) {
-			if (null == dataItem.getMovingAverage()) {
+			if (Double.isNaN(dataItem.getMovingAverageValue())) {
 				return 0;
 			}
-			return dataItem.getMovingAverage().doubleValue();
+			return dataItem.getMovingAverageValue();
 		} else {
 			return 0;
 		}
@@ -42,8 +42,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.trade.core.util.MatrixFunctions;
 import org.trade.core.util.Pair;
+import org.trade.core.util.PolynomialFitter;
 
 /**
+ * Fits a polynomial to the vwap of the last n bars. Each calculator holds its
+ * own PolynomialFitter so the window slides one bar at a time without any
+ * shared state, a calculator should only be used by one series.
+ * 
  * @author Simon Allen
  * 
  * @version $Revision: 1.0 $
@@ -52,19 +57,109 @@ public class PivotCalculator {
 
 	private final static Logger _log = LoggerFactory.getLogger(PivotCalculator.class);
 
-	private static int _polyOrder = 2; // default order
-	private static double _minCorrelationCoeff = 0.6;
+	private final int polyOrder;
+	private final double minCorrelationCoeff;
+	private PolynomialFitter fitter = null;
 
+	/**
+	 * Constructor for PivotCalculator.
+	 * 
+	 * @param polyOrder
+	 *            int
+	 * @param minCorrelationCoeff
+	 *            double
+	 */
 	public PivotCalculator(int polyOrder, double minCorrelationCoeff) {
-		_polyOrder = polyOrder;
-		_minCorrelationCoeff = minCorrelationCoeff;
+		this.polyOrder = polyOrder;
+		this.minCorrelationCoeff = minCorrelationCoeff;
 	}
 
 	/**
-	 * Method calculatePivot.
+	 * Method add. Adds a point to the window of bars, once the window holds
+	 * the given number of bars the oldest point is removed.
 	 * 
-	 * @param userDataVector
-	 *            Hashtable<Long,Pair>
+	 * @param x
+	 *            double
+	 * @param y
+	 *            double
+	 * @param bars
+	 *            int the size of the window.
+	 */
+	public void add(double x, double y, int bars) {
+		if (null == fitter || fitter.getCapacity() != bars) {
+			fitter = new PolynomialFitter(polyOrder, bars);
+		}
+		fitter.add(x, y);
+	}
+
+	/**
+	 * Method clear. Removes all the points from the window.
+	 */
+	public void clear() {
+		if (null != fitter) {
+			fitter.clear();
+		}
+	}
+
+	/**
+	 * Method size.
+	 * 
+	 * @return int the number of points in the window.
+	 */
+	public int size() {
+		return (null == fitter ? 0 : fitter.size());
+	}
+
+	/**
+	 * Method getLastX.
+	 * 
+	 * @return double the x value of the newest point in the window or NaN if
+	 *         the window is empty.
+	 */
+	public double getLastX() {
+		return (size() == 0 ? Double.NaN : fitter.getX(fitter.size() - 1));
+	}
+
+	/**
+	 * Method calculatePivot. Fits the curve to the points in the window.
+	 * 
+	 * @return boolean true if the correlation coefficient is greater than the
+	 *         minimum in which case fx() returns the points on the curve.
+	 */
+	public boolean calculatePivot() {
+
+		if (size() > 1 && fitter.solve()) {
+			double correlationCoeff = fitter.getCorrelationCoefficient();
+			if (correlationCoeff > minCorrelationCoeff) {
+				if (_log.isDebugEnabled()) {
+					_log.debug("Pivot Calc: " + MatrixFunctions.toPrint(polyOrder, correlationCoeff,
+							fitter.getStandardError(), fitter.getTerms(), fitter.size()) + " Origin: "
+							+ fitter.getOrigin());
+				}
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Method fx. The y value on the curve of the last calculatePivot().
+	 * 
+	 * @param x
+	 *            double
+	 * @return double
+	 */
+	public double fx(double x) {
+		return fitter.fx(x);
+	}
+
+	/**
+	 * Method calculatePivot. Fits the curve to the pairs and when the
+	 * correlation coefficient is greater than the minimum replaces the y
+	 * values with the points on the curve.
+	 * 
+	 * @param pairs
+	 *            List<Pair>
 	 * @return boolean
 	 */
 	public boolean calculatePivot(List<Pair> pairs) {
@@ -75,18 +170,21 @@ public class PivotCalculator {
 
 		int size = pairs.size();
 		if (size > 1) {
-			Pair[] userData = pairs.toArray(new Pair[] {});
-			double[] terms = MatrixFunctions.getCalculatedCoeffients(userData, _polyOrder);
-			double correlationCoeff = MatrixFunctions.getCorrelationCoefficient(userData, terms);
-			double standardError = MatrixFunctions.getStandardError(userData, terms);
-			if (correlationCoeff > _minCorrelationCoeff) {
+			PolynomialFitter pairsFitter = new PolynomialFitter(polyOrder, size);
+			for (Pair pair : pairs) {
+				pairsFitter.add(pair.x, pair.y);
+			}
+			pairsFitter.solve();
+			double correlationCoeff = pairsFitter.getCorrelationCoefficient();
+			if (correlationCoeff > minCorrelationCoeff) {
 				isPivot = true;
-				String output = MatrixFunctions.toPrint(_polyOrder, correlationCoeff, standardError, terms,
-						userData.length);
-				_log.debug("Pivot Calc: " + output);
+				if (_log.isDebugEnabled()) {
+					_log.debug("Pivot Calc: " + MatrixFunctions.toPrint(polyOrder, correlationCoeff,
+							pairsFitter.getStandardError(), pairsFitter.getTerms(), size) + " Origin: "
+							+ pairsFitter.getOrigin());
+				}
 				for (Pair pair : pairs) {
-					double y = MatrixFunctions.fx(pair.x, terms);
-					pair.y = y;
+					pair.y = pairsFitter.fx(pair.x);
 				}
 			}
 		}
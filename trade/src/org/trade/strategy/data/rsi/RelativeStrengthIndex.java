@@ -53,7 +53,7 @@ public class RelativeStrengthIndex implements java.io.Serializable {
 	 */
 	private static final long serialVersionUID = 7644763985378994305L;
 
-	private BigDecimal relativeStrengthIndex;
+	private double relativeStrengthIndex = Double.NaN;
 
 	public RelativeStrengthIndex() {
 	}
@@ -65,6 +65,16 @@ public class RelativeStrengthIndex implements java.io.Serializable {
 	 *            BigDecimal
 	 */
 	public RelativeStrengthIndex(BigDecimal relativeStrengthIndex) {
+		this.relativeStrengthIndex = (null == relativeStrengthIndex ? Double.NaN : relativeStrengthIndex.doubleValue());
+	}
+
+	/**
+	 * Constructor for RelativeStrengthIndex.
+	 * 
+	 * @param relativeStrengthIndex
+	 *            double
+	 */
+	public RelativeStrengthIndex(double relativeStrengthIndex) {
 		this.relativeStrengthIndex = relativeStrengthIndex;
 	}
 
@@ -74,7 +84,7 @@ public class RelativeStrengthIndex implements java.io.Serializable {
 	 * @return BigDecimal
 	 */
 	public BigDecimal getRelativeStrengthIndex() {
-		return this.relativeStrengthIndex;
+		return (Double.isNaN(this.relativeStrengthIndex) ? null : new BigDecimal(this.relativeStrengthIndex));
 	}
 
 	/**
@@ -84,6 +94,25 @@ public class RelativeStrengthIndex implements java.io.Serializable {
 	 *            BigDecimal
 	 */
 	public void setRelativeStrengthIndex(BigDecimal relativeStrengthIndex) {
+		this.relativeStrengthIndex = (null == relativeStrengthIndex ? Double.NaN : relativeStrengthIndex.doubleValue());
+	}
+
+	/**
+	 * Method getRelativeStrengthIndexValue.
+	 * 
+	 * @return double the value or Double.NaN if not set.
+	 */
+	public double getRelativeStrengthIndexValue() {
+		return this.relativeStrengthIndex;
+	}
+
+	/**
+	 * Method setRelativeStrengthIndex.
+	 * 
+	 * @param relativeStrengthIndex
+	 *            double
+	 */
+	public void setRelativeStrengthIndex(double relativeStrengthIndex) {
 		this.relativeStrengthIndex = relativeStrengthIndex;
 	}
 }
@@ -66,6 +66,18 @@ public class RelativeStrengthIndexItem extends ComparableObjectItem {
 		super(period, new RelativeStrengthIndex(relativeStrengthIndex));
 	}
 
+	/**
+	 * Creates a new instance of <code>RelativeStrengthIndexItem</code>.
+	 * 
+	 * @param period
+	 *            the time period.
+	 * @param relativeStrengthIndex
+	 *            double
+	 */
+	public RelativeStrengthIndexItem(RegularTimePeriod period, double relativeStrengthIndex) {
+		super(period, new RelativeStrengthIndex(relativeStrengthIndex));
+	}
+
 	/**
 	 * Returns the period.
 	 * 
@@ -96,7 +108,7 @@ public class RelativeStrengthIndexItem extends ComparableObjectItem {
 	public void setRelativeStrengthIndex(double relativeStrengthIndex) {
 		RelativeStrengthIndex dataItem = (RelativeStrengthIndex) getObject();
 		if (dataItem != null) {
-			dataItem.setRelativeStrengthIndex(new BigDecimal(relativeStrengthIndex));
+			dataItem.setRelativeStrengthIndex(relativeStrengthIndex);
 		}
 
 	}
@@ -110,10 +122,10 @@ public class RelativeStrengthIndexItem extends ComparableObjectItem {
 	public double getRelativeStrengthIndex() {
 		RelativeStrengthIndex dataItem = (RelativeStrengthIndex) getObject();
 		if (dataItem != null) {
-			if (null == dataItem.getRelativeStrengthIndex()) {
+			if (Double.isNaN(dataItem.getRelativeStrengthIndexValue())) {
 				return 0;
 			}
-			return dataItem.getRelativeStrengthIndex().doubleValue();
+			return dataItem.getRelativeStrengthIndexValue();
 		} else {
 			return 0;
 		}
@@ -53,7 +53,7 @@ public class StochasticOscillator implements java.io.Serializable {
 	 */
 	private static final long serialVersionUID = 7644763985378994305L;
 
-	private BigDecimal stochasticOscillator;
+	private double stochasticOscillator = Double.NaN;
 
 	public StochasticOscillator() {
 	}
@@ -65,6 +65,16 @@ public class StochasticOscillator implements java.io.Serializable {
 	 *            BigDecimal
 	 */
 	public StochasticOscillator(BigDecimal stochasticOscillator) {
+		this.stochasticOscillator = (null == stochasticOscillator ? Double.NaN : stochasticOscillator.doubleValue());
+	}
+
+	/**
+	 * Constructor for StochasticOscillator.
+	 * 
+	 * @param stochasticOscillator
+	 *            double
+	 */
+	public StochasticOscillator(double stochasticOscillator) {
 		this.stochasticOscillator = stochasticOscillator;
 	}
 
@@ -74,7 +84,7 @@ public class StochasticOscillator implements java.io.Serializable {
 	 * @return BigDecimal
 	 */
 	public BigDecimal getStochasticOscillator() {
-		return this.stochasticOscillator;
+		return (Double.isNaN(this.stochasticOscillator) ? null : new BigDecimal(this.stochasticOscillator));
 	}
 
 	/**
@@ -84,7 +94,25 @@ public class StochasticOscillator implements java.io.Serializable {
 	 *            BigDecimal
 	 */
 	public void setStochasticOscillator(BigDecimal stochasticOscillator) {
-		this.stochasticOscillator = stochasticOscillator;
+		this.stochasticOscillator = (null == stochasticOscillator ? Double.NaN : stochasticOscillator.doubleValue());
+	}
+
+	/**
+	 * Method getStochasticOscillatorValue.
+	 * 
+	 * @return double the value or Double.NaN if not set.
+	 */
+	public double getStochasticOscillatorValue() {
+		return this.stochasticOscillator;
 	}
 
+	/**
+	 * Method setStochasticOscillator.
+	 * 
+	 * @param stochasticOscillator
+	 *            double
+	 */
+	public void setStochasticOscillator(double stochasticOscillator) {
+		this.stochasticOscillator = stochasticOscillator;
+	}
 }
@@ -67,6 +67,18 @@ public class StochasticOscillatorItem extends ComparableObjectItem {
 		super(period, new StochasticOscillator(stochasticOscillator));
 	}
 
+	/**
+	 * Creates a new instance of <code>StochasticOscillatorItem</code>.
+	 * 
+	 * @param period
+	 *            the time period.
+	 * @param stochasticOscillator
+	 *            double
+	 */
+	public StochasticOscillatorItem(RegularTimePeriod period, double stochasticOscillator) {
+		super(period, new StochasticOscillator(stochasticOscillator));
+	}
+
 	/**
 	 * Returns the period.
 	 * 
@@ -94,7 +106,7 @@ public class StochasticOscillatorItem extends ComparableObjectItem {
 	public void setStochasticOscillator(double stochasticOscillator) {
 		StochasticOscillator dataItem = (StochasticOscillator) getObject();
 		if (dataItem != null) {
-			dataItem.setStochasticOscillator(new BigDecimal(stochasticOscillator));
+			dataItem.setStochasticOscillator(stochasticOscillator);
 		}
 
 	}
@@ -107,10 +119,10 @@ public class StochasticOscillatorItem extends ComparableObjectItem {
 	public double getStochasticOscillator() {
 		StochasticOscillator dataItem = (StochasticOscillator) getObject();
 		if (dataItem != null) {
-			if (null == dataItem.getStochasticOscillator()) {
+			if (Double.isNaN(dataItem.getStochasticOscillatorValue())) {
 				return 0;
 			}
-			return dataItem.getStochasticOscillator().doubleValue();
+			return dataItem.getStochasticOscillatorValue();
 		} else {
 			return 0;
 		}
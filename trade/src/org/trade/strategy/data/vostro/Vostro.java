@@ -53,7 +53,7 @@ public class Vostro implements java.io.Serializable {
 	 */
 	private static final long serialVersionUID = 7644763985378994305L;
 
-	private BigDecimal vostro;
+	private double vostro = Double.NaN;
 
 	public Vostro() {
 	}
@@ -65,6 +65,16 @@ public class Vostro implements java.io.Serializable {
 	 *            BigDecimal
 	 */
 	public Vostro(BigDecimal vostro) {
+		this.vostro = (null == vostro ? Double.NaN : vostro.doubleValue());
+	}
+
+	/**
+	 * Constructor for Vostro.
+	 * 
+	 * @param vostro
+	 *            double
+	 */
+	public Vostro(double vostro) {
 		this.vostro = vostro;
 	}
 
@@ -74,7 +84,7 @@ public class Vostro implements java.io.Serializable {
 	 * @return BigDecimal
 	 */
 	public BigDecimal getVostro() {
-		return this.vostro;
+		return (Double.isNaN(this.vostro) ? null : new BigDecimal(this.vostro));
 	}
 
 	/**
@@ -84,6 +94,25 @@ public class Vostro implements java.io.Serializable {
 	 *            BigDecimal
 	 */
 	public void setVostro(BigDecimal vostro) {
+		this.vostro = (null == vostro ? Double.NaN : vostro.doubleValue());
+	}
+
+	/**
+	 * Method getVostroValue.
+	 * 
+	 * @return double the value or Double.NaN if not set.
+	 */
+	public double getVostroValue() {
+		return this.vostro;
+	}
+
+	/**
+	 * Method setVostro.
+	 * 
+	 * @param vostro
+	 *            double
+	 */
+	public void setVostro(double vostro) {
 		this.vostro = vostro;
 	}
 }
@@ -67,6 +67,18 @@ public class VostroItem extends ComparableObjectItem {
 		super(period, new Vostro(vostro));
 	}
 
+	/**
+	 * Creates a new instance of <code>VostroItem</code>.
+	 * 
+	 * @param period
+	 *            the time period.
+	 * @param vostro
+	 *            double
+	 */
+	public VostroItem(RegularTimePeriod period, double vostro) {
+		super(period, new Vostro(vostro));
+	}
+
 	/**
 	 * Returns the period.
 	 * 
@@ -95,7 +107,7 @@ public class VostroItem extends ComparableObjectItem {
 	public void setVostro(double vostro) {
 		Vostro dataItem = (Vostro) getObject();
 		if (dataItem != null) {
-			dataItem.setVostro(new BigDecimal(vostro));
+			dataItem.setVostro(vostro);
 		}
 	}
 
@@ -107,10 +119,10 @@ public class VostroItem extends ComparableObjectItem {
 	public double getVostro() {
 		Vostro dataItem = (Vostro) getObject();
 		if (dataItem != null) {
-			if (null == dataItem.getVostro()) {
+			if (Double.isNaN(dataItem.getVostroValue())) {
 				return 0;
 			}
-			return dataItem.getVostro().doubleValue();
+			return dataItem.getVostroValue();
 		} else {
 			return 0;
 		}
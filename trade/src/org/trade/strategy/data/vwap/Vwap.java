@@ -53,7 +53,7 @@ public class Vwap implements java.io.Serializable {
 	 */
 	private static final long serialVersionUID = 7644763985378994305L;
 
-	private BigDecimal vwapPrice;
+	private double vwapPrice = Double.NaN;
 
 	public Vwap() {
 	}
@@ -65,6 +65,16 @@ public class Vwap implements java.io.Serializable {
 	 *            BigDecimal
 	 */
 	public Vwap(BigDecimal vwapPrice) {
+		this.vwapPrice = (null == vwapPrice ? Double.NaN : vwapPrice.doubleValue());
+	}
+
+	/**
+	 * Constructor for Vwap.
+	 * 
+	 * @param vwapPrice
+	 *            double
+	 */
+	public Vwap(double vwapPrice) {
 		this.vwapPrice = vwapPrice;
 	}
 
@@ -74,7 +84,7 @@ public class Vwap implements java.io.Serializable {
 	 * @return BigDecimal
 	 */
 	public BigDecimal getVwapPrice() {
-		return this.vwapPrice;
+		return (Double.isNaN(this.vwapPrice) ? null : new BigDecimal(this.vwapPrice));
 	}
 
 	/**
@@ -84,7 +94,25 @@ public class Vwap implements java.io.Serializable {
 	 *            BigDecimal
 	 */
 	public void setVwapPrice(BigDecimal vwapPrice) {
-		this.vwapPrice = vwapPrice;
+		this.vwapPrice = (null == vwapPrice ? Double.NaN : vwapPrice.doubleValue());
+	}
+
+	/**
+	 * Method getVwapPriceValue.
+	 * 
+	 * @return double the value or Double.NaN if not set.
+	 */
+	public double getVwapPriceValue() {
+		return this.vwapPrice;
 	}
 
+	/**
+	 * Method setVwapPrice.
+	 * 
+	 * @param vwapPrice
+	 *            double
+	 */
+	public void setVwapPrice(double vwapPrice) {
+		this.vwapPrice = vwapPrice;
+	}
 }
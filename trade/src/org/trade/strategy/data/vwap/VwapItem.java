@@ -68,6 +68,18 @@ public class VwapItem extends ComparableObjectItem {
 		super(period, new Vwap(vwapPrice));
 	}
 
+	/**
+	 * Creates a new instance of <code>VwapItem</code>.
+	 * 
+	 * @param period
+	 *            the time period.
+	 * @param vwapPrice
+	 *            double
+	 */
+	public VwapItem(RegularTimePeriod period, double vwapPrice) {
+		super(period, new Vwap(vwapPrice));
+	}
+
 	/**
 	 * Returns the period.
 	 * 
@@ -98,7 +110,7 @@ public class VwapItem extends ComparableObjectItem {
 	public void setVwapPrice(double vwapPrice) {
 		Vwap dataItem = (Vwap) getObject();
 		if (dataItem != null) {
-			dataItem.setVwapPrice(new BigDecimal(vwapPrice));
+			dataItem.setVwapPrice(vwapPrice);
 		}
 
 	}
@@ -112,10 +124,10 @@ public class VwapItem extends ComparableObjectItem {
 	public double getVwapPrice() {
 		Vwap dataItem = (Vwap) getObject();
 		if (dataItem != null) {
-			if (null == dataItem.getVwapPrice()) {
+			if (Double.isNaN(dataItem.getVwapPriceValue())) {
 				return 0;
 			}
-			return dataItem.getVwapPrice().doubleValue();
+			return dataItem.getVwapPriceValue();
 		} else {
 			return 0;
 		}
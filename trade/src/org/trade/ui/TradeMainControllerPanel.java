@@ -184,6 +184,11 @@ public class TradeMainControllerPanel extends TabbedAppPanel implements BrokerCh
 			setSelected(true);
 			m_tradePersistentModel = (PersistentModel) ClassFactory
 					.getServiceForInterface(PersistentModel._persistentModel, this);
+			/*
+			 * Load the decode lookups in the background so they are cached
+			 * before the strategies start.
+			 */
+			DBTableLookupServiceProvider.preload();
 			Tradingday tradingday = Tradingday.newInstance(TradingCalendar.getCurrentTradingDay());
 			Tradingday todayTradingday = m_tradePersistentModel.findTradingdayByOpenCloseDate(tradingday.getOpen(),
 					tradingday.getClose());
@@ -194,6 +199,12 @@ public class TradeMainControllerPanel extends TabbedAppPanel implements BrokerCh
 			String strategyDir = ConfigProperties.getPropAsString("trade.strategy.default.dir");
 			dynacode = new DynamicCode();
 			dynacode.addSourceDir(new File(strategyDir));
+			/*
+			 * Compile the strategies once, changes to the strategy source are
+			 * recompiled when saved and used by strategies started after.
+			 */
+			dynacode.compileAll(0);
+			dynacode.startWatching();
 
 			/**
 			 * Constructs a new Trading tab that contains all information
@@ -565,6 +576,7 @@ public class TradeMainControllerPanel extends TabbedAppPanel implements BrokerCh
 							if (result == JOptionPane.YES_OPTION) {
 								openOrder.setTradestrategy(tradestrategy);
 								openOrder = m_tradePersistentModel.persistTradeOrder(openOrder);
+								m_brokerModel.getPositionStateService().update(openOrder);
 							}
 						}
 					}
@@ -579,7 +591,8 @@ public class TradeMainControllerPanel extends TabbedAppPanel implements BrokerCh
 								if (!openTradeOrders.containsKey(todayTradeOrder.getOrderKey())) {
 									todayTradeOrder.setStatus(OrderStatus.CANCELLED);
 									todayTradeOrder.setLastUpdateDate(TradingCalendar.getDateTimeNowMarketTimeZone());
-									m_tradePersistentModel.persistTradeOrder(todayTradeOrder);
+									m_brokerModel.getPositionStateService()
+											.update(m_tradePersistentModel.persistTradeOrder(todayTradeOrder));
 								}
 							}
 						}
@@ -1269,22 +1282,34 @@ public class TradeMainControllerPanel extends TabbedAppPanel implements BrokerCh
 	 */
 	public void updateAccountTime(final String accountNumber) {
 
-		SwingUtilities.invokeLater(new Runnable() {
-			public void run() {
+		/*
+		 * Wait for the account to be saved off the EDT then update the label.
+		 */
+		new SwingWorker<Portfolio, Void>() {
+			public Portfolio doInBackground() throws Exception {
+				m_tradePersistentModel.awaitAspectWrites();
+				Account account = m_tradePersistentModel.findAccountByNumber(accountNumber);
+				Portfolio portfolio = account.getDefaultPortfolio();
+				if (null != portfolio) {
+					portfolio = m_tradePersistentModel.findPortfolioById(portfolio.getId());
+				}
+				return portfolio;
+			}
+
+			public void done() {
 				try {
-					Account account = m_tradePersistentModel.findAccountByNumber(accountNumber);
-					Portfolio portfolio = account.getDefaultPortfolio();
+					Portfolio portfolio = get();
 					if (null != portfolio) {
-						portfolio = m_tradePersistentModel.findPortfolioById(portfolio.getId());
 						tradingdayPanel.setPortfolioLabel(portfolio);
 						setStatusBarMessage("Account: " + accountNumber + " information updated.",
 								BasePanel.INFORMATION);
 					}
 				} catch (Exception ex) {
-					setErrorMessage("Could not retreive account data Msg: ", ex.getMessage(), ex);
+					Throwable cause = (null == ex.getCause() ? ex : ex.getCause());
+					setErrorMessage("Could not retreive account data Msg: ", cause.getMessage(), ex);
 				}
 			}
-		});
+		}.execute();
 	}
 
 	/**
@@ -1790,8 +1815,8 @@ public class TradeMainControllerPanel extends TabbedAppPanel implements BrokerCh
 		parm.add(tradestrategy.getStrategyData());
 		parm.add(tradestrategy.getIdTradeStrategy());
 
-		StrategyRule strategy = (StrategyRule) dynacode.newProxyInstance(StrategyRule.class,
-				StrategyRule.PACKAGE + strategyClassName, parm);
+		StrategyRule strategy = dynacode.newInstance(StrategyRule.class, StrategyRule.PACKAGE + strategyClassName,
+				parm);
 
 		strategy.addMessageListener(this);
 
@@ -728,26 +728,25 @@ public class TradingdayPanel extends BasePanel {
 					tradingday = m_tradingdayModel.getData().getTradingday(openDate.getZonedDateTime(),
 							closeDate.getZonedDateTime());
 				}
+				String[] fileNames = new String[files.length];
 				for (int i = 0; i < files.length; i++) {
-					String fileName = files[i].getPath();
-					m_tradingdays.populateDataFromFile(fileName, tradingday);
-				}
-
-				m_tradingdayModel.setData(m_tradingdays);
-				if (m_tradingdays.getTradingdays().size() > 0) {
-					m_tradingdayTable.setRowSelectionInterval(selectedRow, selectedRow);
-					spinnerEnd.setValue(
-							((Date) m_tradingdayModel.getValueAt(m_tradingdayTable.convertRowIndexToModel(0), 0))
-									.getDate());
-
-					spinnerStart.setValue(((Date) m_tradingdayModel.getValueAt(
-							m_tradingdayTable.convertRowIndexToModel(m_tradingdayModel.getRowCount() - 1), 1))
-									.getDate());
+					fileNames[i] = files[i].getPath();
 				}
+				this.setStatusBarMessage("Import in progress ...\n", BasePanel.INFORMATION);
+				final ImportProgressMonitor importProgressMonitor = new ImportProgressMonitor(m_tradingdays,
+						fileNames, tradingday, selectedRow);
+				importProgressMonitor.addPropertyChangeListener(new java.beans.PropertyChangeListener() {
+					public void propertyChange(PropertyChangeEvent evt) {
+						if ("progress".equals(evt.getPropertyName())) {
+							int progress = (Integer) evt.getNewValue();
+							setProgressBarProgress(progress, importProgressMonitor);
+						}
+					}
+				});
+				importProgressMonitor.execute();
+			} else {
+				this.clearStatusBarMessage();
 			}
-			this.clearStatusBarMessage();
-		} catch (PersistentModelException ex1) {
-			this.setErrorMessage("Exception while reading csv file.", ex1.getMessage(), ex1);
 		} catch (Exception ex) {
 			this.setErrorMessage("Exception while reading csv file.", ex.getMessage(), ex);
 		}
@@ -1427,4 +1426,89 @@ public class TradingdayPanel extends BasePanel {
 			setStatusBarMessage(message, BasePanel.INFORMATION);
 		}
 	}
+
+	/**
+	 * Reads the files into new Tradingdays in the background then merges them
+	 * into the Tradingdays of the table on the EDT.
+	 */
+	private class ImportProgressMonitor extends SwingWorker<Void, String> {
+
+		private Tradingdays tradingdays = null;
+		private Tradingdays imported = null;
+		private String[] fileNames = null;
+		private Tradingday tradingday = null;
+		private int selectedRow = 0;
+		private long startTime = 0;
+		private Exception exception = null;
+
+		/**
+		 * Constructor for ImportProgressMonitor.
+		 * 
+		 * @param tradingdays
+		 *            Tradingdays
+		 * @param fileNames
+		 *            String[]
+		 * @param tradingday
+		 *            Tradingday the selected Tradingday.
+		 * @param selectedRow
+		 *            int
+		 */
+		public ImportProgressMonitor(Tradingdays tradingdays, String[] fileNames, Tradingday tradingday,
+				int selectedRow) {
+			this.tradingdays = tradingdays;
+			this.fileNames = fileNames;
+			this.tradingday = tradingday;
+			this.selectedRow = selectedRow;
+		}
+
+		/**
+		 * Method doInBackground.
+		 * 
+		 * @return Void
+		 */
+		public Void doInBackground() {
+
+			try {
+				this.startTime = System.currentTimeMillis();
+				// Initialize the progress bar
+				getProgressBar().setMaximum(100);
+				setProgress(0);
+				this.imported = Tradingdays.readFiles(this.fileNames, this.tradingday,
+						new Tradingdays.ImportListener() {
+							public void progress(long bytesRead, long totalBytes) {
+								if (totalBytes > 0) {
+									setProgress((int) Math.min(99, (bytesRead * 100) / totalBytes));
+								}
+							}
+						});
+			} catch (Exception ex) {
+				this.exception = ex;
+			}
+			return null;
+		}
+
+		public void done() {
+			if (null != this.exception) {
+				setProgress(100);
+				setErrorMessage("Exception while reading csv file.", this.exception.getMessage(), this.exception);
+				return;
+			}
+			this.tradingdays.merge(this.imported, this.tradingday);
+			m_tradingdayModel.setData(this.tradingdays);
+			if (this.tradingdays.getTradingdays().size() > 0) {
+				m_tradingdayTable.setRowSelectionInterval(this.selectedRow, this.selectedRow);
+				spinnerEnd.setValue(
+						((Date) m_tradingdayModel.getValueAt(m_tradingdayTable.convertRowIndexToModel(0), 0))
+								.getDate());
+
+				spinnerStart.setValue(((Date) m_tradingdayModel.getValueAt(
+						m_tradingdayTable.convertRowIndexToModel(m_tradingdayModel.getRowCount() - 1), 1))
+								.getDate());
+			}
+			setProgress(100);
+			String message = "Completed import of " + this.fileNames.length + " files in : "
+					+ ((System.currentTimeMillis() - this.startTime) / 1000) + " Seconds.";
+			setStatusBarMessage(message, BasePanel.INFORMATION);
+		}
+	}
 }
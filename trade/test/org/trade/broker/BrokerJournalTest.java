@@ -0,0 +1,394 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.broker;
+
+import static org.junit.Assert.*;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ib.client.CommissionReport;
+import com.ib.client.Execution;
+import com.ib.client.Order;
+
+/**
+ * Some tests for the {@link BrokerJournal} class.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class BrokerJournalTest {
+
+	private final static Logger _log = LoggerFactory.getLogger(BrokerJournalTest.class);
+
+	@Rule
+	public TestName name = new TestName();
+
+	private Path file = null;
+
+	/**
+	 * Method setUpBeforeClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * Method setUp.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		this.file = Files.createTempDirectory("journal").resolve("broker.journal");
+	}
+
+	/**
+	 * Method tearDown.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+		Files.deleteIfExists(this.file);
+		Files.deleteIfExists(this.file.getParent());
+	}
+
+	/**
+	 * Method tearDownAfterClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Test
+	public void testReplay() {
+		try {
+			long statusPosition;
+			try (BrokerJournal journal = new BrokerJournal(this.file, 0, false)) {
+				journal.orderPlaced(100001, 1, 7, "BUY", "STPLMT", 100, 20.5, 20.45);
+				statusPosition = journal.orderStatus(100001, "Submitted", 0, 100, 0, 999, 0, 0, 1, null);
+				Order order = new Order();
+				order.m_orderId = 100001;
+				order.m_action = "BUY";
+				order.m_totalQuantity = 100;
+				order.m_orderType = "STP LMT";
+				order.m_lmtPrice = 20.5;
+				journal.openOrder(order, newOrderState("Filled", 1.5));
+				journal.execution(7, newExecution("0001f4e8.57a1b1c2.01.01", 100, 20.48));
+				CommissionReport commissionReport = new CommissionReport();
+				commissionReport.m_execId = "0001f4e8.57a1b1c2.01.01";
+				commissionReport.m_commission = 1.5;
+				commissionReport.m_currency = "USD";
+				journal.commission(commissionReport);
+				assertTrue("1", journal.getLastEventTime() > 0);
+			}
+
+			try (BrokerJournal journal = new BrokerJournal(this.file, 0, false)) {
+				RecordingListener listener = new RecordingListener(journal, false);
+				assertEquals("2", 5, journal.replay(listener));
+				assertEquals("3", "placed 100001 BUY STPLMT 100 20.5", listener.events.get(0));
+				assertEquals("4", "status 100001 Submitted 0 null", listener.events.get(1));
+				assertEquals("5", "open 100001 STP LMT 20.5 Filled 1.5 null", listener.events.get(2));
+				assertEquals("6", "execution 7 0001f4e8.57a1b1c2.01.01 100 20.48", listener.events.get(3));
+				assertEquals("7", "commission 0001f4e8.57a1b1c2.01.01 1.5 USD", listener.events.get(4));
+				journal.setApplied(statusPosition);
+				assertFalse("8", journal.reset());
+			}
+
+			/*
+			 * Only the events after the applied position are replayed.
+			 */
+			try (BrokerJournal journal = new BrokerJournal(this.file, 0, false)) {
+				RecordingListener listener = new RecordingListener(journal, true);
+				assertEquals("9", 3, journal.replay(listener));
+				assertEquals("10", 0, journal.replay(listener));
+				assertTrue("11", journal.reset());
+				assertEquals("12", 0, journal.replay(listener));
+				assertTrue("13", journal.getLastEventTime() > 0);
+			}
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	@Test
+	public void testResetDuringReplay() {
+		try {
+			try (BrokerJournal journal = new BrokerJournal(this.file, 0, false)) {
+				journal.execution(1, newExecution("1", 100, 10));
+				journal.execution(1, newExecution("2", 100, 10));
+				journal.execution(1, newExecution("3", 100, 10));
+			}
+			try (final BrokerJournal journal = new BrokerJournal(this.file, 0, false)) {
+				/*
+				 * An event arrives while the journal is replayed.
+				 */
+				final long[] arrived = new long[1];
+				RecordingListener listener = new RecordingListener(journal, true) {
+					public void execDetails(long position, int reqId, Execution execution) {
+						super.execDetails(position, reqId, execution);
+						if (0 == arrived[0]) {
+							arrived[0] = journal.execution(1, newExecution("4", 100, 10));
+						}
+					}
+				};
+				assertEquals("1", 3, journal.replay(listener));
+				assertTrue("2", journal.reset());
+				assertEquals("3", arrived[0], journal.getPosition());
+				assertTrue("4", journal.getApplied() < journal.getPosition());
+				long position = journal.execution(1, newExecution("5", 100, 10));
+				/*
+				 * A position returned before the reset can be marked applied
+				 * after it.
+				 */
+				journal.setApplied(arrived[0]);
+				assertEquals("5", arrived[0], journal.getApplied());
+				assertTrue("6", position > journal.getApplied());
+			}
+			try (BrokerJournal journal = new BrokerJournal(this.file, 0, false)) {
+				RecordingListener listener = new RecordingListener(journal, true);
+				assertEquals("7", 1, journal.replay(listener));
+				assertEquals("8", "execution 1 5 100 10.0", listener.events.get(0));
+				assertTrue("9", journal.reset());
+				assertEquals("10", journal.getPosition(), journal.getApplied());
+			}
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	@Test
+	public void testRecoverReset() {
+		try {
+			long applied;
+			long end;
+			try (BrokerJournal journal = new BrokerJournal(this.file, 0, false)) {
+				journal.execution(1, newExecution("1", 100, 10));
+				applied = journal.execution(1, newExecution("2", 100, 10));
+				end = journal.execution(1, newExecution("3", 100, 10));
+				journal.setApplied(applied);
+			}
+			/*
+			 * Note a reset in the header as if the application stopped before
+			 * the records were moved.
+			 */
+			try (RandomAccessFile raf = new RandomAccessFile(this.file.toFile(), "rw")) {
+				raf.seek(24);
+				raf.writeLong(Long.reverseBytes(applied));
+				raf.writeInt(Integer.reverseBytes((int) (end - applied)));
+			}
+			try (BrokerJournal journal = new BrokerJournal(this.file, 0, false)) {
+				assertTrue("1", journal.getPosition() < applied);
+				RecordingListener listener = new RecordingListener(journal, false);
+				assertEquals("2", 1, journal.replay(listener));
+				assertEquals("3", "execution 1 3 100 10.0", listener.events.get(0));
+			}
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	@Test
+	public void testRecoverPartialRecord() {
+		try {
+			long position;
+			try (BrokerJournal journal = new BrokerJournal(this.file, 0, false)) {
+				journal.execution(1, newExecution("1", 100, 10));
+				position = journal.execution(1, newExecution("2", 100, 10));
+				journal.execution(1, newExecution("3", 100, 10));
+			}
+			/*
+			 * Damage the last record as if the application stopped part way
+			 * through writing it.
+			 */
+			try (RandomAccessFile raf = new RandomAccessFile(this.file.toFile(), "rw")) {
+				raf.seek(position + 20);
+				raf.write(0x7f);
+			}
+			try (BrokerJournal journal = new BrokerJournal(this.file, 0, false)) {
+				assertEquals("1", position, journal.getPosition());
+				journal.execution(1, newExecution("4", 100, 10));
+			}
+			try (BrokerJournal journal = new BrokerJournal(this.file, 0, false)) {
+				RecordingListener listener = new RecordingListener(journal, false);
+				assertEquals("2", 3, journal.replay(listener));
+				assertEquals("3", "execution 1 4 100 10.0", listener.events.get(2));
+			}
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	@Test
+	public void testGrow() {
+		try {
+			int count = 5000;
+			try (BrokerJournal journal = new BrokerJournal(this.file, 4096, false)) {
+				for (int i = 0; i < count; i++) {
+					journal.orderStatus(i, "Submitted", 0, 100, 0, i, 0, 0, 1, "");
+				}
+			}
+			assertTrue("1", Files.size(this.file) > 4096);
+			try (BrokerJournal journal = new BrokerJournal(this.file, 4096, false)) {
+				RecordingListener listener = new RecordingListener(journal, true);
+				assertEquals("2", count, journal.replay(listener));
+				assertEquals("3", "status 4999 Submitted 0 ", listener.events.get(count - 1));
+				assertTrue("4", journal.reset());
+			}
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	/**
+	 * Method newExecution.
+	 * 
+	 * @param execId
+	 *            String
+	 * @param shares
+	 *            int
+	 * @param price
+	 *            double
+	 * @return Execution
+	 */
+	private static Execution newExecution(String execId, int shares, double price) {
+		Execution execution = new Execution();
+		execution.m_orderId = 100001;
+		execution.m_execId = execId;
+		execution.m_time = "20160301  09:35:01";
+		execution.m_side = "BOT";
+		execution.m_shares = shares;
+		execution.m_price = price;
+		execution.m_cumQty = shares;
+		execution.m_avgPrice = price;
+		return execution;
+	}
+
+	/**
+	 * Method newOrderState. The OrderState constructors are not public.
+	 * 
+	 * @param status
+	 *            String
+	 * @param commission
+	 *            double
+	 * @return com.ib.client.OrderState
+	 * @throws Exception
+	 */
+	private static com.ib.client.OrderState newOrderState(String status, double commission) throws Exception {
+		java.lang.reflect.Constructor<com.ib.client.OrderState> constructor = com.ib.client.OrderState.class
+				.getDeclaredConstructor();
+		constructor.setAccessible(true);
+		com.ib.client.OrderState orderState = constructor.newInstance();
+		orderState.m_status = status;
+		orderState.m_commission = commission;
+		return orderState;
+	}
+
+	/**
+	 * Records each event replayed as a string.
+	 */
+	private static class RecordingListener implements BrokerJournal.Listener {
+
+		private final BrokerJournal journal;
+		private final boolean apply;
+		private final List<String> events = new ArrayList<String>();
+
+		RecordingListener(BrokerJournal journal, boolean apply) {
+			this.journal = journal;
+			this.apply = apply;
+		}
+
+		public void orderPlaced(long position, int orderKey, int clientId, int idTradestrategy, String action,
+				String orderType, int quantity, double limitPrice, double auxPrice) {
+			record(position, "placed " + orderKey + " " + action + " " + orderType + " " + quantity + " " + limitPrice);
+		}
+
+		public void orderStatus(long position, int orderId, String status, int filled, int remaining,
+				double avgFillPrice, int permId, int parentId, double lastFillPrice, int clientId, String whyHeld) {
+			record(position, "status " + orderId + " " + status + " " + filled + " " + whyHeld);
+		}
+
+		public void openOrder(long position, Order order, String status, String warningText, double commission) {
+			record(position, "open " + order.m_orderId + " " + order.m_orderType + " " + order.m_lmtPrice + " "
+					+ status + " " + commission + " " + warningText);
+		}
+
+		public void execDetails(long position, int reqId, Execution execution) {
+			record(position, "execution " + reqId + " " + execution.m_execId + " " + execution.m_shares + " "
+					+ execution.m_price);
+		}
+
+		public void commissionReport(long position, CommissionReport commissionReport) {
+			record(position, "commission " + commissionReport.m_execId + " " + commissionReport.m_commission + " "
+					+ commissionReport.m_currency);
+		}
+
+		private void record(long position, String event) {
+			this.events.add(event);
+			if (this.apply) {
+				this.journal.setApplied(position);
+			}
+		}
+	}
+}
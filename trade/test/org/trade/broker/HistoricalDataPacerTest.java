@@ -0,0 +1,219 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.broker;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.core.util.TradingCalendar;
+import org.trade.dictionary.valuetype.Currency;
+import org.trade.dictionary.valuetype.Exchange;
+import org.trade.dictionary.valuetype.SECType;
+import org.trade.dictionary.valuetype.Side;
+import org.trade.persistent.dao.Contract;
+import org.trade.persistent.dao.Strategy;
+import org.trade.persistent.dao.Tradestrategy;
+import org.trade.persistent.dao.Tradingday;
+
+/**
+ * Some tests for the {@link HistoricalDataPacer} class.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class HistoricalDataPacerTest {
+
+	private final static Logger _log = LoggerFactory.getLogger(HistoricalDataPacerTest.class);
+	@Rule
+	public TestName name = new TestName();
+
+	/**
+	 * Method setUpBeforeClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * Method setUp.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * Method tearDown.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * Method tearDownAfterClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Test
+	public void testPeriodLimit() {
+		try {
+			HistoricalDataPacer pacer = new HistoricalDataPacer(4, 400, 10, 0, 0, 0, 0);
+			long start = System.currentTimeMillis();
+			for (int i = 0; i < 4; i++) {
+				assertEquals("1", 0, pacer.acquire("Request" + i), 20);
+			}
+			assertEquals("2", 4, pacer.getSubmittedInPeriod());
+			/*
+			 * The fifth waits for the first to leave the period.
+			 */
+			pacer.acquire("Request4");
+			long elapsed = System.currentTimeMillis() - start;
+			assertTrue("3 elapsed: " + elapsed, elapsed >= 400);
+			assertEquals("4", 5, pacer.getSubmitted());
+
+			/*
+			 * Every window of the period has no more than four requests.
+			 */
+			long[] times = new long[12];
+			for (int i = 0; i < times.length; i++) {
+				pacer.acquire("Next" + i);
+				times[i] = System.currentTimeMillis();
+			}
+			for (int i = 4; i < times.length; i++) {
+				assertTrue("5 window: " + (times[i] - times[i - 4]), (times[i] - times[i - 4]) >= 390);
+			}
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	@Test
+	public void testBurstAndIdentical() {
+		try {
+			HistoricalDataPacer pacer = new HistoricalDataPacer(100, 10000, 2, 200, 1500, 0, 0);
+			long start = System.currentTimeMillis();
+			pacer.acquire("A");
+			pacer.acquire("B");
+			pacer.acquire("C");
+			long elapsed = System.currentTimeMillis() - start;
+			assertTrue("1 elapsed: " + elapsed, elapsed >= 200);
+
+			/*
+			 * The third only waited for the burst period, well inside the
+			 * identical period, so the first is still held.
+			 */
+			assertTrue("1 identical elapsed: " + elapsed, elapsed < 1500);
+
+			/*
+			 * Identical to the first so waits for the identical period.
+			 */
+			pacer.acquire("A");
+			elapsed = System.currentTimeMillis() - start;
+			assertTrue("2 elapsed: " + elapsed, elapsed >= 1500);
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	@Test
+	public void testPacingViolation() {
+		try {
+			HistoricalDataPacer pacer = new HistoricalDataPacer(100, 10000, 100, 0, 0, 200, 2);
+			ZonedDateTime date = ZonedDateTime.of(2016, 3, 1, 12, 0, 0, 0, TradingCalendar.MKT_TIMEZONE);
+			Tradingday tradingday = new Tradingday(TradingCalendar.getTradingDayStart(date),
+					TradingCalendar.getTradingDayEnd(date));
+			Contract contract = new Contract(SECType.STOCK, "SPY", Exchange.SMART, Currency.USD, null, null);
+			Tradestrategy tradestrategy = new Tradestrategy(contract, tradingday, new Strategy("TestStrategy"), null,
+					new BigDecimal(100), Side.BOT, "1", true, 2, 300);
+
+			pacer.acquire(HistoricalDataPacer.getKey(tradestrategy, tradingday.getClose()));
+			long start = System.currentTimeMillis();
+			pacer.pacingViolation(tradestrategy);
+			assertEquals("1", 1, pacer.getViolations());
+			assertSame("2", tradestrategy, pacer.pollRetry());
+			assertNull("3", pacer.pollRetry());
+
+			/*
+			 * Every request waits for the back off.
+			 */
+			pacer.acquire("Other");
+			long elapsed = System.currentTimeMillis() - start;
+			assertTrue("4 elapsed: " + elapsed, elapsed >= 200);
+
+			/*
+			 * The back off doubles and the request is retried at most twice.
+			 */
+			start = System.currentTimeMillis();
+			pacer.pacingViolation(tradestrategy);
+			assertNotNull("5", pacer.pollRetry());
+			pacer.pacingViolation(tradestrategy);
+			assertNull("6", pacer.pollRetry());
+			pacer.acquire("Another");
+			elapsed = System.currentTimeMillis() - start;
+			assertTrue("7 elapsed: " + elapsed, elapsed >= 400);
+			assertEquals("8", 3, pacer.getViolations());
+			_log.info("Pacer: " + pacer);
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+}
@@ -0,0 +1,255 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.broker;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jfree.data.general.SeriesChangeEvent;
+import org.jfree.data.general.SeriesChangeListener;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.core.util.TradingCalendar;
+import org.trade.dictionary.valuetype.Currency;
+import org.trade.dictionary.valuetype.Exchange;
+import org.trade.dictionary.valuetype.SECType;
+import org.trade.dictionary.valuetype.Side;
+import org.trade.persistent.dao.Contract;
+import org.trade.persistent.dao.Strategy;
+import org.trade.persistent.dao.Tradestrategy;
+import org.trade.persistent.dao.Tradingday;
+import org.trade.strategy.data.CandleSeries;
+import org.trade.strategy.data.StrategyData;
+import org.trade.strategy.data.candle.CandleItem;
+
+import com.ib.client.TickType;
+
+/**
+ * Some tests for the {@link MarketDataDispatcher} class.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class MarketDataDispatcherTest {
+
+	private final static Logger _log = LoggerFactory.getLogger(MarketDataDispatcherTest.class);
+	@Rule
+	public TestName name = new TestName();
+
+	private Contract contract = null;
+	private CandleSeries candleSeries = null;
+	private ZonedDateTime open = null;
+
+	/**
+	 * Method setUpBeforeClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * Method setUp.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		ZonedDateTime date = ZonedDateTime.of(2016, 3, 1, 12, 0, 0, 0, TradingCalendar.MKT_TIMEZONE);
+		this.open = TradingCalendar.getTradingDayStart(date);
+		Tradingday tradingday = new Tradingday(this.open, TradingCalendar.getTradingDayEnd(date));
+		this.contract = new Contract(SECType.STOCK, "SPY", Exchange.SMART, Currency.USD, null, null);
+		Tradestrategy tradestrategy = new Tradestrategy(this.contract, tradingday, new Strategy("TestStrategy"), null,
+				new BigDecimal(100), Side.BOT, "1", true, 1, 300);
+		tradestrategy.setStrategyData(StrategyData.create(tradestrategy));
+		this.contract.addTradestrategy(tradestrategy);
+		tradestrategy.getStrategyData().buildCandle(this.open, 10.0, 10.5, 9.5, 10.2, 1000, 10.1, 10, 1, null);
+		this.candleSeries = tradestrategy.getStrategyData().getBaseCandleSeries();
+	}
+
+	/**
+	 * Method tearDown.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * Method tearDownAfterClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Test
+	public void testCoalesceTicks() {
+		try {
+			final AtomicInteger changes = new AtomicInteger(0);
+			this.candleSeries.addChangeListener(new SeriesChangeListener() {
+				public void seriesChanged(SeriesChangeEvent event) {
+					changes.incrementAndGet();
+				}
+			});
+			/*
+			 * A long interval so only the test publishes.
+			 */
+			MarketDataDispatcher dispatcher = new MarketDataDispatcher(60000, false);
+			dispatcher.register(1, this.contract);
+			assertFalse("1", dispatcher.tickPrice(2, TickType.BID, 9.9));
+			assertTrue("2", dispatcher.tickPrice(1, TickType.BID, 9.9));
+			assertTrue("3", dispatcher.tickPrice(1, TickType.ASK, 10.9));
+
+			long time = TradingCalendar.geMillisFromZonedDateTime(this.open) + 1000;
+			double[] prices = { 10.1, 10.3, 10.7, 10.4, 11.5, 10.2 };
+			for (double price : prices) {
+				assertTrue("4", dispatcher.tickString(1, TickType.RT_VOLUME, price + ";100;" + time + ";5000;10.2;true"));
+				time += 10;
+			}
+			assertTrue("5", dispatcher.tickString(1, TickType.RT_VOLUME, ";0;" + time + ";5000;10.2;true"));
+			assertEquals("6", 0, changes.get());
+			assertEquals("7", 1, dispatcher.publish());
+			assertEquals("8", 1, changes.get());
+			assertEquals("9", 0, dispatcher.publish());
+
+			CandleItem candleItem = (CandleItem) this.candleSeries.getDataItem(0);
+			assertEquals("10", 10.7, candleItem.getClose(), 0);
+			assertEquals("11", new BigDecimal(9.9).setScale(5, BigDecimal.ROUND_HALF_EVEN),
+					this.candleSeries.getContract().getLastBidPrice());
+			assertEquals("12", new BigDecimal(10.9).setScale(5, BigDecimal.ROUND_HALF_EVEN),
+					this.candleSeries.getContract().getLastAskPrice());
+
+			dispatcher.unregister(1);
+			assertFalse("13", dispatcher.tickPrice(1, TickType.LAST, 10.5));
+			dispatcher.clear();
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	@Test
+	public void testPublishWhileBuildingCandles() {
+		try {
+			/*
+			 * The reader thread adds a bar for the rest of the day while the
+			 * dispatcher publishes trades in the latest bar.
+			 */
+			final StrategyData strategyData = this.contract.getTradestrategies().get(0).getStrategyData();
+			final AtomicInteger bars = new AtomicInteger(1);
+			final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+			Thread reader = new Thread(new Runnable() {
+				public void run() {
+					try {
+						for (int i = 1; i < 78; i++) {
+							strategyData.buildCandle(open.plusMinutes(i * 5), 10.0, 10.5, 9.5, 10.2, 1000, 10.1, 10, 1,
+									null);
+							bars.set(i + 1);
+						}
+					} catch (Throwable ex) {
+						error.set(ex);
+					}
+				}
+			});
+			MarketDataDispatcher dispatcher = new MarketDataDispatcher(60000, false);
+			dispatcher.register(1, this.contract);
+			dispatcher.tickPrice(1, TickType.BID, 9.0);
+			dispatcher.tickPrice(1, TickType.ASK, 12.0);
+			reader.start();
+			double price = 10.6;
+			while (reader.isAlive()) {
+				long time = TradingCalendar.geMillisFromZonedDateTime(this.open.plusMinutes((bars.get() - 1) * 5))
+						+ 1000;
+				price = (price == 10.6 ? 10.7 : 10.6);
+				dispatcher.tickString(1, TickType.RT_VOLUME, price + ";100;" + time + ";5000;10.2;true");
+				dispatcher.publish();
+			}
+			reader.join();
+			assertNull("1", error.get());
+			assertEquals("2", 78, this.candleSeries.getItemCount());
+
+			long time = TradingCalendar.geMillisFromZonedDateTime(this.open.plusMinutes(77 * 5)) + 1000;
+			dispatcher.tickString(1, TickType.RT_VOLUME, "11.5;100;" + time + ";5000;10.2;true");
+			assertEquals("3", 1, dispatcher.publish());
+			assertEquals("4", 11.5, ((CandleItem) this.candleSeries.getDataItem(77)).getClose(), 0);
+			dispatcher.clear();
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	@Test
+	public void testParseDouble() {
+		try {
+			Random random = new Random(7);
+			for (int i = 0; i < 10000; i++) {
+				String value = new BigDecimal(random.nextDouble() * 1000).setScale(random.nextInt(8),
+						BigDecimal.ROUND_HALF_EVEN).toPlainString();
+				assertEquals(value, Double.parseDouble(value), MarketDataDispatcher.parseDouble(value, 0,
+						value.length()), 0);
+			}
+			String value = "701.28;1;1348075471534;67854;701.46918464;true";
+			assertEquals("1", 701.28, MarketDataDispatcher.parseDouble(value, 0, 6), 0);
+			assertEquals("2", 1348075471534L, MarketDataDispatcher.parseLong(value, 9, 22));
+			assertEquals("3", 1.5e3, MarketDataDispatcher.parseDouble("1.5E3", 0, 5), 0);
+			assertTrue("4", Double.isNaN(MarketDataDispatcher.parseDouble("abc", 0, 3)));
+			assertEquals("5", -1, MarketDataDispatcher.parseLong("12a", 0, 3));
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+}
@@ -0,0 +1,223 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.broker;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.persistent.PersistentModel;
+import org.trade.persistent.PersistentModelException;
+import org.trade.persistent.dao.ContractLite;
+import org.trade.persistent.dao.TradeOrder;
+import org.trade.persistent.dao.TradePosition;
+import org.trade.persistent.dao.TradestrategyLite;
+import org.trade.persistent.dao.TradestrategyOrders;
+
+/**
+ * Some tests for the {@link PositionStateService} class. The orders are loaded
+ * from a PersistentModel that counts the loads.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class PositionStateServiceTest {
+
+	private final static Logger _log = LoggerFactory.getLogger(PositionStateServiceTest.class);
+	@Rule
+	public TestName name = new TestName();
+
+	private ConcurrentHashMap<Integer, Integer> contracts = null;
+	private AtomicInteger loads = null;
+	private PositionStateService positionStateService = null;
+
+	/**
+	 * Method setUpBeforeClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * Method setUp.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		contracts = new ConcurrentHashMap<Integer, Integer>();
+		contracts.put(1, 10);
+		contracts.put(2, 10);
+		contracts.put(3, 20);
+		loads = new AtomicInteger(0);
+		PersistentModel tradePersistentModel = (PersistentModel) Proxy.newProxyInstance(
+				PersistentModel.class.getClassLoader(), new Class<?>[] { PersistentModel.class },
+				new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						if ("findPositionOrdersByTradestrategyId".equals(method.getName())) {
+							Integer idTradestrategy = (Integer) args[0];
+							if (!contracts.containsKey(idTradestrategy))
+								throw new PersistentModelException(
+										"Tradestrategy not found for id: " + idTradestrategy);
+							loads.incrementAndGet();
+							TradestrategyOrders tradestrategyOrders = new TradestrategyOrders();
+							tradestrategyOrders.setIdTradeStrategy(idTradestrategy);
+							tradestrategyOrders.setContract(new ContractLite(contracts.get(idTradestrategy)));
+							return tradestrategyOrders;
+						}
+						throw new UnsupportedOperationException(method.getName());
+					}
+				});
+		positionStateService = new PositionStateService(tradePersistentModel);
+	}
+
+	/**
+	 * Method tearDown.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * Method tearDownAfterClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Test
+	public void testGetSnapshot() {
+		try {
+			PositionStateService.Snapshot snapshot = positionStateService.getSnapshot(1);
+			assertEquals("1", new Integer(1), snapshot.getIdTradestrategy());
+			for (int i = 0; i < 1000; i++) {
+				assertSame("2", snapshot, positionStateService.getSnapshot(1));
+			}
+			assertEquals("3", 1, loads.get());
+
+			PositionStateService.Snapshot refreshed = positionStateService.refresh(1);
+			assertEquals("4", 2, loads.get());
+			assertTrue("5", refreshed.getVersion() > snapshot.getVersion());
+			assertSame("6", refreshed.getTradestrategyOrders(), positionStateService.getTradestrategyOrders(1));
+
+			PositionStateService.Snapshot saved = positionStateService.put(refreshed.getTradestrategyOrders());
+			assertTrue("7", saved.getVersion() > refreshed.getVersion());
+			assertEquals("8", 2, loads.get());
+
+			positionStateService.remove(1);
+			assertEquals("9", 0, positionStateService.size());
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	@Test
+	public void testUpdate() {
+		try {
+			long version1 = positionStateService.getSnapshot(1).getVersion();
+			long version2 = positionStateService.getSnapshot(2).getVersion();
+			long version3 = positionStateService.getSnapshot(3).getVersion();
+			assertEquals("1", 3, loads.get());
+
+			/*
+			 * An order with no position only reloads its own Tradestrategy.
+			 */
+			TradeOrder tradeOrder = new TradeOrder();
+			tradeOrder.setTradestrategyId(new TradestrategyLite(1, 0));
+			positionStateService.update(tradeOrder);
+			assertEquals("2", 4, loads.get());
+			assertTrue("3", positionStateService.getSnapshot(1).getVersion() > version1);
+			assertEquals("4", version2, positionStateService.getSnapshot(2).getVersion());
+
+			/*
+			 * A filled order reloads all Tradestrategies on the contract.
+			 */
+			tradeOrder.setTradePosition(new TradePosition());
+			positionStateService.update(tradeOrder);
+			assertEquals("5", 6, loads.get());
+			assertTrue("6", positionStateService.getSnapshot(2).getVersion() > version2);
+			assertEquals("7", version3, positionStateService.getSnapshot(3).getVersion());
+
+			/*
+			 * Orders for Tradestrategies that are not held are ignored.
+			 */
+			positionStateService.remove(3);
+			tradeOrder.setTradestrategyId(new TradestrategyLite(3, 0));
+			positionStateService.update(tradeOrder);
+			assertEquals("8", 6, loads.get());
+			assertEquals("9", 2, positionStateService.size());
+
+			/*
+			 * A failed reload drops the Tradestrategy.
+			 */
+			contracts.remove(2);
+			tradeOrder.setTradestrategyId(new TradestrategyLite(2, 0));
+			positionStateService.update(tradeOrder);
+			assertEquals("10", 1, positionStateService.size());
+			try {
+				positionStateService.getSnapshot(2);
+				fail("11");
+			} catch (PersistentModelException ex) {
+				// Expected
+			}
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+}
@@ -0,0 +1,153 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.dictionary.valuetype;
+
+import static org.junit.Assert.*;
+
+import java.util.Vector;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.core.lookup.DBTableLookupServiceProvider;
+import org.trade.core.valuetype.Decode;
+import org.trade.core.valuetype.DecodeTable;
+import org.trade.ui.TradeAppLoadConfig;
+
+/**
+ * Some tests for the {@link DecodeTable} class.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class DecodeTableTest {
+
+	private final static Logger _log = LoggerFactory.getLogger(DecodeTableTest.class);
+	@Rule
+	public TestName name = new TestName();
+
+	/**
+	 * Method setUpBeforeClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		TradeAppLoadConfig.loadAppProperties();
+	}
+
+	/**
+	 * Method setUp.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * Method tearDown.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * Method tearDownAfterClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Test
+	public void testSharedTable() {
+		try {
+			DecodeTable table = new Side().getDecodeTable();
+			assertSame("1", table, new Side().getDecodeTable());
+			assertEquals("2", 2, table.size());
+			assertTrue("3", table.indexOfCode(Side.BOT) > -1);
+			assertTrue("4", table.indexOfCode(Side.SLD) > -1);
+			assertEquals("5", -1, table.indexOfCode("XXX"));
+			assertEquals("6", Side.SLD, table.getCode(table.indexOfCode(Side.SLD)));
+			assertEquals("7", Side.newInstance(Side.SLD).getDisplayName(),
+					table.getDisplayName(table.indexOfCode(Side.SLD)));
+
+			/*
+			 * Clearing the lookups rebuilds the table.
+			 */
+			DBTableLookupServiceProvider.clearLookup();
+			DecodeTable rebuilt = new Side().getDecodeTable();
+			assertNotSame("8", table, rebuilt);
+			assertEquals("9", table.size(), rebuilt.size());
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	@Test
+	public void testCodesDecodes() {
+		try {
+			Vector<Decode> decodes = new OrderStatus().getCodesDecodes();
+			DecodeTable table = new OrderStatus().getDecodeTable();
+			assertEquals("1", table.size(), decodes.size());
+			for (int i = 0; i < decodes.size(); i++) {
+				assertTrue("2", decodes.get(i) instanceof OrderStatus);
+				assertEquals("3", table.getCode(i), decodes.get(i).getCode());
+				assertEquals("4", table.getDisplayName(i), decodes.get(i).getDisplayName());
+			}
+			/*
+			 * Each call returns new instances.
+			 */
+			assertNotSame("5", decodes.get(0), new OrderStatus().getCodesDecodes().get(0));
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+}
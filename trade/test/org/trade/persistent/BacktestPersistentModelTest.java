@@ -0,0 +1,312 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.persistent;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.core.util.TradingCalendar;
+import org.trade.dictionary.valuetype.Action;
+import org.trade.dictionary.valuetype.OrderType;
+import org.trade.dictionary.valuetype.TradestrategyStatus;
+import org.trade.persistent.dao.TradeOrder;
+import org.trade.persistent.dao.TradePosition;
+import org.trade.persistent.dao.Tradestrategy;
+import org.trade.persistent.dao.TradestrategyOrders;
+import org.trade.persistent.dao.TradestrategyTest;
+import org.trade.ui.TradeAppLoadConfig;
+
+/**
+ * Tests for the in memory orders and positions of the
+ * BacktestPersistentModel.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class BacktestPersistentModelTest {
+
+	private final static Logger _log = LoggerFactory.getLogger(BacktestPersistentModelTest.class);
+	@org.junit.Rule
+	public TestName name = new TestName();
+
+	private String symbol = "TEST";
+	private Tradestrategy tradestrategy = null;
+	private int orderKey = 0;
+
+	/**
+	 * Method setUpBeforeClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * Method setUp.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		TradeAppLoadConfig.loadAppProperties();
+		this.tradestrategy = TradestrategyTest.getTestTradestrategy(symbol);
+		assertNotNull("1", this.tradestrategy);
+		this.orderKey = Math.max(new TradePersistentModel().findTradeOrderByMaxKey(), 100000);
+	}
+
+	/**
+	 * Method tearDown.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+		TradestrategyTest.clearDBData();
+	}
+
+	/**
+	 * Method tearDownAfterClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Test
+	public void testFindReturnsCopies() {
+
+		try {
+			BacktestPersistentModel model = new BacktestPersistentModel(true);
+			TradeOrder tradeOrder = model.persistTradeOrder(createOrder(Action.BUY));
+			assertNotNull("1", tradeOrder.getIdTradeOrder());
+			assertTrue("2", tradeOrder.getIdTradeOrder() < 0);
+
+			/*
+			 * The copy is kept until something is persisted.
+			 */
+			TradestrategyOrders positionOrders = model
+					.findPositionOrdersByTradestrategyId(this.tradestrategy.getIdTradeStrategy());
+			TradestrategyOrders positionOrders1 = model
+					.findPositionOrdersByTradestrategyId(this.tradestrategy.getIdTradeStrategy());
+			assertSame("3", positionOrders, positionOrders1);
+			assertEquals("4", 1, positionOrders.getTradeOrders().size());
+
+			/*
+			 * Changes to a copy do not change the held orders.
+			 */
+			positionOrders.getTradeOrders().get(0).setQuantity(1);
+			positionOrders.getTradeOrders().clear();
+			TradeOrder instance = model.findTradeOrderByKey(tradeOrder.getOrderKey());
+			assertEquals("5", tradeOrder.getQuantity(), instance.getQuantity());
+
+			instance.setQuantity(200);
+			model.persistTradeOrder(instance);
+			assertEquals("6", new Integer(200), model.findTradeOrderByKey(tradeOrder.getOrderKey()).getQuantity());
+			positionOrders1 = model.findPositionOrdersByTradestrategyId(this.tradestrategy.getIdTradeStrategy());
+			assertNotSame("7", positionOrders, positionOrders1);
+			assertEquals("8", 1, positionOrders1.getTradeOrders().size());
+			assertEquals("9", new Integer(200), positionOrders1.getTradeOrders().get(0).getQuantity());
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	@Test
+	public void testFilledOrderOpensPosition() {
+
+		try {
+			BacktestPersistentModel model = new BacktestPersistentModel(true);
+			TradeOrder tradeOrder = model.persistTradeOrder(createOrder(Action.BUY));
+			tradeOrder = model.persistTradeOrder(fill(tradeOrder, new BigDecimal("20.10")));
+			assertTrue("1", tradeOrder.getIsFilled());
+			assertTrue("2", tradeOrder.hasTradePosition());
+
+			TradestrategyOrders positionOrders = model
+					.findPositionOrdersByTradestrategyId(this.tradestrategy.getIdTradeStrategy());
+			assertTrue("3", positionOrders.hasOpenTradePosition());
+			assertEquals("4", TradestrategyStatus.OPEN, positionOrders.getStatus());
+
+			/*
+			 * Within one copy the order and the contract share the open
+			 * position and the position holds the same order instance.
+			 */
+			TradePosition tradePosition = positionOrders.getOpenTradePosition();
+			TradeOrder openOrder = positionOrders.getTradeOrders().get(0);
+			assertSame("5", tradePosition, openOrder.getTradePosition());
+			assertSame("6", openOrder, tradePosition.getTradeOrders().get(0));
+			assertSame("7", positionOrders.getContract(), tradePosition.getContract());
+			assertEquals("8", new Integer(100), tradePosition.getOpenQuantity());
+
+			/*
+			 * Copies from different finds share nothing.
+			 */
+			TradePosition instance = model.findTradePositionById(tradePosition.getIdTradePosition());
+			assertNotSame("9", tradePosition, instance);
+			assertNotSame("10", tradePosition.getContract(), instance.getContract());
+			tradePosition.setOpenQuantity(0);
+			tradePosition.getContract().setTradePosition(null);
+			assertEquals("11", new Integer(100),
+					model.findTradePositionById(tradePosition.getIdTradePosition()).getOpenQuantity());
+
+			/*
+			 * The copy is replaced once something is persisted and is built
+			 * from the held position.
+			 */
+			TradestrategyOrders positionOrders1 = model.persistAspect(positionOrders);
+			assertNotSame("12", positionOrders, positionOrders1);
+			assertTrue("13", positionOrders1.hasOpenTradePosition());
+
+			/*
+			 * Selling the position closes it for the contract.
+			 */
+			TradeOrder sellOrder = model.persistTradeOrder(createOrder(Action.SELL));
+			model.persistTradeOrder(fill(sellOrder, new BigDecimal("20.30")));
+			positionOrders = model.findPositionOrdersByTradestrategyId(this.tradestrategy.getIdTradeStrategy());
+			assertFalse("14", positionOrders.hasOpenTradePosition());
+			assertEquals("15", TradestrategyStatus.CLOSED, positionOrders.getStatus());
+			instance = model.findTradePositionById(tradePosition.getIdTradePosition());
+			assertEquals("16", new Integer(0), instance.getOpenQuantity());
+			assertEquals("17", 2, instance.getTradeOrders().size());
+			assertEquals("18", 0, new BigDecimal("20.00").compareTo(instance.getTotalNetValue()));
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	@Test
+	public void testFlush() {
+
+		try {
+			BacktestPersistentModel model = new BacktestPersistentModel(false);
+			TradeOrder tradeOrder = model.persistTradeOrder(createOrder(Action.BUY));
+			model.persistTradeOrder(fill(tradeOrder, new BigDecimal("20.10")));
+			model.flush();
+
+			TradestrategyOrders positionOrders = new TradePersistentModel()
+					.findPositionOrdersByTradestrategyId(this.tradestrategy.getIdTradeStrategy());
+			assertEquals("1", 1, positionOrders.getTradeOrders().size());
+			TradeOrder instance = positionOrders.getTradeOrders().get(0);
+			assertTrue("2", instance.getIdTradeOrder() > 0);
+			assertTrue("3", instance.getIsFilled());
+			assertTrue("4", positionOrders.hasOpenTradePosition());
+			assertTrue("5", positionOrders.getOpenTradePosition().getIdTradePosition() > 0);
+			assertEquals("6", positionOrders.getOpenTradePosition().getIdTradePosition(),
+					instance.getTradePosition().getIdTradePosition());
+			assertEquals("7", TradestrategyStatus.OPEN, positionOrders.getStatus());
+
+			/*
+			 * The model is empty after a flush and re-reads the database.
+			 */
+			positionOrders = model.findPositionOrdersByTradestrategyId(this.tradestrategy.getIdTradeStrategy());
+			assertEquals("8", instance.getIdTradeOrder(), positionOrders.getTradeOrders().get(0).getIdTradeOrder());
+			assertTrue("9", positionOrders.hasOpenTradePosition());
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	@Test
+	public void testFlushDryRun() {
+
+		try {
+			BacktestPersistentModel model = new BacktestPersistentModel(true);
+			TradeOrder tradeOrder = model.persistTradeOrder(createOrder(Action.BUY));
+			model.persistTradeOrder(fill(tradeOrder, new BigDecimal("20.10")));
+			model.flush();
+
+			TradestrategyOrders positionOrders = new TradePersistentModel()
+					.findPositionOrdersByTradestrategyId(this.tradestrategy.getIdTradeStrategy());
+			assertTrue("1", positionOrders.getTradeOrders().isEmpty());
+			assertFalse("2", positionOrders.hasOpenTradePosition());
+			assertNull("3", model.findTradeOrderByKey(tradeOrder.getOrderKey()));
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	/**
+	 * Method createOrder.
+	 * 
+	 * @param action
+	 *            String
+	 * @return TradeOrder a market order for 100 shares.
+	 */
+	private TradeOrder createOrder(String action) {
+		TradeOrder tradeOrder = new TradeOrder(this.tradestrategy, action, OrderType.MKT, 100, null, null,
+				TradingCalendar.getDateTimeNowMarketTimeZone());
+		tradeOrder.setOrderKey(++this.orderKey);
+		tradeOrder.setClientId(999);
+		tradeOrder.setTransmit(true);
+		return tradeOrder;
+	}
+
+	/**
+	 * Method fill.
+	 * 
+	 * @param tradeOrder
+	 *            TradeOrder
+	 * @param price
+	 *            BigDecimal
+	 * @return TradeOrder the order filled in full at the price.
+	 */
+	private TradeOrder fill(TradeOrder tradeOrder, BigDecimal price) {
+		ZonedDateTime filledDate = TradingCalendar.getDateTimeNowMarketTimeZone();
+		tradeOrder.setFilledQuantity(tradeOrder.getQuantity());
+		tradeOrder.setAverageFilledPrice(price);
+		tradeOrder.setFilledDate(filledDate);
+		return tradeOrder;
+	}
+}
@@ -1080,6 +1080,13 @@ public class TradePersistentModelTest {
 					this.tradestrategy.getContract().getIdContract(), this.tradestrategy.getTradingday().getOpen(),
 					this.tradestrategy.getTradingday().getClose(), this.tradestrategy.getBarSize());
 			assertNotNull("1", result);
+
+			/*
+			 * Null arguments are not filtered on.
+			 */
+			result = this.tradePersistentModel.findCandlesByContractDateRangeBarSize(
+					this.tradestrategy.getContract().getIdContract(), null, null, null);
+			assertNotNull("2", result);
 		} catch (Exception | AssertionError ex) {
 			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
 			_log.error(msg);
@@ -1281,6 +1288,37 @@ public class TradePersistentModelTest {
 		}
 	}
 
+	@Test
+	public void testPersistAspectAsync() {
+
+		try {
+			Account account = this.tradestrategy.getPortfolio().getIndividualAccount();
+			Account snapshot = (Account) account.clone();
+			snapshot.setCashBalance(new BigDecimal(1000));
+			final Aspect[] saved = new Aspect[1];
+			final PersistentModelException[] failed = new PersistentModelException[1];
+			this.tradePersistentModel.persistAspectAsync(snapshot, new AspectWriteListener() {
+				public void aspectSaved(Aspect aspect) {
+					saved[0] = aspect;
+				}
+
+				public void aspectFailed(Aspect aspect, PersistentModelException ex) {
+					failed[0] = ex;
+				}
+			});
+			this.tradePersistentModel.awaitAspectWrites();
+			assertNull("1", failed[0]);
+			assertNotNull("2", saved[0]);
+			assertTrue("3", saved[0].getVersion() > account.getVersion());
+			assertEquals("4", new BigDecimal(1000),
+					((Account) saved[0]).getCashBalance().setScale(0, BigDecimal.ROUND_HALF_EVEN));
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
 	@Test
 	public void testRemoveAspect() {
 
@@ -0,0 +1,213 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.persistent;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Some tests for the {@link WriteBehindQueue} class.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class WriteBehindQueueTest {
+
+	private final static Logger _log = LoggerFactory.getLogger(WriteBehindQueueTest.class);
+
+	@Rule
+	public TestName name = new TestName();
+
+	/**
+	 * Method setUpBeforeClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * Method setUp.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * Method tearDown.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * Method tearDownAfterClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Test
+	public void testCoalesceAndFlush() {
+		try {
+			final List<String> written = new ArrayList<String>();
+			final CountDownLatch release = new CountDownLatch(1);
+			WriteBehindQueue<Integer, String> queue = new WriteBehindQueue<Integer, String>(name.getMethodName(),
+					new WriteBehindQueue.Writer<String>() {
+						public void write(List<String> values) throws Exception {
+							release.await(5, TimeUnit.SECONDS);
+							synchronized (written) {
+								written.addAll(values);
+							}
+						}
+					}, 10, 60000, 100);
+
+			queue.submit(1, "a1");
+			queue.submit(2, "b1");
+			queue.submit(1, "a2");
+			assertEquals(2, queue.getPending());
+			release.countDown();
+			queue.flush();
+			assertEquals(0, queue.getPending());
+			synchronized (written) {
+				assertEquals(2, written.size());
+				assertEquals("a2", written.get(0));
+				assertEquals("b1", written.get(1));
+			}
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	@Test
+	public void testBatchAndBackPressure() {
+		try {
+			final List<Integer> batches = new ArrayList<Integer>();
+			final CountDownLatch release = new CountDownLatch(1);
+			final WriteBehindQueue<Integer, Integer> queue = new WriteBehindQueue<Integer, Integer>(
+					name.getMethodName(), new WriteBehindQueue.Writer<Integer>() {
+						public void write(List<Integer> values) throws Exception {
+							release.await(5, TimeUnit.SECONDS);
+							synchronized (batches) {
+								batches.add(values.size());
+							}
+						}
+					}, 4, 60000, 8);
+
+			for (int i = 0; i < 8; i++) {
+				queue.submit(i, i);
+			}
+			final CountDownLatch submitted = new CountDownLatch(1);
+			Thread thread = new Thread(new Runnable() {
+				public void run() {
+					try {
+						queue.submit(8, 8);
+						submitted.countDown();
+					} catch (InterruptedException ex) {
+					}
+				}
+			});
+			thread.start();
+			assertFalse(submitted.await(200, TimeUnit.MILLISECONDS));
+			assertEquals(8, queue.getPending());
+			release.countDown();
+			assertTrue(submitted.await(5, TimeUnit.SECONDS));
+			queue.flush();
+			synchronized (batches) {
+				int total = 0;
+				for (Integer size : batches) {
+					assertTrue(size <= 4);
+					total = total + size;
+				}
+				assertEquals(9, total);
+			}
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	@Test
+	public void testWriteError() {
+		try {
+			WriteBehindQueue<Integer, Integer> queue = new WriteBehindQueue<Integer, Integer>(name.getMethodName(),
+					new WriteBehindQueue.Writer<Integer>() {
+						public void write(List<Integer> values) throws Exception {
+							if (values.contains(1))
+								throw new Exception("Value 1 not saved");
+						}
+					}, 10, 10, 100);
+
+			queue.submit(1, 1);
+			try {
+				queue.flush();
+				fail("Write error not reported");
+			} catch (PersistentModelException ex) {
+				assertTrue(ex.getMessage().contains("Value 1 not saved"));
+			}
+			queue.submit(2, 2);
+			queue.flush();
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+}
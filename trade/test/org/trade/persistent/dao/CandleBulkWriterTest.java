@@ -0,0 +1,203 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.persistent.dao;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.dictionary.valuetype.BarSize;
+import org.trade.strategy.data.CandleSeries;
+import org.trade.strategy.data.StrategyData;
+import org.trade.strategy.data.candle.CandleItem;
+import org.trade.ui.TradeAppLoadConfig;
+
+/**
+ * Tests for the CandleBulkWriter upsert statement and a write of a series to
+ * the database.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class CandleBulkWriterTest {
+
+	private final static Logger _log = LoggerFactory.getLogger(CandleBulkWriterTest.class);
+	@Rule
+	public TestName name = new TestName();
+
+	private String symbol = "TEST";
+	private Tradestrategy tradestrategy = null;
+
+	/**
+	 * Method setUpBeforeClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * Method setUp.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		TradeAppLoadConfig.loadAppProperties();
+		this.tradestrategy = TradestrategyTest.getTestTradestrategy(symbol);
+		assertNotNull("1", this.tradestrategy);
+	}
+
+	/**
+	 * Method tearDown.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+		TradestrategyTest.clearDBData();
+	}
+
+	/**
+	 * Method tearDownAfterClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Test
+	public void testGetUpsertSql() {
+
+		try {
+			String sql = CandleBulkWriter.getUpsertSql(1);
+			assertTrue("1", sql.startsWith("insert into candle ("));
+			assertTrue("2", sql.endsWith("version = version + 1"));
+			assertEquals("3", 14, count(sql, '?'));
+			assertEquals("4", count(sql, '('), count(sql, ')'));
+
+			sql = CandleBulkWriter.getUpsertSql(3);
+			assertEquals("5", 3 * 14, count(sql, '?'));
+			assertEquals("6", 3, sql.split("\\(\\?, ").length - 1);
+			assertEquals("7", 1, sql.split(" on duplicate key update ").length - 1);
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	@Test
+	public void testWrite() {
+
+		try {
+			CandleBulkWriter candleBulkWriter = new CandleBulkWriter();
+			CandleSeries candleSeries = this.tradestrategy.getStrategyData().getBaseCandleSeries();
+			StrategyData.doDummyData(candleSeries, this.tradestrategy.getTradingday(), 1, BarSize.FIVE_MIN, true, 0);
+			int rows = candleSeries.getItemCount();
+			assertTrue("1", rows > 0);
+
+			assertEquals("2", rows, candleBulkWriter.write(candleSeries));
+			for (int i = 0; i < rows; i++) {
+				Candle candle = ((CandleItem) candleSeries.getDataItem(i)).getCandle();
+				assertNotNull("3", candle.getIdCandle());
+				assertEquals("4", new Integer(0), candle.getVersion());
+			}
+
+			/*
+			 * The ids are set so a second persist of the series writes
+			 * nothing.
+			 */
+			assertEquals("5", 0, candleBulkWriter.write(candleSeries));
+
+			CandleHome candleHome = new CandleHome();
+			List<Candle> candles = candleHome.findByContractAndDateRange(
+					this.tradestrategy.getContract().getIdContract(), this.tradestrategy.getTradingday().getOpen(),
+					this.tradestrategy.getTradingday().getClose(), this.tradestrategy.getBarSize());
+			assertEquals("6", rows, candles.size());
+
+			/*
+			 * Writing the same candles again as new instances updates the
+			 * existing rows in place.
+			 */
+			Integer idCandle = ((CandleItem) candleSeries.getDataItem(0)).getCandle().getIdCandle();
+			CandleSeries rewriteSeries = StrategyData.create(this.tradestrategy).getBaseCandleSeries();
+			StrategyData.doDummyData(rewriteSeries, this.tradestrategy.getTradingday(), 1, BarSize.FIVE_MIN, true, 0);
+			assertEquals("7", rows, candleBulkWriter.write(rewriteSeries));
+			Candle candle = ((CandleItem) rewriteSeries.getDataItem(0)).getCandle();
+			assertEquals("8", idCandle, candle.getIdCandle());
+			assertEquals("9", new Integer(1), candle.getVersion());
+
+			candles = candleHome.findByContractAndDateRange(this.tradestrategy.getContract().getIdContract(),
+					this.tradestrategy.getTradingday().getOpen(), this.tradestrategy.getTradingday().getClose(),
+					this.tradestrategy.getBarSize());
+			assertEquals("10", rows, candles.size());
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	/**
+	 * Method count.
+	 * 
+	 * @param value
+	 *            String
+	 * @param c
+	 *            char
+	 * @return int the number of times c occurs in value.
+	 */
+	private static int count(String value, char c) {
+		int count = 0;
+		for (int i = 0; i < value.length(); i++) {
+			if (value.charAt(i) == c)
+				count++;
+		}
+		return count;
+	}
+}
@@ -0,0 +1,213 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.persistent.dao;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.core.util.TradingCalendar;
+
+/**
+ * Some tests for the {@link CandleCache} class.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class CandleCacheTest {
+
+	private final static Logger _log = LoggerFactory.getLogger(CandleCacheTest.class);
+	@Rule
+	public TestName name = new TestName();
+
+	private Path directory = null;
+	private CandleCache candleCache = null;
+
+	/**
+	 * Method setUpBeforeClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * Method setUp.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		this.directory = Files.createTempDirectory("candleCache");
+		this.candleCache = new CandleCache(this.directory);
+	}
+
+	/**
+	 * Method tearDown.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+		Files.walkFileTree(this.directory, new SimpleFileVisitor<Path>() {
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				Files.delete(file);
+				return FileVisitResult.CONTINUE;
+			}
+
+			public FileVisitResult postVisitDirectory(Path dir, IOException ex) throws IOException {
+				Files.delete(dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	/**
+	 * Method tearDownAfterClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Test
+	public void testPutFind() {
+		try {
+			Contract contract = new Contract();
+			contract.setIdContract(12);
+			ZonedDateTime startDay = TradingCalendar.getTradingDayStart(
+					ZonedDateTime.of(2016, 3, 1, 12, 0, 0, 0, TradingCalendar.MKT_TIMEZONE));
+			ZonedDateTime endDay = startDay.plusDays(2);
+			List<Candle> candles = new ArrayList<Candle>();
+			int idCandle = 100;
+			/*
+			 * Two days of candles, the day between has none.
+			 */
+			for (ZonedDateTime day = startDay; !day.isAfter(endDay); day = day.plusDays(2)) {
+				Tradingday tradingday = new Tradingday(day, TradingCalendar.getTradingDayEnd(day));
+				tradingday.setIdTradingDay(day.getDayOfMonth());
+				for (int i = 0; i < 390; i++) {
+					Candle candle = new Candle();
+					candle.setIdCandle(idCandle++);
+					candle.setContract(contract);
+					candle.setTradingday(tradingday);
+					candle.setBarSize(60);
+					candle.setStartPeriod(day.plusMinutes(i));
+					candle.setEndPeriod(day.plusMinutes(i + 1).minusNanos(1000000));
+					candle.setLastUpdateDate(day.plusMinutes(i + 1));
+					candle.setOpen(new BigDecimal("10.25").add(BigDecimal.valueOf(i, 2)));
+					candle.setHigh(new BigDecimal("10.5").add(BigDecimal.valueOf(i, 2)));
+					candle.setLow(new BigDecimal("10.01").add(BigDecimal.valueOf(i, 2)));
+					candle.setClose(new BigDecimal("10.30").add(BigDecimal.valueOf(i, 2)));
+					candle.setVwap((i % 7 == 0) ? null : new BigDecimal("10.27").add(BigDecimal.valueOf(i, 2)));
+					candle.setVolume((long) (i * 1000));
+					candle.setTradeCount(i);
+					candle.setVersion(0);
+					candle.setPeriod("Period " + i);
+					candles.add(candle);
+				}
+			}
+			assertNull("1", this.candleCache.find(12, startDay, endDay, 60));
+			this.candleCache.put(12, startDay, endDay, 60, candles, this.candleCache.getGeneration());
+
+			List<Candle> results = this.candleCache.find(12, startDay, endDay, 60);
+			assertNotNull("2", results);
+			assertEquals("3", candles.size(), results.size());
+			for (int i = 0; i < candles.size(); i++) {
+				Candle candle = candles.get(i);
+				Candle result = results.get(i);
+				assertEquals("4", candle.getIdCandle(), result.getIdCandle());
+				assertEquals("5", candle.getContract().getIdContract(), result.getContract().getIdContract());
+				assertEquals("6", candle.getTradingday().getIdTradingDay(), result.getTradingday().getIdTradingDay());
+				assertTrue("7", candle.getTradingday().getOpen().isEqual(result.getTradingday().getOpen()));
+				assertTrue("8", candle.getStartPeriod().isEqual(result.getStartPeriod()));
+				assertTrue("9", candle.getEndPeriod().isEqual(result.getEndPeriod()));
+				assertEquals("10", candle.getOpen().setScale(2), result.getOpen());
+				assertEquals("11", candle.getHigh().setScale(2), result.getHigh());
+				assertEquals("12", candle.getLow(), result.getLow());
+				assertEquals("13", candle.getClose(), result.getClose());
+				assertEquals("14", candle.getVwap(), result.getVwap());
+				assertEquals("15", candle.getVolume(), result.getVolume());
+				assertEquals("16", candle.getTradeCount(), result.getTradeCount());
+				assertEquals("17", candle.getPeriod(), result.getPeriod());
+				assertEquals("18", candle.getBarSize(), result.getBarSize());
+			}
+
+			results = this.candleCache.find(12, startDay.plusDays(1), endDay, 60);
+			assertEquals("19", 390, results.size());
+			assertEquals("20", Integer.valueOf(100 + 390), results.get(0).getIdCandle());
+
+			this.candleCache.invalidate(12, startDay, 60);
+			assertNull("21", this.candleCache.find(12, startDay, endDay, 60));
+			assertNotNull("22", this.candleCache.find(12, startDay.plusDays(1), endDay, 60));
+			assertNull("23", this.candleCache.find(12, startDay, endDay, 300));
+
+			/*
+			 * Candles read before the day was invalidated are not cached.
+			 */
+			long generation = this.candleCache.getGeneration();
+			this.candleCache.invalidate(12, startDay, 60);
+			this.candleCache.put(12, startDay, endDay, 60, candles, generation);
+			assertNull("24", this.candleCache.find(12, startDay, endDay, 60));
+			this.candleCache.put(12, startDay, endDay, 60, candles, this.candleCache.getGeneration());
+			assertEquals("25", candles.size(), this.candleCache.find(12, startDay, endDay, 60).size());
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+}
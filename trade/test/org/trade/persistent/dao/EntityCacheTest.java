@@ -0,0 +1,186 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.persistent.dao;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Some tests for the {@link EntityCache} class.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class EntityCacheTest {
+
+	private final static Logger _log = LoggerFactory.getLogger(EntityCacheTest.class);
+
+	@Rule
+	public TestName name = new TestName();
+
+	/**
+	 * Method setUpBeforeClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * Method setUp.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * Method tearDown.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * Method tearDownAfterClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Test
+	public void testGetReturnsCopy() {
+		try {
+			EntityCache cache = new EntityCache(10, 60000);
+			assertNull(cache.get(Strategy.class, 1));
+
+			Strategy strategy = new Strategy("Test", "org.trade.strategy.TestStrategy");
+			strategy.setIdStrategy(1);
+			cache.put(Strategy.class, 1, strategy, cache.getGeneration(Strategy.class));
+
+			Strategy copy = cache.get(Strategy.class, 1);
+			assertNotNull(copy);
+			assertNotSame(strategy, copy);
+			assertEquals("Test", copy.getName());
+			copy.setName("Changed");
+			assertEquals("Test", cache.get(Strategy.class, 1).getName());
+			assertNull(cache.get(Contract.class, 1));
+
+			assertEquals(2, cache.getHits(Strategy.class));
+			assertEquals(1, cache.getMisses(Strategy.class));
+			assertEquals(1, cache.getMisses(Contract.class));
+			_log.info(cache.toString());
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	@Test
+	public void testInvalidate() {
+		try {
+			EntityCache cache = new EntityCache(10, 60000);
+			Strategy strategy = new Strategy("Test", "org.trade.strategy.TestStrategy");
+			strategy.setIdStrategy(1);
+			cache.put(Strategy.class, 1, strategy, cache.getGeneration(Strategy.class));
+			cache.put(Strategy.class, "name:Test", strategy, cache.getGeneration(Strategy.class));
+			Portfolio portfolio = new Portfolio("Test", "Test");
+			cache.put(Portfolio.class, 1, portfolio, cache.getGeneration(Portfolio.class));
+			assertEquals(3, cache.size());
+
+			cache.invalidate(Strategy.class);
+			assertNull(cache.get(Strategy.class, 1));
+			assertNull(cache.get(Strategy.class, "name:Test"));
+			assertNotNull(cache.get(Portfolio.class, 1));
+
+			/*
+			 * An entity read before the region was invalidated is not cached.
+			 */
+			long generation = cache.getGeneration(Strategy.class);
+			cache.invalidate(Strategy.class);
+			cache.put(Strategy.class, 1, strategy, generation);
+			assertNull(cache.get(Strategy.class, 1));
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	@Test
+	public void testSizeAndExpiry() {
+		try {
+			EntityCache cache = new EntityCache(2, 60000);
+			for (int i = 1; i <= 3; i++) {
+				Strategy strategy = new Strategy("Test" + i, "org.trade.strategy.TestStrategy");
+				cache.put(Strategy.class, i, strategy, cache.getGeneration(Strategy.class));
+			}
+			assertEquals(2, cache.size());
+			assertNull(cache.get(Strategy.class, 1));
+			assertNotNull(cache.get(Strategy.class, 3));
+
+			EntityCache expired = new EntityCache(2, -1);
+			expired.put(Strategy.class, 1, new Strategy("Test"), expired.getGeneration(Strategy.class));
+			assertNull(expired.get(Strategy.class, 1));
+			assertEquals(0, expired.size());
+
+			EntityCache disabled = new EntityCache(0, 60000);
+			assertFalse(disabled.isEnabled());
+			disabled.put(Strategy.class, 1, new Strategy("Test"), disabled.getGeneration(Strategy.class));
+			assertNull(disabled.get(Strategy.class, 1));
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+}
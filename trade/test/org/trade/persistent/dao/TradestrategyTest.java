@@ -269,6 +269,68 @@ public class TradestrategyTest {
 		}
 	}
 
+	@Test
+	public void testPersistResolvesContracts() {
+
+		try {
+			/*
+			 * The contracts resolved by the batched save must be the ones a
+			 * look up of each contract by its unique key finds.
+			 */
+			AspectHome aspectHome = new AspectHome();
+			ContractHome contractHome = new ContractHome();
+			TradingdayHome tradingdayHome = new TradingdayHome();
+			Strategy strategy = (Strategy) DAOStrategy.newInstance().getObject();
+			Portfolio portfolio = (Portfolio) DAOPortfolio.newInstance().getObject();
+			ZonedDateTime march = ZonedDateTime.of(2016, 3, 18, 0, 0, 0, 0, TradingCalendar.MKT_TIMEZONE);
+			ZonedDateTime june = ZonedDateTime.of(2016, 6, 17, 0, 0, 0, 0, TradingCalendar.MKT_TIMEZONE);
+			aspectHome.persist(new Contract(SECType.STOCK, this.symbol, Exchange.SMART, Currency.USD, null, null));
+			aspectHome.persist(new Contract(SECType.FUTURE, "ES", "GLOBEX", Currency.USD, march, new BigDecimal(50)));
+			aspectHome.persist(new Contract(SECType.FUTURE, "ES", "GLOBEX", Currency.USD, june, new BigDecimal(50)));
+
+			Tradingday tradingday = Tradingday
+					.newInstance(TradingCalendar.getPrevTradingDay(TradingCalendar.getDateTimeNowMarketTimeZone()));
+			Contract[] contracts = {
+					new Contract(SECType.STOCK, this.symbol, Exchange.SMART, Currency.USD, null, null),
+					new Contract(SECType.FUTURE, "ES", "GLOBEX", Currency.USD, june.minusDays(7), new BigDecimal(50)),
+					new Contract(SECType.STOCK, "TEST2", Exchange.SMART, Currency.USD, null, null),
+					new Contract(SECType.STOCK, "TEST2", Exchange.SMART, Currency.USD, null, null) };
+			Integer[] barSizes = { 300, 300, 300, 60 };
+			for (int i = 0; i < contracts.length; i++) {
+				Tradestrategy tradestrategy = new Tradestrategy(contracts[i], tradingday, strategy, portfolio,
+						new BigDecimal(100), null, null, true, 2, barSizes[i]);
+				tradestrategy.setDirty(true);
+				tradingday.addTradestrategy(tradestrategy);
+			}
+			Contract expected = contractHome.findByUniqueKey(SECType.FUTURE, "ES", "GLOBEX", Currency.USD,
+					june.minusDays(7));
+			assertTrue("1", june.isEqual(expected.getExpiry()));
+
+			tradingdayHome.persist(tradingday);
+			assertEquals("2", contracts.length, tradingday.getTradestrategies().size());
+			for (int i = 0; i < contracts.length; i++) {
+				Contract contract = tradingday.getTradestrategies().get(i).getContract();
+				assertNotNull("3", contract.getIdContract());
+				expected = contractHome.findByUniqueKey(contracts[i].getSecType(), contracts[i].getSymbol(),
+						contracts[i].getExchange(), contracts[i].getCurrency(), contracts[i].getExpiry());
+				assertEquals("4", expected.getIdContract(), contract.getIdContract());
+			}
+			/*
+			 * A new contract used twice in the same save is saved once.
+			 */
+			int count = 0;
+			for (Aspect aspect : aspectHome.findByClassName(Contract.class.getName()).getAspect()) {
+				if ("TEST2".equals(((Contract) aspect).getSymbol()))
+					count++;
+			}
+			assertEquals("5", 1, count);
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
 	/**
 	 * Method getTestTradestrategy.
 	 * 
@@ -0,0 +1,246 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.persistent.dao;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.core.util.TradingCalendar;
+import org.trade.dictionary.valuetype.Currency;
+import org.trade.dictionary.valuetype.Exchange;
+import org.trade.dictionary.valuetype.SECType;
+import org.trade.dictionary.valuetype.Side;
+
+/**
+ * Some tests for the {@link Tradingdays} class.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class TradingdaysTest {
+
+	private final static Logger _log = LoggerFactory.getLogger(TradingdaysTest.class);
+	@Rule
+	public TestName name = new TestName();
+
+	/**
+	 * Method setUpBeforeClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * Method setUp.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * Method tearDown.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * Method tearDownAfterClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Test
+	public void testSplitAsScanner() {
+		try {
+			/*
+			 * The lines of the load files and random lines of delimiters,
+			 * spaces and values must split as the Scanner used to.
+			 */
+			List<String> lines = new ArrayList<String>();
+			for (File file : new File("db").listFiles()) {
+				if (!file.getName().endsWith(".csv"))
+					continue;
+				try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+					String line = null;
+					while ((line = reader.readLine()) != null) {
+						lines.add(line);
+					}
+				}
+			}
+			assertFalse("1", lines.isEmpty());
+			Random random = new Random(11);
+			char[] chars = { ',', '|', ' ', 'A', '1', '/' };
+			for (int i = 0; i < 10000; i++) {
+				StringBuilder line = new StringBuilder();
+				int length = random.nextInt(20);
+				for (int j = 0; j < length; j++) {
+					line.append(chars[random.nextInt(chars.length)]);
+				}
+				lines.add(line.toString());
+			}
+			for (String line : lines) {
+				assertArrayEquals(line, scan(line, "\\,"), Tradingdays.split(line, ','));
+				assertArrayEquals(line, scan(line, "\\|"), Tradingdays.split(line, '|'));
+			}
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	@Test
+	public void testMerge() {
+		try {
+			ZonedDateTime open = TradingCalendar
+					.getTradingDayStart(ZonedDateTime.of(2016, 3, 1, 12, 0, 0, 0, TradingCalendar.MKT_TIMEZONE));
+			Strategy strategy = new Strategy("Test");
+			Portfolio portfolio = new Portfolio("Test", "Test");
+
+			Tradingdays tradingdays = new Tradingdays();
+			Tradingday tradingday = new Tradingday(open, TradingCalendar.getTradingDayEnd(open));
+			Contract contract = new Contract(SECType.STOCK, "SPY", Exchange.SMART, Currency.USD, null, null);
+			tradingday.addTradestrategy(newTradestrategy(contract, tradingday, strategy, portfolio));
+			tradingdays.add(tradingday);
+
+			/*
+			 * Imported the same tradestrategy and a new one for the loaded
+			 * day and one for a new day.
+			 */
+			Tradingdays imported = new Tradingdays();
+			Tradingday importedDay = new Tradingday(open, TradingCalendar.getTradingDayEnd(open));
+			importedDay.setMarketGap("Gap");
+			importedDay.addTradestrategy(newTradestrategy(
+					new Contract(SECType.STOCK, "SPY", Exchange.SMART, Currency.USD, null, null), importedDay,
+					strategy, portfolio));
+			importedDay.addTradestrategy(newTradestrategy(
+					new Contract(SECType.STOCK, "QQQ", Exchange.SMART, Currency.USD, null, null), importedDay,
+					strategy, portfolio));
+			imported.add(importedDay);
+			ZonedDateTime nextOpen = TradingCalendar.getTradingDayStart(
+					ZonedDateTime.of(2016, 3, 2, 12, 0, 0, 0, TradingCalendar.MKT_TIMEZONE));
+			Tradingday nextDay = new Tradingday(nextOpen, TradingCalendar.getTradingDayEnd(nextOpen));
+			nextDay.addTradestrategy(newTradestrategy(
+					new Contract(SECType.STOCK, "SPY", Exchange.SMART, Currency.USD, null, null), nextDay, strategy,
+					portfolio));
+			imported.add(nextDay);
+
+			tradingdays.merge(imported, tradingday);
+			assertEquals("1", 2, tradingdays.getTradingdays().size());
+			assertSame("2", tradingday, tradingdays.getTradingdays().get(0));
+			assertEquals("3", 2, tradingday.getTradestrategies().size());
+			assertEquals("4", "Gap", tradingday.getMarketGap());
+			for (Tradestrategy tradestrategy : tradingday.getTradestrategies()) {
+				assertSame("5", tradingday, tradestrategy.getTradingday());
+			}
+			Tradingday mergedNextDay = tradingdays.getTradingdays().get(1);
+			assertSame("6", nextDay, mergedNextDay);
+			assertEquals("7", 1, mergedNextDay.getTradestrategies().size());
+			assertSame("8", contract, mergedNextDay.getTradestrategies().get(0).getContract());
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	/**
+	 * Method scan. Split a line with a Scanner.
+	 * 
+	 * @param line
+	 *            String
+	 * @param delimiter
+	 *            String
+	 * @return String[]
+	 */
+	private static String[] scan(String line, String delimiter) {
+		List<String> tokens = new ArrayList<String>();
+		try (Scanner scanner = new Scanner(line)) {
+			scanner.useDelimiter(delimiter);
+			while (scanner.hasNext()) {
+				tokens.add(scanner.next());
+			}
+		}
+		return tokens.toArray(new String[tokens.size()]);
+	}
+
+	/**
+	 * Method newTradestrategy.
+	 * 
+	 * @param contract
+	 *            Contract
+	 * @param tradingday
+	 *            Tradingday
+	 * @param strategy
+	 *            Strategy
+	 * @param portfolio
+	 *            Portfolio
+	 * @return Tradestrategy
+	 */
+	private static Tradestrategy newTradestrategy(Contract contract, Tradingday tradingday, Strategy strategy,
+			Portfolio portfolio) {
+		return new Tradestrategy(contract, tradingday, strategy, portfolio, new BigDecimal(100), Side.BOT, "1",
+				true, 2, 300);
+	}
+}
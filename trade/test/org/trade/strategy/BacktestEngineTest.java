@@ -0,0 +1,269 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.strategy;
+
+import static org.junit.Assert.*;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.broker.BrokerModel;
+import org.trade.core.dao.AspectHome;
+import org.trade.core.util.TradingCalendar;
+import org.trade.dictionary.valuetype.Action;
+import org.trade.dictionary.valuetype.BarSize;
+import org.trade.dictionary.valuetype.OrderType;
+import org.trade.persistent.PersistentModel;
+import org.trade.persistent.TradePersistentModel;
+import org.trade.persistent.dao.CandleHome;
+import org.trade.persistent.dao.Strategy;
+import org.trade.persistent.dao.StrategyHome;
+import org.trade.persistent.dao.TradeOrder;
+import org.trade.persistent.dao.Tradestrategy;
+import org.trade.persistent.dao.TradestrategyHome;
+import org.trade.persistent.dao.TradestrategyOrders;
+import org.trade.persistent.dao.TradestrategyTest;
+import org.trade.persistent.dao.Tradingday;
+import org.trade.persistent.dao.TradingdayHome;
+import org.trade.persistent.dao.Tradingdays;
+import org.trade.strategy.data.CandleSeries;
+import org.trade.strategy.data.StrategyData;
+import org.trade.strategy.data.candle.CandleItem;
+import org.trade.ui.TradeAppLoadConfig;
+
+/**
+ * Runs two Tradestrategies for different Contracts through the
+ * BacktestEngine and checks each gets its own orders and position.
+ * 
+ * @author Simon Allen
+ * 
+ * @version $Revision: 1.0 $
+ */
+public class BacktestEngineTest {
+
+	private final static Logger _log = LoggerFactory.getLogger(BacktestEngineTest.class);
+	@Rule
+	public TestName name = new TestName();
+
+	private static final String STRATEGY_NAME = "BacktestEngineTest";
+	private static final int QUANTITY = 100;
+
+	private String[] symbols = { "TEST", "TEST2" };
+	private AspectHome aspectHome = null;
+	private Strategy strategy = null;
+	private Tradingdays tradingdays = null;
+
+	/**
+	 * Method setUpBeforeClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * Method setUp.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		TradeAppLoadConfig.loadAppProperties();
+		aspectHome = new AspectHome();
+		strategy = new StrategyHome().findByName(STRATEGY_NAME);
+		if (null == strategy) {
+			strategy = aspectHome.persist(new Strategy(STRATEGY_NAME, BacktestEntryStrategy.class.getSimpleName()));
+		}
+		CandleHome candleHome = new CandleHome();
+		Tradingday tradingday = null;
+		for (String symbol : symbols) {
+			Tradestrategy tradestrategy = TradestrategyTest.getTestTradestrategy(symbol);
+			tradestrategy.setStrategy(strategy);
+			aspectHome.persist(tradestrategy);
+			tradestrategy = new TradestrategyHome().findById(tradestrategy.getIdTradeStrategy());
+			tradestrategy.setStrategyData(StrategyData.create(tradestrategy));
+			StrategyData.doDummyData(tradestrategy.getStrategyData().getBaseCandleSeries(),
+					tradestrategy.getTradingday(), 1, BarSize.FIVE_MIN, true, 0);
+			candleHome.persistCandleSeries(tradestrategy.getStrategyData().getBaseCandleSeries());
+			tradingday = tradestrategy.getTradingday();
+		}
+		tradingdays = new Tradingdays();
+		tradingdays.add(new TradingdayHome().findByOpenCloseDate(tradingday.getOpen(), tradingday.getClose()));
+	}
+
+	/**
+	 * Method tearDown.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+		TradestrategyTest.clearDBData();
+		aspectHome.remove(strategy);
+	}
+
+	/**
+	 * Method tearDownAfterClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Test
+	public void testRunTwoTradestrategies() {
+
+		BacktestEngine engine = new BacktestEngine(false, 2);
+		try {
+			List<Class<? extends AbstractStrategyRule>> strategyClasses = new ArrayList<Class<? extends AbstractStrategyRule>>();
+			strategyClasses.add(BacktestEntryStrategy.class);
+			List<BacktestResult> results = engine.run(tradingdays, strategyClasses);
+			assertEquals("1", symbols.length, results.size());
+
+			PersistentModel tradePersistentModel = new TradePersistentModel();
+			Set<Integer> orderKeys = new HashSet<Integer>();
+			for (int i = 0; i < symbols.length; i++) {
+				BacktestResult result = results.get(i);
+				Tradestrategy tradestrategy = result.getTradestrategy();
+				assertEquals("2", symbols[i], tradestrategy.getContract().getSymbol());
+				assertFalse("3", result.hasError());
+				assertTrue("4", result.getCandleCount() > 0);
+
+				TradestrategyOrders positionOrders = result.getTradestrategyOrders();
+				assertEquals("5", tradestrategy.getIdTradeStrategy(), positionOrders.getIdTradeStrategy());
+				assertTrue("6", positionOrders.hasOpenTradePosition());
+				assertEquals("7", 1, positionOrders.getTradeOrders().size());
+				assertEquals("8", QUANTITY,
+						positionOrders.getOpenTradePosition().getOpenQuantity().intValue());
+
+				/*
+				 * The flushed orders must belong to this Tradestrategy and the
+				 * order keys must be unique across both Contracts.
+				 */
+				positionOrders = tradePersistentModel
+						.findPositionOrdersByTradestrategyId(tradestrategy.getIdTradeStrategy());
+				assertEquals("9", 1, positionOrders.getTradeOrders().size());
+				for (TradeOrder tradeOrder : positionOrders.getTradeOrders()) {
+					assertTrue("10", tradeOrder.getIsFilled());
+					assertTrue("11", orderKeys.add(tradeOrder.getOrderKey()));
+				}
+				assertTrue("12", positionOrders.hasOpenTradePosition());
+				assertEquals("13", tradestrategy.getContract().getIdContract(), positionOrders.getContract().getIdContract());
+			}
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		} finally {
+			engine.shutdown();
+		}
+	}
+
+	/**
+	 * Buys at market on the first candle of the Tradingday and stops once
+	 * the position is open.
+	 */
+	public static class BacktestEntryStrategy extends AbstractStrategyRule {
+
+		/**
+		 * 
+		 */
+		private static final long serialVersionUID = 4815001346295763012L;
+
+		/**
+		 * Constructor for BacktestEntryStrategy.
+		 * 
+		 * @param brokerManagerModel
+		 *            BrokerModel
+		 * @param strategyData
+		 *            StrategyData
+		 * @param idTradestrategy
+		 *            Integer
+		 */
+		public BacktestEntryStrategy(BrokerModel brokerManagerModel, StrategyData strategyData,
+				Integer idTradestrategy) {
+			super(brokerManagerModel, strategyData, idTradestrategy);
+		}
+
+		/**
+		 * Method runStrategy.
+		 * 
+		 * @param candleSeries
+		 *            CandleSeries
+		 * @param newBar
+		 *            boolean
+		 * @see org.trade.strategy.StrategyRule#runStrategy(CandleSeries,
+		 *      boolean)
+		 */
+		public void runStrategy(CandleSeries candleSeries, boolean newBar) {
+
+			try {
+				if (this.isThereOpenPosition()) {
+					this.cancel();
+					return;
+				}
+				CandleItem currentCandleItem = this.getCurrentCandle();
+				if (null == currentCandleItem || !getTradestrategyOrders().getTradeOrders().isEmpty())
+					return;
+
+				ZonedDateTime startPeriod = currentCandleItem.getPeriod().getStart();
+				if (TradingCalendar.isMarketHours(getTradestrategy().getTradingday().getOpen(),
+						getTradestrategy().getTradingday().getClose(), startPeriod)
+						&& TradingCalendar.sameDay(getTradestrategy().getTradingday().getOpen(), startPeriod)) {
+					createOrder(getTradestrategy().getContract(), Action.BUY, OrderType.MKT, null, null, QUANTITY,
+							false, true);
+				}
+			} catch (Exception ex) {
+				_log.error("Error runStrategy exception: " + ex.getMessage(), ex);
+				error(1, 10, "Error runStrategy exception: " + ex.getMessage());
+			}
+		}
+	}
+}
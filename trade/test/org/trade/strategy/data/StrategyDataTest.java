@@ -0,0 +1,204 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.strategy.data;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.core.util.TradingCalendar;
+import org.trade.dictionary.valuetype.BarSize;
+import org.trade.dictionary.valuetype.Currency;
+import org.trade.dictionary.valuetype.Exchange;
+import org.trade.dictionary.valuetype.SECType;
+import org.trade.dictionary.valuetype.Side;
+import org.trade.persistent.dao.Contract;
+import org.trade.persistent.dao.Strategy;
+import org.trade.persistent.dao.Tradestrategy;
+import org.trade.persistent.dao.Tradingday;
+import org.trade.strategy.data.candle.CandleItem;
+
+/**
+ * Some tests for the {@link StrategyData} class.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class StrategyDataTest {
+
+	private final static Logger _log = LoggerFactory.getLogger(StrategyDataTest.class);
+
+	@Rule
+	public TestName name = new TestName();
+
+	private StrategyData strategyData = null;
+	private ZonedDateTime open = null;
+	private ZonedDateTime close = null;
+
+	/**
+	 * Method setUpBeforeClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * Method setUp.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		ZonedDateTime date = ZonedDateTime.of(2016, 3, 1, 12, 0, 0, 0, TradingCalendar.MKT_TIMEZONE);
+		this.open = TradingCalendar.getTradingDayStart(date);
+		this.close = TradingCalendar.getTradingDayEnd(date);
+		Tradingday tradingday = new Tradingday(this.open, this.close);
+		Contract contract = new Contract(SECType.STOCK, "SPY", Exchange.SMART, Currency.USD, null, null);
+		Tradestrategy tradestrategy = new Tradestrategy(contract, tradingday, new Strategy("TestStrategy"), null,
+				new BigDecimal(100), Side.BOT, "1", true, 1, BarSize.FIVE_MIN);
+		this.strategyData = StrategyData.create(tradestrategy);
+	}
+
+	/**
+	 * Method tearDown.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * Method tearDownAfterClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Test
+	public void testAggregateSeries() {
+		try {
+			/*
+			 * 15min series built from the start and 60min series built part
+			 * way through the day from 5sec bars rolled into 5min bars.
+			 */
+			CandleSeries fifteenMin = this.strategyData.getAggregateSeries(900);
+			CandleSeries sixtyMin = null;
+			int bars = (int) (TradingCalendar.getDurationInSeconds(this.open, this.close) / 5);
+			double[][] values = new double[bars][5];
+			Random random = new Random(11);
+			double price = 100;
+			for (int i = 0; i < bars; i++) {
+				double high = price + random.nextInt(10) / 100d;
+				double low = price - random.nextInt(10) / 100d;
+				double close = low + (high - low) * random.nextInt(3) / 2d;
+				values[i] = new double[] { price, high, low, close, random.nextInt(1000) };
+				this.strategyData.buildCandle(this.open.plusSeconds(i * 5), price, high, low, close,
+						(long) values[i][4], close, 1, BarSize.FIVE_MIN / 5, this.open.plusSeconds(i * 5 + 5));
+				price = close;
+				if (i == bars / 3)
+					sixtyMin = this.strategyData.getAggregateSeries(BarSize.HOUR_MIN);
+			}
+
+			assertEquals("1", 26, fifteenMin.getItemCount());
+			for (int i = 0; i < fifteenMin.getItemCount(); i++) {
+				assertCandle("2", (CandleItem) fifteenMin.getDataItem(i), values, i * 180, (i + 1) * 180);
+			}
+			assertEquals("3", 7, sixtyMin.getItemCount());
+			assertCandle("4", (CandleItem) sixtyMin.getDataItem(6), values, 6 * 720 - 360, bars);
+			CandleSeries day = this.strategyData.getAggregateSeries(BarSize.DAY);
+			assertEquals("5", 1, day.getItemCount());
+			assertCandle("6", (CandleItem) day.getDataItem(0), values, 0, bars);
+
+			this.strategyData.changeCandleSeriesPeriod(900);
+			CandleSeries chartSeries = this.strategyData.getCandleDataset().getSeries(0);
+			assertEquals("7", fifteenMin.getItemCount(), chartSeries.getItemCount());
+			assertCandle("8", (CandleItem) chartSeries.getDataItem(3), values, 3 * 180, 4 * 180);
+
+			this.strategyData.clearBaseCandleDataset();
+			assertTrue("9", fifteenMin.isEmpty());
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	/**
+	 * Method assertCandle. Check a candle against the bars it is made from.
+	 * 
+	 * @param message
+	 *            String
+	 * @param candleItem
+	 *            CandleItem
+	 * @param values
+	 *            double[][] open, high, low, close, volume
+	 * @param from
+	 *            int
+	 * @param to
+	 *            int
+	 */
+	private static void assertCandle(String message, CandleItem candleItem, double[][] values, int from, int to) {
+		double high = Double.MIN_VALUE;
+		double low = Double.MAX_VALUE;
+		long volume = 0;
+		for (int i = from; i < to; i++) {
+			high = Math.max(high, values[i][1]);
+			low = Math.min(low, values[i][2]);
+			volume += (long) values[i][4];
+		}
+		assertEquals(message, values[from][0], candleItem.getOpen(), 0.000001);
+		assertEquals(message, high, candleItem.getHigh(), 0.000001);
+		assertEquals(message, low, candleItem.getLow(), 0.000001);
+		assertEquals(message, values[to - 1][3], candleItem.getClose(), 0.000001);
+		assertEquals(message, volume, candleItem.getVolume());
+	}
+}
@@ -0,0 +1,189 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.strategy.data.base;
+
+import static org.junit.Assert.*;
+
+import java.util.LinkedList;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Some tests for the {@link RollingWindow} class.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class RollingWindowTest {
+
+	private final static Logger _log = LoggerFactory.getLogger(RollingWindowTest.class);
+	@Rule
+	public TestName name = new TestName();
+
+	private static final double DELTA = 1e-9;
+
+	/**
+	 * Method setUpBeforeClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * Method setUp.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * Method tearDown.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * Method tearDownAfterClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Test
+	public void testAddAndEvict() {
+		try {
+			RollingWindow window = new RollingWindow(3);
+			assertTrue("1", window.isEmpty());
+			assertTrue("2", Double.isNaN(window.add(1)));
+			window.add(2);
+			window.add(3);
+			assertTrue("3", window.isFull());
+			assertEquals("4", 1, window.add(4), 0);
+			assertEquals("5", 3, window.size());
+			assertEquals("6", 4, window.getFirst(), 0);
+			assertEquals("7", 3, window.get(1), 0);
+			assertEquals("8", 2, window.getLast(), 0);
+			assertEquals("9", 9, window.getSum(), DELTA);
+			assertEquals("10", 29, window.getSumOfSquares(), DELTA);
+			// 2*1 + 3*2 + 4*3
+			assertEquals("11", 20, window.getWeightedSum(), DELTA);
+			assertEquals("12", 4, window.getMax(), 0);
+			assertEquals("13", 2, window.getMin(), 0);
+			window.setFirst(1);
+			assertEquals("14", 3, window.getMax(), 0);
+			assertEquals("15", 1, window.getMin(), 0);
+			assertEquals("16", 6, window.getSum(), DELTA);
+			window.clear();
+			assertTrue("17", window.isEmpty());
+			window.setFirst(5);
+			assertEquals("18", 1, window.size());
+			assertEquals("19", 5, window.getMax(), 0);
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	@Test
+	public void testMatchesRecalculation() {
+		try {
+			Random random = new Random(42);
+			for (int capacity : new int[] { 1, 2, 5, 20 }) {
+				RollingWindow window = new RollingWindow(capacity);
+				LinkedList<Double> values = new LinkedList<Double>();
+				for (int i = 0; i < 5000; i++) {
+					double value = 100 + (random.nextDouble() * 10);
+					if (values.isEmpty() || random.nextInt(4) == 0) {
+						window.add(value);
+						values.addFirst(value);
+						if (values.size() > capacity) {
+							values.removeLast();
+						}
+					} else {
+						window.setFirst(value);
+						values.set(0, value);
+					}
+					double sum = 0;
+					double weightedSum = 0;
+					double max = -Double.MAX_VALUE;
+					double min = Double.MAX_VALUE;
+					for (int j = 0; j < values.size(); j++) {
+						double v = values.get(j);
+						assertEquals("1", v, window.get(j), 0);
+						sum = sum + v;
+						weightedSum = weightedSum + (v * (values.size() - j));
+						max = Math.max(max, v);
+						min = Math.min(min, v);
+					}
+					double sumSq = 0;
+					for (double v : values) {
+						sumSq = sumSq + Math.pow(v - (sum / values.size()), 2);
+					}
+					double std = values.size() < 2 ? 0 : Math.sqrt(sumSq / (values.size() - 1));
+					assertEquals("2", values.size(), window.size());
+					assertEquals("3", sum, window.getSum(), 1e-6);
+					assertEquals("4", weightedSum, window.getWeightedSum(), 1e-6);
+					assertEquals("5", max, window.getMax(), 0);
+					assertEquals("6", min, window.getMin(), 0);
+					assertEquals("7", std, window.getStandardDeviation(), 1e-6);
+				}
+			}
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+}
@@ -0,0 +1,260 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.strategy.data.candle;
+
+import static org.junit.Assert.*;
+
+import java.time.ZonedDateTime;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.core.util.TradingCalendar;
+import org.trade.dictionary.valuetype.Currency;
+import org.trade.dictionary.valuetype.Exchange;
+import org.trade.dictionary.valuetype.SECType;
+import org.trade.persistent.dao.Contract;
+import org.trade.persistent.dao.Tradingday;
+import org.trade.strategy.data.CandleSeries;
+
+/**
+ * Some tests for the {@link CandleIndex} class and the look up of candles in a
+ * {@link CandleSeries}.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class CandleIndexTest {
+
+	private final static Logger _log = LoggerFactory.getLogger(CandleIndexTest.class);
+	@Rule
+	public TestName name = new TestName();
+
+	private Contract contract = null;
+	private ZonedDateTime open = null;
+	private ZonedDateTime close = null;
+
+	/**
+	 * Method setUpBeforeClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * Method setUp.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		ZonedDateTime today = TradingCalendar.getDateTimeNowMarketTimeZone();
+		this.contract = new Contract(SECType.STOCK, "TEST", Exchange.SMART, Currency.USD, null, null);
+		this.open = TradingCalendar.getTradingDayStart(today);
+		this.close = TradingCalendar.getTradingDayEnd(today);
+	}
+
+	/**
+	 * Method tearDown.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * Method tearDownAfterClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Test
+	public void testIndexOfAcrossDays() {
+		try {
+			CandleSeries series = createSeries(300, 3);
+			int barsPerDay = (int) (TradingCalendar.getDurationInSeconds(this.open, this.close) / 300);
+			assertEquals("1", barsPerDay * 3, series.getItemCount());
+
+			for (int i = 0; i < series.getItemCount(); i++) {
+				CandleItem candleItem = (CandleItem) series.getDataItem(i);
+				assertEquals("2", i, series.indexOf(candleItem.getPeriod().getStart()));
+				assertEquals("3", i, series.indexOf(candleItem.getPeriod().getStart().plusSeconds(299)));
+				assertEquals("4", i, series.indexOf(candleItem.getPeriod().getEnd()));
+			}
+			/*
+			 * Overnight, before the first and after the last candle.
+			 */
+			assertEquals("5", -1, series.indexOf(this.close.plusHours(2)));
+			assertEquals("6", -1, series.indexOf(this.open.minusSeconds(1)));
+			assertEquals("7", -1, series.indexOf(this.close.plusDays(2).plusSeconds(1)));
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	@Test
+	public void testIndexOfOutOfOrder() {
+		try {
+			CandleSeries series = new CandleSeries("Test", this.contract, 60, this.open, this.close);
+			for (int i = 10; i < 20; i++) {
+				addCandle(series, new CandlePeriod(this.open.plusMinutes(i), 60));
+			}
+			assertEquals("1", 5, series.indexOf(this.open.plusMinutes(15).plusSeconds(30)));
+			/*
+			 * Candles added before the first move every index along.
+			 */
+			for (int i = 0; i < 10; i++) {
+				addCandle(series, new CandlePeriod(this.open.plusMinutes(i), 60));
+			}
+			assertEquals("2", 15, series.indexOf(this.open.plusMinutes(15).plusSeconds(30)));
+			assertEquals("3", 0, series.indexOf(this.open));
+			series.clear();
+			assertEquals("4", -1, series.indexOf(this.open));
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	@Test
+	public void testIndexOfMisaligned() {
+		try {
+			/*
+			 * Candles that do not start on a bar size boundary from the first
+			 * candle.
+			 */
+			CandleSeries series = new CandleSeries("Test", this.contract, 300, this.open, this.close);
+			addCandle(series, new CandlePeriod(this.open, 300));
+			addCandle(series, new CandlePeriod(this.open.plusSeconds(420), 300));
+			assertEquals("1", 1, series.indexOf(this.open.plusSeconds(610)));
+			assertEquals("2", 1, series.indexOf(this.open.plusSeconds(719)));
+			assertEquals("3", -1, series.indexOf(this.open.plusSeconds(310)));
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	/**
+	 * Finding the current, the first and a random candle in a large series.
+	 * Every candle must resolve from its own bucket in the index i.e. with a
+	 * constant number of probes whatever the size of the series. The latency
+	 * is measured by CandleSeriesBenchmark.indexOf.
+	 */
+	@Test
+	public void testIndexOfLargeSeries() {
+		try {
+			int[] sizes = { 1000, 10000, 100000 };
+			for (int s = 0; s < sizes.length; s++) {
+				CandleSeries series = createSeries(5, sizes[s]);
+				int itemCount = series.getItemCount();
+				assertEquals("1", sizes[s], itemCount);
+				CandleIndex candleIndex = new CandleIndex(series.getBarSize());
+				for (int i = 0; i < itemCount; i++) {
+					CandlePeriod period = (CandlePeriod) ((CandleItem) series.getDataItem(i)).getPeriod();
+					candleIndex.put(period.getStart().toEpochSecond(), period.getEnd().toEpochSecond(), i);
+				}
+				assertFalse("2", candleIndex.isIrregular());
+				assertTrue("3", candleIndex.isValid(itemCount));
+				Random random = new Random(sizes[s]);
+				for (int i = 0; i < 3000; i++) {
+					int index = (i % 3 == 0 ? itemCount - 1 : (i % 3 == 1 ? 0 : random.nextInt(itemCount)));
+					ZonedDateTime time = ((CandleItem) series.getDataItem(index)).getPeriod().getStart()
+							.plusSeconds(2);
+					assertEquals("4", index, candleIndex.get(time.toEpochSecond(), 0));
+					assertEquals("5", index, series.indexOf(time));
+				}
+			}
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	/**
+	 * Method createSeries. A series with consecutive candles for each day, the
+	 * days are one calendar day apart.
+	 * 
+	 * @param barSize
+	 *            int
+	 * @param count
+	 *            int the number of days if barSize is 300 else the number of
+	 *            candles.
+	 * @return CandleSeries
+	 */
+	private CandleSeries createSeries(int barSize, int count) {
+		CandleSeries series = new CandleSeries("Test", this.contract, barSize, this.open, this.close);
+		int barsPerDay = (int) (TradingCalendar.getDurationInSeconds(this.open, this.close) / barSize);
+		int candles = (barSize == 300 ? barsPerDay * count : count);
+		for (int i = 0; i < candles; i++) {
+			ZonedDateTime dayOpen = this.open.plusDays(i / barsPerDay);
+			addCandle(series, new CandlePeriod(dayOpen.plusSeconds((i % barsPerDay) * (long) barSize), barSize));
+		}
+		return series;
+	}
+
+	/**
+	 * Method addCandle.
+	 * 
+	 * @param series
+	 *            CandleSeries
+	 * @param period
+	 *            CandlePeriod
+	 */
+	private void addCandle(CandleSeries series, CandlePeriod period) {
+		Tradingday tradingday = new Tradingday(TradingCalendar.getDateAtTime(period.getStart(), this.open),
+				TradingCalendar.getDateAtTime(period.getStart(), this.close));
+		series.add(this.contract, tradingday, period, 10, 11, 9, 10.5, 100, 10.25, 1, period.getEnd());
+	}
+}
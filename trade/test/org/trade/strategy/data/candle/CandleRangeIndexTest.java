@@ -0,0 +1,325 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.strategy.data.candle;
+
+import static org.junit.Assert.*;
+
+import java.time.ZonedDateTime;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.core.util.TradingCalendar;
+import org.trade.dictionary.valuetype.Currency;
+import org.trade.dictionary.valuetype.Exchange;
+import org.trade.dictionary.valuetype.SECType;
+import org.trade.persistent.dao.Candle;
+import org.trade.persistent.dao.Contract;
+import org.trade.persistent.dao.Tradingday;
+import org.trade.strategy.data.CandleSeries;
+
+/**
+ * Some tests for the {@link CandleRangeIndex} class and the range bars of a
+ * {@link CandleSeries}.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class CandleRangeIndexTest {
+
+	private final static Logger _log = LoggerFactory.getLogger(CandleRangeIndexTest.class);
+	@Rule
+	public TestName name = new TestName();
+
+	private Contract contract = null;
+	private ZonedDateTime open = null;
+	private ZonedDateTime close = null;
+
+	/**
+	 * Method setUpBeforeClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * Method setUp.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		ZonedDateTime today = TradingCalendar.getDateTimeNowMarketTimeZone();
+		this.contract = new Contract(SECType.STOCK, "TEST", Exchange.SMART, Currency.USD, null, null);
+		this.open = TradingCalendar.getTradingDayStart(today);
+		this.close = TradingCalendar.getTradingDayEnd(today);
+	}
+
+	/**
+	 * Method tearDown.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * Method tearDownAfterClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Test
+	public void testRangeAggregates() {
+		try {
+			Random random = new Random(7);
+			int size = 1000;
+			double[][] values = new double[size][];
+			CandleRangeIndex rangeIndex = new CandleRangeIndex(1);
+			for (int i = 0; i < size; i++) {
+				values[i] = randomCandle(random);
+				add(rangeIndex, values[i]);
+			}
+			assertEquals("1", size, rangeIndex.size());
+			assertRanges("2", rangeIndex, values, random);
+
+			/*
+			 * Change a candle part way through and append it and the rest
+			 * again.
+			 */
+			rangeIndex.truncate(600);
+			for (int i = 600; i < size; i++) {
+				values[i] = randomCandle(random);
+				add(rangeIndex, values[i]);
+			}
+			assertRanges("3", rangeIndex, values, random);
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	@Test
+	public void testSeriesBar() {
+		try {
+			CandleSeries series = new CandleSeries("Test", this.contract, 300, this.open, this.close);
+			Tradingday tradingday = new Tradingday(this.open, this.close);
+			Random random = new Random(3);
+			int size = (int) (TradingCalendar.getDurationInSeconds(this.open, this.close) / 300);
+			for (int i = 0; i < size; i++) {
+				double[] value = randomCandle(random);
+				CandlePeriod period = new CandlePeriod(this.open.plusSeconds(i * 300), 300);
+				series.add(this.contract, tradingday, period, value[0], value[1], value[2], value[3],
+						(long) value[4], value[3], (int) value[5], period.getEnd());
+			}
+			ZonedDateTime start = this.open.plusMinutes(30);
+			ZonedDateTime end = this.open.plusMinutes(90);
+			assertBar("1", series, start, end);
+			assertAverageBar("2", series, start, end, true);
+			assertAverageBar("3", series, start, end, false);
+
+			/*
+			 * Update a candle in the range as a live bar would be.
+			 */
+			CandleItem candleItem = (CandleItem) series.getDataItem(10);
+			candleItem.setHigh(candleItem.getHigh() + 5);
+			candleItem.setVolume(candleItem.getVolume() + 1000);
+			assertBar("4", series, this.open, end);
+			assertAverageBar("5", series, start, end, true);
+			assertAverageBar("6", series, this.open, this.close, false);
+
+			assertNull("7", series.getBar(this.close.plusHours(1), this.close.plusHours(2)));
+			assertNull("8", series.getAverageBar(this.close.plusHours(1), this.close.plusHours(2), true));
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	/**
+	 * Method assertRanges. Check random ranges against sums of the values.
+	 * 
+	 * @param message
+	 *            String
+	 * @param rangeIndex
+	 *            CandleRangeIndex
+	 * @param values
+	 *            double[][] open, high, low, close, volume, count
+	 * @param random
+	 *            Random
+	 */
+	private static void assertRanges(String message, CandleRangeIndex rangeIndex, double[][] values,
+			Random random) {
+		for (int n = 0; n < 500; n++) {
+			int from = random.nextInt(values.length);
+			int to = from + 1 + random.nextInt(values.length - from);
+			double high = -Double.MAX_VALUE;
+			double low = Double.MAX_VALUE;
+			double sumClose = 0;
+			double sumVolumeOpen = 0;
+			long volume = 0;
+			long count = 0;
+			int volumeCount = 0;
+			for (int i = from; i < to; i++) {
+				high = Math.max(high, values[i][1]);
+				low = Math.min(low, values[i][2]);
+				sumClose += values[i][3];
+				sumVolumeOpen += values[i][4] * values[i][0];
+				volume += (long) values[i][4];
+				count += (long) values[i][5];
+				volumeCount += (values[i][4] > 0 ? 1 : 0);
+			}
+			assertEquals(message, high, rangeIndex.getHigh(from, to), 0);
+			assertEquals(message, low, rangeIndex.getLow(from, to), 0);
+			assertEquals(message, sumClose, rangeIndex.getSumClose(from, to, false), 1e-9);
+			assertEquals(message, sumVolumeOpen, rangeIndex.getSumOpen(from, to, true), 1e-6);
+			assertEquals(message, volume, rangeIndex.getVolume(from, to));
+			assertEquals(message, count, rangeIndex.getCount(from, to));
+			assertEquals(message, volumeCount, rangeIndex.getVolumeCount(from, to));
+		}
+	}
+
+	/**
+	 * Method assertBar. Check the series bar against its candles.
+	 * 
+	 * @param message
+	 *            String
+	 * @param series
+	 *            CandleSeries
+	 * @param start
+	 *            ZonedDateTime
+	 * @param end
+	 *            ZonedDateTime
+	 */
+	private static void assertBar(String message, CandleSeries series, ZonedDateTime start, ZonedDateTime end) {
+		Candle candle = series.getBar(start, end);
+		int from = series.indexOf(start);
+		int to = series.indexOf(end);
+		double high = 0;
+		double low = Double.MAX_VALUE;
+		long volume = 0;
+		for (int i = from; i < to; i++) {
+			high = Math.max(high, series.getHigh(i));
+			low = Math.min(low, series.getLow(i));
+			volume += series.getVolume(i);
+		}
+		assertEquals(message, start, candle.getStartPeriod());
+		assertEquals(message, ((CandleItem) series.getDataItem(to - 1)).getPeriod().getEnd(), candle.getEndPeriod());
+		assertEquals(message, series.getOpen(from), candle.getOpen().doubleValue(), 0);
+		assertEquals(message, series.getClose(to - 1), candle.getClose().doubleValue(), 0);
+		assertEquals(message, high, candle.getHigh().doubleValue(), 0);
+		assertEquals(message, low, candle.getLow().doubleValue(), 0);
+		assertEquals(message, volume, candle.getVolume().longValue());
+	}
+
+	/**
+	 * Method assertAverageBar. Check the series average bar against its
+	 * candles, the end date is inclusive.
+	 * 
+	 * @param message
+	 *            String
+	 * @param series
+	 *            CandleSeries
+	 * @param start
+	 *            ZonedDateTime
+	 * @param end
+	 *            ZonedDateTime
+	 * @param weighted
+	 *            boolean
+	 */
+	private static void assertAverageBar(String message, CandleSeries series, ZonedDateTime start,
+			ZonedDateTime end, boolean weighted) {
+		Candle candle = series.getAverageBar(start, end, weighted);
+		int from = series.indexOf(start);
+		int to = series.indexOf(end);
+		to = (to < 0 ? series.getItemCount() : to + 1);
+		double sumHigh = 0;
+		double sumVwap = 0;
+		long volume = 0;
+		int candles = 0;
+		for (int i = from; i < to; i++) {
+			sumHigh += (weighted ? series.getVolume(i) : 1) * series.getHigh(i);
+			sumVwap += series.getVolume(i) * series.getClose(i);
+			volume += series.getVolume(i);
+			candles += (series.getVolume(i) > 0 ? 1 : 0);
+		}
+		assertEquals(message, sumHigh / (weighted ? volume : candles), candle.getHigh().doubleValue(), 1e-9);
+		assertEquals(message, sumVwap / volume, candle.getVwap().doubleValue(), 1e-9);
+		assertEquals(message, volume, candle.getVolume().longValue());
+	}
+
+	/**
+	 * Method randomCandle.
+	 * 
+	 * @param random
+	 *            Random
+	 * @return double[] open, high, low, close, volume, count
+	 */
+	private static double[] randomCandle(Random random) {
+		double open = 20 + random.nextInt(1000) / 100d;
+		double high = open + random.nextInt(100) / 100d;
+		double low = open - random.nextInt(100) / 100d;
+		double close = low + (high - low) * random.nextDouble();
+		return new double[] { open, high, low, close, random.nextInt(5) * 1000, random.nextInt(50) };
+	}
+
+	/**
+	 * Method add.
+	 * 
+	 * @param rangeIndex
+	 *            CandleRangeIndex
+	 * @param value
+	 *            double[] open, high, low, close, volume, count
+	 */
+	private static void add(CandleRangeIndex rangeIndex, double[] value) {
+		rangeIndex.add(value[0], value[1], value[2], value[3], (long) value[4], (int) value[5]);
+	}
+}
@@ -0,0 +1,196 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.strategy.data.candle;
+
+import static org.junit.Assert.*;
+
+import java.time.ZonedDateTime;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.core.util.TradingCalendar;
+import org.trade.dictionary.valuetype.Currency;
+import org.trade.dictionary.valuetype.Exchange;
+import org.trade.dictionary.valuetype.SECType;
+import org.trade.persistent.dao.Candle;
+import org.trade.persistent.dao.Contract;
+import org.trade.persistent.dao.Tradingday;
+import org.trade.strategy.data.CandleSeries;
+
+/**
+ * Some tests for the {@link CandleStore} class.
+ * 
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class CandleStoreTest {
+
+	private final static Logger _log = LoggerFactory.getLogger(CandleStoreTest.class);
+	@Rule
+	public TestName name = new TestName();
+
+	private Contract contract = null;
+	private Tradingday tradingday = null;
+
+	/**
+	 * Method setUpBeforeClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	/**
+	 * Method setUp.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		ZonedDateTime today = TradingCalendar.getDateTimeNowMarketTimeZone();
+		this.contract = new Contract(SECType.STOCK, "TEST", Exchange.SMART, Currency.USD, null, null);
+		this.tradingday = new Tradingday(TradingCalendar.getTradingDayStart(today),
+				TradingCalendar.getTradingDayEnd(today));
+	}
+
+	/**
+	 * Method tearDown.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * Method tearDownAfterClass.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Test
+	public void testStoreGrows() {
+		try {
+			CandleStore store = new CandleStore(2);
+			for (int i = 0; i < 1000; i++) {
+				assertEquals("1", i, store.add(i * 60, i, i + 1, i - 1, i + 0.5, i * 100, i + 0.25, i));
+			}
+			assertEquals("2", 1000, store.size());
+			assertEquals("3", 999 * 60, store.getTime(999));
+			assertEquals("4", 1000d, store.getHigh(999), 0);
+			assertEquals("5", 99900, store.getVolume(999));
+			store.clear();
+			assertEquals("6", 0, store.size());
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	@Test
+	public void testCandleCreatedOnUse() {
+		try {
+			CandleStore store = new CandleStore();
+			CandlePeriod period = new CandlePeriod(this.tradingday.getOpen(), 300);
+			CandleItem candleItem = new CandleItem(store, this.contract, this.tradingday, period, 10.0, 11.0, 9.5,
+					10.5, 1000, 10.25, 20, period.getEnd());
+			assertNull("1", candleItem.getVersion());
+			assertEquals("2", period.getStart().toEpochSecond(), store.getTime(candleItem.getRow()));
+
+			candleItem.setClose(10.75);
+			assertEquals("3", 10.75, store.getClose(candleItem.getRow()), 0);
+
+			Candle candle = candleItem.getCandle();
+			assertSame("4", candle, candleItem.getCandle());
+			assertEquals("5", 10.75, candle.getClose().doubleValue(), 0);
+			assertEquals("6", 1000, candle.getVolume().longValue());
+
+			candleItem.setHigh(12.0);
+			assertEquals("7", 12.0, candle.getHigh().doubleValue(), 0);
+			assertEquals("8", 12.0, candleItem.getHigh(), 0);
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+
+	@Test
+	public void testCandleSeriesValues() {
+		try {
+			CandleSeries source = new CandleSeries("Test", this.contract, 300, this.tradingday.getOpen(),
+					this.tradingday.getClose());
+			ZonedDateTime start = this.tradingday.getOpen();
+			for (int i = 0; i < 10; i++) {
+				CandlePeriod period = new CandlePeriod(start.plusMinutes(i * 5), 300);
+				source.add(this.contract, this.tradingday, period, i, i + 2, i - 1, i + 1, i * 10, i + 0.5, i,
+						period.getEnd());
+			}
+			assertEquals("1", 10, source.getItemCount());
+			assertEquals("2", 10d, source.getClose(9), 0);
+			assertEquals("3", 90, source.getVolume(9));
+			assertEquals("4", start.plusMinutes(45).toEpochSecond(), source.getStartEpochSecond(9));
+
+			/*
+			 * Items from another series are copied into this series store.
+			 */
+			CandleSeries series = new CandleSeries("Test", this.contract, 300, this.tradingday.getOpen(),
+					this.tradingday.getClose());
+			series.add((CandleItem) source.getDataItem(0), false);
+			CandleItem candleItem = (CandleItem) series.getDataItem(0);
+			assertNotSame("5", source.getDataItem(0), candleItem);
+			candleItem.setClose(5.0);
+			assertEquals("6", 1d, source.getClose(0), 0);
+			assertEquals("7", 5d, series.getClose(0), 0);
+		} catch (Exception | AssertionError ex) {
+			String msg = "Error running " + name.getMethodName() + " msg: " + ex.getMessage();
+			_log.error(msg);
+			fail(msg);
+		}
+	}
+}